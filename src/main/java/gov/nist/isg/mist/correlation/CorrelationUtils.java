@@ -71,11 +71,18 @@ public class CorrelationUtils {
    */
   public static double computeCrossCorrelation(ImageTile<?> i1, ImageTile<?> i2, int x, int y) {
 
+    // PCIAM and translation refinement share the memoized values of each pair
+    Double cached = NccCache.get(i1, i2, x, y);
+    if (cached != null)
+      return cached;
+
     // translation x,y is from i1, to i2.
     Array2DView a1 = extractSubRegion(i1, x, y);
     Array2DView a2 = extractSubRegion(i2, -x, -y);
 
-    return crossCorrelation(a1, a2);
+    double ncc = crossCorrelation(a1, a2);
+    NccCache.put(i1, i2, x, y, ncc);
+    return ncc;
   }
 
 
@@ -0,0 +1,326 @@
+// NIST-developed software is provided by NIST as a public service. You may use, copy and distribute copies of the software in any medium, provided that you keep intact this entire notice. You may improve, modify and create derivative works of the software or any portion of the software, and you may copy and distribute such modifications or works. Modified works should carry a notice stating that you changed the software and should note the date and nature of any such change. Please explicitly acknowledge the National Institute of Standards and Technology as the source of the software.
+
+// NIST-developed software is expressly provided "AS IS." NIST MAKES NO WARRANTY OF ANY KIND, EXPRESS, IMPLIED, IN FACT OR ARISING BY OPERATION OF LAW, INCLUDING, WITHOUT LIMITATION, THE IMPLIED WARRANTY OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE, NON-INFRINGEMENT AND DATA ACCURACY. NIST NEITHER REPRESENTS NOR WARRANTS THAT THE OPERATION OF THE SOFTWARE WILL BE UNINTERRUPTED OR ERROR-FREE, OR THAT ANY DEFECTS WILL BE CORRECTED. NIST DOES NOT WARRANT OR MAKE ANY REPRESENTATIONS REGARDING THE USE OF THE SOFTWARE OR THE RESULTS THEREOF, INCLUDING BUT NOT LIMITED TO THE CORRECTNESS, ACCURACY, RELIABILITY, OR USEFULNESS OF THE SOFTWARE.
+
+// You are solely responsible for determining the appropriateness of using and distributing the software and you assume all risks associated with its use, including but not limited to the risks and costs of program errors, compliance with applicable laws, damage to or loss of data, programs or equipment, and the unavailability or interruption of operation. This software is not intended to be used in any situation where a failure could cause risk of injury or damage to property. The software developed by NIST employees is not subject to copyright protection within the United States.
+
+
+
+package gov.nist.isg.mist.correlation;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import gov.nist.isg.mist.lib.imagetile.ImageTile;
+
+/**
+ * Bounded memo of normalized cross correlation values keyed by image pair and offset. Both the
+ * PCIAM peak interpretation and the translation refinement hill climbs evaluate the NCC of the
+ * same pair at the same offsets, so routing them through a shared cache ensures each offset of a
+ * pair is computed at most once per run.
+ *
+ * <p>Pairs are identified by the grid row and column of both tiles, so the cache never holds a
+ * reference to a tile and must be cleared whenever the pixel data at a grid position changes (for
+ * example between timeslices). The cache is split into lock stripes by pair, each holding an equal
+ * share of the maxEntries values and evicting its least recently used pairs as a whole. The
+ * values of a pair are kept in a primitive open addressing table.</p>
+ *
+ * <p>The cache is disabled by default (maxEntries of 0).</p>
+ *
+ * @author Michael Majurski
+ */
+public class NccCache {
+
+  private static final int DEFAULT_NUM_STRIPES = 16;
+
+  private static volatile Stripe[] stripes = new Stripe[0];
+
+  private static final AtomicLong hits = new AtomicLong(0);
+  private static final AtomicLong misses = new AtomicLong(0);
+
+  /**
+   * Sets the maximum number of memoized values and clears the cache. A size of 0 disables it.
+   *
+   * @param maxEntries the maximum number of NCC values to keep
+   */
+  public static void configure(int maxEntries) {
+    configure(maxEntries, DEFAULT_NUM_STRIPES);
+  }
+
+  /**
+   * Sets the maximum number of memoized values and the number of lock stripes they are split
+   * across, and clears the cache. A size of 0 disables it.
+   *
+   * @param maxEntries the maximum number of NCC values to keep
+   * @param numStripes the number of independently locked stripes
+   */
+  public static synchronized void configure(int maxEntries, int numStripes) {
+    if (maxEntries <= 0) {
+      stripes = new Stripe[0];
+    } else {
+      int n = Math.max(1, Math.min(numStripes, maxEntries));
+      int capacity = (maxEntries + n - 1) / n;
+      Stripe[] newStripes = new Stripe[n];
+      for (int i = 0; i < n; i++)
+        newStripes[i] = new Stripe(capacity);
+      stripes = newStripes;
+    }
+    hits.set(0);
+    misses.set(0);
+  }
+
+  /**
+   * @return true if NCC values are being memoized
+   */
+  public static boolean isEnabled() {
+    return stripes.length > 0;
+  }
+
+  /**
+   * Drops all memoized values and resets the hit statistics.
+   */
+  public static void clear() {
+    for (Stripe stripe : stripes)
+      stripe.clear();
+    hits.set(0);
+    misses.set(0);
+  }
+
+  /**
+   * Looks up the memoized NCC of a pair at an offset.
+   *
+   * @param i1 the first image (north/west neighbor)
+   * @param i2 the second image (current)
+   * @param x  the x component of the translation from i1 to i2
+   * @param y  the y component of the translation from i1 to i2
+   * @return the memoized NCC, or null if it has not been computed
+   */
+  public static Double get(ImageTile<?> i1, ImageTile<?> i2, int x, int y) {
+    Stripe[] s = stripes;
+    if (s.length == 0)
+      return null;
+
+    PairKey key = new PairKey(i1, i2);
+    double val = s[key.stripe(s.length)].get(key, offsetKey(x, y));
+    if (Double.isNaN(val)) {
+      misses.incrementAndGet();
+      return null;
+    }
+    hits.incrementAndGet();
+    return val;
+  }
+
+  /**
+   * Memoizes the NCC of a pair at an offset, evicting the least recently used pairs of its stripe
+   * if the stripe is full.
+   *
+   * @param i1  the first image (north/west neighbor)
+   * @param i2  the second image (current)
+   * @param x   the x component of the translation from i1 to i2
+   * @param y   the y component of the translation from i1 to i2
+   * @param ncc the normalized cross correlation at (x,y)
+   */
+  public static void put(ImageTile<?> i1, ImageTile<?> i2, int x, int y, double ncc) {
+    Stripe[] s = stripes;
+    if (s.length == 0 || Double.isNaN(ncc))
+      return;
+
+    PairKey key = new PairKey(i1, i2);
+    s[key.stripe(s.length)].put(key, offsetKey(x, y), ncc);
+  }
+
+  /**
+   * @return the number of lookups answered from the cache since it was last cleared
+   */
+  public static long getHits() {
+    return hits.get();
+  }
+
+  /**
+   * @return the number of lookups that required computing the NCC since the cache was last cleared
+   */
+  public static long getMisses() {
+    return misses.get();
+  }
+
+  /**
+   * @return the number of NCC values currently memoized
+   */
+  public static long getNumEntries() {
+    long n = 0;
+    for (Stripe stripe : stripes)
+      n += stripe.size();
+    return n;
+  }
+
+  private static long offsetKey(int x, int y) {
+    return (((long) x) << 32) | (y & 0xffffffffL);
+  }
+
+  /**
+   * A lock stripe of the cache, holding the values of the pairs that hash to it
+   */
+  private static class Stripe {
+    private final int capacity;
+    private int numEntries = 0;
+
+    // access ordered so the first entry is always the least recently used pair
+    private final LinkedHashMap<PairKey, OffsetTable> pairs =
+        new LinkedHashMap<PairKey, OffsetTable>(16, 0.75f, true);
+
+    Stripe(int capacity) {
+      this.capacity = capacity;
+    }
+
+    synchronized double get(PairKey key, long offset) {
+      OffsetTable values = this.pairs.get(key);
+      return values == null ? Double.NaN : values.get(offset);
+    }
+
+    synchronized void put(PairKey key, long offset, double ncc) {
+      OffsetTable values = this.pairs.get(key);
+      if (values == null) {
+        values = new OffsetTable();
+        this.pairs.put(key, values);
+      }
+
+      // a single pair never evicts itself, it simply stops growing once it fills the stripe
+      if (values.size() >= this.capacity)
+        return;
+
+      if (values.put(offset, ncc))
+        this.numEntries++;
+
+      Iterator<Map.Entry<PairKey, OffsetTable>> iter = this.pairs.entrySet().iterator();
+      while (this.numEntries > this.capacity && iter.hasNext()) {
+        Map.Entry<PairKey, OffsetTable> eldest = iter.next();
+        if (eldest.getKey().equals(key))
+          continue;
+
+        this.numEntries -= eldest.getValue().size();
+        iter.remove();
+      }
+    }
+
+    synchronized void clear() {
+      this.pairs.clear();
+      this.numEntries = 0;
+    }
+
+    synchronized int size() {
+      return this.numEntries;
+    }
+  }
+
+  /**
+   * Open addressing table from packed (x,y) offsets to NCC values, without boxing
+   */
+  private static class OffsetTable {
+    // no valid offset packs to this key, translations are bounded by the image size
+    private static final long EMPTY = Long.MIN_VALUE;
+
+    private long[] keys;
+    private double[] values;
+    private int size;
+
+    OffsetTable() {
+      this.keys = new long[16];
+      this.values = new double[16];
+      Arrays.fill(this.keys, EMPTY);
+      this.size = 0;
+    }
+
+    int size() {
+      return this.size;
+    }
+
+    double get(long key) {
+      int mask = this.keys.length - 1;
+      for (int i = slot(key, mask); ; i = (i + 1) & mask) {
+        if (this.keys[i] == key)
+          return this.values[i];
+        if (this.keys[i] == EMPTY)
+          return Double.NaN;
+      }
+    }
+
+    /**
+     * @return true if the key was not already present
+     */
+    boolean put(long key, double value) {
+      if ((this.size + 1) * 2 > this.keys.length)
+        grow();
+
+      int mask = this.keys.length - 1;
+      for (int i = slot(key, mask); ; i = (i + 1) & mask) {
+        if (this.keys[i] == key) {
+          this.values[i] = value;
+          return false;
+        }
+        if (this.keys[i] == EMPTY) {
+          this.keys[i] = key;
+          this.values[i] = value;
+          this.size++;
+          return true;
+        }
+      }
+    }
+
+    private void grow() {
+      long[] oldKeys = this.keys;
+      double[] oldValues = this.values;
+      this.keys = new long[oldKeys.length * 2];
+      this.values = new double[oldKeys.length * 2];
+      Arrays.fill(this.keys, EMPTY);
+      this.size = 0;
+      for (int i = 0; i < oldKeys.length; i++) {
+        if (oldKeys[i] != EMPTY)
+          put(oldKeys[i], oldValues[i]);
+      }
+    }
+
+    private static int slot(long key, int mask) {
+      long h = key * 0x9E3779B97F4A7C15L;
+      return (int) (h ^ (h >>> 32)) & mask;
+    }
+  }
+
+  /**
+   * Ordered image pair identified by the grid position of both tiles.
+   */
+  private static class PairKey {
+    private final int row1;
+    private final int col1;
+    private final int row2;
+    private final int col2;
+
+    PairKey(ImageTile<?> i1, ImageTile<?> i2) {
+      this.row1 = i1.getRow();
+      this.col1 = i1.getCol();
+      this.row2 = i2.getRow();
+      this.col2 = i2.getCol();
+    }
+
+    int stripe(int numStripes) {
+      return (hashCode() & 0x7fffffff) % numStripes;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof PairKey))
+        return false;
+      PairKey other = (PairKey) o;
+      return this.row1 == other.row1 && this.col1 == other.col1 && this.row2 == other.row2
+          && this.col2 == other.col2;
+    }
+
+    @Override
+    public int hashCode() {
+      return ((this.row1 * 31 + this.col1) * 31 + this.row2) * 31 + this.col2;
+    }
+  }
+
+}
@@ -136,6 +136,8 @@ public class StitchingStatistics {
   // Variables across each time-slice
   private List<Boolean> isRunSequential;
   private List<Boolean> isEnableFreeingPixelData;
+  private List<Long> predictedPeakMemory;
+  private List<Long> observedPeakMemory;
 
   private List<HashMap<String, Long>> startTimers;
   private List<HashMap<String, Long>> endTimers;
@@ -178,6 +180,8 @@ public class StitchingStatistics {
 
     this.isRunSequential = new ArrayList<Boolean>();
     this.isEnableFreeingPixelData = new ArrayList<Boolean>();
+    this.predictedPeakMemory = new ArrayList<Long>();
+    this.observedPeakMemory = new ArrayList<Long>();
     this.startTimers = new ArrayList<HashMap<String, Long>>();
     this.endTimers = new ArrayList<HashMap<String, Long>>();
     this.repeatability = new ArrayList<HashMap<Direction, Integer>>();
@@ -232,6 +236,8 @@ public class StitchingStatistics {
 
       this.isRunSequential.add(false);
       this.isEnableFreeingPixelData.add(false);
+      this.predictedPeakMemory.add(-1L);
+      this.observedPeakMemory.add(-1L);
       this.errorReportStatus.add(ErrorReportStatus.PASSED);
       this.startTimers.add(startTimer);
       this.endTimers.add(endTimer);
@@ -368,6 +374,24 @@ public class StitchingStatistics {
     this.isEnableFreeingPixelData.set(currentTimeSlice, val);
   }
 
+  /**
+   * Sets the peak memory predicted by the memory planner for the current timeslice
+   *
+   * @param bytes the predicted peak in bytes, or -1 if the executor has no memory model
+   */
+  public void setPredictedPeakMemory(long bytes) {
+    this.predictedPeakMemory.set(currentTimeSlice, bytes);
+  }
+
+  /**
+   * Sets the peak heap memory observed while stitching the current timeslice
+   *
+   * @param bytes the observed peak in bytes
+   */
+  public void setObservedPeakMemory(long bytes) {
+    this.observedPeakMemory.set(currentTimeSlice, bytes);
+  }
+
 
 
   /**
@@ -565,6 +589,26 @@ public class StitchingStatistics {
     return this.isEnableFreeingPixelData.get(timeslice);
   }
 
+  /**
+   * Gets the peak memory predicted by the memory planner for a timeslice
+   *
+   * @param timeslice the timeslice
+   * @return the predicted peak in bytes, or -1 if it was not predicted
+   */
+  public long getPredictedPeakMemory(int timeslice) {
+    return this.predictedPeakMemory.get(timeslice);
+  }
+
+  /**
+   * Gets the peak heap memory observed while stitching a timeslice
+   *
+   * @param timeslice the timeslice
+   * @return the observed peak in bytes, or -1 if it was not observed
+   */
+  public long getObservedPeakMemory(int timeslice) {
+    return this.observedPeakMemory.get(timeslice);
+  }
+
 
   /**
    * Checks if a direction has an overlap
@@ -1049,6 +1093,12 @@ public class StitchingStatistics {
         writer.write("Running sequential version (LOW MEMORY): " + this.isRunSequential(timeSlice) + newLine);
         writer.write("Keep all pixel data in memory: " +
             !this.isEnableFreeingPixelData(timeSlice) + newLine);
+        if (this.getPredictedPeakMemory(timeSlice) >= 0)
+          writer.write("Predicted peak memory (MB): "
+              + this.getPredictedPeakMemory(timeSlice) / (1024L * 1024L) + newLine);
+        if (this.getObservedPeakMemory(timeSlice) >= 0)
+          writer.write("Observed peak heap memory (MB): "
+              + this.getObservedPeakMemory(timeSlice) / (1024L * 1024L) + newLine);
 
         writer.write(newLine);
         for (Direction dir : TileGrid.Direction.values()) {
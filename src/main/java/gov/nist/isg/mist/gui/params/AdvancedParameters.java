@@ -69,6 +69,35 @@ public class AdvancedParameters implements StitchingAppParamFunctions {
       "numTranslationRefinementStartPoints";
   private static final String RUN_HEADLESS = "headless";
   private static final String IS_SUPPRESS_MODAL_WARNING_DIALOG = "isSuppressModelWarningDialog";
+  private static final String FFT_HEAP_BUDGET_MB = "fftHeapBudgetMB";
+  private static final String FFT_OFF_HEAP_BUDGET_MB = "fftOffHeapBudgetMB";
+  private static final String IS_USE_FLAT_JAVA_FFT = "isUseFlatJavaFft";
+  private static final String NUM_SHARDS = "numShards";
+  private static final String SHARD_DIRECTORY = "shardDirectory";
+  private static final String SHARD_WORKER_MEMORY_MB = "shardWorkerMemoryMB";
+  private static final String NUM_CPU_PARTITIONS = "numCpuPartitions";
+  private static final String PARALLEL_TIFF_WRITER = "parallelTiffWriter";
+  private static final String OUTPUT_OME_ZARR = "outputOmeZarr";
+  private static final String PREVIEW_DOWNSAMPLE = "previewDownsample";
+  private static final String MULTI_CHANNEL_PATTERNS = "multiChannelPatterns";
+  private static final String TIME_SERIES_WARM_START = "timeSeriesWarmStart";
+  private static final String WARM_START_RADIUS = "warmStartRadius";
+  private static final String WARM_START_CORR_THRESHOLD = "warmStartCorrThreshold";
+  private static final String LIVE_STITCHING = "liveStitching";
+  private static final String LIVE_SETTLE_MILLIS = "liveSettleMillis";
+  private static final String LIVE_TIMEOUT_SECONDS = "liveTimeoutSeconds";
+  private static final String CHECKPOINT_JOURNAL = "checkpointJournal";
+  private static final String RESUME_FROM_CHECKPOINT = "resumeFromCheckpoint";
+  private static final String NCC_CACHE_SIZE = "nccCacheSize";
+  private static final String DAG_SCHEDULER = "dagScheduler";
+  private static final String MLE_SEED = "mleSeed";
+  private static final String LEAST_SQUARES_POSITIONS = "leastSquaresPositions";
+  private static final String COMPACT_TILE_GRID = "compactTileGrid";
+  private static final String FLAT_FIELD_PATH = "flatFieldPath";
+  private static final String DARK_FIELD_PATH = "darkFieldPath";
+  private static final String BACKGROUND_SUBTRACTION = "backgroundSubtraction";
+  private static final String FFT_PADDING = "fftPadding";
+  private static final String PARALLEL_PAIR_REFINEMENT = "parallelPairRefinement";
 
 
   private StitchingType programType;
@@ -102,6 +131,35 @@ public class AdvancedParameters implements StitchingAppParamFunctions {
   private boolean useBioFormats;
   private boolean enableCudaExceptions;
   private boolean suppressModelWarningDialog;
+  private int fftHeapBudgetMB;
+  private int fftOffHeapBudgetMB;
+  private boolean useFlatJavaFft;
+  private int numShards;
+  private String shardDirectory;
+  private int shardWorkerMemoryMB;
+  private int numCpuPartitions;
+  private boolean parallelTiffWriter;
+  private boolean outputOmeZarr;
+  private int previewDownsample;
+  private String multiChannelPatterns;
+  private boolean timeSeriesWarmStart;
+  private int warmStartRadius;
+  private double warmStartCorrThreshold;
+  private boolean liveStitching;
+  private int liveSettleMillis;
+  private int liveTimeoutSeconds;
+  private boolean checkpointJournal;
+  private boolean resumeFromCheckpoint;
+  private int nccCacheSize;
+  private boolean dagScheduler;
+  private int mleSeed;
+  private boolean leastSquaresPositions;
+  private boolean compactTileGrid;
+  private String flatFieldPath;
+  private String darkFieldPath;
+  private boolean backgroundSubtraction;
+  private boolean fftPadding;
+  private boolean parallelPairRefinement;
 
   public AdvancedParameters() {
     this.programType = StitchingType.AUTO;
@@ -133,6 +191,35 @@ public class AdvancedParameters implements StitchingAppParamFunctions {
     this.overlapUncertainty = Double.NaN;
     this.translationRefinementType = Stitching.TranslationRefinementType.SINGLE_HILL_CLIMB;
     suppressModelWarningDialog = false;
+    this.fftHeapBudgetMB = 0;
+    this.fftOffHeapBudgetMB = 0;
+    this.useFlatJavaFft = false;
+    this.numShards = 0;
+    this.shardDirectory = "";
+    this.shardWorkerMemoryMB = 0;
+    this.numCpuPartitions = 0;
+    this.parallelTiffWriter = false;
+    this.outputOmeZarr = false;
+    this.previewDownsample = 0;
+    this.multiChannelPatterns = "";
+    this.timeSeriesWarmStart = false;
+    this.warmStartRadius = 10;
+    this.warmStartCorrThreshold = 0.5;
+    this.liveStitching = false;
+    this.liveSettleMillis = 2000;
+    this.liveTimeoutSeconds = 600;
+    this.checkpointJournal = false;
+    this.resumeFromCheckpoint = false;
+    this.nccCacheSize = 0;
+    this.dagScheduler = false;
+    this.mleSeed = 0;
+    this.leastSquaresPositions = false;
+    this.compactTileGrid = false;
+    this.flatFieldPath = "";
+    this.darkFieldPath = "";
+    this.backgroundSubtraction = false;
+    this.fftPadding = true;
+    this.parallelPairRefinement = false;
   }
 
   @Override
@@ -311,6 +398,64 @@ public class AdvancedParameters implements StitchingAppParamFunctions {
     else if (key.equals(NUM_TRANS_REFINEMENT_START_POINTS))
       this.numTranslationRefinementStartPoints = StitchingParamUtils.loadInteger
           (value, this.numTranslationRefinementStartPoints);
+    else if (key.equals(FFT_HEAP_BUDGET_MB))
+      this.fftHeapBudgetMB = StitchingParamUtils.loadInteger(value, this.fftHeapBudgetMB);
+    else if (key.equals(FFT_OFF_HEAP_BUDGET_MB))
+      this.fftOffHeapBudgetMB = StitchingParamUtils.loadInteger(value, this.fftOffHeapBudgetMB);
+    else if (key.equals(IS_USE_FLAT_JAVA_FFT))
+      this.useFlatJavaFft = StitchingParamUtils.loadBoolean(value, this.useFlatJavaFft);
+    else if (key.equals(NUM_SHARDS))
+      this.numShards = StitchingParamUtils.loadInteger(value, this.numShards);
+    else if (key.equals(SHARD_DIRECTORY))
+      this.shardDirectory = value;
+    else if (key.equals(SHARD_WORKER_MEMORY_MB))
+      this.shardWorkerMemoryMB = StitchingParamUtils.loadInteger(value, this.shardWorkerMemoryMB);
+    else if (key.equals(NUM_CPU_PARTITIONS))
+      this.numCpuPartitions = StitchingParamUtils.loadInteger(value, this.numCpuPartitions);
+    else if (key.equals(PARALLEL_TIFF_WRITER))
+      this.parallelTiffWriter = StitchingParamUtils.loadBoolean(value, this.parallelTiffWriter);
+    else if (key.equals(OUTPUT_OME_ZARR))
+      this.outputOmeZarr = StitchingParamUtils.loadBoolean(value, this.outputOmeZarr);
+    else if (key.equals(PREVIEW_DOWNSAMPLE))
+      this.previewDownsample = StitchingParamUtils.loadInteger(value, this.previewDownsample);
+    else if (key.equals(MULTI_CHANNEL_PATTERNS))
+      this.multiChannelPatterns = value;
+    else if (key.equals(TIME_SERIES_WARM_START))
+      this.timeSeriesWarmStart = StitchingParamUtils.loadBoolean(value, this.timeSeriesWarmStart);
+    else if (key.equals(WARM_START_RADIUS))
+      this.warmStartRadius = StitchingParamUtils.loadInteger(value, this.warmStartRadius);
+    else if (key.equals(WARM_START_CORR_THRESHOLD))
+      this.warmStartCorrThreshold = StitchingParamUtils.loadDouble(value, this.warmStartCorrThreshold);
+    else if (key.equals(LIVE_STITCHING))
+      this.liveStitching = StitchingParamUtils.loadBoolean(value, this.liveStitching);
+    else if (key.equals(LIVE_SETTLE_MILLIS))
+      this.liveSettleMillis = StitchingParamUtils.loadInteger(value, this.liveSettleMillis);
+    else if (key.equals(LIVE_TIMEOUT_SECONDS))
+      this.liveTimeoutSeconds = StitchingParamUtils.loadInteger(value, this.liveTimeoutSeconds);
+    else if (key.equals(CHECKPOINT_JOURNAL))
+      this.checkpointJournal = StitchingParamUtils.loadBoolean(value, this.checkpointJournal);
+    else if (key.equals(RESUME_FROM_CHECKPOINT))
+      this.resumeFromCheckpoint = StitchingParamUtils.loadBoolean(value, this.resumeFromCheckpoint);
+    else if (key.equals(NCC_CACHE_SIZE))
+      this.nccCacheSize = StitchingParamUtils.loadInteger(value, this.nccCacheSize);
+    else if (key.equals(DAG_SCHEDULER))
+      this.dagScheduler = StitchingParamUtils.loadBoolean(value, this.dagScheduler);
+    else if (key.equals(MLE_SEED))
+      this.mleSeed = StitchingParamUtils.loadInteger(value, this.mleSeed);
+    else if (key.equals(LEAST_SQUARES_POSITIONS))
+      this.leastSquaresPositions = StitchingParamUtils.loadBoolean(value, this.leastSquaresPositions);
+    else if (key.equals(COMPACT_TILE_GRID))
+      this.compactTileGrid = StitchingParamUtils.loadBoolean(value, this.compactTileGrid);
+    else if (key.equals(FLAT_FIELD_PATH))
+      this.flatFieldPath = value;
+    else if (key.equals(DARK_FIELD_PATH))
+      this.darkFieldPath = value;
+    else if (key.equals(BACKGROUND_SUBTRACTION))
+      this.backgroundSubtraction = StitchingParamUtils.loadBoolean(value, this.backgroundSubtraction);
+    else if (key.equals(FFT_PADDING))
+      this.fftPadding = StitchingParamUtils.loadBoolean(value, this.fftPadding);
+    else if (key.equals(PARALLEL_PAIR_REFINEMENT))
+      this.parallelPairRefinement = StitchingParamUtils.loadBoolean(value, this.parallelPairRefinement);
     else if (key.equals(RUN_HEADLESS))
       MISTMain.runHeadless = true;
     else if (key.startsWith(CUDA_DEVICE)) {
@@ -362,6 +507,35 @@ public class AdvancedParameters implements StitchingAppParamFunctions {
 //    MISTMain.runHeadless = pref.getBoolean(RUN_HEADLESS, MISTMain.runHeadless);
     this.numTranslationRefinementStartPoints = pref.getInt(NUM_TRANS_REFINEMENT_START_POINTS,
         this.numTranslationRefinementStartPoints);
+    this.fftHeapBudgetMB = pref.getInt(FFT_HEAP_BUDGET_MB, this.fftHeapBudgetMB);
+    this.fftOffHeapBudgetMB = pref.getInt(FFT_OFF_HEAP_BUDGET_MB, this.fftOffHeapBudgetMB);
+    this.useFlatJavaFft = pref.getBoolean(IS_USE_FLAT_JAVA_FFT, this.useFlatJavaFft);
+    this.numShards = pref.getInt(NUM_SHARDS, this.numShards);
+    this.shardDirectory = pref.get(SHARD_DIRECTORY, this.shardDirectory);
+    this.shardWorkerMemoryMB = pref.getInt(SHARD_WORKER_MEMORY_MB, this.shardWorkerMemoryMB);
+    this.numCpuPartitions = pref.getInt(NUM_CPU_PARTITIONS, this.numCpuPartitions);
+    this.parallelTiffWriter = pref.getBoolean(PARALLEL_TIFF_WRITER, this.parallelTiffWriter);
+    this.outputOmeZarr = pref.getBoolean(OUTPUT_OME_ZARR, this.outputOmeZarr);
+    this.previewDownsample = pref.getInt(PREVIEW_DOWNSAMPLE, this.previewDownsample);
+    this.multiChannelPatterns = pref.get(MULTI_CHANNEL_PATTERNS, this.multiChannelPatterns);
+    this.timeSeriesWarmStart = pref.getBoolean(TIME_SERIES_WARM_START, this.timeSeriesWarmStart);
+    this.warmStartRadius = pref.getInt(WARM_START_RADIUS, this.warmStartRadius);
+    this.warmStartCorrThreshold = pref.getDouble(WARM_START_CORR_THRESHOLD, this.warmStartCorrThreshold);
+    this.liveStitching = pref.getBoolean(LIVE_STITCHING, this.liveStitching);
+    this.liveSettleMillis = pref.getInt(LIVE_SETTLE_MILLIS, this.liveSettleMillis);
+    this.liveTimeoutSeconds = pref.getInt(LIVE_TIMEOUT_SECONDS, this.liveTimeoutSeconds);
+    this.checkpointJournal = pref.getBoolean(CHECKPOINT_JOURNAL, this.checkpointJournal);
+    this.resumeFromCheckpoint = pref.getBoolean(RESUME_FROM_CHECKPOINT, this.resumeFromCheckpoint);
+    this.nccCacheSize = pref.getInt(NCC_CACHE_SIZE, this.nccCacheSize);
+    this.dagScheduler = pref.getBoolean(DAG_SCHEDULER, this.dagScheduler);
+    this.mleSeed = pref.getInt(MLE_SEED, this.mleSeed);
+    this.leastSquaresPositions = pref.getBoolean(LEAST_SQUARES_POSITIONS, this.leastSquaresPositions);
+    this.compactTileGrid = pref.getBoolean(COMPACT_TILE_GRID, this.compactTileGrid);
+    this.flatFieldPath = pref.get(FLAT_FIELD_PATH, this.flatFieldPath);
+    this.darkFieldPath = pref.get(DARK_FIELD_PATH, this.darkFieldPath);
+    this.backgroundSubtraction = pref.getBoolean(BACKGROUND_SUBTRACTION, this.backgroundSubtraction);
+    this.fftPadding = pref.getBoolean(FFT_PADDING, this.fftPadding);
+    this.parallelPairRefinement = pref.getBoolean(PARALLEL_PAIR_REFINEMENT, this.parallelPairRefinement);
 
     if (this.cudaDevices == null)
       this.cudaDevices = new ArrayList<CudaDeviceParam>();
@@ -403,6 +577,35 @@ public class AdvancedParameters implements StitchingAppParamFunctions {
     Log.msg(logLevel, IS_ENABLE_CUDA_EXCEPTIONS + ": " + this.enableCudaExceptions);
     Log.msg(logLevel, TRANSLATION_REFINEMENT_TYPE + ": " + this.translationRefinementType);
     Log.msg(logLevel, NUM_TRANS_REFINEMENT_START_POINTS + ": " + this.numTranslationRefinementStartPoints);
+    Log.msg(logLevel, FFT_HEAP_BUDGET_MB + ": " + this.fftHeapBudgetMB);
+    Log.msg(logLevel, FFT_OFF_HEAP_BUDGET_MB + ": " + this.fftOffHeapBudgetMB);
+    Log.msg(logLevel, IS_USE_FLAT_JAVA_FFT + ": " + this.useFlatJavaFft);
+    Log.msg(logLevel, NUM_SHARDS + ": " + this.numShards);
+    Log.msg(logLevel, SHARD_DIRECTORY + ": " + this.shardDirectory);
+    Log.msg(logLevel, SHARD_WORKER_MEMORY_MB + ": " + this.shardWorkerMemoryMB);
+    Log.msg(logLevel, NUM_CPU_PARTITIONS + ": " + this.numCpuPartitions);
+    Log.msg(logLevel, PARALLEL_TIFF_WRITER + ": " + this.parallelTiffWriter);
+    Log.msg(logLevel, OUTPUT_OME_ZARR + ": " + this.outputOmeZarr);
+    Log.msg(logLevel, PREVIEW_DOWNSAMPLE + ": " + this.previewDownsample);
+    Log.msg(logLevel, MULTI_CHANNEL_PATTERNS + ": " + this.multiChannelPatterns);
+    Log.msg(logLevel, TIME_SERIES_WARM_START + ": " + this.timeSeriesWarmStart);
+    Log.msg(logLevel, WARM_START_RADIUS + ": " + this.warmStartRadius);
+    Log.msg(logLevel, WARM_START_CORR_THRESHOLD + ": " + this.warmStartCorrThreshold);
+    Log.msg(logLevel, LIVE_STITCHING + ": " + this.liveStitching);
+    Log.msg(logLevel, LIVE_SETTLE_MILLIS + ": " + this.liveSettleMillis);
+    Log.msg(logLevel, LIVE_TIMEOUT_SECONDS + ": " + this.liveTimeoutSeconds);
+    Log.msg(logLevel, CHECKPOINT_JOURNAL + ": " + this.checkpointJournal);
+    Log.msg(logLevel, RESUME_FROM_CHECKPOINT + ": " + this.resumeFromCheckpoint);
+    Log.msg(logLevel, NCC_CACHE_SIZE + ": " + this.nccCacheSize);
+    Log.msg(logLevel, DAG_SCHEDULER + ": " + this.dagScheduler);
+    Log.msg(logLevel, MLE_SEED + ": " + this.mleSeed);
+    Log.msg(logLevel, LEAST_SQUARES_POSITIONS + ": " + this.leastSquaresPositions);
+    Log.msg(logLevel, COMPACT_TILE_GRID + ": " + this.compactTileGrid);
+    Log.msg(logLevel, FLAT_FIELD_PATH + ": " + this.flatFieldPath);
+    Log.msg(logLevel, DARK_FIELD_PATH + ": " + this.darkFieldPath);
+    Log.msg(logLevel, BACKGROUND_SUBTRACTION + ": " + this.backgroundSubtraction);
+    Log.msg(logLevel, FFT_PADDING + ": " + this.fftPadding);
+    Log.msg(logLevel, PARALLEL_PAIR_REFINEMENT + ": " + this.parallelPairRefinement);
     Log.msg(logLevel, RUN_HEADLESS + ": " + MISTMain.runHeadless);
 
 
@@ -438,6 +641,35 @@ public class AdvancedParameters implements StitchingAppParamFunctions {
     MISTMain.runHeadless = MacroUtils.loadMacroBoolean(macroOptions, RUN_HEADLESS, MISTMain.runHeadless);
     this.numTranslationRefinementStartPoints = MacroUtils.loadMacroInteger(macroOptions,
         NUM_TRANS_REFINEMENT_START_POINTS, this.numTranslationRefinementStartPoints);
+    this.fftHeapBudgetMB = MacroUtils.loadMacroInteger(macroOptions, FFT_HEAP_BUDGET_MB, this.fftHeapBudgetMB);
+    this.fftOffHeapBudgetMB = MacroUtils.loadMacroInteger(macroOptions, FFT_OFF_HEAP_BUDGET_MB, this.fftOffHeapBudgetMB);
+    this.useFlatJavaFft = MacroUtils.loadMacroBoolean(macroOptions, IS_USE_FLAT_JAVA_FFT, this.useFlatJavaFft);
+    this.numShards = MacroUtils.loadMacroInteger(macroOptions, NUM_SHARDS, this.numShards);
+    this.shardDirectory = MacroUtils.loadMacroString(macroOptions, SHARD_DIRECTORY, this.shardDirectory);
+    this.shardWorkerMemoryMB = MacroUtils.loadMacroInteger(macroOptions, SHARD_WORKER_MEMORY_MB, this.shardWorkerMemoryMB);
+    this.numCpuPartitions = MacroUtils.loadMacroInteger(macroOptions, NUM_CPU_PARTITIONS, this.numCpuPartitions);
+    this.parallelTiffWriter = MacroUtils.loadMacroBoolean(macroOptions, PARALLEL_TIFF_WRITER, this.parallelTiffWriter);
+    this.outputOmeZarr = MacroUtils.loadMacroBoolean(macroOptions, OUTPUT_OME_ZARR, this.outputOmeZarr);
+    this.previewDownsample = MacroUtils.loadMacroInteger(macroOptions, PREVIEW_DOWNSAMPLE, this.previewDownsample);
+    this.multiChannelPatterns = MacroUtils.loadMacroString(macroOptions, MULTI_CHANNEL_PATTERNS, this.multiChannelPatterns);
+    this.timeSeriesWarmStart = MacroUtils.loadMacroBoolean(macroOptions, TIME_SERIES_WARM_START, this.timeSeriesWarmStart);
+    this.warmStartRadius = MacroUtils.loadMacroInteger(macroOptions, WARM_START_RADIUS, this.warmStartRadius);
+    this.warmStartCorrThreshold = MacroUtils.loadMacroDouble(macroOptions, WARM_START_CORR_THRESHOLD, this.warmStartCorrThreshold);
+    this.liveStitching = MacroUtils.loadMacroBoolean(macroOptions, LIVE_STITCHING, this.liveStitching);
+    this.liveSettleMillis = MacroUtils.loadMacroInteger(macroOptions, LIVE_SETTLE_MILLIS, this.liveSettleMillis);
+    this.liveTimeoutSeconds = MacroUtils.loadMacroInteger(macroOptions, LIVE_TIMEOUT_SECONDS, this.liveTimeoutSeconds);
+    this.checkpointJournal = MacroUtils.loadMacroBoolean(macroOptions, CHECKPOINT_JOURNAL, this.checkpointJournal);
+    this.resumeFromCheckpoint = MacroUtils.loadMacroBoolean(macroOptions, RESUME_FROM_CHECKPOINT, this.resumeFromCheckpoint);
+    this.nccCacheSize = MacroUtils.loadMacroInteger(macroOptions, NCC_CACHE_SIZE, this.nccCacheSize);
+    this.dagScheduler = MacroUtils.loadMacroBoolean(macroOptions, DAG_SCHEDULER, this.dagScheduler);
+    this.mleSeed = MacroUtils.loadMacroInteger(macroOptions, MLE_SEED, this.mleSeed);
+    this.leastSquaresPositions = MacroUtils.loadMacroBoolean(macroOptions, LEAST_SQUARES_POSITIONS, this.leastSquaresPositions);
+    this.compactTileGrid = MacroUtils.loadMacroBoolean(macroOptions, COMPACT_TILE_GRID, this.compactTileGrid);
+    this.flatFieldPath = MacroUtils.loadMacroString(macroOptions, FLAT_FIELD_PATH, this.flatFieldPath);
+    this.darkFieldPath = MacroUtils.loadMacroString(macroOptions, DARK_FIELD_PATH, this.darkFieldPath);
+    this.backgroundSubtraction = MacroUtils.loadMacroBoolean(macroOptions, BACKGROUND_SUBTRACTION, this.backgroundSubtraction);
+    this.fftPadding = MacroUtils.loadMacroBoolean(macroOptions, FFT_PADDING, this.fftPadding);
+    this.parallelPairRefinement = MacroUtils.loadMacroBoolean(macroOptions, PARALLEL_PAIR_REFINEMENT, this.parallelPairRefinement);
 
     if (this.cudaDevices == null)
       this.cudaDevices = new ArrayList<CudaDeviceParam>();
@@ -476,6 +708,35 @@ public class AdvancedParameters implements StitchingAppParamFunctions {
     MacroUtils.recordBoolean(IS_ENABLE_CUDA_EXCEPTIONS + ": ", this.enableCudaExceptions);
     MacroUtils.recordString(TRANSLATION_REFINEMENT_TYPE + ": ", this.translationRefinementType.name());
     MacroUtils.recordInteger(NUM_TRANS_REFINEMENT_START_POINTS + ": ", this.numTranslationRefinementStartPoints);
+    MacroUtils.recordInteger(FFT_HEAP_BUDGET_MB + ": ", this.fftHeapBudgetMB);
+    MacroUtils.recordInteger(FFT_OFF_HEAP_BUDGET_MB + ": ", this.fftOffHeapBudgetMB);
+    MacroUtils.recordBoolean(IS_USE_FLAT_JAVA_FFT + ": ", this.useFlatJavaFft);
+    MacroUtils.recordInteger(NUM_SHARDS + ": ", this.numShards);
+    MacroUtils.recordString(SHARD_DIRECTORY + ": ", this.shardDirectory);
+    MacroUtils.recordInteger(SHARD_WORKER_MEMORY_MB + ": ", this.shardWorkerMemoryMB);
+    MacroUtils.recordInteger(NUM_CPU_PARTITIONS + ": ", this.numCpuPartitions);
+    MacroUtils.recordBoolean(PARALLEL_TIFF_WRITER + ": ", this.parallelTiffWriter);
+    MacroUtils.recordBoolean(OUTPUT_OME_ZARR + ": ", this.outputOmeZarr);
+    MacroUtils.recordInteger(PREVIEW_DOWNSAMPLE + ": ", this.previewDownsample);
+    MacroUtils.recordString(MULTI_CHANNEL_PATTERNS + ": ", this.multiChannelPatterns);
+    MacroUtils.recordBoolean(TIME_SERIES_WARM_START + ": ", this.timeSeriesWarmStart);
+    MacroUtils.recordInteger(WARM_START_RADIUS + ": ", this.warmStartRadius);
+    MacroUtils.recordDouble(WARM_START_CORR_THRESHOLD + ": ", this.warmStartCorrThreshold);
+    MacroUtils.recordBoolean(LIVE_STITCHING + ": ", this.liveStitching);
+    MacroUtils.recordInteger(LIVE_SETTLE_MILLIS + ": ", this.liveSettleMillis);
+    MacroUtils.recordInteger(LIVE_TIMEOUT_SECONDS + ": ", this.liveTimeoutSeconds);
+    MacroUtils.recordBoolean(CHECKPOINT_JOURNAL + ": ", this.checkpointJournal);
+    MacroUtils.recordBoolean(RESUME_FROM_CHECKPOINT + ": ", this.resumeFromCheckpoint);
+    MacroUtils.recordInteger(NCC_CACHE_SIZE + ": ", this.nccCacheSize);
+    MacroUtils.recordBoolean(DAG_SCHEDULER + ": ", this.dagScheduler);
+    MacroUtils.recordInteger(MLE_SEED + ": ", this.mleSeed);
+    MacroUtils.recordBoolean(LEAST_SQUARES_POSITIONS + ": ", this.leastSquaresPositions);
+    MacroUtils.recordBoolean(COMPACT_TILE_GRID + ": ", this.compactTileGrid);
+    MacroUtils.recordString(FLAT_FIELD_PATH + ": ", this.flatFieldPath);
+    MacroUtils.recordString(DARK_FIELD_PATH + ": ", this.darkFieldPath);
+    MacroUtils.recordBoolean(BACKGROUND_SUBTRACTION + ": ", this.backgroundSubtraction);
+    MacroUtils.recordBoolean(FFT_PADDING + ": ", this.fftPadding);
+    MacroUtils.recordBoolean(PARALLEL_PAIR_REFINEMENT + ": ", this.parallelPairRefinement);
     MacroUtils.recordBoolean(RUN_HEADLESS + ": ", MISTMain.runHeadless);
 
     MacroUtils.recordCUDADevices(this.cudaDevices);
@@ -503,6 +764,35 @@ public class AdvancedParameters implements StitchingAppParamFunctions {
     pref.putBoolean(IS_ENABLE_CUDA_EXCEPTIONS, this.enableCudaExceptions);
     pref.put(TRANSLATION_REFINEMENT_TYPE, this.translationRefinementType.name());
     pref.putInt(NUM_TRANS_REFINEMENT_START_POINTS, this.numTranslationRefinementStartPoints);
+    pref.putInt(FFT_HEAP_BUDGET_MB, this.fftHeapBudgetMB);
+    pref.putInt(FFT_OFF_HEAP_BUDGET_MB, this.fftOffHeapBudgetMB);
+    pref.putBoolean(IS_USE_FLAT_JAVA_FFT, this.useFlatJavaFft);
+    pref.putInt(NUM_SHARDS, this.numShards);
+    pref.put(SHARD_DIRECTORY, this.shardDirectory);
+    pref.putInt(SHARD_WORKER_MEMORY_MB, this.shardWorkerMemoryMB);
+    pref.putInt(NUM_CPU_PARTITIONS, this.numCpuPartitions);
+    pref.putBoolean(PARALLEL_TIFF_WRITER, this.parallelTiffWriter);
+    pref.putBoolean(OUTPUT_OME_ZARR, this.outputOmeZarr);
+    pref.putInt(PREVIEW_DOWNSAMPLE, this.previewDownsample);
+    pref.put(MULTI_CHANNEL_PATTERNS, this.multiChannelPatterns);
+    pref.putBoolean(TIME_SERIES_WARM_START, this.timeSeriesWarmStart);
+    pref.putInt(WARM_START_RADIUS, this.warmStartRadius);
+    pref.putDouble(WARM_START_CORR_THRESHOLD, this.warmStartCorrThreshold);
+    pref.putBoolean(LIVE_STITCHING, this.liveStitching);
+    pref.putInt(LIVE_SETTLE_MILLIS, this.liveSettleMillis);
+    pref.putInt(LIVE_TIMEOUT_SECONDS, this.liveTimeoutSeconds);
+    pref.putBoolean(CHECKPOINT_JOURNAL, this.checkpointJournal);
+    pref.putBoolean(RESUME_FROM_CHECKPOINT, this.resumeFromCheckpoint);
+    pref.putInt(NCC_CACHE_SIZE, this.nccCacheSize);
+    pref.putBoolean(DAG_SCHEDULER, this.dagScheduler);
+    pref.putInt(MLE_SEED, this.mleSeed);
+    pref.putBoolean(LEAST_SQUARES_POSITIONS, this.leastSquaresPositions);
+    pref.putBoolean(COMPACT_TILE_GRID, this.compactTileGrid);
+    pref.put(FLAT_FIELD_PATH, this.flatFieldPath);
+    pref.put(DARK_FIELD_PATH, this.darkFieldPath);
+    pref.putBoolean(BACKGROUND_SUBTRACTION, this.backgroundSubtraction);
+    pref.putBoolean(FFT_PADDING, this.fftPadding);
+    pref.putBoolean(PARALLEL_PAIR_REFINEMENT, this.parallelPairRefinement);
 //    pref.putBoolean(RUN_HEADLESS, MISTMain.runHeadless);
     PreferencesUtils.recordPrefCUDADevices(pref, this.cudaDevices);
   }
@@ -533,6 +823,35 @@ public class AdvancedParameters implements StitchingAppParamFunctions {
       fw.write(TRANSLATION_REFINEMENT_TYPE + ": " + this.translationRefinementType.name() + newLine);
       fw.write(NUM_TRANS_REFINEMENT_START_POINTS + ": " +
           this.numTranslationRefinementStartPoints + newLine);
+      fw.write(FFT_HEAP_BUDGET_MB + ": " + this.fftHeapBudgetMB + newLine);
+      fw.write(FFT_OFF_HEAP_BUDGET_MB + ": " + this.fftOffHeapBudgetMB + newLine);
+      fw.write(IS_USE_FLAT_JAVA_FFT + ": " + this.useFlatJavaFft + newLine);
+      fw.write(NUM_SHARDS + ": " + this.numShards + newLine);
+      fw.write(SHARD_DIRECTORY + ": " + this.shardDirectory + newLine);
+      fw.write(SHARD_WORKER_MEMORY_MB + ": " + this.shardWorkerMemoryMB + newLine);
+      fw.write(NUM_CPU_PARTITIONS + ": " + this.numCpuPartitions + newLine);
+      fw.write(PARALLEL_TIFF_WRITER + ": " + this.parallelTiffWriter + newLine);
+      fw.write(OUTPUT_OME_ZARR + ": " + this.outputOmeZarr + newLine);
+      fw.write(PREVIEW_DOWNSAMPLE + ": " + this.previewDownsample + newLine);
+      fw.write(MULTI_CHANNEL_PATTERNS + ": " + this.multiChannelPatterns + newLine);
+      fw.write(TIME_SERIES_WARM_START + ": " + this.timeSeriesWarmStart + newLine);
+      fw.write(WARM_START_RADIUS + ": " + this.warmStartRadius + newLine);
+      fw.write(WARM_START_CORR_THRESHOLD + ": " + this.warmStartCorrThreshold + newLine);
+      fw.write(LIVE_STITCHING + ": " + this.liveStitching + newLine);
+      fw.write(LIVE_SETTLE_MILLIS + ": " + this.liveSettleMillis + newLine);
+      fw.write(LIVE_TIMEOUT_SECONDS + ": " + this.liveTimeoutSeconds + newLine);
+      fw.write(CHECKPOINT_JOURNAL + ": " + this.checkpointJournal + newLine);
+      fw.write(RESUME_FROM_CHECKPOINT + ": " + this.resumeFromCheckpoint + newLine);
+      fw.write(NCC_CACHE_SIZE + ": " + this.nccCacheSize + newLine);
+      fw.write(DAG_SCHEDULER + ": " + this.dagScheduler + newLine);
+      fw.write(MLE_SEED + ": " + this.mleSeed + newLine);
+      fw.write(LEAST_SQUARES_POSITIONS + ": " + this.leastSquaresPositions + newLine);
+      fw.write(COMPACT_TILE_GRID + ": " + this.compactTileGrid + newLine);
+      fw.write(FLAT_FIELD_PATH + ": " + this.flatFieldPath + newLine);
+      fw.write(DARK_FIELD_PATH + ": " + this.darkFieldPath + newLine);
+      fw.write(BACKGROUND_SUBTRACTION + ": " + this.backgroundSubtraction + newLine);
+      fw.write(FFT_PADDING + ": " + this.fftPadding + newLine);
+      fw.write(PARALLEL_PAIR_REFINEMENT + ": " + this.parallelPairRefinement + newLine);
       fw.write(RUN_HEADLESS + ": " + MISTMain.runHeadless + newLine);
 
       if (this.cudaDevices != null) {
@@ -810,6 +1129,421 @@ public class AdvancedParameters implements StitchingAppParamFunctions {
   }
 
 
+  /**
+   * @return the heap memory budget in MB for the FFT memory pool (0 for unbounded)
+   */
+  public int getFftHeapBudgetMB() {
+    return this.fftHeapBudgetMB;
+  }
+
+  /**
+   * @param fftHeapBudgetMB the heap memory budget in MB for the FFT memory pool (0 for unbounded)
+   */
+  public void setFftHeapBudgetMB(int fftHeapBudgetMB) {
+    this.fftHeapBudgetMB = fftHeapBudgetMB;
+  }
+
+  /**
+   * @return the off-heap memory budget in MB for the FFT memory pool (0 for unbounded)
+   */
+  public int getFftOffHeapBudgetMB() {
+    return this.fftOffHeapBudgetMB;
+  }
+
+  /**
+   * @param fftOffHeapBudgetMB the off-heap memory budget in MB for the FFT memory pool (0 for unbounded)
+   */
+  public void setFftOffHeapBudgetMB(int fftOffHeapBudgetMB) {
+    this.fftOffHeapBudgetMB = fftOffHeapBudgetMB;
+  }
+
+  /**
+   * @return whether the Java executors use the flat buffer FFT engine
+   */
+  public boolean isUseFlatJavaFft() {
+    return this.useFlatJavaFft;
+  }
+
+  /**
+   * @param useFlatJavaFft whether the Java executors use the flat buffer FFT engine
+   */
+  public void setUseFlatJavaFft(boolean useFlatJavaFft) {
+    this.useFlatJavaFft = useFlatJavaFft;
+  }
+
+  /**
+   * @return the number of local worker processes the grid is sharded across (0 or 1 disables sharding)
+   */
+  public int getNumShards() {
+    return this.numShards;
+  }
+
+  /**
+   * @param numShards the number of local worker processes the grid is sharded across (0 or 1 disables sharding)
+   */
+  public void setNumShards(int numShards) {
+    this.numShards = numShards;
+  }
+
+  /**
+   * @return the shared directory the shard workers write their displacements to
+   */
+  public String getShardDirectory() {
+    return this.shardDirectory;
+  }
+
+  /**
+   * @param shardDirectory the shared directory the shard workers write their displacements to
+   */
+  public void setShardDirectory(String shardDirectory) {
+    this.shardDirectory = shardDirectory;
+  }
+
+  /**
+   * @return the maximum heap size in MB of each shard worker process (0 uses the JVM default)
+   */
+  public int getShardWorkerMemoryMB() {
+    return this.shardWorkerMemoryMB;
+  }
+
+  /**
+   * @param shardWorkerMemoryMB the maximum heap size in MB of each shard worker process (0 uses the JVM default)
+   */
+  public void setShardWorkerMemoryMB(int shardWorkerMemoryMB) {
+    this.shardWorkerMemoryMB = shardWorkerMemoryMB;
+  }
+
+  /**
+   * @return the number of independent grid partitions the CPU executors are split into (0 or 1 disables partitioning)
+   */
+  public int getNumCpuPartitions() {
+    return this.numCpuPartitions;
+  }
+
+  /**
+   * @param numCpuPartitions the number of independent grid partitions the CPU executors are split into (0 or 1 disables partitioning)
+   */
+  public void setNumCpuPartitions(int numCpuPartitions) {
+    this.numCpuPartitions = numCpuPartitions;
+  }
+
+  /**
+   * @return whether the stitched image is written with the parallel compressing BigTIFF writer
+   */
+  public boolean isParallelTiffWriter() {
+    return this.parallelTiffWriter;
+  }
+
+  /**
+   * @param parallelTiffWriter whether the stitched image is written with the parallel compressing BigTIFF writer
+   */
+  public void setParallelTiffWriter(boolean parallelTiffWriter) {
+    this.parallelTiffWriter = parallelTiffWriter;
+  }
+
+  /**
+   * @return whether the stitched image is also written as a chunked OME-Zarr image
+   */
+  public boolean isOutputOmeZarr() {
+    return this.outputOmeZarr;
+  }
+
+  /**
+   * @param outputOmeZarr whether the stitched image is also written as a chunked OME-Zarr image
+   */
+  public void setOutputOmeZarr(boolean outputOmeZarr) {
+    this.outputOmeZarr = outputOmeZarr;
+  }
+
+  /**
+   * @return the downsample factor of the low resolution preview (0 previews at full resolution)
+   */
+  public int getPreviewDownsample() {
+    return this.previewDownsample;
+  }
+
+  /**
+   * @param previewDownsample the downsample factor of the low resolution preview (0 previews at full resolution)
+   */
+  public void setPreviewDownsample(int previewDownsample) {
+    this.previewDownsample = previewDownsample;
+  }
+
+  /**
+   * @return the ';' separated filename patterns of additional channels exported with the stitched positions
+   */
+  public String getMultiChannelPatterns() {
+    return this.multiChannelPatterns;
+  }
+
+  /**
+   * @param multiChannelPatterns the ';' separated filename patterns of additional channels exported with the stitched positions
+   */
+  public void setMultiChannelPatterns(String multiChannelPatterns) {
+    this.multiChannelPatterns = multiChannelPatterns;
+  }
+
+  /**
+   * @return whether time slices after the first are warm-started from the previous slice's translations
+   */
+  public boolean isTimeSeriesWarmStart() {
+    return this.timeSeriesWarmStart;
+  }
+
+  /**
+   * @param timeSeriesWarmStart whether time slices after the first are warm-started from the previous slice's translations
+   */
+  public void setTimeSeriesWarmStart(boolean timeSeriesWarmStart) {
+    this.timeSeriesWarmStart = timeSeriesWarmStart;
+  }
+
+  /**
+   * @return the radius (pixels) of the NCC search window around each warm-start prior
+   */
+  public int getWarmStartRadius() {
+    return this.warmStartRadius;
+  }
+
+  /**
+   * @param warmStartRadius the radius (pixels) of the NCC search window around each warm-start prior
+   */
+  public void setWarmStartRadius(int warmStartRadius) {
+    this.warmStartRadius = warmStartRadius;
+  }
+
+  /**
+   * @return the correlation below which a warm-started pair falls back to phase correlation
+   */
+  public double getWarmStartCorrThreshold() {
+    return this.warmStartCorrThreshold;
+  }
+
+  /**
+   * @param warmStartCorrThreshold the correlation below which a warm-started pair falls back to phase correlation
+   */
+  public void setWarmStartCorrThreshold(double warmStartCorrThreshold) {
+    this.warmStartCorrThreshold = warmStartCorrThreshold;
+  }
+
+  /**
+   * @return whether tiles are stitched as they are acquired, rather than once all tiles exist
+   */
+  public boolean isLiveStitching() {
+    return this.liveStitching;
+  }
+
+  /**
+   * @param liveStitching whether tiles are stitched as they are acquired, rather than once all tiles exist
+   */
+  public void setLiveStitching(boolean liveStitching) {
+    this.liveStitching = liveStitching;
+  }
+
+  /**
+   * @return the time in milliseconds a tile's file size must be unchanged before the tile is read in live mode
+   */
+  public int getLiveSettleMillis() {
+    return this.liveSettleMillis;
+  }
+
+  /**
+   * @param liveSettleMillis the time in milliseconds a tile's file size must be unchanged before the tile is read in live mode
+   */
+  public void setLiveSettleMillis(int liveSettleMillis) {
+    this.liveSettleMillis = liveSettleMillis;
+  }
+
+  /**
+   * @return the time in seconds live mode waits for a new tile before the remaining tiles are considered missing
+   */
+  public int getLiveTimeoutSeconds() {
+    return this.liveTimeoutSeconds;
+  }
+
+  /**
+   * @param liveTimeoutSeconds the time in seconds live mode waits for a new tile before the remaining tiles are considered missing
+   */
+  public void setLiveTimeoutSeconds(int liveTimeoutSeconds) {
+    this.liveTimeoutSeconds = liveTimeoutSeconds;
+  }
+
+  /**
+   * @return whether completed pairs are appended to a checkpoint journal as they are computed
+   */
+  public boolean isCheckpointJournal() {
+    return this.checkpointJournal;
+  }
+
+  /**
+   * @param checkpointJournal whether completed pairs are appended to a checkpoint journal as they are computed
+   */
+  public void setCheckpointJournal(boolean checkpointJournal) {
+    this.checkpointJournal = checkpointJournal;
+  }
+
+  /**
+   * @return whether a run resumes from the checkpoint journal of a previous run, only computing the remaining pairs
+   */
+  public boolean isResumeFromCheckpoint() {
+    return this.resumeFromCheckpoint;
+  }
+
+  /**
+   * @param resumeFromCheckpoint whether a run resumes from the checkpoint journal of a previous run, only computing the remaining pairs
+   */
+  public void setResumeFromCheckpoint(boolean resumeFromCheckpoint) {
+    this.resumeFromCheckpoint = resumeFromCheckpoint;
+  }
+
+  /**
+   * @return the maximum number of memoized pair NCC values, 0 disables the cache
+   */
+  public int getNccCacheSize() {
+    return this.nccCacheSize;
+  }
+
+  /**
+   * @param nccCacheSize the maximum number of memoized pair NCC values, 0 disables the cache
+   */
+  public void setNccCacheSize(int nccCacheSize) {
+    this.nccCacheSize = nccCacheSize;
+  }
+
+  /**
+   * @return true if the FFT and PCIAM tasks are scheduled as a task graph on a fork/join pool
+   */
+  public boolean isDagScheduler() {
+    return this.dagScheduler;
+  }
+
+  /**
+   * @param dagScheduler true to schedule the FFT and PCIAM tasks as a task graph on a fork/join pool
+   */
+  public void setDagScheduler(boolean dagScheduler) {
+    this.dagScheduler = dagScheduler;
+  }
+
+  /**
+   * @return the seed for the MLE overlap multi-start search, 0 if a time based seed is used
+   */
+  public int getMleSeed() {
+    return this.mleSeed;
+  }
+
+  /**
+   * @param mleSeed the seed for the MLE overlap multi-start search, 0 to use a time based seed
+   */
+  public void setMleSeed(int mleSeed) {
+    this.mleSeed = mleSeed;
+  }
+
+  /**
+   * @return true if global positions are solved by least squares over all translations instead of
+   * the maximum spanning tree
+   */
+  public boolean isLeastSquaresPositions() {
+    return this.leastSquaresPositions;
+  }
+
+  /**
+   * @param leastSquaresPositions true to solve global positions by least squares over all
+   *                              translations instead of the maximum spanning tree
+   */
+  public void setLeastSquaresPositions(boolean leastSquaresPositions) {
+    this.leastSquaresPositions = leastSquaresPositions;
+  }
+
+  /**
+   * @return true if the tile grid keeps its metadata in primitive arrays and only materializes the
+   * tiles in use
+   */
+  public boolean isCompactTileGrid() {
+    return this.compactTileGrid;
+  }
+
+  /**
+   * @param compactTileGrid true to keep the tile grid metadata in primitive arrays and only
+   *                        materialize the tiles in use
+   */
+  public void setCompactTileGrid(boolean compactTileGrid) {
+    this.compactTileGrid = compactTileGrid;
+  }
+
+  /**
+   * @return the flat-field image applied to every tile as it is read, empty if none
+   */
+  public String getFlatFieldPath() {
+    return this.flatFieldPath;
+  }
+
+  /**
+   * @param flatFieldPath the flat-field image applied to every tile as it is read, empty for none
+   */
+  public void setFlatFieldPath(String flatFieldPath) {
+    this.flatFieldPath = flatFieldPath;
+  }
+
+  /**
+   * @return the dark-field image subtracted from every tile as it is read, empty if none
+   */
+  public String getDarkFieldPath() {
+    return this.darkFieldPath;
+  }
+
+  /**
+   * @param darkFieldPath the dark-field image subtracted from every tile as it is read, empty for
+   *                      none
+   */
+  public void setDarkFieldPath(String darkFieldPath) {
+    this.darkFieldPath = darkFieldPath;
+  }
+
+  /**
+   * @return true if a per-tile background level is subtracted from every tile as it is read
+   */
+  public boolean isBackgroundSubtraction() {
+    return this.backgroundSubtraction;
+  }
+
+  /**
+   * @param backgroundSubtraction true to subtract a per-tile background level from every tile as
+   *                              it is read
+   */
+  public void setBackgroundSubtraction(boolean backgroundSubtraction) {
+    this.backgroundSubtraction = backgroundSubtraction;
+  }
+
+  /**
+   * @return true if FFTW transforms are padded to the fastest benchmarked size
+   */
+  public boolean isFftPadding() {
+    return this.fftPadding;
+  }
+
+  /**
+   * @param fftPadding true to pad FFTW transforms to the fastest benchmarked size
+   */
+  public void setFftPadding(boolean fftPadding) {
+    this.fftPadding = fftPadding;
+  }
+
+  /**
+   * @return true if the translation refinement of a pair with a large search window is split
+   * across a fork-join pool with numCPUThreads threads
+   */
+  public boolean isParallelPairRefinement() {
+    return this.parallelPairRefinement;
+  }
+
+  /**
+   * @param parallelPairRefinement true to split the translation refinement of a pair with a
+   *                               large search window across a fork-join pool with
+   *                               numCPUThreads threads
+   */
+  public void setParallelPairRefinement(boolean parallelPairRefinement) {
+    this.parallelPairRefinement = parallelPairRefinement;
+  }
+
   /**
    * Builds the list of advanced parameter names
    * 
@@ -838,6 +1572,35 @@ public class AdvancedParameters implements StitchingAppParamFunctions {
   	parameterNames.add(IS_ENABLE_CUDA_EXCEPTIONS);
   	parameterNames.add(TRANSLATION_REFINEMENT_TYPE);
   	parameterNames.add(NUM_TRANS_REFINEMENT_START_POINTS);
+  	parameterNames.add(FFT_HEAP_BUDGET_MB);
+  	parameterNames.add(FFT_OFF_HEAP_BUDGET_MB);
+  	parameterNames.add(IS_USE_FLAT_JAVA_FFT);
+  	parameterNames.add(NUM_SHARDS);
+  	parameterNames.add(SHARD_DIRECTORY);
+  	parameterNames.add(SHARD_WORKER_MEMORY_MB);
+  	parameterNames.add(NUM_CPU_PARTITIONS);
+  	parameterNames.add(PARALLEL_TIFF_WRITER);
+  	parameterNames.add(OUTPUT_OME_ZARR);
+  	parameterNames.add(PREVIEW_DOWNSAMPLE);
+  	parameterNames.add(MULTI_CHANNEL_PATTERNS);
+  	parameterNames.add(TIME_SERIES_WARM_START);
+  	parameterNames.add(WARM_START_RADIUS);
+  	parameterNames.add(WARM_START_CORR_THRESHOLD);
+  	parameterNames.add(LIVE_STITCHING);
+  	parameterNames.add(LIVE_SETTLE_MILLIS);
+  	parameterNames.add(LIVE_TIMEOUT_SECONDS);
+  	parameterNames.add(CHECKPOINT_JOURNAL);
+  	parameterNames.add(RESUME_FROM_CHECKPOINT);
+  	parameterNames.add(NCC_CACHE_SIZE);
+  	parameterNames.add(DAG_SCHEDULER);
+  	parameterNames.add(MLE_SEED);
+  	parameterNames.add(LEAST_SQUARES_POSITIONS);
+  	parameterNames.add(COMPACT_TILE_GRID);
+  	parameterNames.add(FLAT_FIELD_PATH);
+  	parameterNames.add(DARK_FIELD_PATH);
+  	parameterNames.add(BACKGROUND_SUBTRACTION);
+  	parameterNames.add(FFT_PADDING);
+  	parameterNames.add(PARALLEL_PAIR_REFINEMENT);
   	parameterNames.add(RUN_HEADLESS);
     return parameterNames;
   }
@@ -140,19 +140,20 @@ public class InputParameters implements StitchingAppParamFunctions {
    * @return the tile grid loader or null if invalid file pattern loader type
    */
   public TileGridLoader getTileGridLoader(int timeSlice) {
-    switch (this.filenamePatternType) {
-      case ROWCOL:
-        // Function will use startTile with a Sequential LoaderType and (startRow, startCol) with a ROWCOL LoaderType
-        return new RowColTileGridLoader(this.getGridWidth(), this.getGridHeight(),
-            this.getStartTile(), this.getStartTileRow(), this.getStartTileCol(), this.parseTimeSlicePattern(timeSlice, false), this.getOrigin());
-      case SEQUENTIAL:
-        // Function will use startTile with a Sequential LoaderType and (startRow, startCol) with a ROWCOL LoaderType
-        return new SequentialTileGridLoader(this.getGridWidth(), this.getGridHeight(),
-            this.getStartTile(), this.getStartTileRow(), this.getStartTileCol(), this.parseTimeSlicePattern(timeSlice, false), this.getOrigin(),
-            this.getNumbering());
-    }
+    return getTileGridLoader(this.filenamePattern, timeSlice);
+  }
 
-    return null;
+  /**
+   * Generates the tile grid loader for a filename pattern other than the one being stitched,
+   * such as the pattern of another channel. Uses the timeslice to parse the file pattern
+   *
+   * @param filenamePattern the filename pattern
+   * @param timeSlice       the timeslice
+   * @return the tile grid loader or null if invalid file pattern loader type
+   */
+  public TileGridLoader getTileGridLoader(String filenamePattern, int timeSlice) {
+    return getTileGridLoader(
+        TileGridLoaderUtils.parseTimeSlicePattern(filenamePattern, timeSlice, false));
   }
 
   /**
@@ -161,16 +162,27 @@ public class InputParameters implements StitchingAppParamFunctions {
    * @return the tile grid loader or null if invalid file pattern loader type
    */
   public TileGridLoader getTileGridLoader() {
+    return getTileGridLoader(this.getFilenamePattern());
+  }
+
+  /**
+   * Gets the tile grid loader for a filename pattern other than the one being stitched, such as
+   * the pattern of another channel.
+   *
+   * @param filenamePattern the filename pattern
+   * @return the tile grid loader or null if invalid file pattern loader type
+   */
+  public TileGridLoader getTileGridLoader(String filenamePattern) {
 
     switch (this.filenamePatternType) {
       case ROWCOL:
         // Function will use startTile with a Sequential LoaderType and (startRow, startCol) with a ROWCOL LoaderType
         return new RowColTileGridLoader(this.getGridWidth(), this.getGridHeight(),
-            this.getStartTile(), this.getStartTileRow(), this.getStartTileCol(), this.getFilenamePattern(), this.getOrigin());
+            this.getStartTile(), this.getStartTileRow(), this.getStartTileCol(), filenamePattern, this.getOrigin());
       case SEQUENTIAL:
         // Function will use startTile with a Sequential LoaderType and (startRow, startCol) with a ROWCOL LoaderType
         return new SequentialTileGridLoader(this.getGridWidth(), this.getGridHeight(),
-            this.getStartTile(), this.getStartTileRow(), this.getStartTileCol(), this.getFilenamePattern(), this.getOrigin(), this.getNumbering());
+            this.getStartTile(), this.getStartTileRow(), this.getStartTileCol(), filenamePattern, this.getOrigin(), this.getNumbering());
     }
 
     return null;
@@ -67,6 +67,7 @@ public class OutputParameters implements StitchingAppParamFunctions {
   private static final String statisticsFilename = "statistics";
   private static final String logFilename = "log";
   private static final String hillClimbPosFilename = "hillclimb-starting-positions";
+  private static final String checkpointFilename = "checkpoint-journal";
 
   private String outputPath;
   private boolean displayStitching;
@@ -112,6 +113,45 @@ public class OutputParameters implements StitchingAppParamFunctions {
     return this.outFilePrefix + fullImgFilename + "-" + String.format(fmt, timeSlice) + ".ome.tif";
   }
 
+  /**
+   * Gets the multi-channel output image name
+   *
+   * @param timeSlice    the timeslice
+   * @param maxTimeSlice the maximum timeslice
+   * @return the multi-channel output image name
+   */
+  public String getOutputMultiChannelImageName(int timeSlice, int maxTimeSlice) {
+    int padLength = String.format("%d", maxTimeSlice).length();
+    String fmt = "%0" + padLength + "d";
+    return this.outFilePrefix + fullImgFilename + "-channels-" + String.format(fmt, timeSlice) + ".ome.tif";
+  }
+
+  /**
+   * Gets the OME-Zarr image directory name
+   *
+   * @param timeSlice    the timeslice
+   * @param maxTimeSlice the maximum timeslice
+   * @return the OME-Zarr image directory name
+   */
+  public String getOutputZarrName(int timeSlice, int maxTimeSlice) {
+    int padLength = String.format("%d", maxTimeSlice).length();
+    String fmt = "%0" + padLength + "d";
+    return this.outFilePrefix + fullImgFilename + "-" + String.format(fmt, timeSlice) + ".ome.zarr";
+  }
+
+  /**
+   * Gets the checkpoint journal filename
+   *
+   * @param timeSlice    the timeslice
+   * @param maxTimeSlice the maximum timeslice
+   * @return the checkpoint journal filename
+   */
+  public String getCheckpointFileName(int timeSlice, int maxTimeSlice) {
+    int padLength = String.format("%d", maxTimeSlice).length();
+    String fmt = "%0" + padLength + "d";
+    return this.outFilePrefix + checkpointFilename + "-" + String.format(fmt, timeSlice) + metadataSuffix;
+  }
+
   /**
    * Gets the hill climbing starting position filename
    *
@@ -205,6 +245,36 @@ public class OutputParameters implements StitchingAppParamFunctions {
     return new File(this.outputPath, this.getOutputImageName(timeSlice, maxTimeSlice));
   }
 
+  /**
+   * Gets the multi-channel output image file at a given time slice
+   *
+   * @param timeSlice the time slice
+   * @return the multi-channel output image file
+   */
+  public File getOutputMultiChannelImageFile(int timeSlice, int maxTimeSlice) {
+    return new File(this.outputPath, this.getOutputMultiChannelImageName(timeSlice, maxTimeSlice));
+  }
+
+  /**
+   * Gets the OME-Zarr image directory at a given time slice
+   *
+   * @param timeSlice the time slice
+   * @return the OME-Zarr image directory
+   */
+  public File getOutputZarrFile(int timeSlice, int maxTimeSlice) {
+    return new File(this.outputPath, this.getOutputZarrName(timeSlice, maxTimeSlice));
+  }
+
+  /**
+   * Gets the checkpoint journal file at a given time slice
+   *
+   * @param timeSlice the time slice
+   * @return the checkpoint journal file
+   */
+  public File getCheckpointFile(int timeSlice, int maxTimeSlice) {
+    return new File(this.outputPath, getCheckpointFileName(timeSlice, maxTimeSlice));
+  }
+
   /**
    * Gets the absolute position file at a given time slice
    *
@@ -0,0 +1,352 @@
+// NIST-developed software is provided by NIST as a public service. You may use, copy and distribute copies of the software in any medium, provided that you keep intact this entire notice. You may improve, modify and create derivative works of the software or any portion of the software, and you may copy and distribute such modifications or works. Modified works should carry a notice stating that you changed the software and should note the date and nature of any such change. Please explicitly acknowledge the National Institute of Standards and Technology as the source of the software.
+
+// NIST-developed software is expressly provided "AS IS." NIST MAKES NO WARRANTY OF ANY KIND, EXPRESS, IMPLIED, IN FACT OR ARISING BY OPERATION OF LAW, INCLUDING, WITHOUT LIMITATION, THE IMPLIED WARRANTY OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE, NON-INFRINGEMENT AND DATA ACCURACY. NIST NEITHER REPRESENTS NOR WARRANTS THAT THE OPERATION OF THE SOFTWARE WILL BE UNINTERRUPTED OR ERROR-FREE, OR THAT ANY DEFECTS WILL BE CORRECTED. NIST DOES NOT WARRANT OR MAKE ANY REPRESENTATIONS REGARDING THE USE OF THE SOFTWARE OR THE RESULTS THEREOF, INCLUDING BUT NOT LIMITED TO THE CORRECTNESS, ACCURACY, RELIABILITY, OR USEFULNESS OF THE SOFTWARE.
+
+// You are solely responsible for determining the appropriateness of using and distributing the software and you assume all risks associated with its use, including but not limited to the risks and costs of program errors, compliance with applicable laws, damage to or loss of data, programs or equipment, and the unavailability or interruption of operation. This software is not intended to be used in any situation where a failure could cause risk of injury or damage to property. The software developed by NIST employees is not subject to copyright protection within the United States.
+
+
+package gov.nist.isg.mist.lib.executor;
+
+import java.io.InvalidClassException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import javax.swing.JProgressBar;
+
+import gov.nist.isg.mist.gui.StitchingGuiUtils;
+import gov.nist.isg.mist.gui.params.StitchingAppParams;
+import gov.nist.isg.mist.lib.exceptions.EmptyGridException;
+import gov.nist.isg.mist.lib.imagetile.ImageTile;
+import gov.nist.isg.mist.lib.imagetile.Stitching;
+import gov.nist.isg.mist.lib.imagetile.java.JavaImageTile;
+import gov.nist.isg.mist.lib.imagetile.memory.JavaTileWorkerMemory;
+import gov.nist.isg.mist.lib.imagetile.memory.TileWorkerMemory;
+import gov.nist.isg.mist.lib.log.Log;
+import gov.nist.isg.mist.lib.tilegrid.TileGrid;
+
+/**
+ * Banded (low memory) Java Stitching executor.
+ *
+ * <p>The grid is processed as a sliding band of rows, or of columns when the grid is wider than it
+ * is tall, so that only two bands of FFTs and pixel data are resident at any one time. Within a
+ * band the FFTs, and then the pairwise PCIAMs, are computed in parallel by a fixed pool of worker
+ * threads. The FFTs of a band are released once the following band has been correlated against
+ * it.</p>
+ *
+ * @author Michael Majurski
+ */
+public class BandedJavaStitchingExecutor<T> implements StitchingExecutorInterface<T> {
+
+  private volatile boolean isCanceled = false;
+  private ExecutorService threadPool;
+
+  /**
+   * Initialize the banded Java stitching executor tile grid.
+   *
+   * @param params    the stitching params.
+   * @param timeSlice the timeslice to stitch.
+   * @return the TileGrid to be stitched when launchStitching is called.
+   */
+  @Override
+  public TileGrid<ImageTile<T>> initGrid(StitchingAppParams params, int timeSlice) throws EmptyGridException {
+
+    TileGrid<ImageTile<T>> grid = null;
+
+    if (params.getInputParams().isTimeSlicesEnabled()) {
+      try {
+        grid =
+            new TileGrid<ImageTile<T>>(params, timeSlice, JavaImageTile.class);
+      } catch (InvalidClassException e) {
+        e.printStackTrace();
+      }
+    } else {
+      try {
+        grid = new TileGrid<ImageTile<T>>(params, JavaImageTile.class);
+      } catch (InvalidClassException e) {
+        e.printStackTrace();
+      }
+    }
+
+    ImageTile<T> tile = grid.getTileThatExists();
+    if (tile == null)
+      throw new EmptyGridException("Image Tile Grid contains no valid tiles. Check " +
+          "Stitching Parameters");
+    tile.readTile();
+
+    if (params.getAdvancedParams().isUseFlatJavaFft())
+      JavaImageTile.enableFlatFft();
+    else
+      JavaImageTile.disableFlatFft();
+
+    JavaImageTile.initJavaPlan(tile);
+
+    return grid;
+  }
+
+
+  @Override
+  public void cancelExecution() {
+    Log.msg(Log.LogType.MANDATORY, "Canceling Stitching Java Banded Executor");
+    this.isCanceled = true;
+    if (this.threadPool != null)
+      this.threadPool.shutdownNow();
+  }
+
+  /**
+   * Launches the banded Java stitching.
+   *
+   * @param grid        the image tile grid
+   * @param params      the stitching application parameters
+   * @param progressBar the GUI progress bar
+   * @param timeSlice   the timeslice to stitch
+   */
+  @Override
+  public void launchStitching(final TileGrid<ImageTile<T>> grid, StitchingAppParams params,
+                              final JProgressBar progressBar, int timeSlice) throws Throwable {
+
+    int numThreads = params.getAdvancedParams().getNumCPUThreads();
+    boolean rowBands = isRowBanded(grid);
+    int numBands = rowBands ? grid.getExtentHeight() : grid.getExtentWidth();
+
+    Log.msg(Log.LogType.MANDATORY, "Running Banded Java Stitching with " + numThreads
+        + " threads over " + numBands + (rowBands ? " row" : " column") + " bands");
+
+    // each worker thread borrows a pcm buffer for the duration of a single PCIAM
+    final BlockingQueue<TileWorkerMemory> memories = new LinkedBlockingQueue<TileWorkerMemory>();
+    ImageTile<T> initTile = grid.getTileThatExists();
+    for (int i = 0; i < numThreads; i++)
+      memories.add(new JavaTileWorkerMemory(initTile));
+
+    this.threadPool = Executors.newFixedThreadPool(numThreads);
+
+    try {
+      List<ImageTile<T>> prevBand = null;
+      for (int b = 0; b < numBands; b++) {
+        if (this.isCanceled) return;
+
+        final List<ImageTile<T>> band = getBand(grid, rowBands, b);
+
+        // compute the FFT of every tile in the band
+        List<Callable<Void>> fftTasks = new ArrayList<Callable<Void>>();
+        for (final ImageTile<T> t : band) {
+          fftTasks.add(new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+              t.readTile();
+              t.computeFft();
+              return null;
+            }
+          });
+        }
+        invokeAll(fftTasks);
+
+        if (this.isCanceled) return;
+
+        // correlate every tile in the band against its west and north neighbors, which live either
+        // in this band or in the previous one
+        List<Callable<Void>> pciamTasks = new ArrayList<Callable<Void>>();
+        for (final ImageTile<T> t : band) {
+          final int row = t.getRow();
+          final int col = t.getCol();
+
+          if (col > grid.getStartCol()) {
+            pciamTasks.add(new Callable<Void>() {
+              @Override
+              public Void call() throws Exception {
+                ImageTile<T> west = grid.getTile(row, col - 1);
+                TileWorkerMemory memory = memories.take();
+                try {
+                  t.setWestTranslation(Stitching.phaseCorrelationImageAlignment(west, t, memory));
+                } finally {
+                  memories.put(memory);
+                }
+
+                Log.msgNoTime(Log.LogType.HELPFUL, " pciam_W(\"" + t.getFileName() + "\",\"" + west
+                    .getFileName() + "\"): " + t.getWestTranslation());
+
+                StitchingGuiUtils.incrementProgressBar(progressBar);
+                return null;
+              }
+            });
+          }
+
+          if (row > grid.getStartRow()) {
+            pciamTasks.add(new Callable<Void>() {
+              @Override
+              public Void call() throws Exception {
+                ImageTile<T> north = grid.getTile(row - 1, col);
+                TileWorkerMemory memory = memories.take();
+                try {
+                  t.setNorthTranslation(Stitching.phaseCorrelationImageAlignment(north, t, memory));
+                } finally {
+                  memories.put(memory);
+                }
+
+                Log.msgNoTime(Log.LogType.HELPFUL, " pciam_N(\"" + north.getFileName() + "\",\""
+                    + t.getFileName() + "\"): " + t.getNorthTranslation());
+
+                StitchingGuiUtils.incrementProgressBar(progressBar);
+                return null;
+              }
+            });
+          }
+        }
+        invokeAll(pciamTasks);
+
+        // the previous band is no longer referenced by any remaining pair
+        if (prevBand != null)
+          releaseBand(prevBand);
+        prevBand = band;
+      }
+
+      if (prevBand != null)
+        releaseBand(prevBand);
+
+    } finally {
+      this.threadPool.shutdownNow();
+      for (TileWorkerMemory memory : memories)
+        memory.releaseMemory();
+    }
+  }
+
+  /**
+   * Runs the tasks on the thread pool, waiting for all of them to complete. The first exception
+   * thrown by a task is rethrown to the caller.
+   *
+   * @param tasks the tasks to run
+   */
+  private void invokeAll(List<Callable<Void>> tasks) throws Throwable {
+    if (tasks.isEmpty())
+      return;
+
+    List<Future<Void>> futures;
+    try {
+      futures = this.threadPool.invokeAll(tasks);
+    } catch (InterruptedException e) {
+      if (this.isCanceled)
+        return;
+      throw e;
+    }
+
+    for (Future<Void> future : futures) {
+      try {
+        future.get();
+      } catch (ExecutionException e) {
+        throw e.getCause();
+      } catch (CancellationException e) {
+        if (!this.isCanceled)
+          throw e;
+      }
+    }
+  }
+
+  /**
+   * Releases the FFT and pixel memory held by a band of tiles.
+   *
+   * @param band the tiles to release
+   */
+  private void releaseBand(List<ImageTile<T>> band) {
+    for (ImageTile<T> t : band) {
+      t.releaseFftMemory();
+      t.releasePixels();
+    }
+  }
+
+  /**
+   * Gets the tiles belonging to the bth band of the grid.
+   *
+   * @param grid     the image tile grid
+   * @param rowBands whether the bands are rows (true) or columns (false)
+   * @param b        the band index relative to the start of the (sub)grid
+   * @return the list of tiles within the band
+   */
+  private static <T> List<ImageTile<T>> getBand(TileGrid<ImageTile<T>> grid, boolean rowBands,
+                                                int b) {
+    List<ImageTile<T>> band = new ArrayList<ImageTile<T>>();
+    if (rowBands) {
+      for (int c = 0; c < grid.getExtentWidth(); c++)
+        band.add(grid.getSubGridTile(b, c));
+    } else {
+      for (int r = 0; r < grid.getExtentHeight(); r++)
+        band.add(grid.getSubGridTile(r, b));
+    }
+    return band;
+  }
+
+  /**
+   * Determines the band orientation which minimizes the number of tiles per band.
+   *
+   * @param grid the image tile grid
+   * @return true if the grid should be processed in bands of rows, false for bands of columns
+   */
+  private static boolean isRowBanded(TileGrid<?> grid) {
+    return grid.getExtentWidth() <= grid.getExtentHeight();
+  }
+
+  /**
+   * Checks for the required libraries.
+   *
+   * @param params     the stitching application params
+   * @param displayGui whether to display gui or not
+   * @return flag denoting whether the libraries required for this executor were found.
+   */
+  @Override
+  public boolean checkForLibs(StitchingAppParams params, boolean displayGui) {
+    return true;
+  }
+
+  @Override
+  public void cleanup() {
+  }
+
+  /**
+   * Determines if the system has the required memory to perform this stitching experiment as
+   * configured. At most two bands of pixel data and FFTs are held at once, plus one pcm buffer per
+   * worker.
+   *
+   * @param grid       the image tile grid
+   * @param numWorkers the number of worker threads
+   * @param <T>        the Type of ImageTile in the TileGrid
+   * @return flag denoting whether the system has enough memory to stitch this experiment as is.
+   */
+  @Override
+  public <T> boolean checkMemory(TileGrid<ImageTile<T>> grid, int numWorkers) {
+    long requiredMemoryBytes = 0;
+    long bandLength = Math.min(grid.getExtentWidth(), grid.getExtentHeight());
+    long memoryPoolCount = 2L * bandLength;
+    ImageTile<T> tile = grid.getTileThatExists();
+    tile.readTile();
+
+    // Account for image pixel data
+    requiredMemoryBytes += (long) tile.getHeight() * (long) tile.getWidth() * memoryPoolCount * 2L; // 16 bit pixel data
+
+    // Account for image pixel data up conversion
+    long byteDepth = tile.getBitDepth() / 8;
+    if (byteDepth != 2) {
+      // if up-converting at worst case there will be numWorkers copies of the old precision pixel data
+      requiredMemoryBytes += (long) numWorkers * (long) tile.getHeight() * (long) tile.getWidth() * byteDepth;
+    }
+
+    // Account for Java FFT data
+    int[] n = JavaImageTile.getFftMemorySize();
+    long size = 1;
+    for (int val : n)
+      size *= val;
+    requiredMemoryBytes += memoryPoolCount * size * 4L; // float[n1][n2]
+
+    requiredMemoryBytes += (long) numWorkers * size * 4L; // new float[fftHeight][fftWidth] per worker
+
+    // pad with 100MB
+    requiredMemoryBytes += 100L * 1024L * 1024L;
+
+    return requiredMemoryBytes < Runtime.getRuntime().maxMemory();
+  }
+}
@@ -26,11 +26,15 @@ import gov.nist.isg.mist.gui.params.StitchingAppParams;
 import gov.nist.isg.mist.lib.exceptions.EmptyGridException;
 import gov.nist.isg.mist.lib.imagetile.ImageTile;
 import gov.nist.isg.mist.lib.imagetile.Stitching;
+import gov.nist.isg.mist.lib.imagetile.fftw.FftSizeSelector;
 import gov.nist.isg.mist.lib.imagetile.fftw.FftwImageTile;
 import gov.nist.isg.mist.lib.log.Log;
 import gov.nist.isg.mist.lib.log.Log.LogType;
 import gov.nist.isg.mist.lib.parallel.cpu.CPUStitchingThreadExecutor;
+import gov.nist.isg.mist.lib.parallel.cpu.PartitionedCPUStitchingThreadExecutor;
 import gov.nist.isg.mist.lib.tilegrid.TileGrid;
+import gov.nist.isg.mist.lib.tilegrid.traverser.TileGridLiveTraverser;
+import gov.nist.isg.mist.lib.tilegrid.traverser.TileGridTraversalPlanner;
 import gov.nist.isg.mist.lib32.imagetile.fftw.FftwImageTile32;
 
 
@@ -44,12 +48,18 @@ public class FftwStitchingExecutor<T> implements StitchingExecutorInterface<T> {
   private boolean librariesInitialized;
   private boolean init;
   private CPUStitchingThreadExecutor<T> fftwExecutor;
+  private PartitionedCPUStitchingThreadExecutor<T> partitionedExecutor;
+  private int numCpuPartitions;
+  private boolean liveStitching;
   private StitchingExecutor executor;
 
   public FftwStitchingExecutor(StitchingExecutor executor) {
     this.librariesInitialized = false;
     this.init = false;
     this.fftwExecutor = null;
+    this.partitionedExecutor = null;
+    this.numCpuPartitions = 1;
+    this.liveStitching = false;
     this.executor = executor;
   }
 
@@ -58,6 +68,8 @@ public class FftwStitchingExecutor<T> implements StitchingExecutorInterface<T> {
     Log.msg(Log.LogType.MANDATORY, "Canceling Stitching FFTW Executor");
     if (this.fftwExecutor != null)
       this.fftwExecutor.cancel();
+    if (this.partitionedExecutor != null)
+      this.partitionedExecutor.cancel();
   }
 
   /**
@@ -93,15 +105,25 @@ public class FftwStitchingExecutor<T> implements StitchingExecutorInterface<T> {
 
       StitchingGuiUtils.updateProgressBar(progressBar, true, "Loading FFTW Plan...");
 
+      boolean loadPlan = params.getAdvancedParams().isLoadFFTWPlan();
+      boolean savePlan = params.getAdvancedParams().isSaveFFTWPlan();
+      int[] fftDims = {tile.getWidth(), tile.getHeight()};
+
       if (params.getAdvancedParams().isUseDoublePrecision()) {
-        FftwImageTile.initPlans(tile.getWidth(), tile.getHeight(), params.getAdvancedParams().getFftwPlanType()
-            .getVal(), params.getAdvancedParams().isLoadFFTWPlan(), plan);
+        if (params.getAdvancedParams().isFftPadding())
+          fftDims = FftwImageTile.selectFftSize(tile.getWidth(), tile.getHeight(), loadPlan, savePlan, plan);
+
+        FftwImageTile.initPlans(tile.getWidth(), tile.getHeight(), fftDims[0], fftDims[1],
+            params.getAdvancedParams().getFftwPlanType().getVal(), loadPlan, plan);
 
         if (params.getAdvancedParams().isSaveFFTWPlan())
           FftwImageTile.savePlan(plan);
       } else {
-        FftwImageTile32.initPlans(tile.getWidth(), tile.getHeight(), params.getAdvancedParams().getFftwPlanType()
-            .getVal(), params.getAdvancedParams().isLoadFFTWPlan(), plan);
+        if (params.getAdvancedParams().isFftPadding())
+          fftDims = FftwImageTile32.selectFftSize(tile.getWidth(), tile.getHeight(), loadPlan, savePlan, plan);
+
+        FftwImageTile32.initPlans(tile.getWidth(), tile.getHeight(), fftDims[0], fftDims[1],
+            params.getAdvancedParams().getFftwPlanType().getVal(), loadPlan, plan);
 
         if (params.getAdvancedParams().isSaveFFTWPlan())
           FftwImageTile32.savePlan(plan);
@@ -116,7 +138,27 @@ public class FftwStitchingExecutor<T> implements StitchingExecutorInterface<T> {
 
     }
 
-    this.fftwExecutor = new CPUStitchingThreadExecutor<T>(1, params.getAdvancedParams().getNumCPUThreads(), tile, grid, progressBar);
+    if (params.getAdvancedParams().getNumCpuPartitions() > 1
+        && !params.getAdvancedParams().isLiveStitching()) {
+      this.partitionedExecutor = new PartitionedCPUStitchingThreadExecutor<T>(
+          params.getAdvancedParams().getNumCpuPartitions(), params.getAdvancedParams().getNumCPUThreads(),
+          tile, grid, progressBar, params.getAdvancedParams().getFftHeapBudgetMB() * 1024L * 1024L,
+          params.getAdvancedParams().getFftOffHeapBudgetMB() * 1024L * 1024L);
+
+      tile.releasePixels();
+
+      this.partitionedExecutor.execute();
+
+      if (this.partitionedExecutor.isExceptionThrown())
+        throw this.partitionedExecutor.getWorkerThrowable();
+      return;
+    }
+
+    this.fftwExecutor = new CPUStitchingThreadExecutor<T>(1, params.getAdvancedParams().getNumCPUThreads(), tile, grid, progressBar,
+        params.getAdvancedParams().getFftHeapBudgetMB() * 1024L * 1024L,
+        params.getAdvancedParams().getFftOffHeapBudgetMB() * 1024L * 1024L,
+        JavaStitchingExecutor.makeTraverser(grid, params),
+        params.getAdvancedParams().isDagScheduler());
 
     tile.releasePixels();
 
@@ -198,6 +240,16 @@ public class FftwStitchingExecutor<T> implements StitchingExecutorInterface<T> {
       }
     }
 
+    // live stitching never partitions the grid, see launchStitching
+    this.liveStitching = params.getAdvancedParams().isLiveStitching();
+    this.numCpuPartitions = params.getAdvancedParams().isLiveStitching() ? 1
+        : params.getAdvancedParams().getNumCpuPartitions();
+
+    // wait for the first tile of an acquisition that is still in progress
+    if (params.getAdvancedParams().isLiveStitching())
+      TileGridLiveTraverser.awaitFirstTile(grid, params.getAdvancedParams().getLiveSettleMillis(),
+          params.getAdvancedParams().getLiveTimeoutSeconds() * 1000L);
+
     if (grid.getTileThatExists() == null)
       throw new EmptyGridException("Image Tile Grid contains no valid tiles. Check " +
           "Stitching Parameters");
@@ -222,7 +274,25 @@ public class FftwStitchingExecutor<T> implements StitchingExecutorInterface<T> {
   public <T> boolean checkMemory(TileGrid<ImageTile<T>> grid, int numWorkers) {
 
     long requiredMemoryBytes = 0;
-    long memoryPoolCount = Math.min(grid.getExtentHeight(), grid.getExtentWidth()) + 2 + numWorkers;
+    TileGridTraversalPlanner.Plan plan = TileGridTraversalPlanner.plan(grid);
+    long memoryPoolCount = plan.getPeakFfts() + numWorkers;
+    long pixelCount = plan.getPeakPixels() + numWorkers;
+    if (this.liveStitching) {
+      // tiles read in acquisition order hold up to a full row or column
+      memoryPoolCount = TileGridLiveTraverser.getPeakTiles(grid) + numWorkers;
+      pixelCount = TileGridLiveTraverser.getPeakTiles(grid) + numWorkers;
+    }
+    int workerCount = numWorkers;
+
+    // each partition has its own memory pool and the seam pass runs on top of them
+    if (this.numCpuPartitions > 1) {
+      long[] partitionPeakFfts =
+          PartitionedCPUStitchingThreadExecutor.getPartitionPeakFfts(grid, this.numCpuPartitions);
+      memoryPoolCount =
+          PartitionedCPUStitchingThreadExecutor.getPeakFftCount(partitionPeakFfts, numWorkers);
+      workerCount = PartitionedCPUStitchingThreadExecutor.getPeakWorkerCount(
+          partitionPeakFfts.length, numWorkers);
+    }
 
     ImageTile<T> tile = grid.getTileThatExists();
     tile.readTile();
@@ -230,7 +300,7 @@ public class FftwStitchingExecutor<T> implements StitchingExecutorInterface<T> {
     // Account for image pixel data
     if (ImageTile.freePixelData()) {
       // If freeing image pixel data
-      requiredMemoryBytes += (long) tile.getHeight() * (long) tile.getWidth() * memoryPoolCount * 2L; // 16 bit pixel data
+      requiredMemoryBytes += (long) tile.getHeight() * (long) tile.getWidth() * pixelCount * 2L; // 16 bit pixel data
     } else {
       // If not freeing image pixel data
       // must hold whole image grid in memory
@@ -241,26 +311,29 @@ public class FftwStitchingExecutor<T> implements StitchingExecutorInterface<T> {
     long byteDepth = tile.getBitDepth() / 8;
     if (byteDepth != 2) {
       // if up-converting at worst case there will be numWorkers copies of the old precision pixel data
-      requiredMemoryBytes += (long) numWorkers * (long) tile.getHeight() * (long) tile.getWidth() * byteDepth;
+      requiredMemoryBytes += (long) workerCount * (long) tile.getHeight() * (long) tile.getWidth() * byteDepth;
     }
 
-    long size = (tile.getWidth() / 2 + 1) * tile.getHeight();
+    // the transforms may be padded, account for the largest size that could be selected
+    long fftWidth = FftSizeSelector.getMaxCandidateSize(tile.getWidth());
+    long fftHeight = FftSizeSelector.getMaxCandidateSize(tile.getHeight());
+    long size = (fftWidth / 2 + 1) * fftHeight;
     requiredMemoryBytes += memoryPoolCount * size * 2 * 8; // fftw_alloc_real(size*2)
 
     // Account for FFTW fft data
     long perWorkerMemory = 0;
     if (tile instanceof FftwImageTile) {
-      perWorkerMemory += (long) tile.getHeight() * (long) tile.getWidth() * 8L; // pcmP fftw_alloc_real
-      perWorkerMemory += (long) tile.getHeight() * (long) tile.getWidth() * 8L; // fftInP fftw_alloc_real
+      perWorkerMemory += fftHeight * fftWidth * 8L; // pcmP fftw_alloc_real
+      perWorkerMemory += fftHeight * fftWidth * 8L; // fftInP fftw_alloc_real
       perWorkerMemory += size * 16L; // pcmInP fftw_alloc_complex
     } else {
-      perWorkerMemory += (long) tile.getHeight() * (long) tile.getWidth() * 4L; // pcmP fftwf_alloc_real
-      perWorkerMemory += (long) tile.getHeight() * (long) tile.getWidth() * 4L; // fftInP fftwf_alloc_real
+      perWorkerMemory += fftHeight * fftWidth * 4L; // pcmP fftwf_alloc_real
+      perWorkerMemory += fftHeight * fftWidth * 4L; // fftInP fftwf_alloc_real
       perWorkerMemory += size * 8L; // pcmInP fftwf_alloc_complex
     }
     perWorkerMemory += (long) Stitching.NUM_PEAKS * 4L; // peaks Pointer.allocateInts
 
-    requiredMemoryBytes += perWorkerMemory * (long) numWorkers;
+    requiredMemoryBytes += perWorkerMemory * (long) workerCount;
 
     // pad with 10MB
     requiredMemoryBytes += 10L * 1024L * 1024L;
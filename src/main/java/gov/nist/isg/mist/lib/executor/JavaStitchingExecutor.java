@@ -28,7 +28,12 @@ import gov.nist.isg.mist.lib.imagetile.ImageTile;
 import gov.nist.isg.mist.lib.imagetile.java.JavaImageTile;
 import gov.nist.isg.mist.lib.log.Log;
 import gov.nist.isg.mist.lib.parallel.cpu.CPUStitchingThreadExecutor;
+import gov.nist.isg.mist.lib.parallel.cpu.PartitionedCPUStitchingThreadExecutor;
 import gov.nist.isg.mist.lib.tilegrid.TileGrid;
+import gov.nist.isg.mist.lib.tilegrid.traverser.TileGridLiveTraverser;
+import gov.nist.isg.mist.lib.tilegrid.traverser.TileGridTraversalPlanner;
+import gov.nist.isg.mist.lib.tilegrid.traverser.TileGridTraverser;
+import gov.nist.isg.mist.lib.tilegrid.traverser.TileGridTraverserFactory;
 import gov.nist.isg.mist.lib32.imagetile.java.JavaImageTile32;
 
 
@@ -41,10 +46,16 @@ public class JavaStitchingExecutor<T> implements StitchingExecutorInterface<T> {
 
   private boolean init;
   private CPUStitchingThreadExecutor<T> executor;
+  private PartitionedCPUStitchingThreadExecutor<T> partitionedExecutor;
+  private int numCpuPartitions;
+  private boolean liveStitching;
 
   public JavaStitchingExecutor() {
     this.init = false;
     this.executor = null;
+    this.partitionedExecutor = null;
+    this.numCpuPartitions = 1;
+    this.liveStitching = false;
   }
 
 
@@ -53,6 +64,8 @@ public class JavaStitchingExecutor<T> implements StitchingExecutorInterface<T> {
     Log.msg(Log.LogType.MANDATORY, "Canceling Stitching Java Executor");
     if (this.executor != null)
       this.executor.cancel();
+    if (this.partitionedExecutor != null)
+      this.partitionedExecutor.cancel();
   }
 
   /**
@@ -82,9 +95,29 @@ public class JavaStitchingExecutor<T> implements StitchingExecutorInterface<T> {
     ImageTile<T> tile = grid.getTileThatExists();
     tile.readTile();
 
+    if (params.getAdvancedParams().getNumCpuPartitions() > 1
+        && !params.getAdvancedParams().isLiveStitching()) {
+      this.partitionedExecutor = new PartitionedCPUStitchingThreadExecutor<T>(
+          params.getAdvancedParams().getNumCpuPartitions(), params.getAdvancedParams().getNumCPUThreads(),
+          tile, grid, progressBar, params.getAdvancedParams().getFftHeapBudgetMB() * 1024L * 1024L,
+          params.getAdvancedParams().getFftOffHeapBudgetMB() * 1024L * 1024L);
+
+      tile.releasePixels();
+
+      StitchingGuiUtils.updateProgressBar(progressBar, false, null);
+
+      this.partitionedExecutor.execute();
+      if (this.partitionedExecutor.isExceptionThrown())
+        throw this.partitionedExecutor.getWorkerThrowable();
+      return;
+    }
+
     this.executor =
         new CPUStitchingThreadExecutor<T>(1, params.getAdvancedParams().getNumCPUThreads(), tile, grid,
-            progressBar);
+            progressBar, params.getAdvancedParams().getFftHeapBudgetMB() * 1024L * 1024L,
+            params.getAdvancedParams().getFftOffHeapBudgetMB() * 1024L * 1024L,
+            makeTraverser(grid, params),
+            params.getAdvancedParams().isDagScheduler());
 
     tile.releasePixels();
 
@@ -131,12 +164,30 @@ public class JavaStitchingExecutor<T> implements StitchingExecutorInterface<T> {
       }
     }
 
+    // live stitching never partitions the grid, see launchStitching
+    this.liveStitching = params.getAdvancedParams().isLiveStitching();
+    this.numCpuPartitions = params.getAdvancedParams().isLiveStitching() ? 1
+        : params.getAdvancedParams().getNumCpuPartitions();
+
+    // wait for the first tile of an acquisition that is still in progress
+    if (params.getAdvancedParams().isLiveStitching())
+      TileGridLiveTraverser.awaitFirstTile(grid, params.getAdvancedParams().getLiveSettleMillis(),
+          params.getAdvancedParams().getLiveTimeoutSeconds() * 1000L);
+
     ImageTile<T> tile = grid.getTileThatExists();
     if (tile == null)
       throw new EmptyGridException("Image Tile Grid contains no valid tiles. Check " +
           "Stitching Parameters");
     tile.readTile();
 
+    if (params.getAdvancedParams().isUseFlatJavaFft()) {
+      JavaImageTile.enableFlatFft();
+      JavaImageTile32.enableFlatFft();
+    } else {
+      JavaImageTile.disableFlatFft();
+      JavaImageTile32.disableFlatFft();
+    }
+
     if (params.getAdvancedParams().isUseDoublePrecision()) {
       JavaImageTile.initJavaPlan(tile);
     } else {
@@ -148,6 +199,28 @@ public class JavaStitchingExecutor<T> implements StitchingExecutorInterface<T> {
     return grid;
   }
 
+  /**
+   * Creates the traverser the tiles are read in: by acquisition in live mode, otherwise the
+   * traversal with the smallest simulated working set.
+   *
+   * @param grid   the image tile grid
+   * @param params the stitching application params
+   * @return the traverser
+   */
+  static <T> TileGridTraverser<ImageTile<T>> makeTraverser(TileGrid<ImageTile<T>> grid,
+                                                           StitchingAppParams params) {
+    if (params.getAdvancedParams().isLiveStitching()) {
+      Log.msg(Log.LogType.MANDATORY, "Stitching tiles as they are acquired");
+      return new TileGridLiveTraverser<ImageTile<T>>(grid,
+          params.getAdvancedParams().getLiveSettleMillis(),
+          params.getAdvancedParams().getLiveTimeoutSeconds() * 1000L);
+    }
+
+    TileGridTraversalPlanner.Plan plan = TileGridTraversalPlanner.plan(grid);
+    Log.msg(Log.LogType.HELPFUL, "Traversing the grid by " + plan);
+    return TileGridTraverserFactory.makeTraverser(plan.getTraversal(), grid);
+  }
+
   @Override
   public void cleanup() {
   }
@@ -166,14 +239,32 @@ public class JavaStitchingExecutor<T> implements StitchingExecutorInterface<T> {
   public <T> boolean checkMemory(TileGrid<ImageTile<T>> grid, int numWorkers) {
 
     long requiredMemoryBytes = 0;
-    long memoryPoolCount = Math.min(grid.getExtentHeight(), grid.getExtentWidth()) + 2 + numWorkers;
+    TileGridTraversalPlanner.Plan plan = TileGridTraversalPlanner.plan(grid);
+    long memoryPoolCount = plan.getPeakFfts() + numWorkers;
+    long pixelCount = plan.getPeakPixels() + numWorkers;
+    if (this.liveStitching) {
+      // tiles read in acquisition order hold up to a full row or column
+      memoryPoolCount = TileGridLiveTraverser.getPeakTiles(grid) + numWorkers;
+      pixelCount = TileGridLiveTraverser.getPeakTiles(grid) + numWorkers;
+    }
+    int workerCount = numWorkers;
+
+    // each partition has its own memory pool and the seam pass runs on top of them
+    if (this.numCpuPartitions > 1) {
+      long[] partitionPeakFfts =
+          PartitionedCPUStitchingThreadExecutor.getPartitionPeakFfts(grid, this.numCpuPartitions);
+      memoryPoolCount =
+          PartitionedCPUStitchingThreadExecutor.getPeakFftCount(partitionPeakFfts, numWorkers);
+      workerCount = PartitionedCPUStitchingThreadExecutor.getPeakWorkerCount(
+          partitionPeakFfts.length, numWorkers);
+    }
     ImageTile<T> tile = grid.getTileThatExists();
     tile.readTile();
 
     // Account for image pixel data
     if (ImageTile.freePixelData()) {
       // If freeing image pixel data
-      requiredMemoryBytes += (long) tile.getHeight() * (long) tile.getWidth() * memoryPoolCount * 2L; // 16 bit pixel data
+      requiredMemoryBytes += (long) tile.getHeight() * (long) tile.getWidth() * pixelCount * 2L; // 16 bit pixel data
     } else {
       // If not freeing image pixel data
       // must hold whole image grid in memory
@@ -184,20 +275,18 @@ public class JavaStitchingExecutor<T> implements StitchingExecutorInterface<T> {
     long byteDepth = tile.getBitDepth() / 8;
     if (byteDepth != 2) {
       // if up-converting at worst case there will be numWorkers copies of the old precision pixel data
-      requiredMemoryBytes += (long) numWorkers * (long) tile.getHeight() * (long) tile.getWidth() * byteDepth;
+      requiredMemoryBytes += (long) workerCount * (long) tile.getHeight() * (long) tile.getWidth() * byteDepth;
     }
 
     // Account for Java FFT data
     long size = 1;
     if (tile instanceof JavaImageTile) {
-      int n[] = {JavaImageTile.fftPlan.getFrequencySampling2().getCount(),
-          JavaImageTile.fftPlan.getFrequencySampling1().getCount() * 2};
+      int n[] = JavaImageTile.getFftMemorySize();
 
       for (int val : n)
         size *= val;
     } else {
-      int n[] = {JavaImageTile32.fftPlan.getFrequencySampling2().getCount(),
-          JavaImageTile32.fftPlan.getFrequencySampling1().getCount() * 2};
+      int n[] = JavaImageTile32.getFftMemorySize();
 
       for (int val : n)
         size *= val;
@@ -0,0 +1,327 @@
+// NIST-developed software is provided by NIST as a public service. You may use, copy and distribute copies of the software in any medium, provided that you keep intact this entire notice. You may improve, modify and create derivative works of the software or any portion of the software, and you may copy and distribute such modifications or works. Modified works should carry a notice stating that you changed the software and should note the date and nature of any such change. Please explicitly acknowledge the National Institute of Standards and Technology as the source of the software.
+
+// NIST-developed software is expressly provided "AS IS." NIST MAKES NO WARRANTY OF ANY KIND, EXPRESS, IMPLIED, IN FACT OR ARISING BY OPERATION OF LAW, INCLUDING, WITHOUT LIMITATION, THE IMPLIED WARRANTY OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE, NON-INFRINGEMENT AND DATA ACCURACY. NIST NEITHER REPRESENTS NOR WARRANTS THAT THE OPERATION OF THE SOFTWARE WILL BE UNINTERRUPTED OR ERROR-FREE, OR THAT ANY DEFECTS WILL BE CORRECTED. NIST DOES NOT WARRANT OR MAKE ANY REPRESENTATIONS REGARDING THE USE OF THE SOFTWARE OR THE RESULTS THEREOF, INCLUDING BUT NOT LIMITED TO THE CORRECTNESS, ACCURACY, RELIABILITY, OR USEFULNESS OF THE SOFTWARE.
+
+// You are solely responsible for determining the appropriateness of using and distributing the software and you assume all risks associated with its use, including but not limited to the risks and costs of program errors, compliance with applicable laws, damage to or loss of data, programs or equipment, and the unavailability or interruption of operation. This software is not intended to be used in any situation where a failure could cause risk of injury or damage to property. The software developed by NIST employees is not subject to copyright protection within the United States.
+
+package gov.nist.isg.mist.lib.executor;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import javax.swing.JProgressBar;
+
+import gov.nist.isg.mist.gui.StitchingGuiUtils;
+import gov.nist.isg.mist.lib.imagetile.ImageTile;
+import gov.nist.isg.mist.lib.log.Log;
+import gov.nist.isg.mist.lib.log.Log.LogType;
+import gov.nist.isg.mist.lib.tilegrid.TileGrid;
+import ij.ImagePlus;
+import ij.process.ColorProcessor;
+import ij.process.ImageProcessor;
+import loci.plugins.util.ImageProcessorReader;
+import loci.plugins.util.LociPrefs;
+
+/**
+ * LowResPreviewExecutor assembles a quick, low resolution, no overlap preview of the image grid.
+ * Each tile is decoded directly at reduced resolution and placed at 1/downsample scale, with
+ * tiles decoded in parallel. This is intended for checking the grid origin and numbering pattern
+ * without decoding every tile at full resolution.
+ *
+ * Tiles are decoded using (in order of preference) the closest embedded sub-resolution of
+ * pyramidal files read with Bio-Formats, ImageIO source subsampling when an ImageIO reader exists
+ * for the format, or a full resolution decode followed by strided sampling.
+ *
+ * @author Michael Majurski
+ */
+public class LowResPreviewExecutor<T> {
+
+  /**
+   * The default downsample factor for the preview
+   */
+  public static final int DEFAULT_DOWNSAMPLE = 16;
+
+  private enum DecodeMode {
+    PYRAMID, IMAGEIO, FULL
+  }
+
+  private TileGrid<ImageTile<T>> grid;
+  private int downsample;
+  private int numThreads;
+  private volatile boolean isCancelled;
+  private ExecutorService executor;
+
+  private ImageProcessor prototype;
+  private int tileWidth;
+  private int tileHeight;
+  private int cellWidth;
+  private int cellHeight;
+  private volatile DecodeMode decodeMode;
+
+  /**
+   * Creates a low resolution preview executor
+   *
+   * @param grid       the image tile grid
+   * @param downsample the downsample factor (i.e. 16 produces a 1/16 scale preview)
+   * @param numThreads the number of decoding threads
+   */
+  public LowResPreviewExecutor(TileGrid<ImageTile<T>> grid, int downsample, int numThreads) {
+    this.grid = grid;
+    this.downsample = Math.max(1, downsample);
+    this.numThreads = Math.max(1, numThreads);
+    this.isCancelled = false;
+  }
+
+  /**
+   * Assembles the preview image
+   *
+   * @param progressBar the GUI progress bar
+   * @return the preview image, or null if no tile could be read or the preview was cancelled
+   */
+  public ImagePlus assemble(JProgressBar progressBar) throws IOException {
+    ImageTile<T> tileThatExists = this.grid.getTileThatExists();
+    if (tileThatExists == null)
+      return null;
+
+    ImagePlus first = tileThatExists.getImagePlus();
+    if (first == null)
+      return null;
+
+    this.prototype = first.getProcessor();
+    this.tileWidth = this.prototype.getWidth();
+    this.tileHeight = this.prototype.getHeight();
+    this.cellWidth = (this.tileWidth + this.downsample - 1) / this.downsample;
+    this.cellHeight = (this.tileHeight + this.downsample - 1) / this.downsample;
+    this.decodeMode = chooseDecodeMode(tileThatExists);
+
+    Log.msg(LogType.MANDATORY, "Assembling 1/" + this.downsample + " scale preview using " + this.decodeMode
+        + " tile decoding");
+
+    final int rows = this.grid.getExtentHeight();
+    final int cols = this.grid.getExtentWidth();
+    final ImageProcessor preview = this.prototype.createProcessor(cols * this.cellWidth, rows * this.cellHeight);
+
+    StitchingGuiUtils.updateProgressBar(progressBar, false, null, "Assembling preview...", 0, rows * cols, 0, false);
+
+    long startTime = System.currentTimeMillis();
+
+    this.executor = Executors.newFixedThreadPool(this.numThreads);
+    try {
+      List<Future<Void>> futures = new ArrayList<Future<Void>>();
+      for (int row = 0; row < rows; row++) {
+        for (int col = 0; col < cols; col++) {
+          final ImageTile<T> tile = this.grid.getSubGridTile(row, col);
+          final int x = col * this.cellWidth;
+          final int y = row * this.cellHeight;
+          final JProgressBar progress = progressBar;
+          futures.add(this.executor.submit(new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+              if (!isCancelled && tile.fileExists()) {
+                ImageProcessor cell = decodeTile(tile);
+                if (cell != null)
+                  insert(preview, cell, x, y);
+              }
+              StitchingGuiUtils.incrementProgressBar(progress);
+              return null;
+            }
+          }));
+        }
+      }
+
+      for (Future<Void> future : futures) {
+        if (this.isCancelled)
+          return null;
+        try {
+          future.get();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          return null;
+        } catch (ExecutionException e) {
+          throw new IOException("Failed to decode tile for preview: " + e.getCause(), e.getCause());
+        }
+      }
+    } finally {
+      this.executor.shutdownNow();
+    }
+
+    Log.msg(LogType.MANDATORY, "Assembled preview of size " + preview.getWidth() + "x" + preview.getHeight()
+        + " in " + (System.currentTimeMillis() - startTime) + " ms");
+
+    return new ImagePlus("Preview 1:" + this.downsample, preview);
+  }
+
+  /**
+   * Cancels assembling the preview
+   */
+  public void cancel() {
+    this.isCancelled = true;
+    if (this.executor != null)
+      this.executor.shutdownNow();
+  }
+
+  /**
+   * Selects the fastest decode path that produces pixels of the same type as the full decode
+   */
+  private DecodeMode chooseDecodeMode(ImageTile<T> tile) {
+    try {
+      if (decodePyramid(tile) != null)
+        return DecodeMode.PYRAMID;
+    } catch (Exception e) {
+      Log.msg(LogType.INFO, "Unable to read sub-resolutions: " + e.getMessage());
+    }
+
+    try {
+      if (decodeImageIO(tile) != null)
+        return DecodeMode.IMAGEIO;
+    } catch (Exception e) {
+      Log.msg(LogType.INFO, "Unable to read with ImageIO subsampling: " + e.getMessage());
+    }
+
+    return DecodeMode.FULL;
+  }
+
+  private ImageProcessor decodeTile(ImageTile<T> tile) throws Exception {
+    ImageProcessor ip = null;
+    switch (this.decodeMode) {
+      case PYRAMID:
+        ip = decodePyramid(tile);
+        break;
+      case IMAGEIO:
+        ip = decodeImageIO(tile);
+        break;
+      case FULL:
+      default:
+        break;
+    }
+
+    if (ip != null)
+      return ip;
+
+    // full resolution decode followed by strided sampling
+    ImagePlus image = tile.getImagePlus();
+    if (image == null)
+      return null;
+    return resample(image.getProcessor());
+  }
+
+  /**
+   * Opens the embedded sub-resolution closest to (but not smaller than) the preview scale, returns
+   * null if the file has no sub-resolutions
+   */
+  private ImageProcessor decodePyramid(ImageTile<T> tile) throws Exception {
+    ImageProcessorReader reader = new ImageProcessorReader(LociPrefs.makeImageReader());
+    try {
+      reader.setFlattenedResolutions(false);
+      reader.setId(tile.getFilePath());
+
+      if (reader.getResolutionCount() <= 1)
+        return null;
+
+      int resolution = 0;
+      for (int r = 1; r < reader.getResolutionCount(); r++) {
+        reader.setResolution(r);
+        if (reader.getSizeX() < this.cellWidth || reader.getSizeY() < this.cellHeight)
+          break;
+        resolution = r;
+      }
+      reader.setResolution(resolution);
+
+      ImageProcessor[] ips = reader.openProcessors(0);
+      ImageProcessor ip;
+      if (ips.length == 3 && this.prototype instanceof ColorProcessor) {
+        ColorProcessor cp = new ColorProcessor(ips[0].getWidth(), ips[0].getHeight());
+        cp.setRGB((byte[]) ips[0].convertToByte(false).getPixels(), (byte[]) ips[1].convertToByte(false).getPixels(),
+            (byte[]) ips[2].convertToByte(false).getPixels());
+        ip = cp;
+      } else {
+        ip = ips[0];
+      }
+
+      if (ip.getClass() != this.prototype.getClass())
+        return null;
+
+      return resample(ip);
+    } finally {
+      reader.close();
+    }
+  }
+
+  /**
+   * Decodes with ImageIO source subsampling so only every downsample-th pixel is materialized,
+   * returns null if no ImageIO reader exists or it does not produce the expected pixel type
+   */
+  private ImageProcessor decodeImageIO(ImageTile<T> tile) throws IOException {
+    ImageInputStream stream = ImageIO.createImageInputStream(new File(tile.getFilePath()));
+    if (stream == null)
+      return null;
+
+    try {
+      Iterator<ImageReader> readers = ImageIO.getImageReaders(stream);
+      if (!readers.hasNext())
+        return null;
+
+      ImageReader reader = readers.next();
+      try {
+        reader.setInput(stream, true, true);
+        ImageReadParam param = reader.getDefaultReadParam();
+        param.setSourceSubsampling(this.downsample, this.downsample, 0, 0);
+        BufferedImage image = reader.read(0, param);
+        if (image == null)
+          return null;
+
+        ImageProcessor ip = new ImagePlus("", image).getProcessor();
+        if (ip.getClass() != this.prototype.getClass())
+          return null;
+
+        return resample(ip);
+      } finally {
+        reader.dispose();
+      }
+    } finally {
+      stream.close();
+    }
+  }
+
+  /**
+   * Nearest neighbor resample into a preview cell, a no-op if the image is already cell sized
+   */
+  private ImageProcessor resample(ImageProcessor src) {
+    if (src.getWidth() == this.cellWidth && src.getHeight() == this.cellHeight)
+      return src;
+
+    ImageProcessor dst = src.createProcessor(this.cellWidth, this.cellHeight);
+    for (int y = 0; y < this.cellHeight; y++) {
+      int srcY = Math.min(src.getHeight() - 1, (int) ((long) y * src.getHeight() / this.cellHeight));
+      for (int x = 0; x < this.cellWidth; x++) {
+        int srcX = Math.min(src.getWidth() - 1, (int) ((long) x * src.getWidth() / this.cellWidth));
+        dst.set(x, y, src.get(srcX, srcY));
+      }
+    }
+    return dst;
+  }
+
+  /**
+   * Copies a preview cell into the preview. Cells are disjoint so no locking is needed.
+   */
+  private static void insert(ImageProcessor preview, ImageProcessor cell, int x, int y) {
+    for (int row = 0; row < cell.getHeight(); row++) {
+      for (int col = 0; col < cell.getWidth(); col++) {
+        preview.set(x + col, y + row, cell.get(col, row));
+      }
+    }
+  }
+}
@@ -0,0 +1,551 @@
+// NIST-developed software is provided by NIST as a public service. You may use, copy and distribute copies of the software in any medium, provided that you keep intact this entire notice. You may improve, modify and create derivative works of the software or any portion of the software, and you may copy and distribute such modifications or works. Modified works should carry a notice stating that you changed the software and should note the date and nature of any such change. Please explicitly acknowledge the National Institute of Standards and Technology as the source of the software.
+
+// NIST-developed software is expressly provided "AS IS." NIST MAKES NO WARRANTY OF ANY KIND, EXPRESS, IMPLIED, IN FACT OR ARISING BY OPERATION OF LAW, INCLUDING, WITHOUT LIMITATION, THE IMPLIED WARRANTY OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE, NON-INFRINGEMENT AND DATA ACCURACY. NIST NEITHER REPRESENTS NOR WARRANTS THAT THE OPERATION OF THE SOFTWARE WILL BE UNINTERRUPTED OR ERROR-FREE, OR THAT ANY DEFECTS WILL BE CORRECTED. NIST DOES NOT WARRANT OR MAKE ANY REPRESENTATIONS REGARDING THE USE OF THE SOFTWARE OR THE RESULTS THEREOF, INCLUDING BUT NOT LIMITED TO THE CORRECTNESS, ACCURACY, RELIABILITY, OR USEFULNESS OF THE SOFTWARE.
+
+// You are solely responsible for determining the appropriateness of using and distributing the software and you assume all risks associated with its use, including but not limited to the risks and costs of program errors, compliance with applicable laws, damage to or loss of data, programs or equipment, and the unavailability or interruption of operation. This software is not intended to be used in any situation where a failure could cause risk of injury or damage to property. The software developed by NIST employees is not subject to copyright protection within the United States.
+
+
+
+// ================================================================
+//
+// Author: tjb3
+// Date: Oct 19, 2026 8:37:52 PM EST
+//
+// Time-stamp: <Oct 19, 2026 8:37:52 PM tjb3>
+//
+//
+// ================================================================
+
+package gov.nist.isg.mist.lib.executor;
+
+import java.io.FileNotFoundException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+
+import gov.nist.isg.mist.gui.params.StitchingAppParams;
+import gov.nist.isg.mist.lib.imagetile.ImageTile;
+import gov.nist.isg.mist.lib.imagetile.Stitching;
+import gov.nist.isg.mist.lib.imagetile.fftw.FftSizeSelector;
+import gov.nist.isg.mist.lib.imagetile.fftw.FftwImageTile;
+import gov.nist.isg.mist.lib.imagetile.java.JavaImageTile;
+import gov.nist.isg.mist.lib.log.Log;
+import gov.nist.isg.mist.lib.log.Log.LogType;
+import gov.nist.isg.mist.lib.memorypool.AdaptiveMemoryPool;
+import gov.nist.isg.mist.lib.parallel.cpu.PartitionedCPUStitchingThreadExecutor;
+import gov.nist.isg.mist.lib.tilegrid.TileGrid;
+import gov.nist.isg.mist.lib.tilegrid.traverser.TileGridLiveTraverser;
+import gov.nist.isg.mist.lib.tilegrid.traverser.TileGridTraversalPlanner;
+import gov.nist.isg.mist.lib.tilegrid.traverser.TileGridTraverser;
+import gov.nist.isg.mist.lib.tilegrid.traverser.TileGridTraverser.Traversals;
+import gov.nist.isg.mist.lib32.imagetile.java.JavaImageTile32;
+
+/**
+ * Plans the memory use of a timeslice in a single step. The planner models the pixel storage, the
+ * FFT memory pool, the per-worker scratch memory (TileWorkerMemory), the pixel data held by
+ * translation refinement and the buffers of the image export for the executor that will stitch
+ * the grid. It then chooses whether to free pixel data, how many threads to use and whether to
+ * fall back to the banded or sequential low memory executors. A grid split into CPU partitions is
+ * modeled as one memory pool per partition plus the seam pass. An FFT memory budget is modeled as
+ * the adaptive memory pool it configures, each partition receiving an even share of the budget.
+ *
+ * <p>Executors without a model are planned by searching their checkMemory directly.</p>
+ *
+ * @author Tim Blattner
+ * @version 1.0
+ */
+public class MemoryPlanner {
+
+  /**
+   * Padding added to every prediction
+   */
+  private static final long PaddingBytes = 10L * 1024L * 1024L;
+
+  /**
+   * Padding added to the predictions of the low memory executors
+   */
+  private static final long LowMemoryPaddingBytes = 100L * 1024L * 1024L;
+
+  /**
+   * The executors the planner can choose between
+   */
+  public enum Strategy {
+    /**
+     * The requested executor
+     */
+    PIPELINED,
+
+    /**
+     * The banded low memory Java executor
+     */
+    BANDED,
+
+    /**
+     * The sequential low memory Java executor
+     */
+    SEQUENTIAL
+  }
+
+  /**
+   * The outcome of planning a timeslice
+   */
+  public static class MemoryPlan {
+    private final Strategy strategy;
+    private final boolean freePixelData;
+    private final int numThreads;
+    private final long predictedPeakBytes;
+
+    private MemoryPlan(Strategy strategy, boolean freePixelData, int numThreads,
+                       long predictedPeakBytes) {
+      this.strategy = strategy;
+      this.freePixelData = freePixelData;
+      this.numThreads = numThreads;
+      this.predictedPeakBytes = predictedPeakBytes;
+    }
+
+    /**
+     * @return the executor to stitch with
+     */
+    public Strategy getStrategy() {
+      return this.strategy;
+    }
+
+    /**
+     * @return true if pixel data is freed once a tile is no longer needed
+     */
+    public boolean isFreePixelData() {
+      return this.freePixelData;
+    }
+
+    /**
+     * @return the number of compute threads
+     */
+    public int getNumThreads() {
+      return this.numThreads;
+    }
+
+    /**
+     * @return the predicted peak memory in bytes, or -1 if the executor has no memory model
+     */
+    public long getPredictedPeakBytes() {
+      return this.predictedPeakBytes;
+    }
+
+    @Override
+    public String toString() {
+      return this.strategy + " with " + this.numThreads + " threads, free pixel data: "
+          + this.freePixelData + ", predicted peak: "
+          + (this.predictedPeakBytes < 0 ? "n/a" : (this.predictedPeakBytes / (1024L * 1024L)) + " MB");
+    }
+  }
+
+  /**
+   * The kinds of executors the planner has a memory model for
+   */
+  private enum Model {
+    JAVA, FFTW, UNCONSTRAINED, NONE
+  }
+
+  /**
+   * Plans the memory use for stitching a grid
+   *
+   * @param executor the executor that will stitch the grid
+   * @param grid     the image tile grid
+   * @param params   the stitching application parameters
+   * @param <T>      the Type of ImageTile in the TileGrid
+   * @return the memory plan
+   * @throws FileNotFoundException thrown if the tile used to measure the images does not exist
+   */
+  public static <T> MemoryPlan plan(StitchingExecutorInterface<T> executor,
+                                    TileGrid<ImageTile<T>> grid, StitchingAppParams params)
+      throws FileNotFoundException {
+    return plan(executor, grid, params, Runtime.getRuntime().maxMemory());
+  }
+
+  /**
+   * Plans the memory use for stitching a grid within the given amount of memory
+   *
+   * @param executor  the executor that will stitch the grid
+   * @param grid      the image tile grid
+   * @param params    the stitching application parameters
+   * @param available the memory available in bytes
+   * @param <T>       the Type of ImageTile in the TileGrid
+   * @return the memory plan
+   * @throws FileNotFoundException thrown if the tile used to measure the images does not exist
+   */
+  public static <T> MemoryPlan plan(StitchingExecutorInterface<T> executor,
+                                    TileGrid<ImageTile<T>> grid, StitchingAppParams params,
+                                    long available)
+      throws FileNotFoundException {
+    int requested = Math.max(1, params.getAdvancedParams().getNumCPUThreads());
+    boolean allowLowMemory = !params.getInputParams().isAssembleFromMetadata();
+
+    Model model = modelOf(executor);
+    MemoryPlan plan;
+    if (model == Model.UNCONSTRAINED) {
+      plan = new MemoryPlan(Strategy.PIPELINED, false, requested, -1L);
+    } else if (model == Model.NONE) {
+      plan = searchCheckMemory(executor, grid, params, requested, available, allowLowMemory);
+    } else {
+      plan = planModeled(model, grid, params, requested, available, allowLowMemory);
+    }
+
+    Log.msg(LogType.HELPFUL, "Memory plan: " + plan + " of "
+        + (available / (1024L * 1024L)) + " MB available");
+    return plan;
+  }
+
+  /**
+   * Plans an executor that has a memory model. Pixel data is kept in memory if the requested
+   * threads fit, otherwise the largest thread count that fits while freeing pixel data is solved
+   * for directly. If not even one thread fits the banded and then the sequential executors are
+   * chosen.
+   */
+  private static <T> MemoryPlan planModeled(Model model, TileGrid<ImageTile<T>> grid,
+                                            StitchingAppParams params, int requested,
+                                            long available, boolean allowLowMemory)
+      throws FileNotFoundException {
+    GridModel g = new GridModel(grid, params);
+
+    long keepAll = estimatePipelined(model, g, requested, false);
+    if (keepAll < available)
+      return new MemoryPlan(Strategy.PIPELINED, false, requested, keepAll);
+
+    Log.msg(LogType.MANDATORY,
+        "Insufficient memory to hold all image tiles in memory, turning on the freeing of pixel data");
+
+    int n = solveThreads(model, g, requested, available, false);
+    if (n >= 1)
+      return new MemoryPlan(Strategy.PIPELINED, true, n, estimatePipelined(model, g, n, true));
+
+    if (!allowLowMemory)
+      return new MemoryPlan(Strategy.PIPELINED, true, 1, estimatePipelined(model, g, 1, true));
+
+    n = solveThreads(model, g, requested, available, true);
+    if (n >= 1)
+      return new MemoryPlan(Strategy.BANDED, true, n, estimateBanded(g, n));
+
+    return new MemoryPlan(Strategy.SEQUENTIAL, true, 1, estimateSequential(g));
+  }
+
+  /**
+   * Solves for the largest thread count not exceeding the request whose prediction fits. The
+   * predictions are close to linear in the number of threads, so the linear solution is checked
+   * against the prediction and lowered until it fits.
+   */
+  private static int solveThreads(Model model, GridModel g, int requested, long available,
+                                  boolean banded) {
+    long base = banded ? estimateBanded(g, 0) : estimatePipelined(model, g, 0, true);
+    long perThread = (banded ? estimateBanded(g, 1) : estimatePipelined(model, g, 1, true)) - base;
+
+    if (base >= available)
+      return 0;
+
+    long n = perThread <= 0 ? requested : (available - 1 - base) / perThread;
+    int numThreads = (int) Math.min(n, requested);
+    while (numThreads >= 1 && (banded ? estimateBanded(g, numThreads)
+        : estimatePipelined(model, g, numThreads, true)) >= available)
+      numThreads--;
+    return numThreads;
+  }
+
+  /**
+   * Predicts the peak memory of the pipelined CPU executors. The FFT stage holds the FFT memory
+   * pools, the resident pixel data and the worker scratch memory; refinement and export run after
+   * the FFT memory is released, so the peak is the largest of the stages.
+   */
+  private static long estimatePipelined(Model model, GridModel g, int numThreads,
+                                        boolean freePixelData) {
+    long pixels = freePixelData ? (g.peakPixels + numThreads) * g.pixelBytes
+        : g.gridSize * g.pixelBytes;
+
+    long fftPiece;
+    long scratch;
+    if (model == Model.FFTW) {
+      long complexSize = (g.fftwWidth / 2 + 1) * g.fftwHeight;
+      long realBytes = g.doublePrecision ? 8L : 4L;
+      fftPiece = complexSize * 2L * realBytes;
+      scratch = g.fftwWidth * g.fftwHeight * realBytes * 2L // pcm and fft input
+          + complexSize * 2L * realBytes // pcm input
+          + (long) Stitching.NUM_PEAKS * 4L; // peaks
+    } else {
+      fftPiece = g.javaFftBytes;
+      scratch = g.javaFftBytes;
+    }
+
+    long budget = model == Model.FFTW ? g.offHeapBudgetBytes : g.heapBudgetBytes;
+    long fftStage = pixels + g.fftCount(numThreads, budget, fftPiece) * fftPiece
+        + g.workerCount(numThreads) * scratch;
+    long refinementStage = freePixelData ?
+        (Math.min(g.gridWidth, g.gridHeight) + 2 + numThreads) * g.pixelBytes : pixels;
+    long exportStage = exportBytes(g, numThreads) + (freePixelData ? 0 : pixels);
+
+    return max(fftStage, refinementStage, exportStage) + upConversionBytes(g, numThreads)
+        + PaddingBytes;
+  }
+
+  /**
+   * Predicts the peak memory of the banded executor, which holds two bands of pixel data and FFTs
+   * plus one FFT buffer per worker.
+   */
+  private static long estimateBanded(GridModel g, int numThreads) {
+    long band = 2L * Math.min(g.gridWidth, g.gridHeight);
+    long fftStage = band * g.pixelBytes + band * g.javaFftBytes + numThreads * g.javaFftBytes;
+    return Math.max(fftStage, exportBytes(g, numThreads)) + upConversionBytes(g, numThreads)
+        + LowMemoryPaddingBytes;
+  }
+
+  /**
+   * Predicts the peak memory of the sequential executor, which holds two tiles at a time.
+   */
+  private static long estimateSequential(GridModel g) {
+    long fftStage = 2L * g.pixelBytes + 3L * g.javaFftBytes;
+    return Math.max(fftStage, exportBytes(g, 1)) + upConversionBytes(g, 1) + LowMemoryPaddingBytes;
+  }
+
+  /**
+   * The exporters blend one row of tiles at a time, each worker holding one tile at the source
+   * bit depth.
+   */
+  private static long exportBytes(GridModel g, int numThreads) {
+    return (g.gridWidth + numThreads) * g.width * g.height * g.byteDepth;
+  }
+
+  /**
+   * If up-converting, at worst case there will be one copy of the old precision pixel data per
+   * thread.
+   */
+  private static long upConversionBytes(GridModel g, int numThreads) {
+    return g.byteDepth != 2 ? numThreads * g.width * g.height * g.byteDepth : 0L;
+  }
+
+  private static long max(long a, long b, long c) {
+    return Math.max(a, Math.max(b, c));
+  }
+
+  /**
+   * Plans an executor without a memory model by searching for the largest thread count accepted
+   * by its checkMemory. The search is a bisection because checkMemory is monotone in the number of
+   * threads.
+   */
+  private static <T> MemoryPlan searchCheckMemory(StitchingExecutorInterface<T> executor,
+                                                  TileGrid<ImageTile<T>> grid,
+                                                  StitchingAppParams params, int requested,
+                                                  long available, boolean allowLowMemory)
+      throws FileNotFoundException {
+    ImageTile.disableFreePixelData();
+    if (executor.checkMemory(grid, requested))
+      return new MemoryPlan(Strategy.PIPELINED, false, requested, -1L);
+
+    Log.msg(LogType.MANDATORY,
+        "Insufficient memory to hold all image tiles in memory, turning on the freeing of pixel data");
+
+    ImageTile.enableFreePixelData();
+    int lo = 0;
+    int hi = requested;
+    while (lo < hi) {
+      int mid = (lo + hi + 1) / 2;
+      if (executor.checkMemory(grid, mid))
+        lo = mid;
+      else
+        hi = mid - 1;
+    }
+
+    if (lo >= 1 || !allowLowMemory)
+      return new MemoryPlan(Strategy.PIPELINED, true, Math.max(1, lo), -1L);
+
+    GridModel g = new GridModel(grid, params);
+    int n = solveThreads(Model.JAVA, g, requested, available, true);
+    if (n >= 1)
+      return new MemoryPlan(Strategy.BANDED, true, n, estimateBanded(g, n));
+
+    return new MemoryPlan(Strategy.SEQUENTIAL, true, 1, estimateSequential(g));
+  }
+
+  /**
+   * Gets the minimum number of FFTs the memory pool of a CPU executor holds. Tiles read in
+   * acquisition order hold up to a full row or column of FFTs, otherwise the pool holds the
+   * simulated peak of the traversal plus one transform per worker.
+   *
+   * @param grid       the grid of images
+   * @param traverser  the traverser the executor reads the grid with
+   * @param numWorkers the number of workers
+   * @param <T>        the Type of ImageTile in the TileGrid
+   * @return the memory pool size
+   */
+  public static <T extends ImageTile<?>> int getFftPoolSize(TileGrid<T> grid,
+                                                            TileGridTraverser<?> traverser,
+                                                            int numWorkers) {
+    if (traverser instanceof TileGridLiveTraverser)
+      return TileGridLiveTraverser.getPeakTiles(grid) + numWorkers;
+
+    Traversals traversal = TileGridTraversalPlanner.typeOf(traverser);
+    if (traversal != null)
+      return TileGridTraversalPlanner.simulate(grid, traversal).getPeakFfts() + numWorkers;
+
+    return Math.min(grid.getExtentWidth(), grid.getExtentHeight()) + 2 + numWorkers;
+  }
+
+  /**
+   * Gets the number of FFTs a memory pool allocates at most. Without a budget the pool holds its
+   * size, with a budget the adaptive pool grows to fill the budget.
+   *
+   * @param poolSize      the memory pool size
+   * @param budgetBytes   the memory budget in bytes, 0 for no budget
+   * @param bytesPerPiece the size in bytes of each FFT
+   * @return the maximum number of FFTs allocated
+   */
+  public static long getPoolCapacity(long poolSize, long budgetBytes, long bytesPerPiece) {
+    if (budgetBytes <= 0)
+      return poolSize;
+    return AdaptiveMemoryPool.getCapacity((int) poolSize, budgetBytes, bytesPerPiece);
+  }
+
+  private static Model modelOf(StitchingExecutorInterface<?> executor) {
+    if (executor instanceof TemporalWarmStartExecutor)
+      return modelOf(((TemporalWarmStartExecutor<?>) executor).getInnerExecutor());
+    if (executor instanceof ShardedStitchingExecutor)
+      return Model.UNCONSTRAINED;
+    if (executor instanceof JavaStitchingExecutor)
+      return Model.JAVA;
+    if (executor instanceof FftwStitchingExecutor)
+      return Model.FFTW;
+    return Model.NONE;
+  }
+
+  /**
+   * Resets the observed peak heap usage, call before stitching a timeslice
+   */
+  public static void resetObservedPeak() {
+    for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+      if (pool.getType() == MemoryType.HEAP)
+        pool.resetPeakUsage();
+    }
+  }
+
+  /**
+   * Gets the peak heap usage observed since {@link #resetObservedPeak()}. Off-heap FFTW memory is
+   * not included.
+   *
+   * @return the observed peak heap usage in bytes
+   */
+  public static long getObservedPeakBytes() {
+    long peak = 0;
+    for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+      if (pool.getType() == MemoryType.HEAP && pool.getPeakUsage() != null)
+        peak += pool.getPeakUsage().getUsed();
+    }
+    return peak;
+  }
+
+  /**
+   * Image and grid dimensions the memory models are evaluated with
+   */
+  private static class GridModel {
+    private final long width;
+    private final long height;
+    private final long fftwWidth;
+    private final long fftwHeight;
+    private final long byteDepth;
+    private final long pixelBytes;
+    private final long gridSize;
+    private final int gridWidth;
+    private final int gridHeight;
+    private final long peakFfts;
+    private final long peakPixels;
+    private final long javaFftBytes;
+    private final boolean doublePrecision;
+    private final long[] partitionPeakFfts;
+    private final long heapBudgetBytes;
+    private final long offHeapBudgetBytes;
+
+    private <T> GridModel(TileGrid<ImageTile<T>> grid, StitchingAppParams params)
+        throws FileNotFoundException {
+      ImageTile<T> tile = grid.getTileThatExists();
+      tile.readTile();
+
+      this.width = tile.getWidth();
+      this.height = tile.getHeight();
+      // the FFTW transforms may be padded, plan for the largest size that could be selected
+      this.fftwWidth = FftSizeSelector.getMaxCandidateSize(tile.getWidth());
+      this.fftwHeight = FftSizeSelector.getMaxCandidateSize(tile.getHeight());
+      this.byteDepth = tile.getBitDepth() / 8;
+      this.pixelBytes = this.width * this.height * 2L; // 16 bit pixel data
+      this.gridSize = grid.getSubGridSize();
+      this.gridWidth = grid.getExtentWidth();
+      this.gridHeight = grid.getExtentHeight();
+      this.doublePrecision = tile instanceof JavaImageTile || tile instanceof FftwImageTile;
+
+      // tiles read in acquisition order hold up to a full row or column
+      if (params.getAdvancedParams().isLiveStitching()) {
+        this.peakFfts = TileGridLiveTraverser.getPeakTiles(grid);
+        this.peakPixels = TileGridLiveTraverser.getPeakTiles(grid);
+      } else {
+        TileGridTraversalPlanner.Plan traversal = TileGridTraversalPlanner.plan(grid);
+        this.peakFfts = traversal.getPeakFfts();
+        this.peakPixels = traversal.getPeakPixels();
+      }
+
+      // live stitching never partitions the grid
+      int numPartitions = params.getAdvancedParams().getNumCpuPartitions();
+      if (numPartitions > 1 && !params.getAdvancedParams().isLiveStitching())
+        this.partitionPeakFfts =
+            PartitionedCPUStitchingThreadExecutor.getPartitionPeakFfts(grid, numPartitions);
+      else
+        this.partitionPeakFfts = null;
+
+      this.javaFftBytes = javaFftBytes(tile, this.width, this.height);
+      this.heapBudgetBytes = params.getAdvancedParams().getFftHeapBudgetMB() * 1024L * 1024L;
+      this.offHeapBudgetBytes = params.getAdvancedParams().getFftOffHeapBudgetMB() * 1024L * 1024L;
+    }
+
+    /**
+     * The peak number of FFTs held by the memory pools, including the seam pass of a partitioned
+     * grid. Each partition pool is given an even share of the budget.
+     */
+    private long fftCount(int numThreads, long budgetBytes, long bytesPerPiece) {
+      if (this.partitionPeakFfts == null)
+        return getPoolCapacity(this.peakFfts + numThreads, budgetBytes, bytesPerPiece);
+
+      int n = this.partitionPeakFfts.length;
+      int workersPerPartition = Math.max(1, numThreads / n);
+      long count = 0;
+      for (long peak : this.partitionPeakFfts)
+        count += getPoolCapacity(peak + workersPerPartition, budgetBytes / n, bytesPerPiece);
+
+      return count + PartitionedCPUStitchingThreadExecutor.getSeamFftCount(numThreads);
+    }
+
+    /**
+     * The peak number of workers holding scratch memory
+     */
+    private long workerCount(int numThreads) {
+      if (this.partitionPeakFfts != null)
+        return PartitionedCPUStitchingThreadExecutor.getPeakWorkerCount(
+            this.partitionPeakFfts.length, numThreads);
+      return numThreads;
+    }
+
+    /**
+     * The size of a Java FFT array, estimated from a real to complex transform if the Java FFT
+     * plan has not been initialized
+     */
+    private static long javaFftBytes(ImageTile<?> tile, long width, long height) {
+      int[] n = null;
+      if (tile instanceof JavaImageTile32
+          && (JavaImageTile32.fftPlan != null || JavaImageTile32.flatFftPlan != null))
+        n = JavaImageTile32.getFftMemorySize();
+      else if (JavaImageTile.fftPlan != null || JavaImageTile.flatFftPlan != null)
+        n = JavaImageTile.getFftMemorySize();
+
+      if (n == null)
+        return (width / 2 + 1) * 2L * height * 4L;
+
+      long size = 1;
+      for (int val : n)
+        size *= val;
+      return size * 4L; // float[n1][n2]
+    }
+  }
+
+}
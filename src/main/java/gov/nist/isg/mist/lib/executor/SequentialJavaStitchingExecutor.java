@@ -66,8 +66,17 @@ public class SequentialJavaStitchingExecutor<T> implements StitchingExecutorInte
           "Stitching Parameters");
     tile.readTile();
 
+    if (params.getAdvancedParams().isUseFlatJavaFft())
+      JavaImageTile.enableFlatFft();
+    else
+      JavaImageTile.disableFlatFft();
+
     JavaImageTile.initJavaPlan(tile);
 
+    // tiles are transformed one at a time, so split each transform across the cpu threads
+    if (JavaImageTile.flatFftPlan != null)
+      JavaImageTile.flatFftPlan.setNumThreads(params.getAdvancedParams().getNumCPUThreads());
+
     return grid;
   }
 
@@ -196,8 +205,7 @@ public class SequentialJavaStitchingExecutor<T> implements StitchingExecutorInte
     }
 
     // Account for Java FFT data
-    int[] n = {JavaImageTile.fftPlan.getFrequencySampling2().getCount(),
-        JavaImageTile.fftPlan.getFrequencySampling1().getCount() * 2};
+    int[] n = JavaImageTile.getFftMemorySize();
     long size = 1;
     for (int val : n)
       size *= val;
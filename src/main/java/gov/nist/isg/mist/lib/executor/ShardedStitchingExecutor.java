@@ -0,0 +1,454 @@
+// NIST-developed software is provided by NIST as a public service. You may use, copy and distribute copies of the software in any medium, provided that you keep intact this entire notice. You may improve, modify and create derivative works of the software or any portion of the software, and you may copy and distribute such modifications or works. Modified works should carry a notice stating that you changed the software and should note the date and nature of any such change. Please explicitly acknowledge the National Institute of Standards and Technology as the source of the software.
+
+// NIST-developed software is expressly provided "AS IS." NIST MAKES NO WARRANTY OF ANY KIND, EXPRESS, IMPLIED, IN FACT OR ARISING BY OPERATION OF LAW, INCLUDING, WITHOUT LIMITATION, THE IMPLIED WARRANTY OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE, NON-INFRINGEMENT AND DATA ACCURACY. NIST NEITHER REPRESENTS NOR WARRANTS THAT THE OPERATION OF THE SOFTWARE WILL BE UNINTERRUPTED OR ERROR-FREE, OR THAT ANY DEFECTS WILL BE CORRECTED. NIST DOES NOT WARRANT OR MAKE ANY REPRESENTATIONS REGARDING THE USE OF THE SOFTWARE OR THE RESULTS THEREOF, INCLUDING BUT NOT LIMITED TO THE CORRECTNESS, ACCURACY, RELIABILITY, OR USEFULNESS OF THE SOFTWARE.
+
+// You are solely responsible for determining the appropriateness of using and distributing the software and you assume all risks associated with its use, including but not limited to the risks and costs of program errors, compliance with applicable laws, damage to or loss of data, programs or equipment, and the unavailability or interruption of operation. This software is not intended to be used in any situation where a failure could cause risk of injury or damage to property. The software developed by NIST employees is not subject to copyright protection within the United States.
+
+
+package gov.nist.isg.mist.lib.executor;
+
+import org.bridj.Pointer;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.swing.JProgressBar;
+
+import gov.nist.isg.mist.MISTMain;
+import gov.nist.isg.mist.gui.StitchingGuiUtils;
+import gov.nist.isg.mist.gui.params.StitchingAppParams;
+import gov.nist.isg.mist.lib.exceptions.EmptyGridException;
+import gov.nist.isg.mist.lib.exceptions.StitchingException;
+import gov.nist.isg.mist.lib.executor.StitchingExecutor.StitchingType;
+import gov.nist.isg.mist.lib.imagetile.FlatFieldCorrection;
+import gov.nist.isg.mist.lib.imagetile.ImageTile;
+import gov.nist.isg.mist.lib.imagetile.Stitching;
+import gov.nist.isg.mist.lib.log.Log;
+import gov.nist.isg.mist.lib.log.Log.LogType;
+import gov.nist.isg.mist.lib.tilegrid.TileGrid;
+import gov.nist.isg.mist.lib.tilegrid.TileGrid.GridDecomposition;
+import gov.nist.isg.mist.lib.tilegrid.TileGridUtils;
+
+/**
+ * Sharded (multi-process) stitching executor.
+ *
+ * <p>The grid is split with {@link TileGrid#partitionGrid(int, GridDecomposition)} into numShards
+ * row (or column) partitions and one local worker process is launched per partition. Each worker
+ * stitches its partition plus a one tile seam shared with the previous partition, so that every
+ * north and west pair is computed by the worker that owns the tile, and writes the displacements
+ * it owns to the shard directory using the relative-positions file format. Once all workers have
+ * finished the displacements are merged back into the full grid, which is then globally optimized
+ * once by the caller.</p>
+ *
+ * <p>The coordinating process only holds the tile metadata, so memory checks are delegated to the
+ * workers, each of which runs the wrapped executor on its own partition.</p>
+ *
+ * @author Michael Majurski
+ */
+public class ShardedStitchingExecutor<T> implements StitchingExecutorInterface<T> {
+
+  private static final String SHARD_PARAMS_FILENAME = "shard-params.txt";
+
+  private final StitchingExecutorInterface<T> executor;
+  private final List<Process> processes;
+  private volatile boolean isCanceled = false;
+
+  /**
+   * Creates a sharded executor around the executor used by the coordinating process to initialize
+   * the grid.
+   *
+   * @param executor the executor used to initialize the full tile grid
+   */
+  public ShardedStitchingExecutor(StitchingExecutorInterface<T> executor) {
+    this.executor = executor;
+    this.processes = new ArrayList<Process>();
+  }
+
+  /**
+   * @return the executor used to initialize the full tile grid
+   */
+  StitchingExecutorInterface<T> getInnerExecutor() {
+    return this.executor;
+  }
+
+  @Override
+  public TileGrid<ImageTile<T>> initGrid(StitchingAppParams params, int timeSlice)
+      throws FileNotFoundException, EmptyGridException {
+    return this.executor.initGrid(params, timeSlice);
+  }
+
+  @Override
+  public void cancelExecution() {
+    Log.msg(LogType.MANDATORY, "Canceling Sharded Stitching Executor");
+    this.isCanceled = true;
+    synchronized (this.processes) {
+      for (Process p : this.processes)
+        p.destroy();
+    }
+  }
+
+  @Override
+  public boolean checkForLibs(StitchingAppParams params, boolean displayGui) {
+    return this.executor.checkForLibs(params, displayGui);
+  }
+
+  @Override
+  public void cleanup() {
+    this.executor.cleanup();
+  }
+
+  /**
+   * The coordinating process only holds the tile metadata; each worker process plans the memory
+   * for the partition it is stitching with the {@link MemoryPlanner} before it starts.
+   */
+  @Override
+  public <T> boolean checkMemory(TileGrid<ImageTile<T>> grid, int numWorkers) {
+    return true;
+  }
+
+  /**
+   * Launches one worker process per grid partition, waits for them to complete and merges their
+   * displacements into the grid.
+   *
+   * @param grid        the image tile grid
+   * @param params      the stitching application parameters
+   * @param progressBar the GUI progress bar
+   * @param timeSlice   the timeslice to stitch
+   */
+  @Override
+  public void launchStitching(TileGrid<ImageTile<T>> grid, StitchingAppParams params,
+                              JProgressBar progressBar, int timeSlice) throws Throwable {
+    File shardDir = getShardDirectory(params);
+    shardDir.mkdirs();
+
+    int numShards = partitionShards(grid, params.getAdvancedParams().getNumShards()).size();
+    int numThreads = params.getAdvancedParams().getNumCPUThreads();
+    int workerThreads = Math.max(1, numThreads / numShards);
+
+    // save the params the workers will load, splitting the compute threads across the workers
+    File paramsFile = new File(shardDir, SHARD_PARAMS_FILENAME);
+    params.getAdvancedParams().setNumCPUThreads(workerThreads);
+    boolean saved = params.saveParams(paramsFile);
+    params.getAdvancedParams().setNumCPUThreads(numThreads);
+    if (!saved)
+      throw new StitchingException("Unable to save shard parameters to: " + paramsFile.getAbsolutePath());
+
+    Log.msg(LogType.MANDATORY, "Launching " + numShards + " shard workers with " + workerThreads
+        + " threads each, writing to: " + shardDir.getAbsolutePath());
+    StitchingGuiUtils.updateProgressBar(progressBar, true, "Stitching " + numShards + " shards...");
+
+    synchronized (this.processes) {
+      this.processes.clear();
+      for (int shard = 0; shard < numShards && !this.isCanceled; shard++) {
+        File shardFile = getShardFile(shardDir, shard, timeSlice);
+        if (shardFile.exists())
+          shardFile.delete();
+
+        ProcessBuilder pb = new ProcessBuilder(buildWorkerCommand(params, paramsFile, timeSlice,
+            shard, numShards, shardDir));
+        pb.redirectErrorStream(true);
+        pb.redirectOutput(new File(shardDir, "shard-" + shard + ".log"));
+        this.processes.add(pb.start());
+      }
+    }
+
+    List<Integer> failedShards = new ArrayList<Integer>();
+    try {
+      for (int shard = 0; shard < this.processes.size(); shard++) {
+        if (this.processes.get(shard).waitFor() != 0)
+          failedShards.add(shard);
+      }
+    } catch (InterruptedException e) {
+      cancelExecution();
+      throw new StitchingException("Interrupted while waiting for shard workers", e);
+    }
+
+    if (this.isCanceled)
+      return;
+
+    if (!failedShards.isEmpty())
+      throw new StitchingException("Shard worker(s) " + failedShards + " failed, see the shard logs in: "
+          + shardDir.getAbsolutePath());
+
+    // merge the displacements written by each worker into the full grid
+    StitchingGuiUtils.updateProgressBar(progressBar, true, "Merging shard displacements...");
+    for (int shard = 0; shard < numShards; shard++) {
+      File shardFile = getShardFile(shardDir, shard, timeSlice);
+      if (!Stitching.parseRelativeDisplacements(grid, shardFile))
+        throw new StitchingException("Unable to merge shard displacements from: "
+            + shardFile.getAbsolutePath());
+    }
+
+    Log.msg(LogType.MANDATORY, "Merged displacements from " + numShards + " shards");
+  }
+
+  /**
+   * Partitions the grid into at most numShards partitions along its longest dimension.
+   *
+   * @param grid      the grid to partition
+   * @param numShards the requested number of shards
+   * @return the grid partitions, each owned by one worker
+   */
+  public static <T> List<TileGrid<ImageTile<T>>> partitionShards(TileGrid<ImageTile<T>> grid,
+                                                                  int numShards) {
+    GridDecomposition type = grid.getExtentHeight() >= grid.getExtentWidth() ?
+        GridDecomposition.HORIZONTAL : GridDecomposition.VERTICAL;
+    return grid.partitionGrid(Math.max(1, numShards), type);
+  }
+
+  /**
+   * Gets the directory the shard workers exchange their parameters and displacements through.
+   *
+   * @param params the stitching application parameters
+   * @return the shard directory
+   */
+  public static File getShardDirectory(StitchingAppParams params) {
+    String dir = params.getAdvancedParams().getShardDirectory();
+    if (dir == null || dir.isEmpty())
+      return new File(params.getOutputParams().getOutputPath(),
+          params.getOutputParams().getOutFilePrefix() + "shards");
+    return new File(dir);
+  }
+
+  private static File getShardFile(File shardDir, int shard, int timeSlice) {
+    return new File(shardDir, "shard-" + shard + "-relative-positions-" + timeSlice + ".txt");
+  }
+
+  private static List<String> buildWorkerCommand(StitchingAppParams params, File paramsFile,
+                                                 int timeSlice, int shard, int numShards,
+                                                 File shardDir) {
+    List<String> command = new ArrayList<String>();
+    command.add(new File(new File(System.getProperty("java.home"), "bin"), "java").getAbsolutePath());
+
+    int heapMB = params.getAdvancedParams().getShardWorkerMemoryMB();
+    if (heapMB > 0)
+      command.add("-Xmx" + heapMB + "m");
+
+    command.add("-Djava.awt.headless=true");
+    command.add("-Djava.library.path=" + System.getProperty("java.library.path"));
+    command.add("-cp");
+    command.add(getClasspath());
+    command.add(ShardedStitchingExecutor.class.getName());
+    command.add(paramsFile.getAbsolutePath());
+    command.add(Integer.toString(timeSlice));
+    command.add(Integer.toString(shard));
+    command.add(Integer.toString(numShards));
+    command.add(shardDir.getAbsolutePath());
+    return command;
+  }
+
+  /**
+   * Builds the classpath for the worker processes. When running as a Fiji plugin the MIST jar and its
+   * dependencies are loaded by a plugin class loader and are not on java.class.path, so the URLs of
+   * the class loader chain are included as well.
+   */
+  private static String getClasspath() {
+    Set<String> entries = new LinkedHashSet<String>();
+    for (String entry : System.getProperty("java.class.path").split(File.pathSeparator)) {
+      if (!entry.isEmpty())
+        entries.add(entry);
+    }
+
+    ClassLoader loader = ShardedStitchingExecutor.class.getClassLoader();
+    while (loader != null) {
+      if (loader instanceof URLClassLoader) {
+        for (URL url : ((URLClassLoader) loader).getURLs()) {
+          if (url.getProtocol().equals("file"))
+            entries.add(new File(url.getPath()).getAbsolutePath());
+        }
+      }
+      loader = loader.getParent();
+    }
+
+    StringBuilder classpath = new StringBuilder();
+    for (String entry : entries) {
+      if (classpath.length() > 0)
+        classpath.append(File.pathSeparator);
+      classpath.append(entry);
+    }
+    return classpath.toString();
+  }
+
+  // ///////////////////////////////////////////////////////////////
+  // ///////////////////// WORKER ENTRY POINT //////////////////////
+  // ///////////////////////////////////////////////////////////////
+
+  /**
+   * Shard worker entry point. Stitches one partition of the grid and writes its displacements to
+   * the shard directory.
+   *
+   * @param args the parameter file, timeslice, shard index, number of shards and shard directory
+   */
+  public static void main(String[] args) {
+    if (args.length != 5) {
+      System.err.println("Usage: ShardedStitchingExecutor <paramsFile> <timeSlice> <shard> <numShards> <shardDir>");
+      System.exit(1);
+    }
+
+    StitchingAppParams params = new StitchingAppParams();
+    if (!params.loadParams(new File(args[0])))
+      System.exit(1);
+
+    MISTMain.runHeadless = true;
+
+    try {
+      runWorker(params, Integer.parseInt(args[1]), Integer.parseInt(args[2]),
+          Integer.parseInt(args[3]), new File(args[4]));
+    } catch (Throwable e) {
+      Log.msg(LogType.MANDATORY, "Error occurred in shard worker " + args[2] + ": " + e.toString());
+      for (StackTraceElement st : e.getStackTrace())
+        Log.msg(LogType.MANDATORY, st.toString());
+      System.exit(1);
+    }
+
+    System.exit(0);
+  }
+
+  private static <T> void runWorker(StitchingAppParams params, int timeSlice, int shard,
+                                    int numShards, File shardDir) throws Throwable {
+    Stitching.USE_BIOFORMATS = params.getAdvancedParams().isUseBioFormats();
+    if (params.getAdvancedParams().getNumFFTPeaks() != 0)
+      Stitching.NUM_PEAKS = params.getAdvancedParams().getNumFFTPeaks();
+
+    // the shards must compute PCIAM on the same corrected tiles the parent refines and exports
+    try {
+      FlatFieldCorrection.configure(params.getAdvancedParams().getFlatFieldPath(),
+          params.getAdvancedParams().getDarkFieldPath(),
+          params.getAdvancedParams().isBackgroundSubtraction());
+    } catch (IOException e) {
+      throw new StitchingException("Unable to load flat-field correction: " + e.getMessage(), e);
+    }
+
+    StitchingExecutorInterface<T> executor = createWorkerExecutor(params);
+    TileGrid<ImageTile<T>> grid = executor.initGrid(params, timeSlice);
+
+    List<TileGrid<ImageTile<T>>> partitions = partitionShards(grid, numShards);
+    TileGrid<ImageTile<T>> owned = partitions.get(shard);
+    TileGrid<ImageTile<T>> shardGrid = createShardGrid(grid, owned);
+
+    Log.msg(LogType.MANDATORY, "Shard " + shard + " of " + numShards + " stitching " + shardGrid);
+
+    if (shardGrid.getTileThatExists() != null) {
+      // each worker only holds its own partition, so plan the memory against the shard grid
+      MemoryPlanner.MemoryPlan memoryPlan = MemoryPlanner.plan(executor, shardGrid, params);
+      if (memoryPlan.isFreePixelData())
+        ImageTile.enableFreePixelData();
+      else
+        ImageTile.disableFreePixelData();
+
+      if (memoryPlan.getNumThreads() < params.getAdvancedParams().getNumCPUThreads())
+        Log.msg(LogType.MANDATORY, "Shard " + shard + " has insufficient memory for "
+            + params.getAdvancedParams().getNumCPUThreads() + " threads, using "
+            + memoryPlan.getNumThreads() + " threads");
+      params.getAdvancedParams().setNumCPUThreads(memoryPlan.getNumThreads());
+
+      if (memoryPlan.getStrategy() != MemoryPlanner.Strategy.PIPELINED) {
+        executor.cleanup();
+        executor = createLowMemoryExecutor(memoryPlan.getStrategy());
+        Log.msg(LogType.MANDATORY, "Shard " + shard + " falling back to "
+            + memoryPlan.getStrategy() + " low memory stitching");
+
+        // the low memory executors use their own tile type, so rebuild the partition from them
+        grid = executor.initGrid(params, timeSlice);
+        owned = partitionShards(grid, numShards).get(shard);
+        shardGrid = createShardGrid(grid, owned);
+      }
+
+      TileGridUtils.resetReleaseCounts(shardGrid);
+      executor.launchStitching(shardGrid, params, null, timeSlice);
+    }
+
+    writeShardDisplacements(grid, owned, getShardFile(shardDir, shard, timeSlice));
+    executor.cleanup();
+  }
+
+  /**
+   * Extends a partition by a one tile seam towards the previous partition so the north and west
+   * pairs along its leading edge are computed by the worker that owns it.
+   */
+  private static <T> TileGrid<ImageTile<T>> createShardGrid(TileGrid<ImageTile<T>> grid,
+                                                            TileGrid<ImageTile<T>> owned) {
+    int seamRow = owned.getStartRow() > grid.getStartRow() ? 1 : 0;
+    int seamCol = owned.getStartCol() > grid.getStartCol() ? 1 : 0;
+    return new TileGrid<ImageTile<T>>(grid,
+        owned.getStartRow() - grid.getStartRow() - seamRow,
+        owned.getStartCol() - grid.getStartCol() - seamCol,
+        owned.getExtentWidth() + seamCol, owned.getExtentHeight() + seamRow);
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <T> StitchingExecutorInterface<T> createLowMemoryExecutor(
+      MemoryPlanner.Strategy strategy) {
+    if (strategy == MemoryPlanner.Strategy.BANDED)
+      return (StitchingExecutorInterface<T>) new BandedJavaStitchingExecutor<float[][]>();
+    return (StitchingExecutorInterface<T>) new SequentialJavaStitchingExecutor<float[][]>();
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <T> StitchingExecutorInterface<T> createWorkerExecutor(StitchingAppParams params) {
+    StitchingExecutorInterface<T> executor = null;
+    StitchingType type = params.getAdvancedParams().getProgramType();
+    if (type == StitchingType.AUTO || type == StitchingType.FFTW) {
+      StitchingExecutor parent = new StitchingExecutor(params);
+      if (params.getAdvancedParams().isUseDoublePrecision())
+        executor = (StitchingExecutorInterface<T>) new FftwStitchingExecutor<Pointer<Double>>(parent);
+      else
+        executor = (StitchingExecutorInterface<T>) new FftwStitchingExecutor<Pointer<Float>>(parent);
+
+      if (!executor.checkForLibs(params, false))
+        executor = null;
+    }
+
+    if (executor == null)
+      executor = (StitchingExecutorInterface<T>) new JavaStitchingExecutor<float[][]>();
+    return executor;
+  }
+
+  /**
+   * Writes the north and west displacements of the tiles owned by a partition, in the
+   * relative-positions file format. The file is written to a temporary name and renamed once
+   * complete so a partially written shard is never merged.
+   */
+  private static <T> void writeShardDisplacements(TileGrid<ImageTile<T>> grid,
+                                                  TileGrid<ImageTile<T>> owned, File file)
+      throws IOException {
+    File tmpFile = new File(file.getParentFile(), file.getName() + ".tmp");
+    String newLine = "\n";
+    FileWriter writer = new FileWriter(tmpFile);
+    try {
+      for (int r = owned.getStartRow(); r < owned.getStartRow() + owned.getExtentHeight(); r++) {
+        for (int c = owned.getStartCol(); c < owned.getStartCol() + owned.getExtentWidth(); c++) {
+          ImageTile<T> t = grid.getTile(r, c);
+
+          if (c > grid.getStartCol() && t.getWestTranslation() != null) {
+            ImageTile<T> west = grid.getTile(r, c - 1);
+            writer.write("west, " + t.getFileName() + ", " + west.getFileName() + ", "
+                + t.getWestTranslation().toCSVString() + newLine);
+          }
+
+          if (r > grid.getStartRow() && t.getNorthTranslation() != null) {
+            ImageTile<T> north = grid.getTile(r - 1, c);
+            writer.write("north, " + t.getFileName() + ", " + north.getFileName() + ", "
+                + t.getNorthTranslation().toCSVString() + newLine);
+          }
+        }
+      }
+    } finally {
+      writer.close();
+    }
+
+    if (file.exists())
+      file.delete();
+    if (!tmpFile.renameTo(file))
+      throw new IOException("Unable to rename " + tmpFile.getAbsolutePath() + " to " + file.getAbsolutePath());
+  }
+
+}
@@ -37,6 +37,7 @@ import java.io.IOException;
 import java.io.InvalidClassException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.ArrayList;
 import java.util.List;
 
 import javax.swing.JEditorPane;
@@ -49,6 +50,7 @@ import javax.swing.event.HyperlinkListener;
 import gov.nist.isg.mist.MISTMain;
 import gov.nist.isg.mist.MISTMain.ExecutionType;
 import gov.nist.isg.mist.StitchingGUIFrame;
+import gov.nist.isg.mist.correlation.NccCache;
 import gov.nist.isg.mist.gui.StitchingGuiUtils;
 import gov.nist.isg.mist.gui.StitchingStatistics;
 import gov.nist.isg.mist.gui.StitchingStatistics.RunTimers;
@@ -58,13 +60,18 @@ import gov.nist.isg.mist.gui.params.objects.RangeParam;
 import gov.nist.isg.mist.lib.exceptions.EmptyGridException;
 import gov.nist.isg.mist.lib.exceptions.StitchingException;
 import gov.nist.isg.mist.lib.export.LargeImageExporter;
+import gov.nist.isg.mist.lib.export.MultiChannelImageExporter;
+import gov.nist.isg.mist.lib.export.OmeZarrExporter;
+import gov.nist.isg.mist.lib.imagetile.FlatFieldCorrection;
 import gov.nist.isg.mist.lib.imagetile.ImageTile;
 import gov.nist.isg.mist.lib.imagetile.Stitching;
 import gov.nist.isg.mist.lib.imagetile.fftw.FftwImageTile;
 import gov.nist.isg.mist.lib.log.Log;
 import gov.nist.isg.mist.lib.log.Log.LogType;
+import gov.nist.isg.mist.lib.tilegrid.CheckpointJournal;
 import gov.nist.isg.mist.lib.tilegrid.TileGrid;
 import gov.nist.isg.mist.lib.tilegrid.TileGridUtils;
+import gov.nist.isg.mist.lib.tilegrid.loader.TileGridLoader;
 import gov.nist.isg.mist.lib32.executor.CudaStitchingExecutor32;
 import gov.nist.isg.mist.optimization.GlobalOptimization;
 import ij.IJ;
@@ -149,6 +156,9 @@ public class StitchingExecutor implements Runnable {
     private GlobalOptimization globalOptimization;
 
     private LargeImageExporter<?> imageExporter;
+    private OmeZarrExporter<?> zarrExporter;
+    private LowResPreviewExecutor<?> lowResPreview;
+    private MultiChannelImageExporter<?> multiChannelExporter;
 
     private volatile boolean isCancelled;
 
@@ -179,6 +189,9 @@ public class StitchingExecutor implements Runnable {
         this.progressLabel = null;
         this.isCancelled = false;
         this.imageExporter = null;
+        this.zarrExporter = null;
+        this.lowResPreview = null;
+        this.multiChannelExporter = null;
     }
 
     @Override
@@ -244,6 +257,12 @@ public class StitchingExecutor implements Runnable {
     public void cancelExport() {
         if (imageExporter != null)
             imageExporter.cancel();
+        if (zarrExporter != null)
+            zarrExporter.cancel();
+        if (lowResPreview != null)
+            lowResPreview.cancel();
+        if (multiChannelExporter != null)
+            multiChannelExporter.cancel();
     }
 
 
@@ -413,6 +432,29 @@ public class StitchingExecutor implements Runnable {
             }
         }
 
+        // shard the relative displacement computation across local worker processes
+        if (stitchingExecutorInf != null && params.getAdvancedParams().getNumShards() > 1
+                && !params.getInputParams().isAssembleFromMetadata()
+                && params.getAdvancedParams().getProgramType() != StitchingType.NOOVERLAP) {
+            stitchingExecutorInf = new ShardedStitchingExecutor<T>(stitchingExecutorInf);
+        }
+
+        // warm-start each time slice from the translations of the previous slice
+        TemporalWarmStartExecutor<T> warmStart = null;
+        if (stitchingExecutorInf != null && params.getAdvancedParams().isTimeSeriesWarmStart()
+                && params.getInputParams().isTimeSlicesEnabled()
+                && !params.getInputParams().isAssembleFromMetadata()
+                && params.getAdvancedParams().getProgramType() != StitchingType.NOOVERLAP) {
+            if (TemporalWarmStartExecutor.isSupported(stitchingExecutorInf)) {
+                warmStart = new TemporalWarmStartExecutor<T>(stitchingExecutorInf);
+                stitchingExecutorInf = warmStart;
+            } else {
+                Log.msg(LogType.MANDATORY, "Time series warm start is not supported by "
+                        + stitchingExecutorInf.getClass().getSimpleName()
+                        + ", every timeslice will be stitched with full phase correlation");
+            }
+        }
+
         executor = stitchingExecutorInf;
 
         if (stitchingExecutorInf == null || !stitchingExecutorInf.checkForLibs(params, displayGui))
@@ -473,275 +515,315 @@ public class StitchingExecutor implements Runnable {
 
         Stitching.USE_BIOFORMATS = params.getAdvancedParams().isUseBioFormats();
 
-        if (params.getAdvancedParams().getNumFFTPeaks() != 0) {
-            Stitching.NUM_PEAKS = params.getAdvancedParams().getNumFFTPeaks();
+        try {
+            FlatFieldCorrection.configure(params.getAdvancedParams().getFlatFieldPath(),
+                    params.getAdvancedParams().getDarkFieldPath(),
+                    params.getAdvancedParams().isBackgroundSubtraction());
+        } catch (IOException e) {
+            throw new StitchingException("Unable to load flat-field correction: " + e.getMessage(), e);
         }
 
-        List<RangeParam> timeSlices = params.getInputParams().getTimeSlices();
-        int group = 0;
-        for (RangeParam timeSliceParam : timeSlices) {
-            group++;
+        try {
+            if (params.getAdvancedParams().getNumFFTPeaks() != 0) {
+                Stitching.NUM_PEAKS = params.getAdvancedParams().getNumFFTPeaks();
+            }
 
-            int minTimeSlice = timeSliceParam.getMin();
-            int maxTimeSlice = timeSliceParam.getMax();
+            List<RangeParam> timeSlices = params.getInputParams().getTimeSlices();
+            int group = 0;
+            for (RangeParam timeSliceParam : timeSlices) {
+                group++;
 
-            for (int timeSlice = minTimeSlice; timeSlice <= maxTimeSlice; timeSlice++) {
-                if (isCancelled) {
-                    cancelExecution();
-                    return;
-                }
+                int minTimeSlice = timeSliceParam.getMin();
+                int maxTimeSlice = timeSliceParam.getMax();
 
-                stitchingStatistics.setCurrentTimeSlice(timeSlice);
-                stitchingStatistics.addTimeSlice(timeSlice);
+                for (int timeSlice = minTimeSlice; timeSlice <= maxTimeSlice; timeSlice++) {
+                    if (isCancelled) {
+                        cancelExecution();
+                        return;
+                    }
 
+                    stitchingStatistics.setCurrentTimeSlice(timeSlice);
+                    stitchingStatistics.addTimeSlice(timeSlice);
 
-                if (params.getInputParams().isTimeSlicesEnabled()) {
-                    StitchingGuiUtils.updateProgressLabel(progressLabel, timeSlice,
-                            maxTimeSlice, group, timeSlices.size());
-                }
 
+                    if (params.getInputParams().isTimeSlicesEnabled()) {
+                        StitchingGuiUtils.updateProgressLabel(progressLabel, timeSlice,
+                                maxTimeSlice, group, timeSlices.size());
+                    }
 
-                boolean runSequential = false;
-                TileGrid<ImageTile<T>> grid;
-                boolean optimizationSuccessful = false;
-                try {
-                    // init the grid, which ensures that at least one image tile exists within the image grid
-                    grid = stitchingExecutorInf.initGrid(params, timeSlice);
 
-                    if (grid == null)
-                        return;
+                    boolean runSequential = false;
+                    TileGrid<ImageTile<T>> grid;
+                    boolean optimizationSuccessful = false;
+                    try {
+                        // init the grid, which ensures that at least one image tile exists within the image grid
+                        grid = stitchingExecutorInf.initGrid(params, timeSlice);
 
+                        if (grid == null)
+                            return;
 
-                    ImageTile.disableFreePixelData();
-                    // Check if there is enough memory to process this grid
-                    if (!executor.checkMemory(grid, params.getAdvancedParams().getNumCPUThreads())) {
-                        ImageTile.enableFreePixelData();
-                        stitchingStatistics.setIsEnableFreeingPixelData(true);
-                        Log.msg(LogType.MANDATORY,
-                                "Insufficient memory to hold all image tiles in memory, turning on the freeing of pixel data");
 
-                        if (!executor.checkMemory(grid, params.getAdvancedParams().getNumCPUThreads())) {
+                        // choose the pixel freeing policy, thread count and executor in one step
+                        MemoryPlanner.MemoryPlan memoryPlan = MemoryPlanner.plan(stitchingExecutorInf, grid, params);
+                        if (memoryPlan.isFreePixelData()) {
+                            ImageTile.enableFreePixelData();
+                            stitchingStatistics.setIsEnableFreeingPixelData(true);
+                        } else {
+                            ImageTile.disableFreePixelData();
+                        }
+
+                        if (memoryPlan.getNumThreads() < params.getAdvancedParams().getNumCPUThreads()) {
                             Log.msg(LogType.MANDATORY,
                                     "Insufficient memory to perform stitching with " + params
                                             .getAdvancedParams().getNumCPUThreads()
-                                            + " threads, attempting backoff for timeslice: "
-                                            + timeSlice);
+                                            + " threads, using " + memoryPlan.getNumThreads()
+                                            + " threads for timeslice: " + timeSlice);
                             Log.msg(LogType.MANDATORY,
                                     "SUGGESTION: Try lowering the number of compute threads which lowers the memory requirements");
-
-                            // perform thread count backoff to find what maximum number of threads can be supported
-                            for (int n = params.getAdvancedParams().getNumCPUThreads(); n >= 1; n--) {
-                                params.getAdvancedParams().setNumCPUThreads(n);
-                                if (executor.checkMemory(grid, params.getAdvancedParams().getNumCPUThreads()))
-                                    break;
-                            }
-                            Log.msg(LogType.MANDATORY,
-                                    "Attempting to perform stitching with " + params
-                                            .getAdvancedParams().getNumCPUThreads() + " threads.");
-
-                            // check if the 1 thread method has sufficient memory, if not run sequential stitching
-                            if (params.getAdvancedParams().getNumCPUThreads() == 1) {
-                                if (!executor.checkMemory(grid, params.getAdvancedParams().getNumCPUThreads())) {
-                                    // only run sequential stitching if not assembling from metadata
-                                    if (!params.getInputParams().isAssembleFromMetadata()) {
-                                        Log.msg(LogType.MANDATORY,
-                                                "Attempting to use sequential stitching, this version is expected to " +
-                                                        "take awhile (see FAQ for suggestions)");
-
-                                        runSequential = true;
-                                        stitchingExecutorInf =
-                                                (StitchingExecutorInterface<T>) new SequentialJavaStitchingExecutor<float[][]>();
-                                        grid = stitchingExecutorInf.initGrid(params, timeSlice);
-                                        // update the executor reference because it has been changed to sequential
-                                        executor = stitchingExecutorInf;
-
-                                        stitchingStatistics.setIsRunSequential(true);
-                                    }
-                                }
-                            }
                         }
-                    }
+                        params.getAdvancedParams().setNumCPUThreads(memoryPlan.getNumThreads());
 
+                        if (memoryPlan.getStrategy() != MemoryPlanner.Strategy.PIPELINED
+                                && params.getAdvancedParams().isLiveStitching())
+                            Log.msg(LogType.MANDATORY, "Live stitching is not supported by the low "
+                                    + "memory executors, all tiles must be acquired before stitching");
 
-                    stitchingStatistics.startTimer(RunTimers.TotalStitchingTime);
-                    initProgressBar();
-                    stitchingStatistics.startTimer(RunTimers.RelativeDisplacementTime);
+                        if (memoryPlan.getStrategy() == MemoryPlanner.Strategy.BANDED) {
+                            Log.msg(LogType.MANDATORY,
+                                    "Attempting to use banded low memory stitching with "
+                                            + memoryPlan.getNumThreads() + " threads");
+
+                            stitchingExecutorInf = replaceExecutor(warmStart,
+                                    (StitchingExecutorInterface<T>) new BandedJavaStitchingExecutor<float[][]>());
+                            grid = stitchingExecutorInf.initGrid(params, timeSlice);
+                            // update the executor reference because it has been changed to a low memory executor
+                            executor = stitchingExecutorInf;
+                        } else if (memoryPlan.getStrategy() == MemoryPlanner.Strategy.SEQUENTIAL) {
+                            Log.msg(LogType.MANDATORY,
+                                    "Attempting to use sequential stitching, this version is expected to " +
+                                            "take awhile (see FAQ for suggestions)");
 
-                    stitchingExecutorInf.launchStitching(grid, params, progressBar, timeSlice);
+                            runSequential = true;
+                            stitchingExecutorInf = replaceExecutor(warmStart,
+                                    (StitchingExecutorInterface<T>) new SequentialJavaStitchingExecutor<float[][]>());
+                            grid = stitchingExecutorInf.initGrid(params, timeSlice);
 
-                    stitchingStatistics.stopTimer(RunTimers.RelativeDisplacementTime);
+                            stitchingStatistics.setIsRunSequential(true);
+                            // update the executor reference because it has been changed to a low memory executor
+                            executor = stitchingExecutorInf;
+                        }
 
-                    if (!isCancelled) {
-                        globalOptimization = new GlobalOptimization<T>(grid, progressBar,
-                                params, stitchingStatistics, runSequential);
-                        optimizationSuccessful = globalOptimization.optimize();
-                    }
+                        stitchingStatistics.setPredictedPeakMemory(memoryPlan.getPredictedPeakBytes());
+                        MemoryPlanner.resetObservedPeak();
 
+                        // memoize pair NCC values so refinement reuses the PCIAM evaluations
+                        NccCache.configure(params.getAdvancedParams().getNccCacheSize());
 
-                    stitchingStatistics.stopTimer(RunTimers.TotalStitchingTime);
-
-
-                } catch (OutOfMemoryError e) {
-                    showError(outOfMemoryMessage);
-                    Log.msg(LogType.MANDATORY,
-                            "SUGGESTION: Try lowering the number of compute threads which lowers the memory requirements");
-                    throw new StitchingException("Out of memory thrown: " + outOfMemoryMessage, e);
-                } catch (CudaException e) {
-                    showError("CUDA exception thrown: " + e.getMessage());
-                    throw new StitchingException("CUDA exception thrown: " + e.getMessage(), e);
-                } catch (FileNotFoundException e) {
-                    Log.msg(LogType.MANDATORY,
-                            "Error unable to find file: " + e.getMessage() + ". Skipping timeslice: "
-                                    + timeSlice);
-
-                    if (stopExecutionIfFileNotFound)
-                        throw new StitchingException("Error unable to find file: " + e.getMessage() +
-                                ". Failed at timeslice: " + timeSlice, e);
-                    else
-                        continue;
-                } catch (IllegalArgumentException e) {
-                    throw new StitchingException("Illegal argument: " + e.getMessage(), e);
-
-                } catch (EmptyGridException e) {
-                    Log.msg(LogType.MANDATORY, "Unable to find any images in the image grid.");
-                    Log.msg(LogType.MANDATORY, "Skipping time slice: " + timeSlice);
-                    if (stopExecutionIfFileNotFound)
-                        throw new StitchingException("Empty image grid encountered: " + e.getMessage() +
-                                ". Failed at timeslice: " + timeSlice, e);
-                    else
-                        continue;
-
-                } catch (Throwable e) {
-                    Log.msg(LogType.MANDATORY, "Error occurred in stitching worker: ");
-                    Log.msg(LogType.MANDATORY, e.toString());
-                    for (StackTraceElement st : e.getStackTrace())
-                        Log.msg(LogType.MANDATORY, st.toString());
-                    throw new StitchingException("Error occurred in stitching worker", e);
-                }
+                        // attach the checkpoint journal so completed pairs survive a crash
+                        if (params.getAdvancedParams().isCheckpointJournal()
+                                || params.getAdvancedParams().isResumeFromCheckpoint())
+                            openCheckpointJournal(grid, timeSlice);
 
+                        stitchingStatistics.startTimer(RunTimers.TotalStitchingTime);
+                        initProgressBar();
+                        stitchingStatistics.startTimer(RunTimers.RelativeDisplacementTime);
 
-                if (params.getInputParams().isTimeSlicesEnabled()) {
-                    Log.msg(
-                            LogType.MANDATORY,
-                            "Completed Stitching in "
-                                    + stitchingStatistics.getDuration(RunTimers.TotalStitchingTime) + "ms" +
-                                    " time slice: " + timeSlice + " of " + maxTimeSlice);
-                } else {
-                    Log.msg(
-                            LogType.MANDATORY,
-                            "Completed Stitching in "
-                                    + stitchingStatistics.getDuration(RunTimers.TotalStitchingTime) + "ms");
-                }
+                        stitchingExecutorInf.launchStitching(grid, params, progressBar, timeSlice);
 
-                // Always create the output directory
-                File outputDir = new File(params.getOutputParams().getOutputPath());
-                outputDir.mkdirs();
+                        stitchingStatistics.stopTimer(RunTimers.RelativeDisplacementTime);
 
-                if (optimizationSuccessful) {
-                    try {
-                        if (params.getOutputParams().isOutputMeta()) {
-                            outputMeta(grid, progressBar, timeSlice);
+                        if (!isCancelled) {
+                            globalOptimization = new GlobalOptimization<T>(grid, progressBar,
+                                    params, stitchingStatistics, runSequential);
+                            optimizationSuccessful = globalOptimization.optimize();
                         }
 
-                        if (checkOutputGridMemory(grid)) {
-                            outputGrid(grid, progressBar, timeSlice);
-                        } else {
-                            if (params.getOutputParams().isOutputFullImage())
-                                Log.msg(LogType.MANDATORY, "Not enough memory to create output stitched image.");
+                        if (warmStart != null) {
+                            if (optimizationSuccessful)
+                                warmStart.recordPriors(grid);
+                            else
+                                warmStart.clearPriors();
+                        }
+
+                        closeCheckpointJournal(grid);
+
+                        if (NccCache.isEnabled()) {
+                            Log.msg(LogType.INFO, "NCC cache hits: " + NccCache.getHits() + ", misses: "
+                                    + NccCache.getMisses());
+                            NccCache.clear();
                         }
+
+
+                        stitchingStatistics.stopTimer(RunTimers.TotalStitchingTime);
+
+
+                    } catch (OutOfMemoryError e) {
+                        showError(outOfMemoryMessage);
+                        Log.msg(LogType.MANDATORY,
+                                "SUGGESTION: Try lowering the number of compute threads which lowers the memory requirements");
+                        throw new StitchingException("Out of memory thrown: " + outOfMemoryMessage, e);
+                    } catch (CudaException e) {
+                        showError("CUDA exception thrown: " + e.getMessage());
+                        throw new StitchingException("CUDA exception thrown: " + e.getMessage(), e);
                     } catch (FileNotFoundException e) {
                         Log.msg(LogType.MANDATORY,
-                                "Unable find file: " + e.getMessage() + ". Cancelling writing full image.");
+                                "Error unable to find file: " + e.getMessage() + ". Skipping timeslice: "
+                                        + timeSlice);
+
+                        if (stopExecutionIfFileNotFound)
+                            throw new StitchingException("Error unable to find file: " + e.getMessage() +
+                                    ". Failed at timeslice: " + timeSlice, e);
+                        else
+                            continue;
+                    } catch (IllegalArgumentException e) {
+                        throw new StitchingException("Illegal argument: " + e.getMessage(), e);
+
+                    } catch (EmptyGridException e) {
+                        Log.msg(LogType.MANDATORY, "Unable to find any images in the image grid.");
+                        Log.msg(LogType.MANDATORY, "Skipping time slice: " + timeSlice);
+                        if (stopExecutionIfFileNotFound)
+                            throw new StitchingException("Empty image grid encountered: " + e.getMessage() +
+                                    ". Failed at timeslice: " + timeSlice, e);
+                        else
+                            continue;
+
+                    } catch (Throwable e) {
+                        Log.msg(LogType.MANDATORY, "Error occurred in stitching worker: ");
+                        Log.msg(LogType.MANDATORY, e.toString());
+                        for (StackTraceElement st : e.getStackTrace())
+                            Log.msg(LogType.MANDATORY, st.toString());
+                        throw new StitchingException("Error occurred in stitching worker", e);
                     }
-                }
 
-                releaseTiles(grid);
-            }
-        }
 
-        if (displayGui) {
-            int displayWarningDialog = 0;
-            String accumulatedWarningString = "";
-            for (RangeParam timeSliceParam : timeSlices) {
-                int minTimeSlice = timeSliceParam.getMin();
-                int maxTimeSlice = timeSliceParam.getMax();
+                    if (params.getInputParams().isTimeSlicesEnabled()) {
+                        Log.msg(
+                                LogType.MANDATORY,
+                                "Completed Stitching in "
+                                        + stitchingStatistics.getDuration(RunTimers.TotalStitchingTime) + "ms" +
+                                        " time slice: " + timeSlice + " of " + maxTimeSlice);
+                    } else {
+                        Log.msg(
+                                LogType.MANDATORY,
+                                "Completed Stitching in "
+                                        + stitchingStatistics.getDuration(RunTimers.TotalStitchingTime) + "ms");
+                    }
 
-                for (int timeSlice = minTimeSlice; timeSlice <= maxTimeSlice; timeSlice++) {
-                    String str = stitchingStatistics.runErrorChecks(timeSlice);
-                    if (!str.contains(StitchingStatistics.ErrorReportStatus.PASSED.toString())) {
-                        displayWarningDialog++;
-                        accumulatedWarningString = accumulatedWarningString + str + "\n";
+                    // Always create the output directory
+                    File outputDir = new File(params.getOutputParams().getOutputPath());
+                    outputDir.mkdirs();
+
+                    if (optimizationSuccessful) {
+                        try {
+                            if (params.getOutputParams().isOutputMeta()) {
+                                outputMeta(grid, progressBar, timeSlice);
+                            }
+
+                            if (checkOutputGridMemory(grid)) {
+                                outputGrid(grid, progressBar, timeSlice);
+                            } else {
+                                if (params.getOutputParams().isOutputFullImage())
+                                    Log.msg(LogType.MANDATORY, "Not enough memory to create output stitched image.");
+                            }
+                        } catch (FileNotFoundException e) {
+                            Log.msg(LogType.MANDATORY,
+                                    "Unable find file: " + e.getMessage() + ". Cancelling writing full image.");
+                        }
                     }
+
+                    stitchingStatistics.setObservedPeakMemory(MemoryPlanner.getObservedPeakBytes());
+
+                    releaseTiles(grid);
                 }
             }
 
-            if (displayWarningDialog > 0) {
-                File statsFile = params.getOutputParams().getStatsFile();
-                String warnStr = "Stitching experiment(s) generated warnings:<br/><br/>";
-                if (displayWarningDialog == 1) {
-                    warnStr = warnStr + accumulatedWarningString;
-                }
-                warnStr = warnStr + "For more details check the log or the statistics file:<br/>" +
-                        statsFile.getAbsolutePath();
-
-                warnStr = warnStr + "<br/><br/>" + "If the stitching results do not look correct,<br>" +
-                        "try setting the following <a href=\"https://github" +
-                        ".com/USNISTGOV/MIST/wiki/User-Guide#advanced-parameters\">advanced parameters</a>: " +
-                        "<br/>1) Vertical image overlap" +
-                        "<br/>2) Horizontal image overlap" +
-                        "<br/>3) Stage repeatability";
-//            "<a href=\"https://github.com/usnistgov/MIST/wiki\">MIST Wiki</a> contains additional help and usage details.";
-//        new MessageDialog(IJ.getInstance(), "Stitching Warning", warnStr);
-
-                warnStr = warnStr.replaceAll("<br/>", "\n");
-
-                // print the entire warning to the log
-                Log.msg(LogType.MANDATORY, warnStr);
-
-
-                warnStr = warnStr.replaceAll("\n", "<br/>");
-                warnStr = warnStr.replace("nist-mist@nist.gov",
-                        "<a href=\"mailto:nist-mist@nist.gov\">nist-mist@nist.gov</a>");
-                warnStr = warnStr.replace("http://github.com/USNISTGOV/MIST/issues",
-                        "<a href=\"http://github.com/USNISTGOV/MIST/issues\">MIST-Github-Issues</a>");
-
-
-                // Only display the modal warning dialog if the user has not disabled it under advanced params
-                if (!params.getAdvancedParams().isSuppressModelWarningDialog()) {
-                    JEditorPane ep = new JEditorPane("text/html", "<html>" + warnStr +
-                            "</html>");
-
-                    ep.addHyperlinkListener(new HyperlinkListener() {
-                        @Override
-                        public void hyperlinkUpdate(HyperlinkEvent e) {
-                            if (e.getEventType().equals(HyperlinkEvent.EventType.ACTIVATED))
-                                try {
-                                    Desktop.getDesktop().browse(new URI(e.getURL().toString()));
-                                } catch (IOException | URISyntaxException e1) {
-                                    Log.msg(LogType.INFO, "IO Exception creating warning dialog: " + e1.getMessage());
-//                e1.printStackTrace();
-                                }
+            if (displayGui) {
+                int displayWarningDialog = 0;
+                String accumulatedWarningString = "";
+                for (RangeParam timeSliceParam : timeSlices) {
+                    int minTimeSlice = timeSliceParam.getMin();
+                    int maxTimeSlice = timeSliceParam.getMax();
+
+                    for (int timeSlice = minTimeSlice; timeSlice <= maxTimeSlice; timeSlice++) {
+                        String str = stitchingStatistics.runErrorChecks(timeSlice);
+                        if (!str.contains(StitchingStatistics.ErrorReportStatus.PASSED.toString())) {
+                            displayWarningDialog++;
+                            accumulatedWarningString = accumulatedWarningString + str + "\n";
                         }
-                    });
+                    }
+                }
+
+                if (displayWarningDialog > 0) {
+                    File statsFile = params.getOutputParams().getStatsFile();
+                    String warnStr = "Stitching experiment(s) generated warnings:<br/><br/>";
+                    if (displayWarningDialog == 1) {
+                        warnStr = warnStr + accumulatedWarningString;
+                    }
+                    warnStr = warnStr + "For more details check the log or the statistics file:<br/>" +
+                            statsFile.getAbsolutePath();
+
+                    warnStr = warnStr + "<br/><br/>" + "If the stitching results do not look correct,<br>" +
+                            "try setting the following <a href=\"https://github" +
+                            ".com/USNISTGOV/MIST/wiki/User-Guide#advanced-parameters\">advanced parameters</a>: " +
+                            "<br/>1) Vertical image overlap" +
+                            "<br/>2) Horizontal image overlap" +
+                            "<br/>3) Stage repeatability";
+    //            "<a href=\"https://github.com/usnistgov/MIST/wiki\">MIST Wiki</a> contains additional help and usage details.";
+    //        new MessageDialog(IJ.getInstance(), "Stitching Warning", warnStr);
+
+                    warnStr = warnStr.replaceAll("<br/>", "\n");
+
+                    // print the entire warning to the log
+                    Log.msg(LogType.MANDATORY, warnStr);
+
+
+                    warnStr = warnStr.replaceAll("\n", "<br/>");
+                    warnStr = warnStr.replace("nist-mist@nist.gov",
+                            "<a href=\"mailto:nist-mist@nist.gov\">nist-mist@nist.gov</a>");
+                    warnStr = warnStr.replace("http://github.com/USNISTGOV/MIST/issues",
+                            "<a href=\"http://github.com/USNISTGOV/MIST/issues\">MIST-Github-Issues</a>");
+
+
+                    // Only display the modal warning dialog if the user has not disabled it under advanced params
+                    if (!params.getAdvancedParams().isSuppressModelWarningDialog()) {
+                        JEditorPane ep = new JEditorPane("text/html", "<html>" + warnStr +
+                                "</html>");
+
+                        ep.addHyperlinkListener(new HyperlinkListener() {
+                            @Override
+                            public void hyperlinkUpdate(HyperlinkEvent e) {
+                                if (e.getEventType().equals(HyperlinkEvent.EventType.ACTIVATED))
+                                    try {
+                                        Desktop.getDesktop().browse(new URI(e.getURL().toString()));
+                                    } catch (IOException | URISyntaxException e1) {
+                                        Log.msg(LogType.INFO, "IO Exception creating warning dialog: " + e1.getMessage());
+    //                e1.printStackTrace();
+                                    }
+                            }
+                        });
 
-                    ep.setEditable(false);
-                    ep.setBackground(new Color(0, 0, 0, 0));
-//        ep.setSize(new Dimension(300,Integer.MAX_VALUE));
+                        ep.setEditable(false);
+                        ep.setBackground(new Color(0, 0, 0, 0));
+    //        ep.setSize(new Dimension(300,Integer.MAX_VALUE));
+
+                        JOptionPane.showMessageDialog(null, ep, "Stitching Warning", JOptionPane.ERROR_MESSAGE);
+                    }
 
-                    JOptionPane.showMessageDialog(null, ep, "Stitching Warning", JOptionPane.ERROR_MESSAGE);
                 }
+            }
 
+            stitchingStatistics.stopEndToEndTimer();
+            if (params.getOutputParams().isOutputMeta()) {
+                stitchingStatistics.writeStatistics(params.getOutputParams().getStatsFile());
+                stitchingStatistics.writeLog(params.getOutputParams().getLogFile());
             }
-        }
+            Log.msg(LogType.MANDATORY, "Done");
 
-        stitchingStatistics.stopEndToEndTimer();
-        if (params.getOutputParams().isOutputMeta()) {
-            stitchingStatistics.writeStatistics(params.getOutputParams().getStatsFile());
-            stitchingStatistics.writeLog(params.getOutputParams().getLogFile());
+            executor.cleanup();
+        } finally {
+            // never leave the correction active for later tile reads in this JVM
+            FlatFieldCorrection.disable();
         }
-        Log.msg(LogType.MANDATORY, "Done");
-
-        executor.cleanup();
     }
 
 
@@ -763,6 +845,68 @@ public class StitchingExecutor implements Runnable {
         TileGridUtils.releaseTiles(grid);
     }
 
+    /**
+     * Opens the checkpoint journal for a timeslice and attaches it to the grid. When resuming, the
+     * pairs recorded by a previous run are restored into the grid first. If the journal cannot be
+     * opened stitching continues without one.
+     *
+     * @param grid      the grid to attach the journal to
+     * @param timeSlice the timeslice being stitched
+     */
+    private <T> void openCheckpointJournal(TileGrid<ImageTile<T>> grid, int timeSlice) {
+        List<RangeParam> timeSlices = this.params.getInputParams().getTimeSlices();
+        int globalMaxTimeSlice = 0;
+        for (RangeParam timeSliceParam : timeSlices) {
+            globalMaxTimeSlice = Math.max(timeSliceParam.getMax(), globalMaxTimeSlice);
+        }
+
+        File journalFile = params.getOutputParams().getCheckpointFile(timeSlice, globalMaxTimeSlice);
+        try {
+            new File(params.getOutputParams().getOutputPath()).mkdirs();
+            grid.setCheckpointJournal(CheckpointJournal.open(grid, journalFile,
+                    params.getAdvancedParams().isResumeFromCheckpoint(),
+                    CheckpointJournal.fingerprint(params, timeSlice)));
+        } catch (IOException e) {
+            Log.msg(LogType.MANDATORY, "Unable to open checkpoint journal " + journalFile.getAbsolutePath()
+                    + ": " + e.getMessage() + ". Continuing without checkpointing.");
+        }
+    }
+
+    /**
+     * Closes and detaches the checkpoint journal of a grid, if it has one.
+     *
+     * @param grid the grid whose journal is closed
+     */
+    private static <T> void closeCheckpointJournal(TileGrid<ImageTile<T>> grid) {
+        CheckpointJournal journal = grid.getCheckpointJournal();
+        if (journal == null)
+            return;
+
+        grid.setCheckpointJournal(null);
+        try {
+            journal.close();
+        } catch (IOException e) {
+            Log.msg(LogType.MANDATORY, "Error closing checkpoint journal: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Swaps in a low memory executor. If time series warm start is active the replacement becomes
+     * the warm-start executor's inner executor so the priors of the previous slice are kept.
+     *
+     * @param warmStart   the warm-start executor, or null if warm start is not active
+     * @param replacement the low memory executor
+     * @return the executor to stitch with
+     */
+    private static <T> StitchingExecutorInterface<T> replaceExecutor(
+            TemporalWarmStartExecutor<T> warmStart, StitchingExecutorInterface<T> replacement) {
+        if (warmStart == null)
+            return replacement;
+
+        warmStart.setInnerExecutor(replacement);
+        return warmStart;
+    }
+
     private <T> void outputGrid(TileGrid<ImageTile<T>> grid, final JProgressBar progress,
                                 int timeSlice) throws FileNotFoundException {
 
@@ -778,6 +922,16 @@ public class StitchingExecutor implements Runnable {
                 return;
         }
 
+        if (params.getAdvancedParams().isOutputOmeZarr()) {
+            if (saveOmeZarr(grid, progress, timeSlice) == null)
+                return;
+        }
+
+        if (!params.getAdvancedParams().getMultiChannelPatterns().trim().isEmpty()) {
+            if (saveMultiChannelImage(grid, progress, timeSlice) == null)
+                return;
+        }
+
         if (params.getOutputParams().isDisplayStitching())
             displayFullImage(grid, progress, img);
 
@@ -844,6 +998,8 @@ public class StitchingExecutor implements Runnable {
             imageExporter = new LargeImageExporter<T>(grid, tileDim, initImg.getImagePlus().getType(), 0, 0,
                     width, height, params.getOutputParams().getBlendingMode(), params.getOutputParams().getCompressionMode(), params.getOutputParams().getPerPixelUnit(),
                     params.getOutputParams().getPerPixelX(), params.getOutputParams().getPerPixelY(), params.getOutputParams().getBlendingAlpha(), progress);
+            if (params.getAdvancedParams().isParallelTiffWriter())
+                imageExporter.setParallelWriterThreads(params.getAdvancedParams().getNumCPUThreads());
             exportedImg = imageExporter.exportImage(imageFile);
 
 
@@ -867,6 +1023,142 @@ public class StitchingExecutor implements Runnable {
         return exportedImg;
     }
 
+    private <T> File saveOmeZarr(TileGrid<ImageTile<T>> grid, final JProgressBar progress,
+                                 int timeSlice) {
+        StitchingGuiUtils.updateProgressBar(progress, true, "Writing OME-Zarr Image");
+
+        List<RangeParam> timeSlices = this.params.getInputParams().getTimeSlices();
+        int globalMaxTimeSlice = 0;
+        for (RangeParam timeSliceParam : timeSlices) {
+            globalMaxTimeSlice = Math.max(timeSliceParam.getMax(), globalMaxTimeSlice);
+        }
+
+        File zarrDir = params.getOutputParams().getOutputZarrFile(timeSlice, globalMaxTimeSlice);
+
+        ImageTile<T> initImg = grid.getTileThatExists();
+        initImg.readTile();
+
+        int width = TileGridUtils.getFullImageWidth(grid, initImg.getWidth());
+        int height = TileGridUtils.getFullImageHeight(grid, initImg.getHeight());
+
+        Log.msg(LogType.MANDATORY, "Writing OME-Zarr image to: " + zarrDir.getAbsolutePath()
+                + "  Width: " + width + " Height: " + height);
+
+        int tileDim = 1024;
+
+        try {
+            OmeZarrExporter<T> exporter = new OmeZarrExporter<T>(grid, tileDim, initImg.getImagePlus().getType(),
+                    width, height, params.getOutputParams().getBlendingMode(), params.getOutputParams().getCompressionMode(),
+                    params.getOutputParams().getPerPixelUnit(), params.getOutputParams().getPerPixelX(),
+                    params.getOutputParams().getPerPixelY(), params.getOutputParams().getBlendingAlpha(),
+                    params.getAdvancedParams().getNumCPUThreads(), progress);
+            zarrExporter = exporter;
+            exporter.exportImage(zarrDir);
+
+            Log.msg(LogType.MANDATORY, "Finished saving OME-Zarr image: " + zarrDir.getAbsolutePath());
+        } catch (IOException e) {
+            Log.msg(LogType.MANDATORY, "Error: Unable to write OME-Zarr image: " + e.getMessage());
+            showError("Unable to write OME-Zarr image: " + e.getMessage());
+            return null;
+        } catch (OutOfMemoryError e) {
+            Log.msg(LogType.MANDATORY, "Error: Insufficient memory to save image.");
+            showError("Out of memory error: " + e.getMessage());
+            return null;
+        } finally {
+            zarrExporter = null;
+        }
+
+        initImg.releasePixels();
+
+        return zarrDir;
+    }
+
+    private <T> File saveMultiChannelImage(TileGrid<ImageTile<T>> grid, final JProgressBar progress,
+                                           int timeSlice) {
+        StitchingGuiUtils.updateProgressBar(progress, true, "Writing Multi-Channel Image");
+
+        List<RangeParam> timeSlices = this.params.getInputParams().getTimeSlices();
+        int globalMaxTimeSlice = 0;
+        for (RangeParam timeSliceParam : timeSlices) {
+            globalMaxTimeSlice = Math.max(timeSliceParam.getMax(), globalMaxTimeSlice);
+        }
+
+        File imageFile = params.getOutputParams().getOutputMultiChannelImageFile(timeSlice, globalMaxTimeSlice);
+
+        ImageTile<T> initImg = grid.getTileThatExists();
+        initImg.readTile();
+
+        // The reference channel is always the first plane
+        List<TileGrid<ImageTile<T>>> channelGrids = new ArrayList<TileGrid<ImageTile<T>>>();
+        List<String> channelNames = new ArrayList<String>();
+        channelGrids.add(grid);
+        channelNames.add(params.getInputParams().getFilenamePattern());
+
+        try {
+            for (String pattern : params.getAdvancedParams().getMultiChannelPatterns().split(";")) {
+                pattern = pattern.trim();
+                if (pattern.isEmpty())
+                    continue;
+
+                // build the loader from the channel pattern, the shared params keep the reference pattern
+                TileGridLoader loader = params.getInputParams().isTimeSlicesEnabled() ?
+                        params.getInputParams().getTileGridLoader(pattern, timeSlice) :
+                        params.getInputParams().getTileGridLoader(pattern);
+
+                TileGrid<ImageTile<T>> channelGrid = new TileGrid<ImageTile<T>>(params.getInputParams().getStartRow(),
+                        params.getInputParams().getStartCol(), params.getInputParams().getExtentWidth(),
+                        params.getInputParams().getExtentHeight(), loader,
+                        new File(params.getInputParams().getImageDir()), initImg.getClass());
+                MultiChannelImageExporter.applyPositions(grid, channelGrid);
+
+                channelGrids.add(channelGrid);
+                channelNames.add(pattern);
+            }
+        } catch (InvalidClassException e) {
+            Log.msg(LogType.MANDATORY, "Error: Unable to create channel grid: " + e.getMessage());
+            return null;
+        }
+
+        int width = TileGridUtils.getFullImageWidth(grid, initImg.getWidth());
+        int height = TileGridUtils.getFullImageHeight(grid, initImg.getHeight());
+
+        Log.msg(LogType.MANDATORY, "Writing " + channelGrids.size() + " channel image to: "
+                + imageFile.getAbsolutePath() + "  Width: " + width + " Height: " + height);
+
+        int tileDim = 1024;
+
+        try {
+            MultiChannelImageExporter<T> exporter = new MultiChannelImageExporter<T>(grid, channelGrids,
+                    channelNames, tileDim, initImg.getImagePlus().getType(), width, height,
+                    params.getOutputParams().getBlendingMode(), params.getOutputParams().getCompressionMode(),
+                    params.getOutputParams().getPerPixelUnit(), params.getOutputParams().getPerPixelX(),
+                    params.getOutputParams().getPerPixelY(), params.getOutputParams().getBlendingAlpha(),
+                    params.getAdvancedParams().getNumCPUThreads(), progress);
+            multiChannelExporter = exporter;
+            imageFile = exporter.exportImage(imageFile);
+
+            if (imageFile != null)
+                Log.msg(LogType.MANDATORY, "Finished saving multi-channel image: " + imageFile.getAbsolutePath());
+        } catch (IllegalArgumentException e) {
+            Log.msg(LogType.MANDATORY, "Error: " + e.getMessage());
+            return null;
+        } catch (IOException e) {
+            Log.msg(LogType.MANDATORY, "Error: Unable to write multi-channel image: " + e.getMessage());
+            showError("Unable to write multi-channel image: " + e.getMessage());
+            return null;
+        } catch (OutOfMemoryError e) {
+            Log.msg(LogType.MANDATORY, "Error: Insufficient memory to save image.");
+            showError("Out of memory error: " + e.getMessage());
+            return null;
+        } finally {
+            multiChannelExporter = null;
+        }
+
+        initImg.releasePixels();
+
+        return imageFile;
+    }
+
     private <T> void displayFullImage(TileGrid<ImageTile<T>> grid, final JProgressBar progress,
                                       File img) throws FileNotFoundException {
         if (img == null) {
@@ -1010,6 +1302,12 @@ public class StitchingExecutor implements Runnable {
             Log.msg(LogType.MANDATORY, "Cannot find any images within the grid, check parameters.");
             return;
         }
+
+        if (params.getAdvancedParams().getPreviewDownsample() > 0) {
+            previewLowRes(grid, timeSlice);
+            return;
+        }
+
         initImg.readTile();
 
         int width = grid.getExtentWidth() * initImg.getWidth();
@@ -1096,6 +1394,32 @@ public class StitchingExecutor implements Runnable {
     }
 
 
+    private <T> void previewLowRes(TileGrid<ImageTile<T>> grid, int timeSlice) {
+        LowResPreviewExecutor<T> preview = new LowResPreviewExecutor<T>(grid,
+                params.getAdvancedParams().getPreviewDownsample(), params.getAdvancedParams().getNumCPUThreads());
+        lowResPreview = preview;
+
+        try {
+            ImagePlus imp = preview.assemble(progressBar);
+            if (imp == null) {
+                Log.msg(LogType.MANDATORY, "Error: Unable to assemble preview image.");
+            } else if (!GraphicsEnvironment.isHeadless()) {
+                imp.show();
+            }
+        } catch (IOException e) {
+            Log.msg(LogType.MANDATORY, "Error: " + e.getMessage());
+        } catch (OutOfMemoryError e) {
+            Log.msg(LogType.MANDATORY, "Error: Insufficient memory for image.");
+            showError("Out of memory error: " + e.getMessage());
+        } finally {
+            lowResPreview = null;
+        }
+
+        StitchingGuiUtils.updateProgressBarCompleted(progressBar);
+
+        Log.msg(LogType.MANDATORY, "Completed low resolution preview for slice " + timeSlice + ".");
+    }
+
     /**
      * Gets the stitching statistics associated with this stitching executor
      *
@@ -0,0 +1,329 @@
+// NIST-developed software is provided by NIST as a public service. You may use, copy and distribute copies of the software in any medium, provided that you keep intact this entire notice. You may improve, modify and create derivative works of the software or any portion of the software, and you may copy and distribute such modifications or works. Modified works should carry a notice stating that you changed the software and should note the date and nature of any such change. Please explicitly acknowledge the National Institute of Standards and Technology as the source of the software.
+
+// NIST-developed software is expressly provided "AS IS." NIST MAKES NO WARRANTY OF ANY KIND, EXPRESS, IMPLIED, IN FACT OR ARISING BY OPERATION OF LAW, INCLUDING, WITHOUT LIMITATION, THE IMPLIED WARRANTY OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE, NON-INFRINGEMENT AND DATA ACCURACY. NIST NEITHER REPRESENTS NOR WARRANTS THAT THE OPERATION OF THE SOFTWARE WILL BE UNINTERRUPTED OR ERROR-FREE, OR THAT ANY DEFECTS WILL BE CORRECTED. NIST DOES NOT WARRANT OR MAKE ANY REPRESENTATIONS REGARDING THE USE OF THE SOFTWARE OR THE RESULTS THEREOF, INCLUDING BUT NOT LIMITED TO THE CORRECTNESS, ACCURACY, RELIABILITY, OR USEFULNESS OF THE SOFTWARE.
+
+// You are solely responsible for determining the appropriateness of using and distributing the software and you assume all risks associated with its use, including but not limited to the risks and costs of program errors, compliance with applicable laws, damage to or loss of data, programs or equipment, and the unavailability or interruption of operation. This software is not intended to be used in any situation where a failure could cause risk of injury or damage to property. The software developed by NIST employees is not subject to copyright protection within the United States.
+
+
+package gov.nist.isg.mist.lib.executor;
+
+import java.io.FileNotFoundException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.swing.JProgressBar;
+
+import gov.nist.isg.mist.gui.StitchingGuiUtils;
+import gov.nist.isg.mist.gui.params.StitchingAppParams;
+import gov.nist.isg.mist.lib.common.CorrelationTriple;
+import gov.nist.isg.mist.lib.exceptions.EmptyGridException;
+import gov.nist.isg.mist.lib.imagetile.ImageTile;
+import gov.nist.isg.mist.lib.imagetile.Stitching;
+import gov.nist.isg.mist.lib.imagetile.memory.TileWorkerMemory;
+import gov.nist.isg.mist.lib.imagetile.memory.TileWorkerMemoryFactory;
+import gov.nist.isg.mist.lib.log.Log;
+import gov.nist.isg.mist.lib.log.Log.LogType;
+import gov.nist.isg.mist.lib.tilegrid.TileGrid;
+
+/**
+ * Time-series warm-start stitching executor.
+ *
+ * <p>Consecutive time slices of a time-lapse acquisition are imaged at nearly identical stage
+ * positions, so once a slice has been stitched its globally optimized north and west translations
+ * are recorded with {@link #recordPriors(TileGrid)} and used as priors for the next slice. Each
+ * pair of the next slice is then only evaluated with a normalized cross correlation hill climb
+ * ({@link Stitching#computeCCF_HillClimbing}) within a small window around its prior, and only the
+ * pairs whose correlation drops below the warm-start threshold fall back to a full phase
+ * correlation (PCIAM).</p>
+ *
+ * <p>Slices without usable priors (the first slice, or a grid whose layout changed) are stitched
+ * entirely by the wrapped executor.</p>
+ *
+ * @author Michael Majurski
+ */
+public class TemporalWarmStartExecutor<T> implements StitchingExecutorInterface<T> {
+
+  private StitchingExecutorInterface<T> executor;
+  private ExecutorService pool;
+  private volatile boolean isCanceled = false;
+
+  private int priorStartRow;
+  private int priorStartCol;
+  private CorrelationTriple[][] priorWest;
+  private CorrelationTriple[][] priorNorth;
+
+  /**
+   * Creates a warm-start executor around the executor used to stitch slices without priors.
+   *
+   * @param executor the executor used for the first slice and for the PCIAM fallback setup
+   */
+  public TemporalWarmStartExecutor(StitchingExecutorInterface<T> executor) {
+    this.executor = executor;
+  }
+
+  @Override
+  public TileGrid<ImageTile<T>> initGrid(StitchingAppParams params, int timeSlice)
+      throws FileNotFoundException, EmptyGridException {
+    return this.executor.initGrid(params, timeSlice);
+  }
+
+  @Override
+  public void cancelExecution() {
+    Log.msg(LogType.MANDATORY, "Canceling Temporal Warm-Start Executor");
+    this.isCanceled = true;
+    if (this.pool != null)
+      this.pool.shutdownNow();
+    this.executor.cancelExecution();
+  }
+
+  /**
+   * @return the executor that stitches the slices without priors
+   */
+  StitchingExecutorInterface<T> getInnerExecutor() {
+    return this.executor;
+  }
+
+  /**
+   * Replaces the executor that stitches the slices without priors, keeping the recorded priors.
+   * Used when the memory planner falls back to a low memory executor.
+   *
+   * @param executor the new executor
+   */
+  void setInnerExecutor(StitchingExecutorInterface<T> executor) {
+    this.executor = executor;
+  }
+
+  /**
+   * Checks if the warm start can wrap an executor. The PCIAM fallback allocates Java or FFTW
+   * worker memory, so executors producing other tile types (CUDA) are not supported.
+   *
+   * @param executor the executor that would be wrapped
+   * @return true if the executor produces Java or FFTW image tiles
+   */
+  public static boolean isSupported(StitchingExecutorInterface<?> executor) {
+    if (executor instanceof ShardedStitchingExecutor)
+      return isSupported(((ShardedStitchingExecutor<?>) executor).getInnerExecutor());
+
+    return executor instanceof JavaStitchingExecutor || executor instanceof FftwStitchingExecutor
+        || executor instanceof BandedJavaStitchingExecutor
+        || executor instanceof SequentialJavaStitchingExecutor;
+  }
+
+  @Override
+  public boolean checkForLibs(StitchingAppParams params, boolean displayGui) {
+    return this.executor.checkForLibs(params, displayGui);
+  }
+
+  @Override
+  public void cleanup() {
+    this.executor.cleanup();
+  }
+
+  @Override
+  public <T> boolean checkMemory(TileGrid<ImageTile<T>> grid, int numWorkers)
+      throws FileNotFoundException {
+    return this.executor.checkMemory(grid, numWorkers);
+  }
+
+  /**
+   * Records the globally optimized translations of a stitched slice as the priors for the next
+   * slice.
+   *
+   * @param grid the optimized grid of the slice that was just stitched
+   */
+  public void recordPriors(TileGrid<ImageTile<T>> grid) {
+    int height = grid.getExtentHeight();
+    int width = grid.getExtentWidth();
+    this.priorStartRow = grid.getStartRow();
+    this.priorStartCol = grid.getStartCol();
+    this.priorWest = new CorrelationTriple[height][width];
+    this.priorNorth = new CorrelationTriple[height][width];
+
+    for (int r = 0; r < height; r++) {
+      for (int c = 0; c < width; c++) {
+        ImageTile<T> t = grid.getSubGridTile(r, c);
+        if (t.getWestTranslation() != null)
+          this.priorWest[r][c] = t.getWestTranslation().clone();
+        if (t.getNorthTranslation() != null)
+          this.priorNorth[r][c] = t.getNorthTranslation().clone();
+      }
+    }
+  }
+
+  /**
+   * Discards the recorded priors so the next slice is stitched from scratch.
+   */
+  public void clearPriors() {
+    this.priorWest = null;
+    this.priorNorth = null;
+  }
+
+  private boolean hasPriors(TileGrid<ImageTile<T>> grid) {
+    return this.priorWest != null && this.priorStartRow == grid.getStartRow()
+        && this.priorStartCol == grid.getStartCol()
+        && this.priorWest.length == grid.getExtentHeight()
+        && this.priorWest[0].length == grid.getExtentWidth();
+  }
+
+  /**
+   * Stitches the grid from the priors of the previous slice, or with the wrapped executor if there
+   * are no usable priors.
+   *
+   * @param grid        the image tile grid
+   * @param params      the stitching application parameters
+   * @param progressBar the GUI progress bar
+   * @param timeSlice   the timeslice to stitch
+   */
+  @Override
+  public void launchStitching(final TileGrid<ImageTile<T>> grid, final StitchingAppParams params,
+                              final JProgressBar progressBar, int timeSlice) throws Throwable {
+    if (!hasPriors(grid)) {
+      Log.msg(LogType.MANDATORY, "No warm-start priors for timeslice " + timeSlice
+          + ", computing full phase correlation");
+      this.executor.launchStitching(grid, params, progressBar, timeSlice);
+      return;
+    }
+
+    final int radius = Math.max(1, params.getAdvancedParams().getWarmStartRadius());
+    final double threshold = params.getAdvancedParams().getWarmStartCorrThreshold();
+    int numThreads = Math.max(1, params.getAdvancedParams().getNumCPUThreads());
+
+    Log.msg(LogType.MANDATORY, "Warm-starting timeslice " + timeSlice + " from the previous "
+        + "slice's translations (radius: " + radius + ", threshold: " + threshold + ")");
+
+    // number of pairs each tile takes part in, so its pixels and fft are released after its last pair
+    final int height = grid.getExtentHeight();
+    final int width = grid.getExtentWidth();
+    final AtomicInteger[][] useCounts = new AtomicInteger[height][width];
+    for (int r = 0; r < height; r++) {
+      for (int c = 0; c < width; c++) {
+        int count = (r > 0 ? 1 : 0) + (r < height - 1 ? 1 : 0) + (c > 0 ? 1 : 0)
+            + (c < width - 1 ? 1 : 0);
+        useCounts[r][c] = new AtomicInteger(count);
+      }
+    }
+
+    final AtomicInteger numFallbacks = new AtomicInteger(0);
+    final ThreadLocal<TileWorkerMemory> memories = new ThreadLocal<TileWorkerMemory>();
+
+    List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+    for (int r = 0; r < height; r++) {
+      for (int c = 0; c < width; c++) {
+        final int row = r;
+        final int col = c;
+        tasks.add(new Callable<Void>() {
+          @Override
+          public Void call() throws Exception {
+            ImageTile<T> t = grid.getSubGridTile(row, col);
+
+            if (col > 0) {
+              ImageTile<T> west = grid.getSubGridTile(row, col - 1);
+              t.setWestTranslation(computePair(west, t, priorWest[row][col], radius, threshold,
+                  memories, numFallbacks));
+              Log.msgNoTime(LogType.HELPFUL, " warm_W(\"" + t.getFileName() + "\",\""
+                  + west.getFileName() + "\"): " + t.getWestTranslation());
+              release(west, useCounts[row][col - 1]);
+              release(t, useCounts[row][col]);
+              StitchingGuiUtils.incrementProgressBar(progressBar);
+            }
+
+            if (row > 0) {
+              ImageTile<T> north = grid.getSubGridTile(row - 1, col);
+              t.setNorthTranslation(computePair(north, t, priorNorth[row][col], radius, threshold,
+                  memories, numFallbacks));
+              Log.msgNoTime(LogType.HELPFUL, " warm_N(\"" + north.getFileName() + "\",\""
+                  + t.getFileName() + "\"): " + t.getNorthTranslation());
+              release(north, useCounts[row - 1][col]);
+              release(t, useCounts[row][col]);
+              StitchingGuiUtils.incrementProgressBar(progressBar);
+            }
+            return null;
+          }
+        });
+      }
+    }
+
+    this.isCanceled = false;
+    this.pool = Executors.newFixedThreadPool(numThreads);
+    try {
+      // tasks are submitted in row-major order so only a band of rows is held in memory
+      List<Future<Void>> futures = new ArrayList<Future<Void>>();
+      for (Callable<Void> task : tasks)
+        futures.add(this.pool.submit(task));
+      for (Future<Void> f : futures) {
+        if (this.isCanceled)
+          return;
+        f.get();
+      }
+    } finally {
+      this.pool.shutdownNow();
+    }
+
+    int numPairs = height * (width - 1) + width * (height - 1);
+    Log.msg(LogType.MANDATORY, "Warm-started " + (numPairs - numFallbacks.get()) + " of "
+        + numPairs + " pairs, " + numFallbacks.get() + " fell back to phase correlation");
+  }
+
+  /**
+   * Computes the translation of one pair by hill climbing the NCC around its prior, falling back to
+   * phase correlation if the prior is missing or the resulting correlation is below the threshold.
+   */
+  private CorrelationTriple computePair(ImageTile<T> neighbor, ImageTile<T> t,
+                                        CorrelationTriple prior, int radius, double threshold,
+                                        ThreadLocal<TileWorkerMemory> memories,
+                                        AtomicInteger numFallbacks) {
+    if (!t.fileExists() || !neighbor.fileExists())
+      return new CorrelationTriple(-1.0, 0, 0);
+
+    readTile(neighbor);
+    readTile(t);
+
+    if (prior != null) {
+      CorrelationTriple best = Stitching.computeCCF_HillClimbing(prior.getX() - radius,
+          prior.getX() + radius, prior.getY() - radius, prior.getY() + radius, prior.getX(),
+          prior.getY(), neighbor, t);
+      if (!Double.isNaN(best.getCorrelation()) && best.getCorrelation() >= threshold)
+        return best;
+    }
+
+    numFallbacks.incrementAndGet();
+    TileWorkerMemory memory = memories.get();
+    if (memory == null) {
+      memory = TileWorkerMemoryFactory.makeTileWorkerMemory(t);
+      memories.set(memory);
+    }
+
+    computeFft(neighbor);
+    computeFft(t);
+    return Stitching.phaseCorrelationImageAlignment(neighbor, t, memory);
+  }
+
+  private static void readTile(ImageTile<?> tile) {
+    synchronized (tile) {
+      tile.readTile();
+    }
+  }
+
+  private static void computeFft(ImageTile<?> tile) {
+    synchronized (tile) {
+      if (!tile.hasFft())
+        tile.computeFft();
+    }
+  }
+
+  private static void release(ImageTile<?> tile, AtomicInteger useCount) {
+    if (useCount.decrementAndGet() == 0) {
+      synchronized (tile) {
+        if (tile.hasFft())
+          tile.releaseFftMemory();
+        tile.releasePixels();
+      }
+    }
+  }
+
+}
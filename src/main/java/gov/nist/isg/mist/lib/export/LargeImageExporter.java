@@ -25,6 +25,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
+import java.util.UUID;
 
 import javax.imageio.ImageIO;
 import javax.imageio.ImageWriteParam;
@@ -60,6 +61,7 @@ import ome.units.quantity.Length;
 import ome.units.unit.Unit;
 import ome.xml.model.enums.DimensionOrder;
 import ome.xml.model.enums.PixelType;
+import ome.xml.model.primitives.NonNegativeInteger;
 import ome.xml.model.primitives.PositiveInteger;
 
 /**
@@ -89,6 +91,7 @@ public class LargeImageExporter<T> {
 
   private int imageType;
   private double alpha;
+  private int parallelWriterThreads;
 
   /**
    * Creates a large image exporter with a specific blending function
@@ -128,6 +131,18 @@ public class LargeImageExporter<T> {
     this.alpha = alpha;
     this.compressionMode = compressionMode;
     this.isCancelled = false;
+    this.parallelWriterThreads = 0;
+  }
+
+  /**
+   * Sets the number of threads used to compress output tiles. If greater than zero and the
+   * compression mode is supported, then the image is written with the ParallelBigTiffWriter
+   * instead of the Bio-Formats OMETiffWriter.
+   *
+   * @param parallelWriterThreads the number of compression threads, 0 to disable
+   */
+  public void setParallelWriterThreads(int parallelWriterThreads) {
+    this.parallelWriterThreads = parallelWriterThreads;
   }
 
   private File doExport(File file, boolean withOverlap) {
@@ -191,19 +206,8 @@ public class LargeImageExporter<T> {
     int imageTileWidth = tileThatExists.getWidth();
     int imageTileHeight = tileThatExists.getHeight();
 
-    switch(this.blendingMode)
-    {
-      case OVERLAY:
-        tileBlender = new TileOverlayBlend(numBytesPerChannel, this.imageType);
-        break;
-      case AVERAGE:
-        tileBlender = new TileAverageBlend(numBytesPerChannel, this.imageType);
-        break;
-      case LINEAR:
-
-        tileBlender = new TileLinearBlend(numBytesPerChannel, this.imageType, imageTileWidth, imageTileHeight, this.alpha);
-        break;
-    }
+    tileBlender = createTileBlender(this.blendingMode, numBytesPerChannel, this.imageType, imageTileWidth,
+        imageTileHeight, this.alpha);
 
     StitchingGuiUtils.updateProgressBar(this.progressBar, false, null, "Blending tiles...", 0,
             numTilesRow * numTilesCol, 0, false);
@@ -246,17 +250,50 @@ public class LargeImageExporter<T> {
       omexml.setPixelsPhysicalSizeY(physicalSizeY, 0);
       omexml.setPixelsPhysicalSizeZ(physicalSizeZ, 0);
 
-      OMETiffWriter omeTiffWriter = new OMETiffWriter();
-      omeTiffWriter.setMetadataRetrieve(omexml);
-      omeTiffWriter.setInterleaved(interleaved);
-      omeTiffWriter.setBigTiff(true);
-      omeTiffWriter.setCompression(this.compressionMode.getCompressionName());
-
+      boolean useParallelWriter = this.parallelWriterThreads > 0 && this.tileDim % 16 == 0 &&
+          ParallelBigTiffWriter.isSupported(this.compressionMode);
 
-      int actualTileSizeX = omeTiffWriter.setTileSizeX(this.tileDim);
-      int actualTileSizeY = omeTiffWriter.setTileSizeY(this.tileDim);
+      if (this.parallelWriterThreads > 0 && !useParallelWriter) {
+        Log.msg(LogType.INFO, "Parallel tile writer does not support " + this.compressionMode
+            + " compression, using Bio-Formats writer");
+      }
 
-      omeTiffWriter.setId(filePath);
+      OMETiffWriter omeTiffWriter = null;
+      ParallelBigTiffWriter parallelWriter = null;
+      int actualTileSizeX;
+      int actualTileSizeY;
+
+      if (useParallelWriter) {
+        // Add the TiffData block that the OMETiffWriter would add for the single plane
+        String uuid = "urn:uuid:" + UUID.randomUUID().toString();
+        omexml.setUUID(uuid);
+        omexml.setTiffDataIFD(new NonNegativeInteger(0), 0, 0);
+        omexml.setTiffDataFirstC(new NonNegativeInteger(0), 0, 0);
+        omexml.setTiffDataFirstZ(new NonNegativeInteger(0), 0, 0);
+        omexml.setTiffDataFirstT(new NonNegativeInteger(0), 0, 0);
+        omexml.setTiffDataPlaneCount(new NonNegativeInteger(1), 0, 0);
+        omexml.setUUIDFileName(outputFile.getName(), 0, 0);
+        omexml.setUUIDValue(uuid, 0, 0);
+
+        actualTileSizeX = this.tileDim;
+        actualTileSizeY = this.tileDim;
+
+        parallelWriter = new ParallelBigTiffWriter(outputFile, this.imageWidth, this.imageHeight,
+            actualTileSizeX, actualTileSizeY, samplesPerChannel, numBytesPerChannel, pixelType == PixelType.FLOAT,
+            this.compressionMode, service.getOMEXML(omexml), this.parallelWriterThreads);
+      } else {
+        omeTiffWriter = new OMETiffWriter();
+        omeTiffWriter.setMetadataRetrieve(omexml);
+        omeTiffWriter.setInterleaved(interleaved);
+        omeTiffWriter.setBigTiff(true);
+        omeTiffWriter.setCompression(this.compressionMode.getCompressionName());
+
+
+        actualTileSizeX = omeTiffWriter.setTileSizeX(this.tileDim);
+        actualTileSizeY = omeTiffWriter.setTileSizeY(this.tileDim);
+
+        omeTiffWriter.setId(filePath);
+      }
 
       long initTime = 0L;
       long blendCallTime = 0L;
@@ -295,8 +332,11 @@ public class LargeImageExporter<T> {
           long startBlendTime = System.currentTimeMillis();
 
           for (ImageTile<T> tile : sortedTileList) {
-            if (this.isCancelled)
+            if (this.isCancelled) {
+              if (parallelWriter != null)
+                parallelWriter.cancel();
               return file;
+            }
 
             int absX = tile.getCol() * imageTileWidth;
             int absY = tile.getRow() * imageTileHeight;
@@ -370,7 +410,10 @@ public class LargeImageExporter<T> {
 
 
           long startPostProc = System.currentTimeMillis();
-          tileBlender.postProcess(tileStartX, tileStartY, writeXSize, writeYSize, omeTiffWriter);
+          if (parallelWriter != null)
+            parallelWriter.writeTile(tileStartX, tileStartY, writeXSize, writeYSize, tileBlender.finalizeTile());
+          else
+            tileBlender.postProcess(tileStartX, tileStartY, writeXSize, writeYSize, omeTiffWriter);
           postProcessTime += System.currentTimeMillis() - startPostProc;
           StitchingGuiUtils.incrementProgressBar(this.progressBar);
         }
@@ -380,7 +423,10 @@ public class LargeImageExporter<T> {
 
       StitchingGuiUtils.updateProgressBar(this.progressBar, true, "Finalizing Write");
       long startClose = System.currentTimeMillis();
-      omeTiffWriter.close();
+      if (parallelWriter != null)
+        parallelWriter.close();
+      else
+        omeTiffWriter.close();
       closeTime += System.currentTimeMillis() - startClose;
 
       Log.msg(LogType.MANDATORY, "Blending Profile: Init Time: " + initTime + " Blend Time: " + blendTime + " Blend Call Time: " + blendCallTime +  " Post Proccess Time: " + postProcessTime + " Closing Time: " + closeTime);
@@ -430,6 +476,31 @@ public class LargeImageExporter<T> {
     this.isCancelled = true;
   }
 
+  /**
+   * Creates the tile blender for a blending mode
+   *
+   * @param blendingMode       the blending mode
+   * @param numBytesPerChannel the number of bytes per pixel
+   * @param imageType          the type of image
+   * @param imageTileWidth     the width of the image tiles being blended
+   * @param imageTileHeight    the height of the image tiles being blended
+   * @param alpha              the alpha value for linear blend
+   * @return the tile blender
+   */
+  static TileBlender createTileBlender(BlendingMode blendingMode, int numBytesPerChannel, int imageType,
+                                       int imageTileWidth, int imageTileHeight, double alpha) {
+    switch(blendingMode)
+    {
+      case AVERAGE:
+        return new TileAverageBlend(numBytesPerChannel, imageType);
+      case LINEAR:
+        return new TileLinearBlend(numBytesPerChannel, imageType, imageTileWidth, imageTileHeight, alpha);
+      case OVERLAY:
+      default:
+        return new TileOverlayBlend(numBytesPerChannel, imageType);
+    }
+  }
+
   /**
    * Exports an image to disk, or if file is null then returns the ImagePlus object associated with
    * the export
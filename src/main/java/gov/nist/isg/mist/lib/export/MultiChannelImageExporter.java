@@ -0,0 +1,420 @@
+// NIST-developed software is provided by NIST as a public service. You may use, copy and distribute copies of the software in any medium, provided that you keep intact this entire notice. You may improve, modify and create derivative works of the software or any portion of the software, and you may copy and distribute such modifications or works. Modified works should carry a notice stating that you changed the software and should note the date and nature of any such change. Please explicitly acknowledge the National Institute of Standards and Technology as the source of the software.
+
+// NIST-developed software is expressly provided "AS IS." NIST MAKES NO WARRANTY OF ANY KIND, EXPRESS, IMPLIED, IN FACT OR ARISING BY OPERATION OF LAW, INCLUDING, WITHOUT LIMITATION, THE IMPLIED WARRANTY OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE, NON-INFRINGEMENT AND DATA ACCURACY. NIST NEITHER REPRESENTS NOR WARRANTS THAT THE OPERATION OF THE SOFTWARE WILL BE UNINTERRUPTED OR ERROR-FREE, OR THAT ANY DEFECTS WILL BE CORRECTED. NIST DOES NOT WARRANT OR MAKE ANY REPRESENTATIONS REGARDING THE USE OF THE SOFTWARE OR THE RESULTS THEREOF, INCLUDING BUT NOT LIMITED TO THE CORRECTNESS, ACCURACY, RELIABILITY, OR USEFULNESS OF THE SOFTWARE.
+
+// You are solely responsible for determining the appropriateness of using and distributing the software and you assume all risks associated with its use, including but not limited to the risks and costs of program errors, compliance with applicable laws, damage to or loss of data, programs or equipment, and the unavailability or interruption of operation. This software is not intended to be used in any situation where a failure could cause risk of injury or damage to property. The software developed by NIST employees is not subject to copyright protection within the United States.
+
+
+
+// ================================================================
+//
+// Author: tjb3
+// Date: Oct 19, 2026 4:48:20 PM EST
+//
+// Time-stamp: <Oct 19, 2026 4:48:20 PM tjb3>
+//
+//
+// ================================================================
+
+package gov.nist.isg.mist.lib.export;
+
+import java.awt.Rectangle;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.swing.JProgressBar;
+
+import gov.nist.isg.mist.gui.StitchingGuiUtils;
+import gov.nist.isg.mist.lib.common.Array2DView;
+import gov.nist.isg.mist.lib.export.tileblender.TileBlender;
+import gov.nist.isg.mist.lib.imagetile.ImageTile;
+import gov.nist.isg.mist.lib.log.Log;
+import gov.nist.isg.mist.lib.log.Log.LogType;
+import gov.nist.isg.mist.lib.tilegrid.TileGrid;
+import ij.ImagePlus;
+import loci.common.services.DependencyException;
+import loci.common.services.ServiceException;
+import loci.common.services.ServiceFactory;
+import loci.formats.meta.IMetadata;
+import loci.formats.services.OMEXMLService;
+import ome.units.quantity.Length;
+import ome.units.unit.Unit;
+import ome.xml.model.enums.DimensionOrder;
+import ome.xml.model.enums.PixelType;
+import ome.xml.model.primitives.NonNegativeInteger;
+import ome.xml.model.primitives.PositiveInteger;
+
+/**
+ * Exports several channels (or planes) that share one set of positions into a single
+ * multi-channel OME-TIFF in one pass. The tile buckets and the tile/output intersections are
+ * computed once from the reference grid and shared by every channel. Each channel is blended on
+ * its own thread so the reads of all channels overlap, and the blended tiles are handed to a
+ * ParallelBigTiffWriter with one plane per channel.
+ *
+ * @author Tim Blattner
+ * @version 1.0
+ */
+public class MultiChannelImageExporter<T> {
+
+  /**
+   * The portion of an image tile that is blended into an output tile
+   */
+  private static class BlendRegion {
+    private final int row;
+    private final int col;
+    private final int tileX;
+    private final int tileY;
+    private final int viewX;
+    private final int viewY;
+    private final int width;
+    private final int height;
+
+    BlendRegion(int row, int col, int tileX, int tileY, int viewX, int viewY, int width, int height) {
+      this.row = row;
+      this.col = col;
+      this.tileX = tileX;
+      this.tileY = tileY;
+      this.viewX = viewX;
+      this.viewY = viewY;
+      this.width = width;
+      this.height = height;
+    }
+  }
+
+  private TileGrid<ImageTile<T>> referenceGrid;
+  private List<TileGrid<ImageTile<T>>> channelGrids;
+  private List<String> channelNames;
+  private int tileDim;
+  private int imageType;
+  private int imageWidth;
+  private int imageHeight;
+  private BlendingMode blendingMode;
+  private CompressionMode compressionMode;
+  private MicroscopyUnits unit;
+  private double unitX;
+  private double unitY;
+  private double alpha;
+  private int numThreads;
+  private JProgressBar progressBar;
+  private volatile boolean isCancelled;
+  private ExecutorService executor;
+
+  /**
+   * Creates a multi-channel exporter
+   *
+   * @param referenceGrid   the grid whose absolute positions are used for every channel
+   * @param channelGrids    the grids of each channel, with the same layout as the reference grid
+   * @param channelNames    the name of each channel
+   * @param tileDim         the dimension of the output tiles
+   * @param imageType       the type of image (must be a grayscale type)
+   * @param width           the width of the final image
+   * @param height          the height of the final image
+   * @param blendingMode    the blending mode
+   * @param compressionMode the compression mode
+   * @param unit            the microscopy unit to save in metadata
+   * @param unitX           the x size based around unit
+   * @param unitY           the y size based around unit
+   * @param alpha           the alpha value for linear blend
+   * @param numThreads      the number of compression threads
+   * @param progressBar     the progress bar
+   */
+  public MultiChannelImageExporter(TileGrid<ImageTile<T>> referenceGrid, List<TileGrid<ImageTile<T>>> channelGrids,
+                                   List<String> channelNames, int tileDim, int imageType, int width, int height,
+                                   BlendingMode blendingMode, CompressionMode compressionMode, MicroscopyUnits unit,
+                                   double unitX, double unitY, double alpha, int numThreads,
+                                   JProgressBar progressBar) {
+    if (imageType == ImagePlus.COLOR_RGB)
+      throw new IllegalArgumentException("Multi-channel export requires grayscale channels");
+    if (channelGrids.size() != channelNames.size())
+      throw new IllegalArgumentException("Each channel grid requires a channel name");
+
+    this.referenceGrid = referenceGrid;
+    this.channelGrids = channelGrids;
+    this.channelNames = channelNames;
+    this.tileDim = tileDim;
+    this.imageType = imageType;
+    this.imageWidth = width;
+    this.imageHeight = height;
+    this.blendingMode = blendingMode;
+    this.compressionMode = compressionMode;
+    this.unit = unit;
+    this.unitX = unitX;
+    this.unitY = unitY;
+    this.alpha = alpha;
+    this.numThreads = Math.max(1, numThreads);
+    this.progressBar = progressBar;
+    this.isCancelled = false;
+  }
+
+  /**
+   * Copies the absolute positions and correlations of the reference grid onto another grid with
+   * the same layout
+   *
+   * @param reference the grid with absolute positions
+   * @param target    the grid to update
+   */
+  public static <T> void applyPositions(TileGrid<ImageTile<T>> reference, TileGrid<ImageTile<T>> target) {
+    for (int r = 0; r < reference.getExtentHeight(); r++) {
+      for (int c = 0; c < reference.getExtentWidth(); c++) {
+        ImageTile<T> ref = reference.getSubGridTile(r, c);
+        ImageTile<T> tile = target.getSubGridTile(r, c);
+        tile.setAbsXPos(ref.getAbsXPos());
+        tile.setAbsYPos(ref.getAbsYPos());
+        tile.setTileCorrelation(ref.getTileCorrelation());
+      }
+    }
+  }
+
+  /**
+   * Exports the channels into a single OME-TIFF
+   *
+   * @param file the file to write
+   * @return the file that was written or null if cancelled
+   * @throws IOException if writing fails
+   */
+  public File exportImage(File file) throws IOException {
+    if (file.exists() && !file.delete()) {
+      Log.msg(LogType.INFO, "Failed to delete existing file: " + file.getAbsolutePath());
+    }
+
+    int bytesPerPixel;
+    PixelType pixelType;
+    switch (this.imageType) {
+      case ImagePlus.GRAY8:
+        bytesPerPixel = 1;
+        pixelType = PixelType.UINT8;
+        break;
+      case ImagePlus.GRAY16:
+        bytesPerPixel = 2;
+        pixelType = PixelType.UINT16;
+        break;
+      case ImagePlus.GRAY32:
+      default:
+        bytesPerPixel = 4;
+        pixelType = PixelType.FLOAT;
+        break;
+    }
+
+    CompressionMode writerCompression = this.compressionMode;
+    if (!ParallelBigTiffWriter.isSupported(writerCompression)) {
+      Log.msg(LogType.MANDATORY, "Multi-channel export does not support " + writerCompression
+          + " compression, writing uncompressed");
+      writerCompression = CompressionMode.UNCOMPRESSED;
+    }
+
+    final int numTilesRow = (this.imageHeight + this.tileDim - 1) / this.tileDim;
+    final int numTilesCol = (this.imageWidth + this.tileDim - 1) / this.tileDim;
+    final int numChannels = this.channelGrids.size();
+
+    ImageTile<T> tileThatExists = this.referenceGrid.getTileThatExists();
+    tileThatExists.readTile();
+    final int imageTileWidth = tileThatExists.getWidth();
+    final int imageTileHeight = tileThatExists.getHeight();
+
+    // Shared by all channels: buckets and intersections are computed once
+    final List<List<BlendRegion>> regions = computeBlendRegions(numTilesRow, numTilesCol, imageTileWidth,
+        imageTileHeight);
+
+    String omeXml = createOmeXml(file, pixelType, numChannels);
+
+    final ParallelBigTiffWriter writer = new ParallelBigTiffWriter(file, numChannels, this.imageWidth,
+        this.imageHeight, this.tileDim, this.tileDim, 1, bytesPerPixel, pixelType == PixelType.FLOAT,
+        writerCompression, omeXml, this.numThreads);
+
+    StitchingGuiUtils.updateProgressBar(this.progressBar, false, null, "Blending " + numChannels + " channels...",
+        0, numTilesRow * numTilesCol * numChannels, 0, false);
+
+    long startTime = System.currentTimeMillis();
+    final int pixelBytes = bytesPerPixel;
+
+    this.executor = Executors.newFixedThreadPool(numChannels);
+    try {
+      List<Future<Void>> futures = new ArrayList<Future<Void>>();
+      for (int channel = 0; channel < numChannels; channel++) {
+        final int plane = channel;
+        futures.add(this.executor.submit(new Callable<Void>() {
+          @Override
+          public Void call() throws Exception {
+            TileBlender tileBlender = LargeImageExporter.createTileBlender(blendingMode, pixelBytes, imageType,
+                imageTileWidth, imageTileHeight, alpha);
+            blendChannel(plane, tileBlender, regions, numTilesRow, numTilesCol, writer);
+            return null;
+          }
+        }));
+      }
+
+      for (Future<Void> future : futures) {
+        try {
+          future.get();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          this.isCancelled = true;
+        } catch (ExecutionException e) {
+          writer.cancel();
+          if (e.getCause() instanceof IOException)
+            throw (IOException) e.getCause();
+          throw new IOException("Failed to blend channel: " + e.getCause(), e.getCause());
+        }
+      }
+    } finally {
+      this.executor.shutdownNow();
+    }
+
+    if (this.isCancelled) {
+      writer.cancel();
+      return null;
+    }
+
+    StitchingGuiUtils.updateProgressBar(this.progressBar, true, "Finalizing Write");
+    writer.close();
+
+    Log.msg(LogType.MANDATORY, "Exported " + numChannels + " channels in "
+        + (System.currentTimeMillis() - startTime) + " ms");
+
+    return file;
+  }
+
+  /**
+   * Cancels the export
+   */
+  public void cancel() {
+    this.isCancelled = true;
+  }
+
+  private List<List<BlendRegion>> computeBlendRegions(int numTilesRow, int numTilesCol, int imageTileWidth,
+                                                      int imageTileHeight) {
+    TileBuckets<T> tileBuckets = new TileBuckets<T>(numTilesRow, numTilesCol, this.tileDim, this.tileDim, true);
+    tileBuckets.addTiles(this.referenceGrid);
+
+    List<List<BlendRegion>> regions = new ArrayList<List<BlendRegion>>(numTilesRow * numTilesCol);
+    for (int tileRow = 0; tileRow < numTilesRow; ++tileRow) {
+      int tileStartY = tileRow * this.tileDim;
+      int tileSizeY = Math.min(this.tileDim, this.imageHeight - tileStartY);
+
+      for (int tileCol = 0; tileCol < numTilesCol; ++tileCol) {
+        int tileStartX = tileCol * this.tileDim;
+        int tileSizeX = Math.min(this.tileDim, this.imageWidth - tileStartX);
+
+        Rectangle tileRect = new Rectangle(tileStartX, tileStartY, tileSizeX, tileSizeY);
+        List<BlendRegion> tileRegions = new ArrayList<BlendRegion>();
+
+        // sorted from lowest to highest correlation
+        for (ImageTile<T> tile : tileBuckets.getPotentialOverlapTiles(tileRow, tileCol)) {
+          int absX = tile.getAbsXPos();
+          int absY = tile.getAbsYPos();
+
+          Rectangle intersect = tileRect.intersection(new Rectangle(absX, absY, imageTileWidth, imageTileHeight));
+          if (intersect.width <= 0 || intersect.height <= 0)
+            continue;
+
+          int copyWidth = Math.min(intersect.width, this.imageWidth - intersect.x);
+          int copyHeight = Math.min(intersect.height, this.imageHeight - intersect.y);
+
+          int tileX = intersect.x - tileStartX;
+          int tileY = intersect.y - tileStartY;
+          int viewX = intersect.x - absX;
+          int viewY = intersect.y - absY;
+
+          if (tileX < 0 || tileY < 0 || viewX < 0 || viewY < 0)
+            continue;
+
+          tileRegions.add(new BlendRegion(tile.getRow(), tile.getCol(), tileX, tileY, viewX, viewY, copyWidth,
+              copyHeight));
+        }
+
+        regions.add(tileRegions);
+      }
+    }
+
+    return regions;
+  }
+
+  private void blendChannel(int channel, TileBlender tileBlender, List<List<BlendRegion>> regions, int numTilesRow,
+                            int numTilesCol, ParallelBigTiffWriter writer) throws IOException {
+    TileGrid<ImageTile<T>> grid = this.channelGrids.get(channel);
+
+    for (int tileRow = 0; tileRow < numTilesRow; ++tileRow) {
+      int tileStartY = tileRow * this.tileDim;
+      int tileSizeY = Math.min(this.tileDim, this.imageHeight - tileStartY);
+
+      for (int tileCol = 0; tileCol < numTilesCol; ++tileCol) {
+        if (this.isCancelled)
+          return;
+
+        int tileStartX = tileCol * this.tileDim;
+        int tileSizeX = Math.min(this.tileDim, this.imageWidth - tileStartX);
+
+        tileBlender.init(tileSizeX, tileSizeY);
+
+        for (BlendRegion region : regions.get(tileRow * numTilesCol + tileCol)) {
+          ImageTile<T> tile = grid.getTile(region.row, region.col);
+          if (!tile.fileExists())
+            continue;
+
+          tile.readTile();
+          Array2DView arrayView = new Array2DView(tile, region.viewY, region.height, region.viewX, region.width);
+          tileBlender.blend(region.tileX, region.tileY, arrayView, tile);
+          tile.releasePixels();
+        }
+
+        writer.writeTile(channel, tileStartX, tileStartY, tileSizeX, tileSizeY, tileBlender.finalizeTile());
+        StitchingGuiUtils.incrementProgressBar(this.progressBar);
+      }
+    }
+  }
+
+  private String createOmeXml(File file, PixelType pixelType, int numChannels) throws IOException {
+    try {
+      ServiceFactory factory = new ServiceFactory();
+      OMEXMLService service = factory.getInstance(OMEXMLService.class);
+      IMetadata omexml = service.createOMEXMLMetadata();
+
+      omexml.setImageID("Image:0", 0);
+      omexml.setPixelsID("Pixels:0", 0);
+      omexml.setPixelsBinDataBigEndian(Boolean.TRUE, 0, 0);
+      omexml.setPixelsDimensionOrder(DimensionOrder.XYCZT, 0);
+      omexml.setPixelsType(pixelType, 0);
+      omexml.setPixelsSizeX(new PositiveInteger(this.imageWidth), 0);
+      omexml.setPixelsSizeY(new PositiveInteger(this.imageHeight), 0);
+      omexml.setPixelsSizeZ(new PositiveInteger(1), 0);
+      omexml.setPixelsSizeC(new PositiveInteger(numChannels), 0);
+      omexml.setPixelsSizeT(new PositiveInteger(1), 0);
+
+      String uuid = "urn:uuid:" + UUID.randomUUID().toString();
+      omexml.setUUID(uuid);
+
+      for (int channel = 0; channel < numChannels; channel++) {
+        omexml.setChannelID("Channel:0:" + channel, 0, channel);
+        omexml.setChannelName(this.channelNames.get(channel), 0, channel);
+        omexml.setChannelSamplesPerPixel(new PositiveInteger(1), 0, channel);
+
+        omexml.setTiffDataIFD(new NonNegativeInteger(channel), 0, channel);
+        omexml.setTiffDataFirstC(new NonNegativeInteger(channel), 0, channel);
+        omexml.setTiffDataFirstZ(new NonNegativeInteger(0), 0, channel);
+        omexml.setTiffDataFirstT(new NonNegativeInteger(0), 0, channel);
+        omexml.setTiffDataPlaneCount(new NonNegativeInteger(1), 0, channel);
+        omexml.setUUIDFileName(file.getName(), 0, channel);
+        omexml.setUUIDValue(uuid, 0, channel);
+      }
+
+      Unit<Length> lengthUnit = this.unit.getUnit();
+      omexml.setPixelsPhysicalSizeX(new Length(this.unitX, lengthUnit), 0);
+      omexml.setPixelsPhysicalSizeY(new Length(this.unitY, lengthUnit), 0);
+      omexml.setPixelsPhysicalSizeZ(new Length(1.0, lengthUnit), 0);
+
+      return service.getOMEXML(omexml);
+    } catch (DependencyException e) {
+      throw new IOException("Unable to create OME-XML metadata: " + e.getMessage(), e);
+    } catch (ServiceException e) {
+      throw new IOException("Unable to create OME-XML metadata: " + e.getMessage(), e);
+    }
+  }
+}
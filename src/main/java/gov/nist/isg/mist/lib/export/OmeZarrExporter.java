@@ -0,0 +1,682 @@
+// NIST-developed software is provided by NIST as a public service. You may use, copy and distribute copies of the software in any medium, provided that you keep intact this entire notice. You may improve, modify and create derivative works of the software or any portion of the software, and you may copy and distribute such modifications or works. Modified works should carry a notice stating that you changed the software and should note the date and nature of any such change. Please explicitly acknowledge the National Institute of Standards and Technology as the source of the software.
+
+// NIST-developed software is expressly provided "AS IS." NIST MAKES NO WARRANTY OF ANY KIND, EXPRESS, IMPLIED, IN FACT OR ARISING BY OPERATION OF LAW, INCLUDING, WITHOUT LIMITATION, THE IMPLIED WARRANTY OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE, NON-INFRINGEMENT AND DATA ACCURACY. NIST NEITHER REPRESENTS NOR WARRANTS THAT THE OPERATION OF THE SOFTWARE WILL BE UNINTERRUPTED OR ERROR-FREE, OR THAT ANY DEFECTS WILL BE CORRECTED. NIST DOES NOT WARRANT OR MAKE ANY REPRESENTATIONS REGARDING THE USE OF THE SOFTWARE OR THE RESULTS THEREOF, INCLUDING BUT NOT LIMITED TO THE CORRECTNESS, ACCURACY, RELIABILITY, OR USEFULNESS OF THE SOFTWARE.
+
+// You are solely responsible for determining the appropriateness of using and distributing the software and you assume all risks associated with its use, including but not limited to the risks and costs of program errors, compliance with applicable laws, damage to or loss of data, programs or equipment, and the unavailability or interruption of operation. This software is not intended to be used in any situation where a failure could cause risk of injury or damage to property. The software developed by NIST employees is not subject to copyright protection within the United States.
+
+
+
+// ================================================================
+//
+// Author: tjb3
+// Date: Oct 19, 2026 1:37:02 PM EST
+//
+// Time-stamp: <Oct 19, 2026 1:37:02 PM tjb3>
+//
+//
+// ================================================================
+
+package gov.nist.isg.mist.lib.export;
+
+import java.awt.Rectangle;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import javax.swing.JProgressBar;
+
+import gov.nist.isg.mist.gui.StitchingGuiUtils;
+import gov.nist.isg.mist.lib.common.Array2DView;
+import gov.nist.isg.mist.lib.export.tileblender.TileBlender;
+import gov.nist.isg.mist.lib.imagetile.ImageTile;
+import gov.nist.isg.mist.lib.log.Log;
+import gov.nist.isg.mist.lib.log.Log.LogType;
+import gov.nist.isg.mist.lib.tilegrid.TileGrid;
+import ij.ImagePlus;
+
+/**
+ * Exports the stitched image as a chunked OME-Zarr (NGFF 0.4, Zarr v2) image. Each output tile
+ * is blended with the same TileBuckets and TileBlender implementations as the LargeImageExporter
+ * and written as an independent chunk file, with chunks blended and written concurrently. Lower
+ * resolution levels are built from the previous level until the image fits into a single chunk.
+ *
+ * @author Tim Blattner
+ * @version 1.0
+ */
+public class OmeZarrExporter<T> {
+
+  private static final String NGFF_VERSION = "0.4";
+  private static final int ZLIB_LEVEL = 5;
+
+  private TileGrid<ImageTile<T>> grid;
+  private int tileDim;
+  private int imageType;
+  private int imageWidth;
+  private int imageHeight;
+  private BlendingMode blendingMode;
+  private CompressionMode compressionMode;
+  private MicroscopyUnits unit;
+  private double unitX;
+  private double unitY;
+  private double alpha;
+  private int numThreads;
+  private JProgressBar progressBar;
+  private volatile boolean isCancelled;
+
+  private int numChannels;
+  private int bytesPerSample;
+  private int bytesPerPixel;
+  private String dtype;
+  private boolean compress;
+
+  private File outputDir;
+  private TileBuckets<T> tileBuckets;
+  private Map<ImageTile<T>, AtomicInteger> remainingTileUses;
+  private int imageTileWidth;
+  private int imageTileHeight;
+  private ExecutorService executor;
+
+  /**
+   * Creates an OME-Zarr exporter
+   *
+   * @param grid            the grid of images
+   * @param tileDim         the chunk dimension (width and height)
+   * @param imageType       the type of image
+   * @param width           the width of the final image
+   * @param height          the height of the final image
+   * @param blendingMode    the blending mode
+   * @param compressionMode the compression mode, any mode other than uncompressed writes zlib chunks
+   * @param unit            the microscopy unit to save in metadata
+   * @param unitX           the x size based around unit
+   * @param unitY           the y size based around unit
+   * @param alpha           the alpha value for linear blend
+   * @param numThreads      the number of threads blending and writing chunks
+   * @param progressBar     the progress bar
+   */
+  public OmeZarrExporter(TileGrid<ImageTile<T>> grid, int tileDim, int imageType, int width, int height,
+                         BlendingMode blendingMode, CompressionMode compressionMode, MicroscopyUnits unit,
+                         double unitX, double unitY, double alpha, int numThreads, JProgressBar progressBar) {
+    this.grid = grid;
+    this.tileDim = tileDim;
+    this.imageType = imageType;
+    this.imageWidth = width;
+    this.imageHeight = height;
+    this.blendingMode = blendingMode;
+    this.compressionMode = compressionMode;
+    this.unit = unit;
+    this.unitX = unitX;
+    this.unitY = unitY;
+    this.alpha = alpha;
+    this.numThreads = Math.max(1, numThreads);
+    this.progressBar = progressBar;
+    this.isCancelled = false;
+
+    switch (imageType) {
+      case ImagePlus.GRAY8:
+        this.numChannels = 1;
+        this.bytesPerSample = 1;
+        this.dtype = "|u1";
+        break;
+      case ImagePlus.GRAY16:
+        this.numChannels = 1;
+        this.bytesPerSample = 2;
+        this.dtype = ">u2";
+        break;
+      case ImagePlus.COLOR_RGB:
+        this.numChannels = 3;
+        this.bytesPerSample = 1;
+        this.dtype = "|u1";
+        break;
+      case ImagePlus.GRAY32:
+      default:
+        this.numChannels = 1;
+        this.bytesPerSample = 4;
+        this.dtype = ">f4";
+        break;
+    }
+    this.bytesPerPixel = this.numChannels * this.bytesPerSample;
+    this.compress = compressionMode != CompressionMode.UNCOMPRESSED;
+  }
+
+  /**
+   * Exports the image into an OME-Zarr directory, replacing any existing directory
+   *
+   * @param dir the OME-Zarr directory (typically ending in .ome.zarr)
+   * @return the directory that was written
+   * @throws IOException if writing a chunk or the metadata fails
+   */
+  public File exportImage(File dir) throws IOException {
+    this.outputDir = dir;
+
+    if (dir.exists() && !deleteDirectory(dir)) {
+      Log.msg(LogType.INFO, "Failed to delete existing directory: " + dir.getAbsolutePath());
+    }
+
+    if (!dir.mkdirs() && !dir.isDirectory())
+      throw new IOException("Unable to create directory: " + dir.getAbsolutePath());
+
+    if (this.compress && this.compressionMode != CompressionMode.ZLIB) {
+      Log.msg(LogType.INFO, "OME-Zarr export writes " + this.compressionMode + " compression as zlib chunks");
+    }
+
+    final int numTilesRow = (this.imageHeight + this.tileDim - 1) / this.tileDim;
+    final int numTilesCol = (this.imageWidth + this.tileDim - 1) / this.tileDim;
+
+    this.tileBuckets = new TileBuckets<T>(numTilesRow, numTilesCol, this.tileDim, this.tileDim, true);
+    this.tileBuckets.addTiles(this.grid);
+
+    ImageTile<T> tileThatExists = this.grid.getTileThatExists();
+    tileThatExists.readTile();
+    this.imageTileWidth = tileThatExists.getWidth();
+    this.imageTileHeight = tileThatExists.getHeight();
+
+    this.remainingTileUses = countTileUses(numTilesRow, numTilesCol);
+
+    int numLevels = getNumLevels();
+
+    writeGroupMetadata(numLevels);
+    for (int level = 0; level < numLevels; level++)
+      writeArrayMetadata(level);
+
+    int numChunks = 0;
+    for (int level = 0; level < numLevels; level++)
+      numChunks += getNumChunksRow(level) * getNumChunksCol(level);
+
+    StitchingGuiUtils.updateProgressBar(this.progressBar, false, null, "Writing OME-Zarr chunks...", 0,
+        numChunks, 0, false);
+
+    this.executor = Executors.newFixedThreadPool(this.numThreads);
+
+    final ThreadLocal<TileBlender> blenders = new ThreadLocal<TileBlender>() {
+      @Override
+      protected TileBlender initialValue() {
+        return LargeImageExporter.createTileBlender(blendingMode, bytesPerPixel, imageType, imageTileWidth,
+            imageTileHeight, alpha);
+      }
+    };
+
+    long startTime = System.currentTimeMillis();
+
+    try {
+      List<Future<Void>> futures = new ArrayList<Future<Void>>();
+      for (int row = 0; row < numTilesRow; row++) {
+        for (int col = 0; col < numTilesCol; col++) {
+          final int chunkRow = row;
+          final int chunkCol = col;
+          futures.add(this.executor.submit(new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+              writeBlendedChunk(blenders.get(), chunkRow, chunkCol);
+              return null;
+            }
+          }));
+        }
+      }
+      waitFor(futures);
+
+      // Each level depends on the one before it, chunks within a level are independent
+      for (int level = 1; level < numLevels && !this.isCancelled; level++) {
+        futures.clear();
+        final int lvl = level;
+        for (int row = 0; row < getNumChunksRow(level); row++) {
+          for (int col = 0; col < getNumChunksCol(level); col++) {
+            final int chunkRow = row;
+            final int chunkCol = col;
+            futures.add(this.executor.submit(new Callable<Void>() {
+              @Override
+              public Void call() throws Exception {
+                writeDownsampledChunk(lvl, chunkRow, chunkCol);
+                return null;
+              }
+            }));
+          }
+        }
+        waitFor(futures);
+      }
+    } finally {
+      this.executor.shutdownNow();
+    }
+
+    Log.msg(LogType.MANDATORY, "Finished writing OME-Zarr with " + numLevels + " resolution levels in "
+        + (System.currentTimeMillis() - startTime) + " ms");
+
+    return dir;
+  }
+
+  /**
+   * Cancels the export
+   */
+  public void cancel() {
+    this.isCancelled = true;
+    if (this.executor != null)
+      this.executor.shutdownNow();
+  }
+
+  private void waitFor(List<Future<Void>> futures) throws IOException {
+    for (Future<Void> future : futures) {
+      if (this.isCancelled)
+        return;
+      try {
+        future.get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IOException("Interrupted while writing OME-Zarr chunks", e);
+      } catch (ExecutionException e) {
+        if (e.getCause() instanceof IOException)
+          throw (IOException) e.getCause();
+        throw new IOException("Failed to write OME-Zarr chunk: " + e.getCause(), e.getCause());
+      }
+    }
+  }
+
+  /**
+   * Computes the region of an image tile that falls within an output chunk
+   *
+   * @return {chunkX, chunkY, viewX, viewY, width, height} or null if they do not intersect
+   */
+  private int[] getBlendRegion(ImageTile<T> tile, int chunkStartX, int chunkStartY, int chunkWidth,
+                               int chunkHeight) {
+    int absX = tile.getAbsXPos();
+    int absY = tile.getAbsYPos();
+
+    Rectangle intersect = new Rectangle(chunkStartX, chunkStartY, chunkWidth, chunkHeight)
+        .intersection(new Rectangle(absX, absY, this.imageTileWidth, this.imageTileHeight));
+
+    if (intersect.width <= 0 || intersect.height <= 0)
+      return null;
+
+    int copyWidth = Math.min(intersect.width, this.imageWidth - intersect.x);
+    int copyHeight = Math.min(intersect.height, this.imageHeight - intersect.y);
+
+    int chunkX = intersect.x - chunkStartX;
+    int chunkY = intersect.y - chunkStartY;
+    int viewX = intersect.x - absX;
+    int viewY = intersect.y - absY;
+
+    if (chunkX < 0 || chunkY < 0 || viewX < 0 || viewY < 0 || copyWidth <= 0 || copyHeight <= 0)
+      return null;
+
+    return new int[]{chunkX, chunkY, viewX, viewY, copyWidth, copyHeight};
+  }
+
+  /**
+   * Counts how many chunks each image tile is blended into, so its pixels can be released after
+   * the last chunk that uses it regardless of the order the chunks are processed in.
+   */
+  private Map<ImageTile<T>, AtomicInteger> countTileUses(int numTilesRow, int numTilesCol) {
+    Map<ImageTile<T>, AtomicInteger> uses = new HashMap<ImageTile<T>, AtomicInteger>();
+    for (int row = 0; row < numTilesRow; row++) {
+      for (int col = 0; col < numTilesCol; col++) {
+        int startX = col * this.tileDim;
+        int startY = row * this.tileDim;
+        int width = Math.min(this.tileDim, this.imageWidth - startX);
+        int height = Math.min(this.tileDim, this.imageHeight - startY);
+        for (ImageTile<T> tile : this.tileBuckets.getPotentialOverlapTiles(row, col)) {
+          if (getBlendRegion(tile, startX, startY, width, height) == null)
+            continue;
+          AtomicInteger count = uses.get(tile);
+          if (count == null) {
+            count = new AtomicInteger();
+            uses.put(tile, count);
+          }
+          count.incrementAndGet();
+        }
+      }
+    }
+    return uses;
+  }
+
+  private void writeBlendedChunk(TileBlender tileBlender, int row, int col) throws IOException {
+    if (this.isCancelled)
+      return;
+
+    int startX = col * this.tileDim;
+    int startY = row * this.tileDim;
+    int width = Math.min(this.tileDim, this.imageWidth - startX);
+    int height = Math.min(this.tileDim, this.imageHeight - startY);
+
+    tileBlender.init(width, height);
+
+    for (ImageTile<T> tile : this.tileBuckets.getPotentialOverlapTiles(row, col)) {
+      int[] region = getBlendRegion(tile, startX, startY, width, height);
+      if (region == null)
+        continue;
+
+      Array2DView arrayView;
+      synchronized (tile) {
+        tile.readTile();
+        arrayView = new Array2DView(tile, region[3], region[5], region[2], region[4]);
+      }
+
+      tileBlender.blend(region[0], region[1], arrayView, tile);
+
+      if (this.remainingTileUses.get(tile).decrementAndGet() == 0) {
+        synchronized (tile) {
+          tile.releasePixels();
+        }
+      }
+    }
+
+    writeChunk(0, row, col, toChunkLayout(tileBlender.finalizeTile(), width, height));
+    StitchingGuiUtils.incrementProgressBar(this.progressBar);
+  }
+
+  /**
+   * Builds a chunk of a resolution level by averaging 2x2 pixel blocks of the previous level
+   */
+  private void writeDownsampledChunk(int level, int row, int col) throws IOException {
+    if (this.isCancelled)
+      return;
+
+    int prevWidth = getLevelSize(this.imageWidth, level - 1);
+    int prevHeight = getLevelSize(this.imageHeight, level - 1);
+    int width = Math.min(this.tileDim, getLevelSize(this.imageWidth, level) - col * this.tileDim);
+    int height = Math.min(this.tileDim, getLevelSize(this.imageHeight, level) - row * this.tileDim);
+
+    byte[][][] src = new byte[2][2][];
+    for (int r = 0; r < 2; r++)
+      for (int c = 0; c < 2; c++)
+        src[r][c] = readChunk(level - 1, 2 * row + r, 2 * col + c);
+
+    byte[] dst = new byte[getChunkSize()];
+
+    for (int ch = 0; ch < this.numChannels; ch++) {
+      for (int y = 0; y < height; y++) {
+        for (int x = 0; x < width; x++) {
+          double sum = 0.0;
+          int count = 0;
+          for (int sy = 0; sy < 2; sy++) {
+            int py = 2 * (row * this.tileDim + y) + sy;
+            if (py >= prevHeight)
+              continue;
+            for (int sx = 0; sx < 2; sx++) {
+              int px = 2 * (col * this.tileDim + x) + sx;
+              if (px >= prevWidth)
+                continue;
+              byte[] chunk = src[py / this.tileDim - 2 * row][px / this.tileDim - 2 * col];
+              if (chunk == null)
+                continue;
+              sum += getSample(chunk, ch, py % this.tileDim, px % this.tileDim);
+              count++;
+            }
+          }
+          if (count > 0)
+            putSample(dst, ch, y, x, sum / count);
+        }
+      }
+    }
+
+    writeChunk(level, row, col, dst);
+    StitchingGuiUtils.incrementProgressBar(this.progressBar);
+  }
+
+  /**
+   * Converts big-endian interleaved tile bytes into a full size planar (c, y, x) chunk
+   */
+  private byte[] toChunkLayout(byte[] pixels, int width, int height) {
+    byte[] chunk = new byte[getChunkSize()];
+    int planeSize = this.tileDim * this.tileDim * this.bytesPerSample;
+
+    for (int y = 0; y < height; y++) {
+      if (this.numChannels == 1) {
+        System.arraycopy(pixels, y * width * this.bytesPerPixel, chunk, y * this.tileDim * this.bytesPerSample,
+            width * this.bytesPerPixel);
+        continue;
+      }
+
+      for (int x = 0; x < width; x++) {
+        int srcIdx = (y * width + x) * this.bytesPerPixel;
+        int dstIdx = (y * this.tileDim + x) * this.bytesPerSample;
+        for (int ch = 0; ch < this.numChannels; ch++) {
+          System.arraycopy(pixels, srcIdx + ch * this.bytesPerSample, chunk, ch * planeSize + dstIdx,
+              this.bytesPerSample);
+        }
+      }
+    }
+    return chunk;
+  }
+
+  private double getSample(byte[] chunk, int ch, int y, int x) {
+    int idx = ((ch * this.tileDim + y) * this.tileDim + x) * this.bytesPerSample;
+    switch (this.bytesPerSample) {
+      case 1:
+        return chunk[idx] & 0xff;
+      case 2:
+        return ((chunk[idx] & 0xff) << 8) | (chunk[idx + 1] & 0xff);
+      case 4:
+      default:
+        int bits = ((chunk[idx] & 0xff) << 24) | ((chunk[idx + 1] & 0xff) << 16) |
+            ((chunk[idx + 2] & 0xff) << 8) | (chunk[idx + 3] & 0xff);
+        return Float.intBitsToFloat(bits);
+    }
+  }
+
+  private void putSample(byte[] chunk, int ch, int y, int x, double value) {
+    int idx = ((ch * this.tileDim + y) * this.tileDim + x) * this.bytesPerSample;
+    switch (this.bytesPerSample) {
+      case 1:
+        chunk[idx] = (byte) Math.round(value);
+        break;
+      case 2:
+        long v = Math.round(value);
+        chunk[idx] = (byte) (v >> 8);
+        chunk[idx + 1] = (byte) v;
+        break;
+      case 4:
+      default:
+        int bits = Float.floatToIntBits((float) value);
+        chunk[idx] = (byte) (bits >> 24);
+        chunk[idx + 1] = (byte) (bits >> 16);
+        chunk[idx + 2] = (byte) (bits >> 8);
+        chunk[idx + 3] = (byte) bits;
+        break;
+    }
+  }
+
+  private int getChunkSize() {
+    return this.numChannels * this.tileDim * this.tileDim * this.bytesPerSample;
+  }
+
+  private File getChunkFile(int level, int row, int col) {
+    // Chunks span all channels, so the channel chunk index is always 0
+    return new File(this.outputDir, level + File.separator + "0" + File.separator + row + File.separator + col);
+  }
+
+  private void writeChunk(int level, int row, int col, byte[] data) throws IOException {
+    if (this.compress) {
+      Deflater deflater = new Deflater(ZLIB_LEVEL);
+      try {
+        deflater.setInput(data);
+        deflater.finish();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 2 + 64);
+        byte[] buffer = new byte[65536];
+        while (!deflater.finished()) {
+          int n = deflater.deflate(buffer);
+          out.write(buffer, 0, n);
+        }
+        data = out.toByteArray();
+      } finally {
+        deflater.end();
+      }
+    }
+
+    File file = getChunkFile(level, row, col);
+    File parent = file.getParentFile();
+    if (!parent.mkdirs() && !parent.isDirectory())
+      throw new IOException("Unable to create directory: " + parent.getAbsolutePath());
+
+    FileOutputStream out = new FileOutputStream(file);
+    try {
+      out.write(data);
+    } finally {
+      out.close();
+    }
+  }
+
+  private byte[] readChunk(int level, int row, int col) throws IOException {
+    File file = getChunkFile(level, row, col);
+    if (!file.exists())
+      return null;
+
+    byte[] data = new byte[(int) file.length()];
+    FileInputStream in = new FileInputStream(file);
+    try {
+      int offset = 0;
+      while (offset < data.length) {
+        int n = in.read(data, offset, data.length - offset);
+        if (n < 0)
+          throw new IOException("Unexpected end of chunk: " + file.getAbsolutePath());
+        offset += n;
+      }
+    } finally {
+      in.close();
+    }
+
+    if (!this.compress)
+      return data;
+
+    Inflater inflater = new Inflater();
+    try {
+      inflater.setInput(data);
+      byte[] chunk = new byte[getChunkSize()];
+      int offset = 0;
+      while (offset < chunk.length && !inflater.finished()) {
+        int n = inflater.inflate(chunk, offset, chunk.length - offset);
+        if (n == 0 && (inflater.needsInput() || inflater.needsDictionary()))
+          break;
+        offset += n;
+      }
+      return chunk;
+    } catch (DataFormatException e) {
+      throw new IOException("Corrupt chunk: " + file.getAbsolutePath(), e);
+    } finally {
+      inflater.end();
+    }
+  }
+
+  private static int getLevelSize(int size, int level) {
+    return (size + (1 << level) - 1) >> level;
+  }
+
+  private int getNumChunksRow(int level) {
+    return (getLevelSize(this.imageHeight, level) + this.tileDim - 1) / this.tileDim;
+  }
+
+  private int getNumChunksCol(int level) {
+    return (getLevelSize(this.imageWidth, level) + this.tileDim - 1) / this.tileDim;
+  }
+
+  /**
+   * Gets the number of resolution levels, halving the image until it fits within a single chunk
+   */
+  private int getNumLevels() {
+    int numLevels = 1;
+    while (getLevelSize(this.imageWidth, numLevels - 1) > this.tileDim ||
+        getLevelSize(this.imageHeight, numLevels - 1) > this.tileDim)
+      numLevels++;
+    return numLevels;
+  }
+
+  private void writeGroupMetadata(int numLevels) throws IOException {
+    writeText(new File(this.outputDir, ".zgroup"), "{\n  \"zarr_format\": 2\n}\n");
+
+    String unitName = this.unit.name().toLowerCase();
+
+    StringBuilder datasets = new StringBuilder();
+    for (int level = 0; level < numLevels; level++) {
+      double scale = 1 << level;
+      if (level > 0)
+        datasets.append(",\n");
+      datasets.append("        {\n")
+          .append("          \"path\": \"").append(level).append("\",\n")
+          .append("          \"coordinateTransformations\": [\n")
+          .append("            {\"type\": \"scale\", \"scale\": [1.0, ")
+          .append(this.unitY * scale).append(", ").append(this.unitX * scale).append("]}\n")
+          .append("          ]\n")
+          .append("        }");
+    }
+
+    String attrs = "{\n" +
+        "  \"multiscales\": [\n" +
+        "    {\n" +
+        "      \"version\": \"" + NGFF_VERSION + "\",\n" +
+        "      \"name\": \"" + this.outputDir.getName().replace("\\", "\\\\").replace("\"", "\\\"") + "\",\n" +
+        "      \"axes\": [\n" +
+        "        {\"name\": \"c\", \"type\": \"channel\"},\n" +
+        "        {\"name\": \"y\", \"type\": \"space\", \"unit\": \"" + unitName + "\"},\n" +
+        "        {\"name\": \"x\", \"type\": \"space\", \"unit\": \"" + unitName + "\"}\n" +
+        "      ],\n" +
+        "      \"datasets\": [\n" +
+        datasets.toString() + "\n" +
+        "      ],\n" +
+        "      \"type\": \"mean\"\n" +
+        "    }\n" +
+        "  ]\n" +
+        "}\n";
+
+    writeText(new File(this.outputDir, ".zattrs"), attrs);
+  }
+
+  private void writeArrayMetadata(int level) throws IOException {
+    File levelDir = new File(this.outputDir, Integer.toString(level));
+    if (!levelDir.mkdirs() && !levelDir.isDirectory())
+      throw new IOException("Unable to create directory: " + levelDir.getAbsolutePath());
+
+    String compressor = this.compress ? "{\"id\": \"zlib\", \"level\": " + ZLIB_LEVEL + "}" : "null";
+
+    String array = "{\n" +
+        "  \"zarr_format\": 2,\n" +
+        "  \"shape\": [" + this.numChannels + ", " + getLevelSize(this.imageHeight, level) + ", "
+        + getLevelSize(this.imageWidth, level) + "],\n" +
+        "  \"chunks\": [" + this.numChannels + ", " + this.tileDim + ", " + this.tileDim + "],\n" +
+        "  \"dtype\": \"" + this.dtype + "\",\n" +
+        "  \"compressor\": " + compressor + ",\n" +
+        "  \"fill_value\": 0,\n" +
+        "  \"order\": \"C\",\n" +
+        "  \"filters\": null,\n" +
+        "  \"dimension_separator\": \"/\"\n" +
+        "}\n";
+
+    writeText(new File(levelDir, ".zarray"), array);
+  }
+
+  private static void writeText(File file, String text) throws IOException {
+    Writer writer = new OutputStreamWriter(new FileOutputStream(file), Charset.forName("UTF-8"));
+    try {
+      writer.write(text);
+    } finally {
+      writer.close();
+    }
+  }
+
+  private static boolean deleteDirectory(File dir) {
+    File[] children = dir.listFiles();
+    if (children != null) {
+      for (File child : children) {
+        if (child.isDirectory())
+          deleteDirectory(child);
+        else
+          child.delete();
+      }
+    }
+    return dir.delete();
+  }
+}
@@ -0,0 +1,553 @@
+// NIST-developed software is provided by NIST as a public service. You may use, copy and distribute copies of the software in any medium, provided that you keep intact this entire notice. You may improve, modify and create derivative works of the software or any portion of the software, and you may copy and distribute such modifications or works. Modified works should carry a notice stating that you changed the software and should note the date and nature of any such change. Please explicitly acknowledge the National Institute of Standards and Technology as the source of the software.
+
+// NIST-developed software is expressly provided "AS IS." NIST MAKES NO WARRANTY OF ANY KIND, EXPRESS, IMPLIED, IN FACT OR ARISING BY OPERATION OF LAW, INCLUDING, WITHOUT LIMITATION, THE IMPLIED WARRANTY OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE, NON-INFRINGEMENT AND DATA ACCURACY. NIST NEITHER REPRESENTS NOR WARRANTS THAT THE OPERATION OF THE SOFTWARE WILL BE UNINTERRUPTED OR ERROR-FREE, OR THAT ANY DEFECTS WILL BE CORRECTED. NIST DOES NOT WARRANT OR MAKE ANY REPRESENTATIONS REGARDING THE USE OF THE SOFTWARE OR THE RESULTS THEREOF, INCLUDING BUT NOT LIMITED TO THE CORRECTNESS, ACCURACY, RELIABILITY, OR USEFULNESS OF THE SOFTWARE.
+
+// You are solely responsible for determining the appropriateness of using and distributing the software and you assume all risks associated with its use, including but not limited to the risks and costs of program errors, compliance with applicable laws, damage to or loss of data, programs or equipment, and the unavailability or interruption of operation. This software is not intended to be used in any situation where a failure could cause risk of injury or damage to property. The software developed by NIST employees is not subject to copyright protection within the United States.
+
+
+
+// ================================================================
+//
+// Author: tjb3
+// Date: Oct 19, 2026 10:12:41 AM EST
+//
+// Time-stamp: <Oct 19, 2026 10:12:41 AM tjb3>
+//
+//
+// ================================================================
+
+package gov.nist.isg.mist.lib.export;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.Deflater;
+
+import loci.formats.FormatException;
+import loci.formats.codec.LZWCodec;
+
+/**
+ * Tiled BigTIFF writer that compresses output tiles in parallel. Worker threads each compress a
+ * tile into its own byte buffer, a single writer thread appends the compressed tiles to the file
+ * using positional writes in the order they finish, and the tile offset/byte count tables are
+ * written with the IFD when the writer is closed.
+ *
+ * The file layout matches what the Bio-Formats OMETiffWriter produces (one big-endian IFD per
+ * plane with the OME-XML in the ImageDescription of the first), so the result opens identically
+ * in Bio-Formats. Tiles of different planes may be interleaved in any order. Only uncompressed,
+ * LZW and zlib compression are supported.
+ *
+ * @author Tim Blattner
+ * @version 1.0
+ */
+public class ParallelBigTiffWriter {
+
+  private static final int TAG_IMAGE_WIDTH = 256;
+  private static final int TAG_IMAGE_LENGTH = 257;
+  private static final int TAG_BITS_PER_SAMPLE = 258;
+  private static final int TAG_COMPRESSION = 259;
+  private static final int TAG_PHOTOMETRIC = 262;
+  private static final int TAG_IMAGE_DESCRIPTION = 270;
+  private static final int TAG_SAMPLES_PER_PIXEL = 277;
+  private static final int TAG_PLANAR_CONFIGURATION = 284;
+  private static final int TAG_SOFTWARE = 305;
+  private static final int TAG_TILE_WIDTH = 322;
+  private static final int TAG_TILE_LENGTH = 323;
+  private static final int TAG_TILE_OFFSETS = 324;
+  private static final int TAG_TILE_BYTE_COUNTS = 325;
+  private static final int TAG_SAMPLE_FORMAT = 339;
+
+  private static final int TYPE_ASCII = 2;
+  private static final int TYPE_SHORT = 3;
+  private static final int TYPE_LONG = 4;
+  private static final int TYPE_LONG8 = 16;
+
+  private static final int COMPRESSION_NONE = 1;
+  private static final int COMPRESSION_LZW = 5;
+  private static final int COMPRESSION_DEFLATE = 8;
+
+  private static final int HEADER_SIZE = 16;
+  private static final int IFD_OFFSET_POSITION = 8;
+
+  private final RandomAccessFile file;
+  private final FileChannel channel;
+
+  private final int imageWidth;
+  private final int imageHeight;
+  private final int tileWidth;
+  private final int tileHeight;
+  private final int samplesPerPixel;
+  private final int bytesPerPixel;
+  private final boolean floatingPoint;
+  private final int compression;
+  private final String description;
+
+  private final int numTilesX;
+  private final int numTilesY;
+  private final int numPlanes;
+  private final long[][] tileOffsets;
+  private final long[][] tileByteCounts;
+
+  private final ExecutorService compressors;
+  private final ExecutorService writer;
+  private final Semaphore inFlight;
+  private final AtomicReference<Throwable> error;
+
+  // only modified by the writer thread
+  private long nextOffset;
+  private boolean closed;
+
+  /**
+   * Checks if the parallel writer supports a compression mode
+   *
+   * @param mode the compression mode
+   * @return true if tiles can be compressed by this writer, otherwise false
+   */
+  public static boolean isSupported(CompressionMode mode) {
+    return mode == CompressionMode.UNCOMPRESSED || mode == CompressionMode.LZW || mode == CompressionMode.ZLIB;
+  }
+
+  /**
+   * Creates a single plane parallel BigTIFF writer and writes the file header
+   *
+   * @param outputFile      the file to write
+   * @param imageWidth      the width of the full image
+   * @param imageHeight     the height of the full image
+   * @param tileWidth       the width of each TIFF tile (must be a multiple of 16)
+   * @param tileHeight      the height of each TIFF tile (must be a multiple of 16)
+   * @param samplesPerPixel the number of interleaved samples per pixel
+   * @param bytesPerPixel   the number of bytes per pixel (all samples)
+   * @param floatingPoint   true if the samples are IEEE floating point
+   * @param compressionMode the compression mode
+   * @param description     the image description (OME-XML)
+   * @param numThreads      the number of compression threads
+   * @throws IOException if the file cannot be created
+   */
+  public ParallelBigTiffWriter(File outputFile, int imageWidth, int imageHeight, int tileWidth, int tileHeight,
+                               int samplesPerPixel, int bytesPerPixel, boolean floatingPoint,
+                               CompressionMode compressionMode, String description, int numThreads) throws IOException {
+    this(outputFile, 1, imageWidth, imageHeight, tileWidth, tileHeight, samplesPerPixel, bytesPerPixel,
+        floatingPoint, compressionMode, description, numThreads);
+  }
+
+  /**
+   * Creates a parallel BigTIFF writer and writes the file header
+   *
+   * @param outputFile      the file to write
+   * @param numPlanes       the number of planes (IFDs) in the file
+   * @param imageWidth      the width of the full image
+   * @param imageHeight     the height of the full image
+   * @param tileWidth       the width of each TIFF tile (must be a multiple of 16)
+   * @param tileHeight      the height of each TIFF tile (must be a multiple of 16)
+   * @param samplesPerPixel the number of interleaved samples per pixel
+   * @param bytesPerPixel   the number of bytes per pixel (all samples)
+   * @param floatingPoint   true if the samples are IEEE floating point
+   * @param compressionMode the compression mode
+   * @param description     the image description (OME-XML)
+   * @param numThreads      the number of compression threads
+   * @throws IOException if the file cannot be created
+   */
+  public ParallelBigTiffWriter(File outputFile, int numPlanes, int imageWidth, int imageHeight, int tileWidth,
+                               int tileHeight, int samplesPerPixel, int bytesPerPixel, boolean floatingPoint,
+                               CompressionMode compressionMode, String description, int numThreads) throws IOException {
+    if (!isSupported(compressionMode))
+      throw new IllegalArgumentException("Compression mode " + compressionMode + " is not supported by the parallel writer");
+
+    this.imageWidth = imageWidth;
+    this.imageHeight = imageHeight;
+    this.tileWidth = tileWidth;
+    this.tileHeight = tileHeight;
+    this.samplesPerPixel = samplesPerPixel;
+    this.bytesPerPixel = bytesPerPixel;
+    this.floatingPoint = floatingPoint;
+    this.description = description;
+
+    switch (compressionMode) {
+      case LZW:
+        this.compression = COMPRESSION_LZW;
+        break;
+      case ZLIB:
+        this.compression = COMPRESSION_DEFLATE;
+        break;
+      case UNCOMPRESSED:
+      default:
+        this.compression = COMPRESSION_NONE;
+        break;
+    }
+
+    this.numTilesX = (imageWidth + tileWidth - 1) / tileWidth;
+    this.numTilesY = (imageHeight + tileHeight - 1) / tileHeight;
+    this.numPlanes = numPlanes;
+    this.tileOffsets = new long[numPlanes][this.numTilesX * this.numTilesY];
+    this.tileByteCounts = new long[numPlanes][this.numTilesX * this.numTilesY];
+
+    numThreads = Math.max(1, numThreads);
+    this.compressors = Executors.newFixedThreadPool(numThreads);
+    this.writer = Executors.newSingleThreadExecutor();
+    // Bound the number of uncompressed/compressed tiles held in memory
+    this.inFlight = new Semaphore(numThreads * 2);
+    this.error = new AtomicReference<Throwable>();
+
+    this.file = new RandomAccessFile(outputFile, "rw");
+    this.file.setLength(0);
+    this.channel = this.file.getChannel();
+
+    ByteBuffer header = newBuffer(HEADER_SIZE);
+    header.put((byte) 'M');
+    header.put((byte) 'M');
+    header.putShort((short) 43);
+    header.putShort((short) 8);
+    header.putShort((short) 0);
+    header.putLong(0L);
+    header.flip();
+    writeFully(header, 0L);
+
+    this.nextOffset = HEADER_SIZE;
+    this.closed = false;
+  }
+
+  /**
+   * Submits a tile for compression and writing. The pixel data must be big-endian and interleaved
+   * and is not copied, so the caller must not modify it after submitting.
+   *
+   * @param x      the x position of the tile in the image (multiple of the tile width)
+   * @param y      the y position of the tile in the image (multiple of the tile height)
+   * @param width  the width of the pixel data (may be smaller than the tile width at the image edge)
+   * @param height the height of the pixel data (may be smaller than the tile height at the image edge)
+   * @param pixels the pixel data, width*height*bytesPerPixel bytes
+   * @throws IOException if a previously submitted tile failed to be written
+   */
+  public void writeTile(int x, int y, int width, int height, byte[] pixels) throws IOException {
+    writeTile(0, x, y, width, height, pixels);
+  }
+
+  /**
+   * Submits a tile of a plane for compression and writing. The pixel data must be big-endian and
+   * interleaved and is not copied, so the caller must not modify it after submitting.
+   *
+   * @param plane  the plane index
+   * @param x      the x position of the tile in the image (multiple of the tile width)
+   * @param y      the y position of the tile in the image (multiple of the tile height)
+   * @param width  the width of the pixel data (may be smaller than the tile width at the image edge)
+   * @param height the height of the pixel data (may be smaller than the tile height at the image edge)
+   * @param pixels the pixel data, width*height*bytesPerPixel bytes
+   * @throws IOException if a previously submitted tile failed to be written
+   */
+  public void writeTile(final int plane, int x, int y, final int width, final int height, final byte[] pixels)
+      throws IOException {
+    checkError();
+
+    if (plane < 0 || plane >= this.numPlanes)
+      throw new IllegalArgumentException("Plane " + plane + " is out of range [0, " + this.numPlanes + ")");
+
+    if (x % this.tileWidth != 0 || y % this.tileHeight != 0)
+      throw new IllegalArgumentException("Tile position (" + x + ", " + y + ") is not aligned to the tile grid");
+
+    final int tileIndex = (y / this.tileHeight) * this.numTilesX + (x / this.tileWidth);
+
+    try {
+      this.inFlight.acquire();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while waiting to write tile", e);
+    }
+
+    this.compressors.execute(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          final byte[] compressed = compress(pad(pixels, width, height));
+          writer.execute(new Runnable() {
+            @Override
+            public void run() {
+              try {
+                append(plane, tileIndex, compressed);
+              } catch (Throwable t) {
+                error.compareAndSet(null, t);
+              } finally {
+                inFlight.release();
+              }
+            }
+          });
+        } catch (Throwable t) {
+          error.compareAndSet(null, t);
+          inFlight.release();
+        }
+      }
+    });
+  }
+
+  /**
+   * Waits for all submitted tiles to be written, then writes the IFDs with the tile tables and
+   * closes the file.
+   *
+   * @throws IOException if writing failed
+   */
+  public void close() throws IOException {
+    if (this.closed)
+      return;
+    this.closed = true;
+
+    try {
+      this.compressors.shutdown();
+      awaitTermination(this.compressors);
+      this.writer.shutdown();
+      awaitTermination(this.writer);
+
+      checkError();
+      writeIfds();
+    } finally {
+      this.compressors.shutdownNow();
+      this.writer.shutdownNow();
+      this.channel.close();
+      this.file.close();
+    }
+  }
+
+  /**
+   * Aborts writing; pending tiles are discarded and the file is closed without an IFD
+   */
+  public void cancel() {
+    this.closed = true;
+    this.compressors.shutdownNow();
+    this.writer.shutdownNow();
+    try {
+      this.channel.close();
+      this.file.close();
+    } catch (IOException e) {
+      // the partial file is discarded anyways
+    }
+  }
+
+  private void awaitTermination(ExecutorService service) throws IOException {
+    try {
+      while (!service.awaitTermination(1, TimeUnit.SECONDS)) {
+        // keep waiting for outstanding tiles
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while finishing tile writes", e);
+    }
+  }
+
+  private void checkError() throws IOException {
+    Throwable t = this.error.get();
+    if (t == null)
+      return;
+    if (t instanceof IOException)
+      throw (IOException) t;
+    throw new IOException("Failed to write tile: " + t.getMessage(), t);
+  }
+
+  /**
+   * Copies edge tiles into a full tile sized buffer, TIFF tiles are always full size
+   */
+  private byte[] pad(byte[] pixels, int width, int height) {
+    if (width == this.tileWidth && height == this.tileHeight)
+      return pixels;
+
+    int srcRowBytes = width * this.bytesPerPixel;
+    int dstRowBytes = this.tileWidth * this.bytesPerPixel;
+    byte[] padded = new byte[dstRowBytes * this.tileHeight];
+    for (int row = 0; row < height; row++) {
+      System.arraycopy(pixels, row * srcRowBytes, padded, row * dstRowBytes, srcRowBytes);
+    }
+    return padded;
+  }
+
+  private byte[] compress(byte[] data) throws FormatException {
+    switch (this.compression) {
+      case COMPRESSION_LZW:
+        return new LZWCodec().compress(data, null);
+      case COMPRESSION_DEFLATE:
+        Deflater deflater = new Deflater();
+        try {
+          deflater.setInput(data);
+          deflater.finish();
+          ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 2 + 64);
+          byte[] chunk = new byte[65536];
+          while (!deflater.finished()) {
+            int n = deflater.deflate(chunk);
+            out.write(chunk, 0, n);
+          }
+          return out.toByteArray();
+        } finally {
+          deflater.end();
+        }
+      case COMPRESSION_NONE:
+      default:
+        return data;
+    }
+  }
+
+  /**
+   * Appends a compressed tile to the end of the file, only called from the writer thread
+   */
+  private void append(int plane, int tileIndex, byte[] compressed) throws IOException {
+    long offset = this.nextOffset;
+    writeFully(ByteBuffer.wrap(compressed), offset);
+    this.tileOffsets[plane][tileIndex] = offset;
+    this.tileByteCounts[plane][tileIndex] = compressed.length;
+    this.nextOffset = offset + compressed.length;
+  }
+
+  private void writeIfds() throws IOException {
+    // IFDs must start on a word boundary
+    long ifdOffset = (this.nextOffset + 1) & ~1L;
+
+    // Patch the header to point to the first IFD
+    ByteBuffer patch = newBuffer(8);
+    patch.putLong(ifdOffset);
+    patch.flip();
+    writeFully(patch, IFD_OFFSET_POSITION);
+
+    for (int plane = 0; plane < this.numPlanes; plane++) {
+      ifdOffset = writeIfd(plane, ifdOffset, plane == this.numPlanes - 1);
+    }
+  }
+
+  /**
+   * Writes the IFD of a plane followed by its out of line values
+   *
+   * @return the word aligned offset following the IFD, where the next IFD is written
+   */
+  private long writeIfd(int plane, long ifdOffset, boolean last) throws IOException {
+    // The OME-XML is only stored in the first IFD
+    byte[] descBytes = plane == 0 ? (this.description + '\0').getBytes(Charset.forName("UTF-8")) : null;
+    byte[] softwareBytes = "MIST\0".getBytes(Charset.forName("UTF-8"));
+    int numTiles = this.tileOffsets[plane].length;
+    int numEntries = 12 + (descBytes != null ? 1 : 0) + (this.floatingPoint ? 1 : 0);
+
+    long ifdSize = 8L + numEntries * 20L + 8L;
+    long extraOffset = ifdOffset + ifdSize;
+
+    ByteBuffer extra = newBuffer((descBytes != null ? descBytes.length : 0) + softwareBytes.length
+        + 2 * this.samplesPerPixel + 16 * numTiles);
+
+    ByteBuffer ifd = newBuffer((int) ifdSize);
+    ifd.putLong(numEntries);
+
+    putEntry(ifd, TAG_IMAGE_WIDTH, TYPE_LONG, 1, this.imageWidth);
+    putEntry(ifd, TAG_IMAGE_LENGTH, TYPE_LONG, 1, this.imageHeight);
+
+    int bitsPerSample = 8 * this.bytesPerPixel / this.samplesPerPixel;
+    ifd.putShort((short) TAG_BITS_PER_SAMPLE);
+    ifd.putShort((short) TYPE_SHORT);
+    ifd.putLong(this.samplesPerPixel);
+    if (this.samplesPerPixel <= 4) {
+      for (int i = 0; i < 4; i++)
+        ifd.putShort(i < this.samplesPerPixel ? (short) bitsPerSample : 0);
+    } else {
+      ifd.putLong(extraOffset + extra.position());
+      for (int i = 0; i < this.samplesPerPixel; i++)
+        extra.putShort((short) bitsPerSample);
+    }
+
+    putEntry(ifd, TAG_COMPRESSION, TYPE_SHORT, 1, this.compression);
+    putEntry(ifd, TAG_PHOTOMETRIC, TYPE_SHORT, 1, this.samplesPerPixel == 3 ? 2 : 1);
+    if (descBytes != null)
+      putBytesEntry(ifd, extra, extraOffset, TAG_IMAGE_DESCRIPTION, descBytes);
+    putEntry(ifd, TAG_SAMPLES_PER_PIXEL, TYPE_SHORT, 1, this.samplesPerPixel);
+    putEntry(ifd, TAG_PLANAR_CONFIGURATION, TYPE_SHORT, 1, 1);
+    putBytesEntry(ifd, extra, extraOffset, TAG_SOFTWARE, softwareBytes);
+    putEntry(ifd, TAG_TILE_WIDTH, TYPE_LONG, 1, this.tileWidth);
+    putEntry(ifd, TAG_TILE_LENGTH, TYPE_LONG, 1, this.tileHeight);
+    putLong8Array(ifd, extra, extraOffset, TAG_TILE_OFFSETS, this.tileOffsets[plane]);
+    putLong8Array(ifd, extra, extraOffset, TAG_TILE_BYTE_COUNTS, this.tileByteCounts[plane]);
+    if (this.floatingPoint) {
+      putEntry(ifd, TAG_SAMPLE_FORMAT, TYPE_SHORT, 1, 3);
+    }
+
+    long nextIfdOffset = (extraOffset + extra.position() + 1) & ~1L;
+    ifd.putLong(last ? 0L : nextIfdOffset);
+
+    ifd.flip();
+    extra.flip();
+    writeFully(ifd, ifdOffset);
+    writeFully(extra, extraOffset);
+
+    return nextIfdOffset;
+  }
+
+  private static void putEntry(ByteBuffer ifd, int tag, int type, long count, long value) {
+    ifd.putShort((short) tag);
+    ifd.putShort((short) type);
+    ifd.putLong(count);
+    // values are left justified within the 8 byte value field
+    if (type == TYPE_SHORT) {
+      ifd.putShort((short) value);
+      ifd.putShort((short) 0);
+      ifd.putInt(0);
+    } else {
+      ifd.putInt((int) value);
+      ifd.putInt(0);
+    }
+  }
+
+  private static void putBytesEntry(ByteBuffer ifd, ByteBuffer extra, long extraOffset, int tag, byte[] bytes) {
+    ifd.putShort((short) tag);
+    ifd.putShort((short) TYPE_ASCII);
+    ifd.putLong(bytes.length);
+    if (bytes.length <= 8) {
+      ifd.put(bytes);
+      for (int i = bytes.length; i < 8; i++)
+        ifd.put((byte) 0);
+    } else {
+      ifd.putLong(extraOffset + extra.position());
+      extra.put(bytes);
+    }
+  }
+
+  private static void putLong8Array(ByteBuffer ifd, ByteBuffer extra, long extraOffset, int tag, long[] values) {
+    ifd.putShort((short) tag);
+    ifd.putShort((short) TYPE_LONG8);
+    ifd.putLong(values.length);
+    if (values.length == 1) {
+      ifd.putLong(values[0]);
+    } else {
+      ifd.putLong(extraOffset + extra.position());
+      for (long v : values)
+        extra.putLong(v);
+    }
+  }
+
+  private void writeFully(ByteBuffer buffer, long position) throws IOException {
+    while (buffer.hasRemaining()) {
+      position += this.channel.write(buffer, position);
+    }
+  }
+
+  private static ByteBuffer newBuffer(int size) {
+    ByteBuffer buffer = ByteBuffer.allocate(size);
+    buffer.order(ByteOrder.BIG_ENDIAN);
+    return buffer;
+  }
+
+  /**
+   * Gets the number of tiles along the x dimension
+   *
+   * @return the number of tiles along the x dimension
+   */
+  public int getNumTilesX() {
+    return this.numTilesX;
+  }
+
+  /**
+   * Gets the number of tiles along the y dimension
+   *
+   * @return the number of tiles along the y dimension
+   */
+  public int getNumTilesY() {
+    return this.numTilesY;
+  }
+}
@@ -0,0 +1,335 @@
+// NIST-developed software is provided by NIST as a public service. You may use, copy and distribute copies of the software in any medium, provided that you keep intact this entire notice. You may improve, modify and create derivative works of the software or any portion of the software, and you may copy and distribute such modifications or works. Modified works should carry a notice stating that you changed the software and should note the date and nature of any such change. Please explicitly acknowledge the National Institute of Standards and Technology as the source of the software.
+
+// NIST-developed software is expressly provided "AS IS." NIST MAKES NO WARRANTY OF ANY KIND, EXPRESS, IMPLIED, IN FACT OR ARISING BY OPERATION OF LAW, INCLUDING, WITHOUT LIMITATION, THE IMPLIED WARRANTY OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE, NON-INFRINGEMENT AND DATA ACCURACY. NIST NEITHER REPRESENTS NOR WARRANTS THAT THE OPERATION OF THE SOFTWARE WILL BE UNINTERRUPTED OR ERROR-FREE, OR THAT ANY DEFECTS WILL BE CORRECTED. NIST DOES NOT WARRANT OR MAKE ANY REPRESENTATIONS REGARDING THE USE OF THE SOFTWARE OR THE RESULTS THEREOF, INCLUDING BUT NOT LIMITED TO THE CORRECTNESS, ACCURACY, RELIABILITY, OR USEFULNESS OF THE SOFTWARE.
+
+// You are solely responsible for determining the appropriateness of using and distributing the software and you assume all risks associated with its use, including but not limited to the risks and costs of program errors, compliance with applicable laws, damage to or loss of data, programs or equipment, and the unavailability or interruption of operation. This software is not intended to be used in any situation where a failure could cause risk of injury or damage to property. The software developed by NIST employees is not subject to copyright protection within the United States.
+
+
+
+// ================================================================
+//
+// Author: tjb3
+// Date: Oct 19, 2026 3:05:48 PM EST
+//
+// Time-stamp: <Oct 19, 2026 3:05:48 PM tjb3>
+//
+//
+// ================================================================
+
+package gov.nist.isg.mist.lib.export;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import gov.nist.isg.mist.lib.imagetile.FlatFieldCorrection;
+import gov.nist.isg.mist.lib.imagetile.ImageTile;
+import gov.nist.isg.mist.lib.imagetile.Stitching;
+import gov.nist.isg.mist.lib.tilegrid.TileGrid;
+import gov.nist.isg.mist.lib.tilegrid.TileGridUtils;
+import ij.ImagePlus;
+import ij.process.ImageProcessor;
+
+/**
+ * Virtual view of a stitched mosaic. Renders arbitrary regions of the mosaic at an arbitrary
+ * downsample factor directly from the image tiles and their absolute positions, without exporting
+ * the full image. Contributing tiles are found with TileBuckets and decoded tiles are kept in a
+ * least recently used cache so that repeated or neighboring requests do not re-read them.
+ *
+ * Overlapping pixels are resolved like the overlay blend: the tile with the highest correlation
+ * is drawn last. Downsampling uses nearest neighbor sampling.
+ *
+ * @author Tim Blattner
+ * @version 1.0
+ */
+public class VirtualMosaic<T> {
+
+  /**
+   * The default number of decoded tiles kept in memory
+   */
+  public static final int DEFAULT_CACHE_SIZE = 64;
+
+  private TileGrid<ImageTile<T>> grid;
+  private TileBuckets<T> tileBuckets;
+  private int numBucketRows;
+  private int numBucketCols;
+  private int imageTileWidth;
+  private int imageTileHeight;
+  private int mosaicWidth;
+  private int mosaicHeight;
+  private ImageProcessor prototype;
+
+  private final DecodedTileCache cache;
+
+  /**
+   * Creates a virtual mosaic over a grid whose tiles have absolute positions
+   *
+   * @param grid      the grid of tiles with absolute positions
+   * @param cacheSize the maximum number of decoded tiles to keep in memory
+   */
+  public VirtualMosaic(TileGrid<ImageTile<T>> grid, int cacheSize) {
+    this.grid = grid;
+    this.cache = new DecodedTileCache(Math.max(1, cacheSize));
+
+    ImageTile<T> tileThatExists = grid.getTileThatExists();
+    ImageProcessor ip = this.cache.get(tileThatExists);
+    if (ip == null)
+      throw new IllegalArgumentException("Unable to read image tile: " + tileThatExists.getFileName());
+
+    this.prototype = ip;
+    this.imageTileWidth = ip.getWidth();
+    this.imageTileHeight = ip.getHeight();
+    this.mosaicWidth = TileGridUtils.getFullImageWidth(grid, this.imageTileWidth);
+    this.mosaicHeight = TileGridUtils.getFullImageHeight(grid, this.imageTileHeight);
+
+    // One bucket per image tile footprint keeps the candidate list per bucket small
+    this.numBucketRows = (this.mosaicHeight + this.imageTileHeight - 1) / this.imageTileHeight;
+    this.numBucketCols = (this.mosaicWidth + this.imageTileWidth - 1) / this.imageTileWidth;
+    this.tileBuckets = new TileBuckets<T>(this.numBucketRows, this.numBucketCols, this.imageTileHeight,
+        this.imageTileWidth, true);
+    boolean wasRead = tileThatExists.isTileRead();
+    this.tileBuckets.addTiles(grid);
+
+    // addTiles reads the first tile, the cache holds the decoded copy
+    if (!wasRead)
+      tileThatExists.releasePixelsNow();
+  }
+
+  /**
+   * Creates a virtual mosaic over a grid using a global positions file
+   *
+   * @param grid             the grid of tiles
+   * @param absPositionsFile the global (absolute) positions file
+   * @param cacheSize        the maximum number of decoded tiles to keep in memory
+   * @return the virtual mosaic
+   * @throws IOException if the positions file could not be parsed
+   */
+  public static <T> VirtualMosaic<T> fromAbsolutePositions(TileGrid<ImageTile<T>> grid, File absPositionsFile,
+                                                           int cacheSize) throws IOException {
+    if (!Stitching.parseAbsolutePositions(grid, absPositionsFile))
+      throw new IOException("Unable to parse absolute positions: " + absPositionsFile.getAbsolutePath());
+
+    return new VirtualMosaic<T>(grid, cacheSize);
+  }
+
+  /**
+   * Renders a region of the mosaic. Pixels outside of the mosaic or not covered by any tile are
+   * zero.
+   *
+   * @param x          the x position of the region in full resolution mosaic coordinates
+   * @param y          the y position of the region in full resolution mosaic coordinates
+   * @param width      the width of the region in full resolution pixels
+   * @param height     the height of the region in full resolution pixels
+   * @param downsample the downsample factor (1 renders at full resolution)
+   * @return an image of size ceil(width/downsample) x ceil(height/downsample) with the same pixel
+   * type as the image tiles
+   */
+  public ImageProcessor render(int x, int y, int width, int height, int downsample) {
+    if (width <= 0 || height <= 0)
+      throw new IllegalArgumentException("Region must have a positive width and height");
+    if (downsample < 1)
+      throw new IllegalArgumentException("Downsample factor must be >= 1");
+
+    int outWidth = (width + downsample - 1) / downsample;
+    int outHeight = (height + downsample - 1) / downsample;
+
+    ImageProcessor out;
+    synchronized (this.prototype) {
+      out = this.prototype.createProcessor(outWidth, outHeight);
+    }
+
+    for (ImageTile<T> tile : getContributingTiles(x, y, width, height)) {
+      int absX = tile.getAbsXPos();
+      int absY = tile.getAbsYPos();
+
+      // Intersection of the tile with the requested region in mosaic coordinates
+      int startX = Math.max(x, absX);
+      int startY = Math.max(y, absY);
+      int endX = Math.min(x + width, absX + this.imageTileWidth);
+      int endY = Math.min(y + height, absY + this.imageTileHeight);
+
+      if (endX <= startX || endY <= startY)
+        continue;
+
+      // Output pixels whose sample point lies within the intersection
+      int firstCol = (startX - x + downsample - 1) / downsample;
+      int lastCol = (endX - 1 - x) / downsample;
+      int firstRow = (startY - y + downsample - 1) / downsample;
+      int lastRow = (endY - 1 - y) / downsample;
+
+      if (lastCol < firstCol || lastRow < firstRow)
+        continue;
+
+      ImageProcessor src = this.cache.get(tile);
+      if (src == null)
+        continue;
+
+      for (int row = firstRow; row <= lastRow; row++) {
+        int srcY = y + row * downsample - absY;
+        for (int col = firstCol; col <= lastCol; col++) {
+          int srcX = x + col * downsample - absX;
+          out.set(col, row, src.get(srcX, srcY));
+        }
+      }
+    }
+
+    return out;
+  }
+
+  /**
+   * Renders a region of the mosaic as an ImagePlus
+   *
+   * @param x          the x position of the region in full resolution mosaic coordinates
+   * @param y          the y position of the region in full resolution mosaic coordinates
+   * @param width      the width of the region in full resolution pixels
+   * @param height     the height of the region in full resolution pixels
+   * @param downsample the downsample factor (1 renders at full resolution)
+   * @return the rendered region
+   */
+  public ImagePlus renderImage(int x, int y, int width, int height, int downsample) {
+    return new ImagePlus("Mosaic (" + x + ", " + y + ", " + width + ", " + height + ") 1:" + downsample,
+        render(x, y, width, height, downsample));
+  }
+
+  /**
+   * Gets the tiles that may contribute to a region, ordered from lowest to highest correlation
+   */
+  private List<ImageTile<T>> getContributingTiles(int x, int y, int width, int height) {
+    int bucketRowStart = Math.max(0, y / this.imageTileHeight);
+    int bucketColStart = Math.max(0, x / this.imageTileWidth);
+    int bucketRowEnd = Math.min(this.numBucketRows - 1, (y + height - 1) / this.imageTileHeight);
+    int bucketColEnd = Math.min(this.numBucketCols - 1, (x + width - 1) / this.imageTileWidth);
+
+    Set<ImageTile<T>> tiles = new LinkedHashSet<ImageTile<T>>();
+    for (int row = bucketRowStart; row <= bucketRowEnd; row++) {
+      for (int col = bucketColStart; col <= bucketColEnd; col++) {
+        tiles.addAll(this.tileBuckets.getPotentialOverlapTiles(row, col));
+      }
+    }
+
+    List<ImageTile<T>> sorted = new ArrayList<ImageTile<T>>(tiles);
+    Collections.sort(sorted, new Comparator<ImageTile<T>>() {
+      @Override
+      public int compare(ImageTile<T> t1, ImageTile<T> t2) {
+        return Double.compare(t1.getTileCorrelation(), t2.getTileCorrelation());
+      }
+    });
+    return sorted;
+  }
+
+  /**
+   * Clears the decoded tile cache
+   */
+  public void clearCache() {
+    this.cache.clear();
+  }
+
+  /**
+   * Gets the width of the full resolution mosaic
+   *
+   * @return the mosaic width
+   */
+  public int getWidth() {
+    return this.mosaicWidth;
+  }
+
+  /**
+   * Gets the height of the full resolution mosaic
+   *
+   * @return the mosaic height
+   */
+  public int getHeight() {
+    return this.mosaicHeight;
+  }
+
+  /**
+   * Gets the number of tile requests served from the cache
+   *
+   * @return the number of cache hits
+   */
+  public long getCacheHits() {
+    return this.cache.getHits();
+  }
+
+  /**
+   * Gets the number of tile requests that required decoding the tile
+   *
+   * @return the number of cache misses
+   */
+  public long getCacheMisses() {
+    return this.cache.getMisses();
+  }
+
+  /**
+   * Gets the grid backing this mosaic
+   *
+   * @return the grid
+   */
+  public TileGrid<ImageTile<T>> getGrid() {
+    return this.grid;
+  }
+
+  /**
+   * Least recently used cache of decoded tile pixels. Tiles are decoded outside of the lock so
+   * concurrent renders can read different tiles in parallel.
+   */
+  private static class DecodedTileCache {
+    private final int capacity;
+    private final LinkedHashMap<ImageTile<?>, ImageProcessor> entries;
+    private long hits;
+    private long misses;
+
+    DecodedTileCache(final int capacity) {
+      this.capacity = capacity;
+      this.entries = new LinkedHashMap<ImageTile<?>, ImageProcessor>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<ImageTile<?>, ImageProcessor> eldest) {
+          return size() > DecodedTileCache.this.capacity;
+        }
+      };
+    }
+
+    ImageProcessor get(ImageTile<?> tile) {
+      synchronized (this) {
+        ImageProcessor ip = this.entries.get(tile);
+        if (ip != null) {
+          this.hits++;
+          return ip;
+        }
+        this.misses++;
+      }
+
+      ImagePlus image = tile.getImagePlus();
+      if (image == null || image.getWidth() == 0 || image.getHeight() == 0)
+        return null;
+
+      ImageProcessor ip = image.getProcessor();
+      ip.setCalibrationTable(null);
+      FlatFieldCorrection.apply(ip);
+
+      synchronized (this) {
+        this.entries.put(tile, ip);
+      }
+      return ip;
+    }
+
+    synchronized void clear() {
+      this.entries.clear();
+    }
+
+    synchronized long getHits() {
+      return this.hits;
+    }
+
+    synchronized long getMisses() {
+      return this.misses;
+    }
+  }
+}
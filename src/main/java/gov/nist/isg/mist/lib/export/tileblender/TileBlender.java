@@ -168,6 +168,17 @@ public abstract class TileBlender {
    * Applies post-processing functions
    */
   public void postProcess(int tileX, int tileY, int tileXSize, int tileYSize, OMETiffWriter omeTiffWriter) throws IOException, FormatException {
+    omeTiffWriter.saveBytes(0, this.finalizeTile(), tileX, tileY, tileXSize, tileYSize);
+  }
+
+  /**
+   * Finalizes blending and converts the blended tile into big-endian interleaved bytes. A new
+   * buffer is allocated by each call to init, so the returned array can be handed off to another
+   * thread.
+   *
+   * @return the bytes of the blended tile
+   */
+  public byte[] finalizeTile() {
     this.finalizeBlend();
 
     // Save to image
@@ -190,7 +201,7 @@ public abstract class TileBlender {
         break;
     }
 
-    omeTiffWriter.saveBytes(0, this.buffer.array(), tileX, tileY, tileXSize, tileYSize);
+    return this.buffer.array();
   }
 
 //  public ImageProcessor getIp() {
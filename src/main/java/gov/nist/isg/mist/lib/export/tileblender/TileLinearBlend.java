@@ -16,31 +16,36 @@
 //
 // ================================================================
 
+
 package gov.nist.isg.mist.lib.export.tileblender;
 
 import gov.nist.isg.mist.lib.common.Array2DView;
 import gov.nist.isg.mist.lib.imagetile.ImageTile;
-import ij.ImagePlus;
-import ij.plugin.filter.ImageProperties;
 import ij.process.*;
-import loci.formats.FormatException;
-import loci.formats.out.OMETiffWriter;
 
-import java.io.IOException;
-import java.nio.*;
+import java.util.Arrays;
 
 /**
  * Creates a linear blending function
  *
+ * <p>The weight of a source pixel, pow(minEW * minNS, alpha), is separable into
+ * pow(minEW, alpha) * pow(minNS, alpha), so it is stored as one weight vector per image axis
+ * instead of a full per-pixel table. The weighted pixel sums and weight sums are accumulated in
+ * double precision into flat arrays that are reused from one output tile to the next, and source
+ * pixels are read directly from the primitive pixel arrays.</p>
+ *
  * @author Tim Blattner
  * @version 1.0
  */
 public class TileLinearBlend extends TileBlender {
 
   private static final double DEFAULT_ALPHA = 1.5;
-  private double[][][] pixelSums;
-  private double[][][] weightSums;
-  private double[][] lookupTable;
+
+  private double[] colWeights;
+  private double[] rowWeights;
+
+  private double[] pixelSums;
+  private double[] weightSums;
 
   /**
    * Initializes the linear blend
@@ -55,64 +60,102 @@ public class TileLinearBlend extends TileBlender {
     if (Double.isNaN(alpha))
       alpha = DEFAULT_ALPHA;
 
-    this.lookupTable = new double[initImgHeight][initImgWidth];
-    for (int i = 0; i < initImgHeight; i++) {
-      for (int j = 0; j < initImgWidth; j++) {
-        this.lookupTable[i][j] = getWeight(i, j, initImgWidth, initImgHeight, alpha);
-      }
-    }
-
+    this.colWeights = getWeights(initImgWidth, alpha);
+    this.rowWeights = getWeights(initImgHeight, alpha);
+    this.pixelSums = new double[0];
+    this.weightSums = new double[0];
   }
 
-  private static double getWeight(int row, int col, int imWidth, int imHeight, double alpha) {
-    double distWest = col + 1.0;
-    double distNorth = row + 1.0;
-    double distEast = imWidth - col;
-    double distSouth = imHeight - row;
-    double minEastWest = Math.min(distEast, distWest);
-    double minNorthSouth = Math.min(distNorth, distSouth);
-    double weight = minEastWest * minNorthSouth;
-
-    return Math.pow(weight, alpha);
-
+  /**
+   * Computes the 1D weights pow(min(dist to either edge), alpha) along one image axis
+   */
+  private static double[] getWeights(int length, double alpha) {
+    double[] weights = new double[length];
+    for (int i = 0; i < length; i++) {
+      double dist = Math.min(i + 1.0, length - i);
+      weights[i] = Math.pow(dist, alpha);
+    }
+    return weights;
   }
 
   @Override
   public void initBlender(int tileSizeX, int tileSizeY) {
-    this.pixelSums = new double[tileSizeY][tileSizeX][this.getNumChannels()];
-    this.weightSums = new double[tileSizeY][tileSizeX][this.getNumChannels()];
+    int numPixels = tileSizeX * tileSizeY;
+    int numValues = numPixels * this.getNumChannels();
+
+    // reuse the accumulators across output tiles, only growing them when needed
+    if (this.weightSums.length < numPixels)
+      this.weightSums = new double[numPixels];
+    else
+      Arrays.fill(this.weightSums, 0, numPixels, 0.0);
+
+    if (this.pixelSums.length < numValues)
+      this.pixelSums = new double[numValues];
+    else
+      Arrays.fill(this.pixelSums, 0, numValues, 0.0);
   }
 
   @Override
   public void blend(int x, int y, Array2DView pixels, ImageTile<?> tile) {
     ImageProcessor ip = tile.getImageProcessor();
+    Object src = ip.getPixels();
+    int srcWidth = ip.getWidth();
+    int tileWidth = this.getTileWidth();
+    int numChannels = this.getNumChannels();
 
-    int tileY = 0;
-    for (int row = pixels.getStartRow(); row < pixels.getStartRow() + pixels.getViewHeight(); row++) {
-      int tileX = 0;
-      for (int col = pixels.getStartCol(); col < pixels.getStartCol() + pixels.getViewWidth(); col++) {
-
-        int value = ip.getPixel(col, row);
-//        int[] pixelChannels = imgPlus.getPixel(col, row);
-        double weight = this.lookupTable[row][col];
+    int startCol = pixels.getStartCol();
+    int viewWidth = pixels.getViewWidth();
 
-        if (this.getNumChannels() == 1) {
-          this.pixelSums[y + tileY][x + tileX][0] += (weight * value);
-          this.weightSums[y + tileY][x + tileX][0] += weight;
+    int tileY = y;
+    for (int row = pixels.getStartRow(); row < pixels.getStartRow() + pixels.getViewHeight(); row++) {
+      double rowWeight = this.rowWeights[row];
+      int srcIdx = row * srcWidth + startCol;
+      int dstIdx = tileY * tileWidth + x;
+
+      // the pixel values match ImageProcessor.getPixel for each processor type
+      if (numChannels == 1) {
+        if (src instanceof short[]) {
+          short[] p = (short[]) src;
+          for (int i = 0; i < viewWidth; i++) {
+            double weight = rowWeight * this.colWeights[startCol + i];
+            this.pixelSums[dstIdx + i] += weight * (p[srcIdx + i] & 0xffff);
+            this.weightSums[dstIdx + i] += weight;
+          }
+        } else if (src instanceof byte[]) {
+          byte[] p = (byte[]) src;
+          for (int i = 0; i < viewWidth; i++) {
+            double weight = rowWeight * this.colWeights[startCol + i];
+            this.pixelSums[dstIdx + i] += weight * (p[srcIdx + i] & 0xff);
+            this.weightSums[dstIdx + i] += weight;
+          }
+        } else if (src instanceof float[]) {
+          float[] p = (float[]) src;
+          for (int i = 0; i < viewWidth; i++) {
+            double weight = rowWeight * this.colWeights[startCol + i];
+            this.pixelSums[dstIdx + i] += weight * Float.floatToIntBits(p[srcIdx + i]);
+            this.weightSums[dstIdx + i] += weight;
+          }
         } else {
-          int r = (value & 16711680) >> 16;
-          int g = (value & '\uff00') >> 8;
-          int b = value & 255;
-          this.pixelSums[y + tileY][x + tileX][0] += (weight * r);
-          this.weightSums[y + tileY][x + tileX][0] += weight;
-          this.pixelSums[y + tileY][x + tileX][1] += (weight * g);
-          this.weightSums[y + tileY][x + tileX][1] += weight;
-          this.pixelSums[y + tileY][x + tileX][2] += (weight * b);
-          this.weightSums[y + tileY][x + tileX][2] += weight;
+          int[] p = (int[]) src;
+          for (int i = 0; i < viewWidth; i++) {
+            double weight = rowWeight * this.colWeights[startCol + i];
+            this.pixelSums[dstIdx + i] += weight * p[srcIdx + i];
+            this.weightSums[dstIdx + i] += weight;
+          }
+        }
+      } else {
+        int[] p = (int[]) src;
+        for (int i = 0; i < viewWidth; i++) {
+          double weight = rowWeight * this.colWeights[startCol + i];
+          int value = p[srcIdx + i];
+          int sumIdx = (dstIdx + i) * numChannels;
+          this.pixelSums[sumIdx] += weight * ((value & 16711680) >> 16);
+          this.pixelSums[sumIdx + 1] += weight * ((value & 0xff00) >> 8);
+          this.pixelSums[sumIdx + 2] += weight * (value & 255);
+          this.weightSums[dstIdx + i] += weight;
         }
-
-        tileX++;
       }
+
       tileY++;
     }
   }
@@ -120,15 +163,19 @@ public class TileLinearBlend extends TileBlender {
   @Override
   public void finalizeBlend()
   {
+    int numChannels = this.getNumChannels();
+    int idx = 0;
     for (int row = 0; row < this.getTileHeight(); row++) {
       for (int col = 0; col < this.getTileWidth(); col++) {
-        for (int channel = 0; channel < this.getNumChannels(); channel++) {
+        double weight = this.weightSums[idx];
+        for (int channel = 0; channel < numChannels; channel++) {
           double weightedVal = 0.0;
-          if (this.weightSums[row][col][channel] != 0) {
-            weightedVal = this.pixelSums[row][col][channel] / this.weightSums[row][col][channel];
+          if (weight != 0) {
+            weightedVal = this.pixelSums[idx * numChannels + channel] / weight;
           }
           this.setPixelValueChannel(col, row, channel, (int) weightedVal);
         }
+        idx++;
       }
     }
   }
@@ -0,0 +1,255 @@
+// NIST-developed software is provided by NIST as a public service. You may use, copy and distribute copies of the software in any medium, provided that you keep intact this entire notice. You may improve, modify and create derivative works of the software or any portion of the software, and you may copy and distribute such modifications or works. Modified works should carry a notice stating that you changed the software and should note the date and nature of any such change. Please explicitly acknowledge the National Institute of Standards and Technology as the source of the software.
+
+// NIST-developed software is expressly provided "AS IS." NIST MAKES NO WARRANTY OF ANY KIND, EXPRESS, IMPLIED, IN FACT OR ARISING BY OPERATION OF LAW, INCLUDING, WITHOUT LIMITATION, THE IMPLIED WARRANTY OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE, NON-INFRINGEMENT AND DATA ACCURACY. NIST NEITHER REPRESENTS NOR WARRANTS THAT THE OPERATION OF THE SOFTWARE WILL BE UNINTERRUPTED OR ERROR-FREE, OR THAT ANY DEFECTS WILL BE CORRECTED. NIST DOES NOT WARRANT OR MAKE ANY REPRESENTATIONS REGARDING THE USE OF THE SOFTWARE OR THE RESULTS THEREOF, INCLUDING BUT NOT LIMITED TO THE CORRECTNESS, ACCURACY, RELIABILITY, OR USEFULNESS OF THE SOFTWARE.
+
+// You are solely responsible for determining the appropriateness of using and distributing the software and you assume all risks associated with its use, including but not limited to the risks and costs of program errors, compliance with applicable laws, damage to or loss of data, programs or equipment, and the unavailability or interruption of operation. This software is not intended to be used in any situation where a failure could cause risk of injury or damage to property. The software developed by NIST employees is not subject to copyright protection within the United States.
+
+
+
+// ================================================================
+//
+// Author: tjb3
+// Date: Oct 19, 2026 10:31:27 PM EST
+//
+// Time-stamp: <Oct 19, 2026 10:31:27 PM tjb3>
+//
+//
+// ================================================================
+
+package gov.nist.isg.mist.lib.imagetile;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+import gov.nist.isg.mist.lib.log.Log;
+import gov.nist.isg.mist.lib.log.Log.LogType;
+import ij.ImagePlus;
+import ij.process.ByteProcessor;
+import ij.process.ColorProcessor;
+import ij.process.FloatProcessor;
+import ij.process.ImageProcessor;
+import ij.process.ShortProcessor;
+
+/**
+ * In-pipeline flat-field, dark-field and background correction. Applied by
+ * {@link ImageTile#readTile()} to the freshly read pixels, so every consumer of tile pixels (FFT
+ * computation, translation refinement and image export) sees corrected tiles without the dataset
+ * being rewritten to disk first. The flat and dark images are loaded once per run and cached.
+ *
+ * <p> Each pixel becomes (raw - dark) * gain - background, where gain = mean(flat - dark) /
+ * (flat - dark) and background is a low percentile of the flat/dark corrected tile. The result is
+ * clamped to the range of the tile's pixel type and written back in place in a single pass. RGB
+ * tiles are corrected one channel at a time, each channel with its own background level.
+ *
+ * @author Tim Blattner
+ * @version 1.0
+ */
+public class FlatFieldCorrection {
+
+  /**
+   * Percentile of the corrected tile intensities taken as that tile's background level.
+   */
+  public static final double BACKGROUND_PERCENTILE = 1.0;
+
+  private static final int MAX_BACKGROUND_SAMPLES = 65536;
+  private static final float MIN_FLAT = 1.0e-6f;
+
+  private static volatile FlatFieldCorrection current = null;
+
+  private final float[] dark;
+  private final float[] gain;
+  private final int width;
+  private final int height;
+  private final boolean subtractBackground;
+  private volatile boolean warnedSize = false;
+
+  private FlatFieldCorrection(float[] dark, float[] gain, int width, int height,
+                              boolean subtractBackground) {
+    this.dark = dark;
+    this.gain = gain;
+    this.width = width;
+    this.height = height;
+    this.subtractBackground = subtractBackground;
+  }
+
+  /**
+   * Configures the correction applied to every tile that is read. Passing empty paths and false
+   * disables the correction.
+   *
+   * @param flatFieldPath      the flat-field image, or empty for none
+   * @param darkFieldPath      the dark-field image, or empty for none
+   * @param subtractBackground true to subtract a per-tile background level
+   * @throws IOException if the flat-field or dark-field image cannot be read, or their sizes
+   *                     differ
+   */
+  public static synchronized void configure(String flatFieldPath, String darkFieldPath,
+                                            boolean subtractBackground) throws IOException {
+    current = null;
+
+    boolean hasFlat = flatFieldPath != null && !flatFieldPath.isEmpty();
+    boolean hasDark = darkFieldPath != null && !darkFieldPath.isEmpty();
+    if (!hasFlat && !hasDark && !subtractBackground)
+      return;
+
+    ImageProcessor flatIp = hasFlat ? readImage(flatFieldPath) : null;
+    ImageProcessor darkIp = hasDark ? readImage(darkFieldPath) : null;
+    if (flatIp != null && darkIp != null && (flatIp.getWidth() != darkIp.getWidth()
+        || flatIp.getHeight() != darkIp.getHeight()))
+      throw new IOException("Flat-field and dark-field images differ in size");
+
+    ImageProcessor ref = flatIp != null ? flatIp : darkIp;
+    int width = ref == null ? 0 : ref.getWidth();
+    int height = ref == null ? 0 : ref.getHeight();
+    int n = width * height;
+
+    float[] dark = null;
+    if (darkIp != null) {
+      dark = new float[n];
+      for (int i = 0; i < n; i++)
+        dark[i] = darkIp.getf(i);
+    }
+
+    float[] gain = null;
+    if (flatIp != null) {
+      gain = new float[n];
+      double sum = 0.0;
+      for (int i = 0; i < n; i++) {
+        gain[i] = Math.max(flatIp.getf(i) - (dark == null ? 0f : dark[i]), MIN_FLAT);
+        sum += gain[i];
+      }
+      float mean = (float) (sum / n);
+      for (int i = 0; i < n; i++)
+        gain[i] = mean / gain[i];
+    }
+
+    current = new FlatFieldCorrection(dark, gain, width, height, subtractBackground);
+    Log.msg(LogType.INFO, "Tile correction enabled: flat-field: " + hasFlat + " dark-field: "
+        + hasDark + " background subtraction: " + subtractBackground);
+  }
+
+  /**
+   * Disables the correction and releases the cached flat and dark images
+   */
+  public static synchronized void disable() {
+    current = null;
+  }
+
+  /**
+   * @return true if tiles are corrected as they are read
+   */
+  public static boolean isEnabled() {
+    return current != null;
+  }
+
+  /**
+   * Corrects the pixels of a tile in place. Does nothing if the correction is disabled.
+   *
+   * @param ip the tile pixels
+   */
+  public static void apply(ImageProcessor ip) {
+    FlatFieldCorrection correction = current;
+    if (correction == null || ip == null)
+      return;
+    correction.correct(ip);
+  }
+
+  private void correct(ImageProcessor ip) {
+    boolean useField = this.dark != null || this.gain != null;
+    if (useField && (ip.getWidth() != this.width || ip.getHeight() != this.height)) {
+      if (!this.warnedSize) {
+        this.warnedSize = true;
+        Log.msg(LogType.MANDATORY, "Flat-field/dark-field size " + this.width + "x" + this.height
+            + " does not match the tile size " + ip.getWidth() + "x" + ip.getHeight()
+            + ", skipping flat-field correction");
+      }
+      useField = false;
+    }
+
+    if (!useField && !this.subtractBackground)
+      return;
+
+    if (ip instanceof ColorProcessor) {
+      for (int c = 0; c < ip.getNChannels(); c++) {
+        FloatProcessor channel = ip.toFloat(c, null);
+        correctChannel(channel, useField, true, 255f);
+        ip.setPixels(c, channel);
+      }
+      return;
+    }
+
+    boolean integer = ip instanceof ByteProcessor || ip instanceof ShortProcessor;
+    float max = ip instanceof ByteProcessor ? 255f : ip instanceof ShortProcessor ? 65535f
+        : Float.MAX_VALUE;
+    correctChannel(ip, useField, integer, max);
+  }
+
+  /**
+   * Corrects a single channel in place
+   *
+   * @param ip       the channel pixels
+   * @param useField true to apply the flat-field and dark-field images
+   * @param integer  true to round and clamp the result to [0, max]
+   * @param max      the largest value of the channel's pixel type
+   */
+  private void correctChannel(ImageProcessor ip, boolean useField, boolean integer, float max) {
+    int n = ip.getWidth() * ip.getHeight();
+    float background = 0f;
+    if (this.subtractBackground)
+      background = estimateBackground(ip, useField);
+
+    if (!useField && background == 0f)
+      return;
+
+    for (int i = 0; i < n; i++) {
+      float v = useField ? correctPixel(ip.getf(i), i) : ip.getf(i);
+      v -= background;
+      if (integer) {
+        v = Math.min(max, Math.max(0f, v));
+        ip.setf(i, Math.round(v));
+      } else {
+        ip.setf(i, v);
+      }
+    }
+  }
+
+  private float correctPixel(float v, int i) {
+    if (this.dark != null)
+      v -= this.dark[i];
+    if (this.gain != null)
+      v *= this.gain[i];
+    return v;
+  }
+
+  /**
+   * Estimates the background as a low percentile of a strided sample of the corrected pixels
+   */
+  private float estimateBackground(ImageProcessor ip, boolean useField) {
+    int n = ip.getWidth() * ip.getHeight();
+    int stride = Math.max(1, n / MAX_BACKGROUND_SAMPLES);
+    float[] sample = new float[(n + stride - 1) / stride];
+    int k = 0;
+    for (int i = 0; i < n && k < sample.length; i += stride)
+      sample[k++] = useField ? correctPixel(ip.getf(i), i) : ip.getf(i);
+
+    Arrays.sort(sample, 0, k);
+    int idx = (int) Math.min(k - 1, Math.floor(BACKGROUND_PERCENTILE / 100.0 * k));
+    return k == 0 ? 0f : Math.max(0f, sample[idx]);
+  }
+
+  private static ImageProcessor readImage(String path) throws IOException {
+    if (!new File(path).exists())
+      throw new IOException("Unable to find correction image: " + path);
+
+    ImagePlus image = new ImagePlus(path);
+    if (image.getWidth() == 0 || image.getHeight() == 0)
+      image = BioFormatsReader.readImage(path);
+    if (image == null || image.getWidth() == 0 || image.getHeight() == 0)
+      throw new IOException("Unable to read correction image: " + path);
+
+    // an RGB field is reduced to its intensity, getf would return the packed pixel
+    ImageProcessor ip = image.getProcessor();
+    return ip instanceof ColorProcessor ? ip.convertToFloat() : ip;
+  }
+
+}
@@ -210,6 +210,18 @@ public abstract class ImageTile<T> implements Comparable<ImageTile<?>> {
 
   }
 
+  /**
+   * Resets the fft release count
+   *
+   * @param gridWidth  the grid width
+   * @param gridHeight the grid height
+   * @param startRow   the startRow
+   * @param startCol   the startCol
+   */
+  public void resetFftReleaseCount(int gridWidth, int gridHeight, int startRow, int startCol) {
+    this.fftReleaseCount = getReleaseCount(gridWidth, gridHeight, startRow, startCol);
+  }
+
   /**
    * @param corr the correlation value to be set
    */
@@ -345,6 +357,15 @@ public abstract class ImageTile<T> implements Comparable<ImageTile<?>> {
     return this.fftReleaseCount;
   }
 
+  /**
+   * Sets the fft release count
+   *
+   * @param val the fft release count
+   */
+  public void setFftReleaseCount(int val) {
+    this.fftReleaseCount = val;
+  }
+
   /**
    * Decrements release count
    */
@@ -475,6 +496,21 @@ public abstract class ImageTile<T> implements Comparable<ImageTile<?>> {
   }
 
 
+  /**
+   * Sets the dimensions and bit depth of a tile that was read before its pixels were released.
+   * Used to restore the metadata of a tile view that is rebuilt after being evicted from a
+   * compact tile grid.
+   *
+   * @param width    the width of the image
+   * @param height   the height of the image
+   * @param bitDepth the bit depth of the image
+   */
+  public void setDimensions(int width, int height, int bitDepth) {
+    this.width = width;
+    this.height = height;
+    this.bitDepth = bitDepth;
+  }
+
   /**
    * Checks if a tile has been read from disk or not
    *
@@ -510,6 +546,8 @@ public abstract class ImageTile<T> implements Comparable<ImageTile<?>> {
       this.bitDepth = image.getBitDepth();
       this.pixels = image.getProcessor();
       this.pixels.setCalibrationTable(null);
+      // apply the flat-field/background correction (if configured) before anyone uses the pixels
+      FlatFieldCorrection.apply(this.pixels);
       this.pixelsLoaded = true;
     }
   }
@@ -30,6 +30,10 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -45,6 +49,7 @@ import gov.nist.isg.mist.lib.imagetile.memory.TileWorkerMemory;
 import gov.nist.isg.mist.lib.log.Log;
 import gov.nist.isg.mist.lib.log.Log.LogType;
 import gov.nist.isg.mist.lib.tilegrid.TileGrid;
+import gov.nist.isg.mist.lib.tilegrid.TileGridUtils;
 import gov.nist.isg.mist.lib32.imagetile.fftw.FftwImageTile32;
 import gov.nist.isg.mist.lib32.imagetile.fftw.FftwStitching32;
 import gov.nist.isg.mist.lib32.imagetile.java.JavaImageTile32;
@@ -70,6 +75,16 @@ public class Stitching {
    * The number of FFT peaks to check
    */
   public static int NUM_PEAKS = 2;
+  /**
+   * The smallest search window (in offsets) that the parallel refinement searches split across
+   * the refinement fork-join pool, smaller windows are searched on the calling thread
+   */
+  public static int PARALLEL_REFINEMENT_MIN_OFFSETS = 2500;
+
+  /**
+   * The number of offsets below which an exhaustive search task is not split further
+   */
+  private static final int EXHAUSTIVE_TASK_OFFSETS = 64;
 
 
   /**
@@ -444,6 +459,86 @@ public class Stitching {
     return true;
   }
 
+  /**
+   * Parses a relative displacement file (as written by outputRelativeDisplacements) into a
+   * TileGrid. Tiles are matched by file name; the north and west translations of each matched tile
+   * are set from the file.
+   *
+   * @param grid the grid of tiles
+   * @param file the relative displacement file
+   * @return true if the parsing was successful, otherwise false
+   */
+  public static <T> boolean parseRelativeDisplacements(TileGrid<ImageTile<T>> grid, File file) {
+    // indices rather than tiles, a compact grid may evict tiles while the file is parsed
+    Map<String, Integer> tilesByName = TileGridUtils.indexTilesByName(grid);
+
+    NumberFormat numberFormat = NumberFormat.getNumberInstance(Locale.getDefault());
+    try {
+      BufferedReader br = new BufferedReader(new FileReader(file));
+
+      String line;
+      while ((line = br.readLine()) != null) {
+        if (line.trim().isEmpty())
+          continue;
+
+        // direction, tile, neighbor, corr, x, y
+        String[] split = line.split(", ");
+        if (split.length != 6) {
+          Log.msg(LogType.MANDATORY, "Error: unable to parse line: " + line);
+          Log.msg(LogType.MANDATORY, "Error parsing relative positions: " + file.getAbsolutePath());
+          br.close();
+          return false;
+        }
+
+        Integer index = tilesByName.get(split[1].trim());
+        if (index == null) {
+          Log.msg(LogType.MANDATORY, "Error: unknown tile " + split[1] + " in: " + file.getAbsolutePath());
+          br.close();
+          return false;
+        }
+
+        CorrelationTriple triple;
+        try {
+          double corr = numberFormat.parse(split[3].trim()).doubleValue();
+          int x = Integer.parseInt(split[4].trim());
+          int y = Integer.parseInt(split[5].trim());
+          triple = new CorrelationTriple(corr, x, y);
+        } catch (NumberFormatException e) {
+          Log.msg(LogType.MANDATORY, "Unable to parse translation for " + split[1] + ": " + line);
+          br.close();
+          return false;
+        } catch (ParseException e) {
+          Log.msg(LogType.MANDATORY, "Unable to parse correlation for " + split[1] + ": " + line);
+          br.close();
+          return false;
+        }
+
+        ImageTile<T> tile = grid.getSubGridTile(index / grid.getExtentWidth(),
+            index % grid.getExtentWidth());
+        String direction = split[0].trim();
+        if (direction.equals("west")) {
+          tile.setWestTranslation(triple);
+        } else if (direction.equals("north")) {
+          tile.setNorthTranslation(triple);
+        } else {
+          Log.msg(LogType.MANDATORY, "Error: Unknown direction: " + direction);
+          br.close();
+          return false;
+        }
+      }
+
+      br.close();
+    } catch (FileNotFoundException e) {
+      Log.msg(LogType.MANDATORY, "Unable to find file: " + file.getAbsolutePath());
+      return false;
+    } catch (IOException e) {
+      e.printStackTrace();
+      return false;
+    }
+
+    return true;
+  }
+
   /**
    * Prints the relative displacements of all tiles in a grid. Requires logging level of helpful.
    *
@@ -534,8 +629,26 @@ public class Stitching {
    */
   public static CorrelationTriple peakCrossCorrelationUD(ImageTile<?> t1, ImageTile<?> t2, int x,
                                                          int y) {
-    int w = t1.getWidth();
-    int h = t1.getHeight();
+    return peakCrossCorrelationUD(t1, t2, x, y, t1.getWidth(), t1.getHeight());
+  }
+
+  /**
+   * Computes the peak cross correlation (up/down) between two images from a peak of a phase
+   * correlation matrix that was computed with zero padded transforms. A peak at x in a transform
+   * of width fftWidth is either a shift of x or of fftWidth - x, and likewise for y.
+   *
+   * @param t1        image 1 (neighbor)
+   * @param t2        image 2 (current)
+   * @param x         the x max position
+   * @param y         the y max position
+   * @param fftWidth  the width of the transform
+   * @param fftHeight the height of the transform
+   * @return the relative displacement along the x and y axis and the correlation
+   */
+  public static CorrelationTriple peakCrossCorrelationUD(ImageTile<?> t1, ImageTile<?> t2, int x,
+                                                         int y, int fftWidth, int fftHeight) {
+    int w = fftWidth;
+    int h = fftHeight;
     List<CorrelationTriple> corrList = new ArrayList<CorrelationTriple>();
 
     // a given correlation triple between two images can have multiple interpretations
@@ -583,8 +696,26 @@ public class Stitching {
    */
   public static CorrelationTriple peakCrossCorrelationLR(ImageTile<?> t1, ImageTile<?> t2, int x,
                                                          int y) {
-    int w = t1.getWidth();
-    int h = t1.getHeight();
+    return peakCrossCorrelationLR(t1, t2, x, y, t1.getWidth(), t1.getHeight());
+  }
+
+  /**
+   * Computes the peak cross correlation (left/right) between two images from a peak of a phase
+   * correlation matrix that was computed with zero padded transforms. A peak at x in a transform
+   * of width fftWidth is either a shift of x or of fftWidth - x, and likewise for y.
+   *
+   * @param t1        image 1 (neighbor)
+   * @param t2        image 2 (current)
+   * @param x         the x max position
+   * @param y         the y max position
+   * @param fftWidth  the width of the transform
+   * @param fftHeight the height of the transform
+   * @return the relative displacement along the x and y axis and the correlation
+   */
+  public static CorrelationTriple peakCrossCorrelationLR(ImageTile<?> t1, ImageTile<?> t2, int x,
+                                                         int y, int fftWidth, int fftHeight) {
+    int w = fftWidth;
+    int h = fftHeight;
     List<CorrelationTriple> corrList = new ArrayList<CorrelationTriple>();
 
     // a given correlation triple between two images can have multiple interpretations
@@ -874,6 +1005,226 @@ public class Stitching {
   }
 
 
+  /**
+   * Computes cross correlation search with multi point hill climbing, climbing from the start
+   * points in parallel on the given fork-join pool. The random start points are drawn
+   * on the calling thread in the same order as {@link #computeCCF_MultiPoint_HillClimbing}, and
+   * every climb uses its own cache, so the result matches the sequential search. Windows smaller
+   * than {@link #PARALLEL_REFINEMENT_MIN_OFFSETS} use the sequential search.
+   *
+   * @param minBoundX      min x boundary
+   * @param maxBoundX      max x boundary
+   * @param minBoundY      min y boundary
+   * @param maxBoundY      max y bounadary
+   * @param startX         start x position for hill climb
+   * @param startY         start y position for hill climb
+   * @param numStartPoints the number of random starting points to check
+   * @param i1             the first image for CCF computation (north/west neighbor)
+   * @param i2             the second image for CCF computation (current)
+   * @param pool           the fork-join pool the climbs run on
+   * @return the highest correlation triple within the bounding box using hill climbing
+   */
+  public static CorrelationTriple computeCCF_MultiPoint_HillClimbingParallel(int minBoundX, int maxBoundX,
+                                                                             int minBoundY, int maxBoundY,
+                                                                             int startX, int startY,
+                                                                             int numStartPoints,
+                                                                             final ImageTile<?> i1,
+                                                                             final ImageTile<?> i2,
+                                                                             ForkJoinPool pool) {
+    int width = i1.getWidth();
+    int height = i1.getHeight();
+    final int minX = clampToValidBounds(minBoundX, width);
+    final int maxX = clampToValidBounds(maxBoundX, width);
+    final int minY = clampToValidBounds(minBoundY, height);
+    final int maxY = clampToValidBounds(maxBoundY, height);
+
+    final int yLength = maxY - minY + 1;
+    final int xLength = maxX - minX + 1;
+    if (numStartPoints < 1 || (long) xLength * yLength < PARALLEL_REFINEMENT_MIN_OFFSETS)
+      return computeCCF_MultiPoint_HillClimbing(minBoundX, maxBoundX, minBoundY, maxBoundY,
+          startX, startY, numStartPoints, i1, i2);
+
+    int rangeX = Math.abs(maxX - minX);
+    int rangeY = Math.abs(maxY - minY);
+
+    // the given start point followed by the random start points
+    int[][] starts = new int[numStartPoints + 1][];
+    starts[0] = new int[]{startX, startY};
+    for (int i = 1; i <= numStartPoints; i++) {
+      int curStartX = (int) Math.round(Math.random() * rangeX + Math.min(minX, maxX));
+      int curStartY = (int) Math.round(Math.random() * rangeY + Math.min(minY, maxY));
+      starts[i] = new int[]{curStartX, curStartY};
+    }
+
+    List<ForkJoinTask<CorrelationTriple>> climbs = new ArrayList<ForkJoinTask<CorrelationTriple>>();
+    for (final int[] start : starts) {
+      climbs.add(new RecursiveTask<CorrelationTriple>() {
+        @Override
+        protected CorrelationTriple compute() {
+          return Stitching.computeCCF_HillClimbingWorker(minX, maxX, minY, maxY, start[0],
+              start[1], i1, i2, new double[yLength][xLength]);
+        }
+      });
+    }
+
+    final List<ForkJoinTask<CorrelationTriple>> tasks = climbs;
+    pool.invoke(new RecursiveTask<Void>() {
+      @Override
+      protected Void compute() {
+        ForkJoinTask.invokeAll(tasks);
+        return null;
+      }
+    });
+
+    List<CorrelationTriple> results = new ArrayList<CorrelationTriple>(climbs.size());
+    for (ForkJoinTask<CorrelationTriple> climb : climbs)
+      results.add(climb.join());
+
+    // find the best correlation and translation from the hill climb ending points
+    CorrelationTriple bestTriple = new CorrelationTriple(-1.0, startX, startY);
+    for (CorrelationTriple t : results) {
+      if (t.getCorrelation() > bestTriple.getCorrelation())
+        bestTriple = t;
+    }
+
+    // determine how many converged
+    int numConverged = 0;
+    for (CorrelationTriple t : results) {
+      if (t.getX() == bestTriple.getX() && t.getY() == bestTriple.getY())
+        numConverged++;
+    }
+
+    Log.msg(LogType.INFO, "Translation HIll Climb (" + i1.getFileName() + "," + i2.getFileName() +
+        ") had " + numConverged + "/" + results.size() +
+        " hill climbs converge with best corr: " + bestTriple.getCorrelation());
+
+    return bestTriple;
+  }
+
+
+  /**
+   * Computes cross correlation search exhaustively, splitting the columns of the search window
+   * across the given fork-join pool. Ties are broken as in {@link
+   * #computeCCF_Exhaustive}, so the result matches the sequential search. Windows smaller than
+   * {@link #PARALLEL_REFINEMENT_MIN_OFFSETS} use the sequential search.
+   *
+   * @param minBoundX min x boundary
+   * @param maxBoundX max x boundary
+   * @param minBoundY min y boundary
+   * @param maxBoundY max y boundary
+   * @param startX    start x position for hill climb
+   * @param startY    start y position for hill climb
+   * @param i1        the first image for CCF computation (north/west neighbor)
+   * @param i2        the second image for CCF computation (current)
+   * @param pool      the fork-join pool the search runs on
+   * @return the highest correlation triple within the bounding box
+   */
+  public static CorrelationTriple computeCCF_ExhaustiveParallel(int minBoundX, int maxBoundX,
+                                                                int minBoundY, int maxBoundY,
+                                                                int startX, int startY,
+                                                                ImageTile<?> i1, ImageTile<?> i2,
+                                                                ForkJoinPool pool) {
+    int width = i1.getWidth();
+    int height = i1.getHeight();
+    int minX = clampToValidBounds(minBoundX, width);
+    int maxX = clampToValidBounds(maxBoundX, width);
+    int minY = clampToValidBounds(minBoundY, height);
+    int maxY = clampToValidBounds(maxBoundY, height);
+
+    long numOffsets = (long) (maxX - minX + 1) * (maxY - minY + 1);
+    if (maxX < minX || maxY < minY || numOffsets < PARALLEL_REFINEMENT_MIN_OFFSETS)
+      return computeCCF_Exhaustive(minBoundX, maxBoundX, minBoundY, maxBoundY, startX, startY,
+          i1, i2);
+
+    ExhaustiveResult result = pool.invoke(
+        new ExhaustiveTask(minX, maxX, minY, maxY, i1, i2));
+
+    if (Double.isInfinite(result.lastPeak))
+      return new CorrelationTriple(-1.0, startX, startY);
+
+    if (!result.found)
+      return new CorrelationTriple(Double.NEGATIVE_INFINITY, startX, startY);
+
+    return new CorrelationTriple(result.maxPeak, result.maxX, result.maxY);
+  }
+
+  /**
+   * The best offset found in a range of columns of an exhaustive search
+   */
+  private static class ExhaustiveResult {
+    private boolean found = false;
+    private double maxPeak = Double.NEGATIVE_INFINITY;
+    private int maxX;
+    private int maxY;
+    // the correlation at the last offset in the range
+    private double lastPeak = Double.NaN;
+  }
+
+  /**
+   * Exhaustively searches the columns [minX, maxX] of a search window, splitting the columns in
+   * half until a task has at most EXHAUSTIVE_TASK_OFFSETS offsets or a single column.
+   */
+  private static class ExhaustiveTask extends RecursiveTask<ExhaustiveResult> {
+    private final int minX;
+    private final int maxX;
+    private final int minY;
+    private final int maxY;
+    private final ImageTile<?> i1;
+    private final ImageTile<?> i2;
+
+    ExhaustiveTask(int minX, int maxX, int minY, int maxY, ImageTile<?> i1, ImageTile<?> i2) {
+      this.minX = minX;
+      this.maxX = maxX;
+      this.minY = minY;
+      this.maxY = maxY;
+      this.i1 = i1;
+      this.i2 = i2;
+    }
+
+    @Override
+    protected ExhaustiveResult compute() {
+      int numCols = this.maxX - this.minX + 1;
+      int numRows = this.maxY - this.minY + 1;
+      if (numCols > 1 && (long) numCols * numRows > EXHAUSTIVE_TASK_OFFSETS) {
+        int mid = this.minX + numCols / 2;
+        ExhaustiveTask left = new ExhaustiveTask(this.minX, mid - 1, this.minY, this.maxY, this.i1,
+            this.i2);
+        ExhaustiveTask right = new ExhaustiveTask(mid, this.maxX, this.minY, this.maxY, this.i1,
+            this.i2);
+        left.fork();
+        ExhaustiveResult rightResult = right.compute();
+        ExhaustiveResult leftResult = left.join();
+
+        // the sequential search keeps the last of equal peaks, so the right half wins ties
+        ExhaustiveResult best;
+        if (!rightResult.found)
+          best = leftResult;
+        else if (!leftResult.found)
+          best = rightResult;
+        else
+          best = rightResult.maxPeak >= leftResult.maxPeak ? rightResult : leftResult;
+
+        best.lastPeak = rightResult.lastPeak;
+        return best;
+      }
+
+      ExhaustiveResult result = new ExhaustiveResult();
+      for (int curX = this.minX; curX <= this.maxX; curX++) {
+        for (int curY = this.minY; curY <= this.maxY; curY++) {
+          double curPeak = CorrelationUtils.computeCrossCorrelation(this.i1, this.i2, curX, curY);
+          if (curPeak >= result.maxPeak) {
+            result.found = true;
+            result.maxPeak = curPeak;
+            result.maxX = curX;
+            result.maxY = curY;
+          }
+          result.lastPeak = curPeak;
+        }
+      }
+      return result;
+    }
+  }
+
   private static int clampToValidBounds(int val, int dimSize) {
     val = Math.max(val, -(dimSize - 1));
     val = Math.min(val, dimSize - 1);
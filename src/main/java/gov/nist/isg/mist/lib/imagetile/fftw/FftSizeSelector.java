@@ -0,0 +1,263 @@
+// NIST-developed software is provided by NIST as a public service. You may use, copy and distribute copies of the software in any medium, provided that you keep intact this entire notice. You may improve, modify and create derivative works of the software or any portion of the software, and you may copy and distribute such modifications or works. Modified works should carry a notice stating that you changed the software and should note the date and nature of any such change. Please explicitly acknowledge the National Institute of Standards and Technology as the source of the software.
+
+// NIST-developed software is expressly provided "AS IS." NIST MAKES NO WARRANTY OF ANY KIND, EXPRESS, IMPLIED, IN FACT OR ARISING BY OPERATION OF LAW, INCLUDING, WITHOUT LIMITATION, THE IMPLIED WARRANTY OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE, NON-INFRINGEMENT AND DATA ACCURACY. NIST NEITHER REPRESENTS NOR WARRANTS THAT THE OPERATION OF THE SOFTWARE WILL BE UNINTERRUPTED OR ERROR-FREE, OR THAT ANY DEFECTS WILL BE CORRECTED. NIST DOES NOT WARRANT OR MAKE ANY REPRESENTATIONS REGARDING THE USE OF THE SOFTWARE OR THE RESULTS THEREOF, INCLUDING BUT NOT LIMITED TO THE CORRECTNESS, ACCURACY, RELIABILITY, OR USEFULNESS OF THE SOFTWARE.
+
+// You are solely responsible for determining the appropriateness of using and distributing the software and you assume all risks associated with its use, including but not limited to the risks and costs of program errors, compliance with applicable laws, damage to or loss of data, programs or equipment, and the unavailability or interruption of operation. This software is not intended to be used in any situation where a failure could cause risk of injury or damage to property. The software developed by NIST employees is not subject to copyright protection within the United States.
+
+
+
+// ================================================================
+//
+// Author: tjb3
+// Date: Oct 19, 2026 10:41:17 PM EST
+//
+// Time-stamp: <Oct 19, 2026 10:41:17 PM tjb3>
+//
+//
+// ================================================================
+
+package gov.nist.isg.mist.lib.imagetile.fftw;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import gov.nist.isg.mist.lib.log.Log;
+import gov.nist.isg.mist.lib.log.Log.LogType;
+
+/**
+ * Selects FFT-friendly transform sizes for image tiles. A tile of an awkward size (large prime
+ * factors) is zero padded to a nearby size whose prime factors are small, if doing so makes the
+ * transforms faster on this machine.
+ * <p> Candidate sizes for each dimension are the tile size itself and the smallest 7-, 5- and
+ * 3-smooth sizes that are at most 25% larger. The candidates are benchmarked once per tile size
+ * and precision, and the selection is cached in a file next to the FFTW wisdom so later runs on
+ * the same machine reuse it without benchmarking.
+ * <p> Zero padding to a size P moves the correlation peak of a negative shift -d to P - d
+ * instead of W - d, so the peaks must be interpreted using the padded size (see the padded
+ * overloads of Stitching.peakCrossCorrelationLR and Stitching.peakCrossCorrelationUD).
+ *
+ * @author Tim Blattner
+ * @version 1.0
+ */
+public class FftSizeSelector {
+
+  /**
+   * Name of the file, stored next to the FFTW wisdom, that holds the selected sizes
+   */
+  public static final String CACHE_FILE_NAME = "fftSizes.txt";
+
+  /**
+   * The largest padded size allowed, as a fraction of the tile size
+   */
+  private static final double MAX_PADDING = 1.25;
+
+  /**
+   * The number of timed repetitions per candidate, the fastest is kept
+   */
+  private static final int REPETITIONS = 3;
+
+  /**
+   * Times a forward and backward transform pair of a given size.
+   */
+  public interface PlanTimer {
+
+    /**
+     * Times one forward and backward transform pair
+     *
+     * @param width  the transform width
+     * @param height the transform height
+     * @return the elapsed time in nanoseconds
+     */
+    long time(int width, int height);
+  }
+
+  /**
+   * Gets the candidate transform sizes for a dimension, in increasing order. The first candidate
+   * is always n itself.
+   *
+   * @param n the tile dimension
+   * @return the candidate sizes
+   */
+  public static List<Integer> getCandidateSizes(int n) {
+    List<Integer> candidates = new ArrayList<Integer>();
+    candidates.add(n);
+
+    int maxSize = (int) Math.floor(n * MAX_PADDING);
+    int[][] primeSets = {{2, 3}, {2, 3, 5}, {2, 3, 5, 7}};
+    for (int[] primes : primeSets) {
+      int size = nextSmooth(n, primes);
+      if (size <= maxSize && !candidates.contains(size))
+        candidates.add(size);
+    }
+
+    Collections.sort(candidates);
+    return candidates;
+  }
+
+  /**
+   * Gets the largest transform size that could be selected for a dimension
+   *
+   * @param n the tile dimension
+   * @return the largest candidate size
+   */
+  public static int getMaxCandidateSize(int n) {
+    List<Integer> candidates = getCandidateSizes(n);
+    return candidates.get(candidates.size() - 1);
+  }
+
+  /**
+   * Gets the file holding the selected sizes, in the same directory as the FFTW wisdom
+   *
+   * @param planPath the path to the FFTW wisdom file or its directory
+   * @return the cache file
+   */
+  public static File getCacheFile(String planPath) {
+    File file = new File(planPath).getAbsoluteFile();
+    File dir = file.isDirectory() ? file : file.getParentFile();
+    return new File(dir, CACHE_FILE_NAME);
+  }
+
+  /**
+   * Selects the transform size for a tile size. A size cached in cacheFile is reused, otherwise
+   * the candidate widths are benchmarked at the tile height, then the candidate heights at the
+   * selected width.
+   *
+   * @param width     the tile width
+   * @param height    the tile height
+   * @param precision the precision of the transforms, used to key the cache
+   * @param cacheFile the file holding previously selected sizes
+   * @param loadCache true to reuse a cached selection
+   * @param saveCache true to store a new selection
+   * @param timer     times a transform pair of a candidate size
+   * @return the selected {width, height}
+   */
+  public static int[] selectSize(int width, int height, String precision, File cacheFile,
+                                 boolean loadCache, boolean saveCache, PlanTimer timer) {
+    String key = width + "x" + height + " " + precision;
+    Map<String, String> cache = readCache(cacheFile);
+
+    if (loadCache && cache.containsKey(key)) {
+      int[] size = parseSize(cache.get(key));
+      if (size != null && size[0] >= width && size[1] >= height) {
+        Log.msg(LogType.MANDATORY, "Loaded FFT size " + size[0] + "x" + size[1] + " for " + key
+            + " from " + cacheFile.getAbsolutePath());
+        return size;
+      }
+    }
+
+    List<Integer> widths = getCandidateSizes(width);
+    List<Integer> heights = getCandidateSizes(height);
+    if (widths.size() == 1 && heights.size() == 1)
+      return new int[]{width, height};
+
+    Log.msg(LogType.MANDATORY, "Benchmarking FFT sizes for " + key + "...");
+
+    int bestWidth = fastest(widths, height, true, timer);
+    int bestHeight = fastest(heights, bestWidth, false, timer);
+
+    Log.msg(LogType.MANDATORY, "Selected FFT size " + bestWidth + "x" + bestHeight + " for " + key);
+
+    if (saveCache) {
+      cache.put(key, bestWidth + "x" + bestHeight);
+      writeCache(cacheFile, cache);
+    }
+
+    return new int[]{bestWidth, bestHeight};
+  }
+
+  private static int fastest(List<Integer> candidates, int other, boolean isWidth,
+                             PlanTimer timer) {
+    int best = candidates.get(0);
+    long bestTime = Long.MAX_VALUE;
+    for (int candidate : candidates) {
+      int w = isWidth ? candidate : other;
+      int h = isWidth ? other : candidate;
+
+      // the first pair warms up the plan and the caches
+      timer.time(w, h);
+      long time = Long.MAX_VALUE;
+      for (int i = 0; i < REPETITIONS; i++)
+        time = Math.min(time, timer.time(w, h));
+
+      Log.msg(LogType.VERBOSE, "FFT size " + w + "x" + h + ": " + (time / 1000000.0) + "ms");
+
+      if (time < bestTime) {
+        bestTime = time;
+        best = candidate;
+      }
+    }
+    return best;
+  }
+
+  private static int nextSmooth(int n, int[] primes) {
+    int size = Math.max(n, 1);
+    while (true) {
+      int m = size;
+      for (int p : primes) {
+        while (m % p == 0)
+          m /= p;
+      }
+      if (m == 1)
+        return size;
+      size++;
+    }
+  }
+
+  private static int[] parseSize(String value) {
+    String[] parts = value.trim().split("x");
+    if (parts.length != 2)
+      return null;
+    try {
+      return new int[]{Integer.parseInt(parts[0]), Integer.parseInt(parts[1])};
+    } catch (NumberFormatException e) {
+      return null;
+    }
+  }
+
+  private static Map<String, String> readCache(File cacheFile) {
+    Map<String, String> cache = new LinkedHashMap<String, String>();
+    if (!cacheFile.exists())
+      return cache;
+
+    try {
+      BufferedReader reader = new BufferedReader(new FileReader(cacheFile));
+      try {
+        String line;
+        while ((line = reader.readLine()) != null) {
+          // <width>x<height> <precision> <fftWidth>x<fftHeight>
+          String[] parts = line.trim().split("\\s+");
+          if (parts.length == 3)
+            cache.put(parts[0] + " " + parts[1], parts[2]);
+        }
+      } finally {
+        reader.close();
+      }
+    } catch (IOException e) {
+      Log.msg(LogType.MANDATORY, "Unable to read FFT sizes from " + cacheFile.getAbsolutePath()
+          + ": " + e.getMessage());
+    }
+    return cache;
+  }
+
+  private static void writeCache(File cacheFile, Map<String, String> cache) {
+    try {
+      PrintWriter out = new PrintWriter(new FileWriter(cacheFile));
+      for (Map.Entry<String, String> entry : cache.entrySet())
+        out.println(entry.getKey() + " " + entry.getValue());
+      out.close();
+    } catch (IOException e) {
+      Log.msg(LogType.MANDATORY, "Unable to save FFT sizes to " + cacheFile.getAbsolutePath()
+          + ": " + e.getMessage());
+    }
+  }
+
+}
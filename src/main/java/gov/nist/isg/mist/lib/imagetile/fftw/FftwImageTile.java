@@ -49,6 +49,16 @@ public class FftwImageTile extends ImageTile<Pointer<Double>> {
    */
   public static int fftSize;
 
+  /**
+   * The width of the FFT, at least the width of a tile
+   */
+  public static int fftWidth;
+
+  /**
+   * The height of the FFT, at least the height of a tile
+   */
+  public static int fftHeight;
+
   /**
    * The forward FFTW plan
    */
@@ -111,14 +121,10 @@ public class FftwImageTile extends ImageTile<Pointer<Double>> {
 
     readTile();
 
-    Pointer<Double> fftIn = FFTW3Library.fftw_alloc_real(super.getWidth() * super.getHeight());
+    Pointer<Double> fftIn = FFTW3Library.fftw_alloc_real(fftWidth * fftHeight);
     this.fft = FFTW3Library.fftw_alloc_complex(fftSize);
 
-
-    for (long r = 0; r < super.getHeight(); r++)
-      for (long c = 0; c < super.getWidth(); c++) {
-        fftIn.setDoubleAtIndex(r * super.getWidth() + c, super.getPixels().getPixelValue((int) c, (int) r));
-      }
+    copyAndPad(fftIn);
 
     FFTW3Library.fftw_execute_dft_r2c(plan_fwd, fftIn, this.fft);
     FFTW3Library.fftw_free(fftIn);
@@ -139,11 +145,7 @@ public class FftwImageTile extends ImageTile<Pointer<Double>> {
 
     if (super.isMemoryLoaded()) {
       this.fftIn = memory.getFFTInP();
-      int count = 0;
-      for (long r = 0; r < super.getHeight(); r++)
-        for (long c = 0; c < super.getWidth(); c++) {
-          fftIn.setDoubleAtIndex(r * super.getWidth() + c, super.getPixels().getPixelValue((int) c, (int) r));
-        }
+      copyAndPad(this.fftIn);
 
       FFTW3Library.fftw_execute_dft_r2c(plan_fwd, this.fftIn, this.fft);
     }
@@ -155,6 +157,24 @@ public class FftwImageTile extends ImageTile<Pointer<Double>> {
     this.computeFft(pool, memory);
   }
 
+  /**
+   * Copies the pixels into the transform input, zeroing the padding to the right of and below
+   * the image
+   *
+   * @param input the fftWidth x fftHeight transform input
+   */
+  private void copyAndPad(Pointer<Double> input) {
+    int width = super.getWidth();
+    int height = super.getHeight();
+    for (long r = 0; r < fftHeight; r++)
+      for (long c = 0; c < fftWidth; c++) {
+        if (r < height && c < width)
+          input.setDoubleAtIndex(r * fftWidth + c, super.getPixels().getPixelValue((int) c, (int) r));
+        else
+          input.setDoubleAtIndex(r * fftWidth + c, 0);
+      }
+  }
+
   /**
    * Saves the FFTW plan to the path
    *
@@ -251,6 +271,22 @@ public class FftwImageTile extends ImageTile<Pointer<Double>> {
    * @param plan     the plan's path you are trying to load
    */
   public static void initPlans(int width, int height, int flags, boolean loadPlan, String plan) {
+    initPlans(width, height, width, height, flags, loadPlan, plan);
+  }
+
+  /**
+   * Initializes a FFTW plan for tiles zero padded to fftWidth x fftHeight
+   *
+   * @param width     the width for the tile
+   * @param height    the height for the tile
+   * @param fftWidth  the padded width of the transform
+   * @param fftHeight the padded height of the transform
+   * @param flags     the FFTW flag(s) for the plan
+   * @param loadPlan  true if you want to try to load a plan from disk
+   * @param plan      the plan's path you are trying to load
+   */
+  public static void initPlans(int width, int height, int fftWidth, int fftHeight, int flags,
+                               boolean loadPlan, String plan) {
     if (loadPlan) {
       int result = FftwImageTile.loadPlan(plan);
 
@@ -263,16 +299,22 @@ public class FftwImageTile extends ImageTile<Pointer<Double>> {
 
     Log.msg(LogType.MANDATORY, "Loading FFTW Plan...");
 
-    fftSize = (width / 2 + 1) * height;
+    if (fftWidth != width || fftHeight != height)
+      Log.msg(LogType.MANDATORY, "Padding " + width + "x" + height + " tiles to " + fftWidth + "x"
+          + fftHeight + " for the FFT");
+
+    FftwImageTile.fftWidth = fftWidth;
+    FftwImageTile.fftHeight = fftHeight;
+    fftSize = (fftWidth / 2 + 1) * fftHeight;
 
-    Pointer<Double> ptrIn = FFTW3Library.fftw_alloc_real(width * height);
+    Pointer<Double> ptrIn = FFTW3Library.fftw_alloc_real(fftWidth * fftHeight);
     Pointer<Double> ptrOut = FFTW3Library.fftw_alloc_complex(fftSize);
 
     Pointer<Double> ptrC2RIn = FFTW3Library.fftw_alloc_complex(fftSize);
-    Pointer<Double> ptrC2ROut = FFTW3Library.fftw_alloc_real(width * height);
+    Pointer<Double> ptrC2ROut = FFTW3Library.fftw_alloc_real(fftWidth * fftHeight);
 
-    plan_fwd = FFTW3Library.fftw_plan_dft_r2c_2d(height, width, ptrIn, ptrOut, flags);
-    plan_bwd = FFTW3Library.fftw_plan_dft_c2r_2d(height, width, ptrC2RIn, ptrC2ROut, flags);
+    plan_fwd = FFTW3Library.fftw_plan_dft_r2c_2d(fftHeight, fftWidth, ptrIn, ptrOut, flags);
+    plan_bwd = FFTW3Library.fftw_plan_dft_c2r_2d(fftHeight, fftWidth, ptrC2RIn, ptrC2ROut, flags);
 
     FFTW3Library.fftw_free(ptrIn);
     FFTW3Library.fftw_free(ptrOut);
@@ -281,6 +323,54 @@ public class FftwImageTile extends ImageTile<Pointer<Double>> {
 
   }
 
+  /**
+   * Selects the FFT size for a tile size, benchmarking the candidate sizes from {@link
+   * FftSizeSelector} unless a previous selection is stored next to the FFTW plan
+   *
+   * @param width     the width for the tile
+   * @param height    the height for the tile
+   * @param loadSizes true to reuse a selection stored next to the plan
+   * @param saveSizes true to store the selection next to the plan
+   * @param plan      the plan's path
+   * @return the selected {fftWidth, fftHeight}
+   */
+  public static int[] selectFftSize(int width, int height, boolean loadSizes, boolean saveSizes,
+                                    String plan) {
+    return FftSizeSelector.selectSize(width, height, "double", FftSizeSelector.getCacheFile(plan),
+        loadSizes, saveSizes, new FftSizeSelector.PlanTimer() {
+          @Override
+          public long time(int fftWidth, int fftHeight) {
+            return timePlans(fftWidth, fftHeight);
+          }
+        });
+  }
+
+  private static long timePlans(int fftWidth, int fftHeight) {
+    long size = (long) (fftWidth / 2 + 1) * fftHeight;
+    Pointer<Double> real = FFTW3Library.fftw_alloc_real((long) fftWidth * fftHeight);
+    Pointer<Double> complex = FFTW3Library.fftw_alloc_complex(size);
+
+    // estimated plans are cheap to create and do not touch the arrays while planning
+    fftw_plan fwd = FFTW3Library.fftw_plan_dft_r2c_2d(fftHeight, fftWidth, real, complex,
+        FFTW3Library.FFTW_ESTIMATE);
+    fftw_plan bwd = FFTW3Library.fftw_plan_dft_c2r_2d(fftHeight, fftWidth, complex, real,
+        FFTW3Library.FFTW_ESTIMATE);
+
+    for (long i = 0; i < (long) fftWidth * fftHeight; i++)
+      real.setDoubleAtIndex(i, i % 255);
+
+    long start = System.nanoTime();
+    FFTW3Library.fftw_execute_dft_r2c(fwd, real, complex);
+    FFTW3Library.fftw_execute_dft_c2r(bwd, complex, real);
+    long time = System.nanoTime() - start;
+
+    FFTW3Library.fftw_destroy_plan(fwd);
+    FFTW3Library.fftw_destroy_plan(bwd);
+    FFTW3Library.fftw_free(real);
+    FFTW3Library.fftw_free(complex);
+    return time;
+  }
+
   /**
    * Destroys forward and backward plan's memory
    */
@@ -0,0 +1,616 @@
+// NIST-developed software is provided by NIST as a public service. You may use, copy and distribute copies of the software in any medium, provided that you keep intact this entire notice. You may improve, modify and create derivative works of the software or any portion of the software, and you may copy and distribute such modifications or works. Modified works should carry a notice stating that you changed the software and should note the date and nature of any such change. Please explicitly acknowledge the National Institute of Standards and Technology as the source of the software.
+
+// NIST-developed software is expressly provided "AS IS." NIST MAKES NO WARRANTY OF ANY KIND, EXPRESS, IMPLIED, IN FACT OR ARISING BY OPERATION OF LAW, INCLUDING, WITHOUT LIMITATION, THE IMPLIED WARRANTY OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE, NON-INFRINGEMENT AND DATA ACCURACY. NIST NEITHER REPRESENTS NOR WARRANTS THAT THE OPERATION OF THE SOFTWARE WILL BE UNINTERRUPTED OR ERROR-FREE, OR THAT ANY DEFECTS WILL BE CORRECTED. NIST DOES NOT WARRANT OR MAKE ANY REPRESENTATIONS REGARDING THE USE OF THE SOFTWARE OR THE RESULTS THEREOF, INCLUDING BUT NOT LIMITED TO THE CORRECTNESS, ACCURACY, RELIABILITY, OR USEFULNESS OF THE SOFTWARE.
+
+// You are solely responsible for determining the appropriateness of using and distributing the software and you assume all risks associated with its use, including but not limited to the risks and costs of program errors, compliance with applicable laws, damage to or loss of data, programs or equipment, and the unavailability or interruption of operation. This software is not intended to be used in any situation where a failure could cause risk of injury or damage to property. The software developed by NIST employees is not subject to copyright protection within the United States.
+
+
+// ================================================================
+//
+// Author: tjb3
+// Date: Oct 19, 2026 10:12:31 AM EST
+//
+// Time-stamp: <Oct 19, 2026 10:12:31 AM tjb3>
+//
+// ================================================================
+
+package gov.nist.isg.mist.lib.imagetile.java;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Two dimensional real-to-complex FFT operating on a single contiguous float[] buffer.
+ *
+ * <p>The buffer holds fftHeight rows of {@link #getRowStride()} floats each. For a forward
+ * transform the real input occupies the first fftWidth floats of each row, the transform is
+ * computed in place and produces fftWidth/2+1 interleaved complex values per row (the same layout
+ * FFTW uses for r2c transforms). The inverse transform is also computed in place, leaving the real
+ * result in the first fftWidth floats of each row, scaled by 1/(fftWidth*fftHeight).</p>
+ *
+ * <p>The padded sizes are the smallest sizes whose prime factors are 2, 3 and 5. All twiddle
+ * tables are computed once when the plan is constructed, so a plan can be shared by any number of
+ * threads. Arithmetic is carried out in double precision. Large transforms can optionally split
+ * their row and column passes across a shared fork-join pool.</p>
+ *
+ * @author Tim Blattner
+ * @version 1.0
+ */
+public class FlatFft {
+
+  /**
+   * The minimum number of complex values in a transform before the row and column passes are
+   * split across threads.
+   */
+  private static final int PARALLEL_THRESHOLD = 1 << 18;
+
+  /**
+   * The number of complex columns gathered together in the column pass.
+   */
+  private static final int COLUMN_BLOCK = 8;
+
+  private static ForkJoinPool forkJoinPool = null;
+
+  private final int width;
+  private final int height;
+  private final int fftWidth;
+  private final int fftHeight;
+  private final int rowStride;
+
+  private final ComplexPlan rowPlan;
+  private final ComplexPlan colPlan;
+
+  // e^{-2 pi i k / fftWidth} for k in [0, fftWidth/2], used to split the packed real rows
+  private final double[] realTwiddles;
+
+  private int numThreads;
+
+  /**
+   * Constructs a 2D real-to-complex FFT for images of the given size.
+   *
+   * @param width  the width of the image in pixels
+   * @param height the height of the image in pixels
+   */
+  public FlatFft(int width, int height) {
+    this.width = width;
+    this.height = height;
+
+    // the real rows are transformed as complex FFTs of half the length, so the padded width
+    // must be even
+    this.fftWidth = 2 * nfftFast((width + 1) / 2);
+    this.fftHeight = nfftFast(height);
+    this.rowStride = this.fftWidth + 2;
+
+    this.rowPlan = new ComplexPlan(this.fftWidth / 2);
+    this.colPlan = new ComplexPlan(this.fftHeight);
+
+    int half = this.fftWidth / 2;
+    this.realTwiddles = new double[2 * (half + 1)];
+    for (int k = 0; k <= half; k++) {
+      double phase = -2.0 * Math.PI * k / this.fftWidth;
+      this.realTwiddles[2 * k] = Math.cos(phase);
+      this.realTwiddles[2 * k + 1] = Math.sin(phase);
+    }
+
+    this.numThreads = 1;
+  }
+
+  /**
+   * Sets the number of threads used within a single transform. Only transforms larger than an
+   * internal threshold are split across threads.
+   *
+   * @param numThreads the number of threads to use per transform
+   */
+  public void setNumThreads(int numThreads) {
+    this.numThreads = Math.max(1, numThreads);
+  }
+
+  /**
+   * @return the number of threads used within a single transform
+   */
+  public int getNumThreads() {
+    return this.numThreads;
+  }
+
+  /**
+   * @return the width of the image in pixels
+   */
+  public int getWidth() {
+    return this.width;
+  }
+
+  /**
+   * @return the height of the image in pixels
+   */
+  public int getHeight() {
+    return this.height;
+  }
+
+  /**
+   * @return the padded width of the transform
+   */
+  public int getFftWidth() {
+    return this.fftWidth;
+  }
+
+  /**
+   * @return the padded height of the transform
+   */
+  public int getFftHeight() {
+    return this.fftHeight;
+  }
+
+  /**
+   * @return the number of complex values per row of the frequency domain
+   */
+  public int getComplexWidth() {
+    return this.fftWidth / 2 + 1;
+  }
+
+  /**
+   * @return the number of floats per row of the buffer
+   */
+  public int getRowStride() {
+    return this.rowStride;
+  }
+
+  /**
+   * @return the number of floats required to hold a transform
+   */
+  public int getBufferSize() {
+    return this.rowStride * this.fftHeight;
+  }
+
+  /**
+   * Applies the forward transform in place.
+   *
+   * @param buffer the buffer holding the real input in the first fftWidth floats of each row
+   */
+  public void applyForward(float[] buffer) {
+    applyForward(buffer, this.fftHeight);
+  }
+
+  /**
+   * Applies the forward transform in place. Rows at or after nonZeroRows are treated as zero
+   * padding, which avoids transforming them.
+   *
+   * @param buffer      the buffer holding the real input in the first fftWidth floats of each row
+   * @param nonZeroRows the number of leading rows that may contain non-zero values
+   */
+  public void applyForward(final float[] buffer, final int nonZeroRows) {
+    runRange(this.fftHeight, new RangeTask() {
+      @Override
+      public void run(int start, int end) {
+        double[] work = new double[FlatFft.this.fftWidth + 2];
+        double[] z = new double[FlatFft.this.fftWidth];
+        double[] scratch = FlatFft.this.rowPlan.newScratch();
+        for (int r = start; r < end; r++) {
+          if (r < nonZeroRows)
+            forwardRow(buffer, r * FlatFft.this.rowStride, work, z, scratch);
+          else
+            Arrays.fill(buffer, r * FlatFft.this.rowStride,
+                (r + 1) * FlatFft.this.rowStride, 0.0f);
+        }
+      }
+    });
+
+    transformColumns(buffer, false);
+  }
+
+  /**
+   * Applies the inverse transform in place. The real result is left in the first fftWidth floats
+   * of each row and is scaled by 1/(fftWidth*fftHeight).
+   *
+   * @param buffer the buffer holding the complex frequency domain values
+   */
+  public void applyInverse(final float[] buffer) {
+    transformColumns(buffer, true);
+
+    runRange(this.fftHeight, new RangeTask() {
+      @Override
+      public void run(int start, int end) {
+        double[] work = new double[FlatFft.this.fftWidth + 2];
+        double[] z = new double[FlatFft.this.fftWidth];
+        double[] scratch = FlatFft.this.rowPlan.newScratch();
+        for (int r = start; r < end; r++)
+          inverseRow(buffer, r * FlatFft.this.rowStride, work, z, scratch);
+      }
+    });
+  }
+
+  private void transformColumns(final float[] buffer, final boolean inverse) {
+    int numBlocks = (getComplexWidth() + COLUMN_BLOCK - 1) / COLUMN_BLOCK;
+    runRange(numBlocks, new RangeTask() {
+      @Override
+      public void run(int start, int end) {
+        int n = FlatFft.this.fftHeight;
+        int stride = FlatFft.this.rowStride;
+        double[] in = new double[2 * n * COLUMN_BLOCK];
+        double[] out = new double[2 * n];
+        double[] scratch = FlatFft.this.colPlan.newScratch();
+
+        for (int b = start; b < end; b++) {
+          int c0 = b * COLUMN_BLOCK;
+          int nc = Math.min(COLUMN_BLOCK, getComplexWidth() - c0);
+
+          // gather a block of columns, reading contiguous runs from each row
+          for (int r = 0; r < n; r++) {
+            int idx = r * stride + 2 * c0;
+            for (int j = 0; j < nc; j++, idx += 2) {
+              in[j * 2 * n + 2 * r] = buffer[idx];
+              in[j * 2 * n + 2 * r + 1] = buffer[idx + 1];
+            }
+          }
+
+          for (int j = 0; j < nc; j++) {
+            FlatFft.this.colPlan.transform(in, j * 2 * n, out, inverse, scratch);
+            System.arraycopy(out, 0, in, j * 2 * n, 2 * n);
+          }
+
+          for (int r = 0; r < n; r++) {
+            int idx = r * stride + 2 * c0;
+            for (int j = 0; j < nc; j++, idx += 2) {
+              buffer[idx] = (float) in[j * 2 * n + 2 * r];
+              buffer[idx + 1] = (float) in[j * 2 * n + 2 * r + 1];
+            }
+          }
+        }
+      }
+    });
+  }
+
+  /**
+   * Transforms one real row by packing it as a complex sequence of half the length.
+   */
+  private void forwardRow(float[] buffer, int offset, double[] work, double[] z,
+                          double[] scratch) {
+    int half = this.fftWidth / 2;
+
+    for (int i = 0; i < this.fftWidth; i++)
+      work[i] = buffer[offset + i];
+
+    this.rowPlan.transform(work, 0, z, false, scratch);
+
+    double[] tw = this.realTwiddles;
+    for (int k = 0; k <= half; k++) {
+      int a = 2 * (k % half);
+      int b = 2 * ((half - k) % half);
+
+      // even and odd sample spectra
+      double zr = z[a], zi = z[a + 1];
+      double cr = z[b], ci = -z[b + 1];
+      double er = 0.5 * (zr + cr), ei = 0.5 * (zi + ci);
+      double or = 0.5 * (zi - ci), oi = -0.5 * (zr - cr);
+
+      double wr = tw[2 * k], wi = tw[2 * k + 1];
+      buffer[offset + 2 * k] = (float) (er + wr * or - wi * oi);
+      buffer[offset + 2 * k + 1] = (float) (ei + wr * oi + wi * or);
+    }
+  }
+
+  /**
+   * Inverts one row of half complex values back to real values, including the 2D scale factor.
+   */
+  private void inverseRow(float[] buffer, int offset, double[] work, double[] z,
+                          double[] scratch) {
+    int half = this.fftWidth / 2;
+    double scale = 1.0 / ((double) half * this.fftHeight);
+
+    double[] tw = this.realTwiddles;
+    for (int k = 0; k < half; k++) {
+      double xr = buffer[offset + 2 * k], xi = buffer[offset + 2 * k + 1];
+      double cr = buffer[offset + 2 * (half - k)], ci = -buffer[offset + 2 * (half - k) + 1];
+
+      double er = 0.5 * (xr + cr), ei = 0.5 * (xi + ci);
+      double dr = 0.5 * (xr - cr), di = 0.5 * (xi - ci);
+
+      // multiply by the conjugate twiddle
+      double wr = tw[2 * k], wi = -tw[2 * k + 1];
+      double or = dr * wr - di * wi, oi = dr * wi + di * wr;
+
+      work[2 * k] = er - oi;
+      work[2 * k + 1] = ei + or;
+    }
+
+    this.rowPlan.transform(work, 0, z, true, scratch);
+
+    for (int i = 0; i < this.fftWidth; i++)
+      buffer[offset + i] = (float) (z[i] * scale);
+    buffer[offset + this.fftWidth] = 0.0f;
+    buffer[offset + this.fftWidth + 1] = 0.0f;
+  }
+
+  private interface RangeTask {
+    void run(int start, int end);
+  }
+
+  /**
+   * Runs the task over [0, n), splitting the range across the fork-join pool if this transform is
+   * large enough and more than one thread is requested.
+   */
+  private void runRange(int n, final RangeTask task) {
+    if (this.numThreads <= 1 || getComplexWidth() * this.fftHeight < PARALLEL_THRESHOLD || n < 2) {
+      task.run(0, n);
+      return;
+    }
+
+    final int grain = Math.max(1, n / (this.numThreads * 4));
+    getForkJoinPool().invoke(new RangeAction(task, 0, n, grain));
+  }
+
+  private static synchronized ForkJoinPool getForkJoinPool() {
+    if (forkJoinPool == null)
+      forkJoinPool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+    return forkJoinPool;
+  }
+
+  private static class RangeAction extends RecursiveAction {
+    private final RangeTask task;
+    private final int start;
+    private final int end;
+    private final int grain;
+
+    RangeAction(RangeTask task, int start, int end, int grain) {
+      this.task = task;
+      this.start = start;
+      this.end = end;
+      this.grain = grain;
+    }
+
+    @Override
+    protected void compute() {
+      if (this.end - this.start <= this.grain) {
+        this.task.run(this.start, this.end);
+      } else {
+        int mid = (this.start + this.end) >>> 1;
+        invokeAll(new RangeAction(this.task, this.start, mid, this.grain),
+            new RangeAction(this.task, mid, this.end, this.grain));
+      }
+    }
+  }
+
+  /**
+   * Gets the smallest size greater than or equal to n whose prime factors are only 2, 3 and 5.
+   *
+   * @param n the minimum size
+   * @return the transform size
+   */
+  public static int nfftFast(int n) {
+    int size = Math.max(n, 1);
+    while (true) {
+      int m = size;
+      while (m % 2 == 0)
+        m /= 2;
+      while (m % 3 == 0)
+        m /= 3;
+      while (m % 5 == 0)
+        m /= 5;
+      if (m == 1)
+        return size;
+      size++;
+    }
+  }
+
+  /**
+   * Mixed radix complex FFT of a fixed length on interleaved double arrays, with precomputed
+   * factors and twiddles. Radix 2, 3 and 4 stages use specialized butterflies, any other factor uses a
+   * generic butterfly.
+   */
+  private static class ComplexPlan {
+    private final int n;
+    private final int[] factors;
+    private final double[] twiddles;
+    private final int maxFactor;
+
+    ComplexPlan(int n) {
+      this.n = n;
+
+      int[] buf = new int[64];
+      int numFactors = 0;
+      int p = 4;
+      int remaining = n;
+      int maxP = 1;
+      double floorSqrt = Math.floor(Math.sqrt(n));
+      while (remaining > 1) {
+        while (remaining % p != 0) {
+          switch (p) {
+            case 4:
+              p = 2;
+              break;
+            case 2:
+              p = 3;
+              break;
+            default:
+              p += 2;
+              break;
+          }
+          if (p > floorSqrt)
+            p = remaining;
+        }
+        remaining /= p;
+        buf[numFactors++] = p;
+        buf[numFactors++] = remaining;
+        maxP = Math.max(maxP, p);
+      }
+      this.factors = new int[Math.max(numFactors, 2)];
+      System.arraycopy(buf, 0, this.factors, 0, numFactors);
+      if (numFactors == 0) {
+        // length one transform
+        this.factors[0] = 1;
+        this.factors[1] = 1;
+      }
+      this.maxFactor = maxP;
+
+      this.twiddles = new double[2 * n];
+      for (int k = 0; k < n; k++) {
+        double phase = -2.0 * Math.PI * k / n;
+        this.twiddles[2 * k] = Math.cos(phase);
+        this.twiddles[2 * k + 1] = Math.sin(phase);
+      }
+    }
+
+    double[] newScratch() {
+      return new double[2 * this.maxFactor];
+    }
+
+    /**
+     * Computes the unscaled transform of n complex values starting at in[inOffset] into out.
+     */
+    void transform(double[] in, int inOffset, double[] out, boolean inverse, double[] scratch) {
+      work(out, 0, in, inOffset, 1, 0, inverse, scratch);
+    }
+
+    private void work(double[] out, int outOffset, double[] in, int inOffset, int fstride,
+                      int factorIdx, boolean inverse, double[] scratch) {
+      int p = this.factors[factorIdx];
+      int m = this.factors[factorIdx + 1];
+
+      if (m == 1) {
+        for (int k = 0; k < p; k++) {
+          out[outOffset + 2 * k] = in[inOffset + 2 * k * fstride];
+          out[outOffset + 2 * k + 1] = in[inOffset + 2 * k * fstride + 1];
+        }
+      } else {
+        for (int k = 0; k < p; k++)
+          work(out, outOffset + 2 * k * m, in, inOffset + 2 * k * fstride, fstride * p,
+              factorIdx + 2, inverse, scratch);
+      }
+
+      switch (p) {
+        case 1:
+          break;
+        case 2:
+          butterfly2(out, outOffset, fstride, m, inverse);
+          break;
+        case 3:
+          butterfly3(out, outOffset, fstride, m, inverse);
+          break;
+        case 4:
+          butterfly4(out, outOffset, fstride, m, inverse);
+          break;
+        default:
+          butterflyGeneric(out, outOffset, fstride, m, p, inverse, scratch);
+          break;
+      }
+    }
+
+    private void butterfly2(double[] f, int off, int fstride, int m, boolean inverse) {
+      double sign = inverse ? -1.0 : 1.0;
+      for (int k = 0; k < m; k++) {
+        int i0 = off + 2 * k;
+        int i1 = off + 2 * (k + m);
+        int t = 2 * k * fstride;
+        double wr = this.twiddles[t], wi = sign * this.twiddles[t + 1];
+        double tr = f[i1] * wr - f[i1 + 1] * wi;
+        double ti = f[i1] * wi + f[i1 + 1] * wr;
+        f[i1] = f[i0] - tr;
+        f[i1 + 1] = f[i0 + 1] - ti;
+        f[i0] += tr;
+        f[i0 + 1] += ti;
+      }
+    }
+
+    private void butterfly3(double[] f, int off, int fstride, int m, boolean inverse) {
+      double sign = inverse ? -1.0 : 1.0;
+      double[] tw = this.twiddles;
+      double epi3 = sign * tw[2 * fstride * m + 1];
+      for (int k = 0; k < m; k++) {
+        int i0 = off + 2 * k;
+        int i1 = off + 2 * (k + m);
+        int i2 = off + 2 * (k + 2 * m);
+
+        int t1 = 2 * k * fstride, t2 = 2 * t1;
+        double w1r = tw[t1], w1i = sign * tw[t1 + 1];
+        double w2r = tw[t2], w2i = sign * tw[t2 + 1];
+
+        double s1r = f[i1] * w1r - f[i1 + 1] * w1i, s1i = f[i1] * w1i + f[i1 + 1] * w1r;
+        double s2r = f[i2] * w2r - f[i2 + 1] * w2i, s2i = f[i2] * w2i + f[i2 + 1] * w2r;
+
+        double s3r = s1r + s2r, s3i = s1i + s2i;
+        double s0r = (s1r - s2r) * epi3, s0i = (s1i - s2i) * epi3;
+
+        double mr = f[i0] - 0.5 * s3r, mi = f[i0 + 1] - 0.5 * s3i;
+        f[i0] += s3r;
+        f[i0 + 1] += s3i;
+
+        f[i2] = mr + s0i;
+        f[i2 + 1] = mi - s0r;
+        f[i1] = mr - s0i;
+        f[i1 + 1] = mi + s0r;
+      }
+    }
+
+    private void butterfly4(double[] f, int off, int fstride, int m, boolean inverse) {
+      double sign = inverse ? -1.0 : 1.0;
+      double[] tw = this.twiddles;
+      for (int k = 0; k < m; k++) {
+        int i0 = off + 2 * k;
+        int i1 = off + 2 * (k + m);
+        int i2 = off + 2 * (k + 2 * m);
+        int i3 = off + 2 * (k + 3 * m);
+
+        int t1 = 2 * k * fstride, t2 = 2 * t1, t3 = 3 * t1;
+        double w1r = tw[t1], w1i = sign * tw[t1 + 1];
+        double w2r = tw[t2], w2i = sign * tw[t2 + 1];
+        double w3r = tw[t3], w3i = sign * tw[t3 + 1];
+
+        double s0r = f[i1] * w1r - f[i1 + 1] * w1i, s0i = f[i1] * w1i + f[i1 + 1] * w1r;
+        double s1r = f[i2] * w2r - f[i2 + 1] * w2i, s1i = f[i2] * w2i + f[i2 + 1] * w2r;
+        double s2r = f[i3] * w3r - f[i3 + 1] * w3i, s2i = f[i3] * w3i + f[i3 + 1] * w3r;
+
+        double s5r = f[i0] - s1r, s5i = f[i0 + 1] - s1i;
+        double f0r = f[i0] + s1r, f0i = f[i0 + 1] + s1i;
+        double s3r = s0r + s2r, s3i = s0i + s2i;
+        double s4r = s0r - s2r, s4i = s0i - s2i;
+
+        f[i2] = f0r - s3r;
+        f[i2 + 1] = f0i - s3i;
+        f[i0] = f0r + s3r;
+        f[i0 + 1] = f0i + s3i;
+
+        if (inverse) {
+          f[i1] = s5r - s4i;
+          f[i1 + 1] = s5i + s4r;
+          f[i3] = s5r + s4i;
+          f[i3 + 1] = s5i - s4r;
+        } else {
+          f[i1] = s5r + s4i;
+          f[i1 + 1] = s5i - s4r;
+          f[i3] = s5r - s4i;
+          f[i3 + 1] = s5i + s4r;
+        }
+      }
+    }
+
+    private void butterflyGeneric(double[] f, int off, int fstride, int m, int p,
+                                  boolean inverse, double[] scratch) {
+      double sign = inverse ? -1.0 : 1.0;
+      double[] tw = this.twiddles;
+      for (int u = 0; u < m; u++) {
+        int k = u;
+        for (int q1 = 0; q1 < p; q1++, k += m) {
+          scratch[2 * q1] = f[off + 2 * k];
+          scratch[2 * q1 + 1] = f[off + 2 * k + 1];
+        }
+
+        k = u;
+        for (int q1 = 0; q1 < p; q1++, k += m) {
+          int twIdx = 0;
+          double accR = scratch[0], accI = scratch[1];
+          for (int q = 1; q < p; q++) {
+            twIdx += fstride * k;
+            if (twIdx >= this.n)
+              twIdx -= this.n;
+            double wr = tw[2 * twIdx], wi = sign * tw[2 * twIdx + 1];
+            double sr = scratch[2 * q], si = scratch[2 * q + 1];
+            accR += sr * wr - si * wi;
+            accI += sr * wi + si * wr;
+          }
+          f[off + 2 * k] = accR;
+          f[off + 2 * k + 1] = accI;
+        }
+      }
+    }
+  }
+}
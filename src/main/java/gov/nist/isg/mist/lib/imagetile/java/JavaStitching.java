@@ -55,17 +55,28 @@ public class JavaStitching {
     float[][] pcm = memory.getArrayMemory();
     pcm = peakCorrelationMatrix(t1, t2, pcm);
 
-    List<CorrelationTriple> peaks =
-        UtilFnsStitching.multiPeakCorrelationMatrixNoSort(pcm, Stitching.NUM_PEAKS, t1.getWidth(),
-            t2.getHeight());
+    // the flat engine pads the transforms and leaves the whole padded matrix, the legacy engine
+    // crops its inverse back to the tile size
+    int fftWidth = t1.getWidth();
+    int fftHeight = t1.getHeight();
+    List<CorrelationTriple> peaks;
+    if (JavaImageTile.flatFftPlan != null) {
+      fftWidth = JavaImageTile.flatFftPlan.getFftWidth();
+      fftHeight = JavaImageTile.flatFftPlan.getFftHeight();
+      peaks = UtilFnsStitching.multiPeakCorrelationMatrixNoSort(pcm[0],
+          JavaImageTile.flatFftPlan.getRowStride(), Stitching.NUM_PEAKS, fftWidth, fftHeight);
+    } else {
+      peaks = UtilFnsStitching.multiPeakCorrelationMatrixNoSort(pcm, Stitching.NUM_PEAKS,
+          t1.getWidth(), t2.getHeight());
+    }
     List<CorrelationTriple> multi_ccfs = new ArrayList<CorrelationTriple>(Stitching.NUM_PEAKS);
     for (int i = 0; i < peaks.size(); i++) {
       if (t1.isSameRowAs(t2))
         multi_ccfs.add(Stitching.peakCrossCorrelationLR(t1, t2, peaks.get(i).getX(), peaks.get(i)
-            .getY()));
+            .getY(), fftWidth, fftHeight));
       else if (t1.isSameColAs(t2))
         multi_ccfs.add(Stitching.peakCrossCorrelationUD(t1, t2, peaks.get(i).getX(), peaks.get(i)
-            .getY()));
+            .getY(), fftWidth, fftHeight));
       Debug.msg(DebugType.INFO, multi_ccfs.get(i).toString());
 
     }
@@ -90,6 +101,15 @@ public class JavaStitching {
     if (!t2.hasFft())
       t2.computeFft();
 
+    FlatFft flatFftPlan = JavaImageTile.flatFftPlan;
+    if (flatFftPlan != null) {
+      // the inverse is computed in place, the pcm is left in the first fftWidth floats of each row
+      UtilFnsStitching.computePhaseCorrelationJava(t1.getFft()[0], t2.getFft()[0], ncc[0],
+          flatFftPlan.getComplexWidth() * flatFftPlan.getFftHeight());
+      flatFftPlan.applyInverse(ncc[0]);
+      return ncc;
+    }
+
     ncc = UtilFnsStitching.computePhaseCorrelationJava(t1.getFft(), t2.getFft(), ncc);
 
     ncc = JavaImageTile.fftPlan.applyInverse(ncc);
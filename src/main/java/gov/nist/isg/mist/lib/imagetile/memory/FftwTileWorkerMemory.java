@@ -50,8 +50,8 @@ public class FftwTileWorkerMemory extends TileWorkerMemory {
   public FftwTileWorkerMemory(ImageTile<?> initTile) {
     super(initTile.getWidth(), initTile.getHeight());
 
-    this.pcmP = FFTW3Library.fftw_alloc_real(super.getWidth() * super.getHeight());
-    this.fftInP = FFTW3Library.fftw_alloc_real(super.getWidth() * super.getHeight());
+    this.pcmP = FFTW3Library.fftw_alloc_real(FftwImageTile.fftWidth * FftwImageTile.fftHeight);
+    this.fftInP = FFTW3Library.fftw_alloc_real(FftwImageTile.fftWidth * FftwImageTile.fftHeight);
     this.pcmInP = FFTW3Library.fftw_alloc_complex(FftwImageTile.fftSize);
     this.peaks = Pointer.allocateInts(Stitching.NUM_PEAKS);
   }
@@ -44,9 +44,8 @@ public class JavaTileWorkerMemory extends TileWorkerMemory {
   public JavaTileWorkerMemory(ImageTile<?> initTile) {
     super(initTile.getWidth(), initTile.getHeight());
 
-    int fftWidth = JavaImageTile.fftPlan.getFrequencySampling1().getCount() * 2;
-    int fftHeight = JavaImageTile.fftPlan.getFrequencySampling2().getCount();
-    this.arrayMemory = new float[fftHeight][fftWidth];
+    int[] size = JavaImageTile.getFftMemorySize();
+    this.arrayMemory = new float[size[0]][size[1]];
   }
 
   @Override
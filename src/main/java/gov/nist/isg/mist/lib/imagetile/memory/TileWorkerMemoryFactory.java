@@ -0,0 +1,67 @@
+// NIST-developed software is provided by NIST as a public service. You may use, copy and distribute copies of the software in any medium, provided that you keep intact this entire notice. You may improve, modify and create derivative works of the software or any portion of the software, and you may copy and distribute such modifications or works. Modified works should carry a notice stating that you changed the software and should note the date and nature of any such change. Please explicitly acknowledge the National Institute of Standards and Technology as the source of the software.
+
+// NIST-developed software is expressly provided "AS IS." NIST MAKES NO WARRANTY OF ANY KIND, EXPRESS, IMPLIED, IN FACT OR ARISING BY OPERATION OF LAW, INCLUDING, WITHOUT LIMITATION, THE IMPLIED WARRANTY OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE, NON-INFRINGEMENT AND DATA ACCURACY. NIST NEITHER REPRESENTS NOR WARRANTS THAT THE OPERATION OF THE SOFTWARE WILL BE UNINTERRUPTED OR ERROR-FREE, OR THAT ANY DEFECTS WILL BE CORRECTED. NIST DOES NOT WARRANT OR MAKE ANY REPRESENTATIONS REGARDING THE USE OF THE SOFTWARE OR THE RESULTS THEREOF, INCLUDING BUT NOT LIMITED TO THE CORRECTNESS, ACCURACY, RELIABILITY, OR USEFULNESS OF THE SOFTWARE.
+
+// You are solely responsible for determining the appropriateness of using and distributing the software and you assume all risks associated with its use, including but not limited to the risks and costs of program errors, compliance with applicable laws, damage to or loss of data, programs or equipment, and the unavailability or interruption of operation. This software is not intended to be used in any situation where a failure could cause risk of injury or damage to property. The software developed by NIST employees is not subject to copyright protection within the United States.
+
+
+
+
+
+// ================================================================
+//
+// Author: tjb3
+// Date: Oct 19, 2026 1:27:09 PM EST
+//
+// Time-stamp: <Oct 19, 2026 1:27:09 PM tjb3>
+//
+//
+// ================================================================
+
+package gov.nist.isg.mist.lib.imagetile.memory;
+
+import gov.nist.isg.mist.lib.imagetile.ImageTile;
+import gov.nist.isg.mist.lib.imagetile.fftw.FftwImageTile;
+import gov.nist.isg.mist.lib.imagetile.java.JavaImageTile;
+import gov.nist.isg.mist.lib.imagetile.jcuda.CudaImageTile;
+import gov.nist.isg.mist.lib32.imagetile.fftw.FftwImageTile32;
+import gov.nist.isg.mist.lib32.imagetile.java.JavaImageTile32;
+import gov.nist.isg.mist.lib32.imagetile.jcuda.CudaImageTile32;
+import gov.nist.isg.mist.lib32.imagetile.memory.CudaTileWorkerMemory32;
+import gov.nist.isg.mist.lib32.imagetile.memory.FftwTileWorkerMemory32;
+import gov.nist.isg.mist.lib32.imagetile.memory.JavaTileWorkerMemory32;
+
+/**
+ * Utility function for creating the tile worker memory that matches a type of image tile.
+ *
+ * @author Tim Blattner
+ * @version 1.0
+ */
+public class TileWorkerMemoryFactory {
+
+  /**
+   * Allocates the memory a worker needs to stitch pairs of tiles of the same type as initTile
+   *
+   * @param initTile the initial image tile, which defines the tile type and size
+   * @return the tile worker memory
+   * @throws IllegalArgumentException if there is no worker memory for the tile type
+   */
+  public static TileWorkerMemory makeTileWorkerMemory(ImageTile<?> initTile) {
+    if (initTile instanceof FftwImageTile)
+      return new FftwTileWorkerMemory(initTile);
+    else if (initTile instanceof FftwImageTile32)
+      return new FftwTileWorkerMemory32(initTile);
+    else if (initTile instanceof CudaImageTile)
+      return new CudaTileWorkerMemory(initTile);
+    else if (initTile instanceof CudaImageTile32)
+      return new CudaTileWorkerMemory32(initTile);
+    else if (initTile instanceof JavaImageTile)
+      return new JavaTileWorkerMemory(initTile);
+    else if (initTile instanceof JavaImageTile32)
+      return new JavaTileWorkerMemory32(initTile);
+
+    throw new IllegalArgumentException("Unsupported tile type for tile worker memory: "
+        + initTile.getClass().getName());
+  }
+
+}
@@ -123,6 +123,40 @@ public class UtilFnsStitching {
     return ncc;
   }
 
+  /**
+   * Computes the phase correlation between two flat interleaved complex arrays
+   *
+   * @param c1  complex array 1
+   * @param c2  complex array 2
+   * @param ncc the normalized cross correlation matrix
+   * @param sz  the number of complex values in the arrays
+   */
+  public static void computePhaseCorrelationJava(float[] c1, float[] c2, float[] ncc, int sz) {
+    float c1_real, c1_imag, c2_real, c2_imag;
+    float r, im, temp;
+
+    for (int i = 0; i < sz; i++) {
+      c1_real = c1[i * 2];
+      c1_imag = c1[i * 2 + 1];
+
+      c2_real = c2[i * 2];
+      c2_imag = c2[i * 2 + 1] * -1.0f;
+
+      r = c1_real * c2_real - c1_imag * c2_imag;
+      im = c1_real * c2_imag + c2_real * c1_imag;
+
+      temp = (float) Math.sqrt(r * r + im * im);
+
+      if (Double.isNaN(temp) || temp == 0) {
+        r = (float) DBL_EPSILON;
+        temp = (float) DBL_EPSILON;
+      }
+
+      ncc[i * 2] = r / temp;
+      ncc[i * 2 + 1] = im / temp;
+    }
+  }
+
   /**
    * Computes the phase correlation between two complex arrays
    *
@@ -375,6 +409,25 @@ public class UtilFnsStitching {
     return peaks;
   }
 
+  private static int filterNextMax(float[] m, int stride, int[] maxFilter, int nMax, int width,
+                                   int height) {
+    double maxVal = Double.NEGATIVE_INFINITY;
+    int maxIdx = 0;
+    for (int row = 0; row < height; row++) {
+      for (int col = 0; col < width; col++) {
+        float val = m[row * stride + col];
+        int index = row * width + col;
+        if (val > maxVal) {
+          if (checkDistance(maxFilter, nMax, index, width)) {
+            maxVal = val;
+            maxIdx = index;
+          }
+        }
+      }
+    }
+    return maxIdx;
+  }
+
   private static int filterNextMax(float[][] m, int[] maxFilter, int nMax, int width, int height) {
     double maxVal = Double.NEGATIVE_INFINITY;
     int maxIdx = 0;
@@ -431,4 +484,36 @@ public class UtilFnsStitching {
     return peaks;
   }
 
+  /**
+   * Finds the nPeaks max values that are distance d (10) from each other in a flat phase
+   * correlation matrix whose rows are stride floats apart
+   *
+   * @param pcm    the phase correlation matrix
+   * @param stride the number of floats between the start of consecutive rows
+   * @param nPeaks the number of peaks to find
+   * @param width  the width of the data
+   * @param height the height of the data
+   * @return a list of the highest correlation triples that are distance 10 from eachother
+   */
+  public static List<CorrelationTriple> multiPeakCorrelationMatrixNoSort(float[] pcm, int stride,
+                                                                         int nPeaks, int width,
+                                                                         int height) {
+
+    List<CorrelationTriple> peaks = new ArrayList<CorrelationTriple>();
+
+    int[] maxVals = new int[nPeaks];
+
+    for (int nMax = 0; nMax < nPeaks; nMax++)
+      maxVals[nMax] = filterNextMax(pcm, stride, maxVals, nMax, width, height);
+
+    for (int i = 0; i < nPeaks; i++) {
+      int row = maxVals[i] / width;
+      int col = maxVals[i] % width;
+      peaks.add(new CorrelationTriple(0.0, col, row));
+      Debug.msg(DebugType.VERBOSE, "Found multimax peak " + i + " ( " + col + ", " + row + ")");
+    }
+
+    return peaks;
+  }
+
 }
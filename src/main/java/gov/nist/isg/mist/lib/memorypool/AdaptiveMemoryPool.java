@@ -0,0 +1,293 @@
+// NIST-developed software is provided by NIST as a public service. You may use, copy and distribute copies of the software in any medium, provided that you keep intact this entire notice. You may improve, modify and create derivative works of the software or any portion of the software, and you may copy and distribute such modifications or works. Modified works should carry a notice stating that you changed the software and should note the date and nature of any such change. Please explicitly acknowledge the National Institute of Standards and Technology as the source of the software.
+
+// NIST-developed software is expressly provided "AS IS." NIST MAKES NO WARRANTY OF ANY KIND, EXPRESS, IMPLIED, IN FACT OR ARISING BY OPERATION OF LAW, INCLUDING, WITHOUT LIMITATION, THE IMPLIED WARRANTY OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE, NON-INFRINGEMENT AND DATA ACCURACY. NIST NEITHER REPRESENTS NOR WARRANTS THAT THE OPERATION OF THE SOFTWARE WILL BE UNINTERRUPTED OR ERROR-FREE, OR THAT ANY DEFECTS WILL BE CORRECTED. NIST DOES NOT WARRANT OR MAKE ANY REPRESENTATIONS REGARDING THE USE OF THE SOFTWARE OR THE RESULTS THEREOF, INCLUDING BUT NOT LIMITED TO THE CORRECTNESS, ACCURACY, RELIABILITY, OR USEFULNESS OF THE SOFTWARE.
+
+// You are solely responsible for determining the appropriateness of using and distributing the software and you assume all risks associated with its use, including but not limited to the risks and costs of program errors, compliance with applicable laws, damage to or loss of data, programs or equipment, and the unavailability or interruption of operation. This software is not intended to be used in any situation where a failure could cause risk of injury or damage to property. The software developed by NIST employees is not subject to copyright protection within the United States.
+
+
+package gov.nist.isg.mist.lib.memorypool;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import gov.nist.isg.mist.lib.log.Log;
+import gov.nist.isg.mist.lib.log.Log.LogType;
+
+/**
+ * A memory pool that is sized from a memory budget instead of being preallocated. Memory is
+ * allocated on demand until the budget is reached, after which threads requesting memory wait
+ * until memory is returned to the pool. Memory returned to the pool is freed when the pool holds
+ * more memory than the peak number of in-flight pieces observed over the last window of releases,
+ * so the pool grows and shrinks with the working set of the traversal.
+ *
+ * <p>The pool also records occupancy and wait metrics which can be printed using
+ * {@link #printStats(LogType)}.</p>
+ *
+ * @author Tim Blattner
+ * @version 1.0
+ */
+public class AdaptiveMemoryPool<T> extends DynamicMemoryPool<T> {
+
+  private final Deque<T> idleMemory;
+  private final int maxCapacity;
+  private final long bytesPerPiece;
+  private final int windowSize;
+
+  private int allocated;
+  private int inFlight;
+  private int targetCapacity;
+  private int windowPeakInFlight;
+  private int windowReleases;
+
+  private int peakAllocated;
+  private int peakInFlight;
+  private long numRequests;
+  private long numWaits;
+  private long totalWaitNanos;
+  private long numAllocations;
+  private long numDeallocations;
+
+  /**
+   * Creates an adaptive memory pool bounded by a memory budget.
+   *
+   * @param minCapacity   the minimum number of pieces of memory the pool must be able to hold to
+   *                      guarantee forward progress
+   * @param budgetBytes   the memory budget in bytes
+   * @param bytesPerPiece the size in bytes of each piece of memory
+   * @param allocator     the allocator
+   * @param sz            the size of each piece of memory passed to the allocator
+   */
+  public AdaptiveMemoryPool(int minCapacity, long budgetBytes, long bytesPerPiece,
+                            Allocator<T> allocator, int... sz) {
+    super(allocator, sz);
+
+    this.bytesPerPiece = bytesPerPiece;
+
+    if (budgetBytes / bytesPerPiece < minCapacity) {
+      Log.msg(LogType.MANDATORY, "Memory pool budget of " + (budgetBytes / (1024L * 1024L))
+          + " MB holds " + (budgetBytes / bytesPerPiece) + " pieces of memory, raising it to the "
+          + "minimum of " + minCapacity + " pieces required to stitch this grid");
+    }
+    this.maxCapacity = getCapacity(minCapacity, budgetBytes, bytesPerPiece);
+    this.windowSize = this.maxCapacity;
+    this.targetCapacity = this.maxCapacity;
+
+    this.idleMemory = new ArrayDeque<T>();
+    this.allocated = 0;
+    this.inFlight = 0;
+    this.windowPeakInFlight = 0;
+    this.windowReleases = 0;
+  }
+
+  /**
+   * Gets the maximum number of pieces of memory an adaptive pool allocates: as many as fit in the
+   * budget, but never fewer than the minimum required to make progress.
+   *
+   * @param minCapacity   the minimum number of pieces of memory
+   * @param budgetBytes   the memory budget in bytes
+   * @param bytesPerPiece the size in bytes of each piece of memory
+   * @return the maximum number of pieces of memory
+   */
+  public static int getCapacity(int minCapacity, long budgetBytes, long bytesPerPiece) {
+    return (int) Math.min(Math.max(budgetBytes / bytesPerPiece, minCapacity), Integer.MAX_VALUE);
+  }
+
+  /**
+   * Gets memory from the pool, allocating more if the pool is empty and the budget permits. If
+   * the budget is exhausted the calling thread waits until memory is returned to the pool.
+   *
+   * @return the memory
+   */
+  @Override
+  public T getMemory() {
+    T memory = null;
+    boolean allocate = false;
+
+    synchronized (this) {
+      this.numRequests++;
+
+      if (this.idleMemory.isEmpty() && this.allocated >= this.maxCapacity) {
+        this.numWaits++;
+        long start = System.nanoTime();
+        try {
+          while (this.idleMemory.isEmpty() && this.allocated >= this.maxCapacity)
+            this.wait();
+        } catch (InterruptedException e) {
+          Log.msg(LogType.MANDATORY, e.getMessage());
+          return null;
+        } finally {
+          this.totalWaitNanos += System.nanoTime() - start;
+        }
+      }
+
+      if (this.idleMemory.isEmpty()) {
+        // reserve the allocation while holding the lock, allocate outside of it
+        this.allocated++;
+        this.numAllocations++;
+        this.peakAllocated = Math.max(this.peakAllocated, this.allocated);
+        allocate = true;
+      } else {
+        memory = this.idleMemory.pop();
+      }
+
+      this.inFlight++;
+      this.peakInFlight = Math.max(this.peakInFlight, this.inFlight);
+      this.windowPeakInFlight = Math.max(this.windowPeakInFlight, this.inFlight);
+    }
+
+    if (allocate) {
+      try {
+        memory = this.getAllocator().allocate(this.getMemorySize());
+      } catch (OutOfMemoryError e) {
+        synchronized (this) {
+          this.allocated--;
+          this.inFlight--;
+          this.notifyAll();
+        }
+        throw e;
+      }
+    }
+
+    return memory;
+  }
+
+  /**
+   * Returns memory to the pool. If the pool holds more memory than the recent working set
+   * requires, the memory is freed instead.
+   *
+   * @param o the memory
+   */
+  @Override
+  public void addMemory(T o) {
+    boolean deallocate = false;
+
+    synchronized (this) {
+      this.inFlight--;
+      this.windowReleases++;
+
+      if (this.windowReleases >= this.windowSize) {
+        this.targetCapacity = Math.max(this.windowPeakInFlight, 1);
+        this.windowPeakInFlight = this.inFlight;
+        this.windowReleases = 0;
+      }
+
+      if (this.allocated > this.targetCapacity) {
+        this.allocated--;
+        this.numDeallocations++;
+        deallocate = true;
+      } else {
+        this.idleMemory.push(o);
+      }
+
+      this.notifyAll();
+    }
+
+    if (deallocate)
+      this.getAllocator().deallocate(o);
+  }
+
+  /**
+   * Releases all idle memory from this pool
+   */
+  @Override
+  public void releaseAll() {
+    synchronized (this) {
+      while (!this.idleMemory.isEmpty()) {
+        this.getAllocator().deallocate(this.idleMemory.pop());
+        this.allocated--;
+      }
+    }
+
+    System.gc();
+  }
+
+  /**
+   * Gets the number of pieces of memory currently idle in the pool
+   *
+   * @return the number of idle pieces of memory
+   */
+  @Override
+  public synchronized int getSize() {
+    return this.idleMemory.size();
+  }
+
+  /**
+   * @return the maximum number of pieces of memory permitted by the budget
+   */
+  public int getMaxCapacity() {
+    return this.maxCapacity;
+  }
+
+  /**
+   * @return the number of pieces of memory currently allocated by the pool
+   */
+  public synchronized int getAllocated() {
+    return this.allocated;
+  }
+
+  /**
+   * @return the number of pieces of memory currently taken from the pool
+   */
+  public synchronized int getInFlight() {
+    return this.inFlight;
+  }
+
+  /**
+   * @return the fraction of the allocated memory that is currently in-flight
+   */
+  public synchronized double getOccupancy() {
+    return this.allocated == 0 ? 0.0 : (double) this.inFlight / this.allocated;
+  }
+
+  /**
+   * @return the fraction of the memory budget that is currently allocated
+   */
+  public synchronized double getBudgetOccupancy() {
+    return (double) this.allocated / this.maxCapacity;
+  }
+
+  /**
+   * @return the peak number of pieces of memory allocated at once
+   */
+  public synchronized int getPeakAllocated() {
+    return this.peakAllocated;
+  }
+
+  /**
+   * @return the peak number of pieces of memory in-flight at once
+   */
+  public synchronized int getPeakInFlight() {
+    return this.peakInFlight;
+  }
+
+  /**
+   * @return the number of requests that had to wait for memory to be returned to the pool
+   */
+  public synchronized long getNumWaits() {
+    return this.numWaits;
+  }
+
+  /**
+   * @return the total time in milliseconds spent waiting for memory to be returned to the pool
+   */
+  public synchronized long getTotalWaitTimeMillis() {
+    return this.totalWaitNanos / 1000000L;
+  }
+
+  /**
+   * Prints the occupancy and wait metrics of this pool
+   *
+   * @param logLevel the log level to print at
+   */
+  public synchronized void printStats(LogType logLevel) {
+    Log.msg(logLevel, "Memory pool budget: " + this.maxCapacity + " pieces ("
+        + (this.maxCapacity * this.bytesPerPiece / (1024L * 1024L)) + " MB)");
+    Log.msg(logLevel, "Memory pool peak allocated: " + this.peakAllocated + " pieces ("
+        + (this.peakAllocated * this.bytesPerPiece / (1024L * 1024L)) + " MB), peak in-flight: "
+        + this.peakInFlight);
+    Log.msg(logLevel, "Memory pool allocations: " + this.numAllocations + ", deallocations: "
+        + this.numDeallocations + ", requests: " + this.numRequests);
+    Log.msg(logLevel, "Memory pool waits: " + this.numWaits + ", total wait time: "
+        + this.getTotalWaitTimeMillis() + " ms");
+  }
+}
@@ -68,6 +68,38 @@ public class DynamicMemoryPool<T> {
 
   }
 
+  /**
+   * Initializes a memory pool without any preallocated memory. Used by subclasses that manage
+   * their own backing storage.
+   *
+   * @param allocator the allocator
+   * @param sz        the size of each piece of memory
+   */
+  protected DynamicMemoryPool(Allocator<T> allocator, int... sz) {
+    this.allocator = allocator;
+    this.sz = sz;
+    this.dynamic = false;
+    this.memoryQueue = null;
+  }
+
+  /**
+   * Gets the allocator used by this pool
+   *
+   * @return the allocator
+   */
+  protected Allocator<T> getAllocator() {
+    return this.allocator;
+  }
+
+  /**
+   * Gets the dimensions of each piece of memory in this pool
+   *
+   * @return the dimensions passed to the allocator
+   */
+  protected int[] getMemorySize() {
+    return this.sz;
+  }
+
   /**
    * Releases all memory from this pool
    */
@@ -111,7 +143,11 @@ public class DynamicMemoryPool<T> {
     }
   }
 
-
+  /**
+   * Gets the number of pieces of memory currently available in the pool
+   *
+   * @return the number of available pieces of memory
+   */
   public int getSize() {
     return this.memoryQueue.size();
   }
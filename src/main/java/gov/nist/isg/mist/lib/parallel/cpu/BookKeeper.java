@@ -29,7 +29,9 @@ import gov.nist.isg.mist.lib.log.Log.LogType;
 import gov.nist.isg.mist.lib.memorypool.DynamicMemoryPool;
 import gov.nist.isg.mist.lib.parallel.common.StitchingTask;
 import gov.nist.isg.mist.lib.parallel.common.StitchingTask.TaskType;
+import gov.nist.isg.mist.lib.tilegrid.CheckpointJournal;
 import gov.nist.isg.mist.lib.tilegrid.TileGrid;
+import gov.nist.isg.mist.lib.tilegrid.TileGrid.Direction;
 
 /**
  * A thread dedicated to managing the state, dependencies, and freeing memory of image tiles.
@@ -47,6 +49,7 @@ public class BookKeeper<T> implements Runnable {
   private int pciam_count;
 
   private TileGrid<ImageTile<T>> grid;
+  private CheckpointJournal journal;
 
   private volatile boolean isCancelled;
 
@@ -65,6 +68,7 @@ public class BookKeeper<T> implements Runnable {
     this.fft_count = 0;
     this.pciam_count = 0;
     this.grid = grid;
+    this.journal = grid.getCheckpointJournal();
     this.isCancelled = false;
   }
 
@@ -94,9 +98,15 @@ public class BookKeeper<T> implements Runnable {
               Debug.msg(DebugType.VERBOSE,
                   "sending west: " + tile.getFileName() + " with " + west.getFileName());
 
-              tile.setPciamWestState(State.IN_FLIGHT);
+              if (CheckpointJournal.isPairRestored(this.grid, tile, Direction.West)) {
+                // restored from the checkpoint journal
+                tile.setPciamWestState(State.COMPLETE);
+                completePair(tile, west);
+              } else {
+                tile.setPciamWestState(State.IN_FLIGHT);
 
-              this.workQueue.put(new StitchingTask<T>(tile, west, TaskType.PCIAM_WEST));
+                this.workQueue.put(new StitchingTask<T>(tile, west, TaskType.PCIAM_WEST));
+              }
             }
           }
 
@@ -108,9 +118,15 @@ public class BookKeeper<T> implements Runnable {
               Debug.msg(DebugType.VERBOSE, "sending north: " + tile.getFileName() + " with "
                   + north.getFileName());
 
-              tile.setPciamNorthState(State.IN_FLIGHT);
+              if (CheckpointJournal.isPairRestored(this.grid, tile, Direction.North)) {
+                // restored from the checkpoint journal
+                tile.setPciamNorthState(State.COMPLETE);
+                completePair(tile, north);
+              } else {
+                tile.setPciamNorthState(State.IN_FLIGHT);
 
-              this.workQueue.put(new StitchingTask<T>(tile, north, TaskType.PCIAM_NORTH));
+                this.workQueue.put(new StitchingTask<T>(tile, north, TaskType.PCIAM_NORTH));
+              }
             }
           }
 
@@ -122,9 +138,15 @@ public class BookKeeper<T> implements Runnable {
               Debug.msg(DebugType.VERBOSE, "sending south: " + south.getFileName() + " with "
                   + tile.getFileName());
 
-              south.setPciamNorthState(State.IN_FLIGHT);
+              if (CheckpointJournal.isPairRestored(this.grid, south, Direction.North)) {
+                // restored from the checkpoint journal
+                south.setPciamNorthState(State.COMPLETE);
+                completePair(south, tile);
+              } else {
+                south.setPciamNorthState(State.IN_FLIGHT);
 
-              this.workQueue.put(new StitchingTask<T>(south, tile, TaskType.PCIAM_NORTH));
+                this.workQueue.put(new StitchingTask<T>(south, tile, TaskType.PCIAM_NORTH));
+              }
             }
 
           }
@@ -137,36 +159,28 @@ public class BookKeeper<T> implements Runnable {
               Debug.msg(DebugType.VERBOSE,
                   "sending east: " + east.getFileName() + " with " + tile.getFileName());
 
-              east.setPciamWestState(State.IN_FLIGHT);
+              if (CheckpointJournal.isPairRestored(this.grid, east, Direction.West)) {
+                // restored from the checkpoint journal
+                east.setPciamWestState(State.COMPLETE);
+                completePair(east, tile);
+              } else {
+                east.setPciamWestState(State.IN_FLIGHT);
 
-              this.workQueue.put(new StitchingTask<T>(east, tile, TaskType.PCIAM_WEST));
+                this.workQueue.put(new StitchingTask<T>(east, tile, TaskType.PCIAM_WEST));
+              }
             }
 
           }
 
         } else if (task.getTask() == TaskType.BK_CHECK_MEM) {
-          this.pciam_count++;
-
           ImageTile<T> tile = task.getTile();
           ImageTile<T> neighbor = task.getNeighbor();
 
-          tile.decrementFftReleaseCount();
-          neighbor.decrementFftReleaseCount();
-
-          tile.decrementPixelDataReleaseCount();
-          neighbor.decrementPixelDataReleaseCount();
-
-          if (tile.getFftReleaseCount() == 0)
-            tile.releaseFftMemory(this.memoryPool);
-
-          if (neighbor.getFftReleaseCount() == 0)
-            neighbor.releaseFftMemory(this.memoryPool);
+          if (this.journal != null)
+            this.journal.recordPciam(tile, neighbor, tile.isSameRowAs(neighbor) ?
+                Direction.West : Direction.North);
 
-          if (tile.getPixelDataReleaseCount() == 0)
-            tile.releasePixels();
-
-          if (neighbor.getPixelDataReleaseCount() == 0)
-            neighbor.releasePixels();
+          completePair(tile, neighbor);
         }
 
         Debug.msg(DebugType.INFO, "ffts: " + this.fft_count + " pciamCount: " + this.pciam_count);
@@ -181,6 +195,32 @@ public class BookKeeper<T> implements Runnable {
     }
   }
 
+  /**
+   * Counts a completed pair and releases the memory of its tiles once all of their pairs are
+   * complete. Tiles restored from the checkpoint journal never had fft memory allocated.
+   */
+  private void completePair(ImageTile<T> tile, ImageTile<T> neighbor) {
+    this.pciam_count++;
+
+    tile.decrementFftReleaseCount();
+    neighbor.decrementFftReleaseCount();
+
+    tile.decrementPixelDataReleaseCount();
+    neighbor.decrementPixelDataReleaseCount();
+
+    if (tile.getFftReleaseCount() == 0 && tile.isMemoryLoaded())
+      tile.releaseFftMemory(this.memoryPool);
+
+    if (neighbor.getFftReleaseCount() == 0 && neighbor.isMemoryLoaded())
+      neighbor.releaseFftMemory(this.memoryPool);
+
+    if (tile.getPixelDataReleaseCount() == 0)
+      tile.releasePixels();
+
+    if (neighbor.getPixelDataReleaseCount() == 0)
+      neighbor.releasePixels();
+  }
+
   /**
    * Sets that this thread is cancelled
    */
@@ -23,22 +23,27 @@ import org.bridj.Pointer;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.swing.JProgressBar;
 
 import gov.nist.isg.mist.gui.StitchingGuiUtils;
+import gov.nist.isg.mist.lib.executor.MemoryPlanner;
 import gov.nist.isg.mist.lib.imagetile.ImageTile;
 import gov.nist.isg.mist.lib.imagetile.fftw.FftwImageTile;
 import gov.nist.isg.mist.lib.imagetile.java.JavaImageTile;
 import gov.nist.isg.mist.lib.log.Log;
 import gov.nist.isg.mist.lib.log.Log.LogType;
+import gov.nist.isg.mist.lib.memorypool.AdaptiveMemoryPool;
+import gov.nist.isg.mist.lib.memorypool.Allocator;
 import gov.nist.isg.mist.lib.memorypool.DynamicMemoryPool;
 import gov.nist.isg.mist.lib.memorypool.JavaAllocator;
 import gov.nist.isg.mist.lib.memorypool.PointerAllocator;
 import gov.nist.isg.mist.lib.parallel.common.StitchingTask;
 import gov.nist.isg.mist.lib.tilegrid.TileGrid;
+import gov.nist.isg.mist.lib.tilegrid.traverser.TileGridLiveTraverser;
+import gov.nist.isg.mist.lib.tilegrid.traverser.TileGridTraversalPlanner;
 import gov.nist.isg.mist.lib.tilegrid.traverser.TileGridTraverser;
-import gov.nist.isg.mist.lib.tilegrid.traverser.TileGridTraverser.Traversals;
 import gov.nist.isg.mist.lib.tilegrid.traverser.TileGridTraverserFactory;
 import gov.nist.isg.mist.lib32.imagetile.fftw.FftwImageTile32;
 import gov.nist.isg.mist.lib32.imagetile.java.JavaImageTile32;
@@ -60,6 +65,8 @@ public class CPUStitchingThreadExecutor<T> implements Thread.UncaughtExceptionHa
   private List<BookKeeper<T>> bookKeepers;
   private List<TileProducer<T>> producers;
   private List<TileWorker<T>> workers;
+  private TileGridTraverser<ImageTile<T>> gridTraverser;
+  private DagStitchingScheduler<T> scheduler;
 
   private PriorityBlockingQueue<StitchingTask<T>> bkQueue;
   private PriorityBlockingQueue<StitchingTask<T>> workQueue;
@@ -80,9 +87,72 @@ public class CPUStitchingThreadExecutor<T> implements Thread.UncaughtExceptionHa
    * @param grid         the grid of images
    * @param progressBar  the progress bar
    */
-  @SuppressWarnings("unchecked")
   public CPUStitchingThreadExecutor(int numProducers, int numWorkers, ImageTile<T> initTile,
                                     TileGrid<ImageTile<T>> grid, JProgressBar progressBar) throws OutOfMemoryError {
+    this(numProducers, numWorkers, initTile, grid, progressBar, 0L, 0L);
+  }
+
+  /**
+   * Creates a CPU stitching thread executor whose FFT memory pool is bounded by a memory budget.
+   * The Java tile types draw from the heap budget, the FFTW tile types from the off-heap budget. A
+   * budget of 0 preallocates the full memory pool.
+   *
+   * @param numProducers       the number of producers
+   * @param numWorkers         the number of workers
+   * @param initTile           the initial tile
+   * @param grid               the grid of images
+   * @param progressBar        the progress bar
+   * @param heapBudgetBytes    the heap memory budget in bytes for the FFT memory pool
+   * @param offHeapBudgetBytes the off-heap memory budget in bytes for the FFT memory pool
+   */
+  public CPUStitchingThreadExecutor(int numProducers, int numWorkers, ImageTile<T> initTile,
+                                    TileGrid<ImageTile<T>> grid, JProgressBar progressBar,
+                                    long heapBudgetBytes, long offHeapBudgetBytes) throws OutOfMemoryError {
+    this(numProducers, numWorkers, initTile, grid, progressBar, heapBudgetBytes, offHeapBudgetBytes,
+        TileGridTraverserFactory.makeTraverser(TileGridTraversalPlanner.plan(grid).getTraversal(), grid));
+  }
+
+  /**
+   * Creates a CPU stitching thread executor whose producers read the tiles in the order given by a
+   * traverser. A {@link TileGridLiveTraverser} stitches the tiles as they are acquired.
+   *
+   * @param numProducers       the number of producers
+   * @param numWorkers         the number of workers
+   * @param initTile           the initial tile
+   * @param grid               the grid of images
+   * @param progressBar        the progress bar
+   * @param heapBudgetBytes    the heap memory budget in bytes for the FFT memory pool
+   * @param offHeapBudgetBytes the off-heap memory budget in bytes for the FFT memory pool
+   * @param gridTraverser      the traverser the producers read the tiles from
+   */
+  public CPUStitchingThreadExecutor(int numProducers, int numWorkers, ImageTile<T> initTile,
+                                    TileGrid<ImageTile<T>> grid, JProgressBar progressBar,
+                                    long heapBudgetBytes, long offHeapBudgetBytes,
+                                    TileGridTraverser<ImageTile<T>> gridTraverser) throws OutOfMemoryError {
+    this(numProducers, numWorkers, initTile, grid, progressBar, heapBudgetBytes, offHeapBudgetBytes,
+        gridTraverser, false);
+  }
+
+  /**
+   * Creates a CPU stitching thread executor that optionally replaces the workers and the
+   * bookkeeper with a {@link DagStitchingScheduler} running on a fork/join pool.
+   *
+   * @param numProducers       the number of producers
+   * @param numWorkers         the number of workers
+   * @param initTile           the initial tile
+   * @param grid               the grid of images
+   * @param progressBar        the progress bar
+   * @param heapBudgetBytes    the heap memory budget in bytes for the FFT memory pool
+   * @param offHeapBudgetBytes the off-heap memory budget in bytes for the FFT memory pool
+   * @param gridTraverser      the traverser the producers read the tiles from
+   * @param useDagScheduler    true to schedule the FFT and PCIAM tasks as a task graph
+   */
+  @SuppressWarnings("unchecked")
+  public CPUStitchingThreadExecutor(int numProducers, int numWorkers, ImageTile<T> initTile,
+                                    TileGrid<ImageTile<T>> grid, JProgressBar progressBar,
+                                    long heapBudgetBytes, long offHeapBudgetBytes,
+                                    TileGridTraverser<ImageTile<T>> gridTraverser,
+                                    boolean useDagScheduler) throws OutOfMemoryError {
     this.threads = new ArrayList<Thread>(numProducers + numWorkers + 1);
     this.bookKeepers = new ArrayList<BookKeeper<T>>();
     this.producers = new ArrayList<TileProducer<T>>();
@@ -94,10 +164,7 @@ public class CPUStitchingThreadExecutor<T> implements Thread.UncaughtExceptionHa
     this.exceptionThrown = false;
     this.workerThrowable = null;
 
-    int gWidth = grid.getExtentWidth();
-    int gHeight = grid.getExtentHeight();
-
-    int memoryPoolSize = Math.min(gWidth, gHeight) + 2 + numWorkers;
+    int memoryPoolSize = MemoryPlanner.getFftPoolSize(grid, gridTraverser, numWorkers);
 
     Log.msg(LogType.MANDATORY, "memory pool size: " + memoryPoolSize);
 
@@ -112,46 +179,54 @@ public class CPUStitchingThreadExecutor<T> implements Thread.UncaughtExceptionHa
       int[] size = {FftwImageTile.fftSize};
 
       this.memoryPool =
-          (DynamicMemoryPool<T>) new DynamicMemoryPool<Pointer<Double>>(memoryPoolSize, false,
-              new PointerAllocator(), size);
+          (DynamicMemoryPool<T>) makeMemoryPool(memoryPoolSize, offHeapBudgetBytes,
+              (long) FftwImageTile.fftSize * 2L * 8L, new PointerAllocator(), size);
     } else if (initTile instanceof FftwImageTile32) {
       int[] size = {FftwImageTile32.fftSize};
 
       this.memoryPool =
-          (DynamicMemoryPool<T>) new DynamicMemoryPool<Pointer<Float>>(memoryPoolSize, false,
-              new PointerAllocator32(), size);
+          (DynamicMemoryPool<T>) makeMemoryPool(memoryPoolSize, offHeapBudgetBytes,
+              (long) FftwImageTile32.fftSize * 2L * 4L, new PointerAllocator32(), size);
     } else if (initTile instanceof JavaImageTile) {
 
-      int[] size =
-          {JavaImageTile.fftPlan.getFrequencySampling2().getCount(),
-              JavaImageTile.fftPlan.getFrequencySampling1().getCount() * 2};
+      int[] size = JavaImageTile.getFftMemorySize();
 
       this.memoryPool =
-          (DynamicMemoryPool<T>) new DynamicMemoryPool<float[][]>(memoryPoolSize, false,
-              new JavaAllocator(), size);
+          (DynamicMemoryPool<T>) makeMemoryPool(memoryPoolSize, heapBudgetBytes,
+              (long) size[0] * (long) size[1] * 4L, new JavaAllocator(), size);
     } else if (initTile instanceof JavaImageTile32) {
-      int[] size =
-          {JavaImageTile32.fftPlan.getFrequencySampling2().getCount(),
-              JavaImageTile32.fftPlan.getFrequencySampling1().getCount() * 2};
+      int[] size = JavaImageTile32.getFftMemorySize();
 
       this.memoryPool =
-          (DynamicMemoryPool<T>) new DynamicMemoryPool<float[][]>(memoryPoolSize, false,
-              new JavaAllocator(), size);
+          (DynamicMemoryPool<T>) makeMemoryPool(memoryPoolSize, heapBudgetBytes,
+              (long) size[0] * (long) size[1] * 4L, new JavaAllocator(), size);
     } else {
       Log.msg(LogType.VERBOSE, "Initial tile is of type: " + initTile.getClass().toString());
     }
 
-    Log.msg(LogType.VERBOSE, "Setting up grid traverser");
-    TileGridTraverser<ImageTile<T>> gridTraverser;
-    gridTraverser = TileGridTraverserFactory.makeTraverser(Traversals.DIAGONAL, grid);
+    Log.msg(LogType.VERBOSE, "Setting up grid traverser: " + gridTraverser);
+    this.gridTraverser = gridTraverser;
 
     Log.msg(LogType.VERBOSE, "Initializing threads");
 
     Thread tmp;
 
+    if (useDagScheduler) {
+      Log.msg(LogType.HELPFUL, "Scheduling FFT and PCIAM tasks as a task graph with " + numWorkers
+          + " workers");
+      this.scheduler = new DagStitchingScheduler<T>(numWorkers, initTile, grid, this.memoryPool,
+          progressBar);
+      this.scheduler.setFailureHandler(this);
+    }
+
+    AtomicInteger activeProducers = new AtomicInteger(numProducers);
     for (int i = 0; i < numProducers; i++) {
       TileProducer<T> producer;
-      producer = new TileProducer<T>(gridTraverser, this.workQueue, this.memoryPool, numProducers);
+      producer = new TileProducer<T>(gridTraverser, this.workQueue, this.memoryPool, activeProducers);
+      if (grid.getCheckpointJournal() != null)
+        producer.enableResume(grid, this.bkQueue);
+      if (this.scheduler != null)
+        producer.setScheduler(this.scheduler);
 
       this.producers.add(producer);
 
@@ -160,10 +235,16 @@ public class CPUStitchingThreadExecutor<T> implements Thread.UncaughtExceptionHa
       this.threads.add(tmp);
     }
 
+    // the scheduler replaces the workers and the bookkeeper
+    if (this.scheduler != null)
+      return;
+
+    TileWorker.CompletionState completionState = new TileWorker.CompletionState();
     for (int i = 0; i < numWorkers; i++) {
       TileWorker<T> worker;
 
-      worker = new TileWorker<T>(this.workQueue, this.bkQueue, this.memoryPool, initTile, progressBar);
+      worker = new TileWorker<T>(this.workQueue, this.bkQueue, this.memoryPool, initTile, progressBar,
+          completionState);
 
       this.workers.add(worker);
 
@@ -183,6 +264,29 @@ public class CPUStitchingThreadExecutor<T> implements Thread.UncaughtExceptionHa
 
   }
 
+  /**
+   * Creates the FFT memory pool. If a budget is given the pool is an {@link AdaptiveMemoryPool}
+   * that allocates on demand within the budget, otherwise the full pool is preallocated.
+   *
+   * @param memoryPoolSize the minimum number of pieces of memory required to stitch the grid
+   * @param budgetBytes    the memory budget in bytes, or 0 for no budget
+   * @param bytesPerPiece  the size in bytes of each piece of memory
+   * @param allocator      the allocator
+   * @param size           the size of each piece of memory passed to the allocator
+   * @param <M>            the memory type
+   * @return the memory pool
+   */
+  private static <M> DynamicMemoryPool<M> makeMemoryPool(int memoryPoolSize, long budgetBytes,
+                                                         long bytesPerPiece, Allocator<M> allocator,
+                                                         int... size) {
+    if (budgetBytes > 0) {
+      Log.msg(LogType.MANDATORY, "memory pool budget: " + (budgetBytes / (1024L * 1024L)) + " MB");
+      return new AdaptiveMemoryPool<M>(memoryPoolSize, budgetBytes, bytesPerPiece, allocator, size);
+    }
+
+    return new DynamicMemoryPool<M>(memoryPoolSize, false, allocator, size);
+  }
+
   /**
    * @param numProducers the number of producer threads
    * @param numWorkers   the number of worker threads
@@ -205,6 +309,16 @@ public class CPUStitchingThreadExecutor<T> implements Thread.UncaughtExceptionHa
       thread.start();
     }
 
+    // await the scheduler before joining the producers, if a task fails the memory of the dropped
+    // tasks is returned to the pool so producers waiting on the pool can see the cancellation
+    if (this.scheduler != null) {
+      try {
+        this.scheduler.await();
+      } catch (InterruptedException e) {
+        Log.msg(LogType.MANDATORY, "Interrupted stitching.");
+      }
+    }
+
     for (Thread thread : this.threads)
       try {
         thread.join();
@@ -213,6 +327,9 @@ public class CPUStitchingThreadExecutor<T> implements Thread.UncaughtExceptionHa
 
       }
 
+    if (this.memoryPool instanceof AdaptiveMemoryPool)
+      ((AdaptiveMemoryPool<T>) this.memoryPool).printStats(LogType.HELPFUL);
+
     StitchingGuiUtils.updateProgressBar(this.progressBar, true, "Garbage Collecting");
     this.memoryPool.releaseAll();
     System.gc();
@@ -225,19 +342,30 @@ public class CPUStitchingThreadExecutor<T> implements Thread.UncaughtExceptionHa
     for (TileProducer<T> producer : this.producers)
       producer.cancel();
 
+    // unblock a producer waiting on tiles that are still being acquired
+    if (this.gridTraverser instanceof TileGridLiveTraverser)
+      ((TileGridLiveTraverser<ImageTile<T>>) this.gridTraverser).close();
+
     for (TileWorker<T> worker : this.workers)
       worker.cancel();
 
     for (BookKeeper<T> bookKeeper : this.bookKeepers)
       bookKeeper.cancel();
 
+    if (this.scheduler != null)
+      this.scheduler.cancel();
+
   }
 
 
   @Override
   public void uncaughtException(Thread t, Throwable e) {
-    this.exceptionThrown = true;
-    this.workerThrowable = e;
+    synchronized (this) {
+      // keep the first failure, later ones are usually caused by the cancellation
+      if (this.workerThrowable == null)
+        this.workerThrowable = e;
+      this.exceptionThrown = true;
+    }
     this.cancel();
   }
 
@@ -0,0 +1,389 @@
+// NIST-developed software is provided by NIST as a public service. You may use, copy and distribute copies of the software in any medium, provided that you keep intact this entire notice. You may improve, modify and create derivative works of the software or any portion of the software, and you may copy and distribute such modifications or works. Modified works should carry a notice stating that you changed the software and should note the date and nature of any such change. Please explicitly acknowledge the National Institute of Standards and Technology as the source of the software.
+
+// NIST-developed software is expressly provided "AS IS." NIST MAKES NO WARRANTY OF ANY KIND, EXPRESS, IMPLIED, IN FACT OR ARISING BY OPERATION OF LAW, INCLUDING, WITHOUT LIMITATION, THE IMPLIED WARRANTY OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE, NON-INFRINGEMENT AND DATA ACCURACY. NIST NEITHER REPRESENTS NOR WARRANTS THAT THE OPERATION OF THE SOFTWARE WILL BE UNINTERRUPTED OR ERROR-FREE, OR THAT ANY DEFECTS WILL BE CORRECTED. NIST DOES NOT WARRANT OR MAKE ANY REPRESENTATIONS REGARDING THE USE OF THE SOFTWARE OR THE RESULTS THEREOF, INCLUDING BUT NOT LIMITED TO THE CORRECTNESS, ACCURACY, RELIABILITY, OR USEFULNESS OF THE SOFTWARE.
+
+// You are solely responsible for determining the appropriateness of using and distributing the software and you assume all risks associated with its use, including but not limited to the risks and costs of program errors, compliance with applicable laws, damage to or loss of data, programs or equipment, and the unavailability or interruption of operation. This software is not intended to be used in any situation where a failure could cause risk of injury or damage to property. The software developed by NIST employees is not subject to copyright protection within the United States.
+
+
+
+// ================================================================
+//
+// Author: tjb3
+// Date: Oct 19, 2026 7:41:18 PM EST
+//
+// Time-stamp: <Oct 19, 2026 7:41:18 PM tjb3>
+//
+//
+// ================================================================
+
+package gov.nist.isg.mist.lib.parallel.cpu;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import javax.swing.JProgressBar;
+
+import gov.nist.isg.mist.gui.StitchingGuiUtils;
+import gov.nist.isg.mist.lib.common.CorrelationTriple;
+import gov.nist.isg.mist.lib.imagetile.ImageTile;
+import gov.nist.isg.mist.lib.imagetile.ImageTile.State;
+import gov.nist.isg.mist.lib.imagetile.Stitching;
+import gov.nist.isg.mist.lib.imagetile.memory.TileWorkerMemory;
+import gov.nist.isg.mist.lib.imagetile.memory.TileWorkerMemoryFactory;
+import gov.nist.isg.mist.lib.log.Log;
+import gov.nist.isg.mist.lib.log.Log.LogType;
+import gov.nist.isg.mist.lib.memorypool.DynamicMemoryPool;
+import gov.nist.isg.mist.lib.tilegrid.CheckpointJournal;
+import gov.nist.isg.mist.lib.tilegrid.TileGrid;
+import gov.nist.isg.mist.lib.tilegrid.TileGrid.Direction;
+
+/**
+ * Task graph scheduler for the FFT/PCIAM pipeline. Every tile is an FFT node and every adjacent
+ * pair is a PCIAM node holding an atomic count of the FFTs it still waits on. Completing an FFT
+ * decrements the counts of its (up to four) pairs; the pairs that become ready are executed by
+ * the same thread while the transform is still in cache, so there is no bookkeeper thread and no
+ * shared work queue. The tasks run on a work-stealing {@link ForkJoinPool}.
+ *
+ * <p>The producers still read the tiles and allocate the fft memory; they hand each tile to the
+ * scheduler with {@link #submitFft(ImageTile)}.</p>
+ *
+ * <p>If a task fails the scheduler is cancelled and the failure is reported to the failure
+ * handler, which cancels the producers. The fft memory held by the tiles whose tasks were dropped
+ * is returned to the memory pool, so producers waiting on the pool are released.</p>
+ *
+ * @author Tim Blattner
+ * @version 1.0
+ */
+public class DagStitchingScheduler<T> {
+
+  private final TileGrid<ImageTile<T>> grid;
+  private final DynamicMemoryPool<T> memoryPool;
+  private final JProgressBar progressBar;
+  private final CheckpointJournal journal;
+  private final ImageTile<T> initTile;
+
+  private final ForkJoinPool pool;
+  private final CountDownLatch remaining;
+
+  // pairs are indexed by the tile that owns the translation
+  private final AtomicIntegerArray westDeps;
+  private final AtomicIntegerArray northDeps;
+  private final AtomicIntegerArray fftReleaseCounts;
+  private final AtomicIntegerArray pixelReleaseCounts;
+
+  private final List<TileWorkerMemory> memories;
+  private final ThreadLocal<TileWorkerMemory> workerMemory;
+
+  private volatile boolean isCancelled;
+  private volatile Throwable workerThrowable;
+  private volatile Thread.UncaughtExceptionHandler failureHandler;
+
+  /**
+   * Creates a task graph scheduler for a grid
+   *
+   * @param numWorkers  the number of worker threads in the fork/join pool
+   * @param initTile    the initial tile, used to size the per-thread worker memory
+   * @param grid        the grid of images
+   * @param memoryPool  the pool the fft memory of the tiles is returned to
+   * @param progressBar the progress bar
+   */
+  public DagStitchingScheduler(int numWorkers, ImageTile<T> initTile, TileGrid<ImageTile<T>> grid,
+                               DynamicMemoryPool<T> memoryPool, JProgressBar progressBar) {
+    this.grid = grid;
+    this.memoryPool = memoryPool;
+    this.progressBar = progressBar;
+    this.journal = grid.getCheckpointJournal();
+    this.initTile = initTile;
+
+    int width = grid.getExtentWidth();
+    int height = grid.getExtentHeight();
+    int numTiles = width * height;
+    int numPairs = (width - 1) * height + (height - 1) * width;
+
+    this.westDeps = new AtomicIntegerArray(numTiles);
+    this.northDeps = new AtomicIntegerArray(numTiles);
+    this.fftReleaseCounts = new AtomicIntegerArray(numTiles);
+    this.pixelReleaseCounts = new AtomicIntegerArray(numTiles);
+
+    for (int r = 0; r < height; r++) {
+      for (int c = 0; c < width; c++) {
+        ImageTile<T> tile = grid.getSubGridTile(r, c);
+        int index = r * width + c;
+        this.westDeps.set(index, c > 0 ? 2 : 0);
+        this.northDeps.set(index, r > 0 ? 2 : 0);
+        this.fftReleaseCounts.set(index, tile.getFftReleaseCount());
+        this.pixelReleaseCounts.set(index, tile.getPixelDataReleaseCount());
+      }
+    }
+
+    this.remaining = new CountDownLatch(numTiles + numPairs);
+
+    this.memories = Collections.synchronizedList(new ArrayList<TileWorkerMemory>());
+    this.workerMemory = new ThreadLocal<TileWorkerMemory>() {
+      @Override
+      protected TileWorkerMemory initialValue() {
+        TileWorkerMemory memory =
+            TileWorkerMemoryFactory.makeTileWorkerMemory(DagStitchingScheduler.this.initTile);
+        DagStitchingScheduler.this.memories.add(memory);
+        return memory;
+      }
+    };
+
+    this.pool = new ForkJoinPool(numWorkers);
+    this.isCancelled = false;
+  }
+
+  /**
+   * Schedules the FFT of a tile whose pixels are read and whose fft memory is allocated
+   *
+   * @param tile the tile
+   */
+  public void submitFft(ImageTile<T> tile) {
+    submit(new FftTask(tile, false));
+  }
+
+  /**
+   * Schedules a tile whose pairs were all restored from the checkpoint journal. The tile is not
+   * transformed, it only releases the pairs that depend on it.
+   *
+   * @param tile the tile
+   */
+  public void submitRestored(ImageTile<T> tile) {
+    submit(new FftTask(tile, true));
+  }
+
+  /**
+   * Sets the handler that is notified when a task fails, so the producers can be cancelled
+   *
+   * @param failureHandler the handler
+   */
+  public void setFailureHandler(Thread.UncaughtExceptionHandler failureHandler) {
+    this.failureHandler = failureHandler;
+  }
+
+  /**
+   * Waits until every FFT and PCIAM node has completed or the scheduler is cancelled, then shuts
+   * down the fork/join pool and releases the worker memory. If cancelled, the fft memory of the
+   * tiles whose tasks were dropped is returned to the memory pool.
+   *
+   * @throws InterruptedException if interrupted while waiting
+   */
+  public void await() throws InterruptedException {
+    try {
+      while (!this.isCancelled && !this.remaining.await(100, TimeUnit.MILLISECONDS)) {
+        // poll so that cancellation is noticed
+      }
+    } finally {
+      this.pool.shutdownNow();
+      this.pool.awaitTermination(1, TimeUnit.MINUTES);
+
+      if (this.isCancelled) {
+        for (int r = 0; r < this.grid.getExtentHeight(); r++)
+          for (int c = 0; c < this.grid.getExtentWidth(); c++)
+            releaseDropped(this.grid.getSubGridTile(r, c));
+      }
+
+      synchronized (this.memories) {
+        for (TileWorkerMemory memory : this.memories)
+          memory.releaseMemory();
+        this.memories.clear();
+      }
+    }
+  }
+
+  /**
+   * Cancels the scheduler, the queued tasks are dropped
+   */
+  public void cancel() {
+    this.isCancelled = true;
+  }
+
+  /**
+   * @return the throwable raised by a task, or null if no task failed
+   */
+  public Throwable getWorkerThrowable() {
+    return this.workerThrowable;
+  }
+
+  private int indexOf(ImageTile<T> tile) {
+    return (tile.getRow() - this.grid.getStartRow()) * this.grid.getExtentWidth()
+        + (tile.getCol() - this.grid.getStartCol());
+  }
+
+  private void fail(Throwable t) {
+    synchronized (this) {
+      if (this.workerThrowable != null)
+        return;
+      this.workerThrowable = t;
+    }
+    cancel();
+
+    Thread.UncaughtExceptionHandler handler = this.failureHandler;
+    if (handler != null)
+      handler.uncaughtException(Thread.currentThread(), t);
+  }
+
+  private void submit(FftTask task) {
+    if (!this.isCancelled) {
+      try {
+        this.pool.execute(task);
+        return;
+      } catch (RejectedExecutionException e) {
+        // the pool was shut down after a failure or cancellation
+      }
+    }
+    releaseDropped(task.tile);
+  }
+
+  /**
+   * Returns the fft memory of a tile whose tasks were dropped to the memory pool
+   */
+  private void releaseDropped(ImageTile<T> tile) {
+    synchronized (tile) {
+      if (tile.isMemoryLoaded())
+        tile.releaseFftMemory(this.memoryPool);
+    }
+  }
+
+  /**
+   * Marks the FFT of a tile complete and collects the pairs it made ready
+   */
+  private List<PciamTask> completeFft(ImageTile<T> tile) {
+    tile.setFftState(State.COMPLETE);
+    this.remaining.countDown();
+
+    List<PciamTask> ready = new ArrayList<PciamTask>(4);
+    int row = tile.getRow();
+    int col = tile.getCol();
+    int index = indexOf(tile);
+    int width = this.grid.getExtentWidth();
+
+    if (col > this.grid.getStartCol() && this.westDeps.decrementAndGet(index) == 0)
+      ready.add(new PciamTask(tile, this.grid.getTile(row, col - 1), Direction.West));
+
+    if (row > this.grid.getStartRow() && this.northDeps.decrementAndGet(index) == 0)
+      ready.add(new PciamTask(tile, this.grid.getTile(row - 1, col), Direction.North));
+
+    if (col < this.grid.getStartCol() + width - 1
+        && this.westDeps.decrementAndGet(index + 1) == 0)
+      ready.add(new PciamTask(this.grid.getTile(row, col + 1), tile, Direction.West));
+
+    if (row < this.grid.getStartRow() + this.grid.getExtentHeight() - 1
+        && this.northDeps.decrementAndGet(index + width) == 0)
+      ready.add(new PciamTask(this.grid.getTile(row + 1, col), tile, Direction.North));
+
+    return ready;
+  }
+
+  /**
+   * Releases the memory of a tile once all of its pairs are complete. Tiles restored from the
+   * checkpoint journal never had fft memory allocated.
+   */
+  private void releaseTile(ImageTile<T> tile) {
+    int index = indexOf(tile);
+
+    if (this.fftReleaseCounts.decrementAndGet(index) == 0 && tile.isMemoryLoaded())
+      tile.releaseFftMemory(this.memoryPool);
+
+    if (this.pixelReleaseCounts.decrementAndGet(index) == 0)
+      tile.releasePixels();
+  }
+
+  /**
+   * Computes the FFT of a tile, then runs the first pair it made ready on this thread and forks
+   * the rest. Forked tasks are pushed onto this worker's own deque, so unless they are stolen they
+   * are executed next by the same thread.
+   */
+  private class FftTask extends RecursiveAction {
+    private final ImageTile<T> tile;
+    private final boolean restored;
+
+    FftTask(ImageTile<T> tile, boolean restored) {
+      this.tile = tile;
+      this.restored = restored;
+    }
+
+    @Override
+    protected void compute() {
+      if (isCancelled)
+        return;
+
+      try {
+        if (!this.restored)
+          this.tile.computeFft(memoryPool, workerMemory.get());
+
+        List<PciamTask> ready = completeFft(this.tile);
+        for (int i = 1; i < ready.size(); i++)
+          ready.get(i).fork();
+
+        if (!ready.isEmpty())
+          ready.get(0).compute();
+      } catch (Throwable t) {
+        fail(t);
+      }
+    }
+  }
+
+  /**
+   * Computes the phase correlation of a pair whose FFTs are both complete, unless the translation
+   * was restored from the checkpoint journal
+   */
+  private class PciamTask extends RecursiveAction {
+    private final ImageTile<T> tile;
+    private final ImageTile<T> neighbor;
+    private final Direction dir;
+
+    PciamTask(ImageTile<T> tile, ImageTile<T> neighbor, Direction dir) {
+      this.tile = tile;
+      this.neighbor = neighbor;
+      this.dir = dir;
+    }
+
+    @Override
+    protected void compute() {
+      if (isCancelled)
+        return;
+
+      try {
+        if (!CheckpointJournal.isPairRestored(grid, this.tile, this.dir)) {
+          CorrelationTriple corr = Stitching.phaseCorrelationImageAlignment(this.neighbor, this.tile,
+              workerMemory.get());
+
+          if (this.dir == Direction.West)
+            this.tile.setWestTranslation(corr);
+          else
+            this.tile.setNorthTranslation(corr);
+
+          if (journal != null)
+            journal.recordPciam(this.tile, this.neighbor, this.dir);
+
+          Log.msg(LogType.HELPFUL, (this.dir == Direction.West ? "W: " : "N: ")
+              + this.tile.getFileName() + " -> " + this.neighbor.getFileName()
+              + " x: " + corr.getMatlabFormatStrX() + " y: " + corr.getMatlabFormatStrY()
+              + " ccf: " + corr.getMatlatFormatStrCorr());
+
+          StitchingGuiUtils.incrementProgressBar(progressBar);
+        }
+
+        if (this.dir == Direction.West)
+          this.tile.setPciamWestState(State.COMPLETE);
+        else
+          this.tile.setPciamNorthState(State.COMPLETE);
+
+        releaseTile(this.tile);
+        releaseTile(this.neighbor);
+        remaining.countDown();
+      } catch (Throwable t) {
+        fail(t);
+      }
+    }
+  }
+
+}
@@ -0,0 +1,381 @@
+// NIST-developed software is provided by NIST as a public service. You may use, copy and distribute copies of the software in any medium, provided that you keep intact this entire notice. You may improve, modify and create derivative works of the software or any portion of the software, and you may copy and distribute such modifications or works. Modified works should carry a notice stating that you changed the software and should note the date and nature of any such change. Please explicitly acknowledge the National Institute of Standards and Technology as the source of the software.
+
+// NIST-developed software is expressly provided "AS IS." NIST MAKES NO WARRANTY OF ANY KIND, EXPRESS, IMPLIED, IN FACT OR ARISING BY OPERATION OF LAW, INCLUDING, WITHOUT LIMITATION, THE IMPLIED WARRANTY OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE, NON-INFRINGEMENT AND DATA ACCURACY. NIST NEITHER REPRESENTS NOR WARRANTS THAT THE OPERATION OF THE SOFTWARE WILL BE UNINTERRUPTED OR ERROR-FREE, OR THAT ANY DEFECTS WILL BE CORRECTED. NIST DOES NOT WARRANT OR MAKE ANY REPRESENTATIONS REGARDING THE USE OF THE SOFTWARE OR THE RESULTS THEREOF, INCLUDING BUT NOT LIMITED TO THE CORRECTNESS, ACCURACY, RELIABILITY, OR USEFULNESS OF THE SOFTWARE.
+
+// You are solely responsible for determining the appropriateness of using and distributing the software and you assume all risks associated with its use, including but not limited to the risks and costs of program errors, compliance with applicable laws, damage to or loss of data, programs or equipment, and the unavailability or interruption of operation. This software is not intended to be used in any situation where a failure could cause risk of injury or damage to property. The software developed by NIST employees is not subject to copyright protection within the United States.
+
+// ================================================================
+//
+// Author: tjb3
+// Date: Oct 19, 2026 2:12:37 PM EST
+//
+// Time-stamp: <Oct 19, 2026 2:12:37 PM tjb3>
+//
+//
+// ================================================================
+
+package gov.nist.isg.mist.lib.parallel.cpu;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import javax.swing.JProgressBar;
+
+import gov.nist.isg.mist.gui.StitchingGuiUtils;
+import gov.nist.isg.mist.lib.common.CorrelationTriple;
+import gov.nist.isg.mist.lib.imagetile.ImageTile;
+import gov.nist.isg.mist.lib.imagetile.Stitching;
+import gov.nist.isg.mist.lib.imagetile.memory.TileWorkerMemory;
+import gov.nist.isg.mist.lib.imagetile.memory.TileWorkerMemoryFactory;
+import gov.nist.isg.mist.lib.log.Log;
+import gov.nist.isg.mist.lib.log.Log.LogType;
+import gov.nist.isg.mist.lib.tilegrid.CheckpointJournal;
+import gov.nist.isg.mist.lib.tilegrid.TileGrid;
+import gov.nist.isg.mist.lib.tilegrid.TileGrid.Direction;
+import gov.nist.isg.mist.lib.tilegrid.TileGrid.GridDecomposition;
+import gov.nist.isg.mist.lib.tilegrid.TileGridUtils;
+import gov.nist.isg.mist.lib.tilegrid.traverser.TileGridTraversalPlanner;
+
+/**
+ * Partitioned multi-threaded stitching entry point. The grid is partitioned into numPartitions
+ * subgrids, each of which is stitched by its own {@link CPUStitchingThreadExecutor} with its own
+ * producer, work and bookkeeper queues, memory pool and bookkeeper thread. This removes the
+ * contention on the single shared work queue and bookkeeper when running with many worker
+ * threads.
+ *
+ * <p>The pairs that cross a partition boundary are not seen by any partition; they are computed
+ * by a final seam pass once all partitions have completed.</p>
+ *
+ * @author Tim Blattner
+ * @version 1.0
+ */
+public class PartitionedCPUStitchingThreadExecutor<T> implements Thread.UncaughtExceptionHandler {
+
+  private TileGrid<ImageTile<T>> grid;
+  private ImageTile<T> initTile;
+  private JProgressBar progressBar;
+  private int numWorkers;
+
+  private List<TileGrid<ImageTile<T>>> partitions;
+  private List<CPUStitchingThreadExecutor<T>> executors;
+  private ExecutorService seamPool;
+
+  private volatile boolean isCancelled;
+  private boolean exceptionThrown;
+  private Throwable workerThrowable;
+
+  /**
+   * Creates a partitioned CPU stitching thread executor
+   *
+   * @param numPartitions      the number of partitions to split the grid into
+   * @param numWorkers         the total number of workers, split evenly across the partitions
+   * @param initTile           the initial tile
+   * @param grid               the grid of images
+   * @param progressBar        the progress bar
+   * @param heapBudgetBytes    the heap memory budget in bytes, split evenly across the partitions
+   * @param offHeapBudgetBytes the off-heap memory budget in bytes, split evenly across the
+   *                           partitions
+   */
+  public PartitionedCPUStitchingThreadExecutor(int numPartitions, int numWorkers,
+                                               ImageTile<T> initTile, TileGrid<ImageTile<T>> grid,
+                                               JProgressBar progressBar, long heapBudgetBytes,
+                                               long offHeapBudgetBytes) throws OutOfMemoryError {
+    this.grid = grid;
+    this.initTile = initTile;
+    this.progressBar = progressBar;
+    this.numWorkers = numWorkers;
+    this.isCancelled = false;
+    this.exceptionThrown = false;
+    this.workerThrowable = null;
+
+    this.partitions = partition(grid, numPartitions);
+
+    if (this.partitions.size() != numPartitions) {
+      Log.msg(LogType.MANDATORY, "A better decomposition for your grid"
+          + " has been found. Reducing numPartitions from " + numPartitions + " to "
+          + this.partitions.size());
+    }
+
+    int n = this.partitions.size();
+    int workersPerPartition = Math.max(1, numWorkers / n);
+
+    Log.msg(LogType.MANDATORY, "Stitching " + n + " partitions with " + workersPerPartition
+        + " workers each");
+
+    this.executors = new ArrayList<CPUStitchingThreadExecutor<T>>(n);
+    for (TileGrid<ImageTile<T>> partition : this.partitions) {
+      // each partition only waits on its own neighbors, the seam pairs are computed afterwards
+      TileGridUtils.resetReleaseCounts(partition);
+
+      this.executors.add(new CPUStitchingThreadExecutor<T>(1, workersPerPartition, initTile,
+          partition, progressBar, heapBudgetBytes / n, offHeapBudgetBytes / n));
+    }
+  }
+
+  /**
+   * Simulates the peak number of FFTs held by each partition of a grid, not counting the
+   * transforms held by the workers.
+   *
+   * @param grid          the grid of images
+   * @param numPartitions the number of partitions to split the grid into
+   * @param <T>           the Type of ImageTile in the TileGrid
+   * @return the peak number of FFTs of each partition
+   */
+  public static <T> long[] getPartitionPeakFfts(TileGrid<ImageTile<T>> grid, int numPartitions) {
+    List<TileGrid<ImageTile<T>>> partitions = partition(grid, numPartitions);
+    long[] peaks = new long[partitions.size()];
+    for (int i = 0; i < peaks.length; i++)
+      peaks[i] = TileGridTraversalPlanner.plan(partitions.get(i)).getPeakFfts();
+    return peaks;
+  }
+
+  /**
+   * Gets the peak number of FFTs held while stitching with the partitioned executor. Each
+   * partition pool holds the peak of its traversal plus one transform per worker, and the
+   * partition pools are still allocated while the seam pass holds the FFTs of up to two tiles per
+   * worker.
+   *
+   * @param partitionPeakFfts the peak number of FFTs of each partition
+   * @param numWorkers        the total number of workers
+   * @return the peak number of FFTs held
+   */
+  public static long getPeakFftCount(long[] partitionPeakFfts, int numWorkers) {
+    int workersPerPartition = Math.max(1, numWorkers / partitionPeakFfts.length);
+
+    long count = 0;
+    for (long peak : partitionPeakFfts)
+      count += peak + workersPerPartition;
+
+    return count + getSeamFftCount(numWorkers);
+  }
+
+  /**
+   * Gets the peak number of FFTs held by the seam pass, which holds the FFTs of up to two tiles
+   * per worker.
+   *
+   * @param numWorkers the total number of workers
+   * @return the peak number of FFTs held by the seam pass
+   */
+  public static long getSeamFftCount(int numWorkers) {
+    return 2L * numWorkers;
+  }
+
+  /**
+   * Gets the number of workers holding worker memory at once while stitching with the partitioned
+   * executor. Each partition has at least one worker, so this may exceed the requested number.
+   *
+   * @param numPartitions the number of partitions the grid was split into
+   * @param numWorkers    the total number of workers
+   * @return the peak number of workers
+   */
+  public static int getPeakWorkerCount(int numPartitions, int numWorkers) {
+    return Math.max(numWorkers, numPartitions * Math.max(1, numWorkers / numPartitions));
+  }
+
+  private static <T> List<TileGrid<ImageTile<T>>> partition(TileGrid<ImageTile<T>> grid,
+                                                            int numPartitions) {
+    GridDecomposition type = grid.getExtentHeight() >= grid.getExtentWidth() ?
+        GridDecomposition.HORIZONTAL : GridDecomposition.VERTICAL;
+    return grid.partitionGrid(numPartitions, type);
+  }
+
+  /**
+   * Executes the partitions concurrently, then the seam pass
+   */
+  public void execute() {
+    List<Thread> threads = new ArrayList<Thread>(this.executors.size());
+    for (final CPUStitchingThreadExecutor<T> executor : this.executors) {
+      Thread thread = new Thread(new Runnable() {
+        @Override
+        public void run() {
+          executor.execute();
+          if (executor.isExceptionThrown())
+            uncaughtException(Thread.currentThread(), executor.getWorkerThrowable());
+        }
+      });
+      thread.setUncaughtExceptionHandler(this);
+      threads.add(thread);
+    }
+
+    for (Thread thread : threads)
+      thread.start();
+
+    for (Thread thread : threads)
+      try {
+        thread.join();
+      } catch (InterruptedException e) {
+        Log.msg(LogType.MANDATORY, "Interrupted stitching.");
+      }
+
+    if (this.isCancelled || this.exceptionThrown)
+      return;
+
+    try {
+      computeSeams();
+    } catch (Throwable e) {
+      uncaughtException(Thread.currentThread(), e);
+    }
+  }
+
+  /**
+   * Computes the pairs that cross a partition boundary. The seam pairs are processed in chunks of
+   * numWorkers pairs so that at most two FFTs per worker are held at any one time.
+   */
+  private void computeSeams() throws InterruptedException, ExecutionException {
+    List<ImageTile<T>[]> seamPairs = new ArrayList<ImageTile<T>[]>();
+    List<Boolean> seamIsNorth = new ArrayList<Boolean>();
+    for (TileGrid<ImageTile<T>> partition : this.partitions) {
+      for (int r = 0; r < partition.getExtentHeight(); r++) {
+        for (int c = 0; c < partition.getExtentWidth(); c++) {
+          ImageTile<T> tile = partition.getSubGridTile(r, c);
+          int row = tile.getRow();
+          int col = tile.getCol();
+
+          // pairs restored from the checkpoint journal already have a translation
+          if (r == 0 && row > this.grid.getStartRow()
+              && !CheckpointJournal.isPairRestored(this.grid, tile, Direction.North)) {
+            seamPairs.add(makePair(tile, this.grid.getTile(row - 1, col)));
+            seamIsNorth.add(true);
+          }
+
+          if (c == 0 && col > this.grid.getStartCol()
+              && !CheckpointJournal.isPairRestored(this.grid, tile, Direction.West)) {
+            seamPairs.add(makePair(tile, this.grid.getTile(row, col - 1)));
+            seamIsNorth.add(false);
+          }
+        }
+      }
+    }
+
+    if (seamPairs.isEmpty())
+      return;
+
+    Log.msg(LogType.INFO, "Computing " + seamPairs.size() + " partition seam pairs");
+
+    final BlockingQueue<TileWorkerMemory> memories = new LinkedBlockingQueue<TileWorkerMemory>();
+    for (int i = 0; i < this.numWorkers; i++)
+      memories.add(TileWorkerMemoryFactory.makeTileWorkerMemory(this.initTile));
+
+    this.seamPool = Executors.newFixedThreadPool(this.numWorkers);
+    try {
+      for (int start = 0; start < seamPairs.size() && !this.isCancelled; start += this.numWorkers) {
+        int end = Math.min(seamPairs.size(), start + this.numWorkers);
+
+        // compute the FFT of each distinct tile in the chunk once
+        Set<ImageTile<T>> tiles = new LinkedHashSet<ImageTile<T>>();
+        for (int i = start; i < end; i++) {
+          tiles.add(seamPairs.get(i)[0]);
+          tiles.add(seamPairs.get(i)[1]);
+        }
+
+        List<Callable<Void>> fftTasks = new ArrayList<Callable<Void>>();
+        for (final ImageTile<T> t : tiles) {
+          fftTasks.add(new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+              t.readTile();
+              t.computeFft();
+              return null;
+            }
+          });
+        }
+        invokeAll(fftTasks);
+
+        List<Callable<Void>> pciamTasks = new ArrayList<Callable<Void>>();
+        for (int i = start; i < end; i++) {
+          final ImageTile<T> tile = seamPairs.get(i)[0];
+          final ImageTile<T> neighbor = seamPairs.get(i)[1];
+          final boolean north = seamIsNorth.get(i);
+          pciamTasks.add(new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+              TileWorkerMemory memory = memories.take();
+              CorrelationTriple corr;
+              try {
+                corr = Stitching.phaseCorrelationImageAlignment(neighbor, tile, memory);
+              } finally {
+                memories.put(memory);
+              }
+
+              if (north)
+                tile.setNorthTranslation(corr);
+              else
+                tile.setWestTranslation(corr);
+
+              if (grid.getCheckpointJournal() != null)
+                grid.getCheckpointJournal().recordPciam(tile, neighbor,
+                    north ? Direction.North : Direction.West);
+
+              Log.msg(LogType.HELPFUL, (north ? "N: " : "W: ") + tile.getFileName() + " -> "
+                  + neighbor.getFileName() + " x: " + corr.getMatlabFormatStrX() + " y: "
+                  + corr.getMatlabFormatStrY() + " ccf: " + corr.getMatlatFormatStrCorr());
+
+              StitchingGuiUtils.incrementProgressBar(progressBar);
+              return null;
+            }
+          });
+        }
+        invokeAll(pciamTasks);
+
+        for (ImageTile<T> t : tiles) {
+          t.releaseFftMemory();
+          if (ImageTile.freePixelData())
+            t.releasePixels();
+        }
+      }
+    } finally {
+      this.seamPool.shutdownNow();
+      for (TileWorkerMemory memory : memories)
+        memory.releaseMemory();
+    }
+  }
+
+  private void invokeAll(List<Callable<Void>> tasks) throws InterruptedException,
+      ExecutionException {
+    for (Future<Void> f : this.seamPool.invokeAll(tasks))
+      f.get();
+  }
+
+  @SuppressWarnings("unchecked")
+  private ImageTile<T>[] makePair(ImageTile<T> tile, ImageTile<T> neighbor) {
+    return (ImageTile<T>[]) new ImageTile<?>[]{tile, neighbor};
+  }
+
+
+  /**
+   * Cancels the stitching executor threads
+   */
+  public void cancel() {
+    this.isCancelled = true;
+    for (CPUStitchingThreadExecutor<T> executor : this.executors)
+      executor.cancel();
+
+    if (this.seamPool != null)
+      this.seamPool.shutdownNow();
+  }
+
+  @Override
+  public synchronized void uncaughtException(Thread t, Throwable e) {
+    this.exceptionThrown = true;
+    this.workerThrowable = e;
+    this.cancel();
+  }
+
+  public boolean isExceptionThrown() {
+    return this.exceptionThrown;
+  }
+
+  public Throwable getWorkerThrowable() {
+    return this.workerThrowable;
+  }
+
+}
@@ -19,12 +19,15 @@
 package gov.nist.isg.mist.lib.parallel.cpu;
 
 import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import gov.nist.isg.mist.lib.imagetile.ImageTile;
 import gov.nist.isg.mist.lib.imagetile.ImageTile.State;
 import gov.nist.isg.mist.lib.memorypool.DynamicMemoryPool;
 import gov.nist.isg.mist.lib.parallel.common.StitchingTask;
 import gov.nist.isg.mist.lib.parallel.common.StitchingTask.TaskType;
+import gov.nist.isg.mist.lib.tilegrid.CheckpointJournal;
+import gov.nist.isg.mist.lib.tilegrid.TileGrid;
 import gov.nist.isg.mist.lib.tilegrid.traverser.TileGridTraverser;
 
 /**
@@ -38,7 +41,12 @@ public class TileProducer<T> implements Runnable {
   private TileGridTraverser<ImageTile<T>> traverser;
   private PriorityBlockingQueue<StitchingTask<T>> workQueue;
   private DynamicMemoryPool<T> pool;
-  private static int threadCount;
+  private AtomicInteger activeProducers;
+
+  private TileGrid<ImageTile<T>> resumeGrid;
+  private PriorityBlockingQueue<StitchingTask<T>> bkQueue;
+
+  private DagStitchingScheduler<T> scheduler;
 
   private volatile boolean isCancelled;
 
@@ -51,23 +59,56 @@ public class TileProducer<T> implements Runnable {
    * @param traverser   the traverser for traversing hte grid
    * @param workQueue   the work queue to pass to the next stage
    * @param pool        the pool of memory to allocate from
-   * @param threadCount the total thread number producer threads
+   * @param activeProducers the number of producer threads feeding workQueue that have not yet
+   *                        finished, shared by those producers
    */
   public TileProducer(TileGridTraverser<ImageTile<T>> traverser,
-                      PriorityBlockingQueue<StitchingTask<T>> workQueue, DynamicMemoryPool<T> pool, int threadCount) {
+                      PriorityBlockingQueue<StitchingTask<T>> workQueue, DynamicMemoryPool<T> pool,
+                      AtomicInteger activeProducers) {
     this.traverser = traverser;
     this.workQueue = workQueue;
-    TileProducer.threadCount = threadCount;
+    this.activeProducers = activeProducers;
     this.pool = pool;
     this.isCancelled = false;
   }
 
+  /**
+   * Enables resuming from a checkpoint journal. Tiles whose pairs were all restored from the
+   * journal are passed straight to the bookkeeper without being read or transformed.
+   *
+   * @param grid    the grid the journal was restored into
+   * @param bkQueue the bookkeeper queue
+   */
+  public void enableResume(TileGrid<ImageTile<T>> grid,
+                           PriorityBlockingQueue<StitchingTask<T>> bkQueue) {
+    this.resumeGrid = grid;
+    this.bkQueue = bkQueue;
+  }
+
+  /**
+   * Hands the tiles to a task graph scheduler instead of the work queue
+   *
+   * @param scheduler the scheduler that computes the FFTs and phase correlations
+   */
+  public void setScheduler(DagStitchingScheduler<T> scheduler) {
+    this.scheduler = scheduler;
+  }
+
   @Override
   public void run() {
     for (ImageTile<T> tile : this.traverser) {
       if (this.isCancelled)
         break;
 
+      if (this.resumeGrid != null && CheckpointJournal.isTileRestored(this.resumeGrid, tile)) {
+        tile.setFftState(State.IN_FLIGHT);
+        if (this.scheduler != null)
+          this.scheduler.submitRestored(tile);
+        else
+          this.bkQueue.put(new StitchingTask<T>(tile, null, TaskType.BK_CHECK_NEIGHBORS));
+        continue;
+      }
+
       tile.readTile();
 
       if(imageTileHeight == 0) {
@@ -85,14 +126,13 @@ public class TileProducer<T> implements Runnable {
 
       tile.setFftState(State.IN_FLIGHT);
       tile.allocateFftMemory(this.pool);
-      this.workQueue.put(new StitchingTask<T>(tile, null, TaskType.FFT));
-    }
-
-    synchronized (TileProducer.class) {
-      threadCount--;
+      if (this.scheduler != null)
+        this.scheduler.submitFft(tile);
+      else
+        this.workQueue.put(new StitchingTask<T>(tile, null, TaskType.FFT));
     }
 
-    if (threadCount == 0) {
+    if (this.activeProducers.decrementAndGet() == 0 && this.scheduler == null) {
       this.workQueue.put(new StitchingTask<T>(null, null, StitchingTask.TaskType.READ_DONE));
     }
 
@@ -29,10 +29,8 @@ import gov.nist.isg.mist.lib.imagetile.Stitching;
 import gov.nist.isg.mist.lib.imagetile.fftw.FftwImageTile;
 import gov.nist.isg.mist.lib.imagetile.java.JavaImageTile;
 import gov.nist.isg.mist.lib.imagetile.jcuda.CudaImageTile;
-import gov.nist.isg.mist.lib.imagetile.memory.CudaTileWorkerMemory;
-import gov.nist.isg.mist.lib.imagetile.memory.FftwTileWorkerMemory;
-import gov.nist.isg.mist.lib.imagetile.memory.JavaTileWorkerMemory;
 import gov.nist.isg.mist.lib.imagetile.memory.TileWorkerMemory;
+import gov.nist.isg.mist.lib.imagetile.memory.TileWorkerMemoryFactory;
 import gov.nist.isg.mist.lib.log.Debug;
 import gov.nist.isg.mist.lib.log.Debug.DebugType;
 import gov.nist.isg.mist.lib.log.Log;
@@ -40,12 +38,6 @@ import gov.nist.isg.mist.lib.log.Log.LogType;
 import gov.nist.isg.mist.lib.memorypool.DynamicMemoryPool;
 import gov.nist.isg.mist.lib.parallel.common.StitchingTask;
 import gov.nist.isg.mist.lib.parallel.common.StitchingTask.TaskType;
-import gov.nist.isg.mist.lib32.imagetile.fftw.FftwImageTile32;
-import gov.nist.isg.mist.lib32.imagetile.java.JavaImageTile32;
-import gov.nist.isg.mist.lib32.imagetile.jcuda.CudaImageTile32;
-import gov.nist.isg.mist.lib32.imagetile.memory.CudaTileWorkerMemory32;
-import gov.nist.isg.mist.lib32.imagetile.memory.FftwTileWorkerMemory32;
-import gov.nist.isg.mist.lib32.imagetile.memory.JavaTileWorkerMemory32;
 
 /**
  * A thread dedicated to computing FFTs and phase correlations for image tiles.
@@ -60,8 +52,7 @@ public class TileWorker<T> implements Runnable {
   private DynamicMemoryPool<T> memoryPool;
 
 
-  private static boolean readDone = false;
-  private static boolean bkDone = false;
+  private CompletionState completionState;
 
   private TileWorkerMemory memory;
 
@@ -78,31 +69,16 @@ public class TileWorker<T> implements Runnable {
    * @param memoryPool  the pool of memory
    * @param initTile    the initial image tile
    * @param progressBar the progress bar
+   * @param completionState the completion flags shared by all workers serving workQueue
    */
   public TileWorker(PriorityBlockingQueue<StitchingTask<T>> workQueue,
                     PriorityBlockingQueue<StitchingTask<T>> bkQueue, DynamicMemoryPool<T> memoryPool,
-                    ImageTile<T> initTile, JProgressBar progressBar) throws OutOfMemoryError {
-    readDone = false;
-    bkDone = false;
-    if (initTile instanceof FftwImageTile) {
-      this.memory = new FftwTileWorkerMemory(initTile);
-      this.useDoublePrecision = true;
-    } else if (initTile instanceof FftwImageTile32) {
-      this.memory = new FftwTileWorkerMemory32(initTile);
-      this.useDoublePrecision = false;
-    } else if (initTile instanceof CudaImageTile) {
-      this.memory = new CudaTileWorkerMemory(initTile);
-      this.useDoublePrecision = true;
-    } else if (initTile instanceof CudaImageTile32) {
-      this.memory = new CudaTileWorkerMemory32(initTile);
-      this.useDoublePrecision = false;
-    } else if (initTile instanceof JavaImageTile) {
-      this.memory = new JavaTileWorkerMemory(initTile);
-      this.useDoublePrecision = true;
-    } else if (initTile instanceof JavaImageTile32) {
-      this.memory = new JavaTileWorkerMemory32(initTile);
-      this.useDoublePrecision = false;
-    }
+                    ImageTile<T> initTile, JProgressBar progressBar, CompletionState completionState)
+      throws OutOfMemoryError {
+    this.completionState = completionState;
+    this.memory = TileWorkerMemoryFactory.makeTileWorkerMemory(initTile);
+    this.useDoublePrecision = initTile instanceof FftwImageTile
+        || initTile instanceof CudaImageTile || initTile instanceof JavaImageTile;
 
     this.workQueue = workQueue;
     this.bkQueue = bkQueue;
@@ -116,7 +92,7 @@ public class TileWorker<T> implements Runnable {
   public void run() {
 
     try {
-      while (!this.isCancelled && (!readDone || !bkDone)) {
+      while (!this.isCancelled && (!this.completionState.readDone || !this.completionState.bkDone)) {
         StitchingTask<T> task = this.workQueue.take();
 
         Debug.msg(DebugType.VERBOSE,
@@ -165,13 +141,9 @@ public class TileWorker<T> implements Runnable {
 
 
         } else if (task.getTask() == TaskType.READ_DONE) {
-          synchronized (TileWorker.class) {
-            readDone = true;
-          }
+          this.completionState.readDone = true;
         } else if (task.getTask() == TaskType.BK_DONE) {
-          synchronized (TileWorker.class) {
-            bkDone = true;
-          }
+          this.completionState.bkDone = true;
         }
 
       }
@@ -195,4 +167,13 @@ public class TileWorker<T> implements Runnable {
     this.workQueue.put(new StitchingTask<T>(null, null, TaskType.CANCELLED));
   }
 
+  /**
+   * Flags denoting that the producers and the bookkeeper feeding a work queue have finished. Shared
+   * by the workers serving that queue so that independent executors do not signal each other.
+   */
+  public static class CompletionState {
+    private volatile boolean readDone = false;
+    private volatile boolean bkDone = false;
+  }
+
 }
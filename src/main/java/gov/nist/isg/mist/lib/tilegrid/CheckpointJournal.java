@@ -0,0 +1,409 @@
+// NIST-developed software is provided by NIST as a public service. You may use, copy and distribute copies of the software in any medium, provided that you keep intact this entire notice. You may improve, modify and create derivative works of the software or any portion of the software, and you may copy and distribute such modifications or works. Modified works should carry a notice stating that you changed the software and should note the date and nature of any such change. Please explicitly acknowledge the National Institute of Standards and Technology as the source of the software.
+
+// NIST-developed software is expressly provided "AS IS." NIST MAKES NO WARRANTY OF ANY KIND, EXPRESS, IMPLIED, IN FACT OR ARISING BY OPERATION OF LAW, INCLUDING, WITHOUT LIMITATION, THE IMPLIED WARRANTY OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE, NON-INFRINGEMENT AND DATA ACCURACY. NIST NEITHER REPRESENTS NOR WARRANTS THAT THE OPERATION OF THE SOFTWARE WILL BE UNINTERRUPTED OR ERROR-FREE, OR THAT ANY DEFECTS WILL BE CORRECTED. NIST DOES NOT WARRANT OR MAKE ANY REPRESENTATIONS REGARDING THE USE OF THE SOFTWARE OR THE RESULTS THEREOF, INCLUDING BUT NOT LIMITED TO THE CORRECTNESS, ACCURACY, RELIABILITY, OR USEFULNESS OF THE SOFTWARE.
+
+// You are solely responsible for determining the appropriateness of using and distributing the software and you assume all risks associated with its use, including but not limited to the risks and costs of program errors, compliance with applicable laws, damage to or loss of data, programs or equipment, and the unavailability or interruption of operation. This software is not intended to be used in any situation where a failure could cause risk of injury or damage to property. The software developed by NIST employees is not subject to copyright protection within the United States.
+
+
+
+// ================================================================
+//
+// Author: tjb3
+// Date: Oct 19, 2026 7:03:52 PM EST
+//
+// Time-stamp: <Oct 19, 2026 7:03:52 PM tjb3>
+//
+//
+// ================================================================
+
+package gov.nist.isg.mist.lib.tilegrid;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import gov.nist.isg.mist.gui.params.AdvancedParameters;
+import gov.nist.isg.mist.gui.params.InputParameters;
+import gov.nist.isg.mist.gui.params.StitchingAppParams;
+import gov.nist.isg.mist.lib.common.CorrelationTriple;
+import gov.nist.isg.mist.lib.imagetile.ImageTile;
+import gov.nist.isg.mist.lib.log.Log;
+import gov.nist.isg.mist.lib.log.Log.LogType;
+import gov.nist.isg.mist.lib.tilegrid.TileGrid.Direction;
+
+/**
+ * Append-only journal of the pairwise translations computed while stitching a grid, so a run that
+ * dies part way through can be resumed without recomputing the pairs that already completed.
+ *
+ * <p>Each line records one pair: the stage that produced it (phase correlation or translation
+ * refinement), the direction, the tile and neighbor filenames and the correlation triple. Lines
+ * are flushed as they are written and the file is synced to disk at most once per second. When
+ * resuming, the phase correlation translations are restored into the grid and the refined
+ * translations are held by the journal until the refinement stage asks for them. A truncated
+ * final line left by a crash is ignored.</p>
+ *
+ * <p>The first line of a journal is a fingerprint of the grid and the parameters that determine
+ * the translations (see {@link #fingerprint(StitchingAppParams, int)}). A journal whose
+ * fingerprint does not match the current run is moved aside and a new journal is started, so
+ * translations are never restored into a different grid or from different settings.</p>
+ *
+ * @author Tim Blattner
+ * @version 1.0
+ */
+public class CheckpointJournal implements Closeable {
+
+  private static final String HEADER = "# mist checkpoint: ";
+  private static final String STALE_SUFFIX = ".stale";
+  private static final String PCIAM = "pciam";
+  private static final String REFINED = "refined";
+  private static final long SYNC_INTERVAL_MILLIS = 1000;
+  private static final Charset CHARSET = Charset.forName("UTF-8");
+
+  private File file;
+  private FileOutputStream out;
+  private Writer writer;
+  private long lastSync;
+
+  private Map<String, CorrelationTriple> refined;
+  private int numPciamRestored;
+
+  private CheckpointJournal(File file) {
+    this.file = file;
+    this.refined = new HashMap<String, CorrelationTriple>();
+    this.numPciamRestored = 0;
+  }
+
+  /**
+   * Opens the checkpoint journal for a grid. If resuming, the journal of the previous run is
+   * replayed into the grid and appended to, otherwise a new journal is started. A journal written
+   * with a different fingerprint is renamed with a .stale suffix and a new journal is started.
+   *
+   * @param grid        the grid being stitched
+   * @param file        the journal file
+   * @param resume      whether to resume from an existing journal
+   * @param fingerprint the fingerprint of the run, see {@link #fingerprint(StitchingAppParams,
+   *                    int)}
+   * @return the open journal
+   * @throws IOException if the journal cannot be read or opened for writing
+   */
+  public static <T> CheckpointJournal open(TileGrid<ImageTile<T>> grid, File file, boolean resume,
+                                           String fingerprint) throws IOException {
+    CheckpointJournal journal = new CheckpointJournal(file);
+    boolean append = resume && file.exists() && file.length() > 0;
+
+    if (append && !(HEADER + fingerprint).equals(readHeader(file))) {
+      File stale = new File(file.getPath() + STALE_SUFFIX);
+      Log.msg(LogType.MANDATORY, "Checkpoint journal " + file.getAbsolutePath()
+          + " was written for a different grid or different stitching parameters, moving it to "
+          + stale.getName() + " and starting a new journal");
+      if (stale.exists() && !stale.delete())
+        throw new IOException("Unable to delete " + stale.getAbsolutePath());
+      if (!file.renameTo(stale))
+        throw new IOException("Unable to rename " + file.getAbsolutePath());
+      append = false;
+    }
+
+    if (append) {
+      journal.replay(grid);
+      terminateLastLine(file);
+      Log.msg(LogType.MANDATORY, "Resuming from checkpoint journal " + file.getAbsolutePath()
+          + ": restored " + journal.numPciamRestored + " phase correlation and "
+          + journal.refined.size() + " refined translations");
+    } else {
+      File parent = file.getAbsoluteFile().getParentFile();
+      if (parent != null)
+        parent.mkdirs();
+    }
+
+    journal.out = new FileOutputStream(file, append);
+    journal.writer = new BufferedWriter(new OutputStreamWriter(journal.out, CHARSET));
+    journal.lastSync = System.currentTimeMillis();
+    if (!append) {
+      journal.writer.write(HEADER + fingerprint + "\n");
+      journal.writer.flush();
+    }
+    return journal;
+  }
+
+  /**
+   * Builds the fingerprint of a run: the grid layout, the filename pattern and the parameters that
+   * determine the translations. Parameters that only affect performance are not included.
+   *
+   * @param params    the stitching parameters
+   * @param timeSlice the timeslice being stitched
+   * @return the fingerprint
+   */
+  public static String fingerprint(StitchingAppParams params, int timeSlice) {
+    InputParameters input = params.getInputParams();
+    AdvancedParameters advanced = params.getAdvancedParams();
+    return "grid: " + input.getGridWidth() + "x" + input.getGridHeight()
+        + "; start: " + input.getStartRow() + "," + input.getStartCol()
+        + "; extent: " + input.getExtentWidth() + "x" + input.getExtentHeight()
+        + "; pattern: " + input.getFilenamePattern()
+        + "; loader: " + input.getFilenamePatternLoaderType() + " " + input.getOrigin() + " "
+        + input.getNumbering() + " " + input.getStartTile() + " " + input.getStartTileRow() + " "
+        + input.getStartTileCol()
+        + "; timeslice: " + timeSlice
+        + "; pciam: " + advanced.getNumFFTPeaks() + " " + advanced.isUseDoublePrecision() + " "
+        + advanced.isFftPadding()
+        + "; refinement: " + advanced.getTranslationRefinementType() + " "
+        + advanced.getNumTranslationRefinementStartPoints() + " " + advanced.getRepeatability()
+        + " " + advanced.getHorizontalOverlap() + " " + advanced.getVerticalOverlap() + " "
+        + advanced.getOverlapUncertainty()
+        + "; flat field: " + advanced.getFlatFieldPath() + " " + advanced.getDarkFieldPath() + " "
+        + advanced.isBackgroundSubtraction();
+  }
+
+  /**
+   * Determines whether the translation of a pair was restored from the checkpoint journal. A
+   * translation that is already set without a journal attached to the grid is stale and the pair
+   * is computed again.
+   *
+   * @param grid the grid being stitched
+   * @param tile the tile the translation belongs to
+   * @param dir  the direction of the neighbor
+   * @return true if the grid is journaled and the pair already has a translation
+   */
+  public static <T> boolean isPairRestored(TileGrid<ImageTile<T>> grid, ImageTile<T> tile,
+                                           Direction dir) {
+    return grid.getCheckpointJournal() != null && tile.getTranslation(dir) != null;
+  }
+
+  /**
+   * Records a translation computed by phase correlation
+   *
+   * @param tile     the tile the translation belongs to
+   * @param neighbor the north or west neighbor
+   * @param dir      the direction of the neighbor
+   */
+  public void recordPciam(ImageTile<?> tile, ImageTile<?> neighbor, Direction dir) {
+    record(PCIAM, tile, neighbor, dir, tile.getTranslation(dir));
+  }
+
+  /**
+   * Records a translation computed by translation refinement, before it is weighted by the
+   * refinement stage
+   *
+   * @param tile     the tile the translation belongs to
+   * @param neighbor the north or west neighbor
+   * @param dir      the direction of the neighbor
+   * @param triple   the refined translation
+   */
+  public void recordRefined(ImageTile<?> tile, ImageTile<?> neighbor, Direction dir,
+                            CorrelationTriple triple) {
+    record(REFINED, tile, neighbor, dir, triple);
+  }
+
+  /**
+   * Gets the refined translation restored from the journal of a previous run
+   *
+   * @param tile the tile the translation belongs to
+   * @param dir  the direction of the neighbor
+   * @return a copy of the restored refined translation, or null if it has not been computed
+   */
+  public CorrelationTriple getRefinedTranslation(ImageTile<?> tile, Direction dir) {
+    CorrelationTriple triple;
+    synchronized (this.refined) {
+      triple = this.refined.get(key(dir, tile.getFileName()));
+    }
+    return triple == null ? null : triple.clone();
+  }
+
+  /**
+   * Determines whether every pair a tile is part of was restored from the journal, in which case
+   * the tile does not need to be read or transformed again.
+   *
+   * @param grid the grid being stitched
+   * @param tile the tile
+   * @return true if all of the tile's pairs within the grid have a translation
+   */
+  public static <T> boolean isTileRestored(TileGrid<ImageTile<T>> grid, ImageTile<T> tile) {
+    int row = tile.getRow();
+    int col = tile.getCol();
+
+    if (col > grid.getStartCol() && tile.getWestTranslation() == null)
+      return false;
+    if (row > grid.getStartRow() && tile.getNorthTranslation() == null)
+      return false;
+    if (col < grid.getStartCol() + grid.getExtentWidth() - 1
+        && grid.getTile(row, col + 1).getWestTranslation() == null)
+      return false;
+    if (row < grid.getStartRow() + grid.getExtentHeight() - 1
+        && grid.getTile(row + 1, col).getNorthTranslation() == null)
+      return false;
+
+    return true;
+  }
+
+  /**
+   * @return the journal file
+   */
+  public File getFile() {
+    return this.file;
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    if (this.writer == null)
+      return;
+
+    this.writer.flush();
+    this.out.getFD().sync();
+    this.writer.close();
+    this.writer = null;
+  }
+
+  private synchronized void record(String stage, ImageTile<?> tile, ImageTile<?> neighbor,
+                                   Direction dir, CorrelationTriple triple) {
+    if (this.writer == null || triple == null)
+      return;
+
+    try {
+      this.writer.write(stage + ", " + name(dir) + ", " + tile.getFileName() + ", "
+          + neighbor.getFileName() + ", " + triple.getCorrelation() + ", " + triple.getX() + ", "
+          + triple.getY() + "\n");
+      this.writer.flush();
+
+      long now = System.currentTimeMillis();
+      if (now - this.lastSync >= SYNC_INTERVAL_MILLIS) {
+        this.out.getFD().sync();
+        this.lastSync = now;
+      }
+    } catch (IOException e) {
+      Log.msg(LogType.MANDATORY, "Unable to write to checkpoint journal " + this.file.getAbsolutePath()
+          + ", journaling disabled: " + e.getMessage());
+      try {
+        this.writer.close();
+      } catch (IOException ignored) {
+      }
+      this.writer = null;
+    }
+  }
+
+  private <T> void replay(TileGrid<ImageTile<T>> grid) throws IOException {
+    // indices rather than tiles, a compact grid may evict tiles while the journal is replayed
+    Map<String, Integer> tilesByName = TileGridUtils.indexTilesByName(grid);
+
+    List<String> lines = new ArrayList<String>();
+    BufferedReader br = new BufferedReader(new InputStreamReader(new FileInputStream(this.file),
+        CHARSET));
+    try {
+      String line;
+      while ((line = br.readLine()) != null)
+        lines.add(line);
+    } finally {
+      br.close();
+    }
+
+    // a final line without a newline was cut short by a crash
+    if (!endsWithNewline(this.file) && !lines.isEmpty()) {
+      Log.msg(LogType.HELPFUL, "Skipping incomplete checkpoint journal entry: "
+          + lines.remove(lines.size() - 1));
+    }
+
+    for (String line : lines) {
+      if (line.trim().isEmpty() || line.startsWith(HEADER))
+        continue;
+
+      // stage, direction, tile, neighbor, corr, x, y
+      String[] split = line.split(", ");
+      if (split.length != 7) {
+        Log.msg(LogType.HELPFUL, "Skipping malformed checkpoint journal entry: " + line);
+        continue;
+      }
+
+      Integer index = tilesByName.get(split[2]);
+      Direction dir = split[1].equals("north") ? Direction.North :
+          split[1].equals("west") ? Direction.West : null;
+      if (index == null || dir == null) {
+        Log.msg(LogType.HELPFUL, "Skipping checkpoint journal entry outside of the grid: " + line);
+        continue;
+      }
+
+      CorrelationTriple triple;
+      try {
+        triple = new CorrelationTriple(Double.parseDouble(split[4]), Integer.parseInt(split[5]),
+            Integer.parseInt(split[6]));
+      } catch (NumberFormatException e) {
+        Log.msg(LogType.HELPFUL, "Skipping malformed checkpoint journal entry: " + line);
+        continue;
+      }
+
+      if (split[0].equals(PCIAM)) {
+        ImageTile<T> tile = grid.getSubGridTile(index / grid.getExtentWidth(),
+            index % grid.getExtentWidth());
+        if (dir == Direction.North)
+          tile.setNorthTranslation(triple);
+        else
+          tile.setWestTranslation(triple);
+        this.numPciamRestored++;
+      } else if (split[0].equals(REFINED)) {
+        this.refined.put(key(dir, split[2]), triple);
+      }
+    }
+  }
+
+  /**
+   * Reads the fingerprint line of a journal
+   *
+   * @return the first line of the journal, or null if it is empty
+   */
+  private static String readHeader(File file) throws IOException {
+    BufferedReader br = new BufferedReader(new InputStreamReader(new FileInputStream(file),
+        CHARSET));
+    try {
+      return br.readLine();
+    } finally {
+      br.close();
+    }
+  }
+
+  /**
+   * Ends the journal with a newline, so entries appended after a crash part way through a line
+   * start on their own line.
+   */
+  private static void terminateLastLine(File file) throws IOException {
+    if (endsWithNewline(file))
+      return;
+
+    RandomAccessFile raf = new RandomAccessFile(file, "rw");
+    try {
+      raf.seek(raf.length());
+      raf.write('\n');
+    } finally {
+      raf.close();
+    }
+  }
+
+  private static boolean endsWithNewline(File file) throws IOException {
+    RandomAccessFile raf = new RandomAccessFile(file, "r");
+    try {
+      raf.seek(raf.length() - 1);
+      return raf.read() == '\n';
+    } finally {
+      raf.close();
+    }
+  }
+
+  private static String name(Direction dir) {
+    return dir == Direction.North ? "north" : "west";
+  }
+
+  private static String key(Direction dir, String fileName) {
+    return name(dir) + ", " + fileName;
+  }
+
+}
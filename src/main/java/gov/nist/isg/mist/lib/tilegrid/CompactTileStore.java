@@ -0,0 +1,382 @@
+// NIST-developed software is provided by NIST as a public service. You may use, copy and distribute copies of the software in any medium, provided that you keep intact this entire notice. You may improve, modify and create derivative works of the software or any portion of the software, and you may copy and distribute such modifications or works. Modified works should carry a notice stating that you changed the software and should note the date and nature of any such change. Please explicitly acknowledge the National Institute of Standards and Technology as the source of the software.
+
+// NIST-developed software is expressly provided "AS IS." NIST MAKES NO WARRANTY OF ANY KIND, EXPRESS, IMPLIED, IN FACT OR ARISING BY OPERATION OF LAW, INCLUDING, WITHOUT LIMITATION, THE IMPLIED WARRANTY OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE, NON-INFRINGEMENT AND DATA ACCURACY. NIST NEITHER REPRESENTS NOR WARRANTS THAT THE OPERATION OF THE SOFTWARE WILL BE UNINTERRUPTED OR ERROR-FREE, OR THAT ANY DEFECTS WILL BE CORRECTED. NIST DOES NOT WARRANT OR MAKE ANY REPRESENTATIONS REGARDING THE USE OF THE SOFTWARE OR THE RESULTS THEREOF, INCLUDING BUT NOT LIMITED TO THE CORRECTNESS, ACCURACY, RELIABILITY, OR USEFULNESS OF THE SOFTWARE.
+
+// You are solely responsible for determining the appropriateness of using and distributing the software and you assume all risks associated with its use, including but not limited to the risks and costs of program errors, compliance with applicable laws, damage to or loss of data, programs or equipment, and the unavailability or interruption of operation. This software is not intended to be used in any situation where a failure could cause risk of injury or damage to property. The software developed by NIST employees is not subject to copyright protection within the United States.
+
+
+
+// ================================================================
+//
+// Author: tjb3
+// Date: Oct 19, 2026 9:31:18 PM EST
+//
+// Time-stamp: <Oct 19, 2026 9:31:18 PM tjb3>
+//
+//
+// ================================================================
+
+package gov.nist.isg.mist.lib.tilegrid;
+
+import java.io.File;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import gov.nist.isg.mist.lib.common.CorrelationTriple;
+import gov.nist.isg.mist.lib.imagetile.ImageTile;
+import gov.nist.isg.mist.lib.imagetile.ImageTile.State;
+import gov.nist.isg.mist.lib.tilegrid.loader.TileGridLoader;
+
+/**
+ * Compact backend for a {@link TileGrid}. The metadata of every tile (absolute position,
+ * correlations, translations, release counts and pipeline states) is kept in primitive arrays
+ * indexed by row * gridWidth + col. ImageTile objects are only materialized as views when a tile
+ * is requested, and kept in an access ordered cache. Once the cache holds more views than its
+ * capacity, the least recently used idle views (no pixels, no FFT, nothing in flight) are written
+ * back to the arrays and only weakly referenced. Grid memory therefore scales with the working set
+ * of the pipeline instead of with the number of tiles.
+ *
+ * <p> An evicted view that a caller still holds stays the view of its tile: requesting the tile
+ * again returns the same object, so there are never two views of one tile and updates made
+ * through the held view are not lost when the tile is requested again. Callers that walk the whole
+ * grid should still keep tile indices rather than views, so the views they are done with can be
+ * collected.
+ *
+ * @author Tim Blattner
+ * @version 1.0
+ */
+public class CompactTileStore<T extends ImageTile<?>> {
+
+  /**
+   * Minimum number of tile views kept resident.
+   */
+  public static final int MIN_RESIDENT_TILES = 4096;
+
+  private static final byte HAS_NORTH = 1;
+  private static final byte HAS_WEST = 1 << 1;
+  private static final byte HAS_PRE_NORTH = 1 << 2;
+  private static final byte HAS_PRE_WEST = 1 << 3;
+  private static final byte STORED = 1 << 4;
+  private static final byte FILE_EXISTS = 1 << 5;
+
+  private static final State[] STATES = State.values();
+
+  private final Class<?> imageTileClass;
+  private final Constructor<?> constructor;
+  private final TileGridLoader gridLoader;
+  private final File imageDir;
+  private final int gridWidth;
+  private final int gridHeight;
+  private final int extentWidth;
+  private final int extentHeight;
+  private final int startRow;
+  private final int startCol;
+  private int capacity;
+
+  private final byte[] flags;
+  private final int[] absX;
+  private final int[] absY;
+  private final double[] tileCorrelation;
+  private final int[] northX;
+  private final int[] northY;
+  private final double[] northCorr;
+  private final int[] westX;
+  private final int[] westY;
+  private final double[] westCorr;
+  private final int[] preNorthX;
+  private final int[] preNorthY;
+  private final double[] preNorthCorr;
+  private final int[] preWestX;
+  private final int[] preWestY;
+  private final double[] preWestCorr;
+  private final int[] fftReleaseCount;
+  private final int[] pixelReleaseCount;
+  private final int[] mstReleaseCount;
+  private final byte[] states;
+  private final int[] width;
+  private final int[] height;
+  private final byte[] bitDepth;
+
+  private final LinkedHashMap<Integer, T> resident;
+  private final Map<Integer, EvictedView<T>> evicted;
+  private final ReferenceQueue<T> collected;
+
+  /**
+   * A view that was written back and is only kept while a caller holds it
+   */
+  private static class EvictedView<T> extends WeakReference<T> {
+    private final int index;
+
+    private EvictedView(T tile, int index, ReferenceQueue<T> queue) {
+      super(tile, queue);
+      this.index = index;
+    }
+  }
+
+  /**
+   * Creates a compact tile store
+   *
+   * @param imageTileClass the ImageTile class the views are created with
+   * @param constructor    the (File, row, col, extentWidth, extentHeight, startRow, startCol)
+   *                       constructor of imageTileClass
+   * @param gridLoader     the tile grid loader that names the tiles
+   * @param imageDir       the image directory
+   * @param extentWidth    the width of the (sub)grid being stitched
+   * @param extentHeight   the height of the (sub)grid being stitched
+   * @param startRow       the start row of the (sub)grid being stitched
+   * @param startCol       the start column of the (sub)grid being stitched
+   */
+  public CompactTileStore(Class<?> imageTileClass, Constructor<?> constructor,
+                          TileGridLoader gridLoader, File imageDir, int extentWidth,
+                          int extentHeight, int startRow, int startCol) {
+    this.imageTileClass = imageTileClass;
+    this.constructor = constructor;
+    this.gridLoader = gridLoader;
+    this.imageDir = imageDir;
+    this.gridWidth = gridLoader.getGridWidth();
+    this.gridHeight = gridLoader.getGridHeight();
+    this.extentWidth = extentWidth;
+    this.extentHeight = extentHeight;
+    this.startRow = startRow;
+    this.startCol = startCol;
+    this.capacity = Math.max(MIN_RESIDENT_TILES, 4 * Math.max(this.gridWidth, this.gridHeight));
+
+    int n = this.gridWidth * this.gridHeight;
+    this.flags = new byte[n];
+    this.absX = new int[n];
+    this.absY = new int[n];
+    this.tileCorrelation = new double[n];
+    this.northX = new int[n];
+    this.northY = new int[n];
+    this.northCorr = new double[n];
+    this.westX = new int[n];
+    this.westY = new int[n];
+    this.westCorr = new double[n];
+    this.preNorthX = new int[n];
+    this.preNorthY = new int[n];
+    this.preNorthCorr = new double[n];
+    this.preWestX = new int[n];
+    this.preWestY = new int[n];
+    this.preWestCorr = new double[n];
+    this.fftReleaseCount = new int[n];
+    this.pixelReleaseCount = new int[n];
+    this.mstReleaseCount = new int[n];
+    this.states = new byte[n];
+    this.width = new int[n];
+    this.height = new int[n];
+    this.bitDepth = new byte[n];
+
+    this.resident = new LinkedHashMap<Integer, T>(16, 0.75f, true);
+    this.evicted = new HashMap<Integer, EvictedView<T>>();
+    this.collected = new ReferenceQueue<T>();
+  }
+
+  /**
+   * Gets the view of a tile, materializing it from the stored metadata if it is not resident
+   *
+   * @param row the row of the tile in the full grid
+   * @param col the column of the tile in the full grid
+   * @return the tile view
+   */
+  public synchronized T getTile(int row, int col) {
+    Integer index = row * this.gridWidth + col;
+    T tile = this.resident.get(index);
+    if (tile != null)
+      return tile;
+
+    purgeCollected();
+
+    // a caller still holds the evicted view, it is at least as recent as the stored metadata
+    EvictedView<T> view = this.evicted.remove(index);
+    if (view != null)
+      tile = view.get();
+    if (tile == null)
+      tile = materialize(row, col, index);
+    this.resident.put(index, tile);
+
+    if (this.resident.size() > this.capacity)
+      evictIdle();
+
+    return tile;
+  }
+
+  /**
+   * @return the number of tile views currently materialized
+   */
+  public synchronized int getResidentCount() {
+    return this.resident.size();
+  }
+
+  /**
+   * @return the maximum number of tile views kept while they are idle
+   */
+  public synchronized int getCapacity() {
+    return this.capacity;
+  }
+
+  /**
+   * Sets the maximum number of tile views kept while they are idle. Lowering the capacity below
+   * {@link #MIN_RESIDENT_TILES} trades grid memory for re-creating views more often.
+   *
+   * @param capacity the maximum number of idle tile views, at least 1
+   */
+  public synchronized void setCapacity(int capacity) {
+    this.capacity = Math.max(1, capacity);
+    if (this.resident.size() > this.capacity)
+      evictIdle();
+  }
+
+  /**
+   * Gets the resident tile views in a grid shaped array, tiles that are not resident are null
+   *
+   * @return the array of resident tile views
+   */
+  @SuppressWarnings("unchecked")
+  public synchronized T[][] getResidentTiles() {
+    T[][] tiles = (T[][]) Array.newInstance(this.imageTileClass, this.gridHeight, this.gridWidth);
+    for (Map.Entry<Integer, T> entry : this.resident.entrySet()) {
+      int index = entry.getKey();
+      tiles[index / this.gridWidth][index % this.gridWidth] = entry.getValue();
+    }
+    return tiles;
+  }
+
+  @SuppressWarnings("unchecked")
+  private T materialize(int row, int col, int index) {
+    String fileName = this.gridLoader.getTileName(row, col);
+    T tile;
+    try {
+      tile = (T) this.constructor.newInstance(new File(this.imageDir, fileName), row, col,
+          this.extentWidth, this.extentHeight, this.startRow, this.startCol);
+    } catch (Exception e) {
+      throw new IllegalStateException("Unable to create image tile " + fileName, e);
+    }
+
+    if ((this.flags[index] & STORED) != 0)
+      restore(tile, index);
+
+    return tile;
+  }
+
+  private void evictIdle() {
+    Iterator<Map.Entry<Integer, T>> itr = this.resident.entrySet().iterator();
+    while (this.resident.size() > this.capacity && itr.hasNext()) {
+      Map.Entry<Integer, T> entry = itr.next();
+      T tile = entry.getValue();
+      if (isIdle(tile)) {
+        int index = entry.getKey();
+        writeBack(tile, index);
+        itr.remove();
+        this.evicted.put(index, new EvictedView<T>(tile, index, this.collected));
+      }
+    }
+  }
+
+  /**
+   * Forgets the evicted views that have been garbage collected
+   */
+  private void purgeCollected() {
+    Reference<? extends T> ref;
+    while ((ref = this.collected.poll()) != null) {
+      EvictedView<?> view = (EvictedView<?>) ref;
+      if (this.evicted.get(view.index) == view)
+        this.evicted.remove(view.index);
+    }
+  }
+
+  private static boolean isIdle(ImageTile<?> tile) {
+    return !tile.isTileRead() && !tile.hasFft() && tile.getFftState() != State.IN_FLIGHT
+        && tile.getPciamNorthState() != State.IN_FLIGHT
+        && tile.getPciamWestState() != State.IN_FLIGHT;
+  }
+
+  private void writeBack(ImageTile<?> tile, int index) {
+    byte f = STORED;
+    if (tile.fileExists())
+      f |= FILE_EXISTS;
+
+    this.absX[index] = tile.getAbsXPos();
+    this.absY[index] = tile.getAbsYPos();
+    this.tileCorrelation[index] = tile.getTileCorrelation();
+
+    CorrelationTriple triple = tile.getNorthTranslation();
+    if (triple != null) {
+      f |= HAS_NORTH;
+      this.northX[index] = triple.getX();
+      this.northY[index] = triple.getY();
+      this.northCorr[index] = triple.getCorrelation();
+    }
+    triple = tile.getWestTranslation();
+    if (triple != null) {
+      f |= HAS_WEST;
+      this.westX[index] = triple.getX();
+      this.westY[index] = triple.getY();
+      this.westCorr[index] = triple.getCorrelation();
+    }
+    triple = tile.getPreOptimizationNorthTranslation();
+    if (triple != null) {
+      f |= HAS_PRE_NORTH;
+      this.preNorthX[index] = triple.getX();
+      this.preNorthY[index] = triple.getY();
+      this.preNorthCorr[index] = triple.getCorrelation();
+    }
+    triple = tile.getPreOptimizationWestTranslation();
+    if (triple != null) {
+      f |= HAS_PRE_WEST;
+      this.preWestX[index] = triple.getX();
+      this.preWestY[index] = triple.getY();
+      this.preWestCorr[index] = triple.getCorrelation();
+    }
+
+    this.fftReleaseCount[index] = tile.getFftReleaseCount();
+    this.pixelReleaseCount[index] = tile.getPixelDataReleaseCount();
+    this.mstReleaseCount[index] = tile.getMstReleaseCount();
+    this.states[index] = (byte) (tile.getFftState().ordinal()
+        | tile.getPciamNorthState().ordinal() << 2 | tile.getPciamWestState().ordinal() << 4);
+    this.width[index] = tile.getWidth();
+    this.height[index] = tile.getHeight();
+    this.bitDepth[index] = (byte) tile.getBitDepth();
+
+    this.flags[index] = f;
+  }
+
+  private void restore(ImageTile<?> tile, int index) {
+    byte f = this.flags[index];
+    tile.setFileExists((f & FILE_EXISTS) != 0);
+
+    tile.setAbsXPos(this.absX[index]);
+    tile.setAbsYPos(this.absY[index]);
+    tile.setTileCorrelation(this.tileCorrelation[index]);
+
+    if ((f & HAS_NORTH) != 0)
+      tile.setNorthTranslation(new CorrelationTriple(this.northCorr[index], this.northX[index],
+          this.northY[index]));
+    if ((f & HAS_WEST) != 0)
+      tile.setWestTranslation(new CorrelationTriple(this.westCorr[index], this.westX[index],
+          this.westY[index]));
+    if ((f & HAS_PRE_NORTH) != 0)
+      tile.setPreOptimizationNorthTranslation(new CorrelationTriple(this.preNorthCorr[index],
+          this.preNorthX[index], this.preNorthY[index]));
+    if ((f & HAS_PRE_WEST) != 0)
+      tile.setPreOptimizationWestTranslation(new CorrelationTriple(this.preWestCorr[index],
+          this.preWestX[index], this.preWestY[index]));
+
+    tile.setFftReleaseCount(this.fftReleaseCount[index]);
+    tile.setPixelDataReleaseCount(this.pixelReleaseCount[index]);
+    tile.setMstReleaseCount(this.mstReleaseCount[index]);
+    byte s = this.states[index];
+    tile.setFftState(STATES[s & 3]);
+    tile.setPciamNorthState(STATES[(s >> 2) & 3]);
+    tile.setPciamWestState(STATES[(s >> 4) & 3]);
+    if (this.width[index] > 0)
+      tile.setDimensions(this.width[index], this.height[index], this.bitDepth[index]);
+  }
+
+}
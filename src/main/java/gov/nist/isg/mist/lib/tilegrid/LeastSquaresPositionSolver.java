@@ -0,0 +1,537 @@
+// NIST-developed software is provided by NIST as a public service. You may use, copy and distribute copies of the software in any medium, provided that you keep intact this entire notice. You may improve, modify and create derivative works of the software or any portion of the software, and you may copy and distribute such modifications or works. Modified works should carry a notice stating that you changed the software and should note the date and nature of any such change. Please explicitly acknowledge the National Institute of Standards and Technology as the source of the software.
+
+// NIST-developed software is expressly provided "AS IS." NIST MAKES NO WARRANTY OF ANY KIND, EXPRESS, IMPLIED, IN FACT OR ARISING BY OPERATION OF LAW, INCLUDING, WITHOUT LIMITATION, THE IMPLIED WARRANTY OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE, NON-INFRINGEMENT AND DATA ACCURACY. NIST NEITHER REPRESENTS NOR WARRANTS THAT THE OPERATION OF THE SOFTWARE WILL BE UNINTERRUPTED OR ERROR-FREE, OR THAT ANY DEFECTS WILL BE CORRECTED. NIST DOES NOT WARRANT OR MAKE ANY REPRESENTATIONS REGARDING THE USE OF THE SOFTWARE OR THE RESULTS THEREOF, INCLUDING BUT NOT LIMITED TO THE CORRECTNESS, ACCURACY, RELIABILITY, OR USEFULNESS OF THE SOFTWARE.
+
+// You are solely responsible for determining the appropriateness of using and distributing the software and you assume all risks associated with its use, including but not limited to the risks and costs of program errors, compliance with applicable laws, damage to or loss of data, programs or equipment, and the unavailability or interruption of operation. This software is not intended to be used in any situation where a failure could cause risk of injury or damage to property. The software developed by NIST employees is not subject to copyright protection within the United States.
+
+
+
+// ================================================================
+//
+// Author: tjb3
+// Date: Oct 19, 2026 9:02:41 PM EST
+//
+// Time-stamp: <Oct 19, 2026 9:02:41 PM tjb3>
+//
+//
+// ================================================================
+
+package gov.nist.isg.mist.lib.tilegrid;
+
+import java.util.Arrays;
+
+import gov.nist.isg.mist.lib.common.CorrelationTriple;
+import gov.nist.isg.mist.lib.imagetile.ImageTile;
+import gov.nist.isg.mist.lib.log.Log;
+
+/**
+ * Computes globally consistent absolute tile positions from all of the north and west
+ * translations of a grid, instead of only the N-1 translations kept by the maximum spanning tree.
+ * <p> Each translation is a constraint pos(tile) - pos(neighbor) = translation, weighted by its
+ * correlation. Translations below the minimum correlation (those rejected by the stage model)
+ * are given {@link #MIN_WEIGHT}, so like in the maximum spanning tree they only place tiles that
+ * no trusted translation reaches. The weighted least squares solution satisfies L x = b, where L
+ * is the weighted Laplacian of the grid graph. Because the grid is 4-connected, L has at most five
+ * non-zeros per row and is stored implicitly in per-tile primitive arrays. The x and y systems
+ * share L and are solved together, interleaved in one vector, with the conjugate gradient method
+ * preconditioned by one multigrid V-cycle over 2x2 tile aggregates. Aggregating a grid Laplacian
+ * yields another grid Laplacian, so every level uses the same storage, and the iteration count
+ * stays nearly constant as the grid grows. Memory and the work per iteration are both linear in
+ * the number of tiles.
+ *
+ * @author Tim Blattner
+ * @version 1.0
+ */
+public class LeastSquaresPositionSolver {
+
+  /**
+   * Weight given to translations below the minimum correlation, so that tiles connected only
+   * through such translations still receive a position.
+   */
+  public static final double MIN_WEIGHT = 1.0e-3;
+
+  /**
+   * Convergence threshold in pixels: the iteration stops once every diagonally scaled residual is
+   * below this value, which keeps the positions well within rounding of the exact solution.
+   */
+  public static final double TOLERANCE = 1.0e-3;
+
+  /**
+   * Maximum number of conjugate gradient iterations.
+   */
+  public static final int MAX_ITERATIONS = 1000;
+
+  private static final double ANCHOR_WEIGHT = 1.0;
+  private static final int COARSEST_SIZE = 64;
+  private static final int COARSEST_SWEEPS = 40;
+
+  /**
+   * Scales the coarse grid correction. Piecewise constant interpolation between 2x2 aggregates
+   * underestimates the smooth error by about half, over-correcting compensates and roughly halves
+   * the number of iterations.
+   */
+  private static final double OVER_CORRECTION = 1.8;
+
+  /**
+   * One level of the grid hierarchy: the weighted Laplacian of a height x width grid stored as the
+   * weight of the edge from each tile to its north (i - width) and west (i - 1) neighbors plus the
+   * diagonal. Vectors hold the x and y values of tile i at 2i and 2i + 1.
+   */
+  private static class Level {
+    private final int height;
+    private final int width;
+    private final int n;
+    private final double[] northWeight;
+    private final double[] westWeight;
+    private final double[] diag;
+
+    // scratch vectors used by the V-cycle
+    private final double[] x;
+    private final double[] b;
+    private final double[] residual;
+    private Level coarse;
+
+    private Level(int height, int width) {
+      this.height = height;
+      this.width = width;
+      this.n = height * width;
+      this.northWeight = new double[this.n];
+      this.westWeight = new double[this.n];
+      this.diag = new double[this.n];
+      this.x = new double[2 * this.n];
+      this.b = new double[2 * this.n];
+      this.residual = new double[2 * this.n];
+    }
+
+    private void multiply(double[] in, double[] out) {
+      int w = this.width;
+      for (int r = 0; r < this.height; r++) {
+        for (int c = 0; c < w; c++) {
+          int i = r * w + c;
+          double d = this.diag[i];
+          double vx = d * in[2 * i];
+          double vy = d * in[2 * i + 1];
+          if (r > 0) {
+            double e = this.northWeight[i];
+            vx -= e * in[2 * (i - w)];
+            vy -= e * in[2 * (i - w) + 1];
+          }
+          if (r < this.height - 1) {
+            double e = this.northWeight[i + w];
+            vx -= e * in[2 * (i + w)];
+            vy -= e * in[2 * (i + w) + 1];
+          }
+          if (c > 0) {
+            double e = this.westWeight[i];
+            vx -= e * in[2 * (i - 1)];
+            vy -= e * in[2 * (i - 1) + 1];
+          }
+          if (c < w - 1) {
+            double e = this.westWeight[i + 1];
+            vx -= e * in[2 * (i + 1)];
+            vy -= e * in[2 * (i + 1) + 1];
+          }
+          out[2 * i] = vx;
+          out[2 * i + 1] = vy;
+        }
+      }
+    }
+
+    /**
+     * One Gauss-Seidel sweep; forward before and backward after the coarse correction keeps the
+     * V-cycle symmetric, as required by the conjugate gradient method.
+     */
+    private void smooth(double[] xv, double[] bv, boolean forward) {
+      int w = this.width;
+      for (int k = 0; k < this.height; k++) {
+        int r = forward ? k : this.height - 1 - k;
+        for (int j = 0; j < w; j++) {
+          int c = forward ? j : w - 1 - j;
+          int i = r * w + c;
+          double vx = bv[2 * i];
+          double vy = bv[2 * i + 1];
+          if (r > 0) {
+            double e = this.northWeight[i];
+            vx += e * xv[2 * (i - w)];
+            vy += e * xv[2 * (i - w) + 1];
+          }
+          if (r < this.height - 1) {
+            double e = this.northWeight[i + w];
+            vx += e * xv[2 * (i + w)];
+            vy += e * xv[2 * (i + w) + 1];
+          }
+          if (c > 0) {
+            double e = this.westWeight[i];
+            vx += e * xv[2 * (i - 1)];
+            vy += e * xv[2 * (i - 1) + 1];
+          }
+          if (c < w - 1) {
+            double e = this.westWeight[i + 1];
+            vx += e * xv[2 * (i + 1)];
+            vy += e * xv[2 * (i + 1) + 1];
+          }
+          xv[2 * i] = vx / this.diag[i];
+          xv[2 * i + 1] = vy / this.diag[i];
+        }
+      }
+    }
+
+    /**
+     * Builds the Galerkin coarse level for 2x2 aggregates: edges between aggregates are summed and
+     * edges inside an aggregate cancel out of the diagonal.
+     */
+    private Level coarsen() {
+      int coarseWidth = (this.width + 1) / 2;
+      Level level = new Level((this.height + 1) / 2, coarseWidth);
+      for (int r = 0; r < this.height; r++) {
+        for (int c = 0; c < this.width; c++) {
+          int i = r * this.width + c;
+          int ci = (r / 2) * coarseWidth + c / 2;
+          level.diag[ci] += this.diag[i];
+          if (r > 0) {
+            if (r % 2 == 0)
+              level.northWeight[ci] += this.northWeight[i];
+            else
+              level.diag[ci] -= 2 * this.northWeight[i];
+          }
+          if (c > 0) {
+            if (c % 2 == 0)
+              level.westWeight[ci] += this.westWeight[i];
+            else
+              level.diag[ci] -= 2 * this.westWeight[i];
+          }
+        }
+      }
+
+      // an aggregate cut off from the rest of the grid is pinned like an isolated tile
+      for (int i = 0; i < level.n; i++)
+        if (level.diag[i] <= 0.0)
+          level.diag[i] = ANCHOR_WEIGHT;
+      return level;
+    }
+
+    /**
+     * Applies the multigrid preconditioner: approximately solves this level for bv into xv,
+     * starting from zero.
+     */
+    private void vcycle(double[] bv, double[] xv) {
+      Arrays.fill(xv, 0.0);
+      if (this.coarse == null) {
+        for (int s = 0; s < COARSEST_SWEEPS; s++) {
+          smooth(xv, bv, true);
+          smooth(xv, bv, false);
+        }
+        return;
+      }
+
+      smooth(xv, bv, true);
+      multiply(xv, this.residual);
+      subtract(bv, this.residual, this.residual);
+      restrict(this.residual, this.coarse.b);
+      this.coarse.vcycle(this.coarse.b, this.coarse.x);
+      prolong(this.coarse.x, xv);
+      smooth(xv, bv, false);
+    }
+
+    /**
+     * Sums the values of each 2x2 aggregate into the coarse level
+     */
+    private void restrict(double[] in, double[] coarseOut) {
+      int coarseWidth = this.coarse.width;
+      Arrays.fill(coarseOut, 0.0);
+      for (int r = 0; r < this.height; r++) {
+        for (int c = 0; c < this.width; c++) {
+          int i = r * this.width + c;
+          int ci = (r / 2) * coarseWidth + c / 2;
+          coarseOut[2 * ci] += in[2 * i];
+          coarseOut[2 * ci + 1] += in[2 * i + 1];
+        }
+      }
+    }
+
+    /**
+     * Adds the over-corrected coarse level values to every tile of their aggregate
+     */
+    private void prolong(double[] coarseIn, double[] out) {
+      int coarseWidth = this.coarse.width;
+      for (int r = 0; r < this.height; r++) {
+        for (int c = 0; c < this.width; c++) {
+          int i = r * this.width + c;
+          int ci = (r / 2) * coarseWidth + c / 2;
+          out[2 * i] += OVER_CORRECTION * coarseIn[2 * ci];
+          out[2 * i + 1] += OVER_CORRECTION * coarseIn[2 * ci + 1];
+        }
+      }
+    }
+  }
+
+  private final Level fine;
+  private final double minCorrelation;
+
+  // translation of the edge from tile i to its north and west neighbors
+  private final double[] northX;
+  private final double[] northY;
+  private final double[] westX;
+  private final double[] westY;
+
+  private int iterations;
+
+  private LeastSquaresPositionSolver(int height, int width, double minCorrelation) {
+    this.fine = new Level(height, width);
+    this.minCorrelation = minCorrelation;
+    int n = height * width;
+    this.northX = new double[n];
+    this.northY = new double[n];
+    this.westX = new double[n];
+    this.westY = new double[n];
+  }
+
+  /**
+   * Computes the absolute positions of every tile in the (sub)grid by weighted least squares over
+   * all north and west translations and translates them so the minimum position is (0,0).
+   *
+   * @param grid           the grid of image tiles
+   * @param minCorrelation translations with a lower correlation only place tiles that no other
+   *                       translation reaches
+   * @return true if the solver converged and the positions were updated, false if the positions
+   * were left untouched
+   */
+  public static <T> boolean solve(TileGrid<ImageTile<T>> grid, double minCorrelation) {
+    Log.msg(Log.LogType.INFO, "Starting least squares global position solve");
+
+    int height = grid.getExtentHeight();
+    int width = grid.getExtentWidth();
+    LeastSquaresPositionSolver solver = new LeastSquaresPositionSolver(height, width,
+        minCorrelation);
+    Level fine = solver.fine;
+
+    int anchor = 0;
+    double anchorCorr = Double.NEGATIVE_INFINITY;
+    for (int r = 0; r < height; r++) {
+      for (int c = 0; c < width; c++) {
+        int i = r * width + c;
+        ImageTile<T> tile = grid.getSubGridTile(r, c);
+        if (tile.getTileCorrelation() > anchorCorr) {
+          anchorCorr = tile.getTileCorrelation();
+          anchor = i;
+        }
+
+        if (r > 0)
+          solver.setEdge(i, i - width, tile.getNorthTranslation(), fine.northWeight,
+              solver.northX, solver.northY);
+        if (c > 0)
+          solver.setEdge(i, i - 1, tile.getWestTranslation(), fine.westWeight, solver.westX,
+              solver.westY);
+      }
+    }
+
+    double[] pos = new double[2 * fine.n];
+    int numLevels = solver.solve(anchor, pos);
+    if (numLevels < 0) {
+      Log.msg(Log.LogType.MANDATORY, "Least squares global position solve did not converge after "
+          + MAX_ITERATIONS + " iterations");
+      return false;
+    }
+
+    for (int r = 0; r < height; r++) {
+      for (int c = 0; c < width; c++) {
+        int i = r * width + c;
+        ImageTile<T> tile = grid.getSubGridTile(r, c);
+        tile.setAbsXPos((int) Math.round(pos[2 * i]));
+        tile.setAbsYPos((int) Math.round(pos[2 * i + 1]));
+      }
+    }
+
+    Log.msg(Log.LogType.INFO, "Completed least squares global position solve in "
+        + solver.iterations + " iterations over " + numLevels + " levels");
+    TileGridUtils.translateTranslations(grid);
+    return true;
+  }
+
+  private void setEdge(int i, int neighbor, CorrelationTriple translation, double[] weight,
+                       double[] tx, double[] ty) {
+    if (translation == null)
+      return;
+
+    double w = translation.getCorrelation();
+    if (Double.isNaN(w) || w < this.minCorrelation || w <= 0)
+      w = MIN_WEIGHT;
+
+    weight[i] = w;
+    tx[i] = translation.getX();
+    ty[i] = translation.getY();
+    this.fine.diag[i] += w;
+    this.fine.diag[neighbor] += w;
+  }
+
+  /**
+   * Solves for the interleaved x and y positions once the edges are set
+   *
+   * @param anchor the tile pulled to the origin
+   * @param pos    the interleaved positions
+   * @return the number of levels of the hierarchy, or -1 if the solve did not converge
+   */
+  private int solve(int anchor, double[] pos) {
+    Level fine = this.fine;
+
+    // fix the gauge freedom by pulling the anchor tile to the origin, this keeps L positive
+    // definite; tiles without any translation are pinned the same way
+    fine.diag[anchor] += ANCHOR_WEIGHT;
+    for (int i = 0; i < fine.n; i++)
+      if (fine.diag[i] == 0.0)
+        fine.diag[i] = ANCHOR_WEIGHT;
+
+    int numLevels = 1;
+    Level level = fine;
+    while (level.n > COARSEST_SIZE) {
+      level.coarse = level.coarsen();
+      level = level.coarse;
+      numLevels++;
+    }
+
+    deadReckon(pos);
+    return conjugateGradient(rightHandSide(), pos) ? numLevels : -1;
+  }
+
+  /**
+   * Builds b: each edge w (x_i - x_j - t)^2 contributes w t to tile i and -w t to its neighbor j.
+   */
+  private double[] rightHandSide() {
+    int width = this.fine.width;
+    double[] b = new double[2 * this.fine.n];
+    for (int r = 0; r < this.fine.height; r++) {
+      for (int c = 0; c < width; c++) {
+        int i = r * width + c;
+        if (r > 0) {
+          double w = this.fine.northWeight[i];
+          b[2 * i] += w * this.northX[i];
+          b[2 * i + 1] += w * this.northY[i];
+          b[2 * (i - width)] -= w * this.northX[i];
+          b[2 * (i - width) + 1] -= w * this.northY[i];
+        }
+        if (c > 0) {
+          double w = this.fine.westWeight[i];
+          b[2 * i] += w * this.westX[i];
+          b[2 * i + 1] += w * this.westY[i];
+          b[2 * (i - 1)] -= w * this.westX[i];
+          b[2 * (i - 1) + 1] -= w * this.westY[i];
+        }
+      }
+    }
+    return b;
+  }
+
+  /**
+   * Initial guess: walk down the first column with north translations and along each row with west
+   * translations.
+   */
+  private void deadReckon(double[] pos) {
+    int width = this.fine.width;
+    for (int r = 0; r < this.fine.height; r++) {
+      for (int c = 0; c < width; c++) {
+        int i = r * width + c;
+        if (c > 0) {
+          pos[2 * i] = pos[2 * (i - 1)] + this.westX[i];
+          pos[2 * i + 1] = pos[2 * (i - 1) + 1] + this.westY[i];
+        } else if (r > 0) {
+          pos[2 * i] = pos[2 * (i - width)] + this.northX[i];
+          pos[2 * i + 1] = pos[2 * (i - width) + 1] + this.northY[i];
+        }
+      }
+    }
+  }
+
+  /**
+   * Runs the x and y conjugate gradient iterations side by side; each axis has its own step sizes
+   * and stops updating once it has converged. The vector operations are kept in small methods so
+   * the JIT compiles them after the first few calls, a single call to this method is otherwise
+   * left running its loops in the interpreter.
+   */
+  private boolean conjugateGradient(double[] b, double[] x) {
+    Level level = this.fine;
+    int n = 2 * level.n;
+    double[] r = new double[n];
+    double[] z = new double[n];
+    double[] p = new double[n];
+    double[] ap = new double[n];
+
+    level.multiply(x, ap);
+    subtract(b, ap, r);
+    level.vcycle(r, z);
+    System.arraycopy(z, 0, p, 0, n);
+    double[] rz = dot(r, z);
+
+    double[] step = new double[2];
+    this.iterations = 0;
+    boolean convergedX = isConverged(r, 0);
+    boolean convergedY = isConverged(r, 1);
+    while (!convergedX || !convergedY) {
+      if (this.iterations >= MAX_ITERATIONS)
+        return false;
+      this.iterations++;
+
+      level.multiply(p, ap);
+      double[] pap = dot(p, ap);
+      step[0] = convergedX ? 0.0 : rz[0] / pap[0];
+      step[1] = convergedY ? 0.0 : rz[1] / pap[1];
+      update(x, r, p, ap, step);
+
+      level.vcycle(r, z);
+      double[] rzNew = dot(r, z);
+      step[0] = convergedX ? 0.0 : rzNew[0] / rz[0];
+      step[1] = convergedY ? 0.0 : rzNew[1] / rz[1];
+      rz = rzNew;
+      direction(p, z, step);
+
+      convergedX = convergedX || isConverged(r, 0);
+      convergedY = convergedY || isConverged(r, 1);
+    }
+    return true;
+  }
+
+  private static void subtract(double[] a, double[] b, double[] out) {
+    for (int i = 0; i < out.length; i++)
+      out[i] = a[i] - b[i];
+  }
+
+  /**
+   * The x and y dot products of two interleaved vectors
+   */
+  private static double[] dot(double[] a, double[] b) {
+    double dx = 0.0;
+    double dy = 0.0;
+    for (int i = 0; i < a.length; i += 2) {
+      dx += a[i] * b[i];
+      dy += a[i + 1] * b[i + 1];
+    }
+    return new double[]{dx, dy};
+  }
+
+  private static void update(double[] x, double[] r, double[] p, double[] ap, double[] alpha) {
+    double ax = alpha[0];
+    double ay = alpha[1];
+    for (int i = 0; i < x.length; i += 2) {
+      x[i] += ax * p[i];
+      x[i + 1] += ay * p[i + 1];
+      r[i] -= ax * ap[i];
+      r[i + 1] -= ay * ap[i + 1];
+    }
+  }
+
+  private static void direction(double[] p, double[] z, double[] beta) {
+    double bx = beta[0];
+    double by = beta[1];
+    for (int i = 0; i < p.length; i += 2) {
+      p[i] = z[i] + bx * p[i];
+      p[i + 1] = z[i + 1] + by * p[i + 1];
+    }
+  }
+
+  private boolean isConverged(double[] r, int axis) {
+    for (int i = 0; i < this.fine.n; i++)
+      if (Math.abs(r[2 * i + axis] / this.fine.diag[i]) > TOLERANCE)
+        return false;
+    return true;
+  }
+
+}
@@ -195,6 +195,8 @@ public class TileGrid<T extends ImageTile<?>> {
   private int extentHeight;
   private int startRow;
   private int startCol;
+  private CheckpointJournal checkpointJournal;
+  private CompactTileStore<T> compactStore;
 
   /**
    * Initialize TileSubGrid starting at row and column, and hold extentWidth and extentHeight
@@ -210,6 +212,26 @@ public class TileGrid<T extends ImageTile<?>> {
    */
   public TileGrid(int startRow, int startCol, int extentWidth, int extentHeight,
                   TileGridLoader gridLoader, File imageDir, Class<?> classType) throws InvalidClassException {
+    this(startRow, startCol, extentWidth, extentHeight, gridLoader, imageDir, classType, false);
+  }
+
+  /**
+   * Initialize TileSubGrid starting at row and column, and hold extentWidth and extentHeight
+   * rows/columns
+   *
+   * @param startRow     the start row for the subgrid
+   * @param startCol     the start column for the subgrid
+   * @param extentWidth  the width of the subgrid
+   * @param extentHeight the height of the subgrid
+   * @param gridLoader   The tile grid loader
+   * @param imageDir     image directory
+   * @param classType    the type of object
+   * @param compact      true to keep the tile metadata in a {@link CompactTileStore} and only
+   *                     materialize the tiles that are in use, false to create every tile up front
+   */
+  public TileGrid(int startRow, int startCol, int extentWidth, int extentHeight,
+                  TileGridLoader gridLoader, File imageDir, Class<?> classType, boolean compact)
+      throws InvalidClassException {
     this.startRow = startRow;
     this.startCol = startCol;
     this.extentWidth = extentWidth;
@@ -217,7 +239,7 @@ public class TileGrid<T extends ImageTile<?>> {
     this.gridLoader = gridLoader;
     this.imageDir = imageDir;
 
-    this.initImageTileGrid(classType);
+    this.initImageTileGrid(classType, compact);
   }
 
   /**
@@ -228,7 +250,8 @@ public class TileGrid<T extends ImageTile<?>> {
    */
   public TileGrid(StitchingAppParams params, Class<?> classType) throws InvalidClassException {
     this(params.getInputParams().getStartRow(), params.getInputParams().getStartCol(), params.getInputParams().getExtentWidth(), params.getInputParams()
-        .getExtentHeight(), params.getInputParams().getTileGridLoader(), new File(params.getInputParams().getImageDir()), classType);
+        .getExtentHeight(), params.getInputParams().getTileGridLoader(), new File(params.getInputParams().getImageDir()), classType,
+        params.getAdvancedParams().isCompactTileGrid());
   }
 
   /**
@@ -242,7 +265,7 @@ public class TileGrid<T extends ImageTile<?>> {
       throws InvalidClassException {
     this(params.getInputParams().getStartRow(), params.getInputParams().getStartCol(), params.getInputParams().getExtentWidth(), params.getInputParams()
             .getExtentHeight(), params.getInputParams().getTileGridLoader(timeSlice), new File(params.getInputParams().getImageDir()),
-        classType);
+        classType, params.getAdvancedParams().isCompactTileGrid());
   }
 
   /**
@@ -256,13 +279,15 @@ public class TileGrid<T extends ImageTile<?>> {
    */
   public TileGrid(TileGrid<T> original, int startRow, int startCol, int extentWidth,
                   int extentHeight) {
-    this.tiles = original.getTiles();
+    this.tiles = original.tiles;
+    this.compactStore = original.compactStore;
     this.gridLoader = original.getGridLoader();
     this.imageDir = original.getImageDir();
     this.startCol = startCol + original.getStartCol();
     this.startRow = startRow + original.getStartRow();
     this.extentHeight = extentHeight;
     this.extentWidth = extentWidth;
+    this.checkpointJournal = original.getCheckpointJournal();
   }
 
   @Override
@@ -294,6 +319,21 @@ public class TileGrid<T extends ImageTile<?>> {
     return this.imageDir;
   }
 
+  /**
+   * @return the checkpoint journal the translations of this grid are recorded in, or null if the
+   * translations are not being journaled
+   */
+  public CheckpointJournal getCheckpointJournal() {
+    return this.checkpointJournal;
+  }
+
+  /**
+   * @param checkpointJournal the checkpoint journal to record the translations of this grid in
+   */
+  public void setCheckpointJournal(CheckpointJournal checkpointJournal) {
+    this.checkpointJournal = checkpointJournal;
+  }
+
   /**
    * @return the tile grid loader
    */
@@ -302,12 +342,22 @@ public class TileGrid<T extends ImageTile<?>> {
   }
 
   /**
-   * @return the array of tiles
+   * @return the array of tiles, for a compact grid only the tiles that are currently materialized
+   * are present and the others are null
    */
   public T[][] getTiles() {
+    if (this.compactStore != null)
+      return this.compactStore.getResidentTiles();
     return this.tiles;
   }
 
+  /**
+   * @return the compact tile store backing this grid, or null if every tile is materialized
+   */
+  public CompactTileStore<T> getCompactTileStore() {
+    return this.compactStore;
+  }
+
   /**
    * @return the subgrid size (extentWidth * extentHeight)
    */
@@ -400,9 +450,8 @@ public class TileGrid<T extends ImageTile<?>> {
    * Initializes ImageTile Grid
    */
   @SuppressWarnings("unchecked")
-  private void initImageTileGrid(Class<?> imageTileClass) throws InvalidClassException {
+  private void initImageTileGrid(Class<?> imageTileClass, boolean compact) throws InvalidClassException {
 
-    this.tiles = (T[][]) Array.newInstance(imageTileClass, this.gridLoader.getGridHeight(), this.gridLoader.getGridWidth());
     Constructor<?> constructor = null;
 
     try {
@@ -426,6 +475,13 @@ public class TileGrid<T extends ImageTile<?>> {
       throw new InvalidClassException("Unable to load constructor.");
     }
 
+    if (compact) {
+      this.compactStore = new CompactTileStore<T>(imageTileClass, constructor, this.gridLoader,
+          this.imageDir, this.extentWidth, this.extentHeight, this.startRow, this.startCol);
+      return;
+    }
+
+    this.tiles = (T[][]) Array.newInstance(imageTileClass, this.gridLoader.getGridHeight(), this.gridLoader.getGridWidth());
     for (int r = 0; r < this.gridLoader.getGridHeight(); r++) {
       for (int c = 0; c < this.gridLoader.getGridWidth(); c++) {
 
@@ -469,6 +525,8 @@ public class TileGrid<T extends ImageTile<?>> {
    * @return the tile
    */
   public T getTile(int row, int col) {
+    if (this.compactStore != null)
+      return this.compactStore.getTile(row, col);
     return this.tiles[row][col];
   }
 
@@ -18,9 +18,12 @@
 
 package gov.nist.isg.mist.lib.tilegrid;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import gov.nist.isg.mist.lib.common.CorrelationTriple;
 import gov.nist.isg.mist.lib.imagetile.ImageTile;
@@ -43,20 +46,24 @@ public class TileGridUtils {
 
   /**
    * Traverses the maximum spanning tree of the grid based on correlation coefficient. Each each
-   * step it computes the absolute position relative to the edge taken.
+   * step it computes the absolute position relative to the edge taken. <p> The frontier is kept
+   * as subgrid indices rather than tiles so a compact grid is free to evict tiles during the
+   * traversal.
    *
    * @param grid the grid of image tiles to traverse
    */
   public static <T> void traverseMaximumSpanningTree(TileGrid<ImageTile<T>> grid) {
-    ImageTile<T> startTile = null;
-
+    int startIndex = -1;
+    double startCorr = Double.NEGATIVE_INFINITY;
 
     Log.msg(Log.LogType.INFO, "Starting MST traversal");
-    boolean[][] visitedTilesArray = new boolean[grid.getExtentHeight()][grid.getExtentWidth()];
+    int gridWidth = grid.getExtentWidth();
+    int gridHeight = grid.getExtentHeight();
+    boolean[][] visitedTilesArray = new boolean[gridHeight][gridWidth];
 
     // Find tile that has highest correlation
-    for (int row = 0; row < grid.getExtentHeight(); row++) {
-      for (int col = 0; col < grid.getExtentWidth(); col++) {
+    for (int row = 0; row < gridHeight; row++) {
+      for (int col = 0; col < gridWidth; col++) {
         // init visited tiles array to false
         visitedTilesArray[row][col] = false;
 
@@ -68,31 +75,32 @@ public class TileGridUtils {
 
         tile.setAbsXPos(0);
         tile.setAbsYPos(0);
-        if (startTile == null)
-          startTile = tile;
-        else if (tile.getTileCorrelation() > startTile.getTileCorrelation())
-          startTile = tile;
+        if (startIndex < 0 || tile.getTileCorrelation() > startCorr) {
+          startIndex = row * gridWidth + col;
+          startCorr = tile.getTileCorrelation();
+        }
       }
     }
 
-
-    List<ImageTile<T>> frontierTiles = new ArrayList<ImageTile<T>>();
-    frontierTiles.add(startTile);
+    List<Integer> frontierTiles = new ArrayList<Integer>();
+    frontierTiles.add(startIndex);
+    int startRow = startIndex / gridWidth;
+    int startCol = startIndex % gridWidth;
     // increment MST counter for all adjacent tiles so we can skip those tiles that have no
     // non-connected neighbors
     for (int k = 0; k < dx.length; k++) {
-      int i = startTile.getRow() - grid.getStartRow() + dy[k];
-      int j = startTile.getCol() - grid.getStartCol() + dx[k];
-      if (i >= 0 && i < grid.getExtentHeight() && j >= 0 && j < grid.getExtentWidth()) {
+      int i = startRow + dy[k];
+      int j = startCol + dx[k];
+      if (i >= 0 && i < gridHeight && j >= 0 && j < gridWidth) {
         grid.getSubGridTile(i,j).decrementMstConnectedNeighborCount();
       }
     }
 
     // set the flag to indicate that the start tile has been added to the MST
-    visitedTilesArray[startTile.getRow() - grid.getStartRow()][startTile.getCol() - grid.getStartCol()] = true;
+    visitedTilesArray[startRow][startCol] = true;
     int mstSize = 1; // current size is 1 b/c startTile has been added
 
-    while (mstSize < grid.getExtentHeight() * grid.getExtentWidth()) {
+    while (mstSize < gridHeight * gridWidth) {
       mstSize = traverseNextMSTTile(grid, frontierTiles, visitedTilesArray, mstSize);
     }
 
@@ -105,24 +113,27 @@ public class TileGridUtils {
    * Traverses to the next tile in the minimum spanning tree
    *
    * @param grid         the grid of image tiles
-   * @param frontierTiles the set of visited tiles
+   * @param frontierTiles the subgrid indices (row * extentWidth + col) of the frontier tiles
    * @param visitedTilesArray 2D array of booleans indicating which tiles have been added to MSR
+   * @param mstSize the number of tiles currently in the MST
+   * @return the number of tiles in the MST after this step
    */
   public static <T> int traverseNextMSTTile(TileGrid<ImageTile<T>> grid,
-                                              List<ImageTile<T>> frontierTiles, boolean[][]
+                                              List<Integer> frontierTiles, boolean[][]
                                                   visitedTilesArray, int mstSize) {
 
-    ImageTile<T> origin = null;
-    ImageTile<T> next = null;
+    int originIndex = -1;
+    int nextIndex = -1;
     double bestCorr = Double.NEGATIVE_INFINITY;
 
     int gridWidth = grid.getExtentWidth();
     int gridHeight = grid.getExtentHeight();
 
     // loop over all tiles currently in the MST and find the neighbor with the highest correlation
-    for (ImageTile<T> tile : frontierTiles) {
-      int row = tile.getRow() - grid.getStartRow();
-      int col = tile.getCol() - grid.getStartCol();
+    for (int index : frontierTiles) {
+      int row = index / gridWidth;
+      int col = index % gridWidth;
+      ImageTile<T> tile = grid.getSubGridTile(row, col);
 
       // check all neighbors and find best neighbor
       for (int k = 0; k < dx.length; k++) {
@@ -137,27 +148,31 @@ public class TileGridUtils {
 
             if (edgeWeight > bestCorr) {
               bestCorr = edgeWeight;
-              origin = tile;
-              next = neighbor;
+              originIndex = index;
+              nextIndex = i * gridWidth + j;
             }
           }
         }
       }
     }
 
-    if (origin == null)
+    if (originIndex < 0 || nextIndex < 0)
       return mstSize;
 
-    if (next == null)
-      return mstSize;
+    int row = nextIndex / gridWidth;
+    int col = nextIndex % gridWidth;
+    ImageTile<T> origin = grid.getSubGridTile(originIndex / gridWidth, originIndex % gridWidth);
+    ImageTile<T> next = grid.getSubGridTile(row, col);
 
     next.updateAbsolutePosition(origin);
-    frontierTiles.add(next);
+    frontierTiles.add(nextIndex);
     mstSize++;
+
+    Debug.msg(DebugType.VERBOSE,
+        "Origin: " + origin.getFileName() + " visited: " + next.getFileName());
+
     // increment MST counter for all adjacent tiles so we can skip those tiles that have no
     // non-connected neighbors (update the frontier)
-    int row = next.getRow() - grid.getStartRow();
-    int col = next.getCol() - grid.getStartCol();
     for (int k = 0; k < dx.length; k++) {
       int i = row + dy[k];
       int j = col + dx[k];
@@ -172,7 +187,8 @@ public class TileGridUtils {
     // purge visited tiles list of entries that are no longer on the frontier
     List<Integer> toRemove = new ArrayList<Integer>();
     for(int i = 0; i < frontierTiles.size(); i++) {
-      if(frontierTiles.get(i).getMstReleaseCount() == 0)
+      int index = frontierTiles.get(i);
+      if(grid.getSubGridTile(index / gridWidth, index % gridWidth).getMstReleaseCount() == 0)
         toRemove.add(i); // if there are no potential connections left, remove from the frontier
     }
     Collections.reverse(toRemove); // reverse order to enable removal one at a time
@@ -180,12 +196,29 @@ public class TileGridUtils {
       frontierTiles.remove(val);
     }
 
-    Debug.msg(DebugType.VERBOSE,
-        "Origin: " + origin.getFileName() + " visited: " + next.getFileName());
-
     return mstSize;
   }
 
+  /**
+   * Maps the file name of every tile in the subgrid to its subgrid index (row * extentWidth +
+   * col). The names come from the grid loader, so no tile is created or loaded.
+   *
+   * @param grid the grid of image tiles
+   * @return the map of file names to subgrid indices
+   */
+  public static <T> Map<String, Integer> indexTilesByName(TileGrid<ImageTile<T>> grid) {
+    Map<String, Integer> indices = new HashMap<String, Integer>();
+    int gridWidth = grid.getExtentWidth();
+    for (int r = 0; r < grid.getExtentHeight(); r++) {
+      for (int c = 0; c < gridWidth; c++) {
+        String name = grid.getGridLoader().getTileName(r + grid.getStartRow(),
+            c + grid.getStartCol());
+        indices.put(new File(name).getName(), r * gridWidth + c);
+      }
+    }
+    return indices;
+  }
+
 
   /**
    * Translates all vertices in the grid by the minX and minY values of the entire grid.
@@ -288,6 +321,26 @@ public class TileGridUtils {
     return height;
   }
 
+  /**
+   * Resets the fft and pixel data release counts of every tile in a (sub)grid so that they only
+   * count the neighbors inside that (sub)grid. Required before stitching a partition of a grid on
+   * its own, otherwise the tiles along the partition boundary wait for neighbors that are never
+   * computed and their memory is never returned to the pool.
+   *
+   * @param grid the (sub)grid of image tiles
+   */
+  public static <T> void resetReleaseCounts(TileGrid<ImageTile<T>> grid) {
+    int endCol = grid.getStartCol() + grid.getExtentWidth();
+    int endRow = grid.getStartRow() + grid.getExtentHeight();
+    for (int r = 0; r < grid.getExtentHeight(); r++) {
+      for (int c = 0; c < grid.getExtentWidth(); c++) {
+        ImageTile<T> tile = grid.getSubGridTile(r, c);
+        tile.resetFftReleaseCount(endCol, endRow, grid.getStartRow(), grid.getStartCol());
+        tile.resetPixelReleaseCount(endCol, endRow, grid.getStartRow(), grid.getStartCol());
+      }
+    }
+  }
+
   /**
    * Releases the entire grid of tiles.
    *
@@ -296,7 +349,8 @@ public class TileGridUtils {
   public static <T> void releaseTiles(TileGrid<ImageTile<T>> grid) {
     for (ImageTile<T>[] tileA : grid.getTiles()) {
       for (ImageTile<T> tile : tileA) {
-        tile.releasePixelsNow();
+        if (tile != null)
+          tile.releasePixelsNow();
       }
 
     }
@@ -0,0 +1,168 @@
+// NIST-developed software is provided by NIST as a public service. You may use, copy and distribute copies of the software in any medium, provided that you keep intact this entire notice. You may improve, modify and create derivative works of the software or any portion of the software, and you may copy and distribute such modifications or works. Modified works should carry a notice stating that you changed the software and should note the date and nature of any such change. Please explicitly acknowledge the National Institute of Standards and Technology as the source of the software.
+
+// NIST-developed software is expressly provided "AS IS." NIST MAKES NO WARRANTY OF ANY KIND, EXPRESS, IMPLIED, IN FACT OR ARISING BY OPERATION OF LAW, INCLUDING, WITHOUT LIMITATION, THE IMPLIED WARRANTY OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE, NON-INFRINGEMENT AND DATA ACCURACY. NIST NEITHER REPRESENTS NOR WARRANTS THAT THE OPERATION OF THE SOFTWARE WILL BE UNINTERRUPTED OR ERROR-FREE, OR THAT ANY DEFECTS WILL BE CORRECTED. NIST DOES NOT WARRANT OR MAKE ANY REPRESENTATIONS REGARDING THE USE OF THE SOFTWARE OR THE RESULTS THEREOF, INCLUDING BUT NOT LIMITED TO THE CORRECTNESS, ACCURACY, RELIABILITY, OR USEFULNESS OF THE SOFTWARE.
+
+// You are solely responsible for determining the appropriateness of using and distributing the software and you assume all risks associated with its use, including but not limited to the risks and costs of program errors, compliance with applicable laws, damage to or loss of data, programs or equipment, and the unavailability or interruption of operation. This software is not intended to be used in any situation where a failure could cause risk of injury or damage to property. The software developed by NIST employees is not subject to copyright protection within the United States.
+
+
+
+// ================================================================
+//
+// Author: tjb3
+// Date: Oct 19, 2026 8:02:44 PM EST
+//
+// Time-stamp: <Oct 19, 2026 8:02:44 PM tjb3>
+//
+//
+// ================================================================
+
+package gov.nist.isg.mist.lib.tilegrid.traverser;
+
+
+import java.util.Iterator;
+
+import gov.nist.isg.mist.lib.imagetile.ImageTile;
+import gov.nist.isg.mist.lib.tilegrid.TileGrid;
+
+/**
+ * Traversal type for traversing a grid along a blocked Hilbert curve. The grid is cut into square
+ * blocks whose side is the smallest power of two covering the short side of the grid. The blocks
+ * are chained along the long side and each block is visited along a Hilbert curve that ends next
+ * to the start of the following block. Positions of the curve outside of the grid are skipped.
+ *
+ * @author Tim Blattner
+ * @version 1.0
+ */
+public class TileGridHilbertTraverser<T extends ImageTile<?>> implements TileGridTraverser<T>, Iterator<T> {
+
+  private TileGrid<T> subGrid;
+  private int currentRowPosition;
+  private int currentColumnPosition;
+  private int linear;
+
+  private int[] rows;
+  private int[] cols;
+
+  /**
+   * Initializes a Hilbert traverser given a subgrid
+   */
+  public TileGridHilbertTraverser(TileGrid<T> subgrid) {
+    this.subGrid = subgrid;
+    this.currentRowPosition = 0;
+    this.currentColumnPosition = 0;
+    this.linear = 0;
+
+    int width = subgrid.getExtentWidth();
+    int height = subgrid.getExtentHeight();
+    int size = subgrid.getSubGridSize();
+
+    this.rows = new int[size];
+    this.cols = new int[size];
+
+    // the curve is laid out along x = long side, y = short side
+    boolean transposed = height > width;
+    int longSide = Math.max(width, height);
+    int shortSide = Math.min(width, height);
+
+    int blockSize = 1;
+    while (blockSize < shortSide)
+      blockSize *= 2;
+
+    int numBlocks = (longSide + blockSize - 1) / blockSize;
+    int[] xy = new int[2];
+    int index = 0;
+    for (int block = 0; block < numBlocks; block++) {
+      for (int d = 0; d < blockSize * blockSize; d++) {
+        hilbertToXY(blockSize, d, xy);
+
+        int x = block * blockSize + xy[0];
+        int y = xy[1];
+        if (x >= longSide || y >= shortSide)
+          continue;
+
+        this.rows[index] = transposed ? x : y;
+        this.cols[index] = transposed ? y : x;
+        index++;
+      }
+    }
+  }
+
+  /**
+   * Converts a distance along a Hilbert curve filling an n x n square into (x,y). The curve starts
+   * at (0,0) and ends at (n-1,0).
+   */
+  private static void hilbertToXY(int n, int d, int[] xy) {
+    int x = 0;
+    int y = 0;
+    int t = d;
+    for (int s = 1; s < n; s *= 2) {
+      int rx = 1 & (t / 2);
+      int ry = 1 & (t ^ rx);
+
+      // rotate the quadrant
+      if (ry == 0) {
+        if (rx == 1) {
+          x = s - 1 - x;
+          y = s - 1 - y;
+        }
+        int tmp = x;
+        x = y;
+        y = tmp;
+      }
+
+      x += s * rx;
+      y += s * ry;
+      t /= 4;
+    }
+    xy[0] = x;
+    xy[1] = y;
+  }
+
+  @Override
+  public Iterator<T> iterator() {
+    return this;
+  }
+
+  /**
+   * Gets the current row of the traverser
+   */
+  @Override
+  public int getCurrentRow() {
+    return this.currentRowPosition;
+  }
+
+  /**
+   * Gets the current column of the traverser
+   */
+  @Override
+  public int getCurrentColumn() {
+    return this.currentColumnPosition;
+  }
+
+  @Override
+  public String toString() {
+    return "Traversing by blocked Hilbert curve: " + this.subGrid;
+  }
+
+
+  @Override
+  public boolean hasNext() {
+    return this.linear < this.subGrid.getSubGridSize();
+  }
+
+  @Override
+  public T next() {
+    this.currentRowPosition = this.rows[this.linear];
+    this.currentColumnPosition = this.cols[this.linear];
+    this.linear++;
+
+    return this.subGrid.getTile(this.currentRowPosition + this.subGrid.getStartRow(),
+        this.currentColumnPosition + this.subGrid.getStartCol());
+  }
+
+  @Override
+  public void remove() {
+    // Not implemented/not needed
+  }
+
+}
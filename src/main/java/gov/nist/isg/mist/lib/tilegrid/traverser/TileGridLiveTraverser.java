@@ -0,0 +1,322 @@
+// NIST-developed software is provided by NIST as a public service. You may use, copy and distribute copies of the software in any medium, provided that you keep intact this entire notice. You may improve, modify and create derivative works of the software or any portion of the software, and you may copy and distribute such modifications or works. Modified works should carry a notice stating that you changed the software and should note the date and nature of any such change. Please explicitly acknowledge the National Institute of Standards and Technology as the source of the software.
+
+// NIST-developed software is expressly provided "AS IS." NIST MAKES NO WARRANTY OF ANY KIND, EXPRESS, IMPLIED, IN FACT OR ARISING BY OPERATION OF LAW, INCLUDING, WITHOUT LIMITATION, THE IMPLIED WARRANTY OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE, NON-INFRINGEMENT AND DATA ACCURACY. NIST NEITHER REPRESENTS NOR WARRANTS THAT THE OPERATION OF THE SOFTWARE WILL BE UNINTERRUPTED OR ERROR-FREE, OR THAT ANY DEFECTS WILL BE CORRECTED. NIST DOES NOT WARRANT OR MAKE ANY REPRESENTATIONS REGARDING THE USE OF THE SOFTWARE OR THE RESULTS THEREOF, INCLUDING BUT NOT LIMITED TO THE CORRECTNESS, ACCURACY, RELIABILITY, OR USEFULNESS OF THE SOFTWARE.
+
+// You are solely responsible for determining the appropriateness of using and distributing the software and you assume all risks associated with its use, including but not limited to the risks and costs of program errors, compliance with applicable laws, damage to or loss of data, programs or equipment, and the unavailability or interruption of operation. This software is not intended to be used in any situation where a failure could cause risk of injury or damage to property. The software developed by NIST employees is not subject to copyright protection within the United States.
+
+
+
+// ================================================================
+//
+// Author: tjb3
+// Date: Oct 19, 2026 6:12:07 PM EST
+//
+// Time-stamp: <Oct 19, 2026 6:12:07 PM tjb3>
+//
+//
+// ================================================================
+
+package gov.nist.isg.mist.lib.tilegrid.traverser;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import gov.nist.isg.mist.lib.imagetile.ImageTile;
+import gov.nist.isg.mist.lib.log.Log;
+import gov.nist.isg.mist.lib.log.Log.LogType;
+import gov.nist.isg.mist.lib.tilegrid.TileGrid;
+
+/**
+ * Traversal type for stitching while the tiles are still being acquired. Tiles are returned in
+ * the order their files appear in the image directory, which is watched with a {@link
+ * WatchService}. A file is only considered complete once its size has not changed for the settle
+ * time, so tiles are never read while the microscope is still writing them.
+ *
+ * <p>Calls to next block until a tile is available. If no new tile appears within the timeout the
+ * acquisition is considered finished and the remaining tiles are returned as missing.</p>
+ *
+ * <p>Tiles are expected to be acquired row or column at a time (combed or snake), so at most one
+ * row or column of tiles is waiting on its neighbors at any time.</p>
+ *
+ * @author Tim Blattner
+ * @version 1.0
+ */
+public class TileGridLiveTraverser<T extends ImageTile<?>> implements TileGridTraverser<T>,
+    Iterator<T>, Closeable {
+
+  private static final long POLL_MILLIS = 250;
+
+  private TileGrid<T> subGrid;
+  private long settleMillis;
+  private long timeoutMillis;
+
+  private Path imageDir;
+  private WatchService watcher;
+
+  private Map<String, T> pending;
+  private Map<String, long[]> candidates;
+
+  private volatile boolean closed;
+  private boolean timedOut;
+  private long lastArrival;
+
+  private int currentRowPosition;
+  private int currentColumnPosition;
+  private int linear;
+
+  /**
+   * Initializes a live traverser given a subgrid
+   *
+   * @param subgrid       the subgrid to traverse
+   * @param settleMillis  the time in milliseconds a file's size must be unchanged before it is read
+   * @param timeoutMillis the time in milliseconds to wait for a new tile before the remaining tiles
+   *                      are considered missing
+   */
+  public TileGridLiveTraverser(TileGrid<T> subgrid, long settleMillis, long timeoutMillis) {
+    this.subGrid = subgrid;
+    this.settleMillis = settleMillis;
+    this.timeoutMillis = timeoutMillis;
+    this.currentRowPosition = 0;
+    this.currentColumnPosition = 0;
+    this.linear = 0;
+    this.closed = false;
+    this.timedOut = false;
+
+    this.pending = new LinkedHashMap<String, T>();
+    this.candidates = new HashMap<String, long[]>();
+    for (int r = 0; r < subgrid.getExtentHeight(); r++) {
+      for (int c = 0; c < subgrid.getExtentWidth(); c++) {
+        T tile = subgrid.getSubGridTile(r, c);
+        this.pending.put(tile.getFilePath(), tile);
+      }
+    }
+
+    // register the watcher before scanning so no file created in between is missed
+    this.imageDir = subgrid.getImageDir().getAbsoluteFile().toPath();
+    try {
+      this.watcher = FileSystems.getDefault().newWatchService();
+      this.imageDir.register(this.watcher, StandardWatchEventKinds.ENTRY_CREATE,
+          StandardWatchEventKinds.ENTRY_MODIFY);
+    } catch (IOException e) {
+      Log.msg(LogType.MANDATORY, "Unable to watch " + this.imageDir + " (" + e.getMessage()
+          + "), polling for new tiles instead");
+      this.watcher = null;
+    }
+
+    scanPending(System.currentTimeMillis());
+    this.lastArrival = System.currentTimeMillis();
+  }
+
+  /**
+   * Waits for the first tile of a grid that is being acquired.
+   *
+   * @param grid          the grid being acquired
+   * @param settleMillis  the time in milliseconds a file's size must be unchanged before it is read
+   * @param timeoutMillis the time in milliseconds to wait for the first tile
+   * @return the first tile whose file is complete, or null if none appeared within the timeout
+   */
+  public static <T extends ImageTile<?>> T awaitFirstTile(TileGrid<T> grid, long settleMillis,
+                                                          long timeoutMillis) {
+    TileGridLiveTraverser<T> traverser = new TileGridLiveTraverser<T>(grid, settleMillis,
+        timeoutMillis);
+    try {
+      Log.msg(LogType.MANDATORY, "Waiting for the first tile to be acquired in: "
+          + grid.getImageDir().getAbsolutePath());
+      return traverser.awaitReadyTile();
+    } finally {
+      traverser.close();
+    }
+  }
+
+  /**
+   * Gets the peak number of tiles whose pixels and ffts are held while stitching in acquisition
+   * order. A full row or column of tiles waits on the next one, plus the tiles being paired.
+   *
+   * @param grid the grid being acquired
+   * @return the peak number of tiles held in memory
+   */
+  public static int getPeakTiles(TileGrid<?> grid) {
+    return Math.max(grid.getExtentWidth(), grid.getExtentHeight()) + 2;
+  }
+
+  @Override
+  public Iterator<T> iterator() {
+    return this;
+  }
+
+  @Override
+  public int getCurrentRow() {
+    return this.currentRowPosition;
+  }
+
+  @Override
+  public int getCurrentColumn() {
+    return this.currentColumnPosition;
+  }
+
+  @Override
+  public String toString() {
+    return "Traversing by acquisition: " + this.subGrid;
+  }
+
+  @Override
+  public synchronized boolean hasNext() {
+    return this.linear < this.subGrid.getSubGridSize();
+  }
+
+  @Override
+  public synchronized T next() {
+    T tile = awaitReadyTile();
+
+    if (tile == null) {
+      // the acquisition timed out or the traverser was closed, so the remaining tiles are missing
+      Iterator<T> iter = this.pending.values().iterator();
+      tile = iter.next();
+      iter.remove();
+      tile.setFileExists(false);
+      Log.msg(LogType.HELPFUL, "Tile was not acquired: " + tile.getFileName());
+    }
+
+    this.currentRowPosition = tile.getRow() - this.subGrid.getStartRow();
+    this.currentColumnPosition = tile.getCol() - this.subGrid.getStartCol();
+    this.linear++;
+
+    if (!hasNext())
+      close();
+
+    return tile;
+  }
+
+  @Override
+  public void remove() {
+    // Not implemented/not needed
+  }
+
+  /**
+   * Stops watching the image directory. Any blocked or later calls to next return the remaining
+   * tiles as missing.
+   */
+  @Override
+  public void close() {
+    this.closed = true;
+    if (this.watcher != null) {
+      try {
+        this.watcher.close();
+      } catch (IOException e) {
+        Log.msg(LogType.VERBOSE, "Unable to close watcher: " + e.getMessage());
+      }
+    }
+  }
+
+  private T awaitReadyTile() {
+    while (!this.closed && !this.timedOut && !this.pending.isEmpty()) {
+      long now = System.currentTimeMillis();
+
+      T tile = pollCandidates(now);
+      if (tile != null) {
+        this.lastArrival = now;
+        return tile;
+      }
+
+      if (now - this.lastArrival >= this.timeoutMillis) {
+        Log.msg(LogType.MANDATORY, "No new tiles acquired in " + (this.timeoutMillis / 1000)
+            + "s, treating the " + this.pending.size() + " remaining tiles as missing");
+        this.timedOut = true;
+        break;
+      }
+
+      waitForEvents();
+    }
+    return null;
+  }
+
+  /**
+   * Returns the first candidate whose file size has settled, marking it as existing.
+   */
+  private T pollCandidates(long now) {
+    Iterator<Map.Entry<String, long[]>> iter = this.candidates.entrySet().iterator();
+    while (iter.hasNext()) {
+      Map.Entry<String, long[]> entry = iter.next();
+      long[] state = entry.getValue();
+      File file = new File(entry.getKey());
+      long length = file.length();
+
+      if (length != state[0]) {
+        state[0] = length;
+        state[1] = now;
+      } else if (length > 0 && now - state[1] >= this.settleMillis) {
+        iter.remove();
+        T tile = this.pending.remove(entry.getKey());
+        tile.setFileExists(true);
+        Log.msg(LogType.HELPFUL, "Tile acquired: " + tile.getFileName());
+        return tile;
+      }
+    }
+    return null;
+  }
+
+  private void waitForEvents() {
+    if (this.watcher == null) {
+      sleep();
+      scanPending(System.currentTimeMillis());
+      return;
+    }
+
+    try {
+      WatchKey key = this.watcher.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+      if (key == null)
+        return;
+
+      long now = System.currentTimeMillis();
+      for (WatchEvent<?> event : key.pollEvents()) {
+        if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+          scanPending(now);
+        } else {
+          Path name = (Path) event.context();
+          addCandidate(this.imageDir.resolve(name).toFile().getAbsolutePath(), now);
+        }
+      }
+      key.reset();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      this.closed = true;
+    } catch (ClosedWatchServiceException e) {
+      this.closed = true;
+    }
+  }
+
+  private void scanPending(long now) {
+    for (String path : this.pending.keySet()) {
+      if (new File(path).exists())
+        addCandidate(path, now);
+    }
+  }
+
+  private void addCandidate(String path, long now) {
+    if (this.pending.containsKey(path) && !this.candidates.containsKey(path))
+      this.candidates.put(path, new long[]{-1L, now});
+  }
+
+  private void sleep() {
+    try {
+      Thread.sleep(POLL_MILLIS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      this.closed = true;
+    }
+  }
+
+}
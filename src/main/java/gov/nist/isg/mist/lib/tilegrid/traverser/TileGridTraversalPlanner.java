@@ -0,0 +1,209 @@
+// NIST-developed software is provided by NIST as a public service. You may use, copy and distribute copies of the software in any medium, provided that you keep intact this entire notice. You may improve, modify and create derivative works of the software or any portion of the software, and you may copy and distribute such modifications or works. Modified works should carry a notice stating that you changed the software and should note the date and nature of any such change. Please explicitly acknowledge the National Institute of Standards and Technology as the source of the software.
+
+// NIST-developed software is expressly provided "AS IS." NIST MAKES NO WARRANTY OF ANY KIND, EXPRESS, IMPLIED, IN FACT OR ARISING BY OPERATION OF LAW, INCLUDING, WITHOUT LIMITATION, THE IMPLIED WARRANTY OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE, NON-INFRINGEMENT AND DATA ACCURACY. NIST NEITHER REPRESENTS NOR WARRANTS THAT THE OPERATION OF THE SOFTWARE WILL BE UNINTERRUPTED OR ERROR-FREE, OR THAT ANY DEFECTS WILL BE CORRECTED. NIST DOES NOT WARRANT OR MAKE ANY REPRESENTATIONS REGARDING THE USE OF THE SOFTWARE OR THE RESULTS THEREOF, INCLUDING BUT NOT LIMITED TO THE CORRECTNESS, ACCURACY, RELIABILITY, OR USEFULNESS OF THE SOFTWARE.
+
+// You are solely responsible for determining the appropriateness of using and distributing the software and you assume all risks associated with its use, including but not limited to the risks and costs of program errors, compliance with applicable laws, damage to or loss of data, programs or equipment, and the unavailability or interruption of operation. This software is not intended to be used in any situation where a failure could cause risk of injury or damage to property. The software developed by NIST employees is not subject to copyright protection within the United States.
+
+
+
+// ================================================================
+//
+// Author: tjb3
+// Date: Oct 19, 2026 8:15:09 PM EST
+//
+// Time-stamp: <Oct 19, 2026 8:15:09 PM tjb3>
+//
+//
+// ================================================================
+
+package gov.nist.isg.mist.lib.tilegrid.traverser;
+
+
+import gov.nist.isg.mist.lib.imagetile.ImageTile;
+import gov.nist.isg.mist.lib.log.Log;
+import gov.nist.isg.mist.lib.log.Log.LogType;
+import gov.nist.isg.mist.lib.tilegrid.TileGrid;
+import gov.nist.isg.mist.lib.tilegrid.traverser.TileGridTraverser.Traversals;
+
+/**
+ * Chooses the traversal that minimizes the number of tiles held in memory. Each traversal is
+ * simulated against the fft and pixel release counts of the tiles: a tile is loaded when it is
+ * traversed, a pair completes as soon as both of its tiles are loaded, and a tile is released once
+ * all of its pairs are complete. The peak of the simulation is the smallest number of tiles that
+ * must be resident for the traversal to make progress, which the memory pool and the memory check
+ * are sized by.
+ *
+ * @author Tim Blattner
+ * @version 1.0
+ */
+public class TileGridTraversalPlanner {
+
+  /**
+   * Traversals in order of preference when their peaks are equal
+   */
+  private static final Traversals[] Candidates = {Traversals.DIAGONAL, Traversals.DIAGONAL_CHAINED,
+      Traversals.ROW_CHAINED, Traversals.COLUMN_CHAINED, Traversals.ROW, Traversals.COLUMN,
+      Traversals.HILBERT};
+
+  /**
+   * Result of simulating a traversal
+   */
+  public static class Plan {
+    private final Traversals traversal;
+    private final int peakFfts;
+    private final int peakPixels;
+
+    private Plan(Traversals traversal, int peakFfts, int peakPixels) {
+      this.traversal = traversal;
+      this.peakFfts = peakFfts;
+      this.peakPixels = peakPixels;
+    }
+
+    /**
+     * @return the traversal that was simulated
+     */
+    public Traversals getTraversal() {
+      return this.traversal;
+    }
+
+    /**
+     * @return the peak number of tiles holding fft memory
+     */
+    public int getPeakFfts() {
+      return this.peakFfts;
+    }
+
+    /**
+     * @return the peak number of tiles holding pixel data
+     */
+    public int getPeakPixels() {
+      return this.peakPixels;
+    }
+
+    @Override
+    public String toString() {
+      return this.traversal + " (peak ffts: " + this.peakFfts + ", peak pixels: " + this.peakPixels
+          + ")";
+    }
+  }
+
+  /**
+   * Simulates every traversal and returns the one with the smallest peak working set
+   *
+   * @param grid the subgrid to traverse
+   * @return the plan of the best traversal
+   */
+  public static <T extends ImageTile<?>> Plan plan(TileGrid<T> grid) {
+    Plan best = null;
+    for (Traversals type : Candidates) {
+      Plan plan = simulate(grid, type);
+      Log.msg(LogType.INFO, "Simulated traversal " + plan);
+
+      if (best == null || plan.getPeakFfts() < best.getPeakFfts()
+          || (plan.getPeakFfts() == best.getPeakFfts() && plan.getPeakPixels() < best.getPeakPixels()))
+        best = plan;
+    }
+
+    Log.msg(LogType.INFO, "Selected traversal " + best);
+    return best;
+  }
+
+  /**
+   * Simulates the working set of a traversal
+   *
+   * @param grid the subgrid to traverse
+   * @param type the traversal
+   * @return the plan holding the peak working set of the traversal
+   */
+  public static <T extends ImageTile<?>> Plan simulate(TileGrid<T> grid, Traversals type) {
+    int width = grid.getExtentWidth();
+    int height = grid.getExtentHeight();
+
+    boolean[] loaded = new boolean[width * height];
+    int[] fftCounts = new int[width * height];
+    int[] pixelCounts = new int[width * height];
+
+    for (int r = 0; r < height; r++) {
+      for (int c = 0; c < width; c++) {
+        T tile = grid.getSubGridTile(r, c);
+        fftCounts[r * width + c] = tile.getFftReleaseCount();
+        pixelCounts[r * width + c] = tile.getPixelDataReleaseCount();
+      }
+    }
+
+    int ffts = 0;
+    int pixels = 0;
+    int peakFfts = 0;
+    int peakPixels = 0;
+
+    int[][] neighbors = {{0, -1}, {-1, 0}, {0, 1}, {1, 0}};
+
+    TileGridTraverser<T> traverser = TileGridTraverserFactory.makeTraverser(type, grid);
+    for (T tile : traverser) {
+      int row = tile.getRow() - grid.getStartRow();
+      int col = tile.getCol() - grid.getStartCol();
+      int index = row * width + col;
+
+      loaded[index] = true;
+      ffts++;
+      pixels++;
+      peakFfts = Math.max(peakFfts, ffts);
+      peakPixels = Math.max(peakPixels, pixels);
+
+      // complete the pairs with the tiles already loaded
+      for (int[] n : neighbors) {
+        int nRow = row + n[0];
+        int nCol = col + n[1];
+        if (nRow < 0 || nRow >= height || nCol < 0 || nCol >= width)
+          continue;
+
+        int nIndex = nRow * width + nCol;
+        if (!loaded[nIndex])
+          continue;
+
+        fftCounts[index]--;
+        fftCounts[nIndex]--;
+        pixelCounts[index]--;
+        pixelCounts[nIndex]--;
+
+        if (fftCounts[nIndex] == 0)
+          ffts--;
+        if (pixelCounts[nIndex] == 0)
+          pixels--;
+      }
+
+      // the traversed tile is released once its last pair completes, or right away if it has none
+      if (fftCounts[index] <= 0)
+        ffts--;
+      if (pixelCounts[index] <= 0)
+        pixels--;
+    }
+
+    return new Plan(type, peakFfts, peakPixels);
+  }
+
+  /**
+   * Gets the traversal type of a traverser
+   *
+   * @param traverser the traverser
+   * @return the traversal type, or null if the traverser is not one of the planned traversals
+   */
+  public static Traversals typeOf(TileGridTraverser<?> traverser) {
+    if (traverser instanceof TileGridRowTraverser)
+      return Traversals.ROW;
+    if (traverser instanceof TileGridRowChainedTraverser)
+      return Traversals.ROW_CHAINED;
+    if (traverser instanceof TileGridColumnTraverser)
+      return Traversals.COLUMN;
+    if (traverser instanceof TileGridColumnChainedTraverser)
+      return Traversals.COLUMN_CHAINED;
+    if (traverser instanceof TileGridDiagonalTraverser)
+      return Traversals.DIAGONAL;
+    if (traverser instanceof TileGridDiagonalChainedTraverser)
+      return Traversals.DIAGONAL_CHAINED;
+    if (traverser instanceof TileGridHilbertTraverser)
+      return Traversals.HILBERT;
+    return null;
+  }
+
+}
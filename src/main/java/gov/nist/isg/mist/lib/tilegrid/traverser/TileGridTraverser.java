@@ -58,7 +58,12 @@ public interface TileGridTraverser<T> extends Iterable<T> {
     /**
      * Diagonal chained traversal
      */
-    DIAGONAL_CHAINED
+    DIAGONAL_CHAINED,
+
+    /**
+     * Blocked Hilbert curve traversal
+     */
+    HILBERT
   }
 
   /**
@@ -52,6 +52,8 @@ public class TileGridTraverserFactory {
         return new TileGridDiagonalChainedTraverser<T>(grid);
       case ROW_CHAINED:
         return new TileGridRowChainedTraverser<T>(grid);
+      case HILBERT:
+        return new TileGridHilbertTraverser<T>(grid);
       default:
         return new TileGridRowTraverser<T>(grid);
 
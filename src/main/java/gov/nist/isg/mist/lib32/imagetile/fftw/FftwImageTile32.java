@@ -24,6 +24,7 @@ import org.bridj.Pointer;
 import java.io.File;
 
 import gov.nist.isg.mist.lib.imagetile.ImageTile;
+import gov.nist.isg.mist.lib.imagetile.fftw.FftSizeSelector;
 import gov.nist.isg.mist.lib.imagetile.memory.TileWorkerMemory;
 import gov.nist.isg.mist.lib.log.Log;
 import gov.nist.isg.mist.lib.log.Log.LogType;
@@ -59,6 +60,16 @@ public class FftwImageTile32 extends ImageTile<Pointer<Float>> {
    */
   public static int fftSize;
 
+  /**
+   * The width of the FFT, at least the width of a tile
+   */
+  public static int fftWidth;
+
+  /**
+   * The height of the FFT, at least the height of a tile
+   */
+  public static int fftHeight;
+
   /**
    * The forward FFTW plan
    */
@@ -121,14 +132,10 @@ public class FftwImageTile32 extends ImageTile<Pointer<Float>> {
 
     readTile();
 
-    Pointer<Float> fftIn = FFTW3Library32.fftwf_alloc_real(super.getWidth() * super.getHeight());
+    Pointer<Float> fftIn = FFTW3Library32.fftwf_alloc_real(fftWidth * fftHeight);
     this.fft = FFTW3Library32.fftwf_alloc_complex(fftSize);
 
-
-    for (long r = 0; r < super.getHeight(); r++)
-      for (long c = 0; c < super.getWidth(); c++) {
-        fftIn.setFloatAtIndex(r * super.getWidth() + c, super.getPixels().getPixelValue((int) c, (int) r));
-      }
+    copyAndPad(fftIn);
 
     FFTW3Library32.fftwf_execute_dft_r2c(plan_fwd, fftIn, this.fft);
     FFTW3Library32.fftwf_free(fftIn);
@@ -149,10 +156,7 @@ public class FftwImageTile32 extends ImageTile<Pointer<Float>> {
 
     if (super.isMemoryLoaded()) {
       this.fftIn = memory.getFFTInP();
-      for (long r = 0; r < super.getHeight(); r++)
-        for (long c = 0; c < super.getWidth(); c++) {
-          fftIn.setFloatAtIndex(r * super.getWidth() + c, super.getPixels().getPixelValue((int) c, (int) r));
-        }
+      copyAndPad(this.fftIn);
 
       FFTW3Library32.fftwf_execute_dft_r2c(plan_fwd, this.fftIn, this.fft);
     }
@@ -164,6 +168,24 @@ public class FftwImageTile32 extends ImageTile<Pointer<Float>> {
     this.computeFft(pool, memory);
   }
 
+  /**
+   * Copies the pixels into the transform input, zeroing the padding to the right of and below
+   * the image
+   *
+   * @param input the fftWidth x fftHeight transform input
+   */
+  private void copyAndPad(Pointer<Float> input) {
+    int width = super.getWidth();
+    int height = super.getHeight();
+    for (long r = 0; r < fftHeight; r++)
+      for (long c = 0; c < fftWidth; c++) {
+        if (r < height && c < width)
+          input.setFloatAtIndex(r * fftWidth + c, super.getPixels().getPixelValue((int) c, (int) r));
+        else
+          input.setFloatAtIndex(r * fftWidth + c, 0);
+      }
+  }
+
   /**
    * Saves the FFTW plan to the path
    *
@@ -260,6 +282,22 @@ public class FftwImageTile32 extends ImageTile<Pointer<Float>> {
    * @param plan     the plan's path you are trying to load
    */
   public static void initPlans(int width, int height, int flags, boolean loadPlan, String plan) {
+    initPlans(width, height, width, height, flags, loadPlan, plan);
+  }
+
+  /**
+   * Initializes a FFTW plan for tiles zero padded to fftWidth x fftHeight
+   *
+   * @param width     the width for the tile
+   * @param height    the height for the tile
+   * @param fftWidth  the padded width of the transform
+   * @param fftHeight the padded height of the transform
+   * @param flags     the FFTW flag(s) for the plan
+   * @param loadPlan  true if you want to try to load a plan from disk
+   * @param plan      the plan's path you are trying to load
+   */
+  public static void initPlans(int width, int height, int fftWidth, int fftHeight, int flags,
+                               boolean loadPlan, String plan) {
     if (loadPlan) {
       int result = FftwImageTile32.loadPlan(plan);
 
@@ -272,16 +310,22 @@ public class FftwImageTile32 extends ImageTile<Pointer<Float>> {
 
     Log.msg(LogType.MANDATORY, "Loading FFTW Plan...");
 
-    fftSize = (width / 2 + 1) * height;
+    if (fftWidth != width || fftHeight != height)
+      Log.msg(LogType.MANDATORY, "Padding " + width + "x" + height + " tiles to " + fftWidth + "x"
+          + fftHeight + " for the FFT");
+
+    FftwImageTile32.fftWidth = fftWidth;
+    FftwImageTile32.fftHeight = fftHeight;
+    fftSize = (fftWidth / 2 + 1) * fftHeight;
 
-    Pointer<Float> ptrIn = FFTW3Library32.fftwf_alloc_real(width * height);
+    Pointer<Float> ptrIn = FFTW3Library32.fftwf_alloc_real(fftWidth * fftHeight);
     Pointer<Float> ptrOut = FFTW3Library32.fftwf_alloc_complex(fftSize);
 
     Pointer<Float> ptrC2RIn = FFTW3Library32.fftwf_alloc_complex(fftSize);
-    Pointer<Float> ptrC2ROut = FFTW3Library32.fftwf_alloc_real(width * height);
+    Pointer<Float> ptrC2ROut = FFTW3Library32.fftwf_alloc_real(fftWidth * fftHeight);
 
-    plan_fwd = FFTW3Library32.fftwf_plan_dft_r2c_2d(height, width, ptrIn, ptrOut, flags);
-    plan_bwd = FFTW3Library32.fftwf_plan_dft_c2r_2d(height, width, ptrC2RIn, ptrC2ROut, flags);
+    plan_fwd = FFTW3Library32.fftwf_plan_dft_r2c_2d(fftHeight, fftWidth, ptrIn, ptrOut, flags);
+    plan_bwd = FFTW3Library32.fftwf_plan_dft_c2r_2d(fftHeight, fftWidth, ptrC2RIn, ptrC2ROut, flags);
 
     FFTW3Library32.fftwf_free(ptrIn);
     FFTW3Library32.fftwf_free(ptrOut);
@@ -290,6 +334,54 @@ public class FftwImageTile32 extends ImageTile<Pointer<Float>> {
 
   }
 
+  /**
+   * Selects the FFT size for a tile size, benchmarking the candidate sizes from {@link
+   * FftSizeSelector} unless a previous selection is stored next to the FFTW plan
+   *
+   * @param width     the width for the tile
+   * @param height    the height for the tile
+   * @param loadSizes true to reuse a selection stored next to the plan
+   * @param saveSizes true to store the selection next to the plan
+   * @param plan      the plan's path
+   * @return the selected {fftWidth, fftHeight}
+   */
+  public static int[] selectFftSize(int width, int height, boolean loadSizes, boolean saveSizes,
+                                    String plan) {
+    return FftSizeSelector.selectSize(width, height, "float", FftSizeSelector.getCacheFile(plan),
+        loadSizes, saveSizes, new FftSizeSelector.PlanTimer() {
+          @Override
+          public long time(int fftWidth, int fftHeight) {
+            return timePlans(fftWidth, fftHeight);
+          }
+        });
+  }
+
+  private static long timePlans(int fftWidth, int fftHeight) {
+    long size = (long) (fftWidth / 2 + 1) * fftHeight;
+    Pointer<Float> real = FFTW3Library32.fftwf_alloc_real((long) fftWidth * fftHeight);
+    Pointer<Float> complex = FFTW3Library32.fftwf_alloc_complex(size);
+
+    // estimated plans are cheap to create and do not touch the arrays while planning
+    fftwf_plan fwd = FFTW3Library32.fftwf_plan_dft_r2c_2d(fftHeight, fftWidth, real, complex,
+        FFTW3Library32.FFTW_ESTIMATE);
+    fftwf_plan bwd = FFTW3Library32.fftwf_plan_dft_c2r_2d(fftHeight, fftWidth, complex, real,
+        FFTW3Library32.FFTW_ESTIMATE);
+
+    for (long i = 0; i < (long) fftWidth * fftHeight; i++)
+      real.setFloatAtIndex(i, i % 255);
+
+    long start = System.nanoTime();
+    FFTW3Library32.fftwf_execute_dft_r2c(fwd, real, complex);
+    FFTW3Library32.fftwf_execute_dft_c2r(bwd, complex, real);
+    long time = System.nanoTime() - start;
+
+    FFTW3Library32.fftwf_destroy_plan(fwd);
+    FFTW3Library32.fftwf_destroy_plan(bwd);
+    FFTW3Library32.fftwf_free(real);
+    FFTW3Library32.fftwf_free(complex);
+    return time;
+  }
+
   /**
    * Destroys forward and backward plan's memory
    */
@@ -65,17 +65,20 @@ public class FftwStitching32 {
 
     List<CorrelationTriple> peaks;
 
-    peaks = UtilFnsStitching32.multiPeakCorrelationMatrix(pcm, Stitching.NUM_PEAKS,
-        t1.getWidth(), t1.getHeight(), memory.getPeaks());
+    // the transforms may be zero padded, so the peaks are searched over the whole padded matrix
+    peaks = UtilFnsStitching32.multiPeakCorrelationMatrix(pcm, Stitching.NUM_PEAKS, FftwImageTile32.fftWidth,
+        FftwImageTile32.fftHeight, memory.getPeaks());
 
     List<CorrelationTriple> multi_ccfs = new ArrayList<CorrelationTriple>();
     for (int i = 0; i < peaks.size(); i++) {
       CorrelationTriple peak = peaks.get(i);
 
       if (t1.isSameRowAs(t2))
-        multi_ccfs.add(Stitching.peakCrossCorrelationLR(t1, t2, peak.getX(), peak.getY()));
+        multi_ccfs.add(Stitching.peakCrossCorrelationLR(t1, t2, peak.getX(), peak.getY(),
+            FftwImageTile32.fftWidth, FftwImageTile32.fftHeight));
       else if (t1.isSameColAs(t2))
-        multi_ccfs.add(Stitching.peakCrossCorrelationUD(t1, t2, peak.getX(), peak.getY()));
+        multi_ccfs.add(Stitching.peakCrossCorrelationUD(t1, t2, peak.getX(), peak.getY(),
+            FftwImageTile32.fftWidth, FftwImageTile32.fftHeight));
 
       Debug.msg(DebugType.INFO, multi_ccfs.get(i).toString());
     }
@@ -22,6 +22,7 @@ import java.io.File;
 
 import gov.nist.isg.mist.lib.imagetile.ImageTile;
 import gov.nist.isg.mist.lib.imagetile.java.Fft;
+import gov.nist.isg.mist.lib.imagetile.java.FlatFft;
 import gov.nist.isg.mist.lib.imagetile.memory.TileWorkerMemory;
 import gov.nist.isg.mist.lib.log.Log;
 import gov.nist.isg.mist.lib.log.Log.LogType;
@@ -49,6 +50,13 @@ public class JavaImageTile32 extends ImageTile<float[][]> {
    */
   public static Fft fftPlan = null;
 
+  /**
+   * The flat buffer Java FFT plan, only initialized if the flat FFT is enabled
+   */
+  public static FlatFft flatFftPlan = null;
+
+  private static boolean useFlatFft = false;
+
 
   /**
    * Creates an image tile in a grid
@@ -98,13 +106,12 @@ public class JavaImageTile32 extends ImageTile<float[][]> {
 
     readTile();
 
-    this.fft =
-        new float[fftPlan.getFrequencySampling2().getCount()][fftPlan.getFrequencySampling1()
-            .getCount() * 2];
+    int[] size = getFftMemorySize();
+    this.fft = new float[size[0]][size[1]];
 
     copyAndPadFFT();
 
-    fftPlan.applyForwardPadded(this.fft);
+    applyForward();
 
   }
 
@@ -131,7 +138,7 @@ public class JavaImageTile32 extends ImageTile<float[][]> {
 
     copyAndPadFFT();
 
-    fftPlan.applyForwardPadded(this.fft);
+    applyForward();
   }
 
   @Override
@@ -139,10 +146,37 @@ public class JavaImageTile32 extends ImageTile<float[][]> {
     computeFft(pool, memory);
   }
 
+  /**
+   * Applies the forward transform to the padded fft array in place.
+   */
+  private void applyForward() {
+    if (flatFftPlan != null)
+      flatFftPlan.applyForward(this.fft[0], this.getHeight());
+    else
+      fftPlan.applyForwardPadded(this.fft);
+  }
+
   /**
    * Copies pixel data into fft array for in place transform.
    */
   private void copyAndPadFFT() {
+    if (flatFftPlan != null) {
+      // rows after the image height are zeroed by the transform
+      float[] buffer = this.fft[0];
+      int stride = flatFftPlan.getRowStride();
+      for (int r = 0; r < this.getHeight(); r++) {
+        int offset = r * stride;
+        for (int c = 0; c < stride; c++) {
+          if (c < this.getWidth()) {
+            buffer[offset + c] = super.getPixels().getPixelValue(c, r);
+          } else {
+            buffer[offset + c] = 0.0f;
+          }
+        }
+      }
+      return;
+    }
+
     // n1 = width
     // n2 = height
     int n1 = fftPlan.getFrequencySampling1().getCount() * 2;
@@ -175,6 +209,41 @@ public class JavaImageTile32 extends ImageTile<float[][]> {
     fftPlan = new Fft(tile.getWidth(), tile.getHeight());
     fftPlan.setComplex(false);
     fftPlan.setOverwrite(true);
+
+    if (useFlatFft) {
+      Log.msg(LogType.VERBOSE, "Initializing flat Java FFT Plans.");
+      flatFftPlan = new FlatFft(tile.getWidth(), tile.getHeight());
+    } else {
+      flatFftPlan = null;
+    }
+  }
+
+  /**
+   * Gets the dimensions of the float[][] array holding an FFT. When the flat FFT is enabled the
+   * transform is held in a single contiguous row.
+   *
+   * @return the {rows, columns} of an FFT array
+   */
+  public static int[] getFftMemorySize() {
+    if (flatFftPlan != null)
+      return new int[]{1, flatFftPlan.getBufferSize()};
+
+    return new int[]{fftPlan.getFrequencySampling2().getCount(),
+        fftPlan.getFrequencySampling1().getCount() * 2};
+  }
+
+  /**
+   * Enables the flat buffer FFT engine. Must be called before initJavaPlan.
+   */
+  public static void enableFlatFft() {
+    useFlatFft = true;
+  }
+
+  /**
+   * Disables the flat buffer FFT engine. Must be called before initJavaPlan.
+   */
+  public static void disableFlatFft() {
+    useFlatFft = false;
   }
 
 }
@@ -24,7 +24,9 @@ import java.util.List;
 
 import gov.nist.isg.mist.lib.common.CorrelationTriple;
 import gov.nist.isg.mist.lib.imagetile.Stitching;
+import gov.nist.isg.mist.lib.imagetile.java.FlatFft;
 import gov.nist.isg.mist.lib.imagetile.memory.TileWorkerMemory;
+import gov.nist.isg.mist.lib.imagetile.utilfns.UtilFnsStitching;
 import gov.nist.isg.mist.lib.log.Debug;
 import gov.nist.isg.mist.lib.log.Debug.DebugType;
 import gov.nist.isg.mist.lib32.imagetile.utilfns.UtilFnsStitching32;
@@ -54,17 +56,28 @@ public class JavaStitching32 {
     float[][] pcm = memory.getArrayMemory();
     pcm = peakCorrelationMatrix(t1, t2, pcm);
 
-    List<CorrelationTriple> peaks =
-        UtilFnsStitching32.multiPeakCorrelationMatrixNoSort(pcm, Stitching.NUM_PEAKS, t1.getWidth(),
-            t2.getHeight());
+    // the flat engine pads the transforms and leaves the whole padded matrix, the legacy engine
+    // crops its inverse back to the tile size
+    int fftWidth = t1.getWidth();
+    int fftHeight = t1.getHeight();
+    List<CorrelationTriple> peaks;
+    if (JavaImageTile32.flatFftPlan != null) {
+      fftWidth = JavaImageTile32.flatFftPlan.getFftWidth();
+      fftHeight = JavaImageTile32.flatFftPlan.getFftHeight();
+      peaks = UtilFnsStitching.multiPeakCorrelationMatrixNoSort(pcm[0],
+          JavaImageTile32.flatFftPlan.getRowStride(), Stitching.NUM_PEAKS, fftWidth, fftHeight);
+    } else {
+      peaks = UtilFnsStitching32.multiPeakCorrelationMatrixNoSort(pcm, Stitching.NUM_PEAKS,
+          t1.getWidth(), t2.getHeight());
+    }
     List<CorrelationTriple> multi_ccfs = new ArrayList<CorrelationTriple>(Stitching.NUM_PEAKS);
     for (int i = 0; i < peaks.size(); i++) {
       if (t1.isSameRowAs(t2))
         multi_ccfs.add(Stitching.peakCrossCorrelationLR(t1, t2, peaks.get(i).getX(), peaks.get(i)
-            .getY()));
+            .getY(), fftWidth, fftHeight));
       else if (t1.isSameColAs(t2))
         multi_ccfs.add(Stitching.peakCrossCorrelationUD(t1, t2, peaks.get(i).getX(), peaks.get(i)
-            .getY()));
+            .getY(), fftWidth, fftHeight));
       Debug.msg(DebugType.INFO, multi_ccfs.get(i).toString());
 
     }
@@ -88,6 +101,15 @@ public class JavaStitching32 {
     if (!t2.hasFft())
       t2.computeFft();
 
+    FlatFft flatFftPlan = JavaImageTile32.flatFftPlan;
+    if (flatFftPlan != null) {
+      // the inverse is computed in place, the pcm is left in the first fftWidth floats of each row
+      UtilFnsStitching.computePhaseCorrelationJava(t1.getFft()[0], t2.getFft()[0], ncc[0],
+          flatFftPlan.getComplexWidth() * flatFftPlan.getFftHeight());
+      flatFftPlan.applyInverse(ncc[0]);
+      return ncc;
+    }
+
     ncc = UtilFnsStitching32.computePhaseCorrelationJava(t1.getFft(), t2.getFft(), ncc);
 
     ncc = JavaImageTile32.fftPlan.applyInverse(ncc);
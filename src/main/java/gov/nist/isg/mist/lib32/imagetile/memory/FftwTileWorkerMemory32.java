@@ -51,8 +51,8 @@ public class FftwTileWorkerMemory32 extends TileWorkerMemory<Float> {
   public FftwTileWorkerMemory32(ImageTile<?> initTile) {
     super(initTile.getWidth(), initTile.getHeight());
 
-    this.pcmP = FFTW3Library32.fftwf_alloc_real(super.getWidth() * super.getHeight());
-    this.fftInP = FFTW3Library32.fftwf_alloc_real(super.getWidth() * super.getHeight());
+    this.pcmP = FFTW3Library32.fftwf_alloc_real(FftwImageTile32.fftWidth * FftwImageTile32.fftHeight);
+    this.fftInP = FFTW3Library32.fftwf_alloc_real(FftwImageTile32.fftWidth * FftwImageTile32.fftHeight);
     this.pcmInP = FFTW3Library32.fftwf_alloc_complex(FftwImageTile32.fftSize);
     this.peaks = Pointer.allocateInts(Stitching.NUM_PEAKS);
   }
@@ -45,9 +45,8 @@ public class JavaTileWorkerMemory32 extends TileWorkerMemory {
   public JavaTileWorkerMemory32(ImageTile<?> initTile) {
     super(initTile.getWidth(), initTile.getHeight());
 
-    int fftWidth = JavaImageTile32.fftPlan.getFrequencySampling1().getCount() * 2;
-    int fftHeight = JavaImageTile32.fftPlan.getFrequencySampling2().getCount();
-    this.arrayMemory = new float[fftHeight][fftWidth];
+    int[] size = JavaImageTile32.getFftMemorySize();
+    this.arrayMemory = new float[size[0]][size[1]];
   }
 
   @Override
@@ -19,6 +19,7 @@ import gov.nist.isg.mist.gui.params.objects.RangeParam;
 import gov.nist.isg.mist.lib.imagetile.ImageTile;
 import gov.nist.isg.mist.lib.imagetile.Stitching;
 import gov.nist.isg.mist.lib.log.Log;
+import gov.nist.isg.mist.lib.tilegrid.LeastSquaresPositionSolver;
 import gov.nist.isg.mist.lib.tilegrid.TileGrid;
 import gov.nist.isg.mist.lib.tilegrid.TileGridUtils;
 import gov.nist.isg.mist.optimization.model.StageModel;
@@ -198,15 +199,22 @@ public class GlobalOptimization<T> {
     // start the Global Position computation phase
     this.stitchingStatistics.startTimer(StitchingStatistics.RunTimers.GlobalPositionTime);
 
-    // Perform the maximum spanning tree walk of the translations to create the globally
-    // consistent image tile positions
-    TileGridUtils.traverseMaximumSpanningTree(grid);
-
-    // stop the MST walk timer
+    // Either solve for the positions using every translation, or perform the maximum spanning tree
+    // walk of the translations to create the globally consistent image tile positions. The MST is
+    // also the fallback if the least squares solver does not converge. Refinement raises the
+    // correlation of translations that passed the stage model by CorrelationWeight, the others
+    // only place tiles that no valid translation reaches.
+    boolean solved = false;
+    if (params.getAdvancedParams().isLeastSquaresPositions())
+      solved = LeastSquaresPositionSolver.solve(grid, TranslationFilter.CorrelationWeight - 1.0);
+    if (!solved)
+      TileGridUtils.traverseMaximumSpanningTree(grid);
+
+    // stop the global position timer
     stitchingStatistics.stopTimer(StitchingStatistics.RunTimers.GlobalPositionTime);
 
-    // log the MST global position generation time
-    Log.msg(Log.LogType.HELPFUL, "Completed MST in "
+    // log the global position generation time
+    Log.msg(Log.LogType.HELPFUL, "Completed " + (solved ? "least squares solve" : "MST") + " in "
         + stitchingStatistics.getDuration(StitchingStatistics.RunTimers.GlobalPositionTime) + "ms");
   }
 
@@ -256,9 +256,11 @@ public class StageModel<T> {
     // compute the overlap from the translations
     // setup the overlap computation executor
     if (isSequential) {
-      overlapExecutorInterface = new MleOverlapSequentialExecutor<T>(grid, dir, dispValue);
+      overlapExecutorInterface = new MleOverlapSequentialExecutor<T>(grid, dir, dispValue,
+          params.getAdvancedParams().getMleSeed());
     } else {
-      overlapExecutorInterface = new MleOverlapParallelExecutor<T>(grid, dir, dispValue, params.getAdvancedParams().getNumCPUThreads());
+      overlapExecutorInterface = new MleOverlapParallelExecutor<T>(grid, dir, dispValue, params.getAdvancedParams().getNumCPUThreads(),
+          params.getAdvancedParams().getMleSeed());
     }
     // run the overlap executor
     overlapExecutorInterface.execute();
@@ -7,8 +7,6 @@
 
 package gov.nist.isg.mist.optimization.model.overlap;
 
-import java.util.Random;
-
 /**
  * Class to hold MLE model.
  *
@@ -21,8 +19,6 @@ public class MLEPoint implements Cloneable {
   private int sigma;
   private double likelihood;
 
-  public static Random randMaker = new Random(System.currentTimeMillis());
-
   /**
    * Create a new MLE model from the model parameters.
    *
@@ -38,18 +34,6 @@ public class MLEPoint implements Cloneable {
     this.likelihood = l;
   }
 
-  /**
-   * Get a new random MLEPoint.
-   *
-   * @return MLEPoint with random PIuni, mu, sigma, and Double.NaN likelihood.
-   */
-  public static synchronized MLEPoint getRandomPoint() {
-    int p = (int) Math.round(100 * randMaker.nextDouble());
-    int m = (int) Math.round(100 * randMaker.nextDouble());
-    int s = (int) Math.round(100 * randMaker.nextDouble());
-    return new MLEPoint(p, m, s, Double.NaN);
-  }
-
   public int getPIuni() { return this.PIuni; }
   public void setPIuni(int val) { this.PIuni = val; }
 
@@ -7,6 +7,8 @@
 
 package gov.nist.isg.mist.optimization.model.overlap;
 
+import java.util.concurrent.atomic.AtomicLongArray;
+
 /**
  * Class to hold thread safe cache of Maximum Likelihood values to prevent recomputing between
  * threads.
@@ -15,39 +17,38 @@ package gov.nist.isg.mist.optimization.model.overlap;
  */
 public class MleLikelihoodCache {
 
-  double likelihood[][][];
+  private static final long NAN_BITS = Double.doubleToRawLongBits(Double.NaN);
+
+  AtomicLongArray likelihood;
 
   /**
    * Allocates the MLE likelihood cache and initializes each element to Double.NaN
    */
   public MleLikelihoodCache() {
-    likelihood = new double[100][100][100];
+    likelihood = new AtomicLongArray(100 * 100 * 100);
 
     // init all values to Double.Nan
-    for (int p = 0; p < 100; p++)
-      for (int m = 0; m < 100; m++)
-        for (int s = 0; s < 100; s++)
-          likelihood[p][m][s] = Double.NaN;
-
-
+    for (int i = 0; i < likelihood.length(); i++)
+      likelihood.lazySet(i, NAN_BITS);
   }
 
 
   /**
    * Thread safe method to get a cached MLE likelihood value.
    *
-   * Per the Java documentation, synchronized is per instance. Therefore, since this cache
-   * instance is shared among the workers, there is no potential conflicts.
+   * Values are stored as the raw bits of the double in an atomic array, so readers never block
+   * the workers. A likelihood is a pure function of its coordinates, so two workers racing to
+   * fill the same entry store the same value.
    *
    * @param p the PIuniform query percent value. Valid range: [0,100)
    * @param m the mu query percent value. Valid range: [0,100)
    * @param s the sigma query percent value. Valid range: [0,100)
    * @return the cached likelihood value, or Double.NaN if not yet computed.
    */
-  public synchronized double getLikelihood(int p, int m, int s) {
+  public double getLikelihood(int p, int m, int s) {
     double val = Double.NEGATIVE_INFINITY;
     if (p >= 0 && p < 100 && m >= 0 && m < 100 && s >= 0 && s < 100)
-      val = likelihood[p][m][s];
+      val = Double.longBitsToDouble(likelihood.get(index(p, m, s)));
 
     return val;
   }
@@ -55,18 +56,19 @@ public class MleLikelihoodCache {
   /**
    * Thread safe method to set a cached MLE likelihood value.
    *
-   * Per the Java documentation, synchronized is per instance. Therefore, since this cache
-   * instance is shared among the workers, there is no potential conflicts.
-   *
    * @param p the PIuniform query percent value. Valid range: [0,100)
    * @param m the mu query percent value. Valid range: [0,100)
    * @param s the sigma query percent value. Valid range: [0,100)
    * @param l the likelihood value.
    */
-  public synchronized void setLikelihood(int p, int m, int s, double l) {
+  public void setLikelihood(int p, int m, int s, double l) {
     if (p >= 0 && p < 100 && m >= 0 && m < 100 && s >= 0 && s < 100)
-      likelihood[p][m][s] = l;
+      likelihood.set(index(p, m, s), Double.doubleToRawLongBits(l));
+
+  }
 
+  private static int index(int p, int m, int s) {
+    return (p * 100 + m) * 100 + s;
   }
 
 }
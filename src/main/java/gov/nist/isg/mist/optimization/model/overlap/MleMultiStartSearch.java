@@ -0,0 +1,215 @@
+// NIST-developed software is provided by NIST as a public service. You may use, copy and distribute copies of the software in any medium, provided that you keep intact this entire notice. You may improve, modify and create derivative works of the software or any portion of the software, and you may copy and distribute such modifications or works. Modified works should carry a notice stating that you changed the software and should note the date and nature of any such change. Please explicitly acknowledge the National Institute of Standards and Technology as the source of the software.
+
+// NIST-developed software is expressly provided "AS IS." NIST MAKES NO WARRANTY OF ANY KIND, EXPRESS, IMPLIED, IN FACT OR ARISING BY OPERATION OF LAW, INCLUDING, WITHOUT LIMITATION, THE IMPLIED WARRANTY OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE, NON-INFRINGEMENT AND DATA ACCURACY. NIST NEITHER REPRESENTS NOR WARRANTS THAT THE OPERATION OF THE SOFTWARE WILL BE UNINTERRUPTED OR ERROR-FREE, OR THAT ANY DEFECTS WILL BE CORRECTED. NIST DOES NOT WARRANT OR MAKE ANY REPRESENTATIONS REGARDING THE USE OF THE SOFTWARE OR THE RESULTS THEREOF, INCLUDING BUT NOT LIMITED TO THE CORRECTNESS, ACCURACY, RELIABILITY, OR USEFULNESS OF THE SOFTWARE.
+
+// You are solely responsible for determining the appropriateness of using and distributing the software and you assume all risks associated with its use, including but not limited to the risks and costs of program errors, compliance with applicable laws, damage to or loss of data, programs or equipment, and the unavailability or interruption of operation. This software is not intended to be used in any situation where a failure could cause risk of injury or damage to property. The software developed by NIST employees is not subject to copyright protection within the United States.
+
+
+
+package gov.nist.isg.mist.optimization.model.overlap;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Reproducible multi-start hill climbing search for the MLE overlap model.
+ *
+ * Starting points are numbered 0, 1, 2, ... and each one is generated from its own SplitMix64
+ * stream derived from the search seed and its index, so the point a start climbs from does not
+ * depend on which worker claims it or in what order. Workers claim indices from an atomic counter
+ * and publish their results into an indexed slot without locking. The stopping rule is evaluated
+ * over the contiguous prefix of completed starts in index order: the search stops once the best
+ * point of that prefix has not improved for {@link MleUtils#NUMBER_STABLE_MLE_ITERATIONS} starts.
+ * The result therefore depends only on the seed and the translations, not on the number of
+ * workers or their timing.
+ *
+ * @author Michael Majurski
+ */
+public class MleMultiStartSearch {
+
+  /**
+   * Upper bound on the number of starting points a single search will evaluate.
+   */
+  public static final int MAX_STARTS = 10000;
+
+  private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+  private final double[] T;
+  private final MleLikelihoodCache mleCache;
+  private final long seed;
+
+  private final AtomicInteger nextStart = new AtomicInteger(0);
+  private final AtomicReferenceArray<MLEPoint> results =
+      new AtomicReferenceArray<MLEPoint>(MAX_STARTS);
+  private final AtomicReference<MLEPoint> runningBest =
+      new AtomicReference<MLEPoint>(new MLEPoint(0, 0, 0, Double.NEGATIVE_INFINITY));
+
+  // the prefix scan state is only modified by the thread holding the scanner flag
+  private final AtomicBoolean scanner = new AtomicBoolean(false);
+  private volatile int scanIndex = 0;
+  private volatile int stopIndex = -1;
+  private volatile MLEPoint prefixBest = new MLEPoint(0, 0, 0, Double.NEGATIVE_INFINITY);
+  private int numStableIterations = 0;
+
+  private volatile boolean isCancelled = false;
+
+  /**
+   * Creates a multi-start search.
+   *
+   * @param translations the translations to fit the model to. Must be within [0,100].
+   * @param mleCache     the likelihood cache shared by the workers, or null to not use a cache.
+   * @param seed         the seed from which every starting point is derived.
+   */
+  public MleMultiStartSearch(double[] translations, MleLikelihoodCache mleCache, long seed) {
+    this.T = translations;
+    this.mleCache = mleCache;
+    this.seed = seed;
+  }
+
+  /**
+   * Runs hill climbs from unclaimed starting points until the search has converged. Safe to call
+   * from any number of threads concurrently.
+   */
+  public void runWorker() {
+    while (!isDone()) {
+      int index = this.nextStart.getAndIncrement();
+      if (index >= MAX_STARTS)
+        break;
+
+      MLEPoint point = MleUtils.hillClimbSearch(getStartPoint(index), this.mleCache, this.T);
+      this.results.set(index, point);
+      publishBest(point);
+      advancePrefix();
+    }
+  }
+
+  /**
+   * Gets the starting point for the given start index. The point is a pure function of the search
+   * seed and the index.
+   *
+   * @param index the start index
+   * @return the starting point for that index
+   */
+  public MLEPoint getStartPoint(int index) {
+    long state = this.seed + (index + 1) * GOLDEN_GAMMA;
+    int p = (int) Math.round(100 * toUnitDouble(mix(state += GOLDEN_GAMMA)));
+    int m = (int) Math.round(100 * toUnitDouble(mix(state += GOLDEN_GAMMA)));
+    int s = (int) Math.round(100 * toUnitDouble(mix(state + GOLDEN_GAMMA)));
+    return new MLEPoint(p, m, s, Double.NaN);
+  }
+
+  /**
+   * Checks if the search has converged, exhausted its starting points, or was cancelled.
+   *
+   * @return true if no more starting points need to be evaluated
+   */
+  public boolean isDone() {
+    return this.isCancelled || this.stopIndex >= 0;
+  }
+
+  /**
+   * Cancels the search. Workers finish their current hill climb and return.
+   */
+  public void cancel() {
+    this.isCancelled = true;
+  }
+
+  /**
+   * Gets the best point of the search. Once every worker has returned, this is the best point of
+   * the deciding prefix of starts, which is reproducible for a given seed. If the search was
+   * cancelled, the best point found by any worker is returned instead.
+   *
+   * @return the best MLE point
+   */
+  public MLEPoint getBestPoint() {
+    if (this.stopIndex < 0)
+      return this.runningBest.get();
+
+    return this.prefixBest;
+  }
+
+  /**
+   * Gets the number of starting points that decided the result.
+   *
+   * @return the number of starts in the deciding prefix
+   */
+  public int getNumStarts() {
+    return this.stopIndex >= 0 ? this.stopIndex : this.scanIndex;
+  }
+
+  /**
+   * Counts the starts within the deciding prefix which converged to the best point.
+   *
+   * @return the number of hill climbs that converged to the best point
+   */
+  public int getNumConverged() {
+    MLEPoint best = getBestPoint();
+    int numberConverged = 0;
+    int n = getNumStarts();
+    for (int i = 0; i < n; i++) {
+      MLEPoint point = this.results.get(i);
+      if (point != null && best.getMu() == point.getMu() && best.getSigma() == point.getSigma())
+        numberConverged++;
+    }
+    return numberConverged;
+  }
+
+  private void publishBest(MLEPoint point) {
+    while (true) {
+      MLEPoint current = this.runningBest.get();
+      if (point.getLikelihood() <= current.getLikelihood())
+        return;
+      if (this.runningBest.compareAndSet(current, point))
+        return;
+    }
+  }
+
+  /**
+   * Advances the in-order scan over completed starts. Only one thread scans at a time; a thread
+   * that fails to take the scanner returns immediately, and the scanning thread checks again
+   * after releasing it so a result published meanwhile is never missed.
+   */
+  private void advancePrefix() {
+    while (this.scanner.compareAndSet(false, true)) {
+      try {
+        while (this.stopIndex < 0 && this.scanIndex < MAX_STARTS) {
+          MLEPoint point = this.results.get(this.scanIndex);
+          if (point == null)
+            break;
+
+          if (point.getLikelihood() > this.prefixBest.getLikelihood()) {
+            this.prefixBest = point;
+            this.numStableIterations = 0;
+          } else {
+            this.numStableIterations++;
+          }
+          this.scanIndex++;
+
+          if (this.numStableIterations >= MleUtils.NUMBER_STABLE_MLE_ITERATIONS)
+            this.stopIndex = this.scanIndex;
+        }
+        if (this.stopIndex < 0 && this.scanIndex >= MAX_STARTS)
+          this.stopIndex = MAX_STARTS;
+      } finally {
+        this.scanner.set(false);
+      }
+
+      if (this.stopIndex >= 0 || this.scanIndex >= MAX_STARTS
+          || this.results.get(this.scanIndex) == null)
+        return;
+    }
+  }
+
+  private static long mix(long z) {
+    z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+    z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+    return z ^ (z >>> 31);
+  }
+
+  private static double toUnitDouble(long bits) {
+    return (bits >>> 11) * 0x1.0p-53;
+  }
+
+}
@@ -8,9 +8,7 @@
 package gov.nist.isg.mist.optimization.model.overlap;
 
 import java.util.ArrayList;
-import java.util.Iterator;
 import java.util.List;
-import java.util.concurrent.ConcurrentLinkedQueue;
 
 import gov.nist.isg.mist.lib.imagetile.ImageTile;
 import gov.nist.isg.mist.lib.log.Log;
@@ -24,8 +22,7 @@ import gov.nist.isg.mist.lib.tilegrid.TileGrid;
 public class MleOverlapParallelExecutor<T> extends OverlapExecutorInterface<T> {
 
 
-  private ParallelMlePoint bestPoint;
-  private ConcurrentLinkedQueue<MLEPoint> resultsQueue = new ConcurrentLinkedQueue<MLEPoint>();
+  private MleMultiStartSearch search;
   private List<MleWorker> workers = new ArrayList<MleWorker>();
   private List<Thread> threads = new ArrayList<Thread>();
 
@@ -42,15 +39,31 @@ public class MleOverlapParallelExecutor<T> extends OverlapExecutorInterface<T> {
                                     TileGrid.Direction direction,
                                     TileGrid.DisplacementValue displacementValue,
                                     int numWorkerThreads) {
+    this(grid, direction, displacementValue, numWorkerThreads, 0);
+  }
+
+  /**
+   * Parallel MLE overlap executor with a fixed search seed. For a given seed the computed overlap
+   * does not depend on the number of worker threads.
+   *
+   * @param grid              the TileGrid from which to compute the overlap.
+   * @param direction         the direction in which to compute the overlap.
+   * @param displacementValue which displacement component of the specified direction to use in
+   *                          computing the overlap.
+   * @param numWorkerThreads  the number of worker threads to launch.
+   * @param seed              the multi-start search seed, 0 to use a time based seed.
+   */
+  public MleOverlapParallelExecutor(TileGrid<ImageTile<T>> grid,
+                                    TileGrid.Direction direction,
+                                    TileGrid.DisplacementValue displacementValue,
+                                    int numWorkerThreads, long seed) {
     super(grid, direction, displacementValue);
 
-    this.resultsQueue = new ConcurrentLinkedQueue<MLEPoint>();
     this.workers = new ArrayList<MleWorker>();
     this.threads = new ArrayList<Thread>();
 
     // allocate the cache object
     MleLikelihoodCache mleCache = new MleLikelihoodCache();
-    this.bestPoint = new ParallelMlePoint();
 
     double[] trans = getTranslations();
     // convert translations into a percentage of the valid range (so all translations are [0,100])
@@ -58,9 +71,11 @@ public class MleOverlapParallelExecutor<T> extends OverlapExecutorInterface<T> {
     for (int i = 0; i < trans.length; i++)
       trans[i] = 100 * trans[i] / range;
 
+    this.search = new MleMultiStartSearch(trans, mleCache, MleUtils.resolveSeed(seed));
+
     // setup the worker pool
     for (int i = 0; i < numWorkerThreads; i++) {
-      MleWorker worker = new MleWorker(bestPoint, this.resultsQueue, trans, mleCache);
+      MleWorker worker = new MleWorker(this.search);
       workers.add(worker);
       Thread thread = new Thread(worker);
       // set the workers uncaught exception handler to this class
@@ -88,23 +103,9 @@ public class MleOverlapParallelExecutor<T> extends OverlapExecutorInterface<T> {
       }
     }
 
-    // get the best result from the workers (this is percentile resolution)
-    MLEPoint mleModel = bestPoint.getPoint();
-
-    // get results from workers
-    int numberConverged = 0; // to count the number of workers that converged
-
-    if (resultsQueue != null) { // if the workers completed
-      // get the results iterator
-      Iterator<MLEPoint> itr = resultsQueue.iterator();
-      // find the number of starting points which converged to the best answer
-      while (itr.hasNext()) {
-        MLEPoint point = itr.next();
-        // if the current point is the same as the best
-        if (mleModel.getMu() == point.getMu() && mleModel.getSigma() == point.getSigma())
-          numberConverged++;
-      }
-    }
+    // get the best result of the deciding prefix of starts (this is percentile resolution)
+    MLEPoint mleModel = this.search.getBestPoint();
+    int numberConverged = this.search.getNumConverged();
 
     // set the overlap
     this.overlap = 100 - mleModel.getMu();
@@ -112,7 +113,7 @@ public class MleOverlapParallelExecutor<T> extends OverlapExecutorInterface<T> {
     Log.msg(Log.LogType.HELPFUL, "MLE " + getDirection() + " model parameters: mu=" + mleModel.getMu()
         + "% sigma=" + mleModel.getSigma() + "%");
     Log.msg(Log.LogType.HELPFUL, "MLE " + getDirection() + " had " + numberConverged + "/" +
-        resultsQueue.size() + " hill climbs converge");
+        this.search.getNumStarts() + " hill climbs converge");
   }
 
 
@@ -8,10 +8,6 @@
 package gov.nist.isg.mist.optimization.model.overlap;
 
 
-import java.util.ArrayList;
-import java.util.Iterator;
-import java.util.List;
-
 import gov.nist.isg.mist.lib.imagetile.ImageTile;
 import gov.nist.isg.mist.lib.log.Log;
 import gov.nist.isg.mist.lib.tilegrid.TileGrid;
@@ -25,7 +21,8 @@ import gov.nist.isg.mist.lib.tilegrid.TileGrid;
 public class MleOverlapSequentialExecutor<T> extends OverlapExecutorInterface<T> {
 
 
-  private boolean isCancelled = false;
+  private long seed;
+  private volatile MleMultiStartSearch search;
   private double overlap = Double.NaN;
 
   /**
@@ -39,7 +36,25 @@ public class MleOverlapSequentialExecutor<T> extends OverlapExecutorInterface<T>
   public MleOverlapSequentialExecutor(TileGrid<ImageTile<T>> grid,
                                       TileGrid.Direction direction,
                                       TileGrid.DisplacementValue displacementValue) {
+    this(grid, direction, displacementValue, 0);
+  }
+
+  /**
+   * Sequential MLE overlap executor with a fixed search seed. For a given seed the computed overlap
+   * matches that of the parallel executor.
+   *
+   * @param grid              the TileGrid from which to compute the overlap.
+   * @param direction         the direction in which to compute the overlap.
+   * @param displacementValue which displacement component of the specified direction to use in
+   *                          computing the overlap.
+   * @param seed              the multi-start search seed, 0 to use a time based seed.
+   */
+  public MleOverlapSequentialExecutor(TileGrid<ImageTile<T>> grid,
+                                      TileGrid.Direction direction,
+                                      TileGrid.DisplacementValue displacementValue,
+                                      long seed) {
     super(grid, direction, displacementValue);
+    this.seed = seed;
   }
 
 
@@ -62,45 +77,13 @@ public class MleOverlapSequentialExecutor<T> extends OverlapExecutorInterface<T>
     Log.msg(Log.LogType.INFO, "Computing overlap for " + getDirection().name()
         + " direction using Maximum Likelihood Estimation.");
 
-    List<MLEPoint> hcResults = new ArrayList<MLEPoint>();
-
     // set the cache to null to will simply not use the cache
     MleLikelihoodCache mleCache = null;
-    MLEPoint mleModel = new MLEPoint(0, 0, 0, Double.NEGATIVE_INFINITY);
-    int numStableIterations = 0;
-
-    while (numStableIterations < MleUtils.NUMBER_STABLE_MLE_ITERATIONS) {
-      if (this.isCancelled)
-        break;
-
-      // create the current starting point
-      MLEPoint point = MLEPoint.getRandomPoint();
-
-      // Perform hill climbing at percent of range resolution
-      point = MleUtils.hillClimbSearch(point, mleCache, trans);
+    this.search = new MleMultiStartSearch(trans, mleCache, MleUtils.resolveSeed(this.seed));
+    this.search.runWorker();
 
-      // add hill climbing resulting point to the output list
-      hcResults.add(point);
-
-      // if this point is better, keep it
-      if (point.getLikelihood() > mleModel.getLikelihood()) {
-        mleModel = point;
-        numStableIterations = 0;
-      } else {
-        numStableIterations++;
-      }
-    }
-
-
-    int numberConverged = 0; // to count the number of workers that converged
-    // find the number of starting points which converged to the best answer
-    Iterator<MLEPoint> itr = hcResults.iterator();
-    while (itr.hasNext()) {
-      MLEPoint point = itr.next();
-      // if the current point is the same as the best
-      if (mleModel.getMu() == point.getMu() && mleModel.getSigma() == point.getSigma())
-        numberConverged++;
-    }
+    MLEPoint mleModel = this.search.getBestPoint();
+    int numberConverged = this.search.getNumConverged();
 
     // set the overlap
     this.overlap = 100 - mleModel.getMu();
@@ -108,7 +91,7 @@ public class MleOverlapSequentialExecutor<T> extends OverlapExecutorInterface<T>
     Log.msg(Log.LogType.HELPFUL, "MLE " + getDirection() + " model parameters: mu=" + mleModel.getMu()
         + "% sigma=" + mleModel.getSigma() + "%");
     Log.msg(Log.LogType.HELPFUL, "MLE " + getDirection() + " had " + numberConverged + "/" +
-        hcResults.size() + " hill climbs converge");
+        this.search.getNumStarts() + " hill climbs converge");
   }
 
   /**
@@ -127,7 +110,8 @@ public class MleOverlapSequentialExecutor<T> extends OverlapExecutorInterface<T>
   @Override
   public void cancel() {
     Log.msg(Log.LogType.MANDATORY, "Canceling Stage Model Build");
-    this.isCancelled = true;
+    if (this.search != null)
+      this.search.cancel();
   }
 
 }
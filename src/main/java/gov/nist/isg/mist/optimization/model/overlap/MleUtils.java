@@ -17,6 +17,19 @@ public class MleUtils {
   private static final double SQRT2PI = Math.sqrt(2 * Math.PI);
   public static final int NUMBER_STABLE_MLE_ITERATIONS = 20;
 
+  /**
+   * Resolves the seed of an MLE multi-start search. A seed of 0 selects a time based seed, so
+   * repeated runs explore different starting points.
+   *
+   * @param seed the requested seed
+   * @return the seed to use
+   */
+  public static long resolveSeed(long seed) {
+    if (seed != 0)
+      return seed;
+    return System.nanoTime();
+  }
+
   /**
    * Defines 3D hill climbing direction in the MLE model parameters (PIuni,mu,sigma).
    *
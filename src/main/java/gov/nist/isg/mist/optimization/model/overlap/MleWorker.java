@@ -7,8 +7,6 @@
 
 package gov.nist.isg.mist.optimization.model.overlap;
 
-import java.util.concurrent.ConcurrentLinkedQueue;
-
 /**
  * Maximum likelihood estimation worker.
  *
@@ -17,31 +15,16 @@ import java.util.concurrent.ConcurrentLinkedQueue;
 public class MleWorker implements Runnable {
 
 
-  private volatile boolean isCancelled;
-
-  private double[] T;
-
-  private ParallelMlePoint bestPoint;
-  private ConcurrentLinkedQueue<MLEPoint> resultsQueue;
-  private MleLikelihoodCache mleCache;
+  private MleMultiStartSearch search;
 
   /**
-   * Worker to perform maximum likelihood estimation via hill climbing given a starting point (in
-   * percent) within the valid range.
+   * Worker to perform maximum likelihood estimation via hill climbing from the starting points of
+   * a shared multi-start search.
    *
-   * @param bestPoint    The thread safe MLEPoint denoting the current best among all the workers
-   * @param resultsQueue The output results queue to hold the location of hte local maxima found
-   * @param translations The translations to be used in performing MLE estimation. Must be within
-   *                     [0,100].
+   * @param search the multi-start search this worker claims starting points from
    */
-  public MleWorker(ParallelMlePoint bestPoint, ConcurrentLinkedQueue<MLEPoint> resultsQueue,
-                   double[] translations, MleLikelihoodCache mleCache) {
-
-    this.bestPoint = bestPoint;
-    this.resultsQueue = resultsQueue;
-    this.T = translations;
-    this.mleCache = mleCache;
-    this.isCancelled = false;
+  public MleWorker(MleMultiStartSearch search) {
+    this.search = search;
   }
 
 
@@ -50,34 +33,14 @@ public class MleWorker implements Runnable {
    */
   @Override
   public void run() {
-
-    boolean workerDone = false;
-    MLEPoint point;
-    while (!workerDone && !this.isCancelled) {
-
-      // get a new random point
-      point = MLEPoint.getRandomPoint();
-
-      // Perform hill climbing at percent of range resolution
-      point = MleUtils.hillClimbSearch(point, mleCache, T);
-
-      // add the found point to the output queue
-      resultsQueue.add(point);
-
-      // add the point to the best point if its better than the global best
-      bestPoint.setIfBetter(point);
-
-      // if the best point has been stable for the required number of iterations, stop
-      if (bestPoint.getNumStableIterations() > MleUtils.NUMBER_STABLE_MLE_ITERATIONS)
-        workerDone = true;
-    }
+    this.search.runWorker();
   }
 
   /**
    * Cancels this task
    */
   public void cancel() {
-    this.isCancelled = true;
+    this.search.cancel();
   }
 
 
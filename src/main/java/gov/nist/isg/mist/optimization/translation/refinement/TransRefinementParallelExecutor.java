@@ -11,6 +11,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.Semaphore;
 
 import javax.swing.JProgressBar;
@@ -38,6 +39,7 @@ public class TransRefinementParallelExecutor<T> extends TransRefinementExecutorI
   private TileProducer<T> producer;
   private BookKeeper<T> bk;
   private List<Thread> executionThreads;
+  private ForkJoinPool pairSearchPool;
   private volatile boolean isCancelled = false;
 
   /**
@@ -108,6 +110,10 @@ public class TransRefinementParallelExecutor<T> extends TransRefinementExecutorI
     BlockingQueue<OptimizationData<T>> tileQueue = new ArrayBlockingQueue<OptimizationData<T>>(grid.getSubGridSize() * 2);
     BlockingQueue<OptimizationData<T>> bkQueue = new ArrayBlockingQueue<OptimizationData<T>>(grid.getSubGridSize() * 2);
 
+    // large pair searches are split across a pool with the same number of threads as the workers
+    if (params.getAdvancedParams().isParallelPairRefinement())
+      pairSearchPool = new ForkJoinPool(numThreads);
+
     producer = new TileProducer<T>(traverser, bkQueue, sem);
     bk = new BookKeeper<T>(bkQueue, tileQueue, sem, grid);
 
@@ -118,6 +124,8 @@ public class TransRefinementParallelExecutor<T> extends TransRefinementExecutorI
           bkQueue, modelRepeatability, params.getAdvancedParams().getTranslationRefinementType(),
           params.getAdvancedParams().getNumTranslationRefinementStartPoints(),
           progressBar);
+      worker.setCheckpointJournal(grid.getCheckpointJournal());
+      worker.setPairSearchPool(pairSearchPool);
       workers.add(worker);
       tmp = new Thread(worker);
       // set the uncaught exception handler to this class to workers throwing exceptions can be
@@ -148,6 +156,10 @@ public class TransRefinementParallelExecutor<T> extends TransRefinementExecutorI
     } catch (InterruptedException e) {
       cancel();
       Log.msg(Log.LogType.MANDATORY, e.getMessage());
+    } finally {
+      // workers may still be searching after a cancel, let them finish before the pool stops
+      if (pairSearchPool != null)
+        pairSearchPool.shutdown();
     }
   }
 
@@ -15,7 +15,9 @@ import gov.nist.isg.mist.lib.common.CorrelationTriple;
 import gov.nist.isg.mist.lib.imagetile.ImageTile;
 import gov.nist.isg.mist.lib.imagetile.Stitching;
 import gov.nist.isg.mist.lib.log.Log;
+import gov.nist.isg.mist.lib.tilegrid.CheckpointJournal;
 import gov.nist.isg.mist.lib.tilegrid.TileGrid;
+import gov.nist.isg.mist.lib.tilegrid.TileGrid.Direction;
 import gov.nist.isg.mist.lib.tilegrid.traverser.TileGridTraverser;
 import gov.nist.isg.mist.lib.tilegrid.traverser.TileGridTraverserFactory;
 import gov.nist.isg.mist.optimization.model.TranslationFilter;
@@ -59,6 +61,8 @@ public class TransRefinementSequentialExecutor<T> extends TransRefinementExecuto
     TileGridTraverser<ImageTile<T>> traverser =
         TileGridTraverserFactory.makeTraverser(TileGridTraverser.Traversals.DIAGONAL, this.grid);
 
+    CheckpointJournal journal = this.grid.getCheckpointJournal();
+
     // loop over the image tiles
     for (ImageTile<T> t : traverser) {
       if (this.isCancelled) return;
@@ -82,21 +86,29 @@ public class TransRefinementSequentialExecutor<T> extends TransRefinementExecuto
 
           double oldCorr = westTrans.getCorrelation();
           CorrelationTriple bestWest = null;
-
-          switch (params.getAdvancedParams().getTranslationRefinementType()) {
-            case SINGLE_HILL_CLIMB:
-              bestWest = Stitching.computeCCF_HillClimbing(xMin, xMax, yMin, yMax, westTrans.getX(),
-                  westTrans.getY(), west, t);
-              break;
-            case MULTI_POINT_HILL_CLIMB:
-              bestWest = Stitching.computeCCF_MultiPoint_HillClimbing(xMin, xMax, yMin, yMax,
-                  westTrans.getX(), westTrans.getY(), params.getAdvancedParams()
-                      .getNumTranslationRefinementStartPoints(), west, t);
-              break;
-            case EXHAUSTIVE:
-              bestWest = Stitching.computeCCF_Exhaustive(xMin, xMax, yMin, yMax, westTrans.getX(),
-                  westTrans.getY(), west, t);
-              break;
+          if (journal != null)
+            bestWest = journal.getRefinedTranslation(t, Direction.West);
+
+          // only search the pairs that were not restored from the checkpoint journal
+          if (bestWest == null) {
+            switch (params.getAdvancedParams().getTranslationRefinementType()) {
+              case SINGLE_HILL_CLIMB:
+                bestWest = Stitching.computeCCF_HillClimbing(xMin, xMax, yMin, yMax, westTrans.getX(),
+                    westTrans.getY(), west, t);
+                break;
+              case MULTI_POINT_HILL_CLIMB:
+                bestWest = Stitching.computeCCF_MultiPoint_HillClimbing(xMin, xMax, yMin, yMax,
+                    westTrans.getX(), westTrans.getY(), params.getAdvancedParams()
+                        .getNumTranslationRefinementStartPoints(), west, t);
+                break;
+              case EXHAUSTIVE:
+                bestWest = Stitching.computeCCF_Exhaustive(xMin, xMax, yMin, yMax, westTrans.getX(),
+                    westTrans.getY(), west, t);
+                break;
+            }
+
+            if (journal != null)
+              journal.recordRefined(t, west, Direction.West, bestWest);
           }
 
           t.setWestTranslation(bestWest);
@@ -137,21 +149,29 @@ public class TransRefinementSequentialExecutor<T> extends TransRefinementExecuto
 
           double oldCorr = northTrans.getCorrelation();
           CorrelationTriple bestNorth = null;
-
-          switch (params.getAdvancedParams().getTranslationRefinementType()) {
-            case SINGLE_HILL_CLIMB:
-              bestNorth = Stitching.computeCCF_HillClimbing(xMin, xMax, yMin, yMax, northTrans
-                  .getX(), northTrans.getY(), north, t);
-              break;
-            case MULTI_POINT_HILL_CLIMB:
-              bestNorth = Stitching.computeCCF_MultiPoint_HillClimbing(xMin, xMax, yMin, yMax,
-                  northTrans.getX(), northTrans.getY(), params.getAdvancedParams()
-                      .getNumTranslationRefinementStartPoints(), north, t);
-              break;
-            case EXHAUSTIVE:
-              bestNorth = Stitching.computeCCF_Exhaustive(xMin, xMax, yMin, yMax, northTrans.getX(),
-                  northTrans.getY(), north, t);
-              break;
+          if (journal != null)
+            bestNorth = journal.getRefinedTranslation(t, Direction.North);
+
+          // only search the pairs that were not restored from the checkpoint journal
+          if (bestNorth == null) {
+            switch (params.getAdvancedParams().getTranslationRefinementType()) {
+              case SINGLE_HILL_CLIMB:
+                bestNorth = Stitching.computeCCF_HillClimbing(xMin, xMax, yMin, yMax, northTrans
+                    .getX(), northTrans.getY(), north, t);
+                break;
+              case MULTI_POINT_HILL_CLIMB:
+                bestNorth = Stitching.computeCCF_MultiPoint_HillClimbing(xMin, xMax, yMin, yMax,
+                    northTrans.getX(), northTrans.getY(), params.getAdvancedParams()
+                        .getNumTranslationRefinementStartPoints(), north, t);
+                break;
+              case EXHAUSTIVE:
+                bestNorth = Stitching.computeCCF_Exhaustive(xMin, xMax, yMin, yMax, northTrans.getX(),
+                    northTrans.getY(), north, t);
+                break;
+            }
+
+            if (journal != null)
+              journal.recordRefined(t, north, Direction.North, bestNorth);
           }
 
           t.setNorthTranslation(bestNorth);
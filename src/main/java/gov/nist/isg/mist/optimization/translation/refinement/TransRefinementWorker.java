@@ -8,6 +8,7 @@
 package gov.nist.isg.mist.optimization.translation.refinement;
 
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ForkJoinPool;
 
 import javax.swing.JProgressBar;
 
@@ -17,6 +18,8 @@ import gov.nist.isg.mist.lib.imagetile.ImageTile;
 import gov.nist.isg.mist.lib.imagetile.Stitching;
 import gov.nist.isg.mist.lib.imagetile.Stitching.TranslationRefinementType;
 import gov.nist.isg.mist.lib.log.Log;
+import gov.nist.isg.mist.lib.tilegrid.CheckpointJournal;
+import gov.nist.isg.mist.lib.tilegrid.TileGrid.Direction;
 import gov.nist.isg.mist.optimization.model.TranslationFilter;
 import gov.nist.isg.mist.optimization.workflow.data.OptimizationData;
 
@@ -36,6 +39,8 @@ public class TransRefinementWorker<T> implements Runnable {
   private static boolean bkDone = false;
   private TranslationRefinementType translationRefinementType;
   private int numHillClimbStartPoints;
+  private CheckpointJournal journal;
+  private ForkJoinPool pairSearchPool = null;
 
   /**
    * Creates an optimization repeatability worker for executing a cross correlation search.
@@ -87,20 +92,37 @@ public class TransRefinementWorker<T> implements Runnable {
 
             double oldCorr = northTrans.getCorrelation();
             CorrelationTriple bestNorth = null;
-
-            switch (translationRefinementType) {
-              case SINGLE_HILL_CLIMB:
-                bestNorth = Stitching.computeCCF_HillClimbing(xMin, xMax, yMin, yMax, northTrans
-                    .getX(), northTrans.getY(), neighbor, tile);
-                break;
-              case MULTI_POINT_HILL_CLIMB:
-                bestNorth = Stitching.computeCCF_MultiPoint_HillClimbing(xMin, xMax, yMin, yMax,
-                    northTrans.getX(), northTrans.getY(), numHillClimbStartPoints, neighbor, tile);
-                break;
-              case EXHAUSTIVE:
-                bestNorth = Stitching.computeCCF_Exhaustive(xMin, xMax, yMin, yMax, northTrans.getX(),
-                    northTrans.getY(), neighbor, tile);
-                break;
+            if (this.journal != null)
+              bestNorth = this.journal.getRefinedTranslation(tile, Direction.North);
+
+            // only search the pairs that were not restored from the checkpoint journal
+            if (bestNorth == null) {
+              switch (translationRefinementType) {
+                case SINGLE_HILL_CLIMB:
+                  bestNorth = Stitching.computeCCF_HillClimbing(xMin, xMax, yMin, yMax, northTrans
+                      .getX(), northTrans.getY(), neighbor, tile);
+                  break;
+                case MULTI_POINT_HILL_CLIMB:
+                  if (this.pairSearchPool != null)
+                    bestNorth = Stitching.computeCCF_MultiPoint_HillClimbingParallel(xMin, xMax, yMin,
+                        yMax, northTrans.getX(), northTrans.getY(), numHillClimbStartPoints, neighbor, tile,
+                        this.pairSearchPool);
+                  else
+                    bestNorth = Stitching.computeCCF_MultiPoint_HillClimbing(xMin, xMax, yMin, yMax,
+                        northTrans.getX(), northTrans.getY(), numHillClimbStartPoints, neighbor, tile);
+                  break;
+                case EXHAUSTIVE:
+                  if (this.pairSearchPool != null)
+                    bestNorth = Stitching.computeCCF_ExhaustiveParallel(xMin, xMax, yMin, yMax,
+                        northTrans.getX(), northTrans.getY(), neighbor, tile, this.pairSearchPool);
+                  else
+                    bestNorth = Stitching.computeCCF_Exhaustive(xMin, xMax, yMin, yMax, northTrans.getX(),
+                        northTrans.getY(), neighbor, tile);
+                  break;
+              }
+
+              if (this.journal != null)
+                this.journal.recordRefined(tile, neighbor, Direction.North, bestNorth);
             }
 
             tile.setNorthTranslation(bestNorth);
@@ -135,20 +157,37 @@ public class TransRefinementWorker<T> implements Runnable {
 
             double oldCorr = westTrans.getCorrelation();
             CorrelationTriple bestWest = null;
-
-            switch (translationRefinementType) {
-              case SINGLE_HILL_CLIMB:
-                bestWest = Stitching.computeCCF_HillClimbing(xMin, xMax, yMin, yMax, westTrans.getX(),
-                    westTrans.getY(), neighbor, tile);
-                break;
-              case MULTI_POINT_HILL_CLIMB:
-                bestWest = Stitching.computeCCF_MultiPoint_HillClimbing(xMin, xMax, yMin, yMax,
-                    westTrans.getX(), westTrans.getY(), numHillClimbStartPoints, neighbor, tile);
-                break;
-              case EXHAUSTIVE:
-                bestWest = Stitching.computeCCF_Exhaustive(xMin, xMax, yMin, yMax, westTrans.getX(),
-                    westTrans.getY(), neighbor, tile);
-                break;
+            if (this.journal != null)
+              bestWest = this.journal.getRefinedTranslation(tile, Direction.West);
+
+            // only search the pairs that were not restored from the checkpoint journal
+            if (bestWest == null) {
+              switch (translationRefinementType) {
+                case SINGLE_HILL_CLIMB:
+                  bestWest = Stitching.computeCCF_HillClimbing(xMin, xMax, yMin, yMax, westTrans.getX(),
+                      westTrans.getY(), neighbor, tile);
+                  break;
+                case MULTI_POINT_HILL_CLIMB:
+                  if (this.pairSearchPool != null)
+                    bestWest = Stitching.computeCCF_MultiPoint_HillClimbingParallel(xMin, xMax, yMin,
+                        yMax, westTrans.getX(), westTrans.getY(), numHillClimbStartPoints, neighbor, tile,
+                        this.pairSearchPool);
+                  else
+                    bestWest = Stitching.computeCCF_MultiPoint_HillClimbing(xMin, xMax, yMin, yMax,
+                        westTrans.getX(), westTrans.getY(), numHillClimbStartPoints, neighbor, tile);
+                  break;
+                case EXHAUSTIVE:
+                  if (this.pairSearchPool != null)
+                    bestWest = Stitching.computeCCF_ExhaustiveParallel(xMin, xMax, yMin, yMax,
+                        westTrans.getX(), westTrans.getY(), neighbor, tile, this.pairSearchPool);
+                  else
+                    bestWest = Stitching.computeCCF_Exhaustive(xMin, xMax, yMin, yMax, westTrans.getX(),
+                        westTrans.getY(), neighbor, tile);
+                  break;
+              }
+
+              if (this.journal != null)
+                this.journal.recordRefined(tile, neighbor, Direction.West, bestWest);
             }
 
             tile.setWestTranslation(bestWest);
@@ -185,6 +224,26 @@ public class TransRefinementWorker<T> implements Runnable {
   }
 
 
+  /**
+   * Sets the checkpoint journal refined translations are recorded in and restored from.
+   *
+   * @param journal the checkpoint journal, or null to disable journaling
+   */
+  public void setCheckpointJournal(CheckpointJournal journal) {
+    this.journal = journal;
+  }
+
+  /**
+   * Sets the fork-join pool that pairs with a large search window are refined in parallel on.
+   * Pairs with a small window are always refined on this worker's thread.
+   *
+   * @param pairSearchPool the pool to split large searches across, or null to refine every pair
+   *                       on this worker's thread
+   */
+  public void setPairSearchPool(ForkJoinPool pairSearchPool) {
+    this.pairSearchPool = pairSearchPool;
+  }
+
   public void cancelExecution() {
     this.isCancelled = true;
     this.tiles.add(new OptimizationData<T>(null, null, OptimizationData.TaskType.CANCELLED));
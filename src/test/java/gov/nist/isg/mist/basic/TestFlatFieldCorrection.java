@@ -0,0 +1,216 @@
+// NIST-developed software is provided by NIST as a public service. You may use, copy and distribute copies of the software in any medium, provided that you keep intact this entire notice. You may improve, modify and create derivative works of the software or any portion of the software, and you may copy and distribute such modifications or works. Modified works should carry a notice stating that you changed the software and should note the date and nature of any such change. Please explicitly acknowledge the National Institute of Standards and Technology as the source of the software.
+
+// NIST-developed software is expressly provided "AS IS." NIST MAKES NO WARRANTY OF ANY KIND, EXPRESS, IMPLIED, IN FACT OR ARISING BY OPERATION OF LAW, INCLUDING, WITHOUT LIMITATION, THE IMPLIED WARRANTY OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE, NON-INFRINGEMENT AND DATA ACCURACY. NIST NEITHER REPRESENTS NOR WARRANTS THAT THE OPERATION OF THE SOFTWARE WILL BE UNINTERRUPTED OR ERROR-FREE, OR THAT ANY DEFECTS WILL BE CORRECTED. NIST DOES NOT WARRANT OR MAKE ANY REPRESENTATIONS REGARDING THE USE OF THE SOFTWARE OR THE RESULTS THEREOF, INCLUDING BUT NOT LIMITED TO THE CORRECTNESS, ACCURACY, RELIABILITY, OR USEFULNESS OF THE SOFTWARE.
+
+// You are solely responsible for determining the appropriateness of using and distributing the software and you assume all risks associated with its use, including but not limited to the risks and costs of program errors, compliance with applicable laws, damage to or loss of data, programs or equipment, and the unavailability or interruption of operation. This software is not intended to be used in any situation where a failure could cause risk of injury or damage to property. The software developed by NIST employees is not subject to copyright protection within the United States.
+
+
+
+// ================================================================
+//
+// Author: tjb3
+// Date: Oct 19, 2026 10:12:41 AM EST
+//
+// Time-stamp: <Oct 19, 2026 10:12:41 AM tjb3>
+//
+//
+// ================================================================
+
+
+package gov.nist.isg.mist.basic;
+
+import java.io.File;
+
+import gov.nist.isg.mist.lib.imagetile.FlatFieldCorrection;
+import gov.nist.isg.mist.lib.log.Log;
+import gov.nist.isg.mist.lib.log.Log.LogType;
+import ij.ImagePlus;
+import ij.io.FileSaver;
+import ij.process.ByteProcessor;
+import ij.process.ColorProcessor;
+import ij.process.FloatProcessor;
+import ij.process.ImageProcessor;
+import ij.process.ShortProcessor;
+
+/**
+ * Tests the flat-field, dark-field and background correction on 8-bit, 16-bit, float and RGB
+ * tiles. Each tile is built from a known scene, so the corrected pixels are known exactly. RGB
+ * channels use different scene intensities to check that they are corrected independently.
+ *
+ * @author Tim Blattner
+ * @version 1.0
+ */
+public class TestFlatFieldCorrection {
+
+  private static final int Width = 64;
+  private static final int Height = 48;
+  private static final float Dark = 10f;
+  private static final float Background = 20f;
+  private static final float[] ChannelScales = {0.5f, 1.0f, 1.5f};
+  private static final String[] Types = {"8-bit", "16-bit", "float", "RGB"};
+
+  enum Correction {
+    FLAT, DARK, FLAT_DARK, BACKGROUND
+  }
+
+  private static float flat(int i) {
+    return 60f + 60f * (i % Width) / (Width - 1);
+  }
+
+  private static float meanFlat(float dark) {
+    double sum = 0.0;
+    for (int i = 0; i < Width * Height; i++)
+      sum += flat(i) - dark;
+    return (float) (sum / (Width * Height));
+  }
+
+  /**
+   * Computes the raw value of pixel i for a scene intensity s
+   */
+  private static float raw(Correction correction, int i, float s) {
+    switch (correction) {
+      case FLAT:
+        return flat(i) * s;
+      case DARK:
+        return Dark + 50f * s;
+      case FLAT_DARK:
+        return Dark + (flat(i) - Dark) * s;
+      default:
+        // a dim background with a bright band on the left
+        return Background * s + (i % Width < 8 ? 100f : 0f);
+    }
+  }
+
+  /**
+   * Computes the corrected value of pixel i for a scene intensity s
+   */
+  private static float expected(Correction correction, int i, float s) {
+    switch (correction) {
+      case FLAT:
+        return meanFlat(0f) * s;
+      case DARK:
+        return 50f * s;
+      case FLAT_DARK:
+        return meanFlat(Dark) * s;
+      default:
+        return raw(correction, i, s) - Background * s;
+    }
+  }
+
+  private static float[] channel(Correction correction, float s, boolean expected) {
+    float[] pixels = new float[Width * Height];
+    for (int i = 0; i < pixels.length; i++)
+      pixels[i] = expected ? expected(correction, i, s) : raw(correction, i, s);
+    return pixels;
+  }
+
+  private static ImageProcessor makeTile(String type, Correction correction) {
+    if (type.equals("RGB")) {
+      ColorProcessor ip = new ColorProcessor(Width, Height);
+      for (int c = 0; c < ChannelScales.length; c++)
+        ip.setPixels(c, new FloatProcessor(Width, Height,
+            channel(correction, ChannelScales[c], false)));
+      return ip;
+    }
+
+    float[] pixels = channel(correction, 1.0f, false);
+    if (type.equals("float"))
+      return new FloatProcessor(Width, Height, pixels);
+
+    ImageProcessor ip = type.equals("8-bit") ? new ByteProcessor(Width, Height)
+        : new ShortProcessor(Width, Height);
+    for (int i = 0; i < pixels.length; i++)
+      ip.setf(i, Math.round(pixels[i]));
+    return ip;
+  }
+
+  /**
+   * @return the largest difference between the corrected tile and the expected pixels
+   */
+  private static float maxError(String type, ImageProcessor ip, Correction correction) {
+    float error = 0f;
+    if (type.equals("RGB")) {
+      for (int c = 0; c < ChannelScales.length; c++) {
+        FloatProcessor actual = ip.toFloat(c, null);
+        float[] expected = channel(correction, ChannelScales[c], true);
+        for (int i = 0; i < expected.length; i++)
+          error = Math.max(error, Math.abs(actual.getf(i) - expected[i]));
+      }
+      return error;
+    }
+
+    float[] expected = channel(correction, 1.0f, true);
+    for (int i = 0; i < expected.length; i++)
+      error = Math.max(error, Math.abs(ip.getf(i) - expected[i]));
+    return error;
+  }
+
+  /**
+   * Corrects a tile of every type with one correction configuration
+   *
+   * @param dir        the directory holding the flat-field and dark-field images
+   * @param correction the correction to apply
+   * @return true if every tile type is corrected to the expected pixels
+   */
+  public static boolean runTestCorrection(File dir, Correction correction) throws Exception {
+    String flatPath = new File(dir, "flat.tif").getAbsolutePath();
+    String darkPath = new File(dir, "dark.tif").getAbsolutePath();
+    boolean useFlat = correction == Correction.FLAT || correction == Correction.FLAT_DARK;
+    boolean useDark = correction == Correction.DARK || correction == Correction.FLAT_DARK;
+    FlatFieldCorrection.configure(useFlat ? flatPath : "", useDark ? darkPath : "",
+        correction == Correction.BACKGROUND);
+
+    boolean passed = true;
+    for (String type : Types) {
+      ImageProcessor ip = makeTile(type, correction);
+      FlatFieldCorrection.apply(ip);
+
+      // integer tiles are rounded once when built and once when corrected
+      float tolerance = type.equals("float") ? 1e-3f : 1.5f;
+      float error = maxError(type, ip, correction);
+      boolean typePassed = error <= tolerance;
+      Log.msg(LogType.INFO, correction + " " + type + ": max error " + error + " "
+          + (typePassed ? "PASSED" : "FAILED"));
+      passed &= typePassed;
+    }
+
+    FlatFieldCorrection.disable();
+    return passed;
+  }
+
+  /**
+   * Executes the test case
+   *
+   * @param args the directory to write the flat-field and dark-field images into (optional)
+   */
+  public static void main(String[] args) {
+    Log.setLogLevel(LogType.INFO);
+    Log.msg(LogType.MANDATORY, "Running Test Flat Field Correction");
+
+    boolean passed = true;
+    try {
+      File dir = new File(args.length > 0 ? args[0] : "flat-field-correction");
+      if (!dir.exists() && !dir.mkdirs())
+        throw new IllegalStateException("Unable to create " + dir.getAbsolutePath());
+
+      float[] flat = new float[Width * Height];
+      float[] dark = new float[Width * Height];
+      for (int i = 0; i < flat.length; i++) {
+        flat[i] = flat(i);
+        dark[i] = Dark;
+      }
+      new FileSaver(new ImagePlus("flat", new FloatProcessor(Width, Height, flat)))
+          .saveAsTiff(new File(dir, "flat.tif").getAbsolutePath());
+      new FileSaver(new ImagePlus("dark", new FloatProcessor(Width, Height, dark)))
+          .saveAsTiff(new File(dir, "dark.tif").getAbsolutePath());
+
+      for (Correction correction : Correction.values())
+        passed &= runTestCorrection(dir, correction);
+    } catch (Exception e) {
+      Log.msg(LogType.MANDATORY, "Flat field correction failed: " + e.getMessage());
+      passed = false;
+    }
+
+    Log.msg(LogType.MANDATORY, "Test Completed: " + (passed ? "PASSED" : "FAILED"));
+  }
+}
@@ -0,0 +1,123 @@
+// NIST-developed software is provided by NIST as a public service. You may use, copy and distribute copies of the software in any medium, provided that you keep intact this entire notice. You may improve, modify and create derivative works of the software or any portion of the software, and you may copy and distribute such modifications or works. Modified works should carry a notice stating that you changed the software and should note the date and nature of any such change. Please explicitly acknowledge the National Institute of Standards and Technology as the source of the software.
+
+// NIST-developed software is expressly provided "AS IS." NIST MAKES NO WARRANTY OF ANY KIND, EXPRESS, IMPLIED, IN FACT OR ARISING BY OPERATION OF LAW, INCLUDING, WITHOUT LIMITATION, THE IMPLIED WARRANTY OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE, NON-INFRINGEMENT AND DATA ACCURACY. NIST NEITHER REPRESENTS NOR WARRANTS THAT THE OPERATION OF THE SOFTWARE WILL BE UNINTERRUPTED OR ERROR-FREE, OR THAT ANY DEFECTS WILL BE CORRECTED. NIST DOES NOT WARRANT OR MAKE ANY REPRESENTATIONS REGARDING THE USE OF THE SOFTWARE OR THE RESULTS THEREOF, INCLUDING BUT NOT LIMITED TO THE CORRECTNESS, ACCURACY, RELIABILITY, OR USEFULNESS OF THE SOFTWARE.
+
+// You are solely responsible for determining the appropriateness of using and distributing the software and you assume all risks associated with its use, including but not limited to the risks and costs of program errors, compliance with applicable laws, damage to or loss of data, programs or equipment, and the unavailability or interruption of operation. This software is not intended to be used in any situation where a failure could cause risk of injury or damage to property. The software developed by NIST employees is not subject to copyright protection within the United States.
+
+
+
+package gov.nist.isg.mist.export;
+
+import java.io.File;
+import java.io.IOException;
+
+import gov.nist.isg.mist.lib.executor.LowResPreviewExecutor;
+import gov.nist.isg.mist.lib.imagetile.ImageTile;
+import gov.nist.isg.mist.lib.imagetile.java.JavaImageTile;
+import gov.nist.isg.mist.lib.log.Log;
+import gov.nist.isg.mist.lib.log.Log.LogType;
+import gov.nist.isg.mist.lib.tilegrid.TileGrid;
+import gov.nist.isg.mist.lib.tilegrid.loader.RowColTileGridLoader;
+import gov.nist.isg.mist.lib.tilegrid.loader.TileGridLoader;
+import gov.nist.isg.mist.lib.tilegrid.loader.TileGridLoader.GridOrigin;
+import gov.nist.isg.mist.stitchingruntime.SyntheticGridGenerator;
+import ij.ImagePlus;
+import ij.process.ImageProcessor;
+
+/**
+ * Test case for the low resolution preview. A synthetic grid with one missing tile is previewed
+ * at downsample factors that divide the tile size, so every preview pixel must equal the full
+ * resolution pixel it samples whichever decode path is chosen, and the cell of the missing tile
+ * must be empty.
+ *
+ * @author Michael Majurski
+ */
+public class TestLowResPreview {
+
+  private static final int GridWidth = 4;
+  private static final int GridHeight = 3;
+  private static final int MissingRow = 1;
+  private static final int MissingCol = 2;
+
+  /**
+   * Assembles the preview and compares it against the full resolution tiles
+   *
+   * @param dir        the directory the synthetic grid is written to
+   * @param downsample the downsample factor, must divide the tile width and height
+   * @return true if the preview matches the sampled tiles
+   */
+  public static boolean runTestPreview(File dir, int downsample) throws IOException {
+    SyntheticGridGenerator generator = new SyntheticGridGenerator()
+        .gridSize(GridWidth, GridHeight).tileSize(128, 96).bitDepth(16).overlap(10)
+        .stageJitter(4).noise(0.05).seed(3);
+    generator.generate(dir);
+
+    File missing = new File(dir, String.format("img_r%03d_c%03d.tif", MissingRow, MissingCol));
+    if (missing.exists() && !missing.delete())
+      throw new IOException("Unable to delete " + missing.getAbsolutePath());
+
+    TileGridLoader loader = new RowColTileGridLoader(GridWidth, GridHeight, 0, 0, 0,
+        SyntheticGridGenerator.FILENAME_PATTERN, GridOrigin.UL);
+    TileGrid<ImageTile<float[][]>> grid = new TileGrid<ImageTile<float[][]>>(0, 0, GridWidth,
+        GridHeight, loader, dir, JavaImageTile.class);
+
+    ImagePlus preview = new LowResPreviewExecutor<float[][]>(grid, downsample, 3).assemble(null);
+    if (preview == null) {
+      Log.msg(LogType.MANDATORY, "No preview was assembled");
+      return false;
+    }
+
+    int cellWidth = 128 / downsample;
+    int cellHeight = 96 / downsample;
+    ImageProcessor ip = preview.getProcessor();
+    if (ip.getWidth() != GridWidth * cellWidth || ip.getHeight() != GridHeight * cellHeight) {
+      Log.msg(LogType.MANDATORY, "Preview is " + ip.getWidth() + "x" + ip.getHeight()
+          + ", expected " + (GridWidth * cellWidth) + "x" + (GridHeight * cellHeight));
+      return false;
+    }
+
+    int mismatches = 0;
+    for (int r = 0; r < GridHeight; r++) {
+      for (int c = 0; c < GridWidth; c++) {
+        ImageProcessor full = null;
+        if (r != MissingRow || c != MissingCol)
+          full = grid.getSubGridTile(r, c).getImagePlus().getProcessor();
+
+        for (int y = 0; y < cellHeight; y++) {
+          for (int x = 0; x < cellWidth; x++) {
+            int expected = full == null ? 0 : full.get(x * downsample, y * downsample);
+            if (ip.get(c * cellWidth + x, r * cellHeight + y) != expected)
+              mismatches++;
+          }
+        }
+      }
+    }
+
+    Log.msg(LogType.MANDATORY, "Preview 1:" + downsample + ": "
+        + (mismatches == 0 ? "PASSED" : mismatches + " mismatched pixels"));
+    return mismatches == 0;
+  }
+
+  /**
+   * Executes the test case
+   *
+   * @param args the directory to write the synthetic grid into (optional)
+   */
+  public static void main(String[] args) {
+    Log.setLogLevel(LogType.INFO);
+    Log.msg(LogType.MANDATORY, "Running Test Low Resolution Preview");
+
+    File dir = new File(args.length > 0 ? args[0] : "low-res-preview-grid");
+    boolean passed = true;
+    try {
+      passed &= runTestPreview(dir, 1);
+      passed &= runTestPreview(dir, 8);
+      passed &= runTestPreview(dir, 16);
+    } catch (IOException e) {
+      Log.msg(LogType.MANDATORY, "Unable to assemble the preview: " + e.getMessage());
+      passed = false;
+    }
+
+    Log.msg(LogType.MANDATORY, "Test Completed: " + (passed ? "PASSED" : "FAILED"));
+  }
+}
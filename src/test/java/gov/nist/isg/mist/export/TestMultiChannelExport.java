@@ -0,0 +1,203 @@
+// NIST-developed software is provided by NIST as a public service. You may use, copy and distribute copies of the software in any medium, provided that you keep intact this entire notice. You may improve, modify and create derivative works of the software or any portion of the software, and you may copy and distribute such modifications or works. Modified works should carry a notice stating that you changed the software and should note the date and nature of any such change. Please explicitly acknowledge the National Institute of Standards and Technology as the source of the software.
+
+// NIST-developed software is expressly provided "AS IS." NIST MAKES NO WARRANTY OF ANY KIND, EXPRESS, IMPLIED, IN FACT OR ARISING BY OPERATION OF LAW, INCLUDING, WITHOUT LIMITATION, THE IMPLIED WARRANTY OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE, NON-INFRINGEMENT AND DATA ACCURACY. NIST NEITHER REPRESENTS NOR WARRANTS THAT THE OPERATION OF THE SOFTWARE WILL BE UNINTERRUPTED OR ERROR-FREE, OR THAT ANY DEFECTS WILL BE CORRECTED. NIST DOES NOT WARRANT OR MAKE ANY REPRESENTATIONS REGARDING THE USE OF THE SOFTWARE OR THE RESULTS THEREOF, INCLUDING BUT NOT LIMITED TO THE CORRECTNESS, ACCURACY, RELIABILITY, OR USEFULNESS OF THE SOFTWARE.
+
+// You are solely responsible for determining the appropriateness of using and distributing the software and you assume all risks associated with its use, including but not limited to the risks and costs of program errors, compliance with applicable laws, damage to or loss of data, programs or equipment, and the unavailability or interruption of operation. This software is not intended to be used in any situation where a failure could cause risk of injury or damage to property. The software developed by NIST employees is not subject to copyright protection within the United States.
+
+
+
+// ================================================================
+//
+// Author: tjb3
+// Date: Oct 20, 2026 11:32:09 AM EST
+//
+// Time-stamp: <Oct 20, 2026 11:32:09 AM tjb3>
+//
+//
+// ================================================================
+
+package gov.nist.isg.mist.export;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import gov.nist.isg.mist.gui.params.StitchingAppParams;
+import gov.nist.isg.mist.lib.export.BlendingMode;
+import gov.nist.isg.mist.lib.export.CompressionMode;
+import gov.nist.isg.mist.lib.export.LargeImageExporter;
+import gov.nist.isg.mist.lib.export.MicroscopyUnits;
+import gov.nist.isg.mist.lib.export.MultiChannelImageExporter;
+import gov.nist.isg.mist.lib.imagetile.ImageTile;
+import gov.nist.isg.mist.lib.imagetile.java.JavaImageTile;
+import gov.nist.isg.mist.lib.log.Log;
+import gov.nist.isg.mist.lib.log.Log.LogType;
+import gov.nist.isg.mist.lib.tilegrid.TileGrid;
+import gov.nist.isg.mist.lib.tilegrid.TileGridUtils;
+import gov.nist.isg.mist.lib.tilegrid.loader.TileGridLoader.GridOrigin;
+import gov.nist.isg.mist.lib.tilegrid.loader.TileGridLoader.LoaderType;
+import gov.nist.isg.mist.stitchingruntime.SyntheticGridGenerator;
+import ij.ImagePlus;
+import ij.ImageStack;
+import ij.io.FileSaver;
+import ij.io.Opener;
+import ij.process.ImageProcessor;
+import ij.process.ShortProcessor;
+import loci.formats.FormatException;
+import loci.plugins.BF;
+
+/**
+ * Test case for the multi-channel export. A second channel whose pixels are half of the reference
+ * channel is written next to a synthetic grid, the channel grids are built from their own
+ * filename patterns without changing the stitching parameters, and both planes of the exported
+ * OME-TIFF are compared with a single channel export of the reference grid.
+ *
+ * @author Tim Blattner
+ * @version 1.0
+ */
+public class TestMultiChannelExport {
+
+  private static final int GridSize = 3;
+  private static final String ChannelPattern = "ch2_r{rrr}_c{ccc}.tif";
+
+  /**
+   * Exports two channels and compares the planes
+   *
+   * @param dir the directory the synthetic grid and the exported images are written to
+   * @return true if both planes match the expected images
+   */
+  public static boolean runTestTwoChannelExport(File dir) throws IOException, FormatException {
+    SyntheticGridGenerator generator = new SyntheticGridGenerator().gridSize(GridSize, GridSize)
+        .tileSize(128, 96).bitDepth(16).overlap(20).stageJitter(6).noise(0.05).seed(23);
+    generator.generate(dir);
+    writeHalfChannel(dir);
+
+    StitchingAppParams params = new StitchingAppParams();
+    params.getInputParams().setImageDir(dir.getAbsolutePath());
+    params.getInputParams().setFilenamePattern(SyntheticGridGenerator.FILENAME_PATTERN);
+    params.getInputParams().setFilenamePatternLoaderType(LoaderType.ROWCOL);
+    params.getInputParams().setOrigin(GridOrigin.UL);
+    params.getInputParams().setGridWidth(GridSize);
+    params.getInputParams().setGridHeight(GridSize);
+    params.getInputParams().setExtentWidth(GridSize);
+    params.getInputParams().setExtentHeight(GridSize);
+
+    TileGrid<ImageTile<float[][]>> grid = new TileGrid<ImageTile<float[][]>>(0, 0, GridSize,
+        GridSize, params.getInputParams().getTileGridLoader(), dir, JavaImageTile.class);
+    TileGrid<ImageTile<float[][]>> channelGrid = new TileGrid<ImageTile<float[][]>>(0, 0,
+        GridSize, GridSize, params.getInputParams().getTileGridLoader(ChannelPattern), dir,
+        JavaImageTile.class);
+
+    boolean passed = true;
+    if (!SyntheticGridGenerator.FILENAME_PATTERN.equals(params.getInputParams().getFilenamePattern())) {
+      Log.msg(LogType.MANDATORY, "Building the channel loader changed the filename pattern to "
+          + params.getInputParams().getFilenamePattern());
+      passed = false;
+    }
+
+    for (int r = 0; r < GridSize; r++) {
+      for (int c = 0; c < GridSize; c++) {
+        ImageTile<float[][]> tile = grid.getSubGridTile(r, c);
+        tile.setAbsXPos(generator.getPositionX(r, c));
+        tile.setAbsYPos(generator.getPositionY(r, c));
+        tile.setTileCorrelation(0.5 + 0.05 * ((r * GridSize + c * 5) % (GridSize * GridSize)));
+      }
+    }
+    MultiChannelImageExporter.applyPositions(grid, channelGrid);
+
+    grid.getTileThatExists().readTile();
+    int width = TileGridUtils.getFullImageWidth(grid, grid.getTileThatExists().getWidth());
+    int height = TileGridUtils.getFullImageHeight(grid, grid.getTileThatExists().getHeight());
+
+    File singleFile = new File(dir, "reference-overlay.ome.tif");
+    LargeImageExporter.exportImage(grid, 64, ImagePlus.GRAY16, 0, 0, width, height,
+        BlendingMode.OVERLAY, CompressionMode.UNCOMPRESSED, Double.NaN,
+        MicroscopyUnits.MICROMETER, 1.0, 1.0, singleFile);
+    ImageProcessor single = BF.openImagePlus(singleFile.getAbsolutePath())[0].getProcessor();
+
+    List<TileGrid<ImageTile<float[][]>>> channelGrids = new ArrayList<TileGrid<ImageTile<float[][]>>>();
+    List<String> channelNames = new ArrayList<String>();
+    channelGrids.add(grid);
+    channelNames.add(SyntheticGridGenerator.FILENAME_PATTERN);
+    channelGrids.add(channelGrid);
+    channelNames.add(ChannelPattern);
+
+    File multiFile = new File(dir, "two-channel-overlay.ome.tif");
+    new MultiChannelImageExporter<float[][]>(grid, channelGrids, channelNames, 64,
+        ImagePlus.GRAY16, width, height, BlendingMode.OVERLAY, CompressionMode.ZLIB,
+        MicroscopyUnits.MICROMETER, 1.0, 1.0, Double.NaN, 3, null).exportImage(multiFile);
+    ImageStack planes = BF.openImagePlus(multiFile.getAbsolutePath())[0].getStack();
+
+    if (planes.getSize() != 2 || planes.getWidth() != width || planes.getHeight() != height) {
+      Log.msg(LogType.MANDATORY, "Exported " + planes.getSize() + " planes of "
+          + planes.getWidth() + "x" + planes.getHeight() + ", expected 2 planes of " + width
+          + "x" + height);
+      return false;
+    }
+
+    ImageProcessor reference = planes.getProcessor(1);
+    ImageProcessor half = planes.getProcessor(2);
+    int referenceMismatches = 0;
+    int channelMismatches = 0;
+    for (int y = 0; y < height; y++) {
+      for (int x = 0; x < width; x++) {
+        if (reference.get(x, y) != single.get(x, y))
+          referenceMismatches++;
+        if (half.get(x, y) != single.get(x, y) / 2)
+          channelMismatches++;
+      }
+    }
+
+    Log.msg(LogType.MANDATORY, "Reference plane: " + (referenceMismatches == 0 ? "PASSED"
+        : referenceMismatches + " mismatched pixels"));
+    Log.msg(LogType.MANDATORY, "Channel plane: " + (channelMismatches == 0 ? "PASSED"
+        : channelMismatches + " mismatched pixels"));
+    return passed && referenceMismatches == 0 && channelMismatches == 0;
+  }
+
+  /**
+   * Writes a second channel whose pixels are half of the synthetic tiles
+   */
+  private static void writeHalfChannel(File dir) throws IOException {
+    for (int r = 0; r < GridSize; r++) {
+      for (int c = 0; c < GridSize; c++) {
+        File src = new File(dir, String.format("img_r%03d_c%03d.tif", r, c));
+        ImagePlus image = new Opener().openImage(src.getAbsolutePath());
+        if (image == null)
+          throw new IOException("Unable to read " + src.getAbsolutePath());
+
+        ImageProcessor ip = image.getProcessor();
+        ShortProcessor halfIp = new ShortProcessor(ip.getWidth(), ip.getHeight());
+        for (int y = 0; y < ip.getHeight(); y++)
+          for (int x = 0; x < ip.getWidth(); x++)
+            halfIp.set(x, y, ip.get(x, y) / 2);
+
+        String name = String.format("ch2_r%03d_c%03d.tif", r, c);
+        new FileSaver(new ImagePlus(name, halfIp)).saveAsTiff(new File(dir, name).getAbsolutePath());
+      }
+    }
+  }
+
+  /**
+   * Executes the test case
+   *
+   * @param args the directory to write the synthetic grid into (optional)
+   */
+  public static void main(String[] args) {
+    Log.setLogLevel(LogType.INFO);
+    Log.msg(LogType.MANDATORY, "Running Test Multi-Channel Export");
+
+    File dir = new File(args.length > 0 ? args[0] : "multi-channel-grid");
+    boolean passed = false;
+    try {
+      passed = runTestTwoChannelExport(dir);
+    } catch (IOException e) {
+      Log.msg(LogType.MANDATORY, "Unable to write or read the test images: " + e.getMessage());
+    } catch (FormatException e) {
+      Log.msg(LogType.MANDATORY, "Unable to read an exported image: " + e.getMessage());
+    }
+
+    Log.msg(LogType.MANDATORY, "Test Completed: " + (passed ? "PASSED" : "FAILED"));
+  }
+}
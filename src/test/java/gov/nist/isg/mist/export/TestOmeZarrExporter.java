@@ -0,0 +1,338 @@
+// NIST-developed software is provided by NIST as a public service. You may use, copy and distribute copies of the software in any medium, provided that you keep intact this entire notice. You may improve, modify and create derivative works of the software or any portion of the software, and you may copy and distribute such modifications or works. Modified works should carry a notice stating that you changed the software and should note the date and nature of any such change. Please explicitly acknowledge the National Institute of Standards and Technology as the source of the software.
+
+// NIST-developed software is expressly provided "AS IS." NIST MAKES NO WARRANTY OF ANY KIND, EXPRESS, IMPLIED, IN FACT OR ARISING BY OPERATION OF LAW, INCLUDING, WITHOUT LIMITATION, THE IMPLIED WARRANTY OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE, NON-INFRINGEMENT AND DATA ACCURACY. NIST NEITHER REPRESENTS NOR WARRANTS THAT THE OPERATION OF THE SOFTWARE WILL BE UNINTERRUPTED OR ERROR-FREE, OR THAT ANY DEFECTS WILL BE CORRECTED. NIST DOES NOT WARRANT OR MAKE ANY REPRESENTATIONS REGARDING THE USE OF THE SOFTWARE OR THE RESULTS THEREOF, INCLUDING BUT NOT LIMITED TO THE CORRECTNESS, ACCURACY, RELIABILITY, OR USEFULNESS OF THE SOFTWARE.
+
+// You are solely responsible for determining the appropriateness of using and distributing the software and you assume all risks associated with its use, including but not limited to the risks and costs of program errors, compliance with applicable laws, damage to or loss of data, programs or equipment, and the unavailability or interruption of operation. This software is not intended to be used in any situation where a failure could cause risk of injury or damage to property. The software developed by NIST employees is not subject to copyright protection within the United States.
+
+
+
+// ================================================================
+//
+// Author: tjb3
+// Date: Oct 19, 2026 3:12:40 PM EST
+//
+// Time-stamp: <Oct 19, 2026 3:12:40 PM tjb3>
+//
+//
+// ================================================================
+
+package gov.nist.isg.mist.export;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InvalidClassException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import gov.nist.isg.mist.lib.export.BlendingMode;
+import gov.nist.isg.mist.lib.export.CompressionMode;
+import gov.nist.isg.mist.lib.export.LargeImageExporter;
+import gov.nist.isg.mist.lib.export.MicroscopyUnits;
+import gov.nist.isg.mist.lib.export.OmeZarrExporter;
+import gov.nist.isg.mist.lib.export.VirtualMosaic;
+import gov.nist.isg.mist.lib.imagetile.ImageTile;
+import gov.nist.isg.mist.lib.imagetile.java.JavaImageTile;
+import gov.nist.isg.mist.lib.log.Log;
+import gov.nist.isg.mist.lib.log.Log.LogType;
+import gov.nist.isg.mist.lib.tilegrid.TileGrid;
+import gov.nist.isg.mist.lib.tilegrid.loader.RowColTileGridLoader;
+import gov.nist.isg.mist.lib.tilegrid.loader.TileGridLoader;
+import gov.nist.isg.mist.lib.tilegrid.loader.TileGridLoader.GridOrigin;
+import gov.nist.isg.mist.stitchingruntime.SyntheticGridGenerator;
+import ij.ImagePlus;
+import ij.process.ImageProcessor;
+import loci.formats.FormatException;
+import loci.plugins.BF;
+
+/**
+ * Test case for the OME-Zarr exporter. A small synthetic grid whose mosaic is not a multiple of
+ * the chunk size is exported uncompressed and with zlib. The array metadata is checked, the full
+ * resolution chunks are compared pixel for pixel with the image exported by the
+ * LargeImageExporter, edge chunks must be zero padded, and the first downsampled level must be the
+ * 2x2 mean of the full resolution level.
+ *
+ * @author Tim Blattner
+ * @version 1.0
+ */
+public class TestOmeZarrExporter {
+
+  private static final int GridSize = 3;
+  private static final int TileDim = 64;
+  private static final double UnitX = 0.5;
+  private static final double UnitY = 0.25;
+
+  /**
+   * Exports the synthetic grid in each compression mode and validates the OME-Zarr output
+   *
+   * @param dir the directory the synthetic grid and the exported images are written to
+   * @return true if every check passed
+   */
+  public static boolean runTestExport(File dir)
+      throws IOException, FormatException, DataFormatException {
+    SyntheticGridGenerator generator = new SyntheticGridGenerator().gridSize(GridSize, GridSize)
+        .tileSize(128, 96).bitDepth(16).overlap(20).stageJitter(6).noise(0.05).seed(23);
+    generator.generate(dir);
+
+    TileGrid<ImageTile<float[][]>> grid = makeGrid(generator, dir);
+
+    // odd sizes are never a multiple of the chunk size and leave odd edges when downsampling
+    VirtualMosaic<float[][]> mosaic = new VirtualMosaic<float[][]>(grid, GridSize * GridSize);
+    int width = mosaic.getWidth() - (mosaic.getWidth() % 2 == 0 ? 1 : 0);
+    int height = mosaic.getHeight() - (mosaic.getHeight() % 2 == 0 ? 1 : 0);
+
+    File exportFile = new File(dir, "reference.ome.tif");
+    LargeImageExporter.exportImage(grid, TileDim, ImagePlus.GRAY16, 0, 0, width, height,
+        BlendingMode.OVERLAY, CompressionMode.UNCOMPRESSED, Double.NaN,
+        MicroscopyUnits.MICROMETER, 1.0, 1.0, exportFile);
+    ImageProcessor reference = BF.openImagePlus(exportFile.getAbsolutePath())[0].getProcessor();
+
+    boolean passed = reference.getWidth() == width && reference.getHeight() == height;
+    if (!passed)
+      Log.msg(LogType.MANDATORY, "Reference image is " + reference.getWidth() + "x"
+          + reference.getHeight() + ", expected " + width + "x" + height);
+
+    for (CompressionMode mode : new CompressionMode[]{CompressionMode.UNCOMPRESSED,
+        CompressionMode.ZLIB}) {
+      Log.msg(LogType.MANDATORY, "Exporting " + width + "x" + height + " OME-Zarr with " + mode);
+
+      File zarrDir = new File(dir, "mosaic-" + mode.name().toLowerCase() + ".ome.zarr");
+      new OmeZarrExporter<float[][]>(grid, TileDim, ImagePlus.GRAY16, width, height,
+          BlendingMode.OVERLAY, mode, MicroscopyUnits.MICROMETER, UnitX, UnitY, Double.NaN, 2,
+          null).exportImage(zarrDir);
+
+      boolean compressed = mode != CompressionMode.UNCOMPRESSED;
+      passed &= checkMetadata(zarrDir, width, height, compressed);
+
+      int[][] level0 = readLevel(zarrDir, 0, width, height, compressed);
+      int[][] level1 = readLevel(zarrDir, 1, (width + 1) / 2, (height + 1) / 2, compressed);
+      if (level0 == null || level1 == null) {
+        passed = false;
+        continue;
+      }
+
+      passed &= compareLevel0(level0, reference);
+      passed &= compareLevel1(level1, level0);
+    }
+
+    return passed;
+  }
+
+  /**
+   * Checks the shape, chunks, dtype and compressor of the first two levels, and the scale of
+   * each of them in the multiscales metadata
+   */
+  private static boolean checkMetadata(File zarrDir, int width, int height, boolean compressed)
+      throws IOException {
+    boolean passed = true;
+    String compressor = compressed ? "\"compressor\":{\"id\":\"zlib\",\"level\":5}"
+        : "\"compressor\":null";
+
+    for (int level = 0; level < 2; level++) {
+      int levelWidth = (width + (1 << level) - 1) >> level;
+      int levelHeight = (height + (1 << level) - 1) >> level;
+      String array = readJson(new File(new File(zarrDir, Integer.toString(level)), ".zarray"));
+
+      String[] expected = {
+          "\"shape\":[1," + levelHeight + "," + levelWidth + "]",
+          "\"chunks\":[1," + TileDim + "," + TileDim + "]",
+          "\"dtype\":\">u2\"",
+          compressor
+      };
+      for (String entry : expected) {
+        if (!array.contains(entry)) {
+          Log.msg(LogType.MANDATORY, "Level " + level + " .zarray is missing " + entry);
+          passed = false;
+        }
+      }
+    }
+
+    String attrs = readJson(new File(zarrDir, ".zattrs"));
+    for (int level = 0; level < 2; level++) {
+      double scale = 1 << level;
+      String entry = "\"scale\":[1.0," + (UnitY * scale) + "," + (UnitX * scale) + "]";
+      if (!attrs.contains(entry)) {
+        Log.msg(LogType.MANDATORY, ".zattrs is missing " + entry + " for level " + level);
+        passed = false;
+      }
+    }
+
+    Log.msg(LogType.MANDATORY, "Metadata: " + (passed ? "PASSED" : "FAILED"));
+    return passed;
+  }
+
+  /**
+   * Reads every chunk of a level into a single image. Each chunk must decode to the full chunk
+   * size and be zero outside of the image.
+   *
+   * @return the level as [y][x] samples, or null if a chunk is missing, has the wrong size or has
+   * non-zero padding
+   */
+  private static int[][] readLevel(File zarrDir, int level, int width, int height,
+                                   boolean compressed) throws IOException, DataFormatException {
+    int chunkSize = TileDim * TileDim * 2;
+    int numRows = (height + TileDim - 1) / TileDim;
+    int numCols = (width + TileDim - 1) / TileDim;
+    int[][] samples = new int[height][width];
+    int nonZeroPadding = 0;
+
+    for (int row = 0; row < numRows; row++) {
+      for (int col = 0; col < numCols; col++) {
+        File chunkFile = new File(zarrDir, level + File.separator + "0" + File.separator + row
+            + File.separator + col);
+        if (!chunkFile.isFile()) {
+          Log.msg(LogType.MANDATORY, "Missing chunk " + chunkFile.getPath());
+          return null;
+        }
+
+        byte[] bytes = Files.readAllBytes(chunkFile.toPath());
+        if (!compressed && bytes.length != chunkSize) {
+          Log.msg(LogType.MANDATORY, "Chunk " + chunkFile.getPath() + " is " + bytes.length
+              + " bytes, expected " + chunkSize);
+          return null;
+        }
+        byte[] chunk = compressed ? inflate(bytes) : bytes;
+        if (chunk.length != chunkSize) {
+          Log.msg(LogType.MANDATORY, "Chunk " + chunkFile.getPath() + " decodes to "
+              + chunk.length + " bytes, expected " + chunkSize);
+          return null;
+        }
+
+        // chunks are planar (c, y, x) big-endian samples, with a single channel here
+        for (int y = 0; y < TileDim; y++) {
+          for (int x = 0; x < TileDim; x++) {
+            int idx = (y * TileDim + x) * 2;
+            int value = ((chunk[idx] & 0xff) << 8) | (chunk[idx + 1] & 0xff);
+            int imageY = row * TileDim + y;
+            int imageX = col * TileDim + x;
+            if (imageY < height && imageX < width)
+              samples[imageY][imageX] = value;
+            else if (value != 0)
+              nonZeroPadding++;
+          }
+        }
+      }
+    }
+
+    Log.msg(LogType.MANDATORY, "Level " + level + " padding: " + (nonZeroPadding == 0 ? "PASSED"
+        : nonZeroPadding + " non-zero padding samples"));
+    return nonZeroPadding == 0 ? samples : null;
+  }
+
+  private static boolean compareLevel0(int[][] level0, ImageProcessor reference) {
+    int mismatches = 0;
+    for (int y = 0; y < level0.length; y++) {
+      for (int x = 0; x < level0[y].length; x++) {
+        if (level0[y][x] != reference.get(x, y))
+          mismatches++;
+      }
+    }
+
+    Log.msg(LogType.MANDATORY, "Level 0 matches export: " + (mismatches == 0 ? "PASSED"
+        : mismatches + " mismatched pixels"));
+    return mismatches == 0;
+  }
+
+  /**
+   * Compares the first downsampled level with the rounded mean of each 2x2 block of the full
+   * resolution level, where the blocks along the odd right and bottom edges are partial
+   */
+  private static boolean compareLevel1(int[][] level1, int[][] level0) {
+    int height = level0.length;
+    int width = level0[0].length;
+    int mismatches = 0;
+
+    for (int y = 0; y < level1.length; y++) {
+      for (int x = 0; x < level1[y].length; x++) {
+        double sum = 0.0;
+        int count = 0;
+        for (int py = 2 * y; py < Math.min(2 * y + 2, height); py++) {
+          for (int px = 2 * x; px < Math.min(2 * x + 2, width); px++) {
+            sum += level0[py][px];
+            count++;
+          }
+        }
+        if (level1[y][x] != Math.round(sum / count))
+          mismatches++;
+      }
+    }
+
+    Log.msg(LogType.MANDATORY, "Level 1 is the 2x2 mean of level 0: " + (mismatches == 0
+        ? "PASSED" : mismatches + " mismatched pixels"));
+    return mismatches == 0;
+  }
+
+  private static byte[] inflate(byte[] data) throws DataFormatException {
+    Inflater inflater = new Inflater();
+    try {
+      inflater.setInput(data);
+      ByteArrayOutputStream out = new ByteArrayOutputStream(data.length * 2);
+      byte[] buffer = new byte[8192];
+      while (!inflater.finished()) {
+        int n = inflater.inflate(buffer);
+        if (n == 0 && (inflater.needsInput() || inflater.needsDictionary()))
+          throw new DataFormatException("Truncated zlib chunk");
+        out.write(buffer, 0, n);
+      }
+      return out.toByteArray();
+    } finally {
+      inflater.end();
+    }
+  }
+
+  /**
+   * Reads a JSON metadata file with all whitespace removed
+   */
+  private static String readJson(File file) throws IOException {
+    String text = new String(Files.readAllBytes(file.toPath()), Charset.forName("UTF-8"));
+    return text.replaceAll("\\s", "");
+  }
+
+  /**
+   * Loads the synthetic grid and places each tile at its ground truth position. Each tile gets a
+   * distinct correlation so the overlay order within the overlaps is well defined.
+   */
+  private static TileGrid<ImageTile<float[][]>> makeGrid(SyntheticGridGenerator generator,
+                                                         File dir) throws InvalidClassException {
+    TileGridLoader loader = new RowColTileGridLoader(GridSize, GridSize, 0, 0, 0,
+        SyntheticGridGenerator.FILENAME_PATTERN, GridOrigin.UL);
+    TileGrid<ImageTile<float[][]>> grid = new TileGrid<ImageTile<float[][]>>(0, 0, GridSize,
+        GridSize, loader, dir, JavaImageTile.class);
+
+    for (int r = 0; r < GridSize; r++) {
+      for (int c = 0; c < GridSize; c++) {
+        ImageTile<float[][]> tile = grid.getSubGridTile(r, c);
+        tile.setAbsXPos(generator.getPositionX(r, c));
+        tile.setAbsYPos(generator.getPositionY(r, c));
+        tile.setTileCorrelation(0.5 + 0.05 * ((r * GridSize + c * 5) % (GridSize * GridSize)));
+      }
+    }
+    return grid;
+  }
+
+  /**
+   * Executes the test case
+   *
+   * @param args the directory to write the synthetic grid into (optional)
+   */
+  public static void main(String[] args) {
+    Log.setLogLevel(LogType.INFO);
+    Log.msg(LogType.MANDATORY, "Running Test OME-Zarr Exporter");
+
+    File dir = new File(args.length > 0 ? args[0] : "ome-zarr-grid");
+    boolean passed = false;
+    try {
+      passed = runTestExport(dir);
+    } catch (IOException e) {
+      Log.msg(LogType.MANDATORY, "Unable to write or read the test images: " + e.getMessage());
+    } catch (FormatException e) {
+      Log.msg(LogType.MANDATORY, "Unable to read the reference image: " + e.getMessage());
+    } catch (DataFormatException e) {
+      Log.msg(LogType.MANDATORY, "Unable to decode a zlib chunk: " + e.getMessage());
+    }
+
+    Log.msg(LogType.MANDATORY, "Test Completed: " + (passed ? "PASSED" : "FAILED"));
+  }
+}
@@ -0,0 +1,259 @@
+// NIST-developed software is provided by NIST as a public service. You may use, copy and distribute copies of the software in any medium, provided that you keep intact this entire notice. You may improve, modify and create derivative works of the software or any portion of the software, and you may copy and distribute such modifications or works. Modified works should carry a notice stating that you changed the software and should note the date and nature of any such change. Please explicitly acknowledge the National Institute of Standards and Technology as the source of the software.
+
+// NIST-developed software is expressly provided "AS IS." NIST MAKES NO WARRANTY OF ANY KIND, EXPRESS, IMPLIED, IN FACT OR ARISING BY OPERATION OF LAW, INCLUDING, WITHOUT LIMITATION, THE IMPLIED WARRANTY OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE, NON-INFRINGEMENT AND DATA ACCURACY. NIST NEITHER REPRESENTS NOR WARRANTS THAT THE OPERATION OF THE SOFTWARE WILL BE UNINTERRUPTED OR ERROR-FREE, OR THAT ANY DEFECTS WILL BE CORRECTED. NIST DOES NOT WARRANT OR MAKE ANY REPRESENTATIONS REGARDING THE USE OF THE SOFTWARE OR THE RESULTS THEREOF, INCLUDING BUT NOT LIMITED TO THE CORRECTNESS, ACCURACY, RELIABILITY, OR USEFULNESS OF THE SOFTWARE.
+
+// You are solely responsible for determining the appropriateness of using and distributing the software and you assume all risks associated with its use, including but not limited to the risks and costs of program errors, compliance with applicable laws, damage to or loss of data, programs or equipment, and the unavailability or interruption of operation. This software is not intended to be used in any situation where a failure could cause risk of injury or damage to property. The software developed by NIST employees is not subject to copyright protection within the United States.
+
+
+
+// ================================================================
+//
+// Author: tjb3
+// Date: Oct 20, 2026 10:02:37 AM EST
+//
+// Time-stamp: <Oct 20, 2026 10:02:37 AM tjb3>
+//
+//
+// ================================================================
+
+package gov.nist.isg.mist.export;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import gov.nist.isg.mist.lib.export.CompressionMode;
+import gov.nist.isg.mist.lib.export.ParallelBigTiffWriter;
+import gov.nist.isg.mist.lib.log.Log;
+import gov.nist.isg.mist.lib.log.Log.LogType;
+
+/**
+ * Round trip test case for the parallel BigTIFF writer. Random 8-bit, 16-bit and multi-sample
+ * images, including more samples than fit in the BitsPerSample entry and multiple planes, are
+ * written with tiles that do not divide the image, then decoded with a minimal BigTIFF reader and
+ * compared byte for byte.
+ *
+ * @author Tim Blattner
+ * @version 1.0
+ */
+public class TestParallelBigTiffWriter {
+
+  private static final int ImageWidth = 100;
+  private static final int ImageHeight = 70;
+  private static final int TileSize = 32;
+
+  /**
+   * Writes and reads back one image
+   *
+   * @param file            the file to write
+   * @param numPlanes       the number of planes
+   * @param samplesPerPixel the number of samples per pixel
+   * @param bytesPerSample  the number of bytes per sample
+   * @param mode            the compression mode
+   * @return true if every plane was read back unchanged
+   */
+  public static boolean runTestRoundTrip(File file, int numPlanes, int samplesPerPixel,
+                                         int bytesPerSample, CompressionMode mode)
+      throws IOException, DataFormatException {
+    int bytesPerPixel = samplesPerPixel * bytesPerSample;
+    Random random = new Random(numPlanes * 31 + samplesPerPixel * 7 + bytesPerSample);
+
+    byte[][] planes = new byte[numPlanes][ImageWidth * ImageHeight * bytesPerPixel];
+    for (byte[] plane : planes)
+      random.nextBytes(plane);
+
+    ParallelBigTiffWriter writer = new ParallelBigTiffWriter(file, numPlanes, ImageWidth,
+        ImageHeight, TileSize, TileSize, samplesPerPixel, bytesPerPixel, false, mode,
+        "<OME>round trip</OME>", 3);
+
+    // submit the planes interleaved, tiles of different planes may finish in any order
+    for (int y = 0; y < ImageHeight; y += TileSize) {
+      for (int x = 0; x < ImageWidth; x += TileSize) {
+        for (int p = 0; p < numPlanes; p++) {
+          int w = Math.min(TileSize, ImageWidth - x);
+          int h = Math.min(TileSize, ImageHeight - y);
+          byte[] tile = new byte[w * h * bytesPerPixel];
+          for (int row = 0; row < h; row++)
+            System.arraycopy(planes[p], ((y + row) * ImageWidth + x) * bytesPerPixel, tile,
+                row * w * bytesPerPixel, w * bytesPerPixel);
+          writer.writeTile(p, x, y, w, h, tile);
+        }
+      }
+    }
+    writer.close();
+
+    byte[][] read = readBigTiff(file, samplesPerPixel, bytesPerSample);
+
+    boolean passed = read.length == numPlanes;
+    for (int p = 0; passed && p < numPlanes; p++)
+      passed = Arrays.equals(planes[p], read[p]);
+
+    Log.msg(LogType.MANDATORY, numPlanes + " plane(s), " + samplesPerPixel + " sample(s) of "
+        + (8 * bytesPerSample) + " bits, " + mode + ": " + (passed ? "PASSED" : "FAILED"));
+    return passed;
+  }
+
+  /**
+   * Reads every plane of a tiled, big-endian BigTIFF written by the parallel writer
+   */
+  private static byte[][] readBigTiff(File file, int samplesPerPixel, int bytesPerSample)
+      throws IOException, DataFormatException {
+    RandomAccessFile raf = new RandomAccessFile(file, "r");
+    try {
+      FileChannel channel = raf.getChannel();
+      ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      buffer.order(ByteOrder.BIG_ENDIAN);
+
+      if (buffer.get(0) != 'M' || buffer.get(1) != 'M' || buffer.getShort(2) != 43)
+        throw new IOException("Not a big-endian BigTIFF");
+
+      List<byte[]> planes = new ArrayList<byte[]>();
+      long ifdOffset = buffer.getLong(8);
+      while (ifdOffset != 0) {
+        Map<Integer, long[]> tags = readIfd(buffer, (int) ifdOffset);
+        int numEntries = (int) buffer.getLong((int) ifdOffset);
+        ifdOffset = buffer.getLong((int) ifdOffset + 8 + numEntries * 20);
+
+        check(tags, 256, ImageWidth);
+        check(tags, 257, ImageHeight);
+        check(tags, 277, samplesPerPixel);
+        for (long bits : tags.get(258))
+          if (bits != 8 * bytesPerSample)
+            throw new IOException("Unexpected BitsPerSample " + bits);
+
+        int compression = (int) tags.get(259)[0];
+        int tileWidth = (int) tags.get(322)[0];
+        int tileHeight = (int) tags.get(323)[0];
+        long[] offsets = tags.get(324);
+        long[] byteCounts = tags.get(325);
+
+        int bytesPerPixel = samplesPerPixel * bytesPerSample;
+        int numTilesX = (ImageWidth + tileWidth - 1) / tileWidth;
+        byte[] plane = new byte[ImageWidth * ImageHeight * bytesPerPixel];
+        for (int t = 0; t < offsets.length; t++) {
+          byte[] data = new byte[(int) byteCounts[t]];
+          buffer.position((int) offsets[t]);
+          buffer.get(data);
+          byte[] tile = decompress(data, compression, tileWidth * tileHeight * bytesPerPixel);
+
+          int x = (t % numTilesX) * tileWidth;
+          int y = (t / numTilesX) * tileHeight;
+          int w = Math.min(tileWidth, ImageWidth - x);
+          int h = Math.min(tileHeight, ImageHeight - y);
+          for (int row = 0; row < h; row++)
+            System.arraycopy(tile, row * tileWidth * bytesPerPixel, plane,
+                ((y + row) * ImageWidth + x) * bytesPerPixel, w * bytesPerPixel);
+        }
+        planes.add(plane);
+      }
+
+      return planes.toArray(new byte[planes.size()][]);
+    } finally {
+      raf.close();
+    }
+  }
+
+  private static Map<Integer, long[]> readIfd(ByteBuffer buffer, int offset) {
+    Map<Integer, long[]> tags = new HashMap<Integer, long[]>();
+    int numEntries = (int) buffer.getLong(offset);
+    for (int i = 0; i < numEntries; i++) {
+      int entry = offset + 8 + i * 20;
+      int tag = buffer.getShort(entry) & 0xffff;
+      int type = buffer.getShort(entry + 2) & 0xffff;
+      int count = (int) buffer.getLong(entry + 4);
+
+      int size = type == 3 ? 2 : type == 4 ? 4 : type == 16 ? 8 : 1;
+      int valueOffset = size * count <= 8 ? entry + 12 : (int) buffer.getLong(entry + 12);
+
+      long[] values = new long[count];
+      for (int j = 0; j < count; j++) {
+        int pos = valueOffset + j * size;
+        switch (size) {
+          case 2:
+            values[j] = buffer.getShort(pos) & 0xffff;
+            break;
+          case 4:
+            values[j] = buffer.getInt(pos) & 0xffffffffL;
+            break;
+          case 8:
+            values[j] = buffer.getLong(pos);
+            break;
+          default:
+            values[j] = buffer.get(pos);
+            break;
+        }
+      }
+      tags.put(tag, values);
+    }
+    return tags;
+  }
+
+  private static void check(Map<Integer, long[]> tags, int tag, long expected) throws IOException {
+    if (tags.get(tag) == null || tags.get(tag)[0] != expected)
+      throw new IOException("Tag " + tag + " is not " + expected);
+  }
+
+  private static byte[] decompress(byte[] data, int compression, int size)
+      throws IOException, DataFormatException {
+    if (compression == 1)
+      return data;
+    if (compression != 8)
+      throw new IOException("Unsupported compression " + compression);
+
+    Inflater inflater = new Inflater();
+    try {
+      inflater.setInput(data);
+      byte[] tile = new byte[size];
+      int n = 0;
+      while (n < size && !inflater.finished())
+        n += inflater.inflate(tile, n, size - n);
+      return tile;
+    } finally {
+      inflater.end();
+    }
+  }
+
+  /**
+   * Executes the test case
+   *
+   * @param args not used
+   */
+  public static void main(String[] args) {
+    Log.setLogLevel(LogType.INFO);
+    Log.msg(LogType.MANDATORY, "Running Test Parallel BigTIFF Writer");
+
+    boolean passed = true;
+    try {
+      File file = File.createTempFile("mist-bigtiff", ".ome.tif");
+      file.deleteOnExit();
+
+      CompressionMode[] modes = {CompressionMode.UNCOMPRESSED, CompressionMode.ZLIB};
+      for (CompressionMode mode : modes) {
+        passed &= runTestRoundTrip(file, 1, 1, 1, mode); // 8-bit
+        passed &= runTestRoundTrip(file, 1, 1, 2, mode); // 16-bit
+        passed &= runTestRoundTrip(file, 1, 3, 1, mode); // RGB
+        passed &= runTestRoundTrip(file, 1, 5, 2, mode); // BitsPerSample stored out of line
+        passed &= runTestRoundTrip(file, 3, 1, 2, mode); // multiple planes
+      }
+    } catch (IOException e) {
+      Log.msg(LogType.MANDATORY, "Round trip failed: " + e.getMessage());
+      passed = false;
+    } catch (DataFormatException e) {
+      Log.msg(LogType.MANDATORY, "Unable to inflate a tile: " + e.getMessage());
+      passed = false;
+    }
+
+    Log.msg(LogType.MANDATORY, "Test Completed: " + (passed ? "PASSED" : "FAILED"));
+  }
+}
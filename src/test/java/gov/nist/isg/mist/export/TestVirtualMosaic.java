@@ -0,0 +1,164 @@
+// NIST-developed software is provided by NIST as a public service. You may use, copy and distribute copies of the software in any medium, provided that you keep intact this entire notice. You may improve, modify and create derivative works of the software or any portion of the software, and you may copy and distribute such modifications or works. Modified works should carry a notice stating that you changed the software and should note the date and nature of any such change. Please explicitly acknowledge the National Institute of Standards and Technology as the source of the software.
+
+// NIST-developed software is expressly provided "AS IS." NIST MAKES NO WARRANTY OF ANY KIND, EXPRESS, IMPLIED, IN FACT OR ARISING BY OPERATION OF LAW, INCLUDING, WITHOUT LIMITATION, THE IMPLIED WARRANTY OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE, NON-INFRINGEMENT AND DATA ACCURACY. NIST NEITHER REPRESENTS NOR WARRANTS THAT THE OPERATION OF THE SOFTWARE WILL BE UNINTERRUPTED OR ERROR-FREE, OR THAT ANY DEFECTS WILL BE CORRECTED. NIST DOES NOT WARRANT OR MAKE ANY REPRESENTATIONS REGARDING THE USE OF THE SOFTWARE OR THE RESULTS THEREOF, INCLUDING BUT NOT LIMITED TO THE CORRECTNESS, ACCURACY, RELIABILITY, OR USEFULNESS OF THE SOFTWARE.
+
+// You are solely responsible for determining the appropriateness of using and distributing the software and you assume all risks associated with its use, including but not limited to the risks and costs of program errors, compliance with applicable laws, damage to or loss of data, programs or equipment, and the unavailability or interruption of operation. This software is not intended to be used in any situation where a failure could cause risk of injury or damage to property. The software developed by NIST employees is not subject to copyright protection within the United States.
+
+
+
+// ================================================================
+//
+// Author: tjb3
+// Date: Oct 20, 2026 10:41:18 AM EST
+//
+// Time-stamp: <Oct 20, 2026 10:41:18 AM tjb3>
+//
+//
+// ================================================================
+
+package gov.nist.isg.mist.export;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InvalidClassException;
+
+import gov.nist.isg.mist.lib.export.BlendingMode;
+import gov.nist.isg.mist.lib.export.CompressionMode;
+import gov.nist.isg.mist.lib.export.LargeImageExporter;
+import gov.nist.isg.mist.lib.export.MicroscopyUnits;
+import gov.nist.isg.mist.lib.export.VirtualMosaic;
+import gov.nist.isg.mist.lib.imagetile.ImageTile;
+import gov.nist.isg.mist.lib.imagetile.java.JavaImageTile;
+import gov.nist.isg.mist.lib.log.Log;
+import gov.nist.isg.mist.lib.log.Log.LogType;
+import gov.nist.isg.mist.lib.tilegrid.TileGrid;
+import gov.nist.isg.mist.lib.tilegrid.loader.RowColTileGridLoader;
+import gov.nist.isg.mist.lib.tilegrid.loader.TileGridLoader;
+import gov.nist.isg.mist.lib.tilegrid.loader.TileGridLoader.GridOrigin;
+import gov.nist.isg.mist.stitchingruntime.SyntheticGridGenerator;
+import ij.ImagePlus;
+import ij.process.ImageProcessor;
+import loci.formats.FormatException;
+import loci.plugins.BF;
+
+/**
+ * Test case for the virtual mosaic. Regions of a small synthetic grid placed at its ground truth
+ * positions are rendered at full resolution and downsampled, and compared pixel for pixel with a
+ * crop of the full image exported by the LargeImageExporter with overlay blending.
+ *
+ * @author Tim Blattner
+ * @version 1.0
+ */
+public class TestVirtualMosaic {
+
+  private static final int GridSize = 3;
+
+  /**
+   * Renders regions of the mosaic and compares them with the exported image
+   *
+   * @param dir the directory the synthetic grid and the exported image are written to
+   * @return true if every rendered pixel matches the exported image
+   */
+  public static boolean runTestRenderMatchesExport(File dir)
+      throws IOException, FormatException {
+    SyntheticGridGenerator generator = new SyntheticGridGenerator().gridSize(GridSize, GridSize)
+        .tileSize(128, 96).bitDepth(16).overlap(20).stageJitter(6).noise(0.05).seed(11);
+    generator.generate(dir);
+
+    TileGrid<ImageTile<float[][]>> grid = makeGrid(generator, dir);
+
+    // a cache smaller than the grid exercises the eviction of decoded tiles
+    VirtualMosaic<float[][]> mosaic = new VirtualMosaic<float[][]>(grid, 4);
+    int width = mosaic.getWidth();
+    int height = mosaic.getHeight();
+
+    File exportFile = new File(dir, "full-overlay.ome.tif");
+    LargeImageExporter.exportImage(grid, 64, ImagePlus.GRAY16, 0, 0, width, height,
+        BlendingMode.OVERLAY, CompressionMode.UNCOMPRESSED, Double.NaN,
+        MicroscopyUnits.MICROMETER, 1.0, 1.0, exportFile);
+    ImageProcessor exported = BF.openImagePlus(exportFile.getAbsolutePath())[0].getProcessor();
+
+    boolean passed = exported.getWidth() == width && exported.getHeight() == height;
+    if (!passed)
+      Log.msg(LogType.MANDATORY, "Exported image is " + exported.getWidth() + "x"
+          + exported.getHeight() + ", mosaic is " + width + "x" + height);
+
+    int[][] regions = {
+        {0, 0, width, height},
+        {37, 21, 150, 110},
+        {width - 90, height - 70, 90, 70},
+        {101, 5, 1, 160}
+    };
+    for (int[] region : regions) {
+      for (int downsample : new int[]{1, 3}) {
+        passed &= compareRegion(mosaic, exported, region[0], region[1], region[2], region[3],
+            downsample);
+      }
+    }
+
+    Log.msg(LogType.MANDATORY, "Decoded tile cache hits: " + mosaic.getCacheHits()
+        + ", misses: " + mosaic.getCacheMisses());
+    return passed;
+  }
+
+  private static boolean compareRegion(VirtualMosaic<float[][]> mosaic, ImageProcessor exported,
+                                       int x, int y, int width, int height, int downsample) {
+    ImageProcessor rendered = mosaic.render(x, y, width, height, downsample);
+
+    int mismatches = 0;
+    for (int row = 0; row < rendered.getHeight(); row++) {
+      for (int col = 0; col < rendered.getWidth(); col++) {
+        if (rendered.get(col, row) != exported.get(x + col * downsample, y + row * downsample))
+          mismatches++;
+      }
+    }
+
+    Log.msg(LogType.MANDATORY, "Region (" + x + ", " + y + ", " + width + ", " + height + ") 1:"
+        + downsample + ": " + (mismatches == 0 ? "PASSED" : mismatches + " mismatched pixels"));
+    return mismatches == 0;
+  }
+
+  /**
+   * Loads the synthetic grid and places each tile at its ground truth position. Each tile gets a
+   * distinct correlation so the overlay order within the overlaps is well defined.
+   */
+  private static TileGrid<ImageTile<float[][]>> makeGrid(SyntheticGridGenerator generator,
+                                                         File dir) throws InvalidClassException {
+    TileGridLoader loader = new RowColTileGridLoader(GridSize, GridSize, 0, 0, 0,
+        SyntheticGridGenerator.FILENAME_PATTERN, GridOrigin.UL);
+    TileGrid<ImageTile<float[][]>> grid = new TileGrid<ImageTile<float[][]>>(0, 0, GridSize,
+        GridSize, loader, dir, JavaImageTile.class);
+
+    for (int r = 0; r < GridSize; r++) {
+      for (int c = 0; c < GridSize; c++) {
+        ImageTile<float[][]> tile = grid.getSubGridTile(r, c);
+        tile.setAbsXPos(generator.getPositionX(r, c));
+        tile.setAbsYPos(generator.getPositionY(r, c));
+        tile.setTileCorrelation(0.5 + 0.05 * ((r * GridSize + c * 5) % (GridSize * GridSize)));
+      }
+    }
+    return grid;
+  }
+
+  /**
+   * Executes the test case
+   *
+   * @param args the directory to write the synthetic grid into (optional)
+   */
+  public static void main(String[] args) {
+    Log.setLogLevel(LogType.INFO);
+    Log.msg(LogType.MANDATORY, "Running Test Virtual Mosaic");
+
+    File dir = new File(args.length > 0 ? args[0] : "virtual-mosaic-grid");
+    boolean passed = false;
+    try {
+      passed = runTestRenderMatchesExport(dir);
+    } catch (IOException e) {
+      Log.msg(LogType.MANDATORY, "Unable to write or read the test images: " + e.getMessage());
+    } catch (FormatException e) {
+      Log.msg(LogType.MANDATORY, "Unable to read the exported image: " + e.getMessage());
+    }
+
+    Log.msg(LogType.MANDATORY, "Test Completed: " + (passed ? "PASSED" : "FAILED"));
+  }
+}
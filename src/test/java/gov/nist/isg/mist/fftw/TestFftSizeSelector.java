@@ -0,0 +1,235 @@
+// NIST-developed software is provided by NIST as a public service. You may use, copy and distribute copies of the software in any medium, provided that you keep intact this entire notice. You may improve, modify and create derivative works of the software or any portion of the software, and you may copy and distribute such modifications or works. Modified works should carry a notice stating that you changed the software and should note the date and nature of any such change. Please explicitly acknowledge the National Institute of Standards and Technology as the source of the software.
+
+// NIST-developed software is expressly provided "AS IS." NIST MAKES NO WARRANTY OF ANY KIND, EXPRESS, IMPLIED, IN FACT OR ARISING BY OPERATION OF LAW, INCLUDING, WITHOUT LIMITATION, THE IMPLIED WARRANTY OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE, NON-INFRINGEMENT AND DATA ACCURACY. NIST NEITHER REPRESENTS NOR WARRANTS THAT THE OPERATION OF THE SOFTWARE WILL BE UNINTERRUPTED OR ERROR-FREE, OR THAT ANY DEFECTS WILL BE CORRECTED. NIST DOES NOT WARRANT OR MAKE ANY REPRESENTATIONS REGARDING THE USE OF THE SOFTWARE OR THE RESULTS THEREOF, INCLUDING BUT NOT LIMITED TO THE CORRECTNESS, ACCURACY, RELIABILITY, OR USEFULNESS OF THE SOFTWARE.
+
+// You are solely responsible for determining the appropriateness of using and distributing the software and you assume all risks associated with its use, including but not limited to the risks and costs of program errors, compliance with applicable laws, damage to or loss of data, programs or equipment, and the unavailability or interruption of operation. This software is not intended to be used in any situation where a failure could cause risk of injury or damage to property. The software developed by NIST employees is not subject to copyright protection within the United States.
+
+
+
+// ================================================================
+//
+// Author: tjb3
+// Date: Oct 19, 2026 11:04:17 AM EST
+//
+// Time-stamp: <Oct 19, 2026 11:04:17 AM tjb3>
+//
+//
+// ================================================================
+
+package gov.nist.isg.mist.fftw;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+
+import gov.nist.isg.mist.lib.common.CorrelationTriple;
+import gov.nist.isg.mist.lib.imagetile.ImageTile;
+import gov.nist.isg.mist.lib.imagetile.Stitching;
+import gov.nist.isg.mist.lib.imagetile.fftw.FftSizeSelector;
+import gov.nist.isg.mist.lib.imagetile.java.JavaImageTile;
+import gov.nist.isg.mist.lib.log.Log;
+import gov.nist.isg.mist.lib.log.Log.LogType;
+import gov.nist.isg.mist.lib.tilegrid.TileGrid;
+import gov.nist.isg.mist.lib.tilegrid.loader.RowColTileGridLoader;
+import gov.nist.isg.mist.lib.tilegrid.loader.TileGridLoader.GridOrigin;
+import gov.nist.isg.mist.stitchingruntime.SyntheticGridGenerator;
+
+/**
+ * Tests the FFT size selection: the candidate sizes, the cache of selected sizes, and the mapping
+ * of correlation peaks found with padded transforms back to translations. Does not require the
+ * FFTW library, transforms are timed by a fake timer and peaks are placed where a padded phase
+ * correlation would put them.
+ *
+ * @author Tim Blattner
+ * @version 1.0
+ */
+public class TestFftSizeSelector {
+
+  private static final int TileWidth = 251;
+  private static final int TileHeight = 187;
+  private static final int GridSize = 2;
+  private static final long SlowPenalty = 1000000000L;
+
+  /**
+   * Times a transform as its area plus a penalty for each unpadded tile dimension, so the padded
+   * sizes win. Counts the number of transforms timed.
+   */
+  private static class FakeTimer implements FftSizeSelector.PlanTimer {
+    private int count = 0;
+
+    @Override
+    public long time(int width, int height) {
+      this.count++;
+      long time = (long) width * height;
+      if (width == TileWidth)
+        time += SlowPenalty;
+      if (height == TileHeight)
+        time += SlowPenalty;
+      return time;
+    }
+  }
+
+  /**
+   * Checks the candidate sizes of prime, smooth and small dimensions
+   *
+   * @return true if the candidates are as expected
+   */
+  public static boolean runTestCandidateSizes() {
+    boolean passed = checkCandidates(251, Arrays.asList(251, 252, 256))
+        && checkCandidates(187, Arrays.asList(187, 189, 192))
+        && checkCandidates(97, Arrays.asList(97, 98, 100, 108))
+        && checkCandidates(1000, Arrays.asList(1000, 1024))
+        && checkCandidates(256, Arrays.asList(256))
+        && checkCandidates(1, Arrays.asList(1))
+        && FftSizeSelector.getMaxCandidateSize(251) == 256
+        && FftSizeSelector.getMaxCandidateSize(97) == 108
+        && FftSizeSelector.getMaxCandidateSize(256) == 256;
+
+    Log.msg(LogType.MANDATORY, "Candidate sizes: " + (passed ? "PASSED" : "FAILED"));
+    return passed;
+  }
+
+  private static boolean checkCandidates(int n, List<Integer> expected) {
+    List<Integer> candidates = FftSizeSelector.getCandidateSizes(n);
+    if (!candidates.equals(expected))
+      Log.msg(LogType.INFO, "Candidates of " + n + ": " + candidates + " expected: " + expected);
+    return candidates.equals(expected);
+  }
+
+  /**
+   * Selects a size, then checks that it is reused from the cache file only when loading is
+   * enabled and the precision matches
+   *
+   * @param dir the directory to write the cache file into
+   * @return true if the cache behaves as expected
+   */
+  public static boolean runTestCacheFile(File dir) {
+    File wisdom = new File(dir, "wisdom.dat");
+    File cacheFile = FftSizeSelector.getCacheFile(wisdom.getAbsolutePath());
+    boolean passed = cacheFile.equals(FftSizeSelector.getCacheFile(dir.getAbsolutePath()))
+        && cacheFile.getName().equals(FftSizeSelector.CACHE_FILE_NAME);
+    if (cacheFile.exists() && !cacheFile.delete())
+      return false;
+
+    // widths are timed at the tile height and heights at the selected width
+    FakeTimer timer = new FakeTimer();
+    int[] selected = FftSizeSelector.selectSize(TileWidth, TileHeight, "double", cacheFile, true,
+        true, timer);
+    passed &= selected[0] == 252 && selected[1] == 189 && timer.count > 0 && cacheFile.exists();
+
+    timer = new FakeTimer();
+    int[] loaded = FftSizeSelector.selectSize(TileWidth, TileHeight, "double", cacheFile, true,
+        true, timer);
+    passed &= Arrays.equals(selected, loaded) && timer.count == 0;
+
+    timer = new FakeTimer();
+    FftSizeSelector.selectSize(TileWidth, TileHeight, "double", cacheFile, false, false, timer);
+    passed &= timer.count > 0;
+
+    timer = new FakeTimer();
+    FftSizeSelector.selectSize(TileWidth, TileHeight, "float", cacheFile, true, false, timer);
+    passed &= timer.count > 0;
+
+    // a smooth tile size has a single candidate and is never benchmarked
+    timer = new FakeTimer();
+    int[] smooth = FftSizeSelector.selectSize(256, 192, "double", cacheFile, false, false, timer);
+    passed &= smooth[0] == 256 && smooth[1] == 192 && timer.count == 0;
+
+    Log.msg(LogType.MANDATORY, "Cache file: " + (passed ? "PASSED" : "FAILED"));
+    return passed;
+  }
+
+  /**
+   * Places the correlation peak of every pair of a synthetic grid where a phase correlation padded
+   * to the largest candidate size would find it, and checks that the padded overloads recover the
+   * true translations
+   *
+   * @param dir the directory to write the synthetic grid into
+   * @return true if every translation is recovered
+   */
+  public static boolean runTestPaddedPeaks(File dir) throws Exception {
+    SyntheticGridGenerator generator = new SyntheticGridGenerator().gridSize(GridSize, GridSize)
+        .tileSize(TileWidth, TileHeight).bitDepth(16).overlap(20).stageJitter(8).noise(0.05)
+        .seed(49);
+    generator.generate(dir);
+
+    TileGrid<ImageTile<float[][]>> grid = new TileGrid<ImageTile<float[][]>>(0, 0, GridSize,
+        GridSize, new RowColTileGridLoader(GridSize, GridSize, 0, 0, 0,
+        SyntheticGridGenerator.FILENAME_PATTERN, GridOrigin.UL), dir, JavaImageTile.class);
+
+    int fftWidth = FftSizeSelector.getMaxCandidateSize(TileWidth);
+    int fftHeight = FftSizeSelector.getMaxCandidateSize(TileHeight);
+
+    int numWrong = 0;
+    for (int r = 0; r < GridSize; r++) {
+      for (int c = 0; c < GridSize; c++) {
+        ImageTile<float[][]> tile = grid.getSubGridTile(r, c);
+        tile.readTile();
+
+        if (c > 0) {
+          ImageTile<float[][]> west = grid.getSubGridTile(r, c - 1);
+          west.readTile();
+          int tx = generator.getPositionX(r, c) - generator.getPositionX(r, c - 1);
+          int ty = generator.getPositionY(r, c) - generator.getPositionY(r, c - 1);
+          CorrelationTriple triple = Stitching.peakCrossCorrelationLR(west, tile,
+              wrap(tx, fftWidth), wrap(ty, fftHeight), fftWidth, fftHeight);
+          if (!matches(triple, tx, ty))
+            numWrong++;
+        }
+
+        if (r > 0) {
+          ImageTile<float[][]> north = grid.getSubGridTile(r - 1, c);
+          north.readTile();
+          int tx = generator.getPositionX(r, c) - generator.getPositionX(r - 1, c);
+          int ty = generator.getPositionY(r, c) - generator.getPositionY(r - 1, c);
+          CorrelationTriple triple = Stitching.peakCrossCorrelationUD(north, tile,
+              wrap(tx, fftWidth), wrap(ty, fftHeight), fftWidth, fftHeight);
+          if (!matches(triple, tx, ty))
+            numWrong++;
+        }
+      }
+    }
+
+    Log.msg(LogType.MANDATORY, "Padded peaks: " + (numWrong == 0 ? "PASSED"
+        : numWrong + " translations differ from the ground truth"));
+    return numWrong == 0;
+  }
+
+  /**
+   * The position of the peak of a shift in a transform of size n
+   */
+  private static int wrap(int shift, int n) {
+    return ((shift % n) + n) % n;
+  }
+
+  private static boolean matches(CorrelationTriple triple, int x, int y) {
+    if (triple.getX() != x || triple.getY() != y)
+      Log.msg(LogType.INFO, "Found " + triple + " expected x: " + x + " y: " + y);
+    return triple.getX() == x && triple.getY() == y;
+  }
+
+  /**
+   * Executes the test case
+   *
+   * @param args the directory to write the test files into (optional)
+   */
+  public static void main(String[] args) {
+    Log.setLogLevel(LogType.INFO);
+    Log.msg(LogType.MANDATORY, "Running Test FFT Size Selector");
+
+    boolean passed = runTestCandidateSizes();
+    try {
+      File dir = new File(args.length > 0 ? args[0] : "fft-size-selector");
+      if (!dir.exists() && !dir.mkdirs())
+        throw new IllegalStateException("Unable to create " + dir.getAbsolutePath());
+
+      passed &= runTestCacheFile(dir);
+      passed &= runTestPaddedPeaks(dir);
+    } catch (Exception e) {
+      Log.msg(LogType.MANDATORY, "FFT size selection failed: " + e.getMessage());
+      passed = false;
+    }
+
+    Log.msg(LogType.MANDATORY, "Test Completed: " + (passed ? "PASSED" : "FAILED"));
+  }
+}
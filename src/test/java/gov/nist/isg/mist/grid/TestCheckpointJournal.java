@@ -0,0 +1,212 @@
+// NIST-developed software is provided by NIST as a public service. You may use, copy and distribute copies of the software in any medium, provided that you keep intact this entire notice. You may improve, modify and create derivative works of the software or any portion of the software, and you may copy and distribute such modifications or works. Modified works should carry a notice stating that you changed the software and should note the date and nature of any such change. Please explicitly acknowledge the National Institute of Standards and Technology as the source of the software.
+
+// NIST-developed software is expressly provided "AS IS." NIST MAKES NO WARRANTY OF ANY KIND, EXPRESS, IMPLIED, IN FACT OR ARISING BY OPERATION OF LAW, INCLUDING, WITHOUT LIMITATION, THE IMPLIED WARRANTY OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE, NON-INFRINGEMENT AND DATA ACCURACY. NIST NEITHER REPRESENTS NOR WARRANTS THAT THE OPERATION OF THE SOFTWARE WILL BE UNINTERRUPTED OR ERROR-FREE, OR THAT ANY DEFECTS WILL BE CORRECTED. NIST DOES NOT WARRANT OR MAKE ANY REPRESENTATIONS REGARDING THE USE OF THE SOFTWARE OR THE RESULTS THEREOF, INCLUDING BUT NOT LIMITED TO THE CORRECTNESS, ACCURACY, RELIABILITY, OR USEFULNESS OF THE SOFTWARE.
+
+// You are solely responsible for determining the appropriateness of using and distributing the software and you assume all risks associated with its use, including but not limited to the risks and costs of program errors, compliance with applicable laws, damage to or loss of data, programs or equipment, and the unavailability or interruption of operation. This software is not intended to be used in any situation where a failure could cause risk of injury or damage to property. The software developed by NIST employees is not subject to copyright protection within the United States.
+
+
+
+// ================================================================
+//
+// Author: tjb3
+// Date: Oct 20, 2026 12:06:37 PM EST
+//
+// Time-stamp: <Oct 20, 2026 12:06:37 PM tjb3>
+//
+//
+// ================================================================
+
+package gov.nist.isg.mist.grid;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InvalidClassException;
+
+import gov.nist.isg.mist.lib.common.CorrelationTriple;
+import gov.nist.isg.mist.lib.imagetile.ImageTile;
+import gov.nist.isg.mist.lib.imagetile.java.JavaImageTile;
+import gov.nist.isg.mist.lib.log.Log;
+import gov.nist.isg.mist.lib.log.Log.LogType;
+import gov.nist.isg.mist.lib.tilegrid.CheckpointJournal;
+import gov.nist.isg.mist.lib.tilegrid.TileGrid;
+import gov.nist.isg.mist.lib.tilegrid.TileGrid.Direction;
+import gov.nist.isg.mist.lib.tilegrid.loader.RowColTileGridLoader;
+import gov.nist.isg.mist.lib.tilegrid.loader.TileGridLoader.GridOrigin;
+
+/**
+ * Test case for the checkpoint journal. A journal is written for a grid, a torn entry is appended
+ * as if the run had crashed part way through a line, and the journal is replayed into a new grid.
+ * Every complete entry must be restored, the torn entry must be ignored, entries appended after
+ * resuming must be readable, and a journal with a different fingerprint must not be restored.
+ *
+ * @author Tim Blattner
+ * @version 1.0
+ */
+public class TestCheckpointJournal {
+
+  private static final int GridWidth = 4;
+  private static final int GridHeight = 3;
+  private static final String Fingerprint = "grid: 4x3; pattern: img_r{rrr}_c{ccc}.tif";
+
+  /**
+   * Writes a journal with a torn final line and replays it
+   *
+   * @param dir the directory the journal is written to
+   * @return true if the complete entries were restored and the torn entry was ignored
+   */
+  public static boolean runTestReplay(File dir) throws IOException {
+    File file = new File(dir, "replay-journal.txt");
+    file.delete();
+
+    TileGrid<ImageTile<float[][]>> grid = makeGrid(dir);
+    CheckpointJournal journal = CheckpointJournal.open(grid, file, true, Fingerprint);
+    for (int r = 0; r < GridHeight; r++) {
+      for (int c = 0; c < GridWidth; c++) {
+        ImageTile<float[][]> t = grid.getSubGridTile(r, c);
+        // the last tile's west pair is written below as a torn line
+        if (c > 0 && !(r == GridHeight - 1 && c == GridWidth - 1)) {
+          t.setWestTranslation(expected(r, c, Direction.West));
+          journal.recordPciam(t, grid.getSubGridTile(r, c - 1), Direction.West);
+        }
+        if (r > 0) {
+          t.setNorthTranslation(expected(r, c, Direction.North));
+          journal.recordPciam(t, grid.getSubGridTile(r - 1, c), Direction.North);
+        }
+      }
+    }
+    journal.recordRefined(grid.getSubGridTile(1, 1), grid.getSubGridTile(1, 0), Direction.West,
+        new CorrelationTriple(0.97, 501, 3));
+    journal.close();
+
+    // a crash part way through an entry of the last tile's west pair
+    String tornLine = "pciam, west, " + grid.getSubGridTile(GridHeight - 1, GridWidth - 1)
+        .getFileName() + ", " + grid.getSubGridTile(GridHeight - 1, GridWidth - 2).getFileName()
+        + ", 0.5, 12";
+    append(file, tornLine);
+
+    boolean passed = checkRestored("Torn final line", dir, file, false);
+
+    // the resumed journal ends the torn line, so entries appended afterwards are replayed
+    passed &= checkRestored("Appended after resume", dir, file, true);
+    return passed;
+  }
+
+  /**
+   * Replays a journal written with a different fingerprint
+   *
+   * @param dir the directory the journal is written to
+   * @return true if nothing was restored and the old journal was moved aside
+   */
+  public static boolean runTestFingerprintMismatch(File dir) throws IOException {
+    File file = new File(dir, "mismatch-journal.txt");
+    File stale = new File(dir, "mismatch-journal.txt.stale");
+    file.delete();
+    stale.delete();
+
+    TileGrid<ImageTile<float[][]>> grid = makeGrid(dir);
+    CheckpointJournal journal = CheckpointJournal.open(grid, file, false, Fingerprint);
+    ImageTile<float[][]> t = grid.getSubGridTile(0, 1);
+    t.setWestTranslation(expected(0, 1, Direction.West));
+    journal.recordPciam(t, grid.getSubGridTile(0, 0), Direction.West);
+    journal.close();
+
+    TileGrid<ImageTile<float[][]>> other = makeGrid(dir);
+    journal = CheckpointJournal.open(other, file, true, Fingerprint + "; timeslice: 2");
+    journal.close();
+
+    boolean passed = other.getSubGridTile(0, 1).getWestTranslation() == null && stale.exists();
+    Log.msg(LogType.MANDATORY, "Fingerprint mismatch: " + (passed ? "PASSED" : "FAILED"));
+    return passed;
+  }
+
+  /**
+   * Replays the journal into a new grid and checks every pair except the torn one
+   */
+  private static boolean checkRestored(String name, File dir, File file, boolean resumed)
+      throws IOException {
+    TileGrid<ImageTile<float[][]>> grid = makeGrid(dir);
+    CheckpointJournal journal = CheckpointJournal.open(grid, file, true, Fingerprint);
+
+    int numWrong = 0;
+    for (int r = 0; r < GridHeight; r++) {
+      for (int c = 0; c < GridWidth; c++) {
+        ImageTile<float[][]> t = grid.getSubGridTile(r, c);
+        boolean torn = r == GridHeight - 1 && c == GridWidth - 1;
+        if (c > 0 && !equal(t.getWestTranslation(), torn ? null : expected(r, c, Direction.West)))
+          numWrong++;
+        if (r > 0 && !equal(t.getNorthTranslation(), expected(r, c, Direction.North)))
+          numWrong++;
+      }
+    }
+
+    if (!equal(journal.getRefinedTranslation(grid.getSubGridTile(1, 1), Direction.West),
+        new CorrelationTriple(0.97, 501, 3)))
+      numWrong++;
+    if (journal.getRefinedTranslation(grid.getSubGridTile(1, 2), Direction.West) != null)
+      numWrong++;
+    if (resumed && !equal(journal.getRefinedTranslation(grid.getSubGridTile(0, 1),
+        Direction.West), new CorrelationTriple(0.5, 1, 1)))
+      numWrong++;
+
+    // record a pair as the resumed run would, it is replayed by the next resume
+    ImageTile<float[][]> t = grid.getSubGridTile(0, 1);
+    journal.recordRefined(t, grid.getSubGridTile(0, 0), Direction.West,
+        new CorrelationTriple(0.5, 1, 1));
+    journal.close();
+
+    Log.msg(LogType.MANDATORY, name + ": " + (numWrong == 0 ? "PASSED"
+        : numWrong + " translations were not restored correctly"));
+    return numWrong == 0;
+  }
+
+  private static CorrelationTriple expected(int row, int col, Direction dir) {
+    return dir == Direction.West ? new CorrelationTriple(0.9, 480 + row, col - 2)
+        : new CorrelationTriple(0.8, col - 1, 360 + row);
+  }
+
+  private static boolean equal(CorrelationTriple a, CorrelationTriple b) {
+    if (a == null || b == null)
+      return a == b;
+    return a.getX() == b.getX() && a.getY() == b.getY()
+        && a.getCorrelation() == b.getCorrelation();
+  }
+
+  private static TileGrid<ImageTile<float[][]>> makeGrid(File dir) throws InvalidClassException {
+    return new TileGrid<ImageTile<float[][]>>(0, 0, GridWidth, GridHeight,
+        new RowColTileGridLoader(GridWidth, GridHeight, 0, 0, 0, "img_r{rrr}_c{ccc}.tif",
+            GridOrigin.UL), dir, JavaImageTile.class);
+  }
+
+  private static void append(File file, String text) throws IOException {
+    FileOutputStream out = new FileOutputStream(file, true);
+    try {
+      out.write(text.getBytes("UTF-8"));
+    } finally {
+      out.close();
+    }
+  }
+
+  /**
+   * Executes the test case
+   *
+   * @param args the directory to write the journals into (optional)
+   */
+  public static void main(String[] args) {
+    Log.setLogLevel(LogType.INFO);
+    Log.msg(LogType.MANDATORY, "Running Test Checkpoint Journal");
+
+    File dir = new File(args.length > 0 ? args[0] : "checkpoint-journal");
+    dir.mkdirs();
+
+    boolean passed = false;
+    try {
+      passed = runTestReplay(dir);
+      passed &= runTestFingerprintMismatch(dir);
+    } catch (IOException e) {
+      Log.msg(LogType.MANDATORY, "Checkpoint journal test failed: " + e.getMessage());
+    }
+
+    Log.msg(LogType.MANDATORY, "Test Completed: " + (passed ? "PASSED" : "FAILED"));
+  }
+}
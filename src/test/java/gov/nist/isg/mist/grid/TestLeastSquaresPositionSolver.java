@@ -0,0 +1,174 @@
+// NIST-developed software is provided by NIST as a public service. You may use, copy and distribute copies of the software in any medium, provided that you keep intact this entire notice. You may improve, modify and create derivative works of the software or any portion of the software, and you may copy and distribute such modifications or works. Modified works should carry a notice stating that you changed the software and should note the date and nature of any such change. Please explicitly acknowledge the National Institute of Standards and Technology as the source of the software.
+
+// NIST-developed software is expressly provided "AS IS." NIST MAKES NO WARRANTY OF ANY KIND, EXPRESS, IMPLIED, IN FACT OR ARISING BY OPERATION OF LAW, INCLUDING, WITHOUT LIMITATION, THE IMPLIED WARRANTY OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE, NON-INFRINGEMENT AND DATA ACCURACY. NIST NEITHER REPRESENTS NOR WARRANTS THAT THE OPERATION OF THE SOFTWARE WILL BE UNINTERRUPTED OR ERROR-FREE, OR THAT ANY DEFECTS WILL BE CORRECTED. NIST DOES NOT WARRANT OR MAKE ANY REPRESENTATIONS REGARDING THE USE OF THE SOFTWARE OR THE RESULTS THEREOF, INCLUDING BUT NOT LIMITED TO THE CORRECTNESS, ACCURACY, RELIABILITY, OR USEFULNESS OF THE SOFTWARE.
+
+// You are solely responsible for determining the appropriateness of using and distributing the software and you assume all risks associated with its use, including but not limited to the risks and costs of program errors, compliance with applicable laws, damage to or loss of data, programs or equipment, and the unavailability or interruption of operation. This software is not intended to be used in any situation where a failure could cause risk of injury or damage to property. The software developed by NIST employees is not subject to copyright protection within the United States.
+
+
+
+package gov.nist.isg.mist.grid;
+
+import java.io.File;
+import java.io.InvalidClassException;
+import java.util.Random;
+
+import gov.nist.isg.mist.lib.common.CorrelationTriple;
+import gov.nist.isg.mist.lib.imagetile.ImageTile;
+import gov.nist.isg.mist.lib.imagetile.java.JavaImageTile;
+import gov.nist.isg.mist.lib.log.Log;
+import gov.nist.isg.mist.lib.log.Log.LogType;
+import gov.nist.isg.mist.lib.tilegrid.LeastSquaresPositionSolver;
+import gov.nist.isg.mist.lib.tilegrid.TileGrid;
+import gov.nist.isg.mist.lib.tilegrid.loader.RowColTileGridLoader;
+import gov.nist.isg.mist.lib.tilegrid.loader.TileGridLoader.GridOrigin;
+import gov.nist.isg.mist.optimization.model.TranslationFilter;
+
+/**
+ * Test case for the least squares global position solver. Translations are generated from known
+ * tile positions; the solver must converge and recover the positions exactly from consistent
+ * translations, and to within a pixel when some translations are outliers that the stage model
+ * rejected.
+ *
+ * @author Tim Blattner
+ */
+public class TestLeastSquaresPositionSolver {
+
+  private static final double MinCorrelation = TranslationFilter.CorrelationWeight - 1.0;
+  private static final double OutlierRate = 0.05;
+
+  private static TileGrid<ImageTile<float[][]>> makeGrid(int size) throws InvalidClassException {
+    return new TileGrid<ImageTile<float[][]>>(0, 0, size, size,
+        new RowColTileGridLoader(size, size, 0, 0, 0, "img_r{rrr}_c{ccc}.tif", GridOrigin.UL),
+        new File("."), JavaImageTile.class);
+  }
+
+  /**
+   * Sets the north and west translations of a grid from known positions. Outliers are offset by
+   * over a hundred pixels and carry the correlation of a translation the stage model rejected; at
+   * most one translation per tile is an outlier so every tile stays reachable through valid
+   * translations.
+   */
+  private static void setTranslations(TileGrid<ImageTile<float[][]>> grid, int[] posX,
+                                      int[] posY, double outlierRate, Random rand) {
+    int size = grid.getExtentWidth();
+    boolean[] hasOutlier = new boolean[size * size];
+    for (int r = 0; r < size; r++) {
+      for (int c = 0; c < size; c++) {
+        int i = r * size + c;
+        ImageTile<float[][]> tile = grid.getSubGridTile(r, c);
+        tile.setTileCorrelation(3.9);
+
+        if (r > 0) {
+          boolean outlier = !hasOutlier[i] && !hasOutlier[i - size]
+              && rand.nextDouble() < outlierRate;
+          hasOutlier[i] |= outlier;
+          hasOutlier[i - size] |= outlier;
+          tile.setNorthTranslation(new CorrelationTriple(
+              outlier ? 0.4 : 3.5 + 0.4 * rand.nextDouble(),
+              posX[i] - posX[i - size] + (outlier ? 150 : 0), posY[i] - posY[i - size]));
+        }
+        if (c > 0) {
+          boolean outlier = !hasOutlier[i] && !hasOutlier[i - 1]
+              && rand.nextDouble() < outlierRate;
+          hasOutlier[i] |= outlier;
+          hasOutlier[i - 1] |= outlier;
+          tile.setWestTranslation(new CorrelationTriple(
+              outlier ? Double.NaN : 3.5 + 0.4 * rand.nextDouble(),
+              posX[i] - posX[i - 1], posY[i] - posY[i - 1] - (outlier ? 120 : 0)));
+        }
+      }
+    }
+  }
+
+  /**
+   * Solves a grid and measures the largest position error relative to the first tile
+   */
+  private static int solveAndMeasure(int size, double outlierRate, long seed) throws Throwable {
+    Random rand = new Random(seed);
+    int[] posX = new int[size * size];
+    int[] posY = new int[size * size];
+    for (int r = 0; r < size; r++) {
+      for (int c = 0; c < size; c++) {
+        posX[r * size + c] = c * 900 + r * 3 + rand.nextInt(9) - 4;
+        posY[r * size + c] = r * 700 - c * 2 + rand.nextInt(9) - 4;
+      }
+    }
+
+    TileGrid<ImageTile<float[][]>> grid = makeGrid(size);
+    setTranslations(grid, posX, posY, outlierRate, rand);
+
+    long start = System.currentTimeMillis();
+    if (!LeastSquaresPositionSolver.solve(grid, MinCorrelation))
+      return Integer.MAX_VALUE;
+    Log.msg(LogType.HELPFUL, size + "x" + size + " grid solved in "
+        + (System.currentTimeMillis() - start) + "ms");
+
+    ImageTile<float[][]> origin = grid.getSubGridTile(0, 0);
+    int maxError = 0;
+    for (int r = 0; r < size; r++) {
+      for (int c = 0; c < size; c++) {
+        ImageTile<float[][]> tile = grid.getSubGridTile(r, c);
+        int i = r * size + c;
+        maxError = Math.max(maxError, Math.abs(tile.getAbsXPos() - origin.getAbsXPos()
+            - (posX[i] - posX[0])));
+        maxError = Math.max(maxError, Math.abs(tile.getAbsYPos() - origin.getAbsYPos()
+            - (posY[i] - posY[0])));
+      }
+    }
+    return maxError;
+  }
+
+  /**
+   * Consistent translations must give back the exact positions
+   *
+   * @return true if every position is recovered
+   */
+  public static boolean runTestExact() throws Throwable {
+    boolean passed = true;
+    int[] sizes = {1, 2, 7, 64};
+    for (int size : sizes) {
+      int error = solveAndMeasure(size, 0.0, size);
+      passed &= error == 0;
+      Log.msg(LogType.MANDATORY, "Exact " + size + "x" + size + ": max error " + error + " px");
+    }
+    return passed;
+  }
+
+  /**
+   * Outliers rejected by the stage model must not move the positions by more than rounding
+   *
+   * @return true if the positions are within a pixel of the truth
+   */
+  public static boolean runTestOutliers() throws Throwable {
+    boolean passed = true;
+    int[] sizes = {16, 100};
+    for (int size : sizes) {
+      int error = solveAndMeasure(size, OutlierRate, 31L * size);
+      passed &= error <= 1;
+      Log.msg(LogType.MANDATORY, "Outliers " + size + "x" + size + ": max error " + error
+          + " px");
+    }
+    return passed;
+  }
+
+  /**
+   * Executes the test case
+   *
+   * @param args not used
+   */
+  public static void main(String[] args) {
+    Log.setLogLevel(LogType.HELPFUL);
+    Log.msg(LogType.MANDATORY, "Running Test Least Squares Position Solver");
+
+    boolean passed;
+    try {
+      passed = runTestExact();
+      passed &= runTestOutliers();
+    } catch (Throwable e) {
+      Log.msg(LogType.MANDATORY, "Least squares test failed: " + e.getMessage());
+      passed = false;
+    }
+
+    Log.msg(LogType.MANDATORY, "Test Completed: " + (passed ? "PASSED" : "FAILED"));
+  }
+}
@@ -0,0 +1,204 @@
+// NIST-developed software is provided by NIST as a public service. You may use, copy and distribute copies of the software in any medium, provided that you keep intact this entire notice. You may improve, modify and create derivative works of the software or any portion of the software, and you may copy and distribute such modifications or works. Modified works should carry a notice stating that you changed the software and should note the date and nature of any such change. Please explicitly acknowledge the National Institute of Standards and Technology as the source of the software.
+
+// NIST-developed software is expressly provided "AS IS." NIST MAKES NO WARRANTY OF ANY KIND, EXPRESS, IMPLIED, IN FACT OR ARISING BY OPERATION OF LAW, INCLUDING, WITHOUT LIMITATION, THE IMPLIED WARRANTY OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE, NON-INFRINGEMENT AND DATA ACCURACY. NIST NEITHER REPRESENTS NOR WARRANTS THAT THE OPERATION OF THE SOFTWARE WILL BE UNINTERRUPTED OR ERROR-FREE, OR THAT ANY DEFECTS WILL BE CORRECTED. NIST DOES NOT WARRANT OR MAKE ANY REPRESENTATIONS REGARDING THE USE OF THE SOFTWARE OR THE RESULTS THEREOF, INCLUDING BUT NOT LIMITED TO THE CORRECTNESS, ACCURACY, RELIABILITY, OR USEFULNESS OF THE SOFTWARE.
+
+// You are solely responsible for determining the appropriateness of using and distributing the software and you assume all risks associated with its use, including but not limited to the risks and costs of program errors, compliance with applicable laws, damage to or loss of data, programs or equipment, and the unavailability or interruption of operation. This software is not intended to be used in any situation where a failure could cause risk of injury or damage to property. The software developed by NIST employees is not subject to copyright protection within the United States.
+
+
+
+// ================================================================
+//
+// Author: tjb3
+// Date: Oct 20, 2026 11:48:21 AM EST
+//
+// Time-stamp: <Oct 20, 2026 11:48:21 AM tjb3>
+//
+//
+// ================================================================
+
+package gov.nist.isg.mist.grid;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import gov.nist.isg.mist.lib.imagetile.ImageTile;
+import gov.nist.isg.mist.lib.imagetile.java.JavaImageTile;
+import gov.nist.isg.mist.lib.log.Log;
+import gov.nist.isg.mist.lib.log.Log.LogType;
+import gov.nist.isg.mist.lib.tilegrid.TileGrid;
+import gov.nist.isg.mist.lib.tilegrid.loader.RowColTileGridLoader;
+import gov.nist.isg.mist.lib.tilegrid.loader.TileGridLoader.GridOrigin;
+import gov.nist.isg.mist.lib.tilegrid.traverser.TileGridLiveTraverser;
+
+/**
+ * Test case for the live traverser. Tiles must be returned in the order their files are created,
+ * a file that is still being written must not be returned until its size has settled, and the
+ * tiles that never appear must be returned as missing once the acquisition times out.
+ *
+ * @author Tim Blattner
+ * @version 1.0
+ */
+public class TestLiveTraverser {
+
+  private static final long SettleMillis = 400;
+  private static final long TimeoutMillis = 1500;
+  private static final long WriteGapMillis = 150;
+  private static final int NumChunks = 4;
+  private static final int ChunkSize = 1024;
+
+  /**
+   * Acquires three tiles of a 2x2 grid out of grid order and never acquires the last one
+   *
+   * @param dir an empty directory the tiles are written to
+   * @return true if the tiles were returned in acquisition order after settling
+   */
+  public static boolean runTestAcquisition(File dir) throws Exception {
+    TileGrid<ImageTile<float[][]>> grid = new TileGrid<ImageTile<float[][]>>(0, 0, 2, 2,
+        new RowColTileGridLoader(2, 2, 0, 0, 0, "tile_r{r}_c{c}.tif", GridOrigin.UL), dir,
+        JavaImageTile.class);
+    TileGridLiveTraverser<ImageTile<float[][]>> traverser =
+        new TileGridLiveTraverser<ImageTile<float[][]>>(grid, SettleMillis, TimeoutMillis);
+
+    boolean passed = true;
+    try {
+      // complete files are returned in the order they were created
+      writeFile(tileFile(grid, 1, 1), 1);
+      passed &= check("First acquired", traverser.next(), 1, 1, true);
+      writeFile(tileFile(grid, 0, 1), 1);
+      passed &= check("Second acquired", traverser.next(), 0, 1, true);
+
+      // a file that is still growing is only returned once it has not changed for the settle time
+      final File growing = tileFile(grid, 1, 0);
+      final long[] lastWrite = new long[1];
+      Thread writer = new Thread(new Runnable() {
+        @Override
+        public void run() {
+          try {
+            FileOutputStream out = new FileOutputStream(growing);
+            try {
+              for (int i = 0; i < NumChunks; i++) {
+                out.write(new byte[ChunkSize]);
+                out.flush();
+                lastWrite[0] = System.currentTimeMillis();
+                Thread.sleep(WriteGapMillis);
+              }
+            } finally {
+              out.close();
+            }
+          } catch (Exception e) {
+            Log.msg(LogType.MANDATORY, "Unable to write " + growing + ": " + e.getMessage());
+          }
+        }
+      });
+      writer.start();
+      ImageTile<float[][]> settled = traverser.next();
+      long returned = System.currentTimeMillis();
+      long length = growing.length();
+      writer.join();
+
+      passed &= check("Settled", settled, 1, 0, true);
+      if (length != NumChunks * ChunkSize || returned - lastWrite[0] < SettleMillis) {
+        Log.msg(LogType.MANDATORY, "Tile returned " + (returned - lastWrite[0])
+            + "ms after its last write with " + length + " of " + NumChunks * ChunkSize
+            + " bytes: FAILED");
+        passed = false;
+      }
+
+      // the tile that is never acquired is returned as missing after the timeout
+      long start = System.currentTimeMillis();
+      passed &= check("Timed out", traverser.next(), 0, 0, false);
+      if (System.currentTimeMillis() - start < TimeoutMillis - SettleMillis) {
+        Log.msg(LogType.MANDATORY, "Missing tile returned before the timeout: FAILED");
+        passed = false;
+      }
+
+      if (traverser.hasNext()) {
+        Log.msg(LogType.MANDATORY, "Traverser has tiles left after the whole grid: FAILED");
+        passed = false;
+      }
+    } finally {
+      traverser.close();
+    }
+    return passed;
+  }
+
+  /**
+   * Checks the peak number of tiles held while stitching in acquisition order
+   *
+   * @param dir the image directory of the grids
+   * @return true if a full row or column plus the tiles being paired are accounted for
+   */
+  public static boolean runTestPeakTiles(File dir) throws Exception {
+    boolean passed = true;
+    int[][] sizes = {{1, 1}, {5, 3}, {3, 5}, {12, 12}};
+    for (int[] size : sizes) {
+      TileGrid<ImageTile<float[][]>> grid = new TileGrid<ImageTile<float[][]>>(0, 0, size[0],
+          size[1], new RowColTileGridLoader(size[0], size[1], 0, 0, 0, "tile_r{r}_c{c}.tif",
+          GridOrigin.UL), dir, JavaImageTile.class);
+      int expected = Math.max(size[0], size[1]) + 2;
+      int peak = TileGridLiveTraverser.getPeakTiles(grid);
+      if (peak != expected) {
+        Log.msg(LogType.MANDATORY, size[0] + "x" + size[1] + " peak tiles " + peak
+            + ", expected " + expected + ": FAILED");
+        passed = false;
+      }
+    }
+    Log.msg(LogType.MANDATORY, "Peak tiles: " + (passed ? "PASSED" : "FAILED"));
+    return passed;
+  }
+
+  private static File tileFile(TileGrid<ImageTile<float[][]>> grid, int row, int col) {
+    return new File(grid.getSubGridTile(row, col).getFilePath());
+  }
+
+  private static void writeFile(File file, int numChunks) throws IOException {
+    FileOutputStream out = new FileOutputStream(file);
+    try {
+      for (int i = 0; i < numChunks; i++)
+        out.write(new byte[ChunkSize]);
+    } finally {
+      out.close();
+    }
+  }
+
+  private static boolean check(String name, ImageTile<float[][]> tile, int row, int col,
+                               boolean exists) {
+    boolean passed = tile != null && tile.getRow() == row && tile.getCol() == col
+        && tile.fileExists() == exists;
+    Log.msg(LogType.MANDATORY, name + ": " + (tile == null ? "null" : tile.getFileName()
+        + " exists: " + tile.fileExists()) + " " + (passed ? "PASSED" : "FAILED"));
+    return passed;
+  }
+
+  /**
+   * Executes the test case
+   *
+   * @param args the directory to write the tiles into (optional)
+   */
+  public static void main(String[] args) {
+    Log.setLogLevel(LogType.INFO);
+    Log.msg(LogType.MANDATORY, "Running Test Live Traverser");
+
+    File dir = new File(args.length > 0 ? args[0] : "live-traverser-grid");
+    if (!dir.exists() && !dir.mkdirs()) {
+      Log.msg(LogType.MANDATORY, "Unable to create " + dir.getAbsolutePath());
+      return;
+    }
+    File[] existing = dir.listFiles();
+    if (existing != null) {
+      for (File f : existing)
+        f.delete();
+    }
+
+    boolean passed = false;
+    try {
+      passed = runTestAcquisition(dir);
+      passed &= runTestPeakTiles(dir);
+    } catch (Exception e) {
+      Log.msg(LogType.MANDATORY, "Live traverser test failed: " + e.getMessage());
+    }
+
+    Log.msg(LogType.MANDATORY, "Test Completed: " + (passed ? "PASSED" : "FAILED"));
+  }
+}
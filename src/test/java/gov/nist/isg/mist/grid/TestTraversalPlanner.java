@@ -0,0 +1,204 @@
+// NIST-developed software is provided by NIST as a public service. You may use, copy and distribute copies of the software in any medium, provided that you keep intact this entire notice. You may improve, modify and create derivative works of the software or any portion of the software, and you may copy and distribute such modifications or works. Modified works should carry a notice stating that you changed the software and should note the date and nature of any such change. Please explicitly acknowledge the National Institute of Standards and Technology as the source of the software.
+
+// NIST-developed software is expressly provided "AS IS." NIST MAKES NO WARRANTY OF ANY KIND, EXPRESS, IMPLIED, IN FACT OR ARISING BY OPERATION OF LAW, INCLUDING, WITHOUT LIMITATION, THE IMPLIED WARRANTY OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE, NON-INFRINGEMENT AND DATA ACCURACY. NIST NEITHER REPRESENTS NOR WARRANTS THAT THE OPERATION OF THE SOFTWARE WILL BE UNINTERRUPTED OR ERROR-FREE, OR THAT ANY DEFECTS WILL BE CORRECTED. NIST DOES NOT WARRANT OR MAKE ANY REPRESENTATIONS REGARDING THE USE OF THE SOFTWARE OR THE RESULTS THEREOF, INCLUDING BUT NOT LIMITED TO THE CORRECTNESS, ACCURACY, RELIABILITY, OR USEFULNESS OF THE SOFTWARE.
+
+// You are solely responsible for determining the appropriateness of using and distributing the software and you assume all risks associated with its use, including but not limited to the risks and costs of program errors, compliance with applicable laws, damage to or loss of data, programs or equipment, and the unavailability or interruption of operation. This software is not intended to be used in any situation where a failure could cause risk of injury or damage to property. The software developed by NIST employees is not subject to copyright protection within the United States.
+
+
+
+// ================================================================
+//
+// Author: tjb3
+// Date: Oct 20, 2026 11:05:44 AM EST
+//
+// Time-stamp: <Oct 20, 2026 11:05:44 AM tjb3>
+//
+//
+// ================================================================
+
+package gov.nist.isg.mist.grid;
+
+import java.io.File;
+import java.io.InvalidClassException;
+
+import gov.nist.isg.mist.lib.imagetile.ImageTile;
+import gov.nist.isg.mist.lib.imagetile.java.JavaImageTile;
+import gov.nist.isg.mist.lib.log.Log;
+import gov.nist.isg.mist.lib.log.Log.LogType;
+import gov.nist.isg.mist.lib.tilegrid.TileGrid;
+import gov.nist.isg.mist.lib.tilegrid.TileGridUtils;
+import gov.nist.isg.mist.lib.tilegrid.loader.SequentialTileGridLoader;
+import gov.nist.isg.mist.lib.tilegrid.loader.TileGridLoader;
+import gov.nist.isg.mist.lib.tilegrid.loader.TileGridLoader.GridDirection;
+import gov.nist.isg.mist.lib.tilegrid.loader.TileGridLoader.GridOrigin;
+import gov.nist.isg.mist.lib.tilegrid.traverser.TileGridTraversalPlanner;
+import gov.nist.isg.mist.lib.tilegrid.traverser.TileGridTraverser;
+import gov.nist.isg.mist.lib.tilegrid.traverser.TileGridTraverser.Traversals;
+import gov.nist.isg.mist.lib.tilegrid.traverser.TileGridTraverserFactory;
+
+/**
+ * Test case for the Hilbert traverser and the traversal planner. Every traversal must visit each
+ * tile of a subgrid exactly once, the simulated peak working set of each traversal must match a
+ * direct count of the tiles that still have an unvisited neighbor, and the planner must select
+ * the traversal with the smallest simulated peak.
+ *
+ * @author Tim Blattner
+ * @version 1.0
+ */
+public class TestTraversalPlanner {
+
+  private static final int[][] SubGrids = {
+      // startRow, startCol, extentWidth, extentHeight
+      {0, 0, 1, 1},
+      {0, 0, 7, 1},
+      {0, 0, 1, 6},
+      {2, 3, 5, 3},
+      {0, 0, 8, 8},
+      {1, 1, 13, 9},
+      {0, 0, 20, 3},
+      {0, 0, 3, 17}
+  };
+
+  /**
+   * Runs every traversal over each subgrid
+   *
+   * @return true if every check passed
+   */
+  public static boolean runTestTraversals() throws InvalidClassException {
+    boolean passed = true;
+    for (int[] sub : SubGrids) {
+      TileGrid<ImageTile<float[][]>> grid = makeGrid(sub[0], sub[1], sub[2], sub[3]);
+
+      int bestPeak = Integer.MAX_VALUE;
+      for (Traversals type : Traversals.values()) {
+        passed &= checkCoverage(grid, type);
+
+        int expected = countPeakFfts(grid, type);
+        int simulated = TileGridTraversalPlanner.simulate(grid, type).getPeakFfts();
+        if (simulated != expected) {
+          Log.msg(LogType.MANDATORY, type + " on " + describe(sub) + ": simulated peak "
+              + simulated + ", expected " + expected);
+          passed = false;
+        }
+        bestPeak = Math.min(bestPeak, expected);
+      }
+
+      TileGridTraversalPlanner.Plan plan = TileGridTraversalPlanner.plan(grid);
+      if (plan.getPeakFfts() != bestPeak) {
+        Log.msg(LogType.MANDATORY, "Planner selected " + plan + " on " + describe(sub)
+            + ", smallest peak is " + bestPeak);
+        passed = false;
+      }
+
+      // a row or column at a time never holds more than the shorter side plus two
+      int bound = Math.min(sub[2], sub[3]) + 2;
+      if (plan.getPeakFfts() > bound) {
+        Log.msg(LogType.MANDATORY, "Planner peak " + plan.getPeakFfts() + " on " + describe(sub)
+            + " exceeds " + bound);
+        passed = false;
+      }
+
+      Log.msg(LogType.HELPFUL, describe(sub) + ": " + plan);
+    }
+    return passed;
+  }
+
+  /**
+   * Checks that a traversal visits each tile of the subgrid exactly once
+   */
+  private static boolean checkCoverage(TileGrid<ImageTile<float[][]>> grid, Traversals type) {
+    int width = grid.getExtentWidth();
+    int height = grid.getExtentHeight();
+    int[] visits = new int[width * height];
+
+    TileGridTraverser<ImageTile<float[][]>> traverser =
+        TileGridTraverserFactory.makeTraverser(type, grid);
+    for (ImageTile<float[][]> tile : traverser) {
+      int row = tile.getRow() - grid.getStartRow();
+      int col = tile.getCol() - grid.getStartCol();
+      if (row < 0 || row >= height || col < 0 || col >= width) {
+        Log.msg(LogType.MANDATORY, type + " visited " + tile.getFileName() + " outside of the subgrid");
+        return false;
+      }
+      visits[row * width + col]++;
+    }
+
+    for (int i = 0; i < visits.length; i++) {
+      if (visits[i] != 1) {
+        Log.msg(LogType.MANDATORY, type + " visited tile (" + (i / width) + ", " + (i % width)
+            + ") " + visits[i] + " times");
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Counts the peak number of FFTs held by a traversal directly: when a tile is visited, every
+   * earlier tile that still has an unvisited neighbor holds its FFT, as does the new tile.
+   */
+  private static int countPeakFfts(TileGrid<ImageTile<float[][]>> grid, Traversals type) {
+    int width = grid.getExtentWidth();
+    int height = grid.getExtentHeight();
+    boolean[] visited = new boolean[width * height];
+
+    int peak = 0;
+    TileGridTraverser<ImageTile<float[][]>> traverser =
+        TileGridTraverserFactory.makeTraverser(type, grid);
+    for (ImageTile<float[][]> tile : traverser) {
+      int held = 1;
+      for (int i = 0; i < visited.length; i++) {
+        if (visited[i] && hasUnvisitedNeighbor(visited, i / width, i % width, width, height))
+          held++;
+      }
+      peak = Math.max(peak, held);
+
+      visited[(tile.getRow() - grid.getStartRow()) * width + tile.getCol() - grid.getStartCol()] =
+          true;
+    }
+    return peak;
+  }
+
+  private static boolean hasUnvisitedNeighbor(boolean[] visited, int row, int col, int width,
+                                              int height) {
+    return (row > 0 && !visited[(row - 1) * width + col])
+        || (row < height - 1 && !visited[(row + 1) * width + col])
+        || (col > 0 && !visited[row * width + col - 1])
+        || (col < width - 1 && !visited[row * width + col + 1]);
+  }
+
+  private static TileGrid<ImageTile<float[][]>> makeGrid(int startRow, int startCol,
+                                                         int extentWidth, int extentHeight)
+      throws InvalidClassException {
+    TileGridLoader loader = new SequentialTileGridLoader(startCol + extentWidth,
+        startRow + extentHeight, 1, 0, 0, "{pppp}", GridOrigin.UL,
+        GridDirection.HORIZONTALCOMBING);
+    TileGrid<ImageTile<float[][]>> grid = new TileGrid<ImageTile<float[][]>>(startRow, startCol,
+        extentWidth, extentHeight, loader, new File(""), JavaImageTile.class);
+    TileGridUtils.resetReleaseCounts(grid);
+    return grid;
+  }
+
+  private static String describe(int[] sub) {
+    return sub[2] + "x" + sub[3] + " subgrid at (" + sub[0] + ", " + sub[1] + ")";
+  }
+
+  /**
+   * Executes the test case
+   *
+   * @param args not used
+   */
+  public static void main(String[] args) {
+    Log.setLogLevel(LogType.INFO);
+    Log.msg(LogType.MANDATORY, "Running Test Traversal Planner");
+
+    boolean passed = false;
+    try {
+      passed = runTestTraversals();
+    } catch (InvalidClassException e) {
+      Log.msg(LogType.MANDATORY, e.getMessage());
+    }
+
+    Log.msg(LogType.MANDATORY, "Test Completed: " + (passed ? "PASSED" : "FAILED"));
+  }
+}
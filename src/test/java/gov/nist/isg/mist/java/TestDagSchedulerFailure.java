@@ -0,0 +1,162 @@
+// NIST-developed software is provided by NIST as a public service. You may use, copy and distribute copies of the software in any medium, provided that you keep intact this entire notice. You may improve, modify and create derivative works of the software or any portion of the software, and you may copy and distribute such modifications or works. Modified works should carry a notice stating that you changed the software and should note the date and nature of any such change. Please explicitly acknowledge the National Institute of Standards and Technology as the source of the software.
+
+// NIST-developed software is expressly provided "AS IS." NIST MAKES NO WARRANTY OF ANY KIND, EXPRESS, IMPLIED, IN FACT OR ARISING BY OPERATION OF LAW, INCLUDING, WITHOUT LIMITATION, THE IMPLIED WARRANTY OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE, NON-INFRINGEMENT AND DATA ACCURACY. NIST NEITHER REPRESENTS NOR WARRANTS THAT THE OPERATION OF THE SOFTWARE WILL BE UNINTERRUPTED OR ERROR-FREE, OR THAT ANY DEFECTS WILL BE CORRECTED. NIST DOES NOT WARRANT OR MAKE ANY REPRESENTATIONS REGARDING THE USE OF THE SOFTWARE OR THE RESULTS THEREOF, INCLUDING BUT NOT LIMITED TO THE CORRECTNESS, ACCURACY, RELIABILITY, OR USEFULNESS OF THE SOFTWARE.
+
+// You are solely responsible for determining the appropriateness of using and distributing the software and you assume all risks associated with its use, including but not limited to the risks and costs of program errors, compliance with applicable laws, damage to or loss of data, programs or equipment, and the unavailability or interruption of operation. This software is not intended to be used in any situation where a failure could cause risk of injury or damage to property. The software developed by NIST employees is not subject to copyright protection within the United States.
+
+
+
+// ================================================================
+//
+// Author: tjb3
+// Date: Oct 20, 2026 12:41:05 PM EST
+//
+// Time-stamp: <Oct 20, 2026 12:41:05 PM tjb3>
+//
+//
+// ================================================================
+
+package gov.nist.isg.mist.java;
+
+import java.io.File;
+
+import gov.nist.isg.mist.lib.imagetile.ImageTile;
+import gov.nist.isg.mist.lib.imagetile.java.JavaImageTile;
+import gov.nist.isg.mist.lib.imagetile.memory.TileWorkerMemory;
+import gov.nist.isg.mist.lib.log.Log;
+import gov.nist.isg.mist.lib.log.Log.LogType;
+import gov.nist.isg.mist.lib.memorypool.DynamicMemoryPool;
+import gov.nist.isg.mist.lib.parallel.cpu.CPUStitchingThreadExecutor;
+import gov.nist.isg.mist.lib.tilegrid.TileGrid;
+import gov.nist.isg.mist.lib.tilegrid.loader.RowColTileGridLoader;
+import gov.nist.isg.mist.lib.tilegrid.loader.TileGridLoader.GridOrigin;
+import gov.nist.isg.mist.lib.tilegrid.traverser.TileGridTraverser.Traversals;
+import gov.nist.isg.mist.lib.tilegrid.traverser.TileGridTraverserFactory;
+import gov.nist.isg.mist.stitchingruntime.SyntheticGridGenerator;
+
+/**
+ * Test case for failures in the task graph scheduler. The FFT of one tile throws, which must
+ * cancel the producers, release the memory held by the dropped tasks and end the run with the
+ * injected error instead of blocking. A run without a failure must compute every pair.
+ *
+ * @author Tim Blattner
+ * @version 1.0
+ */
+public class TestDagSchedulerFailure {
+
+  private static final int GridSize = 5;
+  private static final long TimeoutMillis = 60000;
+
+  /**
+   * Java image tile whose FFT fails for one file
+   */
+  public static class FailingJavaImageTile extends JavaImageTile {
+
+    private static volatile String failFileName = null;
+
+    public FailingJavaImageTile(File file, int row, int col, int gridWidth, int gridHeight,
+                                int startRow, int startCol) {
+      super(file, row, col, gridWidth, gridHeight, startRow, startCol);
+    }
+
+    @Override
+    public void computeFft(DynamicMemoryPool<float[][]> pool, TileWorkerMemory memory) {
+      if (this.getFileName().equals(failFileName))
+        throw new IllegalStateException("injected fft failure: " + this.getFileName());
+      super.computeFft(pool, memory);
+    }
+  }
+
+  /**
+   * Stitches the grid with the task graph scheduler
+   *
+   * @param dir          the directory of the synthetic grid
+   * @param failFileName the tile whose FFT fails, or null
+   * @return the executor after the run, or null if the run did not finish within the timeout
+   */
+  private static CPUStitchingThreadExecutor<float[][]> runScheduler(File dir, String failFileName)
+      throws Exception {
+    FailingJavaImageTile.failFileName = failFileName;
+
+    TileGrid<ImageTile<float[][]>> grid = new TileGrid<ImageTile<float[][]>>(0, 0, GridSize,
+        GridSize, new RowColTileGridLoader(GridSize, GridSize, 0, 0, 0,
+        SyntheticGridGenerator.FILENAME_PATTERN, GridOrigin.UL), dir, FailingJavaImageTile.class);
+    ImageTile<float[][]> initTile = grid.getSubGridTile(0, 0);
+    initTile.readTile();
+    JavaImageTile.initJavaPlan(initTile);
+
+    final CPUStitchingThreadExecutor<float[][]> executor =
+        new CPUStitchingThreadExecutor<float[][]>(1, 2, initTile, grid, null, 0L, 0L,
+            TileGridTraverserFactory.makeTraverser(Traversals.ROW, grid), true);
+    initTile.releasePixels();
+
+    Thread runner = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        executor.execute();
+      }
+    });
+    runner.start();
+    runner.join(TimeoutMillis);
+    if (runner.isAlive()) {
+      executor.cancel();
+      return null;
+    }
+
+    if (failFileName == null) {
+      for (int r = 0; r < GridSize; r++) {
+        for (int c = 0; c < GridSize; c++) {
+          ImageTile<float[][]> t = grid.getSubGridTile(r, c);
+          if ((c > 0 && t.getWestTranslation() == null)
+              || (r > 0 && t.getNorthTranslation() == null))
+            throw new IllegalStateException("Missing translation for " + t.getFileName());
+        }
+      }
+    }
+    return executor;
+  }
+
+  /**
+   * Runs the scheduler without and with an injected failure
+   *
+   * @param dir the directory to write the synthetic grid into
+   * @return true if the failing run ends with the injected error
+   */
+  public static boolean runTestFailure(File dir) throws Exception {
+    SyntheticGridGenerator generator = new SyntheticGridGenerator().gridSize(GridSize, GridSize)
+        .tileSize(128, 96).bitDepth(16).overlap(20).stageJitter(4).noise(0.05).seed(7);
+    generator.generate(dir);
+
+    CPUStitchingThreadExecutor<float[][]> executor = runScheduler(dir, null);
+    boolean passed = executor != null && !executor.isExceptionThrown();
+    Log.msg(LogType.MANDATORY, "Run without failure: " + (passed ? "PASSED" : "FAILED"));
+
+    String failFileName = String.format("img_r%03d_c%03d.tif", 2, 1);
+    executor = runScheduler(dir, failFileName);
+    boolean failed = executor != null && executor.isExceptionThrown()
+        && executor.getWorkerThrowable() instanceof IllegalStateException
+        && executor.getWorkerThrowable().getMessage().endsWith(failFileName);
+    Log.msg(LogType.MANDATORY, "Run with failure: " + (executor == null ? "did not finish"
+        : String.valueOf(executor.getWorkerThrowable())) + " " + (failed ? "PASSED" : "FAILED"));
+    return passed && failed;
+  }
+
+  /**
+   * Executes the test case
+   *
+   * @param args the directory to write the synthetic grid into (optional)
+   */
+  public static void main(String[] args) {
+    Log.setLogLevel(LogType.INFO);
+    Log.msg(LogType.MANDATORY, "Running Test DAG Scheduler Failure");
+
+    boolean passed = false;
+    try {
+      passed = runTestFailure(new File(args.length > 0 ? args[0] : "dag-failure-grid"));
+    } catch (Exception e) {
+      Log.msg(LogType.MANDATORY, "DAG scheduler failure test failed: " + e.getMessage());
+    }
+
+    Log.msg(LogType.MANDATORY, "Test Completed: " + (passed ? "PASSED" : "FAILED"));
+  }
+}
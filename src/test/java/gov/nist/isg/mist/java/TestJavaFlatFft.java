@@ -0,0 +1,139 @@
+// NIST-developed software is provided by NIST as a public service. You may use, copy and distribute copies of the software in any medium, provided that you keep intact this entire notice. You may improve, modify and create derivative works of the software or any portion of the software, and you may copy and distribute such modifications or works. Modified works should carry a notice stating that you changed the software and should note the date and nature of any such change. Please explicitly acknowledge the National Institute of Standards and Technology as the source of the software.
+
+// NIST-developed software is expressly provided "AS IS." NIST MAKES NO WARRANTY OF ANY KIND, EXPRESS, IMPLIED, IN FACT OR ARISING BY OPERATION OF LAW, INCLUDING, WITHOUT LIMITATION, THE IMPLIED WARRANTY OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE, NON-INFRINGEMENT AND DATA ACCURACY. NIST NEITHER REPRESENTS NOR WARRANTS THAT THE OPERATION OF THE SOFTWARE WILL BE UNINTERRUPTED OR ERROR-FREE, OR THAT ANY DEFECTS WILL BE CORRECTED. NIST DOES NOT WARRANT OR MAKE ANY REPRESENTATIONS REGARDING THE USE OF THE SOFTWARE OR THE RESULTS THEREOF, INCLUDING BUT NOT LIMITED TO THE CORRECTNESS, ACCURACY, RELIABILITY, OR USEFULNESS OF THE SOFTWARE.
+
+// You are solely responsible for determining the appropriateness of using and distributing the software and you assume all risks associated with its use, including but not limited to the risks and costs of program errors, compliance with applicable laws, damage to or loss of data, programs or equipment, and the unavailability or interruption of operation. This software is not intended to be used in any situation where a failure could cause risk of injury or damage to property. The software developed by NIST employees is not subject to copyright protection within the United States.
+
+
+// ================================================================
+//
+// Author: tjb3
+// Date: Oct 19, 2026 11:02:45 AM EST
+//
+// Time-stamp: <Oct 19, 2026 11:02:45 AM tjb3>
+//
+//
+// ================================================================
+
+package gov.nist.isg.mist.java;
+
+import java.util.Random;
+
+import gov.nist.isg.mist.lib.imagetile.java.FlatFft;
+import gov.nist.isg.mist.lib.log.Log;
+import gov.nist.isg.mist.lib.log.Log.LogType;
+import gov.nist.isg.mist.timing.TimeUtil;
+
+/**
+ * Test case for the flat buffer Java FFT. Compares the forward transform against a direct DFT for
+ * small sizes, checks that the inverse recovers the input and times the transform at a typical
+ * tile size.
+ *
+ * @author Tim Blattner
+ * @version 1.0
+ */
+public class TestJavaFlatFft {
+
+  private static final double DFT_TOLERANCE = 1e-3;
+  private static final double ROUND_TRIP_TOLERANCE = 1e-5;
+
+  /**
+   * Tests the forward and inverse transforms against a direct DFT.
+   */
+  public static boolean runTestAccuracy() {
+    int[][] sizes = {{1, 1}, {2, 3}, {7, 5}, {30, 22}, {33, 17}, {127, 49}};
+
+    boolean passed = true;
+    Random random = new Random(0);
+    for (int[] size : sizes) {
+      int width = size[0];
+      int height = size[1];
+      FlatFft plan = new FlatFft(width, height);
+      int stride = plan.getRowStride();
+      int fftWidth = plan.getFftWidth();
+      int fftHeight = plan.getFftHeight();
+
+      float[] buffer = new float[plan.getBufferSize()];
+      for (int r = 0; r < height; r++)
+        for (int c = 0; c < width; c++)
+          buffer[r * stride + c] = random.nextFloat();
+      float[] input = buffer.clone();
+
+      plan.applyForward(buffer, height);
+
+      double dftError = 0.0;
+      for (int ky = 0; ky < fftHeight; ky++) {
+        for (int kx = 0; kx < plan.getComplexWidth(); kx++) {
+          double re = 0.0;
+          double im = 0.0;
+          for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+              double phase = -2.0 * Math.PI * ((double) kx * x / fftWidth + (double) ky * y / fftHeight);
+              re += input[y * stride + x] * Math.cos(phase);
+              im += input[y * stride + x] * Math.sin(phase);
+            }
+          }
+          dftError = Math.max(dftError, Math.abs(re - buffer[ky * stride + 2 * kx]));
+          dftError = Math.max(dftError, Math.abs(im - buffer[ky * stride + 2 * kx + 1]));
+        }
+      }
+
+      plan.applyInverse(buffer);
+
+      double roundTripError = 0.0;
+      for (int r = 0; r < fftHeight; r++)
+        for (int c = 0; c < fftWidth; c++)
+          roundTripError = Math.max(roundTripError,
+              Math.abs(buffer[r * stride + c] - input[r * stride + c]));
+
+      boolean ok = dftError < DFT_TOLERANCE && roundTripError < ROUND_TRIP_TOLERANCE;
+      passed &= ok;
+      Log.msg(LogType.MANDATORY, width + "x" + height + " (fft " + fftWidth + "x" + fftHeight
+          + "): dft error " + dftError + ", round trip error " + roundTripError
+          + (ok ? "" : " FAILED"));
+    }
+
+    return passed;
+  }
+
+  /**
+   * Times the forward and inverse transforms of a typical tile size.
+   */
+  public static void runTestTiming(int numThreads) {
+    FlatFft plan = new FlatFft(1392, 1040);
+    plan.setNumThreads(numThreads);
+    float[] buffer = new float[plan.getBufferSize()];
+
+    // warm up
+    for (int i = 0; i < 5; i++) {
+      plan.applyForward(buffer, plan.getHeight());
+      plan.applyInverse(buffer);
+    }
+
+    TimeUtil.tick();
+    int numIterations = 20;
+    for (int i = 0; i < numIterations; i++) {
+      plan.applyForward(buffer, plan.getHeight());
+      plan.applyInverse(buffer);
+    }
+    Log.msg(LogType.MANDATORY, numThreads + " thread(s): forward + inverse of 1392x1040 (fft "
+        + plan.getFftWidth() + "x" + plan.getFftHeight() + ") in "
+        + ((double) TimeUtil.tock() / numIterations) + "ms");
+  }
+
+  /**
+   * Executes the test case
+   *
+   * @param args not used
+   */
+  public static void main(String[] args) {
+    Log.setLogLevel(LogType.INFO);
+    Log.msg(LogType.MANDATORY, "Running Test Flat Java FFT");
+
+    boolean passed = runTestAccuracy();
+    runTestTiming(1);
+    runTestTiming(Runtime.getRuntime().availableProcessors());
+
+    Log.msg(LogType.MANDATORY, "Test Completed: " + (passed ? "PASSED" : "FAILED"));
+  }
+}
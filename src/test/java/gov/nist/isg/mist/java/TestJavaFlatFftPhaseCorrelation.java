@@ -0,0 +1,114 @@
+// NIST-developed software is provided by NIST as a public service. You may use, copy and distribute copies of the software in any medium, provided that you keep intact this entire notice. You may improve, modify and create derivative works of the software or any portion of the software, and you may copy and distribute such modifications or works. Modified works should carry a notice stating that you changed the software and should note the date and nature of any such change. Please explicitly acknowledge the National Institute of Standards and Technology as the source of the software.
+
+// NIST-developed software is expressly provided "AS IS." NIST MAKES NO WARRANTY OF ANY KIND, EXPRESS, IMPLIED, IN FACT OR ARISING BY OPERATION OF LAW, INCLUDING, WITHOUT LIMITATION, THE IMPLIED WARRANTY OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE, NON-INFRINGEMENT AND DATA ACCURACY. NIST NEITHER REPRESENTS NOR WARRANTS THAT THE OPERATION OF THE SOFTWARE WILL BE UNINTERRUPTED OR ERROR-FREE, OR THAT ANY DEFECTS WILL BE CORRECTED. NIST DOES NOT WARRANT OR MAKE ANY REPRESENTATIONS REGARDING THE USE OF THE SOFTWARE OR THE RESULTS THEREOF, INCLUDING BUT NOT LIMITED TO THE CORRECTNESS, ACCURACY, RELIABILITY, OR USEFULNESS OF THE SOFTWARE.
+
+// You are solely responsible for determining the appropriateness of using and distributing the software and you assume all risks associated with its use, including but not limited to the risks and costs of program errors, compliance with applicable laws, damage to or loss of data, programs or equipment, and the unavailability or interruption of operation. This software is not intended to be used in any situation where a failure could cause risk of injury or damage to property. The software developed by NIST employees is not subject to copyright protection within the United States.
+
+
+
+// ================================================================
+//
+// Author: tjb3
+// Date: Oct 20, 2026 9:14:02 AM EST
+//
+// Time-stamp: <Oct 20, 2026 9:14:02 AM tjb3>
+//
+//
+// ================================================================
+
+package gov.nist.isg.mist.java;
+
+import java.io.File;
+import java.io.IOException;
+
+import gov.nist.isg.mist.lib.common.CorrelationTriple;
+import gov.nist.isg.mist.lib.imagetile.Stitching;
+import gov.nist.isg.mist.lib.imagetile.java.JavaImageTile;
+import gov.nist.isg.mist.lib.imagetile.memory.JavaTileWorkerMemory;
+import gov.nist.isg.mist.lib.imagetile.memory.TileWorkerMemory;
+import gov.nist.isg.mist.lib.log.Log;
+import gov.nist.isg.mist.lib.log.Log.LogType;
+import gov.nist.isg.mist.stitchingruntime.SyntheticGridGenerator;
+
+/**
+ * Test case for the phase correlation of the flat buffer Java FFT when the tile size is not 2-3-5
+ * smooth, so the transforms are zero padded. Every west and north pair of a synthetic grid must
+ * be aligned to its known shift, including pairs whose shift is negative along the other axis.
+ *
+ * @author Tim Blattner
+ * @version 1.0
+ */
+public class TestJavaFlatFftPhaseCorrelation {
+
+  /**
+   * Aligns every pair of a synthetic grid of 302x214 tiles (padded to 320x216).
+   *
+   * @param dir the directory the synthetic grid is written to
+   * @return true if every pair was aligned to its known shift
+   */
+  public static boolean runTestPaddedAlignment(File dir) throws IOException {
+    SyntheticGridGenerator generator = new SyntheticGridGenerator().gridSize(3, 3)
+        .tileSize(302, 214).bitDepth(16).overlap(20).stageJitter(8).noise(0.02).seed(7);
+    generator.generate(dir);
+
+    JavaImageTile[][] tiles = new JavaImageTile[3][3];
+    for (int r = 0; r < 3; r++)
+      for (int c = 0; c < 3; c++)
+        tiles[r][c] = new JavaImageTile(new File(dir, String.format("img_r%03d_c%03d.tif", r, c)),
+            r, c, 3, 3, 0, 0);
+
+    JavaImageTile.enableFlatFft();
+    JavaImageTile.initJavaPlan(tiles[0][0]);
+    Log.msg(LogType.MANDATORY, "Tile 302x214 padded to " + JavaImageTile.flatFftPlan.getFftWidth()
+        + "x" + JavaImageTile.flatFftPlan.getFftHeight());
+
+    TileWorkerMemory memory = new JavaTileWorkerMemory(tiles[0][0]);
+
+    boolean passed = true;
+    for (int r = 0; r < 3; r++) {
+      for (int c = 0; c < 3; c++) {
+        if (c > 0)
+          passed &= checkPair(generator, tiles[r][c - 1], tiles[r][c], memory);
+        if (r > 0)
+          passed &= checkPair(generator, tiles[r - 1][c], tiles[r][c], memory);
+      }
+    }
+
+    JavaImageTile.disableFlatFft();
+    return passed;
+  }
+
+  private static boolean checkPair(SyntheticGridGenerator generator, JavaImageTile t1,
+                                   JavaImageTile t2, TileWorkerMemory memory) {
+    CorrelationTriple result = Stitching.phaseCorrelationImageAlignmentJava(t1, t2, memory);
+    int expectedX = generator.getPositionX(t2.getRow(), t2.getCol())
+        - generator.getPositionX(t1.getRow(), t1.getCol());
+    int expectedY = generator.getPositionY(t2.getRow(), t2.getCol())
+        - generator.getPositionY(t1.getRow(), t1.getCol());
+
+    boolean ok = result.getX() == expectedX && result.getY() == expectedY;
+    Log.msg(LogType.MANDATORY, t1.getFileName() + " -> " + t2.getFileName() + ": " + result
+        + " expected (" + expectedX + ", " + expectedY + ")" + (ok ? "" : " FAILED"));
+    return ok;
+  }
+
+  /**
+   * Executes the test case
+   *
+   * @param args the directory to write the synthetic grid into (optional)
+   */
+  public static void main(String[] args) {
+    Log.setLogLevel(LogType.INFO);
+    Log.msg(LogType.MANDATORY, "Running Test Flat Java FFT Phase Correlation");
+
+    File dir = new File(args.length > 0 ? args[0] : "flat-fft-padded-grid");
+    boolean passed = false;
+    try {
+      passed = runTestPaddedAlignment(dir);
+    } catch (IOException e) {
+      Log.msg(LogType.MANDATORY, "Unable to generate the synthetic grid: " + e.getMessage());
+    }
+
+    Log.msg(LogType.MANDATORY, "Test Completed: " + (passed ? "PASSED" : "FAILED"));
+  }
+}
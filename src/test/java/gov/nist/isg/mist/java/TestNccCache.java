@@ -0,0 +1,198 @@
+// NIST-developed software is provided by NIST as a public service. You may use, copy and distribute copies of the software in any medium, provided that you keep intact this entire notice. You may improve, modify and create derivative works of the software or any portion of the software, and you may copy and distribute such modifications or works. Modified works should carry a notice stating that you changed the software and should note the date and nature of any such change. Please explicitly acknowledge the National Institute of Standards and Technology as the source of the software.
+
+// NIST-developed software is expressly provided "AS IS." NIST MAKES NO WARRANTY OF ANY KIND, EXPRESS, IMPLIED, IN FACT OR ARISING BY OPERATION OF LAW, INCLUDING, WITHOUT LIMITATION, THE IMPLIED WARRANTY OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE, NON-INFRINGEMENT AND DATA ACCURACY. NIST NEITHER REPRESENTS NOR WARRANTS THAT THE OPERATION OF THE SOFTWARE WILL BE UNINTERRUPTED OR ERROR-FREE, OR THAT ANY DEFECTS WILL BE CORRECTED. NIST DOES NOT WARRANT OR MAKE ANY REPRESENTATIONS REGARDING THE USE OF THE SOFTWARE OR THE RESULTS THEREOF, INCLUDING BUT NOT LIMITED TO THE CORRECTNESS, ACCURACY, RELIABILITY, OR USEFULNESS OF THE SOFTWARE.
+
+// You are solely responsible for determining the appropriateness of using and distributing the software and you assume all risks associated with its use, including but not limited to the risks and costs of program errors, compliance with applicable laws, damage to or loss of data, programs or equipment, and the unavailability or interruption of operation. This software is not intended to be used in any situation where a failure could cause risk of injury or damage to property. The software developed by NIST employees is not subject to copyright protection within the United States.
+
+
+
+package gov.nist.isg.mist.java;
+
+import java.io.File;
+import java.io.InvalidClassException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import gov.nist.isg.mist.correlation.NccCache;
+import gov.nist.isg.mist.lib.imagetile.ImageTile;
+import gov.nist.isg.mist.lib.imagetile.java.JavaImageTile;
+import gov.nist.isg.mist.lib.log.Log;
+import gov.nist.isg.mist.lib.log.Log.LogType;
+import gov.nist.isg.mist.lib.tilegrid.TileGrid;
+import gov.nist.isg.mist.lib.tilegrid.loader.RowColTileGridLoader;
+import gov.nist.isg.mist.lib.tilegrid.loader.TileGridLoader.GridOrigin;
+
+/**
+ * Test case for the NCC cache. Checks hits and misses, that pairs are identified by their grid
+ * position rather than the tile objects, least recently used eviction within a stripe, the cap
+ * on a single pair and concurrent access from several threads.
+ *
+ * @author Michael Majurski
+ */
+public class TestNccCache {
+
+  private static final int GridSize = 4;
+  private static final int NumThreads = 8;
+
+  private static TileGrid<ImageTile<float[][]>> makeGrid() throws InvalidClassException {
+    return new TileGrid<ImageTile<float[][]>>(0, 0, GridSize, GridSize,
+        new RowColTileGridLoader(GridSize, GridSize, 0, 0, 0, "img_r{rrr}_c{ccc}.tif",
+            GridOrigin.UL), new File("."), JavaImageTile.class);
+  }
+
+  private static double value(int pair, int x, int y) {
+    return pair + x * 0.001 + y * 0.000001;
+  }
+
+  private static void fill(ImageTile<?> i1, ImageTile<?> i2, int pair, int numValues) {
+    for (int i = 0; i < numValues; i++)
+      NccCache.put(i1, i2, i, -i, value(pair, i, -i));
+  }
+
+  private static int countPresent(ImageTile<?> i1, ImageTile<?> i2, int pair, int numValues) {
+    int n = 0;
+    for (int i = 0; i < numValues; i++) {
+      Double v = NccCache.get(i1, i2, i, -i);
+      if (v != null && v == value(pair, i, -i))
+        n++;
+    }
+    return n;
+  }
+
+  private static boolean check(String name, boolean passed) {
+    Log.msg(LogType.MANDATORY, name + ": " + (passed ? "PASSED" : "FAILED"));
+    return passed;
+  }
+
+  /**
+   * Checks lookups, hit statistics and that a second grid at the same positions shares the values
+   */
+  public static boolean runTestHits() throws InvalidClassException {
+    TileGrid<ImageTile<float[][]>> grid = makeGrid();
+    ImageTile<float[][]> west = grid.getSubGridTile(1, 0);
+    ImageTile<float[][]> tile = grid.getSubGridTile(1, 1);
+
+    NccCache.configure(0);
+    NccCache.put(west, tile, 3, 4, 0.5);
+    boolean passed = check("Disabled", !NccCache.isEnabled() && NccCache.get(west, tile, 3, 4) == null);
+
+    NccCache.configure(1000);
+    passed &= check("Empty miss", NccCache.get(west, tile, 3, 4) == null);
+    NccCache.put(west, tile, 3, 4, 0.5);
+    NccCache.put(west, tile, -3, 4, 0.25);
+    NccCache.put(west, tile, 3, 5, Double.NaN);
+    passed &= check("Hit", NccCache.get(west, tile, 3, 4) == 0.5
+        && NccCache.get(west, tile, -3, 4) == 0.25);
+    passed &= check("NaN not cached", NccCache.get(west, tile, 3, 5) == null);
+    passed &= check("Pair is ordered", NccCache.get(tile, west, 3, 4) == null);
+
+    // a new tile object at the same grid position finds the values, no tile is referenced
+    TileGrid<ImageTile<float[][]>> other = makeGrid();
+    passed &= check("Keyed by grid position",
+        NccCache.get(other.getSubGridTile(1, 0), other.getSubGridTile(1, 1), 3, 4) == 0.5);
+
+    passed &= check("Statistics", NccCache.getHits() == 3 && NccCache.getMisses() == 3
+        && NccCache.getNumEntries() == 2);
+
+    NccCache.clear();
+    passed &= check("Clear", NccCache.get(west, tile, 3, 4) == null
+        && NccCache.getNumEntries() == 0);
+    return passed;
+  }
+
+  /**
+   * Checks least recently used eviction in a single stripe and the cap on a single pair
+   */
+  public static boolean runTestEviction() throws InvalidClassException {
+    TileGrid<ImageTile<float[][]>> grid = makeGrid();
+    ImageTile<float[][]> a = grid.getSubGridTile(0, 0);
+    ImageTile<float[][]> b = grid.getSubGridTile(0, 1);
+    ImageTile<float[][]> c = grid.getSubGridTile(0, 2);
+    ImageTile<float[][]> d = grid.getSubGridTile(1, 0);
+    ImageTile<float[][]> e = grid.getSubGridTile(1, 1);
+
+    NccCache.configure(10, 1);
+    fill(a, b, 1, 6);
+    fill(b, c, 2, 6);
+    boolean passed = check("Evicts the oldest pair", countPresent(a, b, 1, 6) == 0
+        && countPresent(b, c, 2, 6) == 6 && NccCache.getNumEntries() == 6);
+
+    fill(a, d, 3, 2);
+    // touch b-c so a-d becomes the least recently used pair
+    countPresent(b, c, 2, 1);
+    fill(d, e, 4, 3);
+    passed &= check("Evicts the least recently used pair", countPresent(a, d, 3, 2) == 0
+        && countPresent(b, c, 2, 6) == 6 && countPresent(d, e, 4, 3) == 3
+        && NccCache.getNumEntries() == 9);
+
+    NccCache.configure(5, 1);
+    fill(a, b, 1, 8);
+    passed &= check("Single pair is capped", NccCache.getNumEntries() == 5
+        && countPresent(a, b, 1, 5) == 5);
+
+    // the table grows past its initial size without losing values
+    NccCache.configure(1000, 1);
+    fill(a, b, 1, 200);
+    passed &= check("Table growth", countPresent(a, b, 1, 200) == 200);
+    return passed;
+  }
+
+  /**
+   * Fills and reads disjoint pairs from several threads
+   */
+  public static boolean runTestConcurrent() throws Exception {
+    final TileGrid<ImageTile<float[][]>> grid = makeGrid();
+    final int numValues = 50;
+    final int numPairs = GridSize * (GridSize - 1);
+    // large enough for every pair to land in the same stripe, so nothing is evicted
+    NccCache.configure(numPairs * numValues * 16);
+
+    final AtomicInteger numWrong = new AtomicInteger(0);
+    List<Thread> threads = new ArrayList<Thread>();
+    for (int t = 0; t < NumThreads; t++) {
+      final int id = t;
+      threads.add(new Thread(new Runnable() {
+        @Override
+        public void run() {
+          for (int p = id; p < numPairs; p += NumThreads) {
+            ImageTile<float[][]> i1 = grid.getSubGridTile(p / GridSize, p % GridSize);
+            ImageTile<float[][]> i2 = grid.getSubGridTile(p / GridSize + 1, p % GridSize);
+            fill(i1, i2, p, numValues);
+            numWrong.addAndGet(numValues - countPresent(i1, i2, p, numValues));
+          }
+        }
+      }));
+    }
+    for (Thread thread : threads)
+      thread.start();
+    for (Thread thread : threads)
+      thread.join();
+
+    return check("Concurrent access", numWrong.get() == 0
+        && NccCache.getNumEntries() == numPairs * numValues);
+  }
+
+  /**
+   * Executes the test case
+   *
+   * @param args not used
+   */
+  public static void main(String[] args) {
+    Log.setLogLevel(LogType.INFO);
+    Log.msg(LogType.MANDATORY, "Running Test NCC Cache");
+
+    boolean passed = false;
+    try {
+      passed = runTestHits();
+      passed &= runTestEviction();
+      passed &= runTestConcurrent();
+    } catch (Exception e) {
+      Log.msg(LogType.MANDATORY, "NCC cache test failed: " + e.getMessage());
+    } finally {
+      NccCache.configure(0);
+    }
+
+    Log.msg(LogType.MANDATORY, "Test Completed: " + (passed ? "PASSED" : "FAILED"));
+  }
+}
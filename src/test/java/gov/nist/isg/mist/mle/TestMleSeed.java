@@ -0,0 +1,122 @@
+// NIST-developed software is provided by NIST as a public service. You may use, copy and distribute copies of the software in any medium, provided that you keep intact this entire notice. You may improve, modify and create derivative works of the software or any portion of the software, and you may copy and distribute such modifications or works. Modified works should carry a notice stating that you changed the software and should note the date and nature of any such change. Please explicitly acknowledge the National Institute of Standards and Technology as the source of the software.
+
+// NIST-developed software is expressly provided "AS IS." NIST MAKES NO WARRANTY OF ANY KIND, EXPRESS, IMPLIED, IN FACT OR ARISING BY OPERATION OF LAW, INCLUDING, WITHOUT LIMITATION, THE IMPLIED WARRANTY OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE, NON-INFRINGEMENT AND DATA ACCURACY. NIST NEITHER REPRESENTS NOR WARRANTS THAT THE OPERATION OF THE SOFTWARE WILL BE UNINTERRUPTED OR ERROR-FREE, OR THAT ANY DEFECTS WILL BE CORRECTED. NIST DOES NOT WARRANT OR MAKE ANY REPRESENTATIONS REGARDING THE USE OF THE SOFTWARE OR THE RESULTS THEREOF, INCLUDING BUT NOT LIMITED TO THE CORRECTNESS, ACCURACY, RELIABILITY, OR USEFULNESS OF THE SOFTWARE.
+
+// You are solely responsible for determining the appropriateness of using and distributing the software and you assume all risks associated with its use, including but not limited to the risks and costs of program errors, compliance with applicable laws, damage to or loss of data, programs or equipment, and the unavailability or interruption of operation. This software is not intended to be used in any situation where a failure could cause risk of injury or damage to property. The software developed by NIST employees is not subject to copyright protection within the United States.
+
+
+
+package gov.nist.isg.mist.mle;
+
+import java.io.File;
+
+import gov.nist.isg.mist.lib.common.CorrelationTriple;
+import gov.nist.isg.mist.lib.imagetile.ImageTile;
+import gov.nist.isg.mist.lib.imagetile.java.JavaImageTile;
+import gov.nist.isg.mist.lib.log.Log;
+import gov.nist.isg.mist.lib.log.Log.LogType;
+import gov.nist.isg.mist.lib.tilegrid.TileGrid;
+import gov.nist.isg.mist.lib.tilegrid.loader.RowColTileGridLoader;
+import gov.nist.isg.mist.lib.tilegrid.loader.TileGridLoader.GridOrigin;
+import gov.nist.isg.mist.optimization.model.overlap.MleOverlapParallelExecutor;
+import gov.nist.isg.mist.optimization.model.overlap.MleOverlapSequentialExecutor;
+import gov.nist.isg.mist.optimization.model.overlap.OverlapExecutorInterface;
+import gov.nist.isg.mist.stitchingruntime.SyntheticGridGenerator;
+
+/**
+ * Test case for the reproducibility of the MLE overlap estimation. For a fixed seed the
+ * sequential executor and the parallel executor with one and with many threads must compute the
+ * same overlap, and that overlap must be close to the overlap the synthetic grid was acquired
+ * with.
+ *
+ * @author Michael Majurski
+ */
+public class TestMleSeed {
+
+  private static final int GridSize = 8;
+  private static final int TileWidth = 256;
+  private static final double Overlap = 20.0;
+  private static final double Tolerance = 3.0;
+  private static final long[] Seeds = {1L, 42L, 20261019L};
+
+  /**
+   * Builds a grid whose west translations are the ground truth translations of a synthetic grid,
+   * with every seventh translation replaced by an outlier
+   */
+  private static TileGrid<ImageTile<float[][]>> makeGrid(File dir) throws Throwable {
+    SyntheticGridGenerator generator = new SyntheticGridGenerator().gridSize(GridSize, GridSize)
+        .tileSize(TileWidth, 192).bitDepth(16).overlap(Overlap).stageJitter(6).seed(7);
+    generator.generate(dir);
+
+    TileGrid<ImageTile<float[][]>> grid = new TileGrid<ImageTile<float[][]>>(0, 0, GridSize,
+        GridSize, new RowColTileGridLoader(GridSize, GridSize, 0, 0, 0,
+        SyntheticGridGenerator.FILENAME_PATTERN, GridOrigin.UL), dir, JavaImageTile.class);
+
+    int count = 0;
+    for (int r = 0; r < GridSize; r++) {
+      for (int c = 1; c < GridSize; c++) {
+        int x = generator.getPositionX(r, c) - generator.getPositionX(r, c - 1);
+        int y = generator.getPositionY(r, c) - generator.getPositionY(r, c - 1);
+        if (++count % 7 == 0)
+          x = 10 + (count * 37) % (TileWidth - 20);
+        grid.getSubGridTile(r, c).setWestTranslation(new CorrelationTriple(0.9, x, y));
+      }
+    }
+    return grid;
+  }
+
+  private static double computeOverlap(OverlapExecutorInterface<float[][]> executor) {
+    executor.execute();
+    return executor.getOverlap();
+  }
+
+  /**
+   * Computes the west overlap with the sequential executor and with the parallel executor at one
+   * and many threads
+   *
+   * @param grid the grid of images with west translations
+   * @param seed the MLE search seed
+   * @return true if all executors compute the same overlap near the acquisition overlap
+   */
+  public static boolean runTestSeed(TileGrid<ImageTile<float[][]>> grid, long seed) {
+    int numThreads = Math.max(4, Runtime.getRuntime().availableProcessors());
+
+    double sequential = computeOverlap(new MleOverlapSequentialExecutor<float[][]>(grid,
+        TileGrid.Direction.West, TileGrid.DisplacementValue.X, seed));
+    double single = computeOverlap(new MleOverlapParallelExecutor<float[][]>(grid,
+        TileGrid.Direction.West, TileGrid.DisplacementValue.X, 1, seed));
+    double parallel = computeOverlap(new MleOverlapParallelExecutor<float[][]>(grid,
+        TileGrid.Direction.West, TileGrid.DisplacementValue.X, numThreads, seed));
+
+    boolean passed = sequential == single && sequential == parallel
+        && Math.abs(sequential - Overlap) <= Tolerance;
+
+    Log.msg(LogType.MANDATORY, "Seed " + seed + ": sequential " + sequential + ", 1 thread "
+        + single + ", " + numThreads + " threads " + parallel + ": "
+        + (passed ? "PASSED" : "FAILED"));
+    return passed;
+  }
+
+  /**
+   * Executes the test case
+   *
+   * @param args the directory to write the synthetic grid into (optional)
+   */
+  public static void main(String[] args) {
+    Log.setLogLevel(LogType.INFO);
+    Log.msg(LogType.MANDATORY, "Running Test MLE Seed");
+
+    boolean passed = true;
+    try {
+      TileGrid<ImageTile<float[][]>> grid =
+          makeGrid(new File(args.length > 0 ? args[0] : "mle-seed-grid"));
+      for (long seed : Seeds)
+        passed &= runTestSeed(grid, seed);
+    } catch (Throwable e) {
+      Log.msg(LogType.MANDATORY, "MLE seed test failed: " + e.getMessage());
+      passed = false;
+    }
+
+    Log.msg(LogType.MANDATORY, "Test Completed: " + (passed ? "PASSED" : "FAILED"));
+  }
+}
@@ -0,0 +1,350 @@
+// NIST-developed software is provided by NIST as a public service. You may use, copy and distribute copies of the software in any medium, provided that you keep intact this entire notice. You may improve, modify and create derivative works of the software or any portion of the software, and you may copy and distribute such modifications or works. Modified works should carry a notice stating that you changed the software and should note the date and nature of any such change. Please explicitly acknowledge the National Institute of Standards and Technology as the source of the software.
+
+// NIST-developed software is expressly provided "AS IS." NIST MAKES NO WARRANTY OF ANY KIND, EXPRESS, IMPLIED, IN FACT OR ARISING BY OPERATION OF LAW, INCLUDING, WITHOUT LIMITATION, THE IMPLIED WARRANTY OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE, NON-INFRINGEMENT AND DATA ACCURACY. NIST NEITHER REPRESENTS NOR WARRANTS THAT THE OPERATION OF THE SOFTWARE WILL BE UNINTERRUPTED OR ERROR-FREE, OR THAT ANY DEFECTS WILL BE CORRECTED. NIST DOES NOT WARRANT OR MAKE ANY REPRESENTATIONS REGARDING THE USE OF THE SOFTWARE OR THE RESULTS THEREOF, INCLUDING BUT NOT LIMITED TO THE CORRECTNESS, ACCURACY, RELIABILITY, OR USEFULNESS OF THE SOFTWARE.
+
+// You are solely responsible for determining the appropriateness of using and distributing the software and you assume all risks associated with its use, including but not limited to the risks and costs of program errors, compliance with applicable laws, damage to or loss of data, programs or equipment, and the unavailability or interruption of operation. This software is not intended to be used in any situation where a failure could cause risk of injury or damage to property. The software developed by NIST employees is not subject to copyright protection within the United States.
+
+
+
+// ================================================================
+//
+// Author: tjb3
+// Date: Oct 19, 2026 9:58:06 PM EST
+//
+// Time-stamp: <Oct 19, 2026 9:58:06 PM tjb3>
+//
+//
+// ================================================================
+
+package gov.nist.isg.mist.stitchingruntime;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.Random;
+
+import ij.ImagePlus;
+import ij.io.FileSaver;
+import ij.process.ByteProcessor;
+import ij.process.ImageProcessor;
+import ij.process.ShortProcessor;
+
+/**
+ * Generates a synthetic tile grid with known ground truth positions. The tiles are cut from a
+ * procedural specimen (multi-octave value noise, evaluated on demand so the full mosaic is never
+ * held in memory), placed on a regular grid with the requested overlap, displaced by uniform stage
+ * jitter and corrupted with Gaussian noise. Tiles are written as img_r{rrr}_c{ccc}.tif and the
+ * positions as ground-truth.csv (row, col, x, y).
+ *
+ * @author Tim Blattner
+ * @version 1.0
+ */
+public class SyntheticGridGenerator {
+
+  /**
+   * File name pattern of the generated tiles, for the row-column tile grid loader
+   */
+  public static final String FILENAME_PATTERN = "img_r{rrr}_c{ccc}.tif";
+
+  /**
+   * Name of the ground truth position file
+   */
+  public static final String GROUND_TRUTH_FILE = "ground-truth.csv";
+
+  private static final int[] OCTAVE_SCALES = {97, 31, 11, 4};
+  private static final double[] OCTAVE_WEIGHTS = {0.45, 0.3, 0.17, 0.08};
+
+  private int gridWidth = 4;
+  private int gridHeight = 4;
+  private int tileWidth = 512;
+  private int tileHeight = 512;
+  private int bitDepth = 16;
+  private double overlap = 10.0;
+  private int stageJitter = 5;
+  private double noise = 0.02;
+  private long seed = 42;
+
+  private int[][] posX;
+  private int[][] posY;
+
+  public SyntheticGridGenerator gridSize(int gridWidth, int gridHeight) {
+    this.gridWidth = gridWidth;
+    this.gridHeight = gridHeight;
+    return this;
+  }
+
+  public SyntheticGridGenerator tileSize(int tileWidth, int tileHeight) {
+    this.tileWidth = tileWidth;
+    this.tileHeight = tileHeight;
+    return this;
+  }
+
+  /**
+   * @param bitDepth the tile bit depth, 8 or 16
+   */
+  public SyntheticGridGenerator bitDepth(int bitDepth) {
+    this.bitDepth = bitDepth;
+    return this;
+  }
+
+  /**
+   * @param overlap the nominal overlap between adjacent tiles in percent
+   */
+  public SyntheticGridGenerator overlap(double overlap) {
+    this.overlap = overlap;
+    return this;
+  }
+
+  /**
+   * @param stageJitter the maximum stage positioning error in pixels along each axis
+   */
+  public SyntheticGridGenerator stageJitter(int stageJitter) {
+    this.stageJitter = stageJitter;
+    return this;
+  }
+
+  /**
+   * @param noise the standard deviation of the additive Gaussian noise, relative to full scale
+   */
+  public SyntheticGridGenerator noise(double noise) {
+    this.noise = noise;
+    return this;
+  }
+
+  public SyntheticGridGenerator seed(long seed) {
+    this.seed = seed;
+    return this;
+  }
+
+  public int getGridWidth() {
+    return this.gridWidth;
+  }
+
+  public int getGridHeight() {
+    return this.gridHeight;
+  }
+
+  public int getTileWidth() {
+    return this.tileWidth;
+  }
+
+  public int getTileHeight() {
+    return this.tileHeight;
+  }
+
+  public int getBitDepth() {
+    return this.bitDepth;
+  }
+
+  public double getOverlap() {
+    return this.overlap;
+  }
+
+  public int getStageJitter() {
+    return this.stageJitter;
+  }
+
+  public double getNoise() {
+    return this.noise;
+  }
+
+  /**
+   * @param row the grid row
+   * @param col the grid column
+   * @return the ground truth x position of a tile, available after {@link #generate(File)}
+   */
+  public int getPositionX(int row, int col) {
+    return this.posX[row][col];
+  }
+
+  /**
+   * @param row the grid row
+   * @param col the grid column
+   * @return the ground truth y position of a tile, available after {@link #generate(File)}
+   */
+  public int getPositionY(int row, int col) {
+    return this.posY[row][col];
+  }
+
+  /**
+   * @return a short description of the configuration, usable as a directory name
+   */
+  public String getName() {
+    return "grid" + this.gridWidth + "x" + this.gridHeight + "_tile" + this.tileWidth + "x"
+        + this.tileHeight + "_" + this.bitDepth + "bit_ov" + this.overlap + "_jit"
+        + this.stageJitter + "_noise" + this.noise;
+  }
+
+  /**
+   * Generates the tiles and the ground truth file into dir. If dir already holds a ground truth
+   * file the tiles are reused and only the positions are loaded.
+   *
+   * @param dir the directory to write the grid into
+   * @throws IOException if a tile or the ground truth file cannot be written
+   */
+  public void generate(File dir) throws IOException {
+    File truthFile = new File(dir, GROUND_TRUTH_FILE);
+    if (truthFile.exists()) {
+      loadGroundTruth(truthFile);
+      return;
+    }
+
+    if (!dir.exists() && !dir.mkdirs())
+      throw new IOException("Unable to create directory: " + dir.getAbsolutePath());
+
+    Random rand = new Random(this.seed);
+    this.posX = new int[this.gridHeight][this.gridWidth];
+    this.posY = new int[this.gridHeight][this.gridWidth];
+    double stepX = this.tileWidth * (1.0 - this.overlap / 100.0);
+    double stepY = this.tileHeight * (1.0 - this.overlap / 100.0);
+    for (int r = 0; r < this.gridHeight; r++) {
+      for (int c = 0; c < this.gridWidth; c++) {
+        this.posX[r][c] = (int) Math.round(c * stepX) + this.stageJitter
+            + rand.nextInt(2 * this.stageJitter + 1) - this.stageJitter;
+        this.posY[r][c] = (int) Math.round(r * stepY) + this.stageJitter
+            + rand.nextInt(2 * this.stageJitter + 1) - this.stageJitter;
+      }
+    }
+
+    double maxVal = this.bitDepth == 8 ? 255.0 : 65535.0;
+    for (int r = 0; r < this.gridHeight; r++) {
+      for (int c = 0; c < this.gridWidth; c++) {
+        ImageProcessor ip = this.bitDepth == 8 ? new ByteProcessor(this.tileWidth, this.tileHeight)
+            : new ShortProcessor(this.tileWidth, this.tileHeight);
+        for (int y = 0; y < this.tileHeight; y++) {
+          for (int x = 0; x < this.tileWidth; x++) {
+            double v = specimen(this.posX[r][c] + x, this.posY[r][c] + y)
+                + this.noise * rand.nextGaussian();
+            v = Math.min(1.0, Math.max(0.0, v));
+            ip.set(x, y, (int) Math.round(v * maxVal));
+          }
+        }
+
+        String name = String.format("img_r%03d_c%03d.tif", r, c);
+        new FileSaver(new ImagePlus(name, ip)).saveAsTiff(new File(dir, name).getAbsolutePath());
+      }
+    }
+
+    FileWriter writer = new FileWriter(truthFile);
+    try {
+      writer.write("row,col,x,y\n");
+      for (int r = 0; r < this.gridHeight; r++)
+        for (int c = 0; c < this.gridWidth; c++)
+          writer.write(r + "," + c + "," + this.posX[r][c] + "," + this.posY[r][c] + "\n");
+    } finally {
+      writer.close();
+    }
+  }
+
+  /**
+   * Compares stitched positions against the ground truth. Both sets are only defined up to a
+   * global offset, so the mean offset is removed first.
+   *
+   * @param x the stitched x positions indexed [row][col]
+   * @param y the stitched y positions indexed [row][col]
+   * @return {mean error, max error} in pixels (Euclidean)
+   */
+  public double[] positionError(int[][] x, int[][] y) {
+    double offX = 0.0;
+    double offY = 0.0;
+    int n = this.gridWidth * this.gridHeight;
+    for (int r = 0; r < this.gridHeight; r++) {
+      for (int c = 0; c < this.gridWidth; c++) {
+        offX += x[r][c] - this.posX[r][c];
+        offY += y[r][c] - this.posY[r][c];
+      }
+    }
+    offX /= n;
+    offY /= n;
+
+    double sum = 0.0;
+    double max = 0.0;
+    for (int r = 0; r < this.gridHeight; r++) {
+      for (int c = 0; c < this.gridWidth; c++) {
+        double dx = x[r][c] - this.posX[r][c] - offX;
+        double dy = y[r][c] - this.posY[r][c] - offY;
+        double e = Math.sqrt(dx * dx + dy * dy);
+        sum += e;
+        max = Math.max(max, e);
+      }
+    }
+    return new double[]{sum / n, max};
+  }
+
+  private void loadGroundTruth(File truthFile) throws IOException {
+    this.posX = new int[this.gridHeight][this.gridWidth];
+    this.posY = new int[this.gridHeight][this.gridWidth];
+    BufferedReader reader = new BufferedReader(new FileReader(truthFile));
+    try {
+      String line = reader.readLine(); // header
+      while ((line = reader.readLine()) != null) {
+        String[] vals = line.split(",");
+        if (vals.length < 4)
+          continue;
+        int r = Integer.parseInt(vals[0].trim());
+        int c = Integer.parseInt(vals[1].trim());
+        this.posX[r][c] = Integer.parseInt(vals[2].trim());
+        this.posY[r][c] = Integer.parseInt(vals[3].trim());
+      }
+    } finally {
+      reader.close();
+    }
+  }
+
+  /**
+   * Intensity of the synthetic specimen at an absolute pixel location, in [0,1]
+   */
+  private double specimen(int x, int y) {
+    double v = 0.0;
+    for (int o = 0; o < OCTAVE_SCALES.length; o++)
+      v += OCTAVE_WEIGHTS[o] * valueNoise((double) x / OCTAVE_SCALES[o],
+          (double) y / OCTAVE_SCALES[o], o);
+    return v;
+  }
+
+  private double valueNoise(double x, double y, int octave) {
+    int x0 = (int) Math.floor(x);
+    int y0 = (int) Math.floor(y);
+    double fx = x - x0;
+    double fy = y - y0;
+    // smoothstep interpolation between lattice values
+    fx = fx * fx * (3 - 2 * fx);
+    fy = fy * fy * (3 - 2 * fy);
+    double a = lattice(x0, y0, octave);
+    double b = lattice(x0 + 1, y0, octave);
+    double c = lattice(x0, y0 + 1, octave);
+    double d = lattice(x0 + 1, y0 + 1, octave);
+    return (a + (b - a) * fx) * (1 - fy) + (c + (d - c) * fx) * fy;
+  }
+
+  private double lattice(int x, int y, int octave) {
+    long h = this.seed * 0x9E3779B97F4A7C15L + x * 0xC2B2AE3D27D4EB4FL + y * 0x165667B19E3779F9L
+        + octave * 0x27D4EB2F165667C5L;
+    h = (h ^ (h >>> 30)) * 0xBF58476D1CE4E5B9L;
+    h = (h ^ (h >>> 27)) * 0x94D049BB133111EBL;
+    h ^= h >>> 31;
+    return (h >>> 11) * 0x1.0p-53;
+  }
+
+  /**
+   * Generates a grid into the given directory.
+   *
+   * @param args the output directory
+   */
+  public static void main(String[] args) {
+    if (args.length < 1) {
+      System.out.println("Usage: SyntheticGridGenerator <outputDir>");
+      return;
+    }
+
+    SyntheticGridGenerator generator = new SyntheticGridGenerator();
+    try {
+      generator.generate(new File(args[0], generator.getName()));
+    } catch (IOException e) {
+      e.printStackTrace();
+    }
+  }
+
+}
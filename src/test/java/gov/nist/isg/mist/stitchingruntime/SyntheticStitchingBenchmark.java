@@ -0,0 +1,273 @@
+// NIST-developed software is provided by NIST as a public service. You may use, copy and distribute copies of the software in any medium, provided that you keep intact this entire notice. You may improve, modify and create derivative works of the software or any portion of the software, and you may copy and distribute such modifications or works. Modified works should carry a notice stating that you changed the software and should note the date and nature of any such change. Please explicitly acknowledge the National Institute of Standards and Technology as the source of the software.
+
+// NIST-developed software is expressly provided "AS IS." NIST MAKES NO WARRANTY OF ANY KIND, EXPRESS, IMPLIED, IN FACT OR ARISING BY OPERATION OF LAW, INCLUDING, WITHOUT LIMITATION, THE IMPLIED WARRANTY OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE, NON-INFRINGEMENT AND DATA ACCURACY. NIST NEITHER REPRESENTS NOR WARRANTS THAT THE OPERATION OF THE SOFTWARE WILL BE UNINTERRUPTED OR ERROR-FREE, OR THAT ANY DEFECTS WILL BE CORRECTED. NIST DOES NOT WARRANT OR MAKE ANY REPRESENTATIONS REGARDING THE USE OF THE SOFTWARE OR THE RESULTS THEREOF, INCLUDING BUT NOT LIMITED TO THE CORRECTNESS, ACCURACY, RELIABILITY, OR USEFULNESS OF THE SOFTWARE.
+
+// You are solely responsible for determining the appropriateness of using and distributing the software and you assume all risks associated with its use, including but not limited to the risks and costs of program errors, compliance with applicable laws, damage to or loss of data, programs or equipment, and the unavailability or interruption of operation. This software is not intended to be used in any situation where a failure could cause risk of injury or damage to property. The software developed by NIST employees is not subject to copyright protection within the United States.
+
+
+
+// ================================================================
+//
+// Author: tjb3
+// Date: Oct 19, 2026 10:12:44 PM EST
+//
+// Time-stamp: <Oct 19, 2026 10:12:44 PM tjb3>
+//
+//
+// ================================================================
+
+package gov.nist.isg.mist.stitchingruntime;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import gov.nist.isg.mist.gui.StitchingStatistics;
+import gov.nist.isg.mist.gui.StitchingStatistics.RunTimers;
+import gov.nist.isg.mist.gui.params.StitchingAppParams;
+import gov.nist.isg.mist.lib.exceptions.StitchingException;
+import gov.nist.isg.mist.lib.executor.StitchingExecutor;
+import gov.nist.isg.mist.lib.executor.StitchingExecutor.StitchingType;
+import gov.nist.isg.mist.lib.export.BlendingMode;
+import gov.nist.isg.mist.lib.imagetile.Stitching.TranslationRefinementType;
+import gov.nist.isg.mist.lib.imagetile.fftw.FftwPlanType;
+import gov.nist.isg.mist.lib.libraryloader.LibraryUtils;
+import gov.nist.isg.mist.lib.log.Log;
+import gov.nist.isg.mist.lib.log.Log.LogType;
+import gov.nist.isg.mist.lib.tilegrid.loader.TileGridLoader.GridOrigin;
+import gov.nist.isg.mist.lib.tilegrid.loader.TileGridLoader.LoaderType;
+
+/**
+ * End-to-end throughput benchmark on synthetic grids. For every grid configuration a
+ * {@link SyntheticGridGenerator} grid is written once, then the full StitchingExecutor pipeline
+ * is run for each executor (JAVA, FFTW), translation refinement method and blending mode. One
+ * line per run is appended to benchmark-report.csv in the root folder with the throughput, the
+ * duration of every stitching stage and the position error against the ground truth.
+ *
+ * @author Tim Blattner
+ * @version 1.0
+ */
+public class SyntheticStitchingBenchmark {
+
+  static {
+    LibraryUtils.initalize();
+  }
+
+  private static final String REPORT_FILE = "benchmark-report.csv";
+
+  private static final Pattern POSITION_PATTERN = Pattern.compile(
+      "file: .*; corr: .*; position: \\((-?\\d+), (-?\\d+)\\); grid: \\((\\d+), (\\d+)\\);");
+
+  private static final StitchingType[] EXECUTORS = {StitchingType.JAVA, StitchingType.FFTW};
+
+  private static String benchmarkRootFolder = "synthetic-benchmark";
+  private static String fftwPlanPath = "C:\\Fiji.app\\lib\\fftw\\fftPlans";
+  private static String fftwLibraryPath = "C:\\Fiji.app\\lib\\fftw";
+
+  private static int NUM_RUNS = 1;
+
+  /**
+   * The grid configurations to benchmark
+   */
+  private static List<SyntheticGridGenerator> getConfigurations() {
+    List<SyntheticGridGenerator> configs = new ArrayList<SyntheticGridGenerator>();
+    configs.add(new SyntheticGridGenerator().gridSize(4, 4).tileSize(512, 512).bitDepth(8)
+        .overlap(10).stageJitter(5).noise(0.02));
+    configs.add(new SyntheticGridGenerator().gridSize(8, 8).tileSize(1024, 1024).bitDepth(16)
+        .overlap(15).stageJitter(20).noise(0.05));
+    configs.add(new SyntheticGridGenerator().gridSize(16, 12).tileSize(1392, 1040).bitDepth(16)
+        .overlap(10).stageJitter(40).noise(0.1));
+    return configs;
+  }
+
+  public static void main(String[] args) {
+
+    switch (args.length) {
+      case 0:
+        break;
+      case 1:
+        benchmarkRootFolder = args[0];
+        break;
+      case 2:
+        benchmarkRootFolder = args[0];
+        fftwPlanPath = args[1];
+        break;
+      case 3:
+        benchmarkRootFolder = args[0];
+        fftwPlanPath = args[1];
+        fftwLibraryPath = args[2];
+        break;
+      default:
+        System.out.println("Usage: SyntheticStitchingBenchmark <rootFolder> <fftwPlanPath> <fftwLibraryPath>");
+        return;
+    }
+
+    System.out.println("rootDir: \"" + benchmarkRootFolder + "\"");
+    System.out.println("fftwPlanPath: \"" + fftwPlanPath + "\"");
+    System.out.println("fftwLibPath: \"" + fftwLibraryPath + "\"");
+
+    Log.setLogLevel(LogType.NONE);
+
+    File root = new File(benchmarkRootFolder);
+    try {
+      runBenchmark(root);
+    } catch (IOException e) {
+      e.printStackTrace();
+    }
+
+    System.exit(0);
+  }
+
+  private static void runBenchmark(File root) throws IOException {
+    if (!root.exists() && !root.mkdirs()) {
+      System.out.println("Error: Unable to create root folder: " + root.getAbsolutePath());
+      return;
+    }
+
+    File reportFile = new File(root, REPORT_FILE);
+    boolean writeHeader = !reportFile.exists();
+    FileWriter writer = new FileWriter(reportFile, true);
+    try {
+      if (writeHeader) {
+        writer.write("grid,gridWidth,gridHeight,tileWidth,tileHeight,bitDepth,overlap,stageJitter,"
+            + "noise,executor,refinement,blending,run,status");
+        for (RunTimers timer : RunTimers.values())
+          writer.write("," + timer.name() + "Ms");
+        writer.write(",tilesPerSecond,megapixelsPerSecond,meanErrorPx,maxErrorPx\n");
+        writer.flush();
+      }
+
+      for (SyntheticGridGenerator config : getConfigurations()) {
+        File gridDir = new File(root, config.getName());
+        System.out.println("Generating: " + gridDir.getAbsolutePath());
+        config.generate(gridDir);
+
+        for (StitchingType executorType : EXECUTORS) {
+          for (TranslationRefinementType refinement : TranslationRefinementType.values()) {
+            for (BlendingMode blending : BlendingMode.values()) {
+              for (int run = 0; run < NUM_RUNS; run++) {
+                String testCase = executorType + "-" + refinement.name() + "-" + blending.name();
+                System.out.println("Run " + run + " " + config.getName() + " " + testCase);
+                writer.write(runCase(config, gridDir, executorType, refinement, blending, run));
+                writer.flush();
+              }
+            }
+          }
+        }
+      }
+    } finally {
+      writer.close();
+    }
+  }
+
+  private static String runCase(SyntheticGridGenerator config, File gridDir,
+                                StitchingType executorType, TranslationRefinementType refinement,
+                                BlendingMode blending, int run) {
+    File outputDir = new File(gridDir, "out-" + executorType.name().toLowerCase() + "-"
+        + refinement.name().toLowerCase() + "-" + blending.name().toLowerCase());
+    outputDir.mkdirs();
+
+    StitchingAppParams params = new StitchingAppParams();
+    params.getInputParams().setImageDir(gridDir.getAbsolutePath());
+    params.getInputParams().setFilenamePattern(SyntheticGridGenerator.FILENAME_PATTERN);
+    params.getInputParams().setFilenamePatternLoaderType(LoaderType.ROWCOL);
+    params.getInputParams().setOrigin(GridOrigin.UL);
+    params.getInputParams().setGridWidth(config.getGridWidth());
+    params.getInputParams().setGridHeight(config.getGridHeight());
+    params.getInputParams().setStartRow(0);
+    params.getInputParams().setStartCol(0);
+    params.getInputParams().setExtentWidth(config.getGridWidth());
+    params.getInputParams().setExtentHeight(config.getGridHeight());
+    params.getInputParams().setAssembleFromMetadata(false);
+
+    params.getOutputParams().setOutputPath(outputDir.getAbsolutePath());
+    params.getOutputParams().setOutputMeta(true);
+    params.getOutputParams().setOutputFullImage(true);
+    params.getOutputParams().setDisplayStitching(false);
+    params.getOutputParams().setBlendingMode(blending);
+
+    params.getAdvancedParams().setProgramType(executorType);
+    params.getAdvancedParams().setTranslationRefinementType(refinement);
+    params.getAdvancedParams().setNumCPUThreads(Runtime.getRuntime().availableProcessors());
+    params.getAdvancedParams().setPlanPath(fftwPlanPath);
+    params.getAdvancedParams().setFftwLibraryPath(fftwLibraryPath);
+    params.getAdvancedParams().setFftwPlanType(FftwPlanType.MEASURE);
+
+    StringBuilder line = new StringBuilder();
+    line.append(config.getName()).append(',').append(config.getGridWidth()).append(',')
+        .append(config.getGridHeight()).append(',').append(config.getTileWidth()).append(',')
+        .append(config.getTileHeight()).append(',').append(config.getBitDepth()).append(',')
+        .append(config.getOverlap()).append(',').append(config.getStageJitter()).append(',')
+        .append(config.getNoise()).append(',').append(executorType.name()).append(',')
+        .append(refinement.name()).append(',').append(blending.name()).append(',').append(run);
+
+    StitchingExecutor executor = new StitchingExecutor(params);
+    String status = "OK";
+    try {
+      executor.runStitching(false, true);
+    } catch (StitchingException e) {
+      status = "FAILED: " + e.getMessage();
+    }
+
+    int[][] x = new int[config.getGridHeight()][config.getGridWidth()];
+    int[][] y = new int[config.getGridHeight()][config.getGridWidth()];
+    double[] error = {Double.NaN, Double.NaN};
+    if (status.equals("OK")) {
+      try {
+        if (readPositions(params.getOutputParams().getAbsPosFile(1, 1), x, y))
+          error = config.positionError(x, y);
+        else
+          status = "INCOMPLETE";
+      } catch (IOException e) {
+        status = "NO_POSITIONS";
+      }
+    }
+    line.append(',').append(status.replace(',', ';'));
+
+    StitchingStatistics stats = executor.getStitchingStatistics();
+    for (RunTimers timer : RunTimers.values())
+      line.append(',').append(stats == null ? -1 : stats.getDuration(timer));
+
+    long totalMs = stats == null ? 0 : stats.getDuration(RunTimers.TotalStitchingTime);
+    double numTiles = config.getGridWidth() * config.getGridHeight();
+    double megapixels = numTiles * config.getTileWidth() * config.getTileHeight() / 1.0e6;
+    double seconds = totalMs / 1000.0;
+    line.append(',').append(seconds > 0 ? numTiles / seconds : Double.NaN);
+    line.append(',').append(seconds > 0 ? megapixels / seconds : Double.NaN);
+    line.append(',').append(error[0]).append(',').append(error[1]).append('\n');
+    return line.toString();
+  }
+
+  /**
+   * Reads the global positions file written by the stitching run
+   *
+   * @return true if every tile of the grid was found in the file
+   */
+  private static boolean readPositions(File file, int[][] x, int[][] y) throws IOException {
+    int found = 0;
+    BufferedReader reader = new BufferedReader(new FileReader(file));
+    try {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        Matcher matcher = POSITION_PATTERN.matcher(line);
+        if (!matcher.find())
+          continue;
+        int col = Integer.parseInt(matcher.group(3));
+        int row = Integer.parseInt(matcher.group(4));
+        x[row][col] = Integer.parseInt(matcher.group(1));
+        y[row][col] = Integer.parseInt(matcher.group(2));
+        found++;
+      }
+    } finally {
+      reader.close();
+    }
+    return found == x.length * x[0].length;
+  }
+
+}
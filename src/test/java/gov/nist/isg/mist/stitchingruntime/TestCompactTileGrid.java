@@ -0,0 +1,163 @@
+// NIST-developed software is provided by NIST as a public service. You may use, copy and distribute copies of the software in any medium, provided that you keep intact this entire notice. You may improve, modify and create derivative works of the software or any portion of the software, and you may copy and distribute such modifications or works. Modified works should carry a notice stating that you changed the software and should note the date and nature of any such change. Please explicitly acknowledge the National Institute of Standards and Technology as the source of the software.
+
+// NIST-developed software is expressly provided "AS IS." NIST MAKES NO WARRANTY OF ANY KIND, EXPRESS, IMPLIED, IN FACT OR ARISING BY OPERATION OF LAW, INCLUDING, WITHOUT LIMITATION, THE IMPLIED WARRANTY OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE, NON-INFRINGEMENT AND DATA ACCURACY. NIST NEITHER REPRESENTS NOR WARRANTS THAT THE OPERATION OF THE SOFTWARE WILL BE UNINTERRUPTED OR ERROR-FREE, OR THAT ANY DEFECTS WILL BE CORRECTED. NIST DOES NOT WARRANT OR MAKE ANY REPRESENTATIONS REGARDING THE USE OF THE SOFTWARE OR THE RESULTS THEREOF, INCLUDING BUT NOT LIMITED TO THE CORRECTNESS, ACCURACY, RELIABILITY, OR USEFULNESS OF THE SOFTWARE.
+
+// You are solely responsible for determining the appropriateness of using and distributing the software and you assume all risks associated with its use, including but not limited to the risks and costs of program errors, compliance with applicable laws, damage to or loss of data, programs or equipment, and the unavailability or interruption of operation. This software is not intended to be used in any situation where a failure could cause risk of injury or damage to property. The software developed by NIST employees is not subject to copyright protection within the United States.
+
+
+
+package gov.nist.isg.mist.stitchingruntime;
+
+import java.io.File;
+
+import gov.nist.isg.mist.gui.StitchingStatistics;
+import gov.nist.isg.mist.gui.params.StitchingAppParams;
+import gov.nist.isg.mist.lib.common.CorrelationTriple;
+import gov.nist.isg.mist.lib.executor.JavaStitchingExecutor;
+import gov.nist.isg.mist.lib.imagetile.ImageTile;
+import gov.nist.isg.mist.lib.log.Log;
+import gov.nist.isg.mist.lib.log.Log.LogType;
+import gov.nist.isg.mist.lib.tilegrid.TileGrid;
+import gov.nist.isg.mist.lib.tilegrid.loader.TileGridLoader.GridOrigin;
+import gov.nist.isg.mist.lib.tilegrid.loader.TileGridLoader.LoaderType;
+import gov.nist.isg.mist.optimization.GlobalOptimization;
+
+/**
+ * Test case for the compact tile grid. A synthetic grid is stitched and optimized once with the
+ * regular grid and once with a compact grid whose capacity is so small that tiles are evicted
+ * throughout the run. Both runs must produce the same translations and absolute positions.
+ *
+ * @author Michael Majurski
+ */
+public class TestCompactTileGrid {
+
+  private static final int GridSize = 6;
+  private static final int Capacity = 4;
+
+  /**
+   * Checks that an evicted view which is still held is returned again, with its updates
+   *
+   * @param dir the directory holding the synthetic grid
+   * @return true if the held view is kept as the view of its tile
+   */
+  public static boolean runTestHeldView(File dir) throws Throwable {
+    StitchingAppParams params = getParams(dir, true);
+    TileGrid<ImageTile<float[][]>> grid = new JavaStitchingExecutor<float[][]>().initGrid(params, 1);
+    grid.getCompactTileStore().setCapacity(Capacity);
+
+    ImageTile<float[][]> held = grid.getSubGridTile(0, 0);
+
+    // walk the grid so the held view is evicted, then update it
+    for (int r = 0; r < GridSize; r++)
+      for (int c = 0; c < GridSize; c++)
+        grid.getSubGridTile(r, c);
+    held.setAbsXPos(17);
+    held.setAbsYPos(23);
+
+    for (int r = GridSize - 1; r >= 0; r--)
+      for (int c = GridSize - 1; c >= 0; c--)
+        grid.getSubGridTile(r, c);
+
+    ImageTile<float[][]> again = grid.getSubGridTile(0, 0);
+    boolean passed = again == held && again.getAbsXPos() == 17 && again.getAbsYPos() == 23
+        && grid.getCompactTileStore().getResidentCount() <= Capacity;
+
+    Log.msg(LogType.MANDATORY, "Held view: " + (passed ? "PASSED" : "FAILED"));
+    return passed;
+  }
+
+  /**
+   * Stitches the synthetic grid with the regular and the compact grid and compares the results
+   *
+   * @param dir the directory holding the synthetic grid
+   * @return true if both grids produce the same translations and positions
+   */
+  public static boolean runTestCompactStitching(File dir) throws Throwable {
+    TileGrid<ImageTile<float[][]>> regular = stitch(getParams(dir, false), false);
+    TileGrid<ImageTile<float[][]>> compact = stitch(getParams(dir, true), true);
+
+    int numWrong = 0;
+    for (int r = 0; r < GridSize; r++) {
+      for (int c = 0; c < GridSize; c++) {
+        ImageTile<float[][]> expected = regular.getSubGridTile(r, c);
+        ImageTile<float[][]> actual = compact.getSubGridTile(r, c);
+
+        if (c > 0 && !matches(expected.getWestTranslation(), actual.getWestTranslation()))
+          numWrong++;
+        if (r > 0 && !matches(expected.getNorthTranslation(), actual.getNorthTranslation()))
+          numWrong++;
+        if (expected.getAbsXPos() != actual.getAbsXPos()
+            || expected.getAbsYPos() != actual.getAbsYPos())
+          numWrong++;
+      }
+    }
+
+    Log.msg(LogType.MANDATORY, "Compact stitching: " + (numWrong == 0 ? "PASSED"
+        : numWrong + " results differ from the regular grid"));
+    return numWrong == 0;
+  }
+
+  private static TileGrid<ImageTile<float[][]>> stitch(StitchingAppParams params,
+                                                       boolean compact) throws Throwable {
+    JavaStitchingExecutor<float[][]> executor = new JavaStitchingExecutor<float[][]>();
+    TileGrid<ImageTile<float[][]>> grid = executor.initGrid(params, 1);
+    if (compact)
+      grid.getCompactTileStore().setCapacity(Capacity);
+
+    executor.launchStitching(grid, params, null, 1);
+    GlobalOptimization<float[][]> optimization = new GlobalOptimization<float[][]>(grid, null,
+        params, new StitchingStatistics(params), false);
+    optimization.optimize();
+    executor.cleanup();
+    return grid;
+  }
+
+  private static StitchingAppParams getParams(File dir, boolean compact) {
+    StitchingAppParams params = new StitchingAppParams();
+    params.getInputParams().setImageDir(dir.getAbsolutePath());
+    params.getInputParams().setFilenamePattern(SyntheticGridGenerator.FILENAME_PATTERN);
+    params.getInputParams().setFilenamePatternLoaderType(LoaderType.ROWCOL);
+    params.getInputParams().setOrigin(GridOrigin.UL);
+    params.getInputParams().setGridWidth(GridSize);
+    params.getInputParams().setGridHeight(GridSize);
+    params.getInputParams().setStartRow(0);
+    params.getInputParams().setStartCol(0);
+    params.getInputParams().setExtentWidth(GridSize);
+    params.getInputParams().setExtentHeight(GridSize);
+    params.getAdvancedParams().setNumCPUThreads(2);
+    params.getAdvancedParams().setCompactTileGrid(compact);
+    params.getOutputParams().setOutputPath(dir.getAbsolutePath());
+    params.getOutputParams().setOutputMeta(false);
+    return params;
+  }
+
+  private static boolean matches(CorrelationTriple expected, CorrelationTriple actual) {
+    return expected != null && actual != null && expected.getX() == actual.getX()
+        && expected.getY() == actual.getY();
+  }
+
+  /**
+   * Executes the test case
+   *
+   * @param args the directory to write the synthetic grid into (optional)
+   */
+  public static void main(String[] args) {
+    Log.setLogLevel(LogType.INFO);
+    Log.msg(LogType.MANDATORY, "Running Test Compact Tile Grid");
+
+    boolean passed;
+    try {
+      File dir = new File(args.length > 0 ? args[0] : "compact-grid");
+      new SyntheticGridGenerator().gridSize(GridSize, GridSize).tileSize(256, 192).bitDepth(16)
+          .overlap(20).stageJitter(8).noise(0.05).seed(46).generate(dir);
+
+      passed = runTestHeldView(dir);
+      passed &= runTestCompactStitching(dir);
+    } catch (Throwable e) {
+      Log.msg(LogType.MANDATORY, "Compact grid stitching failed: " + e.getMessage());
+      passed = false;
+    }
+
+    Log.msg(LogType.MANDATORY, "Test Completed: " + (passed ? "PASSED" : "FAILED"));
+  }
+}
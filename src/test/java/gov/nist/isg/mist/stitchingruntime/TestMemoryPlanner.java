@@ -0,0 +1,205 @@
+// NIST-developed software is provided by NIST as a public service. You may use, copy and distribute copies of the software in any medium, provided that you keep intact this entire notice. You may improve, modify and create derivative works of the software or any portion of the software, and you may copy and distribute such modifications or works. Modified works should carry a notice stating that you changed the software and should note the date and nature of any such change. Please explicitly acknowledge the National Institute of Standards and Technology as the source of the software.
+
+// NIST-developed software is expressly provided "AS IS." NIST MAKES NO WARRANTY OF ANY KIND, EXPRESS, IMPLIED, IN FACT OR ARISING BY OPERATION OF LAW, INCLUDING, WITHOUT LIMITATION, THE IMPLIED WARRANTY OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE, NON-INFRINGEMENT AND DATA ACCURACY. NIST NEITHER REPRESENTS NOR WARRANTS THAT THE OPERATION OF THE SOFTWARE WILL BE UNINTERRUPTED OR ERROR-FREE, OR THAT ANY DEFECTS WILL BE CORRECTED. NIST DOES NOT WARRANT OR MAKE ANY REPRESENTATIONS REGARDING THE USE OF THE SOFTWARE OR THE RESULTS THEREOF, INCLUDING BUT NOT LIMITED TO THE CORRECTNESS, ACCURACY, RELIABILITY, OR USEFULNESS OF THE SOFTWARE.
+
+// You are solely responsible for determining the appropriateness of using and distributing the software and you assume all risks associated with its use, including but not limited to the risks and costs of program errors, compliance with applicable laws, damage to or loss of data, programs or equipment, and the unavailability or interruption of operation. This software is not intended to be used in any situation where a failure could cause risk of injury or damage to property. The software developed by NIST employees is not subject to copyright protection within the United States.
+
+
+
+package gov.nist.isg.mist.stitchingruntime;
+
+import java.io.File;
+
+import gov.nist.isg.mist.gui.params.StitchingAppParams;
+import gov.nist.isg.mist.lib.executor.JavaStitchingExecutor;
+import gov.nist.isg.mist.lib.executor.MemoryPlanner;
+import gov.nist.isg.mist.lib.executor.MemoryPlanner.MemoryPlan;
+import gov.nist.isg.mist.lib.executor.MemoryPlanner.Strategy;
+import gov.nist.isg.mist.lib.imagetile.ImageTile;
+import gov.nist.isg.mist.lib.log.Log;
+import gov.nist.isg.mist.lib.log.Log.LogType;
+import gov.nist.isg.mist.lib.tilegrid.TileGrid;
+import gov.nist.isg.mist.lib.tilegrid.loader.TileGridLoader.GridOrigin;
+import gov.nist.isg.mist.lib.tilegrid.loader.TileGridLoader.LoaderType;
+
+/**
+ * Test case for the memory planner. A synthetic grid is planned with a decreasing amount of
+ * available memory, checking the threshold for keeping pixel data, that the plans only move
+ * towards lower memory executors and fewer threads, and that the FFT memory budgets are modeled.
+ *
+ * @author Michael Majurski
+ */
+public class TestMemoryPlanner {
+
+  private static final int GridSize = 6;
+  private static final int NumThreads = 4;
+  private static final long BudgetMB = 256L;
+
+  private static StitchingAppParams makeParams(File dir) {
+    StitchingAppParams params = new StitchingAppParams();
+    params.getInputParams().setImageDir(dir.getAbsolutePath());
+    params.getInputParams().setFilenamePattern(SyntheticGridGenerator.FILENAME_PATTERN);
+    params.getInputParams().setFilenamePatternLoaderType(LoaderType.ROWCOL);
+    params.getInputParams().setOrigin(GridOrigin.UL);
+    params.getInputParams().setGridWidth(GridSize);
+    params.getInputParams().setGridHeight(GridSize);
+    params.getInputParams().setStartRow(0);
+    params.getInputParams().setStartCol(0);
+    params.getInputParams().setExtentWidth(GridSize);
+    params.getInputParams().setExtentHeight(GridSize);
+    params.getAdvancedParams().setNumCPUThreads(NumThreads);
+    return params;
+  }
+
+  /**
+   * Ranks the plans from the most to the least memory hungry
+   */
+  private static int rank(MemoryPlan plan) {
+    switch (plan.getStrategy()) {
+      case PIPELINED:
+        return plan.isFreePixelData() ? 1 : 0;
+      case BANDED:
+        return 2;
+      default:
+        return 3;
+    }
+  }
+
+  /**
+   * Checks the threshold for keeping pixel data and that lowering the available memory never
+   * selects a more memory hungry plan or more threads
+   *
+   * @param executor the executor to plan
+   * @param grid     the grid of images
+   * @param params   the stitching parameters
+   * @return true if the plans are monotone in the available memory
+   */
+  public static boolean runTestThresholds(JavaStitchingExecutor<float[][]> executor,
+                                          TileGrid<ImageTile<float[][]>> grid,
+                                          StitchingAppParams params) throws Throwable {
+    MemoryPlan keepAll = MemoryPlanner.plan(executor, grid, params, Long.MAX_VALUE / 2);
+    boolean passed = keepAll.getStrategy() == Strategy.PIPELINED && !keepAll.isFreePixelData()
+        && keepAll.getNumThreads() == NumThreads;
+
+    long peak = keepAll.getPredictedPeakBytes();
+    MemoryPlan above = MemoryPlanner.plan(executor, grid, params, peak + 1);
+    MemoryPlan at = MemoryPlanner.plan(executor, grid, params, peak);
+    passed &= !above.isFreePixelData() && above.getNumThreads() == NumThreads;
+    passed &= at.isFreePixelData();
+    Log.msg(LogType.MANDATORY, "Keep pixel data threshold: " + (passed ? "PASSED" : "FAILED"));
+
+    int numWrong = 0;
+    int[] seen = new int[4];
+    MemoryPlan previous = keepAll;
+    for (long available = peak; available > 1024L * 1024L; available = available * 9 / 10) {
+      MemoryPlan plan = MemoryPlanner.plan(executor, grid, params, available);
+      seen[rank(plan)]++;
+
+      if (rank(plan) < rank(previous))
+        numWrong++;
+      else if (rank(plan) == rank(previous) && plan.getNumThreads() > previous.getNumThreads())
+        numWrong++;
+
+      // every plan but the last resort must fit
+      if (plan.getStrategy() != Strategy.SEQUENTIAL && plan.getPredictedPeakBytes() >= available)
+        numWrong++;
+
+      previous = plan;
+    }
+
+    boolean monotone = numWrong == 0 && seen[1] > 0 && seen[3] > 0;
+    Log.msg(LogType.MANDATORY, "Monotone in available memory: " + (monotone ? "PASSED"
+        : "FAILED, " + numWrong + " plans out of order"));
+    return passed && monotone;
+  }
+
+  /**
+   * Checks the fallbacks chosen when no executor fits
+   *
+   * @param executor the executor to plan
+   * @param grid     the grid of images
+   * @param params   the stitching parameters
+   * @return true if the sequential executor is chosen, or a single pipelined thread when
+   * assembling from metadata
+   */
+  public static boolean runTestFallback(JavaStitchingExecutor<float[][]> executor,
+                                        TileGrid<ImageTile<float[][]>> grid,
+                                        StitchingAppParams params) throws Throwable {
+    MemoryPlan plan = MemoryPlanner.plan(executor, grid, params, 1L);
+    boolean passed = plan.getStrategy() == Strategy.SEQUENTIAL && plan.getNumThreads() == 1;
+
+    params.getInputParams().setAssembleFromMetadata(true);
+    plan = MemoryPlanner.plan(executor, grid, params, 1L);
+    params.getInputParams().setAssembleFromMetadata(false);
+    passed &= plan.getStrategy() == Strategy.PIPELINED && plan.getNumThreads() == 1;
+
+    Log.msg(LogType.MANDATORY, "Fallback: " + (passed ? "PASSED" : "FAILED"));
+    return passed;
+  }
+
+  /**
+   * Checks that an FFT heap budget raises the prediction to the capacity of the adaptive memory
+   * pool, and that the partitioned executor splits the budget between its partitions
+   *
+   * @param executor the executor to plan
+   * @param grid     the grid of images
+   * @param params   the stitching parameters
+   * @return true if the budgets are modeled
+   */
+  public static boolean runTestBudget(JavaStitchingExecutor<float[][]> executor,
+                                      TileGrid<ImageTile<float[][]>> grid,
+                                      StitchingAppParams params) throws Throwable {
+    long budget = BudgetMB * 1024L * 1024L;
+    long available = Long.MAX_VALUE / 2;
+
+    long unbudgeted = MemoryPlanner.plan(executor, grid, params, available).getPredictedPeakBytes();
+    params.getAdvancedParams().setFftHeapBudgetMB((int) BudgetMB);
+    long budgeted = MemoryPlanner.plan(executor, grid, params, available).getPredictedPeakBytes();
+    boolean passed = budgeted > unbudgeted + budget / 2 && budgeted <= unbudgeted + budget;
+
+    params.getAdvancedParams().setNumCpuPartitions(2);
+    long partitioned = MemoryPlanner.plan(executor, grid, params, available).getPredictedPeakBytes();
+    params.getAdvancedParams().setFftHeapBudgetMB(0);
+    long partitionedUnbudgeted =
+        MemoryPlanner.plan(executor, grid, params, available).getPredictedPeakBytes();
+    params.getAdvancedParams().setNumCpuPartitions(1);
+
+    // the partitions share the budget rather than each receiving all of it
+    passed &= partitioned > partitionedUnbudgeted + budget / 2
+        && partitioned <= partitionedUnbudgeted + budget;
+
+    Log.msg(LogType.MANDATORY, "FFT memory budget: " + (passed ? "PASSED" : "FAILED"));
+    return passed;
+  }
+
+  /**
+   * Executes the test case
+   *
+   * @param args the directory to write the synthetic grid into (optional)
+   */
+  public static void main(String[] args) {
+    Log.setLogLevel(LogType.INFO);
+    Log.msg(LogType.MANDATORY, "Running Test Memory Planner");
+
+    boolean passed;
+    try {
+      File dir = new File(args.length > 0 ? args[0] : "memory-planner-grid");
+      new SyntheticGridGenerator().gridSize(GridSize, GridSize).tileSize(256, 192).bitDepth(16)
+          .overlap(20).seed(43).generate(dir);
+
+      StitchingAppParams params = makeParams(dir);
+      JavaStitchingExecutor<float[][]> executor = new JavaStitchingExecutor<float[][]>();
+      TileGrid<ImageTile<float[][]>> grid = executor.initGrid(params, 1);
+
+      passed = runTestThresholds(executor, grid, params);
+      passed &= runTestFallback(executor, grid, params);
+      passed &= runTestBudget(executor, grid, params);
+      executor.cleanup();
+    } catch (Throwable e) {
+      Log.msg(LogType.MANDATORY, "Memory planner test failed: " + e.getMessage());
+      passed = false;
+    }
+
+    Log.msg(LogType.MANDATORY, "Test Completed: " + (passed ? "PASSED" : "FAILED"));
+  }
+}
@@ -0,0 +1,135 @@
+// NIST-developed software is provided by NIST as a public service. You may use, copy and distribute copies of the software in any medium, provided that you keep intact this entire notice. You may improve, modify and create derivative works of the software or any portion of the software, and you may copy and distribute such modifications or works. Modified works should carry a notice stating that you changed the software and should note the date and nature of any such change. Please explicitly acknowledge the National Institute of Standards and Technology as the source of the software.
+
+// NIST-developed software is expressly provided "AS IS." NIST MAKES NO WARRANTY OF ANY KIND, EXPRESS, IMPLIED, IN FACT OR ARISING BY OPERATION OF LAW, INCLUDING, WITHOUT LIMITATION, THE IMPLIED WARRANTY OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE, NON-INFRINGEMENT AND DATA ACCURACY. NIST NEITHER REPRESENTS NOR WARRANTS THAT THE OPERATION OF THE SOFTWARE WILL BE UNINTERRUPTED OR ERROR-FREE, OR THAT ANY DEFECTS WILL BE CORRECTED. NIST DOES NOT WARRANT OR MAKE ANY REPRESENTATIONS REGARDING THE USE OF THE SOFTWARE OR THE RESULTS THEREOF, INCLUDING BUT NOT LIMITED TO THE CORRECTNESS, ACCURACY, RELIABILITY, OR USEFULNESS OF THE SOFTWARE.
+
+// You are solely responsible for determining the appropriateness of using and distributing the software and you assume all risks associated with its use, including but not limited to the risks and costs of program errors, compliance with applicable laws, damage to or loss of data, programs or equipment, and the unavailability or interruption of operation. This software is not intended to be used in any situation where a failure could cause risk of injury or damage to property. The software developed by NIST employees is not subject to copyright protection within the United States.
+
+
+
+package gov.nist.isg.mist.stitchingruntime;
+
+import java.io.File;
+import java.util.concurrent.ForkJoinPool;
+
+import gov.nist.isg.mist.lib.common.CorrelationTriple;
+import gov.nist.isg.mist.lib.imagetile.ImageTile;
+import gov.nist.isg.mist.lib.imagetile.Stitching;
+import gov.nist.isg.mist.lib.imagetile.java.JavaImageTile;
+import gov.nist.isg.mist.lib.log.Log;
+import gov.nist.isg.mist.lib.log.Log.LogType;
+import gov.nist.isg.mist.lib.tilegrid.TileGrid;
+import gov.nist.isg.mist.lib.tilegrid.loader.RowColTileGridLoader;
+import gov.nist.isg.mist.lib.tilegrid.loader.TileGridLoader.GridOrigin;
+
+/**
+ * Test case for the parallel pair refinement. The exhaustive and multi point hill climbing
+ * searches of a synthetic pair are run sequentially and on fork-join pools of one and several
+ * threads, and must find the same translation.
+ *
+ * @author Michael Majurski
+ */
+public class TestParallelPairRefinement {
+
+  private static final int Repeatability = 30;
+  private static final int StartOffsetX = 5;
+  private static final int StartOffsetY = -4;
+  private static final int NumStartPoints = 16;
+  private static final int[] PoolSizes = {1, 4};
+
+  /**
+   * Refines the west translation of a synthetic pair with every search
+   *
+   * @param dir the directory to write the synthetic pair into
+   * @return true if the parallel searches match the sequential searches
+   */
+  public static boolean runTestPairRefinement(File dir) throws Exception {
+    SyntheticGridGenerator generator = new SyntheticGridGenerator().gridSize(2, 1)
+        .tileSize(256, 192).bitDepth(16).overlap(20).stageJitter(8).noise(0.05).seed(50);
+    generator.generate(dir);
+
+    TileGrid<ImageTile<float[][]>> grid = new TileGrid<ImageTile<float[][]>>(0, 0, 2, 1,
+        new RowColTileGridLoader(2, 1, 0, 0, 0, SyntheticGridGenerator.FILENAME_PATTERN,
+            GridOrigin.UL), dir, JavaImageTile.class);
+    ImageTile<float[][]> west = grid.getSubGridTile(0, 0);
+    ImageTile<float[][]> tile = grid.getSubGridTile(0, 1);
+    west.readTile();
+    tile.readTile();
+
+    int tx = generator.getPositionX(0, 1) - generator.getPositionX(0, 0);
+    int ty = generator.getPositionY(0, 1) - generator.getPositionY(0, 0);
+
+    // search around a start point that is off from the true translation
+    int startX = tx + StartOffsetX;
+    int startY = ty + StartOffsetY;
+    int xMin = startX - Repeatability;
+    int xMax = startX + Repeatability;
+    int yMin = startY - Repeatability;
+    int yMax = startY + Repeatability;
+
+    // smaller windows fall back to the sequential search
+    boolean passed = (xMax - xMin + 1) * (yMax - yMin + 1)
+        >= Stitching.PARALLEL_REFINEMENT_MIN_OFFSETS;
+
+    CorrelationTriple exhaustive = Stitching.computeCCF_Exhaustive(xMin, xMax, yMin, yMax,
+        startX, startY, west, tile);
+    CorrelationTriple multiClimb = Stitching.computeCCF_MultiPoint_HillClimbing(xMin, xMax, yMin,
+        yMax, startX, startY, NumStartPoints, west, tile);
+
+    passed &= check("Sequential exhaustive", exhaustive, tx, ty);
+    // the climb from the start point reaches the best offset, the random start points can not
+    // change the result
+    passed &= check("Sequential multi point", multiClimb, exhaustive);
+
+    for (int poolSize : PoolSizes) {
+      ForkJoinPool pool = new ForkJoinPool(poolSize);
+      try {
+        passed &= check("Exhaustive on " + poolSize + " threads",
+            Stitching.computeCCF_ExhaustiveParallel(xMin, xMax, yMin, yMax, startX, startY, west,
+                tile, pool), exhaustive);
+
+        passed &= check("Multi point on " + poolSize + " threads",
+            Stitching.computeCCF_MultiPoint_HillClimbingParallel(xMin, xMax, yMin, yMax, startX,
+                startY, NumStartPoints, west, tile, pool), exhaustive);
+      } finally {
+        pool.shutdown();
+      }
+    }
+
+    return passed;
+  }
+
+  private static boolean check(String name, CorrelationTriple actual, CorrelationTriple expected) {
+    boolean passed = actual.getX() == expected.getX() && actual.getY() == expected.getY()
+        && actual.getCorrelation() == expected.getCorrelation();
+    Log.msg(LogType.MANDATORY, name + ": " + (passed ? "PASSED"
+        : "FAILED found " + actual + " expected " + expected));
+    return passed;
+  }
+
+  private static boolean check(String name, CorrelationTriple actual, int x, int y) {
+    boolean passed = Math.abs(actual.getX() - x) <= 1 && Math.abs(actual.getY() - y) <= 1;
+    Log.msg(LogType.MANDATORY, name + ": " + (passed ? "PASSED"
+        : "FAILED found " + actual + " expected x: " + x + " y: " + y));
+    return passed;
+  }
+
+  /**
+   * Executes the test case
+   *
+   * @param args the directory to write the synthetic pair into (optional)
+   */
+  public static void main(String[] args) {
+    Log.setLogLevel(LogType.INFO);
+    Log.msg(LogType.MANDATORY, "Running Test Parallel Pair Refinement");
+
+    boolean passed;
+    try {
+      passed = runTestPairRefinement(new File(args.length > 0 ? args[0] : "pair-refinement"));
+    } catch (Exception e) {
+      Log.msg(LogType.MANDATORY, "Pair refinement failed: " + e.getMessage());
+      passed = false;
+    }
+
+    Log.msg(LogType.MANDATORY, "Test Completed: " + (passed ? "PASSED" : "FAILED"));
+  }
+}
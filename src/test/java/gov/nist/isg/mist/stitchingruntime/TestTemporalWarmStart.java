@@ -0,0 +1,167 @@
+// NIST-developed software is provided by NIST as a public service. You may use, copy and distribute copies of the software in any medium, provided that you keep intact this entire notice. You may improve, modify and create derivative works of the software or any portion of the software, and you may copy and distribute such modifications or works. Modified works should carry a notice stating that you changed the software and should note the date and nature of any such change. Please explicitly acknowledge the National Institute of Standards and Technology as the source of the software.
+
+// NIST-developed software is expressly provided "AS IS." NIST MAKES NO WARRANTY OF ANY KIND, EXPRESS, IMPLIED, IN FACT OR ARISING BY OPERATION OF LAW, INCLUDING, WITHOUT LIMITATION, THE IMPLIED WARRANTY OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE, NON-INFRINGEMENT AND DATA ACCURACY. NIST NEITHER REPRESENTS NOR WARRANTS THAT THE OPERATION OF THE SOFTWARE WILL BE UNINTERRUPTED OR ERROR-FREE, OR THAT ANY DEFECTS WILL BE CORRECTED. NIST DOES NOT WARRANT OR MAKE ANY REPRESENTATIONS REGARDING THE USE OF THE SOFTWARE OR THE RESULTS THEREOF, INCLUDING BUT NOT LIMITED TO THE CORRECTNESS, ACCURACY, RELIABILITY, OR USEFULNESS OF THE SOFTWARE.
+
+// You are solely responsible for determining the appropriateness of using and distributing the software and you assume all risks associated with its use, including but not limited to the risks and costs of program errors, compliance with applicable laws, damage to or loss of data, programs or equipment, and the unavailability or interruption of operation. This software is not intended to be used in any situation where a failure could cause risk of injury or damage to property. The software developed by NIST employees is not subject to copyright protection within the United States.
+
+
+
+package gov.nist.isg.mist.stitchingruntime;
+
+import java.io.File;
+
+import gov.nist.isg.mist.gui.params.StitchingAppParams;
+import gov.nist.isg.mist.lib.common.CorrelationTriple;
+import gov.nist.isg.mist.lib.executor.AssembleFromMetaExecutor;
+import gov.nist.isg.mist.lib.executor.BandedJavaStitchingExecutor;
+import gov.nist.isg.mist.lib.executor.JavaStitchingExecutor;
+import gov.nist.isg.mist.lib.executor.NoOverlapStitchingExecutor;
+import gov.nist.isg.mist.lib.executor.SequentialJavaStitchingExecutor;
+import gov.nist.isg.mist.lib.executor.ShardedStitchingExecutor;
+import gov.nist.isg.mist.lib.executor.TemporalWarmStartExecutor;
+import gov.nist.isg.mist.lib.imagetile.ImageTile;
+import gov.nist.isg.mist.lib.log.Log;
+import gov.nist.isg.mist.lib.log.Log.LogType;
+import gov.nist.isg.mist.lib.tilegrid.TileGrid;
+import gov.nist.isg.mist.lib.tilegrid.loader.TileGridLoader.GridOrigin;
+import gov.nist.isg.mist.lib.tilegrid.loader.TileGridLoader.LoaderType;
+
+/**
+ * Test case for the time series warm start. The executors the warm start can wrap are checked,
+ * then a synthetic grid is stitched once without priors and again from priors that are offset
+ * from the true translations. Both runs must recover the ground truth translations.
+ *
+ * @author Michael Majurski
+ */
+public class TestTemporalWarmStart {
+
+  private static final int GridSize = 3;
+  private static final int PriorOffset = 2;
+  private static final int Tolerance = 1;
+
+  /**
+   * Checks which executors can be wrapped by the warm start
+   *
+   * @return true if only executors producing Java or FFTW tiles are supported
+   */
+  public static boolean runTestSupportedExecutors() {
+    boolean passed = TemporalWarmStartExecutor.isSupported(new JavaStitchingExecutor<float[][]>())
+        && TemporalWarmStartExecutor.isSupported(new BandedJavaStitchingExecutor<float[][]>())
+        && TemporalWarmStartExecutor.isSupported(new SequentialJavaStitchingExecutor<float[][]>())
+        && TemporalWarmStartExecutor.isSupported(new ShardedStitchingExecutor<float[][]>(
+        new JavaStitchingExecutor<float[][]>()))
+        && !TemporalWarmStartExecutor.isSupported(new NoOverlapStitchingExecutor<float[][]>())
+        && !TemporalWarmStartExecutor.isSupported(new AssembleFromMetaExecutor<float[][]>());
+
+    Log.msg(LogType.MANDATORY, "Supported executors: " + (passed ? "PASSED" : "FAILED"));
+    return passed;
+  }
+
+  /**
+   * Stitches a synthetic grid without priors and then from offset priors
+   *
+   * @param dir the directory the synthetic grid is written to
+   * @return true if both runs recover the ground truth translations
+   */
+  public static boolean runTestWarmStart(File dir) throws Throwable {
+    SyntheticGridGenerator generator = new SyntheticGridGenerator().gridSize(GridSize, GridSize)
+        .tileSize(256, 192).bitDepth(16).overlap(20).stageJitter(8).noise(0.05).seed(41);
+    generator.generate(dir);
+
+    StitchingAppParams params = new StitchingAppParams();
+    params.getInputParams().setImageDir(dir.getAbsolutePath());
+    params.getInputParams().setFilenamePattern(SyntheticGridGenerator.FILENAME_PATTERN);
+    params.getInputParams().setFilenamePatternLoaderType(LoaderType.ROWCOL);
+    params.getInputParams().setOrigin(GridOrigin.UL);
+    params.getInputParams().setGridWidth(GridSize);
+    params.getInputParams().setGridHeight(GridSize);
+    params.getInputParams().setStartRow(0);
+    params.getInputParams().setStartCol(0);
+    params.getInputParams().setExtentWidth(GridSize);
+    params.getInputParams().setExtentHeight(GridSize);
+    params.getAdvancedParams().setNumCPUThreads(2);
+    params.getAdvancedParams().setWarmStartRadius(PriorOffset + 2);
+
+    TemporalWarmStartExecutor<float[][]> executor =
+        new TemporalWarmStartExecutor<float[][]>(new JavaStitchingExecutor<float[][]>());
+
+    // first slice, no priors so every pair uses phase correlation
+    TileGrid<ImageTile<float[][]>> grid = executor.initGrid(params, 1);
+    executor.launchStitching(grid, params, null, 1);
+    boolean passed = checkTranslations("Without priors", grid, generator);
+
+    // offset the translations so the hill climb has to move back to the true translation
+    for (int r = 0; r < GridSize; r++) {
+      for (int c = 0; c < GridSize; c++) {
+        ImageTile<float[][]> t = grid.getSubGridTile(r, c);
+        if (c > 0)
+          t.setWestTranslation(offset(t.getWestTranslation()));
+        if (r > 0)
+          t.setNorthTranslation(offset(t.getNorthTranslation()));
+      }
+    }
+    executor.recordPriors(grid);
+
+    TileGrid<ImageTile<float[][]>> nextGrid = executor.initGrid(params, 2);
+    executor.launchStitching(nextGrid, params, null, 2);
+    passed &= checkTranslations("From offset priors", nextGrid, generator);
+
+    executor.cleanup();
+    return passed;
+  }
+
+  private static CorrelationTriple offset(CorrelationTriple translation) {
+    return new CorrelationTriple(translation.getCorrelation(), translation.getX() + PriorOffset,
+        translation.getY() - PriorOffset);
+  }
+
+  /**
+   * Compares the west and north translations of a grid with the ground truth positions
+   */
+  private static boolean checkTranslations(String name, TileGrid<ImageTile<float[][]>> grid,
+                                           SyntheticGridGenerator generator) {
+    int numWrong = 0;
+    for (int r = 0; r < GridSize; r++) {
+      for (int c = 0; c < GridSize; c++) {
+        ImageTile<float[][]> t = grid.getSubGridTile(r, c);
+        if (c > 0 && !matches(t.getWestTranslation(),
+            generator.getPositionX(r, c) - generator.getPositionX(r, c - 1),
+            generator.getPositionY(r, c) - generator.getPositionY(r, c - 1)))
+          numWrong++;
+        if (r > 0 && !matches(t.getNorthTranslation(),
+            generator.getPositionX(r, c) - generator.getPositionX(r - 1, c),
+            generator.getPositionY(r, c) - generator.getPositionY(r - 1, c)))
+          numWrong++;
+      }
+    }
+
+    Log.msg(LogType.MANDATORY, name + ": " + (numWrong == 0 ? "PASSED"
+        : numWrong + " translations differ from the ground truth"));
+    return numWrong == 0;
+  }
+
+  private static boolean matches(CorrelationTriple translation, int x, int y) {
+    return translation != null && Math.abs(translation.getX() - x) <= Tolerance
+        && Math.abs(translation.getY() - y) <= Tolerance;
+  }
+
+  /**
+   * Executes the test case
+   *
+   * @param args the directory to write the synthetic grid into (optional)
+   */
+  public static void main(String[] args) {
+    Log.setLogLevel(LogType.INFO);
+    Log.msg(LogType.MANDATORY, "Running Test Temporal Warm Start");
+
+    boolean passed = runTestSupportedExecutors();
+    try {
+      passed &= runTestWarmStart(new File(args.length > 0 ? args[0] : "warm-start-grid"));
+    } catch (Throwable e) {
+      Log.msg(LogType.MANDATORY, "Warm start stitching failed: " + e.getMessage());
+      passed = false;
+    }
+
+    Log.msg(LogType.MANDATORY, "Test Completed: " + (passed ? "PASSED" : "FAILED"));
+  }
+}